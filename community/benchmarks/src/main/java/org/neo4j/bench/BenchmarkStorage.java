@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.io.pagecache.tracing.cursor.DefaultPageCursorTracerSupplier;
+
+/**
+ * A page cache on top of a temporary directory on the real file system, for benchmarks to create their synthetic
+ * stores in. Closing it closes the page cache, and deletes the directory with everything in it.
+ */
+public class BenchmarkStorage implements AutoCloseable
+{
+    private final File directory;
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+
+    /**
+     * @param cachePageSize The size of the pages in the page cache.
+     * @param maxPages The number of pages in the page cache.
+     */
+    public BenchmarkStorage( int cachePageSize, int maxPages ) throws IOException
+    {
+        directory = Files.createTempDirectory( "neo4j-benchmark" ).toFile();
+        fs = new DefaultFileSystemAbstraction();
+        SingleFilePageSwapperFactory swapperFactory = new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        pageCache = new MuninnPageCache( swapperFactory, maxPages, cachePageSize, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+    }
+
+    public PageCache pageCache()
+    {
+        return pageCache;
+    }
+
+    public File directory()
+    {
+        return directory;
+    }
+
+    public File file( String name )
+    {
+        return new File( directory, name );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            pageCache.close();
+            fs.close();
+        }
+        finally
+        {
+            FileUtils.deleteRecursively( directory );
+        }
+    }
+}
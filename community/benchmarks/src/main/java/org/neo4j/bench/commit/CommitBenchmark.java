@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.commit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * Commits small transactions, each creating a node with a couple of properties, from as many threads as given with
+ * {@code -t}. Every commit appends to and forces the transaction log, so the throughput at increasing numbers of
+ * threads shows how well concurrent committers share forces of the log, and how much the appending, forcing and
+ * applying of one batch of transactions overlaps with that of the next. Run it against the storage device of
+ * interest, by pointing {@code java.io.tmpdir} at it.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class CommitBenchmark
+{
+    private static final Label LABEL = Label.label( "Label" );
+
+    @Param( {"2"} )
+    public int propertiesPerNode;
+
+    @Param( {"false", "true"} )
+    public boolean compression;
+
+    private File directory;
+    private GraphDatabaseService db;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "neo4j-benchmark" ).toFile();
+        db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( new File( directory, "store" ) )
+                .setConfig( GraphDatabaseSettings.tx_log_compression, String.valueOf( compression ) )
+                .newGraphDatabase();
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        db.shutdown();
+        FileUtils.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    public long commit()
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode( LABEL );
+            for ( int i = 0; i < propertiesPerNode; i++ )
+            {
+                node.setProperty( "key" + i, i );
+            }
+            tx.success();
+            return node.getId();
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.BenchmarkStorage;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * Point look-ups, range scans and reads of a {@link GBPTree} that fits in the page cache, at various key sizes.
+ * The tree is populated with every even key in {@code [0, 2 * keys)}, so that the odd keys are free to be inserted.
+ * Readers can be run concurrently with {@code -t}.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class GBPTreeBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int RANGE_SIZE = 1000;
+
+    @Param( {"8", "32", "128"} )
+    public int keySize;
+
+    @Param( {"1000000"} )
+    public int keys;
+
+    private BenchmarkStorage storage;
+    private GBPTree<MutableLong,MutableLong> tree;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        long entrySize = keySize + Long.BYTES;
+        int maxPages = (int) (keys * 2 * entrySize / PAGE_SIZE) + 1024; // Room for half full leaves and the inserts.
+        storage = new BenchmarkStorage( PAGE_SIZE, maxPages );
+        tree = new GBPTree<>( storage.pageCache(), storage.file( "tree" ), new PaddedLongLayout( keySize ), 0,
+                GBPTree.NO_MONITOR, GBPTree.NO_HEADER_READER, GBPTree.NO_HEADER_WRITER,
+                RecoveryCleanupWorkCollector.IMMEDIATE );
+        MutableLong key = new MutableLong();
+        MutableLong value = new MutableLong();
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            for ( long i = 0; i < keys; i++ )
+            {
+                key.setValue( i * 2 );
+                value.setValue( i );
+                writer.put( key, value );
+            }
+        }
+        tree.checkpoint( IOLimiter.unlimited() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        tree.close();
+        storage.close();
+    }
+
+    @State( Scope.Thread )
+    public static class Keys
+    {
+        final MutableLong from = new MutableLong();
+        final MutableLong to = new MutableLong();
+    }
+
+    /**
+     * The writer of the tree, for the insert benchmark. There can only be one writer at a time, so the insert
+     * benchmark is always single threaded. It inserts every odd key once, in a scattered order, and after that keys
+     * above the populated range, so that every insert adds a new key instead of overwriting one.
+     */
+    @State( Scope.Thread )
+    public static class Inserts
+    {
+        // A prime larger than any number of keys, so that multiplying by it modulo keys visits every key once.
+        private static final long SCATTER = 1_000_000_007L;
+
+        Writer<MutableLong,MutableLong> writer;
+        final MutableLong key = new MutableLong();
+        final MutableLong value = new MutableLong();
+        long inserted;
+
+        long nextKey( int keys )
+        {
+            long n = inserted++;
+            return n < keys ? (n * SCATTER % keys) * 2 + 1 : keys * 2L + (n - keys);
+        }
+
+        @Setup( Level.Iteration )
+        public void openWriter( GBPTreeBenchmark benchmark ) throws IOException
+        {
+            writer = benchmark.tree.writer();
+        }
+
+        @TearDown( Level.Iteration )
+        public void closeWriter() throws IOException
+        {
+            writer.close();
+        }
+    }
+
+    @Benchmark
+    public long pointLookup( Keys k ) throws IOException
+    {
+        long key = ThreadLocalRandom.current().nextInt( keys ) * 2L;
+        k.from.setValue( key );
+        k.to.setValue( key + 1 );
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor = tree.seek( k.from, k.to ) )
+        {
+            return cursor.next() ? cursor.get().value().longValue() : -1;
+        }
+    }
+
+    @Benchmark
+    public long rangeScan( Keys k ) throws IOException
+    {
+        long from = ThreadLocalRandom.current().nextInt( keys - RANGE_SIZE ) * 2L;
+        k.from.setValue( from );
+        k.to.setValue( from + RANGE_SIZE * 2 );
+        long sum = 0;
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor = tree.seek( k.from, k.to ) )
+        {
+            while ( cursor.next() )
+            {
+                sum += cursor.get().value().longValue();
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @Threads( 1 )
+    public void insert( Inserts inserts ) throws IOException
+    {
+        long key = inserts.nextKey( keys );
+        inserts.key.setValue( key );
+        inserts.value.setValue( key );
+        inserts.writer.put( inserts.key, inserts.value );
+    }
+}
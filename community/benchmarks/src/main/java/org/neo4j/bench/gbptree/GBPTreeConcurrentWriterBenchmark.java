@@ -0,0 +1,258 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.BenchmarkStorage;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.index.internal.gbptree.Writer;
+import org.neo4j.io.pagecache.IOLimiter;
+
+/**
+ * Writes to a {@link GBPTree} from multiple threads, where every thread writes to its own range of keys, comparing
+ * {@link GBPTree#concurrentWriter() concurrent writers} against threads taking turns on the
+ * {@link GBPTree#writer() single writer}. Run with {@code -t} to choose the number of threads.
+ * <p>
+ * The tree is populated with every even key, so {@link #overwrite(Writes, StructureLockCounters) overwrites} are
+ * always made in place in a leaf, while {@link #insert(Writes, StructureLockCounters) inserts} of odd keys will
+ * now and then split a leaf, which concurrent writers can only do while holding the structure lock of the tree
+ * exclusively. The {@link StructureLockCounters} report how many changes needed the structure lock exclusively and
+ * how many times a writer had to wait for it, which is the contention to keep an eye on when adding threads.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class GBPTreeConcurrentWriterBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final int KEY_SIZE = 8;
+
+    @Param( {"concurrent", "single"} )
+    public String writer;
+
+    @Param( {"1000000"} )
+    public int keysPerThread;
+
+    @Param( {"16"} )
+    public int maxThreads;
+
+    private BenchmarkStorage storage;
+    private GBPTree<MutableLong,MutableLong> tree;
+    private Writer<MutableLong,MutableLong> singleWriter;
+    private final ThreadLocal<StructureLockCounters> counters = new ThreadLocal<>();
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        long entrySize = KEY_SIZE + Long.BYTES;
+        long keys = (long) keysPerThread * maxThreads;
+        int maxPages = (int) (keys * 2 * entrySize / PAGE_SIZE) + 1024; // Room for half full leaves and the inserts.
+        storage = new BenchmarkStorage( PAGE_SIZE, maxPages );
+        tree = new GBPTree<>( storage.pageCache(), storage.file( "tree" ), new PaddedLongLayout( KEY_SIZE ), 0,
+                new CountingMonitor(), GBPTree.NO_HEADER_READER, GBPTree.NO_HEADER_WRITER,
+                RecoveryCleanupWorkCollector.IMMEDIATE );
+        MutableLong key = new MutableLong();
+        MutableLong value = new MutableLong();
+        try ( Writer<MutableLong,MutableLong> writer = tree.writer() )
+        {
+            for ( long i = 0; i < keys; i++ )
+            {
+                key.setValue( i * 2 );
+                value.setValue( i );
+                writer.put( key, value );
+            }
+        }
+        tree.checkpoint( IOLimiter.unlimited() );
+    }
+
+    @Setup( Level.Iteration )
+    public void openSingleWriter() throws IOException
+    {
+        if ( !concurrent() )
+        {
+            singleWriter = tree.writer();
+        }
+    }
+
+    @TearDown( Level.Iteration )
+    public void closeSingleWriter() throws IOException
+    {
+        if ( singleWriter != null )
+        {
+            singleWriter.close();
+            singleWriter = null;
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        tree.close();
+        storage.close();
+    }
+
+    /**
+     * Counts acquisitions of the structure lock of the tree made by the concurrent writer of one thread.
+     */
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class StructureLockCounters
+    {
+        public long shared;
+        public long exclusive;
+        public long contended;
+
+        @Setup( Level.Iteration )
+        public void register( GBPTreeConcurrentWriterBenchmark benchmark )
+        {
+            shared = 0;
+            exclusive = 0;
+            contended = 0;
+            benchmark.counters.set( this );
+        }
+    }
+
+    /**
+     * The key range of one thread, which is the keys in {@code [threadIndex * keysPerThread * 2,
+     * (threadIndex + 1) * keysPerThread * 2)}, and its writer.
+     */
+    @State( Scope.Thread )
+    public static class Writes
+    {
+        Writer<MutableLong,MutableLong> writer;
+        final MutableLong key = new MutableLong();
+        final MutableLong value = new MutableLong();
+        long firstKey;
+
+        @Setup( Level.Trial )
+        public void selectRange( GBPTreeConcurrentWriterBenchmark benchmark, ThreadParams threadParams )
+        {
+            if ( threadParams.getThreadCount() > benchmark.maxThreads )
+            {
+                throw new IllegalArgumentException( "Can not run with more than maxThreads=" + benchmark.maxThreads +
+                        " threads, but was " + threadParams.getThreadCount() );
+            }
+            firstKey = threadParams.getThreadIndex() * (long) benchmark.keysPerThread * 2;
+        }
+
+        @Setup( Level.Iteration )
+        public void openWriter( GBPTreeConcurrentWriterBenchmark benchmark ) throws IOException
+        {
+            writer = benchmark.concurrent() ? benchmark.tree.concurrentWriter() : null;
+        }
+
+        @TearDown( Level.Iteration )
+        public void closeWriter() throws IOException
+        {
+            if ( writer != null )
+            {
+                writer.close();
+                writer = null;
+            }
+        }
+
+        long randomKey( int keysPerThread, boolean odd )
+        {
+            return firstKey + ThreadLocalRandom.current().nextInt( keysPerThread ) * 2L + (odd ? 1 : 0);
+        }
+    }
+
+    @Benchmark
+    public void overwrite( Writes writes, StructureLockCounters counters ) throws IOException
+    {
+        write( writes, writes.randomKey( keysPerThread, false ) );
+    }
+
+    @Benchmark
+    public void insert( Writes writes, StructureLockCounters counters ) throws IOException
+    {
+        write( writes, writes.randomKey( keysPerThread, true ) );
+    }
+
+    private boolean concurrent()
+    {
+        return "concurrent".equals( writer );
+    }
+
+    private void write( Writes writes, long key ) throws IOException
+    {
+        writes.key.setValue( key );
+        writes.value.setValue( key );
+        if ( writes.writer != null )
+        {
+            writes.writer.put( writes.key, writes.value );
+        }
+        else
+        {
+            synchronized ( this )
+            {
+                singleWriter.put( writes.key, writes.value );
+            }
+        }
+    }
+
+    private class CountingMonitor extends GBPTree.Monitor.Adaptor
+    {
+        @Override
+        public void structureLockAcquired( boolean exclusive, boolean contended )
+        {
+            StructureLockCounters threadCounters = counters.get();
+            if ( threadCounters != null )
+            {
+                if ( exclusive )
+                {
+                    threadCounters.exclusive++;
+                }
+                else
+                {
+                    threadCounters.shared++;
+                }
+                if ( contended )
+                {
+                    threadCounters.contended++;
+                }
+            }
+        }
+    }
+}
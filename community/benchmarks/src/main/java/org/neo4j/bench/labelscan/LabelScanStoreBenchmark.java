@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.labelscan;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.BenchmarkStorage;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.FullStoreChangeStream;
+import org.neo4j.kernel.impl.index.labelscan.NativeLabelScanStore;
+import org.neo4j.kernel.monitoring.Monitors;
+import org.neo4j.storageengine.api.schema.LabelScanReader;
+
+/**
+ * Reads from a {@link NativeLabelScanStore} that fits in the page cache. The store is built from a synthetic stream
+ * of nodes, where every node has each of the labels with a probability of one half.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class LabelScanStoreBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+    private static final long[] NO_LABELS = new long[0];
+
+    @Param( {"1000000"} )
+    public int nodes;
+
+    @Param( {"8"} )
+    public int labels;
+
+    private BenchmarkStorage storage;
+    private NativeLabelScanStore store;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        // Each label has a bit for every node, and the tree has some overhead on top of that.
+        int maxPages = (int) ((long) nodes * labels / Byte.SIZE / PAGE_SIZE) * 4 + 1024;
+        storage = new BenchmarkStorage( PAGE_SIZE, maxPages );
+        store = new NativeLabelScanStore( storage.pageCache(), storage.directory(), syntheticNodes(), false,
+                new Monitors(), RecoveryCleanupWorkCollector.IMMEDIATE );
+        store.init();
+        store.start();
+    }
+
+    private FullStoreChangeStream syntheticNodes()
+    {
+        return writer ->
+        {
+            Random random = new Random( 42 );
+            long[] nodeLabels = new long[labels];
+            for ( long nodeId = 0; nodeId < nodes; nodeId++ )
+            {
+                int count = 0;
+                for ( int label = 0; label < labels; label++ )
+                {
+                    if ( random.nextBoolean() )
+                    {
+                        nodeLabels[count++] = label;
+                    }
+                }
+                long[] after = new long[count];
+                System.arraycopy( nodeLabels, 0, after, 0, count );
+                writer.write( NodeLabelUpdate.labelChanges( nodeId, NO_LABELS, after ) );
+            }
+            return nodes;
+        };
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        store.stop();
+        store.shutdown();
+        storage.close();
+    }
+
+    @Benchmark
+    public long nodesWithLabel()
+    {
+        try ( LabelScanReader reader = store.newReader() )
+        {
+            return count( reader.nodesWithLabel( randomLabel() ) );
+        }
+    }
+
+    @Benchmark
+    public long nodesWithAnyOfLabels()
+    {
+        try ( LabelScanReader reader = store.newReader() )
+        {
+            return count( reader.nodesWithAnyOfLabels( randomLabel(), randomLabel() ) );
+        }
+    }
+
+    @Benchmark
+    public long nodesWithAllLabels()
+    {
+        try ( LabelScanReader reader = store.newReader() )
+        {
+            return count( reader.nodesWithAllLabels( randomLabel(), randomLabel() ) );
+        }
+    }
+
+    private int randomLabel()
+    {
+        return ThreadLocalRandom.current().nextInt( labels );
+    }
+
+    private static long count( PrimitiveLongIterator nodeIds )
+    {
+        long count = 0;
+        while ( nodeIds.hasNext() )
+        {
+            nodeIds.next();
+            count++;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+/**
+ * JMH micro benchmarks for the page cache, the page cursors, the {@link org.neo4j.index.internal.gbptree.GBPTree} and
+ * the native label scan store, a benchmark of committing small transactions from concurrent threads, and a benchmark
+ * of recovering a database from a synthetic transaction log.
+ * <p>
+ * All benchmarks create their own synthetic stores in a temporary directory during setup, and delete them again
+ * during tear down, so they can be run offline and without an existing database. Build the self-contained benchmark
+ * jar and run it with the usual JMH options, for instance:
+ * <pre>
+ *     mvn package -pl community/benchmarks -am -DskipTests
+ *     java -jar community/benchmarks/target/benchmarks.jar GBPTreeBenchmark -p keySize=8,128 -t 4
+ * </pre>
+ * Write throughput of concurrent writers of the {@link org.neo4j.index.internal.gbptree.GBPTree}, together with how
+ * often they contend on the structure lock of the tree, is measured by running
+ * {@code GBPTreeConcurrentWriterBenchmark} with increasing {@code -t}.
+ * How much vectored page IO gains from keeping several page transfers in flight at once is measured by
+ * {@code PageSwapperQueueDepthBenchmark}, for instance with {@code -p swapper=async -p queueDepth=1,4,16}.
+ * The effect of aligning the page cache memory to huge pages, on random accesses to the pages, is measured by
+ * {@code HugePageAccessBenchmark}.
+ * The temporary directory can be chosen with the {@code java.io.tmpdir} system property, which makes it possible to
+ * benchmark against a specific storage device.
+ */
+package org.neo4j.bench;
@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Reads a long at a random offset in a random 8 KiB page, over page memory allocated the way the page cache does
+ * it, with and without {@link org.neo4j.graphdb.factory.GraphDatabaseSettings#pagecache_huge_page_alignment_enabled
+ * huge page alignment}. Transparent huge pages must be set to {@code always} in
+ * {@code /sys/kernel/mm/transparent_hugepage/enabled} for the alignment to make a difference. Run with
+ * {@code -prof perfnorm} to see the dTLB load misses per access next to the throughput.
+ * <p>
+ * The memory is not freed after the trial, so every trial runs in a fork of its own.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class HugePageAccessBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    @Param( {"false", "true"} )
+    public boolean hugePageAlignment;
+
+    @Param( {"4096"} )
+    public int memoryMiB;
+
+    private long[] pages;
+
+    @Setup( Level.Trial )
+    public void setUp()
+    {
+        long memory = memoryMiB * 1024L * 1024L;
+        MemoryManager memoryManager = new MemoryManager( memory, UnsafeUtil.pageSize(), hugePageAlignment );
+        pages = new long[(int) (memory / PAGE_SIZE)];
+        for ( int i = 0; i < pages.length; i++ )
+        {
+            pages[i] = memoryManager.allocateAligned( PAGE_SIZE );
+            UnsafeUtil.setMemory( pages[i], PAGE_SIZE, (byte) i );
+        }
+    }
+
+    @Benchmark
+    public long randomPageAccess()
+    {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        long page = pages[rng.nextInt( pages.length )];
+        return UnsafeUtil.getLong( page + (rng.nextInt( PAGE_SIZE / Long.BYTES ) << 3) );
+    }
+}
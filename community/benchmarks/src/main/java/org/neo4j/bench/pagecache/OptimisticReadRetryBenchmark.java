@@ -0,0 +1,155 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.pagecache;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.BenchmarkStorage;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * How often optimistic reads have to be retried, when readers read whole pages that a concurrent writer is
+ * modifying. The {@code reads} and {@code retries} counters are reported next to the throughput of the readers, and
+ * their ratio is the retry rate.
+ */
+@State( Scope.Group )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class OptimisticReadRetryBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    /**
+     * The number of pages that the readers and the writer pick from. Fewer pages means more conflicts.
+     */
+    @Param( {"1", "16", "1024"} )
+    public int pages;
+
+    private BenchmarkStorage storage;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        storage = new BenchmarkStorage( PAGE_SIZE, pages + 1024 );
+        pagedFile = storage.pageCache().map( storage.file( "pages" ), PAGE_SIZE, CREATE );
+        PageCacheBenchmarks.fill( pagedFile, pages );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        storage.close();
+    }
+
+    @State( Scope.Thread )
+    @AuxCounters( AuxCounters.Type.EVENTS )
+    public static class ReadCounters
+    {
+        public long reads;
+        public long retries;
+
+        @Setup( Level.Iteration )
+        public void reset()
+        {
+            reads = 0;
+            retries = 0;
+        }
+    }
+
+    @Benchmark
+    @Group( "readWhileWriting" )
+    @GroupThreads( 3 )
+    public long read( ReadCounters counters ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPage(), PF_SHARED_READ_LOCK ) )
+        {
+            long sum = 0;
+            if ( cursor.next() )
+            {
+                counters.reads++;
+                boolean retry;
+                do
+                {
+                    sum = 0;
+                    for ( int offset = 0; offset < PAGE_SIZE; offset += Long.BYTES )
+                    {
+                        sum += cursor.getLong( offset );
+                    }
+                    retry = cursor.shouldRetry();
+                    if ( retry )
+                    {
+                        counters.retries++;
+                    }
+                }
+                while ( retry );
+            }
+            return sum;
+        }
+    }
+
+    @Benchmark
+    @Group( "readWhileWriting" )
+    @GroupThreads( 1 )
+    public void write() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPage(), PF_SHARED_WRITE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                int offset = ThreadLocalRandom.current().nextInt( PAGE_SIZE / Long.BYTES ) * Long.BYTES;
+                cursor.putLong( offset, cursor.getLong( offset ) + 1 );
+            }
+        }
+    }
+
+    private long randomPage()
+    {
+        return ThreadLocalRandom.current().nextInt( pages );
+    }
+}
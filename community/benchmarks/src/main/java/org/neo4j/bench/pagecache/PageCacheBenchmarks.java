@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.pagecache;
+
+import java.io.IOException;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+final class PageCacheBenchmarks
+{
+    private PageCacheBenchmarks()
+    {
+    }
+
+    /**
+     * Write the given number of pages to the start of the given file, with the page id in every long of the page, and
+     * flush them. The pages stay in memory, provided the page cache is big enough.
+     */
+    static void fill( PagedFile pagedFile, int pages ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < pages; i++ )
+            {
+                if ( !cursor.next() )
+                {
+                    throw new IllegalStateException( "Could not grow the file to " + pages + " pages" );
+                }
+                for ( int offset = 0; offset < pagedFile.pageSize(); offset += Long.BYTES )
+                {
+                    cursor.putLong( offset, cursor.getCurrentPageId() );
+                }
+            }
+        }
+        pagedFile.flushAndForce();
+    }
+}
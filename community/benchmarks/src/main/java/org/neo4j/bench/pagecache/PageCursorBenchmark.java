@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.bench.BenchmarkStorage;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+
+/**
+ * Throughput of pinning and unpinning pages that are already in memory, with read and write cursors, when all
+ * benchmark threads compete for the same small set of pages, or are spread out over many pages.
+ * <p>
+ * Run with {@code -t} to vary the amount of contention.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+@Threads( 4 )
+public class PageCursorBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    /**
+     * The number of pages in the file. All pages fit in the page cache, so there is no page faulting after setup.
+     */
+    @Param( {"1", "64", "16384"} )
+    public int pages;
+
+    private BenchmarkStorage storage;
+    private PagedFile pagedFile;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        storage = new BenchmarkStorage( PAGE_SIZE, pages + 1024 );
+        pagedFile = storage.pageCache().map( storage.file( "pages" ), PAGE_SIZE, CREATE );
+        PageCacheBenchmarks.fill( pagedFile, pages );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        pagedFile.close();
+        storage.close();
+    }
+
+    @State( Scope.Thread )
+    public static class ReusedCursors
+    {
+        PageCursor reader;
+        PageCursor writer;
+
+        @Setup( Level.Iteration )
+        public void openCursors( PageCursorBenchmark benchmark ) throws IOException
+        {
+            reader = benchmark.pagedFile.io( 0, PF_SHARED_READ_LOCK );
+            writer = benchmark.pagedFile.io( 0, PF_SHARED_WRITE_LOCK );
+        }
+
+        @TearDown( Level.Iteration )
+        public void closeCursors()
+        {
+            reader.close();
+            writer.close();
+        }
+    }
+
+    @Benchmark
+    public long pinReadUnpin() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPage(), PF_SHARED_READ_LOCK ) )
+        {
+            return readPage( cursor );
+        }
+    }
+
+    @Benchmark
+    public long pinWriteUnpin() throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( randomPage(), PF_SHARED_WRITE_LOCK ) )
+        {
+            return writePage( cursor );
+        }
+    }
+
+    /**
+     * Same as {@link #pinReadUnpin()}, but without the cost of taking a cursor from the cursor pool and returning it.
+     */
+    @Benchmark
+    public long pinReadWithReusedCursor( ReusedCursors cursors ) throws IOException
+    {
+        PageCursor cursor = cursors.reader;
+        if ( cursor.next( randomPage() ) )
+        {
+            long value;
+            do
+            {
+                value = cursor.getLong( 0 );
+            }
+            while ( cursor.shouldRetry() );
+            return value;
+        }
+        return -1;
+    }
+
+    /**
+     * Same as {@link #pinWriteUnpin()}, but without the cost of taking a cursor from the cursor pool and returning it.
+     */
+    @Benchmark
+    public long pinWriteWithReusedCursor( ReusedCursors cursors ) throws IOException
+    {
+        PageCursor cursor = cursors.writer;
+        if ( cursor.next( randomPage() ) )
+        {
+            long value = cursor.getLong( 0 ) + 1;
+            cursor.putLong( 0, value );
+            return value;
+        }
+        return -1;
+    }
+
+    private long randomPage()
+    {
+        return ThreadLocalRandom.current().nextInt( pages );
+    }
+
+    private static long readPage( PageCursor cursor ) throws IOException
+    {
+        if ( cursor.next() )
+        {
+            long value;
+            do
+            {
+                value = cursor.getLong( 0 );
+            }
+            while ( cursor.shouldRetry() );
+            return value;
+        }
+        return -1;
+    }
+
+    private static long writePage( PageCursor cursor ) throws IOException
+    {
+        if ( cursor.next() )
+        {
+            long value = cursor.getLong( 0 ) + 1;
+            cursor.putLong( 0, value );
+            return value;
+        }
+        return -1;
+    }
+}
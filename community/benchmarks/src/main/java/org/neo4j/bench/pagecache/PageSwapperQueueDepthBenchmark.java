@@ -0,0 +1,180 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.pagecache;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.impl.AsyncBatchedPageSwapperFactory;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * Vectored page reads and writes of batches of consecutive pages at random places in a file, through the
+ * {@link org.neo4j.io.pagecache.impl.SingleFilePageSwapper} and through the
+ * {@link org.neo4j.io.pagecache.impl.AsyncBatchedPageSwapper} at various queue depths. The throughput is in
+ * batches, so multiply by {@code pagesPerBatch} and the page size to get bytes.
+ * <p>
+ * The file should be larger than the memory that the OS can cache it in, or the OS page cache should be dropped
+ * between runs, or the reads will be served from memory. Point {@code java.io.tmpdir} at the device of interest.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.Throughput )
+@OutputTimeUnit( TimeUnit.SECONDS )
+@Fork( 1 )
+@Warmup( iterations = 5 )
+@Measurement( iterations = 5 )
+public class PageSwapperQueueDepthBenchmark
+{
+    private static final int PAGE_SIZE = 8192;
+
+    @Param( {"single", "async"} )
+    public String swapper;
+
+    /**
+     * The number of page transfers that the async swapper keeps in flight. Ignored by the single swapper.
+     */
+    @Param( {"2", "4", "8", "16", "32"} )
+    public int queueDepth;
+
+    @Param( {"1024"} )
+    public int fileSizeMiB;
+
+    @Param( {"32"} )
+    public int pagesPerBatch;
+
+    private File directory;
+    private FileSystemAbstraction fs;
+    private PageSwapperFactory swapperFactory;
+    private PageSwapper pageSwapper;
+    private long batches;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "neo4j-benchmark" ).toFile();
+        fs = new DefaultFileSystemAbstraction();
+        swapperFactory = "async".equals( swapper ) ? new AsyncBatchedPageSwapperFactory( queueDepth )
+                                                   : new SingleFilePageSwapperFactory();
+        swapperFactory.open( fs, Configuration.EMPTY );
+        pageSwapper = swapperFactory.createPageSwapper( new File( directory, "pages" ), PAGE_SIZE,
+                filePageId -> {}, true );
+        batches = (long) fileSizeMiB * 1024 * 1024 / PAGE_SIZE / pagesPerBatch;
+
+        Buffers buffers = new Buffers();
+        buffers.allocate( this );
+        try
+        {
+            for ( long batch = 0; batch < batches; batch++ )
+            {
+                pageSwapper.write( batch * pagesPerBatch, buffers.pages, 0, pagesPerBatch );
+            }
+            pageSwapper.force();
+        }
+        finally
+        {
+            buffers.free();
+        }
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        try
+        {
+            pageSwapper.close();
+            swapperFactory.close();
+            fs.close();
+        }
+        finally
+        {
+            FileUtils.deleteRecursively( directory );
+        }
+    }
+
+    /**
+     * The pages that one thread reads into and writes from.
+     */
+    @State( Scope.Thread )
+    public static class Buffers
+    {
+        long[] pages;
+
+        @Setup( Level.Trial )
+        public void allocate( PageSwapperQueueDepthBenchmark benchmark )
+        {
+            pages = new long[benchmark.pagesPerBatch];
+            for ( int i = 0; i < pages.length; i++ )
+            {
+                pages[i] = UnsafeUtil.allocateMemory( PAGE_SIZE );
+                UnsafeUtil.setMemory( pages[i], PAGE_SIZE, (byte) i );
+            }
+        }
+
+        @TearDown( Level.Trial )
+        public void free()
+        {
+            for ( long page : pages )
+            {
+                UnsafeUtil.free( page );
+            }
+        }
+    }
+
+    @Benchmark
+    public long read( Buffers buffers ) throws IOException
+    {
+        return pageSwapper.read( randomBatch() * pagesPerBatch, buffers.pages, PAGE_SIZE, 0, pagesPerBatch );
+    }
+
+    @Benchmark
+    public long write( Buffers buffers ) throws IOException
+    {
+        return pageSwapper.write( randomBatch() * pagesPerBatch, buffers.pages, 0, pagesPerBatch );
+    }
+
+    private long randomBatch()
+    {
+        return ThreadLocalRandom.current().nextLong( batches );
+    }
+}
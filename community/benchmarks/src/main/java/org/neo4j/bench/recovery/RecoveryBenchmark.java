@@ -0,0 +1,159 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.bench.recovery;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.fs.FileUtils;
+
+/**
+ * Recovers a database from a synthetic transaction log, where most transactions create a node of their own, and
+ * the rest update one of a few hot nodes. The hot nodes make for transactions which must be applied in the order
+ * they were committed, when recovering with more than one thread.
+ * <p>
+ * The crashed database is a copy of the store directory of a running database which hasn't check pointed since
+ * before the transactions were committed, so that all of them are recovered when starting a database on a copy
+ * of the crashed one.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.SingleShotTime )
+@OutputTimeUnit( TimeUnit.MILLISECONDS )
+@Fork( 1 )
+@Warmup( iterations = 2 )
+@Measurement( iterations = 5 )
+public class RecoveryBenchmark
+{
+    private static final Label LABEL = Label.label( "Label" );
+    private static final int HOT_NODES = 16;
+
+    @Param( {"50000"} )
+    public int transactions;
+
+    @Param( {"0.1"} )
+    public double hotNodeUpdateRatio;
+
+    @Param( {"1", "4", "8"} )
+    public int parallelism;
+
+    private File directory;
+    private File crashedStore;
+    private File recoveredStore;
+
+    @Setup( Level.Trial )
+    public void setUp() throws IOException
+    {
+        directory = Files.createTempDirectory( "neo4j-benchmark" ).toFile();
+        crashedStore = new File( directory, "crashed" );
+        recoveredStore = new File( directory, "recovered" );
+        File store = new File( directory, "store" );
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( store )
+                .setConfig( GraphDatabaseSettings.check_point_interval_tx, String.valueOf( Integer.MAX_VALUE ) )
+                .setConfig( GraphDatabaseSettings.check_point_interval_time, "24h" )
+                .newGraphDatabase();
+        try
+        {
+            commitSyntheticTransactions( db );
+            // Transactions are forced to the log when committed, while the store files are not
+            FileUtils.copyRecursively( store, crashedStore );
+        }
+        finally
+        {
+            db.shutdown();
+        }
+    }
+
+    private void commitSyntheticTransactions( GraphDatabaseService db )
+    {
+        long[] hotNodes = new long[HOT_NODES];
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( int i = 0; i < HOT_NODES; i++ )
+            {
+                hotNodes[i] = db.createNode( LABEL ).getId();
+            }
+            tx.success();
+        }
+
+        Random random = new Random( 42 );
+        for ( int i = 0; i < transactions; i++ )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                if ( random.nextDouble() < hotNodeUpdateRatio )
+                {
+                    db.getNodeById( hotNodes[random.nextInt( HOT_NODES )] ).setProperty( "count", i );
+                }
+                else
+                {
+                    Node node = db.createNode( LABEL );
+                    node.setProperty( "id", i );
+                    node.setProperty( "name", "node-" + i );
+                }
+                tx.success();
+            }
+        }
+    }
+
+    @Setup( Level.Invocation )
+    public void copyCrashedStore() throws IOException
+    {
+        FileUtils.deleteRecursively( recoveredStore );
+        FileUtils.copyRecursively( crashedStore, recoveredStore );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDown() throws IOException
+    {
+        FileUtils.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    public void recover()
+    {
+        GraphDatabaseService db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( recoveredStore )
+                .setConfig( GraphDatabaseSettings.recovery_parallelism, String.valueOf( parallelism ) )
+                .newGraphDatabase();
+        db.shutdown();
+    }
+}
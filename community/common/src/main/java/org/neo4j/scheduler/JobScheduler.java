@@ -174,6 +174,11 @@ public interface JobScheduler extends Lifecycle
          */
         public static Group transactionTimeoutMonitor = new Group( "TransactionTimeoutMonitor" );
 
+        /**
+         * Profiling and warming up the page cache.
+         */
+        public static final Group pageCacheWarmup = new Group( "PageCacheWarmup" );
+
         private Groups()
         {
         }
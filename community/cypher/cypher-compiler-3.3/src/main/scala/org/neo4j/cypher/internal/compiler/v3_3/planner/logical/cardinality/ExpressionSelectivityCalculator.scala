@@ -27,7 +27,7 @@ import org.neo4j.cypher.internal.compiler.v3_3.spi.GraphStatistics
 import org.neo4j.cypher.internal.compiler.v3_3.spi.GraphStatistics._
 import org.neo4j.cypher.internal.compiler.v3_3.{IndexDescriptor, PrefixRange}
 import org.neo4j.cypher.internal.frontend.v3_3.ast._
-import org.neo4j.cypher.internal.frontend.v3_3.{LabelId, SemanticTable}
+import org.neo4j.cypher.internal.frontend.v3_3.{Bound, ExclusiveBound, InclusiveBound, LabelId, SemanticTable}
 import org.neo4j.cypher.internal.ir.v3_3.{Cardinality, IdName, Selections, Selectivity}
 
 trait Expression2Selectivity {
@@ -182,7 +182,60 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
 
   private def calculateSelectivityForValueRangeSeekable(seekable: InequalityRangeSeekable,
                                                         selections: Selections)
-                                                       (implicit semanticTable: SemanticTable): Selectivity = {
+                                                       (implicit semanticTable: SemanticTable): Selectivity =
+    calculateSelectivityForNumberRange(seekable, selections).getOrElse {
+      calculateDefaultSelectivityForValueRangeSeekable(seekable, selections)
+    }
+
+  /*
+   * Ranges bounded only by number literals, e.g. x.prop > 10 AND x.prop <= 20, can be estimated from the value
+   * histograms kept for the indexes on the property. Parameters have no known value when planning, so they are not.
+   */
+  private def calculateSelectivityForNumberRange(seekable: InequalityRangeSeekable,
+                                                 selections: Selections)
+                                                (implicit semanticTable: SemanticTable): Option[Selectivity] =
+    numberLiteralBounds(seekable).flatMap {
+      case (lower, upper) =>
+        val labels = selections.labelsOnNode(IdName(seekable.ident.name))
+        val indexRangeSelectivities = labels.toIndexedSeq.flatMap {
+          labelName =>
+            (labelName.id, seekable.propertyKeyName.id) match {
+              case (Some(labelId), Some(propertyKeyId)) =>
+                stats.indexRangeSelectivity(IndexDescriptor(labelId, propertyKeyId), lower, upper)
+
+              case _ =>
+                None
+            }
+        }
+        combiner.orTogetherSelectivities(indexRangeSelectivities)
+    }
+
+  private def numberLiteralBounds(seekable: InequalityRangeSeekable): Option[(Option[Bound[Double]], Option[Bound[Double]])] = {
+    val bounds: Seq[Option[Either[Bound[Double], Bound[Double]]]] = seekable.expr.inequalities.toIterable.toIndexedSeq.map {
+      case GreaterThan(_, literal: NumberLiteral) => Some(Left(ExclusiveBound(doubleValue(literal))))
+      case GreaterThanOrEqual(_, literal: NumberLiteral) => Some(Left(InclusiveBound(doubleValue(literal))))
+      case LessThan(_, literal: NumberLiteral) => Some(Right(ExclusiveBound(doubleValue(literal))))
+      case LessThanOrEqual(_, literal: NumberLiteral) => Some(Right(InclusiveBound(doubleValue(literal))))
+      case _ => None
+    }
+
+    if (bounds.exists(_.isEmpty))
+      None
+    else {
+      val lowers = bounds.flatten.collect { case Left(bound) => bound }
+      val uppers = bounds.flatten.collect { case Right(bound) => bound }
+      Some((lowers.reduceOption(tighterBound(_ > _)), uppers.reduceOption(tighterBound(_ < _))))
+    }
+  }
+
+  private def tighterBound(isTighter: (Double, Double) => Boolean)(a: Bound[Double], b: Bound[Double]): Bound[Double] =
+    if (isTighter(a.endPoint, b.endPoint) || (a.endPoint == b.endPoint && !a.isInclusive)) a else b
+
+  private def doubleValue(literal: NumberLiteral): Double = literal.value.asInstanceOf[Number].doubleValue()
+
+  private def calculateDefaultSelectivityForValueRangeSeekable(seekable: InequalityRangeSeekable,
+                                                               selections: Selections)
+                                                              (implicit semanticTable: SemanticTable): Selectivity = {
     val name = seekable.ident.name
     val propertyKeyName = seekable.expr.property.propertyKey
     val equalitySelectivity = calculateSelectivityForPropertyEquality(name, Some(1), selections, propertyKeyName).factor
@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v3_3.spi
 
 import org.neo4j.cypher.internal.compiler.v3_3.IndexDescriptor
-import org.neo4j.cypher.internal.frontend.v3_3.{LabelId, RelTypeId}
+import org.neo4j.cypher.internal.frontend.v3_3.{Bound, LabelId, RelTypeId}
 import org.neo4j.cypher.internal.ir.v3_3.{Cardinality, Selectivity}
 
 object GraphStatistics {
@@ -54,6 +54,15 @@ trait GraphStatistics {
       indexPropertyExistsSelectivity(:X, prop) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE has(x.prop)|
    */
   def indexPropertyExistsSelectivity(index: IndexDescriptor): Option[Selectivity]
+
+  /*
+      Probability of any node with the given label, to have a particular property with a numeric value in the given range.
+      None if there is no histogram of the values of the property, which is the default.
+
+      indexRangeSelectivity(:X, prop, lower, upper) = s => |MATCH (a:X)| * s = |MATCH (a:X) WHERE lower < x.prop < upper|
+   */
+  def indexRangeSelectivity(index: IndexDescriptor, lower: Option[Bound[Double]], upper: Option[Bound[Double]]): Option[Selectivity] =
+    None
 }
 
 class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatistics {
@@ -68,6 +77,9 @@ class DelegatingGraphStatistics(delegate: GraphStatistics) extends GraphStatisti
 
   override def indexPropertyExistsSelectivity(index: IndexDescriptor): Option[Selectivity] =
     delegate.indexPropertyExistsSelectivity(index)
+
+  override def indexRangeSelectivity(index: IndexDescriptor, lower: Option[Bound[Double]], upper: Option[Bound[Double]]): Option[Selectivity] =
+    delegate.indexRangeSelectivity(index, lower, upper)
 }
 
 class StatisticsCompletingGraphStatistics(delegate: GraphStatistics)
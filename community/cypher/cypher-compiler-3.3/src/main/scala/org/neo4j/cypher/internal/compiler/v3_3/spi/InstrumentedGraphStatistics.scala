@@ -22,7 +22,7 @@ package org.neo4j.cypher.internal.compiler.v3_3.spi
 import java.lang.Math.{abs, max}
 
 import org.neo4j.cypher.internal.compiler.v3_3.IndexDescriptor
-import org.neo4j.cypher.internal.frontend.v3_3.{LabelId, RelTypeId}
+import org.neo4j.cypher.internal.frontend.v3_3.{Bound, LabelId, RelTypeId}
 import org.neo4j.cypher.internal.ir.v3_3.{Cardinality, Selectivity}
 
 import scala.collection.mutable
@@ -32,6 +32,7 @@ case class NodesWithLabelCardinality(labelId: Option[LabelId]) extends Statistic
 case class CardinalityByLabelsAndRelationshipType(lhs: Option[LabelId], relType: Option[RelTypeId], rhs: Option[LabelId]) extends StatisticsKey
 case class IndexSelectivity(index: IndexDescriptor) extends StatisticsKey
 case class IndexPropertyExistsSelectivity(index: IndexDescriptor) extends StatisticsKey
+case class IndexRangeSelectivity(index: IndexDescriptor, lower: Option[Bound[Double]], upper: Option[Bound[Double]]) extends StatisticsKey
 
 class MutableGraphStatisticsSnapshot(val map: mutable.Map[StatisticsKey, Double] = mutable.Map.empty) {
   def freeze: GraphStatisticsSnapshot = GraphStatisticsSnapshot(map.toMap)
@@ -50,6 +51,8 @@ case class GraphStatisticsSnapshot(statsValues: Map[StatisticsKey, Double] = Map
         instrumented.indexSelectivity(index)
       case IndexPropertyExistsSelectivity(index) =>
         instrumented.indexPropertyExistsSelectivity(index)
+      case IndexRangeSelectivity(index, lower, upper) =>
+        instrumented.indexRangeSelectivity(index, lower, upper)
     }
     snapshot.freeze
   }
@@ -89,4 +92,10 @@ case class InstrumentedGraphStatistics(inner: GraphStatistics, snapshot: Mutable
     snapshot.map.getOrElseUpdate(IndexPropertyExistsSelectivity(index), selectivity.fold(0.0)(_.factor))
     selectivity
   }
+
+  override def indexRangeSelectivity(index: IndexDescriptor, lower: Option[Bound[Double]], upper: Option[Bound[Double]]): Option[Selectivity] = {
+    val selectivity = inner.indexRangeSelectivity(index, lower, upper)
+    snapshot.map.getOrElseUpdate(IndexRangeSelectivity(index, lower, upper), selectivity.fold(0.0)(_.factor))
+    selectivity
+  }
 }
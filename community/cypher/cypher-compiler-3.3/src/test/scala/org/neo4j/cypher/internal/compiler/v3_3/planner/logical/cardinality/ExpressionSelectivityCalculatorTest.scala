@@ -19,14 +19,15 @@
  */
 package org.neo4j.cypher.internal.compiler.v3_3.planner.logical.cardinality
 
-import org.mockito.Mockito.when
+import org.mockito.Matchers.any
+import org.mockito.Mockito.{never, verify, when}
 import org.neo4j.cypher.internal.compiler.v3_3.IndexDescriptor
 import org.neo4j.cypher.internal.compiler.v3_3.spi.GraphStatistics
 import org.neo4j.cypher.internal.frontend.v3_3.ast._
 import org.neo4j.cypher.internal.frontend.v3_3.helpers.NonEmptyList
 import org.neo4j.cypher.internal.frontend.v3_3.symbols._
 import org.neo4j.cypher.internal.frontend.v3_3.test_helpers.CypherFunSuite
-import org.neo4j.cypher.internal.frontend.v3_3.{InputPosition, LabelId, PropertyKeyId, SemanticTable}
+import org.neo4j.cypher.internal.frontend.v3_3.{ExclusiveBound, InclusiveBound, InputPosition, LabelId, PropertyKeyId, SemanticTable}
 import org.neo4j.cypher.internal.ir.v3_3._
 
 class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstructionTestSupport {
@@ -90,6 +91,55 @@ class ExpressionSelectivityCalculatorTest extends CypherFunSuite with AstConstru
     result.factor should equal(0.06)
   }
 
+  test("Should use index histograms for range predicates on number literals") {
+    implicit val semanticTable = SemanticTable()
+    semanticTable.resolvedLabelIds.put("Person", index.label)
+    semanticTable.resolvedPropertyKeyNames.put("prop", index.property)
+
+    val n_is_Person = Predicate(Set(IdName("n")), HasLabels(varFor("n"), Seq(LabelName("Person") _)) _)
+    val n_prop: Property = Property(varFor("n"), PropertyKeyName("prop")_)_
+    val n_gt_3_and_lte_4 = Predicate(Set(IdName("n")), AndedPropertyInequalities(varFor("n"), n_prop, NonEmptyList(
+      GreaterThan(n_prop, SignedDecimalIntegerLiteral("3")_)_,
+      GreaterThanOrEqual(n_prop, SignedDecimalIntegerLiteral("2")_)_,
+      LessThanOrEqual(n_prop, DecimalDoubleLiteral("4.5")_)_
+    )))
+
+    implicit val selections = Selections(Set(n_is_Person, n_gt_3_and_lte_4))
+
+    val stats = mock[GraphStatistics]
+    when(stats.indexRangeSelectivity(index, Some(ExclusiveBound(3.0)), Some(InclusiveBound(4.5))))
+      .thenReturn(Some(Selectivity.of(0.2).get))
+    val calculator = ExpressionSelectivityCalculator(stats, IndependenceCombiner)
+
+    val result = calculator(n_gt_3_and_lte_4.expr)
+
+    result.factor should equal(0.2)
+  }
+
+  test("Should not use index histograms for range predicates on parameters") {
+    implicit val semanticTable = SemanticTable()
+    semanticTable.resolvedLabelIds.put("Person", index.label)
+    semanticTable.resolvedPropertyKeyNames.put("prop", index.property)
+
+    val n_is_Person = Predicate(Set(IdName("n")), HasLabels(varFor("n"), Seq(LabelName("Person") _)) _)
+    val n_prop: Property = Property(varFor("n"), PropertyKeyName("prop")_)_
+    val n_gt_3_and_lt_param = Predicate(Set(IdName("n")), AndedPropertyInequalities(varFor("n"), n_prop, NonEmptyList(
+      GreaterThan(n_prop, SignedDecimalIntegerLiteral("3")_)_,
+      LessThan(n_prop, Parameter("upper", CTAny)_)_
+    )))
+
+    implicit val selections = Selections(Set(n_is_Person, n_gt_3_and_lt_param))
+
+    val stats = mock[GraphStatistics]
+    when(stats.indexSelectivity(index)).thenReturn(Some(Selectivity.of(0.1).get))
+    val calculator = ExpressionSelectivityCalculator(stats, IndependenceCombiner)
+
+    val result = calculator(n_gt_3_and_lt_param.expr)
+
+    verify(stats, never()).indexRangeSelectivity(any(), any(), any())
+    result.factor should equal(0.054 +- 0.001)
+  }
+
   test("Should optimize selectivity with respect to prefix length for STARTS WITH predicates") {
     implicit val semanticTable = SemanticTable()
     semanticTable.resolvedLabelIds.put("A", index.label)
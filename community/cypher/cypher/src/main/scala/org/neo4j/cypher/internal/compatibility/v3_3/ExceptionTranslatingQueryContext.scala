@@ -113,6 +113,9 @@ class ExceptionTranslatingQueryContext(val inner: QueryContext) extends QueryCon
   override def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator =
     translateException(inner.getNodesByLabelPrimitive(id))
 
+  override def getNodesByAllLabels(ids: Seq[Int]): Iterator[Node] =
+    translateException(inner.getNodesByAllLabels(ids))
+
   override def nodeGetDegree(node: Long, dir: SemanticDirection): Int =
     translateException(inner.nodeGetDegree(node, dir))
 
@@ -214,6 +217,9 @@ class ExceptionTranslatingQueryContext(val inner: QueryContext) extends QueryCon
   override def indexSeekByRange(index: IndexDescriptor, value: Any) =
     translateException(inner.indexSeekByRange(index, value))
 
+  override def indexSeekByRangeInOrder(index: IndexDescriptor, value: Any, descending: Boolean) =
+    translateException(inner.indexSeekByRangeInOrder(index, value, descending))
+
   override def indexScanByContains(index: IndexDescriptor, value: String) =
     translateException(inner.indexScanByContains(index, value))
 
@@ -21,7 +21,7 @@ package org.neo4j.cypher.internal.compatibility.v3_3.runtime
 
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.convert.ExpressionConverters
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.convert.PatternConverters._
-import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.{AggregationExpression, Literal}
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.{AggregationExpression, InequalitySeekRangeExpression, Literal}
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.predicates.{Predicate, True}
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.executionplan._
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.executionplan.builders.prepare.KeyTokenResolver
@@ -117,6 +117,13 @@ case class CommunityPipeBuilder(monitors: Monitors, recurse: LogicalPlan => Pipe
       case EmptyResult(_) =>
         EmptyResultPipe(source)(id = id)
 
+      // MATCH (n:A:B) scans the nodes with all labels at once, rather than filtering the nodes of one of them
+      case Selection(predicates, NodeByLabelScan(IdName(ident), label, _)) if predicates.exists(hasLabelsOf(ident)) =>
+        val (labelPredicates, otherPredicates) = predicates.partition(hasLabelsOf(ident))
+        val otherLabels = labelPredicates.flatMap { case HasLabels(_, labels) => labels }
+        val scan = NodeByAllLabelsScanPipe(ident, (label +: otherLabels).map(LazyLabel(_)).distinct)(id = source.id)
+        FilterPipe(scan, otherPredicates.map(buildPredicate).reduceOption(_ andWith _).getOrElse(True()))(id = id)
+
       case Selection(predicates, _) =>
         FilterPipe(source, predicates.map(buildPredicate).reduce(_ andWith _))(id = id)
 
@@ -174,6 +181,15 @@ case class CommunityPipeBuilder(monitors: Monitors, recurse: LogicalPlan => Pipe
       case SkipPlan(_, count) =>
         SkipPipe(source, buildExpression(count))(id = id)
 
+      case Top(_, Seq(sortItem), limit) if indexSeekOrderedBy(source, sortItem).isDefined =>
+        val (seek, projections) = indexSeekOrderedBy(source, sortItem).get
+        val count = buildExpression(limit)
+        val top = limit match {
+          case SignedDecimalIntegerLiteral("1") => Top1Pipe(source, List(translateColumnOrder(sortItem)))(id = id)
+          case _ => TopNPipe(source, List(translateColumnOrder(sortItem)), count)(id = id)
+        }
+        IndexSeekTopPipe(top, seek, projections, count, sortItem.isInstanceOf[plans.Descending])(id = id)
+
       case Top(_, sortItems, SignedDecimalIntegerLiteral("1")) =>
         Top1Pipe(source, sortItems.map(translateColumnOrder).toList)(id = id)
 
@@ -410,6 +426,35 @@ case class CommunityPipeBuilder(monitors: Monitors, recurse: LogicalPlan => Pipe
     expressionConverters.toCommandPredicate(rewrittenExpr).rewrite(KeyTokenResolver.resolveExpressions(_, planContext)).asInstanceOf[Predicate]
   }
 
+  private def hasLabelsOf(ident: String)(predicate: Expression): Boolean = predicate match {
+    case HasLabels(Variable(name), _) => name == ident
+    case _ => false
+  }
+
+  /*
+   * The range index seek under the given projections, and the projections innermost first, if the given sort item
+   * is the property that the index seek is on.
+   */
+  private def indexSeekOrderedBy(source: Pipe, sortItem: ColumnOrder): Option[(NodeIndexSeekPipe, Seq[Map[String, commands.expressions.Expression]])] = {
+    def projectionsOf(pipe: Pipe): Option[(NodeIndexSeekPipe, Seq[Map[String, commands.expressions.Expression]])] = pipe match {
+      case seek@NodeIndexSeekPipe(_, _, Seq(_), RangeQueryExpression(_: InequalitySeekRangeExpression), _) =>
+        Some((seek, Seq.empty))
+      case ProjectionPipe(inner, expressions) =>
+        projectionsOf(inner).map { case (seek, projections) => (seek, projections :+ expressions) }
+      case _ =>
+        None
+    }
+
+    projectionsOf(source).filter {
+      case (seek, projections) =>
+        projections.flatMap(_.get(sortItem.id.name)).exists {
+          case commands.expressions.Property(commands.expressions.Variable(variable), propertyKey) =>
+            variable == seek.ident && propertyKey.name == seek.propertyKeys.head.name
+          case _ => false
+        }
+    }
+  }
+
   private def translateColumnOrder(s: ColumnOrder): pipes.ColumnOrder = s match {
     case plans.Ascending(IdName(name)) => pipes.Ascending(name)
     case plans.Descending(IdName(name)) => pipes.Descending(name)
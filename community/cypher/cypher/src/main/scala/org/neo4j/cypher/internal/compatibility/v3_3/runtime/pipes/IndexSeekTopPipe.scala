@@ -0,0 +1,57 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility.v3_3.runtime.pipes
+
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.ExecutionContext
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.{Expression, NumericHelper}
+import org.neo4j.cypher.internal.v3_3.logical.plans.LogicalPlanId
+
+/*
+ * IndexSeekTopPipe is used for ORDER BY ... LIMIT over the projections of a range index seek, when ordering by the
+ * property that is seeked on. If the index can return the nodes of the range in order, only the first of them are
+ * read from it and projected, instead of reading the whole range. Otherwise the rows are sorted by the top pipe.
+ */
+case class IndexSeekTopPipe(top: TopPipe, seek: NodeIndexSeekPipe, projections: Seq[Map[String, Expression]],
+                            countExpression: Expression, descending: Boolean)
+                           (val id: LogicalPlanId = LogicalPlanId.DEFAULT) extends Pipe with NumericHelper {
+
+  override def createResults(state: QueryState): Iterator[ExecutionContext] =
+    seek.createResultsInOrder(state, descending) match {
+      case Some(input) =>
+        val decoratedState = state.decorator.decorate(this, state)
+        state.decorator.decorate(this, firstRows(input, decoratedState))
+
+      case None =>
+        top.createResults(state)
+    }
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] =
+    throw new UnsupportedOperationException("This method should never be called on IndexSeekTopPipe")
+
+  private def firstRows(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val count = asInt(countExpression(state.createOrGetInitialContext(), state)).value()
+    input.take(count).map { ctx =>
+      projections.foreach(_.foreach {
+        case (name, expression) => ctx.put(name, expression(ctx, state))
+      })
+      ctx
+    }
+  }
+}
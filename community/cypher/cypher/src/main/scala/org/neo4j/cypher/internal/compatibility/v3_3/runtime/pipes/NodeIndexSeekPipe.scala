@@ -20,11 +20,12 @@
 package org.neo4j.cypher.internal.compatibility.v3_3.runtime.pipes
 
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.ExecutionContext
-import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.Expression
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.{Expression, InequalitySeekRangeExpression}
 import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.indexQuery
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.mutation.makeValueNeoSafe
 import org.neo4j.cypher.internal.compiler.v3_3._
 import org.neo4j.cypher.internal.frontend.v3_3.ast.{LabelToken, PropertyKeyToken}
-import org.neo4j.cypher.internal.v3_3.logical.plans.{LogicalPlanId, QueryExpression}
+import org.neo4j.cypher.internal.v3_3.logical.plans.{LogicalPlanId, QueryExpression, RangeQueryExpression}
 import org.neo4j.helpers.ValueUtils.fromNodeProxy
 
 case class NodeIndexSeekPipe(ident: String,
@@ -49,4 +50,19 @@ case class NodeIndexSeekPipe(ident: String,
     resultNodes.map(node => baseContext.newWith1(ident, fromNodeProxy(node)))
   }
 
+  /*
+   * The results of this seek ordered by the value of the property it seeks on, if it's a range seek which the index
+   * can order the results of itself. Used instead of createResults by the pipe wanting the ordered results.
+   */
+  def createResultsInOrder(state: QueryState, descending: Boolean): Option[Iterator[ExecutionContext]] = valueExpr match {
+    case RangeQueryExpression(InequalitySeekRangeExpression(range)) if propertyKeys.size == 1 =>
+      val decoratedState = state.decorator.decorate(this, state)
+      val baseContext = decoratedState.createOrGetInitialContext()
+      val bounds = range.mapBounds(expression => makeValueNeoSafe(expression(baseContext, decoratedState)).asObject())
+      decoratedState.query.indexSeekByRangeInOrder(descriptor, bounds, descending).map { resultNodes =>
+        state.decorator.decorate(this, resultNodes.map(node => baseContext.newWith1(ident, fromNodeProxy(node))))
+      }
+
+    case _ => None
+  }
 }
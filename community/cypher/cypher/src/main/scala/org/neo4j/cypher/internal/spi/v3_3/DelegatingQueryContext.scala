@@ -116,6 +116,9 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
   override def indexSeekByRange(index: IndexDescriptor, value: Any): Iterator[Node] =
     manyDbHits(inner.indexSeekByRange(index, value))
 
+  override def indexSeekByRangeInOrder(index: IndexDescriptor, value: Any, descending: Boolean): Option[Iterator[Node]] =
+    inner.indexSeekByRangeInOrder(index, value, descending).map(manyDbHits(_))
+
   override def indexScan(index: IndexDescriptor): Iterator[Node] = manyDbHits(inner.indexScan(index))
 
   override def indexScanPrimitive(index: IndexDescriptor): PrimitiveLongIterator = manyDbHits(inner.indexScanPrimitive(index))
@@ -130,6 +133,8 @@ class DelegatingQueryContext(val inner: QueryContext) extends QueryContext {
 
   override def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator = manyDbHits(inner.getNodesByLabelPrimitive(id))
 
+  override def getNodesByAllLabels(ids: Seq[Int]): Iterator[Node] = manyDbHits(inner.getNodesByAllLabels(ids))
+
   override def getOrCreateFromSchemaState[K, V](key: K, creator: => V): V =
     singleDbHit(inner.getOrCreateFromSchemaState(key, creator))
 
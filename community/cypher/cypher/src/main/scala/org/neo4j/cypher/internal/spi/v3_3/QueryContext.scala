@@ -105,6 +105,9 @@ trait QueryContext extends TokenContext {
 
   def indexSeekByRange(index: IndexDescriptor, value: Any): Iterator[Node]
 
+  // The nodes of the range ordered by property value, if the index can order them itself, otherwise None
+  def indexSeekByRangeInOrder(index: IndexDescriptor, value: Any, descending: Boolean): Option[Iterator[Node]]
+
   def indexScanByContains(index: IndexDescriptor, value: String): Iterator[Node]
 
   def indexScanByEndsWith(index: IndexDescriptor, value: String): Iterator[Node]
@@ -119,6 +122,9 @@ trait QueryContext extends TokenContext {
 
   def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator
 
+  // Intersects the label scans of all the given labels, instead of filtering the nodes of one of them
+  def getNodesByAllLabels(ids: Seq[Int]): Iterator[Node]
+
   def getOrCreateFromSchemaState[K, V](key: K, creator: => V): V
 
   /* return true if the constraint was created, false if preexisting, throws if failed */
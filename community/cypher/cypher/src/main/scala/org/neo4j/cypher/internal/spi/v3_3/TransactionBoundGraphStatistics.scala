@@ -21,7 +21,7 @@ package org.neo4j.cypher.internal.spi.v3_3
 
 import org.neo4j.cypher.internal.compiler.v3_3.IndexDescriptor
 import org.neo4j.cypher.internal.compiler.v3_3.spi.{GraphStatistics, StatisticsCompletingGraphStatistics}
-import org.neo4j.cypher.internal.frontend.v3_3.{LabelId, NameId, RelTypeId}
+import org.neo4j.cypher.internal.frontend.v3_3.{Bound, LabelId, NameId, RelTypeId}
 import org.neo4j.cypher.internal.ir.v3_3.{Cardinality, Selectivity}
 import org.neo4j.kernel.api.ReadOperations
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
@@ -62,6 +62,28 @@ object TransactionBoundGraphStatistics {
         case e: IndexNotFoundKernelException => None
       }
 
+    override def indexRangeSelectivity(index: IndexDescriptor, lower: Option[Bound[Double]],
+                                       upper: Option[Bound[Double]]): Option[Selectivity] =
+      try {
+        val histogram = operations.indexHistogram(index)
+        if (histogram == null)
+          None
+        else {
+          val labeledNodes = operations.countsForNodeWithoutTxState( index.label ).toDouble
+
+          // Fraction of the index entries within the range, scaled to all nodes with the given label
+          val rangeSelectivity = histogram.rangeSelectivity(
+            lower.map(_.endPoint).getOrElse(Double.NegativeInfinity), lower.forall(_.isInclusive),
+            upper.map(_.endPoint).getOrElse(Double.PositiveInfinity), upper.forall(_.isInclusive))
+          val indexSelectivity = rangeSelectivity * histogram.numberOfEntries() / labeledNodes
+
+          Selectivity.of(math.min(indexSelectivity, 1.0))
+        }
+      }
+      catch {
+        case e: IndexNotFoundKernelException => None
+      }
+
     def nodesWithLabelCardinality(labelId: Option[LabelId]): Cardinality =
       atLeastOne(operations.countsForNodeWithoutTxState(labelId))
 
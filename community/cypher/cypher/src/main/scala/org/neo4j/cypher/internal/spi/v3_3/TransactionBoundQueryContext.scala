@@ -55,7 +55,7 @@ import org.neo4j.kernel.api.index.InternalIndexState
 import org.neo4j.kernel.api.proc.CallableUserAggregationFunction.Aggregator
 import org.neo4j.kernel.api.proc.{QualifiedName => KernelQualifiedName}
 import org.neo4j.kernel.api.schema.constaints.ConstraintDescriptorFactory
-import org.neo4j.kernel.api.schema.{IndexQuery, SchemaDescriptorFactory}
+import org.neo4j.kernel.api.schema.{IndexOrder, IndexQuery, SchemaDescriptorFactory}
 import org.neo4j.kernel.impl.api.RelationshipVisitor
 import org.neo4j.kernel.impl.api.store.RelationshipIterator
 import org.neo4j.kernel.impl.core.{NodeManager, RelationshipProxy}
@@ -66,6 +66,7 @@ import org.neo4j.values.virtual.EdgeValue
 
 import scala.collection.Iterator
 import scala.collection.JavaConverters._
+import scala.collection.mutable
 
 final class TransactionBoundQueryContext(val transactionalContext: TransactionalContextWrapper)(implicit indexSearchMonitor: IndexSearchMonitor)
   extends TransactionBoundTokenContext(transactionalContext.statement) with QueryContext with IndexDescriptorCompatibility {
@@ -162,8 +163,72 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
   override def indexSeek(index: IndexDescriptor, values: Seq[Any]) = {
     indexSearchMonitor.indexSeek(index, values)
     val predicates = index.properties.zip(values).map(p => IndexQuery.exact(p._1, p._2))
-    val indexResult = transactionalContext.statement.readOperations().indexQuery(index, predicates: _*)
-    JavaConversionSupport.mapToScalaENFXSafe(indexResult)(nodeOps.getById)
+    nodesWithIndexedValues(index, predicates: _*)
+  }
+
+  // Index seeks and scans that are still being consumed, see NodeOperations.getProperty
+  private val indexedValueIterators = new mutable.ArrayBuffer[IndexedValueIterator]
+
+  /*
+   * Index seeks and scans remember the indexed values of the node they last returned, if the index provides them.
+   * Reading those properties of that node, which typically happens right after, then doesn't have to go to the
+   * property store. Each seek or scan keeps its own values, so interleaved seeks don't overwrite each other's.
+   */
+  private def nodesWithIndexedValues(index: IndexDescriptor, predicates: IndexQuery*): Iterator[Node] = {
+    val nodes = transactionalContext.statement.readOperations().indexQueryWithValues(index, predicates: _*)
+    // The values are read right after the node id they belong to, even though the safe iterator fetches ahead
+    val nodesAndValues = JavaConversionSupport.mapToScalaENFXSafe(nodes)(id => (nodeOps.getById(id), nodes.values()))
+    val iterator = new IndexedValueIterator(index.properties.map(_.id).toArray, nodesAndValues)
+    indexedValueIterators += iterator
+    iterator
+  }
+
+  private class IndexedValueIterator(propertyKeyIds: Array[Int], inner: Iterator[(Node, Array[Value])])
+    extends Iterator[Node] {
+    private var nodeId: Long = -1
+    private var values: Array[Value] = null
+
+    override def hasNext: Boolean = {
+      val hasNext = inner.hasNext
+      if (!hasNext) {
+        values = null
+        indexedValueIterators -= this
+      }
+      hasNext
+    }
+
+    override def next(): Node = {
+      val (node, nodeValues) = inner.next()
+      nodeId = node.getId
+      values = nodeValues
+      node
+    }
+
+    def valueOf(id: Long, propertyKeyId: Int): Value = {
+      if (values != null && id == nodeId) {
+        var i = 0
+        while (i < propertyKeyIds.length) {
+          if (propertyKeyIds(i) == propertyKeyId)
+            return values(i)
+          i += 1
+        }
+      }
+      null
+    }
+  }
+
+  // Only valid as long as the transaction has no changes, since the values came from committed state
+  private def indexedValue(nodeId: Long, propertyKeyId: Int): Value = {
+    if (indexedValueIterators.nonEmpty && !transactionalContext.stateView.hasTxStateWithChanges) {
+      var i = indexedValueIterators.length - 1
+      while (i >= 0) {
+        val value = indexedValueIterators(i).valueOf(nodeId, propertyKeyId)
+        if (value != null)
+          return value
+        i -= 1
+      }
+    }
+    null
   }
 
   override def indexSeekByRange(index: IndexDescriptor, value: Any) = value match {
@@ -225,37 +290,54 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
       }
   }
 
+  override def indexSeekByRangeInOrder(index: IndexDescriptor, value: Any, descending: Boolean): Option[scala.Iterator[Node]] = value match {
+    case range: InequalitySeekRange[Any] =>
+      // Only ranges over numbers, which the native number index orders like Cypher does, are asked to be ordered
+      range.groupBy((bound: Bound[Any]) => bound.endPoint.isInstanceOf[Number]).toSeq match {
+        case Seq((true, numericRange)) =>
+          numericalRangePredicate(index, numericRange.asInstanceOf[InequalitySeekRange[Number]]) match {
+            case Some(rangePredicate) =>
+              val readOps = transactionalContext.statement.readOperations()
+              val order = if (descending) IndexOrder.DESCENDING else IndexOrder.ASCENDING
+              if (readOps.indexSupportsOrder(index, order, rangePredicate))
+                Some(JavaConversionSupport.mapToScalaENFXSafe(readOps.indexQuery(index, order, rangePredicate))(nodeOps.getById))
+              else
+                None
+            case None => Some(Iterator.empty)
+          }
+        case _ => None
+      }
+    case _ => None
+  }
+
   private def indexSeekByPrefixRange(index: IndexDescriptor, prefix: String): scala.Iterator[Node] = {
     val indexedNodes = transactionalContext.statement.readOperations().indexQuery(index, IndexQuery.stringPrefix(index.property, prefix))
     JavaConversionSupport.mapToScalaENFXSafe(indexedNodes)(nodeOps.getById)
   }
 
-  private def indexSeekByNumericalRange(index: IndexDescriptor, range: InequalitySeekRange[Number]): scala.Iterator[Node] = {
-    val readOps = transactionalContext.statement.readOperations()
-    val matchingNodes: PrimitiveLongIterator = (range match {
+  private def indexSeekByNumericalRange(index: IndexDescriptor, range: InequalitySeekRange[Number]): scala.Iterator[Node] =
+    numericalRangePredicate(index, range).map(nodesWithIndexedValues(index, _)).getOrElse(Iterator.empty)
+
+  private def numericalRangePredicate(index: IndexDescriptor, range: InequalitySeekRange[Number]): Option[IndexQuery] =
+    range match {
 
       case rangeLessThan: RangeLessThan[Number] =>
         rangeLessThan.limit(BY_NUMBER).map { limit =>
-          val rangePredicate = IndexQuery.range(index.property, null, false, limit.endPoint, limit.isInclusive)
-          readOps.indexQuery(index, rangePredicate)
+          IndexQuery.range(index.property, null, false, limit.endPoint, limit.isInclusive)
         }
 
       case rangeGreaterThan: RangeGreaterThan[Number] =>
         rangeGreaterThan.limit(BY_NUMBER).map { limit =>
-          val rangePredicate = IndexQuery.range(index.property, limit.endPoint, limit.isInclusive, null, false)
-          readOps.indexQuery(index, rangePredicate)
+          IndexQuery.range(index.property, limit.endPoint, limit.isInclusive, null, false)
         }
 
       case RangeBetween(rangeGreaterThan, rangeLessThan) =>
         rangeGreaterThan.limit(BY_NUMBER).flatMap { greaterThanLimit =>
           rangeLessThan.limit(BY_NUMBER).map { lessThanLimit =>
-            val rangePredicate = IndexQuery.range(index.property, greaterThanLimit.endPoint, greaterThanLimit.isInclusive, lessThanLimit.endPoint, lessThanLimit.isInclusive)
-            readOps.indexQuery(index, rangePredicate)
+            IndexQuery.range(index.property, greaterThanLimit.endPoint, greaterThanLimit.isInclusive, lessThanLimit.endPoint, lessThanLimit.isInclusive)
           }
         }
-    }).getOrElse(EMPTY_PRIMITIVE_LONG_COLLECTION.iterator)
-    JavaConversionSupport.mapToScalaENFXSafe(matchingNodes)(nodeOps.getById)
-  }
+    }
 
   private def indexSeekByStringRange(index: IndexDescriptor, range: InequalitySeekRange[String]): scala.Iterator[Node] = {
     val readOps = transactionalContext.statement.readOperations()
@@ -286,7 +368,7 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
   }
 
   override def indexScan(index: IndexDescriptor) =
-    mapToScalaENFXSafe(indexScanPrimitive(index))(nodeOps.getById)
+    nodesWithIndexedValues(index, IndexQuery.exists(index.property))
 
   override def indexScanPrimitive(index: IndexDescriptor) =
     transactionalContext.statement.readOperations().indexQuery(index, IndexQuery.exists(index.property))
@@ -315,6 +397,10 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
   override def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator =
     transactionalContext.statement.readOperations().nodesGetForLabel(id)
 
+  override def getNodesByAllLabels(ids: Seq[Int]): Iterator[Node] =
+    JavaConversionSupport.mapToScalaENFXSafe(
+      transactionalContext.statement.readOperations().nodesGetForAllLabels(ids: _*))(nodeOps.getById)
+
   override def nodeGetDegree(node: Long, dir: SemanticDirection): Int =
     transactionalContext.statement.readOperations().nodeGetDegree(node, toGraphDb(dir))
 
@@ -352,14 +438,17 @@ final class TransactionBoundQueryContext(val transactionalContext: Transactional
       case _: exceptions.EntityNotFoundException => Iterator.empty
     }
 
-    override def getProperty(id: Long, propertyKeyId: Int): Value = try {
-      transactionalContext.statement.readOperations().nodeGetProperty(id, propertyKeyId)
-    } catch {
-      case e: org.neo4j.kernel.api.exceptions.EntityNotFoundException =>
-        if (isDeletedInThisTx(id))
-          throw new EntityNotFoundException(s"Node with id $id has been deleted in this transaction", e)
-        else
-          Values.NO_VALUE
+    override def getProperty(id: Long, propertyKeyId: Int): Value = {
+      val value = indexedValue(id, propertyKeyId)
+      if (value != null) value else try {
+        transactionalContext.statement.readOperations().nodeGetProperty(id, propertyKeyId)
+      } catch {
+        case e: org.neo4j.kernel.api.exceptions.EntityNotFoundException =>
+          if (isDeletedInThisTx(id))
+            throw new EntityNotFoundException(s"Node with id $id has been deleted in this transaction", e)
+          else
+            Values.NO_VALUE
+      }
     }
 
     override def hasProperty(id: Long, propertyKey: Int): Boolean = try {
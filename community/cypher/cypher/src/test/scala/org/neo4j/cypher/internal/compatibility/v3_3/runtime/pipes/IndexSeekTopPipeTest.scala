@@ -0,0 +1,88 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility.v3_3.runtime.pipes
+
+import org.mockito.Matchers
+import org.mockito.Matchers.any
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.compatibility.v3_3.runtime.commands.expressions.{InequalitySeekRangeExpression, Literal, Variable}
+import org.neo4j.cypher.internal.compiler.v3_3.RangeGreaterThan
+import org.neo4j.cypher.internal.frontend.v3_3.ast._
+import org.neo4j.cypher.internal.frontend.v3_3.helpers.NonEmptyList
+import org.neo4j.cypher.internal.frontend.v3_3.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.frontend.v3_3.{ExclusiveBound, LabelId, PropertyKeyId}
+import org.neo4j.cypher.internal.spi.v3_3.QueryContext
+import org.neo4j.cypher.internal.v3_3.logical.plans.RangeQueryExpression
+import org.neo4j.graphdb.Node
+import org.neo4j.helpers.ValueUtils.fromNodeProxy
+
+class IndexSeekTopPipeTest extends CypherFunSuite with AstConstructionTestSupport {
+
+  private val label = LabelToken(LabelName("LabelName") _, LabelId(11))
+  private val propertyKey = Seq(PropertyKeyToken(PropertyKeyName("PropertyName") _, PropertyKeyId(10)))
+  private val node1 = nodeProxy(1)
+  private val node2 = nodeProxy(2)
+  private val node3 = nodeProxy(3)
+
+  test("should read only the first nodes of the range when the index can order them") {
+    // given
+    val query = mock[QueryContext]
+    when(query.indexSeekByRangeInOrder(any(), any(), Matchers.eq(true))).thenReturn(Some(Iterator(node3, node2, node1)))
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val result = topPipe(Literal(2)).createResults(queryState)
+
+    // then
+    result.map(_("m")).toList should equal(List(fromNodeProxy(node3), fromNodeProxy(node2)))
+    verify(query, never()).indexSeekByRange(any(), any())
+  }
+
+  test("should fall back to sorting all nodes of the range when the index can't order them") {
+    // given
+    val query = mock[QueryContext]
+    when(query.indexSeekByRangeInOrder(any(), any(), Matchers.eq(true))).thenReturn(None)
+    when(query.indexSeekByRange(any(), any())).thenReturn(Iterator(node1, node3, node2))
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    // when
+    val result = topPipe(Literal(2)).createResults(queryState)
+
+    // then
+    result.toList should have size 2
+    verify(query).indexSeekByRange(any(), any())
+  }
+
+  // MATCH (n:LabelName) WHERE n.PropertyName > 10 WITH n AS m ORDER BY m DESC LIMIT <count>
+  private def topPipe(count: Literal) = {
+    val range = RangeGreaterThan(NonEmptyList(ExclusiveBound(Literal(10))))
+    val seek = NodeIndexSeekPipe("n", label, propertyKey, RangeQueryExpression(InequalitySeekRangeExpression(range)),
+      IndexSeekByRange)()
+    val projection = Map("m" -> Variable("n"))
+    val top = TopNPipe(ProjectionPipe(seek, projection)(), List(Descending("m")), count)()
+    IndexSeekTopPipe(top, seek, Seq(projection), count, descending = true)()
+  }
+
+  private def nodeProxy(id: Long) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compatibility.v3_3.runtime.pipes
+
+import org.neo4j.cypher.internal.frontend.v3_3.ast.LabelName
+import org.neo4j.cypher.internal.frontend.v3_3.test_helpers.CypherFunSuite
+import org.neo4j.cypher.internal.frontend.v3_3.{LabelId, SemanticTable}
+import org.neo4j.cypher.internal.spi.v3_3.QueryContext
+import org.neo4j.graphdb.Node
+import org.neo4j.helpers.ValueUtils.fromNodeProxy
+
+class NodeByAllLabelsScanPipeTest extends CypherFunSuite {
+
+  import org.mockito.Matchers.any
+  import org.mockito.Mockito.{never, verify, when}
+
+  test("should scan nodes with all labels") {
+    // given
+    val nodes = List(nodeProxy(1), nodeProxy(2))
+    val queryState = QueryStateHelper.emptyWith(
+      query = when(mock[QueryContext].getNodesByAllLabels(Seq(12, 13))).thenReturn(nodes.iterator).getMock[QueryContext]
+    )
+
+    implicit val table = new SemanticTable()
+    table.resolvedLabelIds.put("Foo", LabelId(12))
+    table.resolvedLabelIds.put("Bar", LabelId(13))
+
+    // when
+    val labels = Seq(LazyLabel(LabelName("Foo")(null)), LazyLabel(LabelName("Bar")(null)))
+    val result = NodeByAllLabelsScanPipe("a", labels)().createResults(queryState)
+
+    // then
+    result.map(_("a")).toList should equal(List(fromNodeProxy(nodeProxy(1)), fromNodeProxy(nodeProxy(2))))
+  }
+
+  test("should not scan anything if one of the labels does not exist") {
+    // given
+    val query = mock[QueryContext]
+    when(query.getOptLabelId("Bar")).thenReturn(None)
+    val queryState = QueryStateHelper.emptyWith(query = query)
+
+    implicit val table = new SemanticTable()
+    table.resolvedLabelIds.put("Foo", LabelId(12))
+
+    // when
+    val labels = Seq(LazyLabel(LabelName("Foo")(null)), LazyLabel(LabelName("Bar")(null)))
+    val result = NodeByAllLabelsScanPipe("a", labels)().createResults(queryState)
+
+    // then
+    result shouldBe empty
+    verify(query, never()).getNodesByAllLabels(any())
+  }
+
+  private def nodeProxy(id: Long) = {
+    val node = mock[Node]
+    when(node.getId).thenReturn(id)
+    node
+  }
+}
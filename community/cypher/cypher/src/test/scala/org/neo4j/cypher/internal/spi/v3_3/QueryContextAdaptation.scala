@@ -126,6 +126,8 @@ trait QueryContextAdaptation {
 
   override def indexSeekByRange(index: IndexDescriptor, value: Any): scala.Iterator[Node] = ???
 
+  override def indexSeekByRangeInOrder(index: IndexDescriptor, value: Any, descending: Boolean): Option[scala.Iterator[Node]] = ???
+
   override def setLabelsOnNode(node: Long, labelIds: scala.Iterator[Int]): Int = ???
 
   override def createRelationshipPropertyExistenceConstraint(relTypeId: Int, propertyKeyId: Int): Boolean = ???
@@ -140,6 +142,8 @@ trait QueryContextAdaptation {
 
   override def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator = ???
 
+  override def getNodesByAllLabels(ids: Seq[Int]): scala.Iterator[Node] = ???
+
   override def lockingUniqueIndexSeek(index: IndexDescriptor, values: Seq[Any]): Option[Node] = ???
 
   override def callReadOnlyProcedure(name: QualifiedName, args: Seq[Any], allowed: Array[String]): scala.Iterator[Array[AnyRef]] = ???
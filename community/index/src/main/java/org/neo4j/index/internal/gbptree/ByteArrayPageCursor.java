@@ -31,11 +31,9 @@ import org.neo4j.io.pagecache.PageCursor;
 /**
  * Wraps a byte array and present it as a PageCursor.
  * <p>
- * This class is bridging something which would otherwise make {@link InternalTreeLogic} code slightly more
- * complicated. Currently when splitting nodes keys/values/children are read into temporary arrays
- * and manipulating that data by standard means (which are designed to work on {@link PageCursor}
- * can stay the same if wrapping the byte array as such. If splitting code later changes to not
- * do this temporary copy then this class won't be needed anymore.
+ * {@link TreeNodeCompressed} doesn't store keys as one contiguous sequence of bytes in the page, so it assembles them
+ * in a byte array and lets {@link Layout} read and write them through this class, using the same methods
+ * as for keys written directly in a page.
  * <p>
  * All the accessor methods (getXXX, putXXX) are implemented and delegates calls to its internal {@link ByteBuffer}.
  * {@link #setOffset(int)}, {@link #getOffset()} and {@link #rewind()} positions the internal {@link ByteBuffer}.
@@ -28,6 +28,7 @@ import java.nio.ByteBuffer;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.StandardOpenOption;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.StampedLock;
 import java.util.function.Consumer;
 import java.util.function.LongSupplier;
 import java.util.function.Supplier;
@@ -41,6 +42,7 @@ import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 import static java.lang.String.format;
 
@@ -78,6 +80,12 @@ import static org.neo4j.index.internal.gbptree.PointerChecking.assertNoSuccessor
  * A single writer w/ multiple concurrent readers is supported. Assuming usage adheres to this
  * constraint neither writer nor readers are blocking. Readers are virtually garbage-free.
  * <p>
+ * Alternatively, multiple {@link #concurrentWriter() concurrent writers} can modify the tree at the same time.
+ * Changes that fit in place in a leaf, which is the vast majority of them, are made while holding a latch on
+ * only that leaf, so writers that work on different parts of the tree don't block each other. Changes that alter
+ * the structure of the tree, like splits, merges and copying stable nodes to the unstable generation, lock the
+ * whole tree structure exclusively for the duration of that change.
+ * <p>
  * An reader of GB+Tree is a {@link SeekCursor} that returns result as it finds them.
  * As the cursor move over keys/values, returned results are considered "behind" it
  * and likewise keys not yet returned "in front of".
@@ -133,8 +141,23 @@ public class GBPTree<KEY,VALUE> implements Closeable
      * </ul>
      * If any of the above changes the on-page format then this version should be bumped, so that opening
      * an index on wrong format version fails and user will need to rebuild.
+     * <p>
+     * Since version 3 the meta page also contains which {@link TreeNode} format the tree was created with,
+     * see {@link TreeNode#formatFor(Layout, boolean)}.
+     */
+    static final int FORMAT_VERSION = 3;
+
+    /**
+     * Previous format version, where the meta page doesn't contain the {@link TreeNode} format. Trees of this version
+     * can still be opened and have the format {@link TreeNode#formatFor(Layout, boolean)} selects without compression.
      */
-    static final int FORMAT_VERSION = 2;
+    static final int FORMAT_VERSION_WITHOUT_NODE_FORMAT = 2;
+
+    /**
+     * Whether or not trees created from now on compress their keys, see {@link TreeNodeCompressed}. Existing trees
+     * keep the node format they were created with.
+     */
+    private static final boolean COMPRESSED_NODES = FeatureToggles.flag( GBPTree.class, "compressedNodes", false );
 
     /**
      * For monitoring {@link GBPTree}.
@@ -166,6 +189,11 @@ public class GBPTree<KEY,VALUE> implements Closeable
             public void startupState( boolean clean )
             {   // no-op
             }
+
+            @Override
+            public void structureLockAcquired( boolean exclusive, boolean contended )
+            {   // no-op
+            }
         }
 
         /**
@@ -194,8 +222,25 @@ public class GBPTree<KEY,VALUE> implements Closeable
          * @param clean true if tree was clean on startup.
          */
         void startupState( boolean clean );
+
+        /**
+         * Called every time a {@link GBPTree#concurrentWriter() concurrent writer} has acquired the lock guarding
+         * the structure of the tree, before making a change. Useful for measuring how often concurrent writers
+         * fall back to exclusive structure changes and how often they have to wait for each other.
+         *
+         * @param exclusive {@code true} if the lock was acquired exclusively for a change altering the structure
+         * of the tree, {@code false} if it was acquired shared for a change in place in a leaf.
+         * @param contended {@code true} if the lock could not be acquired immediately and the writer had to wait.
+         */
+        void structureLockAcquired( boolean exclusive, boolean contended );
     }
 
+    /**
+     * Number of stripes of the latches that concurrent writers take on the leaves they change in place.
+     * Must be a power of two.
+     */
+    private static final int LEAF_LATCH_STRIPES = 1024;
+
     /**
      * No-op {@link Monitor}.
      */
@@ -238,6 +283,12 @@ public class GBPTree<KEY,VALUE> implements Closeable
      */
     private final TreeNode<KEY,VALUE> bTreeNode;
 
+    /**
+     * Id of the {@link TreeNode} format of {@link #bTreeNode}. Decided on tree creation, stored in meta page and
+     * read when opening tree later.
+     */
+    private final byte treeNodeFormat;
+
     /**
      * A free-list of released ids. Acquiring new ids involves first trying out the free-list and then,
      * as a fall-back allocate a new id at the end of the store.
@@ -245,10 +296,25 @@ public class GBPTree<KEY,VALUE> implements Closeable
     private final FreeListIdProvider freeList;
 
     /**
-     * A single instance {@link Writer} because tree only supports single writer.
+     * A single instance {@link Writer} for callers that want exclusive access to the tree while writing.
+     * See {@link #concurrentWriter()} for writers that can modify the tree concurrently.
      */
     private final SingleWriter writer;
 
+    /**
+     * Guards the structure of the tree against concurrent writers. Concurrent writers hold it in shared mode while
+     * they make changes in place in leaves, and in exclusive mode while they make changes that alter the structure
+     * of the tree, i.e. anything which changes internal nodes, sibling pointers, the root or the free-list.
+     * Not used by the {@link #writer() single writer}, which excludes concurrent writers altogether.
+     */
+    private final StampedLock structureLock = new StampedLock();
+
+    /**
+     * Latches that concurrent writers hold on the leaf they change in place, while holding {@link #structureLock}
+     * in shared mode. Striped by tree node id.
+     */
+    private final Object[] leafLatches = newLeafLatches();
+
     /**
      * Tells whether or not there have been made changes (using {@link #writer()}) to this tree
      * since last call to {@link #checkpoint(IOLimiter)}. This variable is set when calling {@link #writer()}
@@ -265,7 +331,8 @@ public class GBPTree<KEY,VALUE> implements Closeable
      *     <li>Checkpoint and close</li>
      *     <li>Write and checkpoint</li>
      * </ul>
-     * For those scenarios, writer lock is taken.
+     * For those scenarios, writer lock is taken. {@link #concurrentWriter() Concurrent writers} take the writer lock
+     * in shared mode, which excludes all of the above, but not other concurrent writers.
      * <p>
      * If cleaning of crash pointers is needed the tree can not be allowed to perform a checkpoint until that job
      * has finished. For this scenario, cleaner lock is taken.
@@ -382,6 +449,21 @@ public class GBPTree<KEY,VALUE> implements Closeable
     public GBPTree( PageCache pageCache, File indexFile, Layout<KEY,VALUE> layout, int tentativePageSize,
             Monitor monitor, Header.Reader headerReader, Consumer<PageCursor> headerWriter,
             RecoveryCleanupWorkCollector recoveryCleanupWorkCollector ) throws IOException
+    {
+        this( pageCache, indexFile, layout, tentativePageSize, monitor, headerReader, headerWriter,
+                recoveryCleanupWorkCollector, COMPRESSED_NODES );
+    }
+
+    /**
+     * Like {@link #GBPTree(PageCache, File, Layout, int, Monitor, Header.Reader, Consumer, RecoveryCleanupWorkCollector)}
+     * but with explicit choice of whether or not to compress keys in tree nodes, if the tree is created.
+     *
+     * @param compressedNodes whether or not to use {@link TreeNodeCompressed} if the tree is created.
+     * An existing tree is opened with the node format it was created with.
+     */
+    GBPTree( PageCache pageCache, File indexFile, Layout<KEY,VALUE> layout, int tentativePageSize,
+            Monitor monitor, Header.Reader headerReader, Consumer<PageCursor> headerWriter,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean compressedNodes ) throws IOException
     {
         this.indexFile = indexFile;
         this.monitor = monitor;
@@ -395,7 +477,9 @@ public class GBPTree<KEY,VALUE> implements Closeable
             this.pagedFile = openOrCreate( pageCache, indexFile, tentativePageSize, layout );
             this.pageSize = pagedFile.pageSize();
             closed = false;
-            this.bTreeNode = new TreeNode<>( pageSize, layout );
+            this.treeNodeFormat = created ? TreeNode.formatFor( layout, compressedNodes )
+                                          : readMeta( layout, pagedFile ).treeNodeFormat;
+            this.bTreeNode = TreeNode.instantiate( pageSize, layout, treeNodeFormat );
             this.freeList = new FreeListIdProvider( pagedFile, pageSize, rootId, FreeListIdProvider.NO_MONITOR );
             this.writer = new SingleWriter( new InternalTreeLogic<>( freeList, bTreeNode, layout ) );
 
@@ -481,7 +565,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
 
         try
         {
-            int pageSize = readMeta( layout, pagedFile );
+            int pageSize = readMeta( layout, pagedFile ).pageSize;
             pagedFile = mapWithCorrectPageSize( pageCache, indexFile, pagedFile, pageSize );
             return pagedFile;
         }
@@ -539,6 +623,28 @@ public class GBPTree<KEY,VALUE> implements Closeable
         clean = state.isClean();
     }
 
+    /**
+     * @param pageSize page size of the {@link PageCache} the tree will be mapped in.
+     * @param layout {@link Layout} of the tree.
+     * @return the size, in bytes, of the largest key which can be inserted into any tree with the given layout
+     * and page size, regardless of which node format the tree was created with.
+     * Inserting larger keys may fail with {@link IllegalArgumentException}, see {@link #keySizeCap()}.
+     */
+    public static int keySizeCap( int pageSize, Layout<?,?> layout )
+    {
+        return Math.min( TreeNode.keySizeCap( pageSize, layout, TreeNode.formatFor( layout, false ) ),
+                TreeNode.keySizeCap( pageSize, layout, TreeNode.formatFor( layout, true ) ) );
+    }
+
+    /**
+     * @return the size, in bytes, of the largest key which can be inserted into this tree, given the node format
+     * it was created with. Inserting larger keys will fail with {@link IllegalArgumentException}.
+     */
+    public int keySizeCap()
+    {
+        return TreeNode.keySizeCap( pageSize, layout, treeNodeFormat );
+    }
+
     /**
      * Use when you are only interested in reading the header of existing index file without opening the index for writes.
      * Useful when reading header and the demands on matching layout can be relaxed a bit.
@@ -662,7 +768,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         return metaCursor;
     }
 
-    private static <KEY,VALUE> int readMeta( Layout<KEY,VALUE> layout, PagedFile pagedFile )
+    private static <KEY,VALUE> Meta readMeta( Layout<KEY,VALUE> layout, PagedFile pagedFile )
             throws IOException
     {
         // Read meta
@@ -671,6 +777,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
         long layoutIdentifier;
         int majorVersion;
         int minorVersion;
+        byte treeNodeFormat = 0;
         try ( PageCursor metaCursor = openMetaPageCursor( pagedFile, PagedFile.PF_SHARED_READ_LOCK ) )
         {
             do
@@ -680,7 +787,17 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 layoutIdentifier = metaCursor.getLong();
                 majorVersion = metaCursor.getInt();
                 minorVersion = metaCursor.getInt();
-                layout.readMetaData( metaCursor );
+                if ( formatVersion == FORMAT_VERSION )
+                {
+                    // Rest of meta page may be laid out differently in other format versions
+                    treeNodeFormat = metaCursor.getByte();
+                    layout.readMetaData( metaCursor );
+                }
+                else if ( formatVersion == FORMAT_VERSION_WITHOUT_NODE_FORMAT )
+                {
+                    treeNodeFormat = TreeNode.formatFor( layout, false );
+                    layout.readMetaData( metaCursor );
+                }
             }
             while ( metaCursor.shouldRetry() );
             checkOutOfBounds( metaCursor );
@@ -693,7 +810,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
                     "File is expected to be corrupt, try to rebuild." );
         }
 
-        if ( formatVersion != FORMAT_VERSION )
+        if ( formatVersion != FORMAT_VERSION && formatVersion != FORMAT_VERSION_WITHOUT_NODE_FORMAT )
         {
             throw new MetadataMismatchException(
                     "Tried to open with a different format version than " +
@@ -708,7 +825,22 @@ public class GBPTree<KEY,VALUE> implements Closeable
                     "Opened with layoutIdentifier=%d,majorVersion=%d,minorVersion=%d",
                     layoutIdentifier, majorVersion, minorVersion, layout.identifier(), layout.majorVersion(), layout.minorVersion() );
         }
-        return pageSize;
+        return new Meta( pageSize, treeNodeFormat );
+    }
+
+    /**
+     * Parts of the meta page which are needed to open a tree, apart from the layout.
+     */
+    private static class Meta
+    {
+        private final int pageSize;
+        private final byte treeNodeFormat;
+
+        Meta( int pageSize, byte treeNodeFormat )
+        {
+            this.pageSize = pageSize;
+            this.treeNodeFormat = treeNodeFormat;
+        }
     }
 
     private void writeMeta( Layout<KEY,VALUE> layout, PagedFile pagedFile ) throws IOException
@@ -720,6 +852,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
             metaCursor.putLong( layout.identifier() );
             metaCursor.putInt( layout.majorVersion() );
             metaCursor.putInt( layout.minorVersion() );
+            metaCursor.putByte( treeNodeFormat );
             layout.writeMetaData( metaCursor );
             checkOutOfBounds( metaCursor );
         }
@@ -948,6 +1081,161 @@ public class GBPTree<KEY,VALUE> implements Closeable
         return writer;
     }
 
+    /**
+     * Returns a {@link Writer} able to modify the index, i.e. insert and remove keys/values, concurrently with other
+     * writers returned from this method. Concurrent writers cannot be used at the same time as the
+     * {@link #writer() single writer}, and will wait for it to be closed. After usage the returned writer must be
+     * closed, typically by using try-with-resource clause.
+     * <p>
+     * Each concurrent writer must only be used by one thread at a time, and writers must not change the same keys
+     * concurrently, since the order in which such changes are applied would be undefined.
+     *
+     * @return a new {@link Writer} that can be used concurrently with other such writers.
+     * @throws IOException on error accessing the index.
+     */
+    public Writer<KEY,VALUE> concurrentWriter() throws IOException
+    {
+        assertRecoveryCleanSuccessful();
+        ConcurrentWriter concurrentWriter = new ConcurrentWriter();
+        concurrentWriter.initialize();
+        changesSinceLastCheckpoint = true;
+        return concurrentWriter;
+    }
+
+    /**
+     * Builds the contents of this tree bottom-up from {@code source}, which must provide its entries in strictly
+     * ascending key order. Leaves are written sequentially and filled up to {@code fillFactor} of their capacity,
+     * then internal levels are built on top of them, which is much faster than inserting the same entries one by one
+     * using a {@link #writer() writer} and leaves a smaller tree. The tree must be empty. Other writers wait
+     * while the bulk load is running.
+     * <p>
+     * As with any other change, the loaded entries are durable after the next {@link #checkpoint(IOLimiter)}.
+     * If loading fails half-way the tree is left empty, but the pages of the partially built tree are not reclaimed,
+     * so the tree should be dropped.
+     *
+     * @param source entries to load, in strictly ascending key order. Not closed by this method.
+     * @param fillFactor how full to make each node, between 0 (exclusive) and 1 (inclusive).
+     * @throws IOException on error reading from {@code source} or accessing the index.
+     * @throws IllegalStateException if this tree isn't empty.
+     * @throws IllegalArgumentException if {@code fillFactor} is out of range or the keys from {@code source} are
+     * not in strictly ascending order.
+     */
+    public void bulkLoad( RawCursor<Hit<KEY,VALUE>,IOException> source, double fillFactor ) throws IOException
+    {
+        if ( !(fillFactor > 0 && fillFactor <= 1) )
+        {
+            throw new IllegalArgumentException( "Fill factor must be in range (0,1], but was " + fillFactor );
+        }
+        assertRecoveryCleanSuccessful();
+        lock.writerLock();
+        try ( PageCursor cursor = pagedFile.io( 0L /*ignored*/, PagedFile.PF_SHARED_WRITE_LOCK ) )
+        {
+            long stableGeneration = stableGeneration( generation );
+            long unstableGeneration = unstableGeneration( generation );
+            long oldRootId = root.id();
+            root.goTo( cursor );
+            if ( !TreeNode.isLeaf( cursor ) || TreeNode.keyCount( cursor ) != 0 )
+            {
+                throw new IllegalStateException( "Can only bulk load into an empty tree" );
+            }
+
+            changesSinceLastCheckpoint = true;
+            long newRootId = new TreeBulkLoader<>( cursor, bTreeNode, layout, freeList, stableGeneration,
+                    unstableGeneration, fillFactor ).load( source );
+            if ( newRootId != TreeNode.NO_NODE_FLAG )
+            {
+                setRoot( newRootId, unstableGeneration );
+                freeList.releaseId( stableGeneration, unstableGeneration, oldRootId );
+            }
+            checkOutOfBounds( cursor );
+        }
+        catch ( Throwable e )
+        {
+            appendTreeInformation( e );
+            throw e;
+        }
+        finally
+        {
+            lock.writerUnlock();
+        }
+    }
+
+    private static Object[] newLeafLatches()
+    {
+        Object[] latches = new Object[LEAF_LATCH_STRIPES];
+        for ( int i = 0; i < latches.length; i++ )
+        {
+            latches[i] = new Object();
+        }
+        return latches;
+    }
+
+    private Object leafLatch( long treeNodeId )
+    {
+        return leafLatches[(int) (treeNodeId & (LEAF_LATCH_STRIPES - 1))];
+    }
+
+    private long readStructureLock()
+    {
+        long stamp = structureLock.tryReadLock();
+        boolean contended = stamp == 0;
+        if ( contended )
+        {
+            stamp = structureLock.readLock();
+        }
+        monitor.structureLockAcquired( false, contended );
+        return stamp;
+    }
+
+    private long writeStructureLock()
+    {
+        long stamp = structureLock.tryWriteLock();
+        boolean contended = stamp == 0;
+        if ( contended )
+        {
+            stamp = structureLock.writeLock();
+        }
+        monitor.structureLockAcquired( true, contended );
+        return stamp;
+    }
+
+    /**
+     * Handles the structure changes that an insert or removal propagated past the root, i.e. a root split,
+     * a new successor of the root or a shrunk tree. Leaves the cursor at the root if it changed.
+     */
+    private void handleRootChange( PageCursor cursor, StructurePropagation<KEY> structurePropagation,
+            InternalTreeLogic<KEY,VALUE> treeLogic, long stableGeneration, long unstableGeneration )
+            throws IOException
+    {
+        if ( structurePropagation.hasRightKeyInsert )
+        {
+            // New root
+            long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
+            PageCursorUtil.goTo( cursor, "new root", newRootId );
+
+            TreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
+                    stableGeneration, unstableGeneration );
+            bTreeNode.insertKeyAndRightChildAt( cursor, structurePropagation.rightKey, structurePropagation.rightChild,
+                    0, 0, stableGeneration, unstableGeneration );
+            TreeNode.setKeyCount( cursor, 1 );
+            setRoot( cursor, treeLogic, newRootId, unstableGeneration );
+        }
+        else if ( structurePropagation.hasMidChildUpdate )
+        {
+            setRoot( cursor, treeLogic, structurePropagation.midChild, unstableGeneration );
+        }
+        structurePropagation.clear();
+    }
+
+    private void setRoot( PageCursor cursorAtRoot, InternalTreeLogic<KEY,VALUE> treeLogic, long rootPointer,
+            long unstableGeneration )
+    {
+        long rootId = GenerationSafePointerPair.pointer( rootPointer );
+        setRoot( rootId, unstableGeneration );
+        treeLogic.initialize( cursorAtRoot );
+    }
+
     private void setRoot( long rootId, long rootGeneration )
     {
         this.root = new Root( rootId, rootGeneration );
@@ -1158,37 +1446,11 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 throw e;
             }
 
-            if ( structurePropagation.hasRightKeyInsert )
-            {
-                // New root
-                long newRootId = freeList.acquireNewId( stableGeneration, unstableGeneration );
-                PageCursorUtil.goTo( cursor, "new root", newRootId );
-
-                TreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
-                bTreeNode.insertKeyAt( cursor, structurePropagation.rightKey, 0, 0 );
-                TreeNode.setKeyCount( cursor, 1 );
-                bTreeNode.setChildAt( cursor, structurePropagation.midChild, 0,
-                        stableGeneration, unstableGeneration );
-                bTreeNode.setChildAt( cursor, structurePropagation.rightChild, 1,
-                        stableGeneration, unstableGeneration );
-                setRoot( newRootId );
-            }
-            else if ( structurePropagation.hasMidChildUpdate )
-            {
-                setRoot( structurePropagation.midChild );
-            }
-            structurePropagation.clear();
+            handleRootChange( cursor, structurePropagation, treeLogic, stableGeneration, unstableGeneration );
 
             checkOutOfBounds( cursor );
         }
 
-        private void setRoot( long rootPointer )
-        {
-            long rootId = GenerationSafePointerPair.pointer( rootPointer );
-            GBPTree.this.setRoot( rootId, unstableGeneration );
-            treeLogic.initialize( cursor );
-        }
-
         @Override
         public VALUE remove( KEY key ) throws IOException
         {
@@ -1204,11 +1466,7 @@ public class GBPTree<KEY,VALUE> implements Closeable
                 throw e;
             }
 
-            if ( structurePropagation.hasMidChildUpdate )
-            {
-                setRoot( structurePropagation.midChild );
-            }
-            structurePropagation.clear();
+            handleRootChange( cursor, structurePropagation, treeLogic, stableGeneration, unstableGeneration );
 
             checkOutOfBounds( cursor );
             return result;
@@ -1235,4 +1493,186 @@ public class GBPTree<KEY,VALUE> implements Closeable
             }
         }
     }
+
+    /**
+     * A {@link Writer} which can be used concurrently with other such writers. Every change first descends to its
+     * leaf with the {@link #structureLock} held in shared mode, and tries to make the change in place in the leaf,
+     * while holding the {@link #leafLatch(long) leaf latch}. If the change cannot be made without altering the
+     * structure of the tree, then it is redone from the root with the {@link #structureLock} held exclusively,
+     * using the same tree logic as the {@link SingleWriter}.
+     * <p>
+     * Other writers may change the structure of the tree in between changes from this writer, so unlike the
+     * {@link SingleWriter}, this writer always starts its changes from the root.
+     */
+    private class ConcurrentWriter implements Writer<KEY,VALUE>
+    {
+        private final InternalTreeLogic<KEY,VALUE> treeLogic = new InternalTreeLogic<>( freeList, bTreeNode, layout );
+        private final StructurePropagation<KEY> structurePropagation =
+                new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
+        private PageCursor cursor;
+        private boolean lockedAndOpen;
+
+        // Writer can't live past a checkpoint because of the mutex with checkpoint,
+        // therefore safe to locally cache these generation fields from the volatile generation in the tree
+        private long stableGeneration;
+        private long unstableGeneration;
+
+        void initialize() throws IOException
+        {
+            lock.sharedWriterLock();
+            lockedAndOpen = true;
+            boolean success = false;
+            try
+            {
+                cursor = pagedFile.io( 0L /*Ignored*/, PagedFile.PF_SHARED_WRITE_LOCK );
+                stableGeneration = stableGeneration( generation );
+                unstableGeneration = unstableGeneration( generation );
+                success = true;
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                if ( !success )
+                {
+                    close();
+                }
+            }
+        }
+
+        @Override
+        public void put( KEY key, VALUE value ) throws IOException
+        {
+            merge( key, value, ValueMergers.overwrite() );
+        }
+
+        @Override
+        public void merge( KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger ) throws IOException
+        {
+            long stamp = readStructureLock();
+            try
+            {
+                moveToLeaf( key );
+                synchronized ( leafLatch( cursor.getCurrentPageId() ) )
+                {
+                    if ( treeLogic.tryInsertInLeaf( cursor, key, value, valueMerger, unstableGeneration ) )
+                    {
+                        checkOutOfBounds( cursor );
+                        return;
+                    }
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                structureLock.unlockRead( stamp );
+            }
+
+            stamp = writeStructureLock();
+            try
+            {
+                moveToRoot();
+                treeLogic.insert( cursor, structurePropagation, key, value, valueMerger,
+                        stableGeneration, unstableGeneration );
+                handleRootChange( cursor, structurePropagation, treeLogic,
+                        stableGeneration, unstableGeneration );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                structureLock.unlockWrite( stamp );
+            }
+            checkOutOfBounds( cursor );
+        }
+
+        @Override
+        public VALUE remove( KEY key ) throws IOException
+        {
+            VALUE result = layout.newValue();
+            long stamp = readStructureLock();
+            try
+            {
+                moveToLeaf( key );
+                int removal;
+                synchronized ( leafLatch( cursor.getCurrentPageId() ) )
+                {
+                    removal = treeLogic.tryRemoveFromLeaf( cursor, key, result, unstableGeneration );
+                }
+                if ( removal != InternalTreeLogic.NEEDS_STRUCTURE_CHANGE )
+                {
+                    checkOutOfBounds( cursor );
+                    return removal == InternalTreeLogic.REMOVED ? result : null;
+                }
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                structureLock.unlockRead( stamp );
+            }
+
+            stamp = writeStructureLock();
+            try
+            {
+                moveToRoot();
+                result = treeLogic.remove( cursor, structurePropagation, key, result,
+                        stableGeneration, unstableGeneration );
+                handleRootChange( cursor, structurePropagation, treeLogic, stableGeneration, unstableGeneration );
+            }
+            catch ( Throwable e )
+            {
+                appendTreeInformation( e );
+                throw e;
+            }
+            finally
+            {
+                structureLock.unlockWrite( stamp );
+            }
+            checkOutOfBounds( cursor );
+            return result;
+        }
+
+        private void moveToRoot() throws IOException
+        {
+            root.goTo( cursor );
+            treeLogic.initialize( cursor );
+        }
+
+        private void moveToLeaf( KEY key ) throws IOException
+        {
+            moveToRoot();
+            treeLogic.moveToLeaf( cursor, key, stableGeneration, unstableGeneration );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if ( !lockedAndOpen )
+            {
+                throw new IllegalStateException( "Tried to close writer of " + GBPTree.this +
+                        ", but writer is already closed." );
+            }
+            lockedAndOpen = false;
+            if ( cursor != null )
+            {
+                cursor.close();
+                cursor = null;
+            }
+            lock.sharedWriterUnlock();
+        }
+    }
 }
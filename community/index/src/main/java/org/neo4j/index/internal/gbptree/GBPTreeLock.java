@@ -29,6 +29,11 @@ class GBPTreeLock
     private static final long stateOffset = UnsafeUtil.getFieldOffset( GBPTreeLock.class, "state" );
     private static final long writerLockBit = 0x00000000_00000001L;
     private static final long cleanerLockBit = 0x00000000_00000002L;
+    // Set by someone waiting for the writer lock, to keep new shared writers from starving them.
+    private static final long writerPendingBit = 0x00000000_00000004L;
+    // The remaining bits count the number of shared writers. Shared writers exclude the writer lock, but not each other.
+    private static final long sharedWriterUnit = 0x00000000_00000008L;
+    private static final long sharedWriterCountMask = ~(sharedWriterUnit - 1);
     private volatile long state;
 
     // Used for testing
@@ -49,6 +54,35 @@ class GBPTreeLock
         doUnlock( writerLockBit );
     }
 
+    void sharedWriterLock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            while ( (currentState & (writerLockBit | writerPendingBit)) != 0 )
+            {
+                sleep();
+                currentState = state;
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState + sharedWriterUnit ) );
+    }
+
+    void sharedWriterUnlock()
+    {
+        long currentState;
+        do
+        {
+            currentState = state;
+            if ( (currentState & sharedWriterCountMask) == 0 )
+            {
+                throw new IllegalStateException( "Can not unlock shared writer lock that is not locked" );
+            }
+        }
+        while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState - sharedWriterUnit ) );
+    }
+
     void cleanerLock()
     {
         doLock( cleanerLockBit );
@@ -78,11 +112,20 @@ class GBPTreeLock
             currentState = state;
             while ( !canLock( currentState, targetLockBit ) )
             {
+                if ( (targetLockBit & writerLockBit) != 0 && (currentState & writerPendingBit) == 0 )
+                {
+                    // Keep new shared writers out, or we might wait for them forever.
+                    UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, currentState | writerPendingBit );
+                }
                 // sleep
                 sleep();
                 currentState = state;
             }
             newState = currentState | targetLockBit;
+            if ( (targetLockBit & writerLockBit) != 0 )
+            {
+                newState &= ~writerPendingBit;
+            }
         } while ( !UnsafeUtil.compareAndSwapLong( this, stateOffset, currentState, newState ) );
     }
 
@@ -104,7 +147,8 @@ class GBPTreeLock
 
     private boolean canLock( long state, long targetLockBit )
     {
-        return (state & targetLockBit) == 0;
+        boolean waitForSharedWriters = (targetLockBit & writerLockBit) != 0 && (state & sharedWriterCountMask) != 0;
+        return (state & targetLockBit) == 0 && !waitForSharedWriters;
     }
 
     private boolean canUnlock( long state, long targetLockBit )
@@ -78,6 +78,13 @@ import static org.neo4j.index.internal.gbptree.StructurePropagation.KeyReplaceSt
  */
 class InternalTreeLogic<KEY,VALUE>
 {
+    /**
+     * Results of {@link #tryRemoveFromLeaf(PageCursor, Object, Object, long)}.
+     */
+    static final int REMOVED = 0;
+    static final int NOT_FOUND = 1;
+    static final int NEEDS_STRUCTURE_CHANGE = 2;
+
     private final IdProvider idProvider;
     private final TreeNode<KEY,VALUE> bTreeNode;
     private final Layout<KEY,VALUE> layout;
@@ -344,6 +351,8 @@ class InternalTreeLogic<KEY,VALUE>
             ValueMerger<KEY,VALUE> valueMerger, long stableGeneration, long unstableGeneration ) throws IOException
     {
         assert cursorIsAtExpectedLocation( cursor );
+        assertKeySize( key );
+        assertValueSize( value );
         moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
 
         insertInLeaf( cursor, structurePropagation, key, value, valueMerger, stableGeneration, unstableGeneration );
@@ -371,6 +380,105 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
+    /**
+     * Moves the cursor to the leaf which covers {@code key}, without making any changes to the tree. Used by
+     * concurrent writers, before latching the leaf and calling
+     * {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, long)} or
+     * {@link #tryRemoveFromLeaf(PageCursor, Object, Object, long)}.
+     *
+     * @param cursor {@link PageCursor} pinned to root of tree, or at where last change left it.
+     * @param key KEY to find the leaf for.
+     * @param stableGeneration stable generation, i.e. generations <= this generation are considered stable.
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @throws IOException on cursor failure
+     */
+    void moveToLeaf( PageCursor cursor, KEY key, long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        assert cursorIsAtExpectedLocation( cursor );
+        moveToCorrectLeaf( cursor, key, stableGeneration, unstableGeneration );
+    }
+
+    /**
+     * Insert {@code key} and {@code value} into the leaf where the cursor is, but only if that can be done in place,
+     * without any structural changes to the tree. That is, the leaf must already be of the unstable generation, so
+     * that no successor needs to be created, and it must either contain the key already, or have room for it.
+     * <p>
+     * Concurrent writers call this with the tree structure locked in shared mode, and with the leaf latched, so that
+     * no other writer can change the structure of the tree, or the contents of this leaf, at the same time. If this
+     * method returns {@code false}, then the tree is unchanged, and the insert must be redone with
+     * {@link #insert(PageCursor, StructurePropagation, Object, Object, ValueMerger, long, long)}, with the tree
+     * structure locked exclusively.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which covers {@code key}.
+     * @param key key to be inserted
+     * @param value value to be associated with key
+     * @param valueMerger {@link ValueMerger} for deciding what to do with existing keys
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return {@code true} if the key was inserted, or merged with an existing key, otherwise {@code false}.
+     */
+    boolean tryInsertInLeaf( PageCursor cursor, KEY key, VALUE value, ValueMerger<KEY,VALUE> valueMerger,
+            long unstableGeneration )
+    {
+        assertKeySize( key );
+        assertValueSize( value );
+        if ( TreeNode.generation( cursor ) != unstableGeneration )
+        {
+            return false;
+        }
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, key, readKey, keyCount );
+        int pos = positionOf( search );
+        if ( isHit( search ) )
+        {
+            bTreeNode.valueAt( cursor, readValue, pos );
+            VALUE mergedValue = valueMerger.merge( readKey, key, readValue, value );
+            if ( mergedValue != null && !bTreeNode.setValueAt( cursor, mergedValue, pos ) )
+            {
+                // Merged value is bigger than the existing one and doesn't fit, needs the exclusive path
+                return false;
+            }
+            return true;
+        }
+        if ( bTreeNode.leafOverflow( cursor, keyCount, key, value ) )
+        {
+            return false;
+        }
+        bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+        return true;
+    }
+
+    /**
+     * Remove {@code key} from the leaf where the cursor is, but only if that can be done in place, without any
+     * structural changes to the tree. That is, the leaf must already be of the unstable generation, and must not
+     * underflow from the removal. See {@link #tryInsertInLeaf(PageCursor, Object, Object, ValueMerger, long)} for
+     * how this is used by concurrent writers.
+     *
+     * @param cursor {@link PageCursor} pinned to the leaf which covers {@code key}.
+     * @param key key to be removed
+     * @param into {@code VALUE} instance to write removed value to
+     * @param unstableGeneration unstable generation, i.e. generation which is under development right now.
+     * @return {@link #REMOVED} if the key was removed, {@link #NOT_FOUND} if the key is not in the tree, or
+     * {@link #NEEDS_STRUCTURE_CHANGE} if the tree is unchanged, and the removal must be redone with
+     * {@link #remove(PageCursor, StructurePropagation, Object, Object, long, long)}.
+     */
+    int tryRemoveFromLeaf( PageCursor cursor, KEY key, VALUE into, long unstableGeneration )
+    {
+        int keyCount = TreeNode.keyCount( cursor );
+        int search = search( cursor, key, readKey, keyCount );
+        if ( !isHit( search ) )
+        {
+            return NOT_FOUND;
+        }
+        boolean underflow = bTreeNode.leafUnderflowAfterRemove( cursor, keyCount, positionOf( search ) );
+        if ( TreeNode.generation( cursor ) != unstableGeneration || underflow )
+        {
+            return NEEDS_STRUCTURE_CHANGE;
+        }
+        simplyRemoveFromLeaf( cursor, into, keyCount, positionOf( search ) );
+        return REMOVED;
+    }
+
     private int search( PageCursor cursor, KEY key, KEY readKey, int keyCount )
     {
         int searchResult = KeySearch.search( cursor, bTreeNode, key, readKey, keyCount );
@@ -378,6 +486,26 @@ class InternalTreeLogic<KEY,VALUE>
         return searchResult;
     }
 
+    private void assertKeySize( KEY key )
+    {
+        int keySize = layout.keySize( key );
+        if ( keySize > bTreeNode.maxKeySize() )
+        {
+            throw new IllegalArgumentException( "Key " + key + " of size " + keySize +
+                    " is bigger than the maximum key size " + bTreeNode.maxKeySize() + " of this tree" );
+        }
+    }
+
+    private void assertValueSize( VALUE value )
+    {
+        int valueSize = layout.valueSize( value );
+        if ( valueSize > layout.valueSize() )
+        {
+            throw new IllegalArgumentException( "Value " + value + " of size " + valueSize +
+                    " is bigger than the maximum value size " + layout.valueSize() + " of this tree" );
+        }
+    }
+
     /**
      * Asserts that cursor is where it's expected to be at, compared to current level.
      *
@@ -414,15 +542,13 @@ class InternalTreeLogic<KEY,VALUE>
     {
         createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                 stableGeneration, unstableGeneration );
-        if ( keyCount < bTreeNode.internalMaxKeyCount() )
+        if ( !bTreeNode.internalOverflow( cursor, keyCount, primKey ) )
         {
             // No overflow
             int pos = positionOf( search( cursor, primKey, readKey, keyCount ) );
 
-            bTreeNode.insertKeyAt( cursor, primKey, pos, keyCount );
-            // NOTE pos+1 since we never insert a new child before child(0) because its key is really
-            // the one from the parent.
-            bTreeNode.insertChildAt( cursor, rightChild, pos + 1, keyCount, stableGeneration, unstableGeneration );
+            bTreeNode.insertKeyAndRightChildAt( cursor, primKey, rightChild, pos, keyCount,
+                    stableGeneration, unstableGeneration );
 
             // Increase key count
             TreeNode.setKeyCount( cursor, keyCount + 1 );
@@ -432,7 +558,7 @@ class InternalTreeLogic<KEY,VALUE>
 
         // Overflow
         // We will overwrite rightKey in structurePropagation, so copy it over to a place holder
-        layout.copyKey( structurePropagation.rightKey, newKeyPlaceHolder );
+        layout.copyKey( primKey, newKeyPlaceHolder );
         splitInternal( cursor, structurePropagation, newKeyPlaceHolder, rightChild, keyCount,
                 stableGeneration, unstableGeneration );
     }
@@ -460,135 +586,35 @@ class InternalTreeLogic<KEY,VALUE>
         // Find position to insert new key
         int pos = positionOf( search( cursor, newKey, readKey, keyCount ) );
 
-        int keyCountAfterInsert = keyCount + 1;
-        int middlePos = middle( keyCountAfterInsert );
-
         // Update structurePropagation
         structurePropagation.hasRightKeyInsert = true;
         structurePropagation.midChild = current;
         structurePropagation.rightChild = newRight;
-        if ( middlePos == pos )
-        {
-            layout.copyKey( newKey, structurePropagation.rightKey );
-        }
-        else
-        {
-            bTreeNode.keyAt( cursor, structurePropagation.rightKey, pos < middlePos ? middlePos - 1 : middlePos );
-        }
 
-        // Update new right
+        // Update new right and then left
         try ( PageCursor rightCursor = cursor.openLinkedCursor( newRight ) )
         {
             TreeNode.goTo( rightCursor, "new right sibling in split", newRight );
             TreeNode.initializeInternal( rightCursor, stableGeneration, unstableGeneration );
             TreeNode.setRightSibling( rightCursor, oldRight, stableGeneration, unstableGeneration );
             TreeNode.setLeftSibling( rightCursor, current, stableGeneration, unstableGeneration );
-            int rightKeyCount = keyCountAfterInsert - middlePos - 1; // -1 because don't keep prim key in internal
-
-            if ( pos < middlePos )
-            {
-                //                         v-------v       copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,X,_,_,_,_,_,_,_,_
-                // insert child -,-,-,x,-,-,-,-,-,-,-,-
-                // middle key              ^
-
-                // children
-                cursor.copyTo( bTreeNode.keyOffset( middlePos ), rightCursor, bTreeNode.keyOffset( 0 ),
-                        rightKeyCount * bTreeNode.keySize() );
-                cursor.copyTo( bTreeNode.childOffset( middlePos ), rightCursor, bTreeNode.childOffset( 0 ),
-                        (rightKeyCount + 1) * TreeNode.childSize() );
-            }
-            else
-            {
-                // pos > middlePos
-                //                         v-v          first copy
-                //                             v-v-v    second copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,_,_,_,_,_,X,_,_,_
-                // insert child -,-,-,-,-,-,-,-,x,-,-,-
-                // middle key              ^
-
-                // pos == middlePos
-                //                                      first copy
-                //                         v-v-v-v-v    second copy
-                // before key    _,_,_,_,_,_,_,_,_,_
-                // before child -,-,-,-,-,-,-,-,-,-,-
-                // insert key    _,_,_,_,_,X,_,_,_,_,_
-                // insert child -,-,-,-,-,-,x,-,-,-,-,-
-                // middle key              ^
-
-                // Keys
-                int countBeforePos = pos - (middlePos + 1);
-                // ... first copy
-                if ( countBeforePos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.keyOffset( middlePos + 1 ), rightCursor, bTreeNode.keyOffset( 0 ),
-                            countBeforePos * bTreeNode.keySize() );
-                }
-                // ... insert
-                if ( countBeforePos >= 0 )
-                {
-                    bTreeNode.insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
-                }
-                // ... second copy
-                int countAfterPos = keyCount - pos;
-                if ( countAfterPos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.keyOffset( pos ), rightCursor,
-                            bTreeNode.keyOffset( countBeforePos + 1 ), countAfterPos * bTreeNode.keySize() );
-                }
-
-                // Children
-                countBeforePos = pos - middlePos;
-                // ... first copy
-                if ( countBeforePos > 0 )
-                {
-                    // first copy
-                    cursor.copyTo( bTreeNode.childOffset( middlePos + 1 ), rightCursor, bTreeNode.childOffset( 0 ),
-                            countBeforePos * TreeNode.childSize() );
-                }
-                // ... insert
-                bTreeNode.insertChildAt( rightCursor, newRightChild, countBeforePos, countBeforePos,
-                        stableGeneration, unstableGeneration );
-                // ... second copy
-                if ( countAfterPos > 0 )
-                {
-                    cursor.copyTo( bTreeNode.childOffset( pos + 1 ), rightCursor,
-                            bTreeNode.childOffset( countBeforePos + 1 ), countAfterPos * TreeNode.childSize() );
-                }
-            }
-            TreeNode.setKeyCount( rightCursor, rightKeyCount );
+            bTreeNode.doSplitInternal( cursor, keyCount, rightCursor, pos, newKey, newRightChild,
+                    stableGeneration, unstableGeneration, structurePropagation.rightKey );
         }
 
         // Update old right with new left sibling (newRight)
         if ( TreeNode.isNode( oldRight ) )
         {
-            TreeNode.goTo( cursor, "old right sibling", oldRight );
-            TreeNode.setLeftSibling( cursor, newRight, stableGeneration, unstableGeneration );
-        }
-
-        // Update left node
-        // Move cursor back to left
-        TreeNode.goTo( cursor, "left", current );
-        TreeNode.setKeyCount( cursor, middlePos );
-        if ( pos < middlePos )
-        {
-            bTreeNode.insertKeyAt( cursor, newKey, pos, middlePos - 1 );
-            bTreeNode.insertChildAt( cursor, newRightChild, pos + 1, middlePos - 1,
-                    stableGeneration, unstableGeneration );
+            try ( PageCursor oldRightCursor = cursor.openLinkedCursor( oldRight ) )
+            {
+                TreeNode.goTo( oldRightCursor, "old right sibling", oldRight );
+                TreeNode.setLeftSibling( oldRightCursor, newRight, stableGeneration, unstableGeneration );
+            }
         }
 
         TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
     }
 
-    private static int middle( int keyCountAfterInsert )
-    {
-        return keyCountAfterInsert / 2;
-    }
-
     /**
      * Leaves cursor at same page as when called. No guarantees on offset.
      * <p>
@@ -618,19 +644,33 @@ class InternalTreeLogic<KEY,VALUE>
                 createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                         stableGeneration, unstableGeneration );
                 // simple, just write the merged value right in there
-                bTreeNode.setValueAt( cursor, mergedValue, pos );
+                if ( bTreeNode.setValueAt( cursor, mergedValue, pos ) )
+                {
+                    return; // No split has occurred
+                }
+
+                // Variable size value which grew and doesn't fit where it is. Remove the entry and insert it again
+                // with the merged value, splitting the leaf if needed.
+                bTreeNode.removeKeyValueAt( cursor, pos, keyCount );
+                keyCount--;
+                TreeNode.setKeyCount( cursor, keyCount );
+                value = mergedValue;
+            }
+            else
+            {
+                return; // No split has occurred
             }
-            return; // No split has occurred
+        }
+        else
+        {
+            createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
+                    stableGeneration, unstableGeneration );
         }
 
-        createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
-                stableGeneration, unstableGeneration );
-
-        if ( keyCount < bTreeNode.leafMaxKeyCount() )
+        if ( !bTreeNode.leafOverflow( cursor, keyCount, key, value ) )
         {
             // No overflow, insert key and value
-            bTreeNode.insertKeyAt( cursor, key, pos, keyCount );
-            bTreeNode.insertValueAt( cursor, value, pos, keyCount );
+            bTreeNode.insertKeyValueAt( cursor, key, value, pos, keyCount );
             TreeNode.setKeyCount( cursor, keyCount + 1 );
 
             return; // No split has occurred
@@ -709,75 +749,28 @@ class InternalTreeLogic<KEY,VALUE>
         // To have readers see correct state at all times, the order of updates must be:
         // 1. Acquire new page id R
         // 2. Copy "right-hand" keys/values to R and set key count
-        // 3. Set L's right sibling to R
-        // 4. Set key count of L to new "left-hand" key count
-        // 5. Write new key/values into L
+        // 3. Set key count of L to new "left-hand" key count
+        // 4. Write new key/values into L
+        // 5. Set L's right sibling to R
+        // Steps 2-4 are done by the node format, see TreeNode#doSplitLeaf. L stays pinned by this cursor
+        // throughout, so readers will retry reading L if they overlap any of this.
 
         // Position where newKey / newValue is to be inserted
         int pos = positionOf( search( cursor, newKey, readKey, keyCount ) );
-        int keyCountAfterInsert = keyCount + 1;
-        int middlePos = middle( keyCountAfterInsert );
-
-        // allKeysIncludingNewKey should now contain all keys in sorted order and
-        // allValuesIncludingNewValue should now contain all values in same order as corresponding keys
-        // and are ready to be split between left and newRight.
-
-        // We now have everything we need to start working on newRight
-        // and everything that needs to be updated in left has been so.
 
         structurePropagation.hasRightKeyInsert = true;
         structurePropagation.midChild = current;
         structurePropagation.rightChild = newRight;
 
-        if ( middlePos == pos )
-        {
-            layout.copyKey( newKey, structurePropagation.rightKey );
-        }
-        else
-        {
-            bTreeNode.keyAt( cursor, structurePropagation.rightKey, pos < middlePos ? middlePos - 1 : middlePos );
-        }
-
-        // Update new right
+        // Update new right and then left
         try ( PageCursor rightCursor = cursor.openLinkedCursor( newRight ) )
         {
             TreeNode.goTo( rightCursor, "new right sibling in split", newRight );
             TreeNode.initializeLeaf( rightCursor, stableGeneration, unstableGeneration );
             TreeNode.setRightSibling( rightCursor, oldRight, stableGeneration, unstableGeneration );
             TreeNode.setLeftSibling( rightCursor, current, stableGeneration, unstableGeneration );
-            int rightKeyCount = keyCountAfterInsert - middlePos;
-
-            if ( pos < middlePos )
-            {
-                //                  v-------v       copy
-                // before _,_,_,_,_,_,_,_,_,_
-                // insert _,_,_,X,_,_,_,_,_,_,_
-                // middle           ^
-                copyKeysAndValues( cursor, middlePos - 1, rightCursor, 0, rightKeyCount );
-            }
-            else
-            {
-                //                  v---v           first copy
-                //                        v-v       second copy
-                // before _,_,_,_,_,_,_,_,_,_
-                // insert _,_,_,_,_,_,_,_,X,_,_
-                // middle           ^
-                int countBeforePos = pos - middlePos;
-                if ( countBeforePos > 0 )
-                {
-                    // first copy
-                    copyKeysAndValues( cursor, middlePos, rightCursor, 0, countBeforePos );
-                }
-                bTreeNode.insertKeyAt( rightCursor, newKey, countBeforePos, countBeforePos );
-                bTreeNode.insertValueAt( rightCursor, newValue, countBeforePos, countBeforePos );
-                int countAfterPos = keyCount - pos;
-                if ( countAfterPos > 0 )
-                {
-                    // second copy
-                    copyKeysAndValues( cursor, pos, rightCursor, countBeforePos + 1, countAfterPos );
-                }
-            }
-            TreeNode.setKeyCount( rightCursor, rightKeyCount );
+            bTreeNode.doSplitLeaf( cursor, keyCount, rightCursor, pos, newKey, newValue,
+                    structurePropagation.rightKey );
         }
 
         // Update old right with new left sibling (newRight)
@@ -790,25 +783,9 @@ class InternalTreeLogic<KEY,VALUE>
             }
         }
 
-        // Update left child
-        // If pos < middle. Write shifted values to left node. Else, don't write anything.
-        if ( pos < middlePos )
-        {
-            bTreeNode.insertKeyAt( cursor, newKey, pos, middlePos - 1 );
-            bTreeNode.insertValueAt( cursor, newValue, pos, middlePos - 1 );
-        }
-        TreeNode.setKeyCount( cursor, middlePos );
         TreeNode.setRightSibling( cursor, newRight, stableGeneration, unstableGeneration );
     }
 
-    private void copyKeysAndValues( PageCursor fromCursor, int fromPos, PageCursor toCursor, int toPos, int count )
-    {
-        fromCursor.copyTo( bTreeNode.keyOffset( fromPos ), toCursor, bTreeNode.keyOffset( toPos ),
-                count * bTreeNode.keySize() );
-        fromCursor.copyTo( bTreeNode.valueOffset( fromPos ), toCursor, bTreeNode.valueOffset( toPos ),
-                count * bTreeNode.valueSize() );
-    }
-
     /**
      * Remove given {@code key} and associated value from tree if it exists. The removed value will be stored in
      * provided {@code into} which will be returned for convenience.
@@ -848,7 +825,8 @@ class InternalTreeLogic<KEY,VALUE>
                 structurePropagation.hasMidChildUpdate ||
                 structurePropagation.hasRightChildUpdate ||
                 structurePropagation.hasLeftKeyReplace ||
-                structurePropagation.hasRightKeyReplace )
+                structurePropagation.hasRightKeyReplace ||
+                structurePropagation.hasRightKeyInsert )
         {
             int pos = levels[currentLevel].childPos;
             if ( !popLevel( cursor ) )
@@ -877,6 +855,15 @@ class InternalTreeLogic<KEY,VALUE>
                 updateMidChild( cursor, structurePropagation, pos, stableGeneration, unstableGeneration );
             }
 
+            if ( structurePropagation.hasRightKeyInsert )
+            {
+                // Child was split when a replaced key didn't fit in it
+                structurePropagation.hasRightKeyInsert = false;
+                insertInInternal( cursor, structurePropagation, TreeNode.keyCount( cursor ),
+                        structurePropagation.rightKey, structurePropagation.rightChild,
+                        stableGeneration, unstableGeneration );
+            }
+
             if ( structurePropagation.hasRightChildUpdate )
             {
                 structurePropagation.hasRightChildUpdate = false;
@@ -900,9 +887,8 @@ class InternalTreeLogic<KEY,VALUE>
                 switch ( structurePropagation.keyReplaceStrategy )
                 {
                 case REPLACE:
-                    createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
+                    overwriteKeyInternal( cursor, structurePropagation, structurePropagation.leftKey, pos - 1,
                             stableGeneration, unstableGeneration );
-                    bTreeNode.setKeyAt( cursor, structurePropagation.leftKey, pos - 1 );
                     break;
                 case BUBBLE:
                     replaceKeyByBubbleRightmostFromSubtree( cursor, structurePropagation, pos - 1,
@@ -921,9 +907,8 @@ class InternalTreeLogic<KEY,VALUE>
                 switch ( structurePropagation.keyReplaceStrategy )
                 {
                 case REPLACE:
-                    createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
+                    overwriteKeyInternal( cursor, structurePropagation, structurePropagation.rightKey, pos,
                             stableGeneration, unstableGeneration );
-                    bTreeNode.setKeyAt( cursor, structurePropagation.rightKey, pos );
                     break;
                 case BUBBLE:
                     replaceKeyByBubbleRightmostFromSubtree( cursor, structurePropagation, pos,
@@ -966,6 +951,28 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
+    /**
+     * Overwrites key at {@code keyPos} in the internal node where the cursor is, creating a successor if needed.
+     * If the new key doesn't fit in the node, the old key and its right child are removed and then inserted again
+     * with the new key, which may split the node. Such a split is reported through {@code structurePropagation}
+     * just like a split during insert.
+     */
+    private void overwriteKeyInternal( PageCursor cursor, StructurePropagation<KEY> structurePropagation, KEY newKey,
+            int keyPos, long stableGeneration, long unstableGeneration ) throws IOException
+    {
+        createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
+                stableGeneration, unstableGeneration );
+        if ( !bTreeNode.setKeyAtInternal( cursor, newKey, keyPos ) )
+        {
+            int keyCount = TreeNode.keyCount( cursor );
+            long rightChild = bTreeNode.childAt( cursor, keyPos + 1, stableGeneration, unstableGeneration );
+            PointerChecking.checkPointer( rightChild, false );
+            simplyRemoveFromInternal( cursor, keyCount, keyPos, false );
+            insertInInternal( cursor, structurePropagation, keyCount - 1, newKey,
+                    GenerationSafePointerPair.pointer( rightChild ), stableGeneration, unstableGeneration );
+        }
+    }
+
     private void updateMidChild( PageCursor cursor, StructurePropagation<KEY> structurePropagation, int childPos,
             long stableGeneration, long unstableGeneration )
     {
@@ -995,10 +1002,9 @@ class InternalTreeLogic<KEY,VALUE>
         if ( foundKeyBelow )
         {
             // A key has been bubble up to us.
-            // It's in structurePropagation.leftKey and should be inserted in subtreePosition.
-            createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
+            // It's in structurePropagation.bubbleKey and should be inserted in subtreePosition.
+            overwriteKeyInternal( cursor, structurePropagation, structurePropagation.bubbleKey, subtreePosition,
                     stableGeneration, unstableGeneration );
-            bTreeNode.setKeyAt( cursor, structurePropagation.bubbleKey, subtreePosition );
         }
         else
         {
@@ -1008,7 +1014,7 @@ class InternalTreeLogic<KEY,VALUE>
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                     stableGeneration, unstableGeneration);
             int keyCount = TreeNode.keyCount( cursor );
-            simplyRemoveFromInternal( cursor, keyCount, subtreePosition, subtreePosition );
+            simplyRemoveFromInternal( cursor, keyCount, subtreePosition, true );
         }
     }
 
@@ -1057,7 +1063,7 @@ class InternalTreeLogic<KEY,VALUE>
             createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                     stableGeneration, unstableGeneration );
             bTreeNode.keyAt( cursor, structurePropagation.bubbleKey, keyCount - 1 );
-            simplyRemoveFromInternal( cursor, keyCount, keyCount - 1, keyCount );
+            simplyRemoveFromInternal( cursor, keyCount, keyCount - 1, false );
 
             return true;
         }
@@ -1067,11 +1073,17 @@ class InternalTreeLogic<KEY,VALUE>
         }
     }
 
-    private int simplyRemoveFromInternal( PageCursor cursor, int keyCount, int keyPos, int childPos )
+    private int simplyRemoveFromInternal( PageCursor cursor, int keyCount, int keyPos, boolean leftChild )
     {
         // Remove key and child
-        bTreeNode.removeKeyAt( cursor, keyPos, keyCount );
-        bTreeNode.removeChildAt( cursor, childPos, keyCount );
+        if ( leftChild )
+        {
+            bTreeNode.removeKeyAndLeftChildAt( cursor, keyPos, keyCount );
+        }
+        else
+        {
+            bTreeNode.removeKeyAndRightChildAt( cursor, keyPos, keyCount );
+        }
 
         // Decrease key count
         int newKeyCount = keyCount - 1;
@@ -1140,9 +1152,10 @@ class InternalTreeLogic<KEY,VALUE>
 
         createSuccessorIfNeeded( cursor, structurePropagation, UPDATE_MID_CHILD,
                 stableGeneration, unstableGeneration );
+        boolean underflow = bTreeNode.leafUnderflowAfterRemove( cursor, keyCount, pos );
         keyCount = simplyRemoveFromLeaf( cursor, into, keyCount, pos );
 
-        if ( keyCount < (bTreeNode.leafMaxKeyCount() + 1) / 2 )
+        if ( underflow )
         {
             // Underflow
             underflowInLeaf( cursor, structurePropagation, keyCount, stableGeneration, unstableGeneration );
@@ -1167,13 +1180,13 @@ class InternalTreeLogic<KEY,VALUE>
                 leftSiblingCursor.next();
                 int leftSiblingKeyCount = TreeNode.keyCount( leftSiblingCursor );
 
-                if ( keyCount + leftSiblingKeyCount >= bTreeNode.leafMaxKeyCount() )
+                if ( bTreeNode.canRebalanceLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount ) )
                 {
                     createSuccessorIfNeeded( leftSiblingCursor, structurePropagation,
                             StructurePropagation.UPDATE_LEFT_CHILD, stableGeneration, unstableGeneration );
                     rebalanceLeaf( cursor, leftSiblingCursor, structurePropagation, keyCount, leftSiblingKeyCount );
                 }
-                else
+                else if ( bTreeNode.canMergeLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount ) )
                 {
                     // No need to create new unstable version of left sibling.
                     // Parent pointer will be updated later.
@@ -1190,7 +1203,7 @@ class InternalTreeLogic<KEY,VALUE>
                 rightSiblingCursor.next();
                 int rightSiblingKeyCount = TreeNode.keyCount( rightSiblingCursor );
 
-                if ( keyCount + rightSiblingKeyCount <= bTreeNode.leafMaxKeyCount() )
+                if ( bTreeNode.canMergeLeaves( cursor, keyCount, rightSiblingCursor, rightSiblingKeyCount ) )
                 {
                     createSuccessorIfNeeded( rightSiblingCursor, structurePropagation, UPDATE_RIGHT_CHILD,
                             stableGeneration, unstableGeneration );
@@ -1236,7 +1249,9 @@ class InternalTreeLogic<KEY,VALUE>
         structurePropagation.midChild = rightSiblingCursor.getCurrentPageId();
         structurePropagation.hasRightKeyReplace = true;
         structurePropagation.keyReplaceStrategy = BUBBLE;
-        bTreeNode.keyAt( rightSiblingCursor, structurePropagation.rightKey, rightSiblingKeyCount - 1 );
+        // First key of what was the right sibling before the merge, i.e. a key on the right side of the separator key,
+        // so that the separator key is found at the correct level, even if it isn't in the parent of this leaf
+        bTreeNode.keyAt( rightSiblingCursor, structurePropagation.rightKey, keyCount );
     }
 
     private void mergeFromLeftSiblingLeaf( PageCursor cursor, PageCursor leftSiblingCursor,
@@ -1259,13 +1274,8 @@ class InternalTreeLogic<KEY,VALUE>
     private void merge( PageCursor leftSiblingCursor, int leftSiblingKeyCount, PageCursor rightSiblingCursor,
             int rightSiblingKeyCount, long stableGeneration, long unstableGeneration ) throws IOException
     {
-        // Push keys in right sibling to the right
-        bTreeNode.insertKeySlotsAt( rightSiblingCursor, 0, leftSiblingKeyCount, rightSiblingKeyCount );
-        bTreeNode.insertValueSlotsAt( rightSiblingCursor, 0, leftSiblingKeyCount, rightSiblingKeyCount );
-
-        // Move keys and values from left sibling to right sibling
-        copyKeysAndValues( leftSiblingCursor, 0, rightSiblingCursor, 0, leftSiblingKeyCount );
-        TreeNode.setKeyCount( rightSiblingCursor, rightSiblingKeyCount + leftSiblingKeyCount );
+        // Move keys and values from left sibling to right sibling and update key count
+        bTreeNode.doMergeLeaves( leftSiblingCursor, leftSiblingKeyCount, rightSiblingCursor, rightSiblingKeyCount );
 
         // Update successor of left sibling to be right sibling
         TreeNode.setSuccessor( leftSiblingCursor, rightSiblingCursor.getCurrentPageId(),
@@ -1279,18 +1289,8 @@ class InternalTreeLogic<KEY,VALUE>
     private void rebalanceLeaf( PageCursor cursor, PageCursor leftSiblingCursor,
             StructurePropagation<KEY> structurePropagation, int keyCount, int leftSiblingKeyCount )
     {
-        int totalKeyCount = keyCount + leftSiblingKeyCount;
-        int keyCountInLeftSiblingAfterRebalance = totalKeyCount / 2;
-        int numberOfKeysToMove = leftSiblingKeyCount - keyCountInLeftSiblingAfterRebalance;
-
-        // Push keys in right sibling to the right
-        bTreeNode.insertKeySlotsAt( cursor, 0, numberOfKeysToMove, keyCount );
-        bTreeNode.insertValueSlotsAt( cursor, 0, numberOfKeysToMove, keyCount );
-
-        // Move keys and values from left sibling to right sibling
-        copyKeysAndValues( leftSiblingCursor, keyCountInLeftSiblingAfterRebalance, cursor, 0, numberOfKeysToMove );
-        TreeNode.setKeyCount( cursor, keyCount + numberOfKeysToMove );
-        TreeNode.setKeyCount( leftSiblingCursor, leftSiblingKeyCount - numberOfKeysToMove );
+        // Move keys and values from left sibling to right sibling and update key counts
+        bTreeNode.doRebalanceLeaves( leftSiblingCursor, leftSiblingKeyCount, cursor, keyCount );
 
         // Propagate change
         structurePropagation.hasLeftKeyReplace = true;
@@ -1311,9 +1311,8 @@ class InternalTreeLogic<KEY,VALUE>
     private int simplyRemoveFromLeaf( PageCursor cursor, VALUE into, int keyCount, int pos )
     {
         // Remove key/value
-        bTreeNode.removeKeyAt( cursor, pos, keyCount );
         bTreeNode.valueAt( cursor, into, pos );
-        bTreeNode.removeValueAt( cursor, pos, keyCount );
+        bTreeNode.removeKeyValueAt( cursor, pos, keyCount );
 
         // Decrease key count
         int newKeyCount = keyCount - 1;
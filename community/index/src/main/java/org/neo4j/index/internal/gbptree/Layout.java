@@ -60,15 +60,37 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
     VALUE newValue();
 
     /**
-     * @return size, in bytes, of a key.
+     * @return size, in bytes, of a key. For layouts which are not {@link #fixedSize() fixed size} this is
+     * only used for describing the layout, see {@link #keySize(Object)}.
      */
     int keySize();
 
     /**
-     * @return size, in bytes, of a value.
+     * @param key key to get the size of.
+     * @return size, in bytes, of the given {@code key}, i.e. how many bytes {@link #writeKey(PageCursor, Object)}
+     * will write for it.
+     */
+    default int keySize( KEY key )
+    {
+        return keySize();
+    }
+
+    /**
+     * @return size, in bytes, of a value. For layouts which are not {@link #fixedValueSize() fixed value size}
+     * this is the maximum size of a value, see {@link #valueSize(Object)}.
      */
     int valueSize();
 
+    /**
+     * @param value value to get the size of.
+     * @return size, in bytes, of the given {@code value}, i.e. how many bytes {@link #writeValue(PageCursor, Object)}
+     * will write for it.
+     */
+    default int valueSize( VALUE value )
+    {
+        return valueSize();
+    }
+
     /**
      * Writes contents of {@code key} into {@code cursor} at its current offset.
      *
@@ -93,6 +115,22 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     void readKey( PageCursor cursor, KEY into );
 
+    /**
+     * Reads key contents at {@code cursor} at its current offset into {@code key}, where the key is known
+     * to be {@code keySize} bytes, as previously returned by {@link #keySize(Object)} when it was written.
+     * Layouts which are not {@link #fixedSize() fixed size} must implement this. Reading may happen concurrently
+     * with changes to the page, so an implementation must not trust the read data to be consistent,
+     * only to be within the given size.
+     *
+     * @param cursor {@link PageCursor} to read from, at current offset.
+     * @param into key instances to read into.
+     * @param keySize size of the key to read, in bytes.
+     */
+    default void readKey( PageCursor cursor, KEY into, int keySize )
+    {
+        readKey( cursor, into );
+    }
+
     /**
      * Reads value contents at {@code cursor} at its current offset into {@code value}.
      *
@@ -101,6 +139,45 @@ public interface Layout<KEY, VALUE> extends Comparator<KEY>
      */
     void readValue( PageCursor cursor, VALUE into );
 
+    /**
+     * Reads value contents at {@code cursor} at its current offset into {@code value}, where the value is known
+     * to be {@code valueSize} bytes, as previously returned by {@link #valueSize(Object)} when it was written.
+     * Layouts which are not {@link #fixedValueSize() fixed value size} must implement this, with the same
+     * expectations on concurrent changes as {@link #readKey(PageCursor, Object, int)}.
+     *
+     * @param cursor {@link PageCursor} to read from, at current offset.
+     * @param into value instances to read into.
+     * @param valueSize size of the value to read, in bytes.
+     */
+    default void readValue( PageCursor cursor, VALUE into, int valueSize )
+    {
+        readValue( cursor, into );
+    }
+
+    /**
+     * Whether or not all keys written by this layout are of the same size, {@link #keySize()}.
+     * If not, the tree uses a node format which stores the size of each key, see {@link #keySize(Object)},
+     * at the cost of a few bytes per key.
+     *
+     * @return {@code true} if all keys are of the same size, otherwise {@code false}.
+     */
+    default boolean fixedSize()
+    {
+        return true;
+    }
+
+    /**
+     * Whether or not all values written by this layout are of the same size, {@link #valueSize()}.
+     * If not, the tree uses the compressed node format, which stores the size of each value,
+     * see {@link #valueSize(Object)}.
+     *
+     * @return {@code true} if all values are of the same size, otherwise {@code false}.
+     */
+    default boolean fixedValueSize()
+    {
+        return true;
+    }
+
     /**
      * Used as verification when loading an index after creation, to verify that the same layout is used,
      * as the one it was initially created with.
@@ -532,6 +532,13 @@ class SeekCursor<KEY,VALUE> implements RawCursor<Hit<KEY,VALUE>,IOException>, Hi
                     }
                     pos = positionOf( searchResult );
 
+                    if ( !seekForward && first && pos < keyCount && !KeySearch.isHit( searchResult ) )
+                    {
+                        // Search ended up on the closest key after fromInclusive, which is outside the range
+                        // when seeking backwards, so start from the key before it
+                        pos--;
+                    }
+
                     if ( !seekForward && pos >= keyCount )
                     {
                         // We may need to go to previous sibling to find correct place to start seeking from
@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.pointer;
+import static org.neo4j.index.internal.gbptree.TreeNode.NO_NODE_FLAG;
+
+/**
+ * Builds a tree bottom-up from entries sorted by key, instead of inserting them one by one from the root.
+ * Leaves are written one after the other, each filled up to a fill factor of the space available for entries
+ * in a node, and every finished node is handed
+ * to its parent level, where internal nodes are filled the same way. Nodes are never split and every node is
+ * written only once, except that the last internal node on a level may borrow a child from its left sibling
+ * if it would otherwise get only one child.
+ * <p>
+ * Only a single node per level is kept in memory, so entries can be streamed from any source.
+ * Nodes are written in the unstable generation, like any other change made between two checkpoints.
+ */
+class TreeBulkLoader<KEY,VALUE>
+{
+    private final PageCursor cursor;
+    private final TreeNode<KEY,VALUE> bTreeNode;
+    private final Layout<KEY,VALUE> layout;
+    private final IdProvider idProvider;
+    private final long stableGeneration;
+    private final long unstableGeneration;
+    private final int leafFill;
+    private final int internalFill;
+    private final int internalMaxKeyCount;
+    private final List<InternalLevel> internalLevels = new ArrayList<>();
+
+    TreeBulkLoader( PageCursor cursor, TreeNode<KEY,VALUE> bTreeNode, Layout<KEY,VALUE> layout, IdProvider idProvider,
+            long stableGeneration, long unstableGeneration, double fillFactor )
+    {
+        this.cursor = cursor;
+        this.bTreeNode = bTreeNode;
+        this.layout = layout;
+        this.idProvider = idProvider;
+        this.stableGeneration = stableGeneration;
+        this.unstableGeneration = unstableGeneration;
+        this.leafFill = (int) (bTreeNode.leafSpace() * fillFactor);
+        this.internalFill = (int) (bTreeNode.internalSpace() * fillFactor);
+        this.internalMaxKeyCount = bTreeNode.internalMaxKeyCount();
+    }
+
+    /**
+     * Writes all entries from {@code source} into new nodes.
+     *
+     * @param source entries to load, in strictly ascending key order.
+     * @return id of the root of the built tree, or {@link TreeNode#NO_NODE_FLAG} if {@code source} was empty.
+     * @throws IOException on page cache error.
+     * @throws IllegalArgumentException if keys are not in strictly ascending order.
+     */
+    long load( RawCursor<Hit<KEY,VALUE>,IOException> source ) throws IOException
+    {
+        KEY firstKeyInLeaf = layout.newKey();
+        KEY prevKey = layout.newKey();
+        long leafId = NO_NODE_FLAG;
+        int keyCount = 0;
+        int usedSpace = 0;
+        while ( source.next() )
+        {
+            Hit<KEY,VALUE> hit = source.get();
+            KEY key = hit.key();
+            if ( leafId == NO_NODE_FLAG )
+            {
+                leafId = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+                PageCursorUtil.goTo( cursor, "new leaf", leafId );
+                TreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+                layout.copyKey( key, firstKeyInLeaf );
+            }
+            else
+            {
+                if ( layout.compare( prevKey, key ) >= 0 )
+                {
+                    throw new IllegalArgumentException( "Bulk loaded keys must be in strictly ascending order, but got " +
+                            key + " after " + prevKey );
+                }
+                int entrySize = bTreeNode.leafEntrySize( key, hit.value() );
+                if ( usedSpace + entrySize > leafFill || bTreeNode.leafOverflow( cursor, keyCount, key, hit.value() ) )
+                {
+                    long nextLeafId = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+                    TreeNode.setKeyCount( cursor, keyCount );
+                    TreeNode.setRightSibling( cursor, nextLeafId, stableGeneration, unstableGeneration );
+                    addChild( 0, firstKeyInLeaf, leafId );
+
+                    PageCursorUtil.goTo( cursor, "new leaf", nextLeafId );
+                    TreeNode.initializeLeaf( cursor, stableGeneration, unstableGeneration );
+                    TreeNode.setLeftSibling( cursor, leafId, stableGeneration, unstableGeneration );
+                    layout.copyKey( key, firstKeyInLeaf );
+                    leafId = nextLeafId;
+                    keyCount = 0;
+                    usedSpace = 0;
+                }
+            }
+            bTreeNode.insertKeyValueAt( cursor, key, hit.value(), keyCount, keyCount );
+            usedSpace += bTreeNode.leafEntrySize( key, hit.value() );
+            keyCount++;
+            layout.copyKey( key, prevKey );
+        }
+
+        if ( leafId == NO_NODE_FLAG )
+        {
+            return NO_NODE_FLAG;
+        }
+        TreeNode.setKeyCount( cursor, keyCount );
+        addChild( 0, firstKeyInLeaf, leafId );
+        return finish();
+    }
+
+    /**
+     * Hands a finished node to the level above it.
+     *
+     * @param level level of the internal nodes to add the child to, where 0 is the level right above the leaves.
+     * @param lowKey first key in the subtree of the child, i.e. the key separating it from its left sibling.
+     * @param childId id of the finished child.
+     */
+    private void addChild( int level, KEY lowKey, long childId ) throws IOException
+    {
+        if ( level == internalLevels.size() )
+        {
+            internalLevels.add( new InternalLevel() );
+        }
+        InternalLevel internal = internalLevels.get( level );
+        int entrySize = bTreeNode.internalEntrySize( lowKey );
+        // At least two keys in internal nodes so that the last node on a level can always borrow a child
+        if ( internal.childCount > 2 &&
+                (internal.usedSpace + entrySize > internalFill || internal.childCount == internalMaxKeyCount + 1) )
+        {
+            long nextId = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+            internal.write( nextId );
+            addChild( level + 1, internal.lowKey, internal.id );
+            internal.previousId = internal.id;
+            internal.id = nextId;
+            internal.childCount = 0;
+            internal.usedSpace = 0;
+        }
+        if ( internal.childCount == 0 )
+        {
+            layout.copyKey( lowKey, internal.lowKey );
+        }
+        else
+        {
+            layout.copyKey( lowKey, internal.keys[internal.childCount - 1] );
+            internal.usedSpace += entrySize;
+        }
+        internal.children[internal.childCount++] = childId;
+    }
+
+    private long finish() throws IOException
+    {
+        for ( int level = 0; ; level++ )
+        {
+            InternalLevel internal = internalLevels.get( level );
+            if ( internal.childCount == 1 )
+            {
+                if ( internal.previousId == NO_NODE_FLAG )
+                {
+                    // Only one node on the level below, which then is the root
+                    return internal.children[0];
+                }
+                internal.borrowLastChildFromLeftSibling();
+            }
+            if ( internal.id == NO_NODE_FLAG )
+            {
+                internal.id = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+            }
+            internal.write( NO_NODE_FLAG );
+            addChild( level + 1, internal.lowKey, internal.id );
+        }
+    }
+
+    /**
+     * The internal node currently being filled on a level, kept in memory until it's full.
+     */
+    private class InternalLevel
+    {
+        private final long[] children = new long[internalMaxKeyCount + 1];
+        private final KEY[] keys = newKeys( internalMaxKeyCount );
+        private final KEY lowKey = layout.newKey();
+        private int childCount;
+        private int usedSpace;
+        private long id = NO_NODE_FLAG;
+        private long previousId = NO_NODE_FLAG;
+
+        private void write( long rightSiblingId ) throws IOException
+        {
+            if ( id == NO_NODE_FLAG )
+            {
+                id = idProvider.acquireNewId( stableGeneration, unstableGeneration );
+            }
+            PageCursorUtil.goTo( cursor, "new internal node", id );
+            TreeNode.initializeInternal( cursor, stableGeneration, unstableGeneration );
+            int keyCount = childCount - 1;
+            bTreeNode.setChildAt( cursor, children[0], 0, stableGeneration, unstableGeneration );
+            for ( int i = 0; i < keyCount; i++ )
+            {
+                bTreeNode.insertKeyAndRightChildAt( cursor, keys[i], children[i + 1], i, i,
+                        stableGeneration, unstableGeneration );
+            }
+            TreeNode.setKeyCount( cursor, keyCount );
+            TreeNode.setLeftSibling( cursor, previousId, stableGeneration, unstableGeneration );
+            TreeNode.setRightSibling( cursor, rightSiblingId, stableGeneration, unstableGeneration );
+        }
+
+        /**
+         * Moves the last child of the already written left sibling into this node, which has only one child.
+         * The key which separated that child in the left sibling becomes the low key of this node.
+         */
+        private void borrowLastChildFromLeftSibling() throws IOException
+        {
+            PageCursorUtil.goTo( cursor, "left sibling", previousId );
+            int siblingKeyCount = TreeNode.keyCount( cursor );
+            long borrowedChild = bTreeNode.childAt( cursor, siblingKeyCount, stableGeneration, unstableGeneration );
+            PointerChecking.checkPointer( borrowedChild, false );
+
+            children[1] = children[0];
+            children[0] = pointer( borrowedChild );
+            layout.copyKey( lowKey, keys[0] );
+            bTreeNode.keyAt( cursor, lowKey, siblingKeyCount - 1 );
+            bTreeNode.removeKeyAndRightChildAt( cursor, siblingKeyCount - 1, siblingKeyCount );
+            TreeNode.setKeyCount( cursor, siblingKeyCount - 1 );
+            childCount = 2;
+            usedSpace = bTreeNode.internalEntrySize( keys[0] );
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private KEY[] newKeys( int count )
+        {
+            KEY[] result = (KEY[]) new Object[count];
+            for ( int i = 0; i < count; i++ )
+            {
+                result[i] = layout.newKey();
+            }
+            return result;
+        }
+    }
+}
@@ -31,40 +31,22 @@ import static org.neo4j.index.internal.gbptree.GenerationSafePointerPair.read;
  * Methods to manipulate single tree node such as set and get header fields,
  * insert and fetch keys, values and children.
  * <p>
- * DESIGN
- * <p>
- * Using Separate design the internal nodes should look like
- * <pre>
- * # = empty space
- *
- * [                                   HEADER   82B                           ]|[   KEYS   ]|[     CHILDREN      ]
- * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[CHILD][CHILD]...##]
- *  0         1     2           6         10            34           58          82
- * </pre>
- * Calc offset for key i (starting from 0)
- * HEADER_LENGTH + i * SIZE_KEY
- * <p>
- * Calc offset for child i
- * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_INTERNAL + i * SIZE_CHILD
- * <p>
- * Using Separate design the leaf nodes should look like
- *
+ * All tree nodes share the same header, accessed through the static methods of this class:
  * <pre>
- * [                                   HEADER   82B                           ]|[    KEYS  ]|[   VALUES   ]
- * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[[KEY]...##]|[[VALUE]...##]
+ * [                                   HEADER   82B                           ]|[  BODY  ]
+ * [NODETYPE][TYPE][GENERATION][KEYCOUNT][RIGHTSIBLING][LEFTSIBLING][SUCCESSOR]|[ ...... ]
  *  0         1     2           6         10            34           58          82
  * </pre>
- *
- * Calc offset for key i (starting from 0)
- * HEADER_LENGTH + i * SIZE_KEY
- * <p>
- * Calc offset for value i
- * HEADER_LENGTH + SIZE_KEY * MAX_KEY_COUNT_LEAF + i * SIZE_VALUE
+ * How keys, values and children are laid out in the body is decided by the concrete node format,
+ * see {@link TreeNodeFixedSize}, {@link TreeNodeDynamicSize} and {@link TreeNodeCompressed}. Which format a tree uses
+ * is decided when it's created and is stored in its meta page, see {@link #format()}. The body operations are expressed in terms
+ * of whole entries, i.e. key and value in leaves and key and child in internal nodes, so that
+ * {@link InternalTreeLogic} can stay unaware of how much space a single key takes.
  *
  * @param <KEY> type of key
  * @param <VALUE> type of value
  */
-class TreeNode<KEY,VALUE>
+abstract class TreeNode<KEY,VALUE>
 {
     // Shared between all node types: TreeNode and FreelistNode
     static final int BYTE_POS_NODE_TYPE = 0;
@@ -80,41 +62,107 @@ class TreeNode<KEY,VALUE>
     static final int BYTE_POS_SUCCESSOR = BYTE_POS_LEFTSIBLING + SIZE_PAGE_REFERENCE;
     static final int HEADER_LENGTH = BYTE_POS_SUCCESSOR + SIZE_PAGE_REFERENCE;
 
+    static final byte FORMAT_FIXED_SIZE = 1;
+    static final byte FORMAT_DYNAMIC_SIZE = 2;
+    static final byte FORMAT_COMPRESSED = 3;
+
     private static final byte LEAF_FLAG = 1;
     static final byte INTERNAL_FLAG = 0;
     static final long NO_NODE_FLAG = 0;
 
-    private final int pageSize;
-    private final int internalMaxKeyCount;
-    private final int leafMaxKeyCount;
-    private final Layout<KEY,VALUE> layout;
-
-    private final int keySize;
-    private final int valueSize;
+    final int pageSize;
+    final Layout<KEY,VALUE> layout;
 
     TreeNode( int pageSize, Layout<KEY,VALUE> layout )
     {
         this.pageSize = pageSize;
         this.layout = layout;
-        this.keySize = layout.keySize();
-        this.valueSize = layout.valueSize();
-        this.internalMaxKeyCount = Math.floorDiv( pageSize - (HEADER_LENGTH + SIZE_PAGE_REFERENCE),
-                keySize + SIZE_PAGE_REFERENCE);
-        this.leafMaxKeyCount = Math.floorDiv( pageSize - HEADER_LENGTH, keySize + valueSize );
+    }
+
+    /**
+     * Selects the node format for a new tree with the given {@code layout}. Layouts with keys and values of fixed
+     * size get {@link TreeNodeFixedSize}, layouts with keys of different sizes get {@link TreeNodeDynamicSize}.
+     * Layouts with values of different sizes, or when asked for {@code compressed} nodes, get
+     * {@link TreeNodeCompressed}.
+     *
+     * @param layout {@link Layout} of keys and values in the tree.
+     * @param compressed whether or not to compress keys in the nodes.
+     * @return id of the node format, to be stored in the meta page of the tree.
+     */
+    static byte formatFor( Layout<?,?> layout, boolean compressed )
+    {
+        if ( compressed || !layout.fixedValueSize() )
+        {
+            return FORMAT_COMPRESSED;
+        }
+        return layout.fixedSize() ? FORMAT_FIXED_SIZE : FORMAT_DYNAMIC_SIZE;
+    }
 
-        if ( internalMaxKeyCount < 2 )
+    /**
+     * @param pageSize size of each tree node.
+     * @param layout {@link Layout} of keys and values in the tree.
+     * @param format id of the node format, see {@link #formatFor(Layout, boolean)}.
+     * @return the size, in bytes, of the largest key which a tree with the given node format can hold.
+     */
+    static int keySizeCap( int pageSize, Layout<?,?> layout, byte format )
+    {
+        if ( layout.fixedSize() )
+        {
+            return layout.keySize();
+        }
+        return format == FORMAT_COMPRESSED
+               ? TreeNodeCompressed.keySizeCap( pageSize, layout.valueSize(), layout.fixedValueSize() )
+               : TreeNodeDynamicSize.keySizeCap( pageSize, layout.valueSize() );
+    }
+
+    /**
+     * Instantiates the node format to use for the given {@code layout}, as selected by
+     * {@link #formatFor(Layout, boolean)} without compression.
+     *
+     * @param pageSize size of each tree node.
+     * @param layout {@link Layout} of keys and values in the tree.
+     * @return a new {@link TreeNode} for the given page size and layout.
+     */
+    static <KEY,VALUE> TreeNode<KEY,VALUE> instantiate( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        return instantiate( pageSize, layout, formatFor( layout, false ) );
+    }
+
+    /**
+     * Instantiates the given node format.
+     *
+     * @param pageSize size of each tree node.
+     * @param layout {@link Layout} of keys and values in the tree.
+     * @param format id of the node format, as previously selected by {@link #formatFor(Layout, boolean)}.
+     * @return a new {@link TreeNode} for the given page size, layout and format.
+     * @throws MetadataMismatchException if the format is unknown or can't hold keys and values of this layout.
+     */
+    static <KEY,VALUE> TreeNode<KEY,VALUE> instantiate( int pageSize, Layout<KEY,VALUE> layout, byte format )
+    {
+        boolean fixedSizeFormat = format == FORMAT_FIXED_SIZE || format == FORMAT_DYNAMIC_SIZE;
+        if ( fixedSizeFormat && !layout.fixedValueSize() || format == FORMAT_FIXED_SIZE && !layout.fixedSize() )
         {
-            throw new MetadataMismatchException(
-                    "For layout %s a page size of %d would only fit %d internal keys, minimum is 2",
-                    layout, pageSize, internalMaxKeyCount );
+            throw new MetadataMismatchException( "Tree node format %d can not hold keys and values of layout %s",
+                    format, layout );
         }
-        if ( leafMaxKeyCount < 2 )
+        switch ( format )
         {
-            throw new MetadataMismatchException( "A page size of %d would only fit leaf keys, minimum is 2",
-                    pageSize, leafMaxKeyCount );
+        case FORMAT_FIXED_SIZE:
+            return new TreeNodeFixedSize<>( pageSize, layout );
+        case FORMAT_DYNAMIC_SIZE:
+            return new TreeNodeDynamicSize<>( pageSize, layout );
+        case FORMAT_COMPRESSED:
+            return new TreeNodeCompressed<>( pageSize, layout );
+        default:
+            throw new MetadataMismatchException( "Unknown tree node format %d", format );
         }
     }
 
+    /**
+     * @return id of this node format, see {@link #formatFor(Layout, boolean)}.
+     */
+    abstract byte format();
+
     static byte nodeType( PageCursor cursor )
     {
         return cursor.getByte( BYTE_POS_NODE_TYPE );
@@ -230,63 +278,18 @@ class TreeNode<KEY,VALUE>
 
     // BODY METHODS
 
-    KEY keyAt( PageCursor cursor, KEY into, int pos )
-    {
-        cursor.setOffset( keyOffset( pos ) );
-        layout.readKey( cursor, into );
-        return into;
-    }
-
-    void insertKeyAt( PageCursor cursor, KEY key, int pos, int keyCount )
-    {
-        insertKeySlotsAt( cursor, pos, 1, keyCount );
-        cursor.setOffset( keyOffset( pos ) );
-        layout.writeKey( cursor, key );
-    }
-
-    void removeKeyAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount, keyOffset( 0 ), keySize );
-    }
-
-    private static void removeSlotAt( PageCursor cursor, int pos, int itemCount, int baseOffset, int itemSize )
-    {
-        for ( int posToMoveLeft = pos + 1, offset = baseOffset + posToMoveLeft * itemSize;
-                posToMoveLeft < itemCount; posToMoveLeft++, offset += itemSize )
-        {
-            cursor.copyTo( offset, cursor, offset - itemSize, itemSize );
-        }
-    }
-
-    void setKeyAt( PageCursor cursor, KEY key, int pos )
-    {
-        cursor.setOffset( keyOffset( pos ) );
-        layout.writeKey( cursor, key );
-    }
-
-    VALUE valueAt( PageCursor cursor, VALUE value, int pos )
-    {
-        cursor.setOffset( valueOffset( pos ) );
-        layout.readValue( cursor, value );
-        return value;
-    }
-
-    void insertValueAt( PageCursor cursor, VALUE value, int pos, int keyCount )
-    {
-        insertValueSlotsAt( cursor, pos, 1, keyCount );
-        setValueAt( cursor, value, pos );
-    }
+    abstract KEY keyAt( PageCursor cursor, KEY into, int pos );
 
-    void removeValueAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount, valueOffset( 0 ), valueSize );
-    }
+    abstract VALUE valueAt( PageCursor cursor, VALUE into, int pos );
 
-    void setValueAt( PageCursor cursor, VALUE value, int pos )
-    {
-        cursor.setOffset( valueOffset( pos ) );
-        layout.writeValue( cursor, value );
-    }
+    /**
+     * Overwrites the value at {@code pos} in a leaf, if there's room for it. Node formats for values of fixed size
+     * always overwrite the value in place.
+     *
+     * @return {@code true} if the value was overwritten, or {@code false} if the new value doesn't fit in the node,
+     * in which case the node is left unchanged.
+     */
+    abstract boolean setValueAt( PageCursor cursor, VALUE value, int pos );
 
     long childAt( PageCursor cursor, int pos, long stableGeneration, long unstableGeneration )
     {
@@ -294,18 +297,6 @@ class TreeNode<KEY,VALUE>
         return read( cursor, stableGeneration, unstableGeneration, pos );
     }
 
-    void insertChildAt( PageCursor cursor, long child, int pos, int keyCount,
-            long stableGeneration, long unstableGeneration )
-    {
-        insertChildSlotsAt( cursor, pos, 1, keyCount );
-        setChildAt( cursor, child, pos, stableGeneration, unstableGeneration );
-    }
-
-    void removeChildAt( PageCursor cursor, int pos, int keyCount )
-    {
-        removeSlotAt( cursor, pos, keyCount + 1, childOffset( 0 ), childSize() );
-    }
-
     void setChildAt( PageCursor cursor, long child, int pos, long stableGeneration, long unstableGeneration )
     {
         cursor.setOffset( childOffset( pos ) );
@@ -318,75 +309,153 @@ class TreeNode<KEY,VALUE>
     }
 
     /**
-     * Moves items (key/value/child) one step to the right, which means rewriting all items of the particular type
-     * from pos - itemCount.
-     * itemCount is keyCount for key and value, but keyCount+1 for children.
+     * Inserts {@code key} and {@code value} at {@code pos} in a leaf, which must have room for it,
+     * see {@link #leafOverflow(PageCursor, int, Object, Object)}. Key count is not updated.
      */
-    private static void insertSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int itemCount, int baseOffset,
-            int itemSize )
-    {
-        for ( int posToMoveRight = itemCount - 1, offset = baseOffset + posToMoveRight * itemSize;
-              posToMoveRight >= pos; posToMoveRight--, offset -= itemSize )
-        {
-            cursor.copyTo( offset, cursor, offset + itemSize * numberOfSlots, itemSize );
-        }
-    }
+    abstract void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount );
 
-    void insertKeySlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
-    {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, keyOffset( 0 ), keySize );
-    }
+    /**
+     * Inserts {@code key} at {@code pos} and {@code child} to the right of it, i.e. at child position {@code pos + 1},
+     * in an internal node, which must have room for it, see {@link #internalOverflow(PageCursor, int, Object)}.
+     * Key count is not updated.
+     */
+    abstract void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration );
 
-    void insertValueSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
-    {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount, valueOffset( 0 ), valueSize );
-    }
+    /**
+     * Removes key and value at {@code pos} in a leaf. Key count is not updated.
+     */
+    abstract void removeKeyValueAt( PageCursor cursor, int pos, int keyCount );
 
-    void insertChildSlotsAt( PageCursor cursor, int pos, int numberOfSlots, int keyCount )
-    {
-        insertSlotsAt( cursor, pos, numberOfSlots, keyCount + 1, childOffset( 0 ), childSize() );
-    }
+    /**
+     * Removes key at {@code keyPos} and the child to the left of it, i.e. at child position {@code keyPos},
+     * in an internal node. Key count is not updated.
+     */
+    abstract void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount );
 
-    int internalMaxKeyCount()
-    {
-        return internalMaxKeyCount;
-    }
+    /**
+     * Removes key at {@code keyPos} and the child to the right of it, i.e. at child position {@code keyPos + 1},
+     * in an internal node. Key count is not updated.
+     */
+    abstract void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount );
 
-    int leafMaxKeyCount()
-    {
-        return leafMaxKeyCount;
-    }
+    /**
+     * Overwrites the key at {@code pos} in an internal node, if there's room for it.
+     *
+     * @return {@code true} if the key was overwritten, or {@code false} if the new key doesn't fit in the node,
+     * in which case the node is left unchanged.
+     */
+    abstract boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos );
 
-    // HELPERS
+    /**
+     * @return {@code true} if {@code key} and {@code value} doesn't fit in the leaf, i.e. inserting them requires
+     * a split.
+     */
+    abstract boolean leafOverflow( PageCursor cursor, int keyCount, KEY key, VALUE value );
 
-    int keyOffset( int pos )
-    {
-        return HEADER_LENGTH + pos * keySize;
-    }
+    /**
+     * @return {@code true} if {@code key} and a child doesn't fit in the internal node, i.e. inserting them
+     * requires a split.
+     */
+    abstract boolean internalOverflow( PageCursor cursor, int keyCount, KEY key );
 
-    int valueOffset( int pos )
-    {
-        return HEADER_LENGTH + leafMaxKeyCount * keySize + pos * valueSize;
-    }
+    /**
+     * @return {@code true} if removing the entry at {@code pos} would leave the leaf less than half full.
+     */
+    abstract boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos );
 
-    int childOffset( int pos )
-    {
-        return HEADER_LENGTH + internalMaxKeyCount * keySize + pos * SIZE_PAGE_REFERENCE;
-    }
+    /**
+     * @return {@code true} if the underflowing right leaf should take entries from its left sibling, because
+     * all entries wouldn't fit in one leaf. {@link #canMergeLeaves(PageCursor, int, PageCursor, int)} is
+     * {@code true} otherwise. Entries are never moved from a right leaf to its left sibling, since concurrent
+     * readers seeking forward could then miss them, so a leftmost leaf which can't be merged with its right
+     * sibling is left underflowing.
+     */
+    abstract boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
 
-    static boolean isNode( long node )
-    {
-        return GenerationSafePointerPair.pointer( node ) != NO_NODE_FLAG;
-    }
+    /**
+     * @return {@code true} if all entries of both leaves fits in one leaf.
+     */
+    abstract boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
 
-    int keySize()
-    {
-        return keySize;
-    }
+    /**
+     * Splits the full leaf at {@code leftCursor}, with {@code newKey} and {@code newValue} inserted at
+     * {@code insertPos}, between itself and the newly initialized leaf at {@code rightCursor}.
+     * The right leaf is written completely, including its key count, before the left leaf is changed.
+     * Sibling pointers are not updated.
+     *
+     * @param newSplitter receives the first key of the right leaf.
+     */
+    abstract void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter );
+
+    /**
+     * Splits the full internal node at {@code leftCursor}, with {@code newKey} inserted at {@code insertPos} and
+     * {@code newRightChild} to the right of it, between itself and the newly initialized internal node at
+     * {@code rightCursor}. The key in the middle is moved up and written to {@code newSplitter}.
+     * The right node is written completely, including its key count, before the left node is changed.
+     * Sibling pointers are not updated.
+     */
+    abstract void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter );
+
+    /**
+     * Moves all entries from the leaf at {@code leftCursor} in front of the entries in its right sibling,
+     * and updates the key count of the right sibling.
+     */
+    abstract void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount );
+
+    /**
+     * Moves entries from the end of the leaf at {@code leftCursor} to the beginning of the underflowing leaf at
+     * {@code rightCursor}, so that they become about equally full, and updates the key count of both.
+     */
+    abstract void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor,
+            int rightKeyCount );
 
-    int valueSize()
+    /**
+     * @return number of bytes available for entries in a leaf.
+     */
+    abstract int leafSpace();
+
+    /**
+     * @return number of bytes {@code key} and {@code value} occupies in a leaf.
+     */
+    abstract int leafEntrySize( KEY key, VALUE value );
+
+    /**
+     * @return number of bytes available for keys and children, apart from the first child, in an internal node.
+     */
+    abstract int internalSpace();
+
+    /**
+     * @return number of bytes {@code key} and its right child occupies in an internal node.
+     */
+    abstract int internalEntrySize( KEY key );
+
+    /**
+     * @return the largest key, in bytes, which can be inserted into the tree.
+     */
+    abstract int maxKeySize();
+
+    /**
+     * @return upper bound of number of keys in an internal node.
+     */
+    abstract int internalMaxKeyCount();
+
+    /**
+     * @return upper bound of number of keys in a leaf.
+     */
+    abstract int leafMaxKeyCount();
+
+    abstract int childOffset( int pos );
+
+    // HELPERS
+
+    static boolean isNode( long node )
     {
-        return valueSize;
+        return GenerationSafePointerPair.pointer( node ) != NO_NODE_FLAG;
     }
 
     static int childSize()
@@ -404,11 +473,4 @@ class TreeNode<KEY,VALUE>
     {
         PageCursorUtil.goTo( cursor, messageOnError, GenerationSafePointerPair.pointer( nodeId ) );
     }
-
-    @Override
-    public String toString()
-    {
-        return "TreeNode[pageSize:" + pageSize + ", internalMax:" + internalMaxKeyCount +
-                ", leafMax:" + leafMaxKeyCount + ", keySize:" + keySize + ", valueSize:" + valueSize + "]";
-    }
 }
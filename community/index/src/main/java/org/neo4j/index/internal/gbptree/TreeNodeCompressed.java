@@ -0,0 +1,1224 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static java.lang.Math.min;
+
+/**
+ * {@link TreeNode} format which compresses keys, for any layout, and which can hold values of different sizes,
+ * see {@link Layout#fixedValueSize()}.
+ * <p>
+ * DESIGN
+ * <p>
+ * Keys and values are stored in a heap in the same way as in {@link TreeNodeDynamicSize}, with an array of offsets
+ * into the heap kept in key order. Each node also has a base key, which is the bytes of one of its keys, or the first
+ * {@link #MAX_BASE_SIZE} bytes of it, as written by {@link Layout#writeKey(PageCursor, Object)}. Each entry
+ * only stores the number of leading bytes its key has in common with the base key, followed by the rest of the key.
+ * Keys in the same node are close to each other and typically share their most significant bytes, e.g. label id
+ * and the high bytes of the node id range of label scan keys, or type and sign of number index keys, so those are
+ * stored only once per node. Every entry can still be read on its own, which keeps binary search within a node.
+ * <p>
+ * Leaf nodes look like
+ * <pre>
+ * # = empty space
+ *
+ * [                    HEADER   87B                     ]|[  OFFSETS  ]|#####|[           HEAP             ]|[BASE]
+ * [...82B TreeNode header...][HEAPSIZE][DEADSPACE][BASESIZE]|[[OFFSET]...]|#####|[[ENTRY]...]|[BASE]
+ *  0                          82        84         86         87
+ * </pre>
+ * Internal nodes have the first child and then offset and child pairs, like in {@link TreeNodeDynamicSize}.
+ * An entry looks like
+ * <pre>
+ * [PREFIX][SUFFIXSIZE][SUFFIX][VALUESIZE][VALUE]
+ * </pre>
+ * where PREFIX is the number of bytes from the base key and SUFFIX is the rest of the key. Internal nodes have no
+ * value and VALUESIZE is only stored for layouts which don't have values of fixed size. Sizes are stored in one byte
+ * if less than 128, otherwise in two bytes, where the highest bit of the first byte is set.
+ * <p>
+ * The base key is chosen when the first key is inserted into an empty node. When the heap is compacted, or entries
+ * are moved to another node, the base key may be replaced by the key in the middle of the node, if that makes
+ * the entries take less space. The base key is part of HEAPSIZE, but never of DEADSPACE, and BASESIZE is only valid
+ * when key count is greater than zero, just like the other header fields.
+ * <p>
+ * Keys are limited to a quarter of the space in a node which isn't taken by the base key, so that a split or
+ * rebalance always find a division of entries which fits in both nodes. For layouts with values of different sizes
+ * {@link Layout#valueSize()} is the maximum size of a value.
+ * <p>
+ * Concurrent readers may see offsets and sizes from a node in the middle of a change. Such values are checked
+ * before following them, and if out of range {@link PageCursor#setCursorException(String)} is called instead,
+ * which will be cleared when the reader retries.
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+class TreeNodeCompressed<KEY,VALUE> extends TreeNode<KEY,VALUE>
+{
+    static final int MAX_BASE_SIZE = 0xFF;
+    private static final int SIZE_OFFSET = Short.BYTES;
+    private static final int SIZE_PREFIX = Byte.BYTES;
+    private static final int SIZE_MAX_SIZE = Short.BYTES;
+    private static final int SIZE_INTERNAL_SLOT = SIZE_OFFSET + SIZE_PAGE_REFERENCE;
+    private static final int BYTE_POS_HEAP_SIZE = HEADER_LENGTH;
+    private static final int BYTE_POS_DEAD_SPACE = BYTE_POS_HEAP_SIZE + Short.BYTES;
+    private static final int BYTE_POS_BASE_SIZE = BYTE_POS_DEAD_SPACE + Short.BYTES;
+    static final int HEADER_LENGTH_COMPRESSED = BYTE_POS_BASE_SIZE + Byte.BYTES;
+    private static final int MAX_PAGE_SIZE = 1 << Short.SIZE;
+    private static final int MAX_ONE_BYTE_SIZE = 0x7F;
+    private static final int MAX_TWO_BYTE_SIZE = 0x7FFF;
+    private static final int TWO_BYTE_SIZE_FLAG = 0x80;
+    private static final byte[] EMPTY_CHILD = new byte[SIZE_PAGE_REFERENCE];
+
+    private final boolean fixedValueSize;
+    private final int valueSize;
+    private final int leafSpace;
+    private final int internalSpace;
+    private final int maxKeySize;
+    private final int leafMaxKeyCount;
+    private final int internalMaxKeyCount;
+    private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial( Scratch::new );
+
+    TreeNodeCompressed( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        super( pageSize, layout );
+        this.fixedValueSize = layout.fixedValueSize();
+        this.valueSize = layout.valueSize();
+        this.leafSpace = pageSize - HEADER_LENGTH_COMPRESSED;
+        this.internalSpace = leafSpace - SIZE_PAGE_REFERENCE;
+        this.maxKeySize = keySizeCap( pageSize, valueSize, fixedValueSize );
+        this.leafMaxKeyCount = leafSpace / (SIZE_OFFSET + keyPartSize( 0, 0 ) + (fixedValueSize ? valueSize : 1));
+        this.internalMaxKeyCount = internalSpace / (SIZE_INTERNAL_SLOT + keyPartSize( 0, 0 ));
+
+        if ( pageSize > MAX_PAGE_SIZE )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d is too big, maximum is %d",
+                    layout, pageSize, MAX_PAGE_SIZE );
+        }
+        if ( maxKeySize < 1 || layout.fixedSize() && layout.keySize() > maxKeySize )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d would not fit any keys",
+                    layout, pageSize );
+        }
+    }
+
+    /**
+     * @param pageSize size of tree nodes.
+     * @param valueSize size of values, or maximum size of values if not of fixed size.
+     * @param fixedValueSize whether or not all values are of the same size.
+     * @return the largest key, in bytes, which a tree with this node format can hold.
+     */
+    static int keySizeCap( int pageSize, int valueSize, boolean fixedValueSize )
+    {
+        int leafSpace = pageSize - HEADER_LENGTH_COMPRESSED;
+        int internalSpace = leafSpace - SIZE_PAGE_REFERENCE;
+        int maxValuePartSize = fixedValueSize ? valueSize : SIZE_MAX_SIZE + valueSize;
+        int leafOverhead = SIZE_OFFSET + SIZE_PREFIX + SIZE_MAX_SIZE + maxValuePartSize;
+        int internalOverhead = SIZE_INTERNAL_SLOT + SIZE_PREFIX + SIZE_MAX_SIZE;
+
+        // Four keys and the base key must fit in a node, where the base is never bigger than a key
+        int cap = min( (leafSpace - 4 * leafOverhead) / 5, (internalSpace - 4 * internalOverhead) / 5 );
+        if ( cap > MAX_BASE_SIZE )
+        {
+            // Keys are allowed to be bigger than the base
+            cap = min( (leafSpace - MAX_BASE_SIZE) / 4 - leafOverhead,
+                    (internalSpace - MAX_BASE_SIZE) / 4 - internalOverhead );
+        }
+        return min( cap, MAX_TWO_BYTE_SIZE );
+    }
+
+    @Override
+    byte format()
+    {
+        return FORMAT_COMPRESSED;
+    }
+
+    // BODY METHODS
+
+    @Override
+    KEY keyAt( PageCursor cursor, KEY into, int pos )
+    {
+        Scratch s = scratch.get();
+        int keySize = readKey( cursor, readKeyOffset( cursor, pos, isLeaf( cursor ) ), s.key, 0 );
+        if ( keySize >= 0 )
+        {
+            s.keyCursor.setOffset( 0 );
+            layout.readKey( s.keyCursor, into, keySize );
+        }
+        return into;
+    }
+
+    @Override
+    VALUE valueAt( PageCursor cursor, VALUE into, int pos )
+    {
+        int size = seekValue( cursor, readKeyOffset( cursor, pos, true ) );
+        if ( size >= 0 )
+        {
+            layout.readValue( cursor, into, size );
+        }
+        return into;
+    }
+
+    @Override
+    boolean setValueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        int offset = readKeyOffset( cursor, pos, true );
+        if ( fixedValueSize )
+        {
+            skipKey( cursor, offset );
+            layout.writeValue( cursor, value );
+            return true;
+        }
+
+        int newValuePartSize = valuePartSize( value );
+        int oldEntrySize = entrySizeAt( cursor, offset, true );
+        skipKey( cursor, offset );
+        int valueOffset = cursor.getOffset();
+        int oldValuePartSize = offset + oldEntrySize - valueOffset;
+        int keyCount = keyCount( cursor );
+        if ( newValuePartSize <= oldValuePartSize )
+        {
+            // Overwrite in place, the rest of the old value becomes dead space
+            cursor.setOffset( valueOffset );
+            writeValuePart( cursor, value );
+            setHeap( cursor, allocOffset( cursor, keyCount ),
+                    deadSpace( cursor, keyCount ) + oldValuePartSize - newValuePartSize );
+            return true;
+        }
+        if ( leafUsed( cursor, keyCount ) - oldValuePartSize + newValuePartSize > leafSpace )
+        {
+            return false;
+        }
+
+        Scratch s = scratch.get();
+        int keySize = readKey( cursor, offset, s.key, 0 );
+        int newOffset = allocateAndWriteKey( cursor, keyCount, true, keyCount, pos, s.key, keySize,
+                newValuePartSize, oldEntrySize );
+        writeValuePart( cursor, value );
+        cursor.putShort( leafSlot( pos ), (short) newOffset );
+        return true;
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount )
+    {
+        Scratch s = scratch.get();
+        int keySize = writeKey( key, s );
+        int offset = allocateAndWriteKey( cursor, keyCount, true, keyCount + 1, -1, s.key, keySize,
+                valuePartSize( value ), 0 );
+        writeValuePart( cursor, value );
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.putShort( leafSlot( i + 1 ), cursor.getShort( leafSlot( i ) ) );
+        }
+        cursor.putShort( leafSlot( pos ), (short) offset );
+    }
+
+    @Override
+    void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration )
+    {
+        Scratch s = scratch.get();
+        int keySize = writeKey( key, s );
+        int offset = allocateAndWriteKey( cursor, keyCount, false, keyCount + 1, -1, s.key, keySize, 0, 0 );
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.copyTo( internalSlot( i ), cursor, internalSlot( i + 1 ), SIZE_INTERNAL_SLOT );
+        }
+        cursor.putShort( internalSlot( pos ), (short) offset );
+        if ( pos == keyCount )
+        {
+            // This child slot may previously have been part of the heap and so contain garbage, which
+            // GenerationSafePointerPair wouldn't be able to write a pointer over
+            cursor.setOffset( childOffset( pos + 1 ) );
+            cursor.putBytes( EMPTY_CHILD );
+        }
+        setChildAt( cursor, child, pos + 1, stableGeneration, unstableGeneration );
+    }
+
+    @Override
+    void removeKeyValueAt( PageCursor cursor, int pos, int keyCount )
+    {
+        int offset = readKeyOffset( cursor, pos, true );
+        freeEntry( cursor, keyCount, offset, entrySizeAt( cursor, offset, true ) );
+        for ( int i = pos + 1; i < keyCount; i++ )
+        {
+            cursor.putShort( leafSlot( i - 1 ), cursor.getShort( leafSlot( i ) ) );
+        }
+    }
+
+    @Override
+    void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        // Let the right child take the place of the left child, then remove the key and the right child
+        cursor.copyTo( childOffset( keyPos + 1 ), cursor, childOffset( keyPos ), SIZE_PAGE_REFERENCE );
+        removeKeyAndRightChildAt( cursor, keyPos, keyCount );
+    }
+
+    @Override
+    void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        int offset = readKeyOffset( cursor, keyPos, false );
+        freeEntry( cursor, keyCount, offset, entrySizeAt( cursor, offset, false ) );
+        for ( int i = keyPos + 1; i < keyCount; i++ )
+        {
+            cursor.copyTo( internalSlot( i ), cursor, internalSlot( i - 1 ), SIZE_INTERNAL_SLOT );
+        }
+    }
+
+    @Override
+    boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos )
+    {
+        int keyCount = keyCount( cursor );
+        int oldOffset = readKeyOffset( cursor, pos, false );
+        int oldEntrySize = entrySizeAt( cursor, oldOffset, false );
+        Scratch s = scratch.get();
+        int keySize = writeKey( key, s );
+        int prefix = commonPrefixWithBase( cursor, keyCount, s.key, keySize );
+        int newEntrySize = keyPartSize( prefix, keySize );
+
+        if ( newEntrySize <= oldEntrySize )
+        {
+            // Overwrite in place, the rest of the old entry becomes dead space
+            writeKeyPart( cursor, oldOffset, s.key, prefix, keySize );
+            setHeap( cursor, allocOffset( cursor, keyCount ),
+                    deadSpace( cursor, keyCount ) + oldEntrySize - newEntrySize );
+            return true;
+        }
+        if ( internalUsed( cursor, keyCount ) - oldEntrySize + newEntrySize > internalSpace )
+        {
+            return false;
+        }
+        int offset = allocateAndWriteKey( cursor, keyCount, false, keyCount, pos, s.key, keySize, 0, oldEntrySize );
+        cursor.putShort( internalSlot( pos ), (short) offset );
+        return true;
+    }
+
+    @Override
+    boolean leafOverflow( PageCursor cursor, int keyCount, KEY key, VALUE value )
+    {
+        Scratch s = scratch.get();
+        int keySize = writeKey( key, s );
+        int entrySize = SIZE_OFFSET + newKeyPartSize( cursor, keyCount, s, keySize ) + valuePartSize( value );
+        return leafUsed( cursor, keyCount ) + entrySize > leafSpace;
+    }
+
+    @Override
+    boolean internalOverflow( PageCursor cursor, int keyCount, KEY key )
+    {
+        Scratch s = scratch.get();
+        int keySize = writeKey( key, s );
+        int entrySize = SIZE_INTERNAL_SLOT + newKeyPartSize( cursor, keyCount, s, keySize );
+        return internalUsed( cursor, keyCount ) + entrySize > internalSpace;
+    }
+
+    @Override
+    boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos )
+    {
+        int entrySize = entrySizeAt( cursor, readKeyOffset( cursor, pos, true ), true );
+        int usedAfterRemove = leafUsed( cursor, keyCount ) - SIZE_OFFSET - entrySize;
+        return usedAfterRemove < leafSpace / 2;
+    }
+
+    @Override
+    boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        // Entries are measured against the base of the right leaf, so it may be that not all of them fit in the
+        // right leaf even if both leaves are less than half full. Entries are then moved until the right leaf is
+        // half full, which leaves only the left leaf underflowing, as it already was
+        return !canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) &&
+                rebalanceFromPos( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) < leftKeyCount;
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = targetBase( leftCursor, leftKeyCount, rightCursor, rightKeyCount, base );
+        int used = rightKeyCount == 0 ? baseSize : leafUsed( rightCursor, rightKeyCount );
+        for ( int pos = 0; pos < leftKeyCount && used <= leafSpace; pos++ )
+        {
+            used += SIZE_OFFSET + leafEntrySizeWithBase( leftCursor, pos, base, baseSize );
+        }
+        return used <= leafSpace;
+    }
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter )
+    {
+        // Entries after insert are the existing entries with the new entry at insertPos.
+        // Find the first entry of the right leaf so that the two leaves gets about the same number of bytes.
+        Scratch s = scratch.get();
+        int newKeySize = writeKey( newKey, s );
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int newEntrySize = SIZE_OFFSET + newKeyPartSize( leftCursor, leftKeyCount, s, newKeySize ) +
+                valuePartSize( newValue );
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = readBase( leftCursor, leftKeyCount, base );
+        int halfSpace = (leafUsed( leftCursor, leftKeyCount ) - baseSize + newEntrySize) / 2;
+        int splitPos = 0;
+        for ( int used = 0; splitPos < keyCountAfterInsert; splitPos++ )
+        {
+            int entrySize = splitPos == insertPos ? newEntrySize : SIZE_OFFSET +
+                    entrySizeAt( leftCursor, readKeyOffset( leftCursor, existingPos( splitPos, insertPos ), true ), true );
+            if ( used + entrySize > halfSpace )
+            {
+                break;
+            }
+            used += entrySize;
+        }
+        splitPos = clamp( splitPos, 1, keyCountAfterInsert - 1 );
+
+        // Right, starting out with the base of the left leaf, so that all entries are known to fit
+        Entries entries = new Entries();
+        for ( int pos = splitPos; pos < keyCountAfterInsert; pos++ )
+        {
+            if ( pos == insertPos )
+            {
+                entries.add( s.key, newKeySize, newValue );
+            }
+            else
+            {
+                entries.add( leftCursor, readKeyOffset( leftCursor, existingPos( pos, insertPos ), true ), true );
+            }
+        }
+        writeEntries( rightCursor, true, entries, 0, entries.count, base, baseSize, null, 0, -1 );
+        setKeyCount( rightCursor, entries.count );
+
+        if ( splitPos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, existingPos( splitPos, insertPos ) );
+        }
+
+        // Left
+        if ( insertPos < splitPos )
+        {
+            truncate( leftCursor, leftKeyCount, splitPos - 1, true );
+            insertKeyValueAt( leftCursor, newKey, newValue, insertPos, splitPos - 1 );
+        }
+        else
+        {
+            truncate( leftCursor, leftKeyCount, splitPos, true );
+        }
+        setKeyCount( leftCursor, splitPos );
+    }
+
+    @Override
+    void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter )
+    {
+        // Keys after insert are the existing keys with the new key at insertPos, and the new child at insertPos + 1.
+        // Find the key to move up so that the two nodes gets about the same number of bytes.
+        Scratch s = scratch.get();
+        int newKeySize = writeKey( newKey, s );
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int newEntrySize = SIZE_INTERNAL_SLOT + newKeyPartSize( leftCursor, leftKeyCount, s, newKeySize );
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = readBase( leftCursor, leftKeyCount, base );
+        int halfSpace = (internalUsed( leftCursor, leftKeyCount ) - baseSize + newEntrySize) / 2;
+        int middlePos = 0;
+        for ( int used = 0; middlePos < keyCountAfterInsert; middlePos++ )
+        {
+            int entrySize = middlePos == insertPos ? newEntrySize : SIZE_INTERNAL_SLOT +
+                    entrySizeAt( leftCursor, readKeyOffset( leftCursor, existingPos( middlePos, insertPos ), false ),
+                            false );
+            if ( used + entrySize > halfSpace )
+            {
+                break;
+            }
+            used += entrySize;
+        }
+        middlePos = clamp( middlePos, 1, keyCountAfterInsert - 2 );
+
+        // Right, starting out with the base of the left node, so that all entries are known to fit
+        Entries entries = new Entries();
+        copyChildAfterInsert( leftCursor, middlePos + 1, rightCursor, 0, insertPos, newRightChild,
+                stableGeneration, unstableGeneration );
+        for ( int pos = middlePos + 1; pos < keyCountAfterInsert; pos++ )
+        {
+            if ( pos == insertPos )
+            {
+                entries.add( s.key, newKeySize, null );
+            }
+            else
+            {
+                entries.add( leftCursor, readKeyOffset( leftCursor, existingPos( pos, insertPos ), false ), false );
+            }
+            copyChildAfterInsert( leftCursor, pos + 1, rightCursor, pos - middlePos, insertPos, newRightChild,
+                    stableGeneration, unstableGeneration );
+        }
+        writeEntries( rightCursor, false, entries, 0, entries.count, base, baseSize, null, 0, -1 );
+        setKeyCount( rightCursor, entries.count );
+
+        if ( middlePos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, existingPos( middlePos, insertPos ) );
+        }
+
+        // Left
+        if ( insertPos < middlePos )
+        {
+            truncate( leftCursor, leftKeyCount, middlePos - 1, false );
+            insertKeyAndRightChildAt( leftCursor, newKey, newRightChild, insertPos, middlePos - 1,
+                    stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            truncate( leftCursor, leftKeyCount, middlePos, false );
+        }
+        setKeyCount( leftCursor, middlePos );
+    }
+
+    @Override
+    void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        moveLeafEntriesFromLeftToRight( leftCursor, leftKeyCount, 0, rightCursor, rightKeyCount );
+    }
+
+    @Override
+    void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        int fromPos = rebalanceFromPos( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+        moveLeafEntriesFromLeftToRight( leftCursor, leftKeyCount, fromPos, rightCursor, rightKeyCount );
+        truncate( leftCursor, leftKeyCount, fromPos, true );
+        setKeyCount( leftCursor, fromPos );
+    }
+
+    /**
+     * @return position of the first entry in the left leaf to move to the right leaf in a rebalance, so that they
+     * become about equally full, and the right leaf at least half full, or {@code leftKeyCount} if no entry can be
+     * moved.
+     */
+    private int rebalanceFromPos( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = targetBase( leftCursor, leftKeyCount, rightCursor, rightKeyCount, base );
+        int leftUsed = leafUsed( leftCursor, leftKeyCount );
+        int rightUsed = rightKeyCount == 0 ? baseSize : leafUsed( rightCursor, rightKeyCount );
+        int fromPos = leftKeyCount;
+        while ( fromPos > 1 && (rightUsed < leftUsed || rightUsed < leafSpace / 2) )
+        {
+            int rightEntrySize = SIZE_OFFSET + leafEntrySizeWithBase( leftCursor, fromPos - 1, base, baseSize );
+            if ( rightUsed + rightEntrySize > leafSpace )
+            {
+                break;
+            }
+            leftUsed -= SIZE_OFFSET + entrySizeAt( leftCursor, readKeyOffset( leftCursor, fromPos - 1, true ), true );
+            rightUsed += rightEntrySize;
+            fromPos--;
+        }
+        return fromPos;
+    }
+
+    /**
+     * Writes the right leaf anew, with the entries from {@code fromPos} in the left leaf in front of its own entries,
+     * starting out with the base of {@link #targetBase(PageCursor, int, PageCursor, int, byte[])}.
+     */
+    private void moveLeafEntriesFromLeftToRight( PageCursor leftCursor, int leftKeyCount, int fromPos,
+            PageCursor rightCursor, int rightKeyCount )
+    {
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = targetBase( leftCursor, leftKeyCount, rightCursor, rightKeyCount, base );
+        Entries entries = new Entries();
+        for ( int pos = fromPos; pos < leftKeyCount; pos++ )
+        {
+            entries.add( leftCursor, readKeyOffset( leftCursor, pos, true ), true );
+        }
+        for ( int pos = 0; pos < rightKeyCount; pos++ )
+        {
+            entries.add( rightCursor, readKeyOffset( rightCursor, pos, true ), true );
+        }
+        writeEntries( rightCursor, true, entries, 0, entries.count, base, baseSize, null, 0, -1 );
+        setKeyCount( rightCursor, entries.count );
+    }
+
+    /**
+     * Base which entries moved from the left leaf into the right leaf are measured against, the base of the right
+     * leaf, or the base of the left leaf if the right leaf is empty.
+     *
+     * @return size of the base, which has been read into {@code into}.
+     */
+    private int targetBase( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount,
+            byte[] into )
+    {
+        return rightKeyCount > 0 ? readBase( rightCursor, rightKeyCount, into ) : readBase( leftCursor, leftKeyCount, into );
+    }
+
+    @Override
+    int leafSpace()
+    {
+        return leafSpace;
+    }
+
+    @Override
+    int leafEntrySize( KEY key, VALUE value )
+    {
+        // Without a node there's no base to compress against, so this is the uncompressed size
+        return SIZE_OFFSET + keyPartSize( 0, layout.keySize( key ) ) + valuePartSize( value );
+    }
+
+    @Override
+    int internalSpace()
+    {
+        return internalSpace;
+    }
+
+    @Override
+    int internalEntrySize( KEY key )
+    {
+        return SIZE_INTERNAL_SLOT + keyPartSize( 0, layout.keySize( key ) );
+    }
+
+    @Override
+    int maxKeySize()
+    {
+        return maxKeySize;
+    }
+
+    @Override
+    int internalMaxKeyCount()
+    {
+        return internalMaxKeyCount;
+    }
+
+    @Override
+    int leafMaxKeyCount()
+    {
+        return leafMaxKeyCount;
+    }
+
+    @Override
+    int childOffset( int pos )
+    {
+        return HEADER_LENGTH_COMPRESSED + pos * SIZE_INTERNAL_SLOT;
+    }
+
+    // HELPERS
+
+    private static int leafSlot( int pos )
+    {
+        return HEADER_LENGTH_COMPRESSED + pos * SIZE_OFFSET;
+    }
+
+    private static int internalSlot( int pos )
+    {
+        return HEADER_LENGTH_COMPRESSED + SIZE_PAGE_REFERENCE + pos * SIZE_INTERNAL_SLOT;
+    }
+
+    private static int slot( int pos, boolean leaf )
+    {
+        return leaf ? leafSlot( pos ) : internalSlot( pos );
+    }
+
+    /**
+     * Position of existing entry which ends up at {@code posAfterInsert} after inserting a new entry at
+     * {@code insertPos}.
+     */
+    private static int existingPos( int posAfterInsert, int insertPos )
+    {
+        return posAfterInsert < insertPos ? posAfterInsert : posAfterInsert - 1;
+    }
+
+    private static int clamp( int value, int min, int max )
+    {
+        return Math.max( min, Math.min( max, value ) );
+    }
+
+    private void copyChildAfterInsert( PageCursor fromCursor, int posAfterInsert, PageCursor toCursor, int toPos,
+            int insertPos, long newRightChild, long stableGeneration, long unstableGeneration )
+    {
+        if ( posAfterInsert == insertPos + 1 )
+        {
+            setChildAt( toCursor, newRightChild, toPos, stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            int fromPos = posAfterInsert <= insertPos ? posAfterInsert : posAfterInsert - 1;
+            fromCursor.copyTo( childOffset( fromPos ), toCursor, childOffset( toPos ), SIZE_PAGE_REFERENCE );
+        }
+    }
+
+    private static int sizeOfSize( int size )
+    {
+        return size > MAX_ONE_BYTE_SIZE ? 2 : 1;
+    }
+
+    private static void putSize( PageCursor cursor, int size )
+    {
+        if ( size > MAX_ONE_BYTE_SIZE )
+        {
+            cursor.putByte( (byte) (TWO_BYTE_SIZE_FLAG | (size >>> Byte.SIZE)) );
+        }
+        cursor.putByte( (byte) size );
+    }
+
+    private static int getSize( PageCursor cursor )
+    {
+        int size = cursor.getByte() & 0xFF;
+        if ( (size & TWO_BYTE_SIZE_FLAG) != 0 )
+        {
+            size = ((size & ~TWO_BYTE_SIZE_FLAG) << Byte.SIZE) | (cursor.getByte() & 0xFF);
+        }
+        return size;
+    }
+
+    private static int keyPartSize( int prefix, int keySize )
+    {
+        int suffix = keySize - prefix;
+        return SIZE_PREFIX + sizeOfSize( suffix ) + suffix;
+    }
+
+    private int valuePartSize( VALUE value )
+    {
+        int size = layout.valueSize( value );
+        if ( size > valueSize )
+        {
+            throw new IllegalArgumentException( "Value " + value + " of size " + size +
+                    " is bigger than the maximum value size " + valueSize + " of this tree" );
+        }
+        return fixedValueSize ? size : sizeOfSize( size ) + size;
+    }
+
+    private void writeValuePart( PageCursor cursor, VALUE value )
+    {
+        if ( !fixedValueSize )
+        {
+            putSize( cursor, layout.valueSize( value ) );
+        }
+        layout.writeValue( cursor, value );
+    }
+
+    private static void writeKeyPart( PageCursor cursor, int offset, byte[] key, int prefix, int keySize )
+    {
+        cursor.setOffset( offset );
+        cursor.putByte( (byte) prefix );
+        putSize( cursor, keySize - prefix );
+        cursor.putBytes( key, prefix, keySize - prefix );
+    }
+
+    /**
+     * Writes {@code key} into the scratch key bytes.
+     *
+     * @return size of the key.
+     */
+    private int writeKey( KEY key, Scratch s )
+    {
+        int keySize = layout.keySize( key );
+        if ( keySize > maxKeySize )
+        {
+            throw new IllegalArgumentException( "Key " + key + " of size " + keySize +
+                    " is bigger than the maximum key size " + maxKeySize + " of this tree" );
+        }
+        s.keyCursor.setOffset( 0 );
+        layout.writeKey( s.keyCursor, key );
+        return keySize;
+    }
+
+    private int readKeyOffset( PageCursor cursor, int pos, boolean leaf )
+    {
+        return cursor.getShort( slot( pos, leaf ) ) & 0xFFFF;
+    }
+
+    /**
+     * Reads the whole key of the entry at {@code offset}, i.e. its prefix from the base followed by its suffix,
+     * into {@code into}, leaving the cursor right after the entry's key.
+     *
+     * @return key size, or {@code -1} if offset or sizes are out of range, in which case a cursor exception
+     * has been set.
+     */
+    private int readKey( PageCursor cursor, int offset, byte[] into, int intoOffset )
+    {
+        if ( offset < HEADER_LENGTH_COMPRESSED || offset + SIZE_PREFIX + 1 > pageSize )
+        {
+            cursor.setCursorException( "Tried to read key on offset " + offset + ". Page size " + pageSize );
+            return -1;
+        }
+        int baseSize = cursor.getByte( BYTE_POS_BASE_SIZE ) & 0xFF;
+        cursor.setOffset( offset );
+        int prefix = cursor.getByte() & 0xFF;
+        int suffix = getSize( cursor );
+        int suffixOffset = cursor.getOffset();
+        int keySize = prefix + suffix;
+        if ( prefix > baseSize || keySize > maxKeySize || suffixOffset + suffix > pageSize - baseSize )
+        {
+            cursor.setCursorException( "Read unreliable key, prefix=" + prefix + ", keySize=" + keySize +
+                    ", offset=" + offset + ", baseSize=" + baseSize + ", maxKeySize=" + maxKeySize );
+            return -1;
+        }
+        cursor.setOffset( pageSize - baseSize );
+        cursor.getBytes( into, intoOffset, prefix );
+        cursor.setOffset( suffixOffset );
+        cursor.getBytes( into, intoOffset + prefix, suffix );
+        return keySize;
+    }
+
+    /**
+     * Moves the cursor past the key of the entry at {@code offset}.
+     *
+     * @return {@code false} if offset or size is out of range, in which case a cursor exception has been set.
+     */
+    private boolean skipKey( PageCursor cursor, int offset )
+    {
+        if ( offset < HEADER_LENGTH_COMPRESSED || offset + SIZE_PREFIX + 1 > pageSize )
+        {
+            cursor.setCursorException( "Tried to read key on offset " + offset + ". Page size " + pageSize );
+            return false;
+        }
+        cursor.setOffset( offset + SIZE_PREFIX );
+        int suffix = getSize( cursor );
+        if ( suffix > maxKeySize || cursor.getOffset() + suffix > pageSize )
+        {
+            cursor.setCursorException( "Read unreliable key, suffix=" + suffix + ", offset=" + offset );
+            return false;
+        }
+        cursor.setOffset( cursor.getOffset() + suffix );
+        return true;
+    }
+
+    /**
+     * Moves the cursor to the value of the leaf entry at {@code offset}.
+     *
+     * @return value size, or {@code -1} if offset or sizes are out of range, in which case a cursor exception
+     * has been set.
+     */
+    private int seekValue( PageCursor cursor, int offset )
+    {
+        if ( !skipKey( cursor, offset ) )
+        {
+            return -1;
+        }
+        int size = fixedValueSize ? valueSize : getSize( cursor );
+        if ( size > valueSize || cursor.getOffset() + size > pageSize )
+        {
+            cursor.setCursorException( "Read unreliable value, valueSize=" + size + ", offset=" + offset );
+            return -1;
+        }
+        return size;
+    }
+
+    private int entrySizeAt( PageCursor cursor, int offset, boolean leaf )
+    {
+        cursor.setOffset( offset + SIZE_PREFIX );
+        int suffix = getSize( cursor );
+        cursor.setOffset( cursor.getOffset() + suffix );
+        if ( leaf )
+        {
+            int size = fixedValueSize ? valueSize : getSize( cursor );
+            cursor.setOffset( cursor.getOffset() + size );
+        }
+        return cursor.getOffset() - offset;
+    }
+
+    /**
+     * @return size of the leaf entry at {@code pos} if it was compressed against the given base instead.
+     */
+    private int leafEntrySizeWithBase( PageCursor cursor, int pos, byte[] base, int baseSize )
+    {
+        Scratch s = scratch.get();
+        int offset = readKeyOffset( cursor, pos, true );
+        int entrySize = entrySizeAt( cursor, offset, true );
+        int keySize = readKey( cursor, offset, s.key, 0 );
+        int valuePartSize = offset + entrySize - cursor.getOffset();
+        int prefix = commonPrefix( base, 0, baseSize, s.key, 0, keySize );
+        return keyPartSize( prefix, keySize ) + valuePartSize;
+    }
+
+    private static int commonPrefix( byte[] a, int aOffset, int aLength, byte[] b, int bOffset, int bLength )
+    {
+        int length = min( aLength, bLength );
+        int i = 0;
+        while ( i < length && a[aOffset + i] == b[bOffset + i] )
+        {
+            i++;
+        }
+        return i;
+    }
+
+    private static int baseSize( PageCursor cursor, int keyCount )
+    {
+        return keyCount == 0 ? 0 : cursor.getByte( BYTE_POS_BASE_SIZE ) & 0xFF;
+    }
+
+    /**
+     * @return size of the base, which has been read into {@code into}.
+     */
+    private int readBase( PageCursor cursor, int keyCount, byte[] into )
+    {
+        int baseSize = baseSize( cursor, keyCount );
+        cursor.setOffset( pageSize - baseSize );
+        cursor.getBytes( into, 0, baseSize );
+        return baseSize;
+    }
+
+    private void writeBase( PageCursor cursor, byte[] base, int baseOffset, int baseSize )
+    {
+        cursor.putByte( BYTE_POS_BASE_SIZE, (byte) baseSize );
+        cursor.setOffset( pageSize - baseSize );
+        cursor.putBytes( base, baseOffset, baseSize );
+    }
+
+    private int commonPrefixWithBase( PageCursor cursor, int keyCount, byte[] key, int keySize )
+    {
+        byte[] base = scratch.get().base;
+        int baseSize = readBase( cursor, keyCount, base );
+        return commonPrefix( base, 0, baseSize, key, 0, keySize );
+    }
+
+    /**
+     * @return number of bytes the key in scratch key bytes would take in the node, including the base it would
+     * become if the node is empty.
+     */
+    private int newKeyPartSize( PageCursor cursor, int keyCount, Scratch s, int keySize )
+    {
+        if ( keyCount == 0 )
+        {
+            int baseSize = min( keySize, MAX_BASE_SIZE );
+            return baseSize + keyPartSize( baseSize, keySize );
+        }
+        return keyPartSize( commonPrefixWithBase( cursor, keyCount, s.key, keySize ), keySize );
+    }
+
+    /**
+     * Allocates an entry in the heap and writes the key part of it, leaving the cursor where the value part,
+     * if any, should be written. If the node is empty the key becomes the base of the node. If the gap between
+     * slots and heap is too small the heap is compacted first.
+     *
+     * @param keyCount number of keys in the node.
+     * @param slotCount number of slots in the node after this change.
+     * @param replacePos position of an entry which is about to be replaced by this entry, or {@code -1}.
+     * @param key bytes of the key.
+     * @param keySize size of the key.
+     * @param valuePartSize number of bytes which will be written after the key part.
+     * @param replacedEntrySize size of the entry at {@code replacePos}, which becomes dead space.
+     * @return offset of the allocated entry.
+     */
+    private int allocateAndWriteKey( PageCursor cursor, int keyCount, boolean leaf, int slotCount, int replacePos,
+            byte[] key, int keySize, int valuePartSize, int replacedEntrySize )
+    {
+        int allocOffset;
+        int deadSpace;
+        int prefix;
+        if ( keyCount == 0 )
+        {
+            int baseSize = min( keySize, MAX_BASE_SIZE );
+            writeBase( cursor, key, 0, baseSize );
+            allocOffset = pageSize - baseSize;
+            deadSpace = 0;
+            prefix = baseSize;
+        }
+        else
+        {
+            allocOffset = allocOffset( cursor, keyCount );
+            deadSpace = deadSpace( cursor, keyCount ) + replacedEntrySize;
+            prefix = commonPrefixWithBase( cursor, keyCount, key, keySize );
+        }
+
+        int entrySize = keyPartSize( prefix, keySize ) + valuePartSize;
+        if ( allocOffset - entrySize < slot( slotCount, leaf ) )
+        {
+            allocOffset = compact( cursor, keyCount, leaf, replacePos, key, keySize );
+            deadSpace = 0;
+            prefix = commonPrefixWithBase( cursor, keyCount, key, keySize );
+            entrySize = keyPartSize( prefix, keySize ) + valuePartSize;
+        }
+
+        allocOffset -= entrySize;
+        writeKeyPart( cursor, allocOffset, key, prefix, keySize );
+        setHeap( cursor, allocOffset, deadSpace );
+        return allocOffset;
+    }
+
+    private int allocOffset( PageCursor cursor, int keyCount )
+    {
+        return keyCount == 0 ? pageSize : pageSize - (cursor.getShort( BYTE_POS_HEAP_SIZE ) & 0xFFFF);
+    }
+
+    private static int deadSpace( PageCursor cursor, int keyCount )
+    {
+        return keyCount == 0 ? 0 : cursor.getShort( BYTE_POS_DEAD_SPACE ) & 0xFFFF;
+    }
+
+    private void setHeap( PageCursor cursor, int allocOffset, int deadSpace )
+    {
+        cursor.putShort( BYTE_POS_HEAP_SIZE, (short) (pageSize - allocOffset) );
+        cursor.putShort( BYTE_POS_DEAD_SPACE, (short) deadSpace );
+    }
+
+    private int heapUsed( PageCursor cursor, int keyCount )
+    {
+        return pageSize - allocOffset( cursor, keyCount ) - deadSpace( cursor, keyCount );
+    }
+
+    private int leafUsed( PageCursor cursor, int keyCount )
+    {
+        return keyCount * SIZE_OFFSET + heapUsed( cursor, keyCount );
+    }
+
+    private int internalUsed( PageCursor cursor, int keyCount )
+    {
+        return keyCount * SIZE_INTERNAL_SLOT + heapUsed( cursor, keyCount );
+    }
+
+    /**
+     * Accounts for an entry which is no longer referenced. If it's the lowest entry in the heap the heap simply
+     * shrinks, otherwise it becomes dead space.
+     */
+    private void freeEntry( PageCursor cursor, int keyCount, int offset, int entrySize )
+    {
+        int allocOffset = allocOffset( cursor, keyCount );
+        int deadSpace = deadSpace( cursor, keyCount );
+        if ( offset == allocOffset )
+        {
+            setHeap( cursor, allocOffset + entrySize, deadSpace );
+        }
+        else
+        {
+            setHeap( cursor, allocOffset, deadSpace + entrySize );
+        }
+    }
+
+    private void truncate( PageCursor cursor, int keyCount, int newKeyCount, boolean leaf )
+    {
+        if ( newKeyCount > 0 )
+        {
+            int freed = 0;
+            for ( int pos = newKeyCount; pos < keyCount; pos++ )
+            {
+                freed += entrySizeAt( cursor, readKeyOffset( cursor, pos, leaf ), leaf );
+            }
+            setHeap( cursor, allocOffset( cursor, keyCount ), deadSpace( cursor, keyCount ) + freed );
+        }
+        setKeyCount( cursor, newKeyCount );
+    }
+
+    /**
+     * Moves all live entries to the end of the page, reclaiming all dead space. The base may be replaced
+     * if that makes the entries, including an entry about to be written, take less space.
+     *
+     * @param cursor {@link PageCursor} pinned to the node to compact.
+     * @param keyCount number of keys in the node.
+     * @param leaf whether or not the node is a leaf.
+     * @param skipPos position of a key which should be left out, because it's about to be overwritten,
+     * or {@code -1} to keep all keys.
+     * @param pendingKey bytes of the key about to be written after compaction.
+     * @param pendingKeySize size of the key about to be written after compaction.
+     * @return offset of the lowest allocated entry after compaction.
+     */
+    private int compact( PageCursor cursor, int keyCount, boolean leaf, int skipPos, byte[] pendingKey,
+            int pendingKeySize )
+    {
+        Entries entries = new Entries();
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            if ( pos != skipPos )
+            {
+                entries.add( cursor, readKeyOffset( cursor, pos, leaf ), leaf );
+            }
+        }
+        byte[] base = new byte[MAX_BASE_SIZE];
+        int baseSize = readBase( cursor, keyCount, base );
+        return writeEntries( cursor, leaf, entries, 0, entries.count, base, baseSize, pendingKey, pendingKeySize,
+                skipPos );
+    }
+
+    /**
+     * Writes the heap and slot offsets of a node from scratch, from the given entries. The base is either the given
+     * base, or the key in the middle of the entries, whichever makes the entries, including an optional pending
+     * entry, take less space. This means that the entries are guaranteed to take no more space than with the given
+     * base. Children in internal nodes are left as they are.
+     *
+     * @param skipPos slot position which is left as it is, or {@code -1}.
+     * @return offset of the lowest allocated entry.
+     */
+    private int writeEntries( PageCursor cursor, boolean leaf, Entries entries, int from, int to,
+            byte[] base, int baseSize, byte[] pendingKey, int pendingKeySize, int skipPos )
+    {
+        byte[] baseSource = base;
+        int baseOffset = 0;
+        if ( to > from )
+        {
+            int middle = (from + to) / 2;
+            int candidateOffset = entries.keyOffsets[middle];
+            int candidateSize = min( entries.keySizes[middle], MAX_BASE_SIZE );
+            int size = entries.size( from, to, base, 0, baseSize ) +
+                    pendingKeyPartSize( base, 0, baseSize, pendingKey, pendingKeySize );
+            int candidateTotalSize = entries.size( from, to, entries.keyData, candidateOffset, candidateSize ) +
+                    pendingKeyPartSize( entries.keyData, candidateOffset, candidateSize, pendingKey, pendingKeySize );
+            if ( candidateTotalSize < size )
+            {
+                baseSource = entries.keyData;
+                baseOffset = candidateOffset;
+                baseSize = candidateSize;
+            }
+        }
+        writeBase( cursor, baseSource, baseOffset, baseSize );
+
+        int allocOffset = pageSize - baseSize;
+        for ( int i = from; i < to; i++ )
+        {
+            int keyOffset = entries.keyOffsets[i];
+            int keySize = entries.keySizes[i];
+            int prefix = commonPrefix( baseSource, baseOffset, baseSize, entries.keyData, keyOffset, keySize );
+            int suffix = keySize - prefix;
+            allocOffset -= keyPartSize( prefix, keySize ) + entries.valuePartSizes[i];
+            cursor.setOffset( allocOffset );
+            cursor.putByte( (byte) prefix );
+            putSize( cursor, suffix );
+            cursor.putBytes( entries.keyData, keyOffset + prefix, suffix );
+            cursor.putBytes( entries.valueData, entries.valueOffsets[i], entries.valuePartSizes[i] );
+
+            int pos = i - from;
+            if ( skipPos != -1 && pos >= skipPos )
+            {
+                pos++;
+            }
+            cursor.putShort( slot( pos, leaf ), (short) allocOffset );
+        }
+        setHeap( cursor, allocOffset, 0 );
+        return allocOffset;
+    }
+
+    private static int pendingKeyPartSize( byte[] base, int baseOffset, int baseSize, byte[] key, int keySize )
+    {
+        return key == null ? 0 : keyPartSize( commonPrefix( base, baseOffset, baseSize, key, 0, keySize ), keySize );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeCompressed[pageSize:" + pageSize + ", maxKeySize:" + maxKeySize +
+                ", valueSize:" + valueSize + ", fixedValueSize:" + fixedValueSize + "]";
+    }
+
+    /**
+     * Per thread buffers for keys, which readers and writers assemble from base and suffix, or write to find
+     * what they have in common with the base.
+     */
+    private class Scratch
+    {
+        private final byte[] key = new byte[maxKeySize];
+        private final PageCursor keyCursor = ByteArrayPageCursor.wrap( key );
+        private final byte[] base = new byte[MAX_BASE_SIZE];
+    }
+
+    /**
+     * Whole keys, and values of leaf entries as they are stored, read from one or more nodes, so that they can be
+     * written again with another base, or into another node.
+     */
+    private class Entries
+    {
+        private byte[] keyData = new byte[pageSize];
+        private byte[] valueData = new byte[pageSize];
+        private int[] keyOffsets = new int[16];
+        private int[] keySizes = new int[16];
+        private int[] valueOffsets = new int[16];
+        private int[] valuePartSizes = new int[16];
+        private int keyDataSize;
+        private int valueDataSize;
+        private int count;
+
+        /**
+         * Adds the entry at {@code offset} in the node at {@code cursor}.
+         */
+        void add( PageCursor cursor, int offset, boolean leaf )
+        {
+            ensureCapacity( maxKeySize, leaf ? SIZE_MAX_SIZE + valueSize : 0 );
+            int entryEnd = offset + entrySizeAt( cursor, offset, leaf );
+            int keySize = readKey( cursor, offset, keyData, keyDataSize );
+            int valuePartSize = entryEnd - cursor.getOffset();
+            cursor.getBytes( valueData, valueDataSize, valuePartSize );
+            added( keySize, valuePartSize );
+        }
+
+        /**
+         * Adds a new entry, where {@code value} is {@code null} for internal nodes.
+         */
+        void add( byte[] key, int keySize, VALUE value )
+        {
+            ensureCapacity( keySize, value == null ? 0 : SIZE_MAX_SIZE + valueSize );
+            System.arraycopy( key, 0, keyData, keyDataSize, keySize );
+            int valuePartSize = 0;
+            if ( value != null )
+            {
+                PageCursor valueCursor = ByteArrayPageCursor.wrap( valueData );
+                valueCursor.setOffset( valueDataSize );
+                writeValuePart( valueCursor, value );
+                valuePartSize = valueCursor.getOffset() - valueDataSize;
+            }
+            added( keySize, valuePartSize );
+        }
+
+        private void added( int keySize, int valuePartSize )
+        {
+            keyOffsets[count] = keyDataSize;
+            keySizes[count] = keySize;
+            valueOffsets[count] = valueDataSize;
+            valuePartSizes[count] = valuePartSize;
+            keyDataSize += keySize;
+            valueDataSize += valuePartSize;
+            count++;
+        }
+
+        /**
+         * @return size of base and entries from {@code from} to {@code to}, excluding slots, compressed against
+         * the given base.
+         */
+        int size( int from, int to, byte[] base, int baseOffset, int baseSize )
+        {
+            int size = baseSize;
+            for ( int i = from; i < to; i++ )
+            {
+                int prefix = commonPrefix( base, baseOffset, baseSize, keyData, keyOffsets[i], keySizes[i] );
+                size += keyPartSize( prefix, keySizes[i] ) + valuePartSizes[i];
+            }
+            return size;
+        }
+
+        private void ensureCapacity( int keySize, int valuePartSize )
+        {
+            if ( count == keyOffsets.length )
+            {
+                keyOffsets = Arrays.copyOf( keyOffsets, count * 2 );
+                keySizes = Arrays.copyOf( keySizes, count * 2 );
+                valueOffsets = Arrays.copyOf( valueOffsets, count * 2 );
+                valuePartSizes = Arrays.copyOf( valuePartSizes, count * 2 );
+            }
+            if ( keyDataSize + keySize > keyData.length )
+            {
+                keyData = Arrays.copyOf( keyData, Math.max( keyData.length * 2, keyDataSize + keySize ) );
+            }
+            if ( valueDataSize + valuePartSize > valueData.length )
+            {
+                valueData = Arrays.copyOf( valueData, Math.max( valueData.length * 2, valueDataSize + valuePartSize ) );
+            }
+        }
+    }
+}
@@ -0,0 +1,787 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static java.lang.Math.min;
+
+/**
+ * {@link TreeNode} format for layouts where keys can be of different sizes, see {@link Layout#fixedSize()}.
+ * Values are still of fixed size.
+ * <p>
+ * DESIGN
+ * <p>
+ * Keys are stored in a heap which grows from the end of the page towards the beginning. An array of offsets
+ * into the heap, kept in key order right after the header, grows towards the end of the page.
+ * Inserting or removing a key only moves offsets, never the keys themselves. Space of removed keys is
+ * accounted for as dead space and is reclaimed by compacting the heap when a new key doesn't fit in
+ * the gap between offsets and heap.
+ * <p>
+ * Leaf nodes look like
+ * <pre>
+ * # = empty space
+ *
+ * [                HEADER   86B                 ]|[  OFFSETS  ]|#####|[         HEAP          ]
+ * [...82B TreeNode header...][HEAPSIZE][DEADSPACE]|[[OFFSET]...]|#####|[[KEYSIZE][KEY][VALUE]...]
+ *  0                          82        84          86
+ * </pre>
+ * Internal nodes look like
+ * <pre>
+ * [                HEADER   86B                 ]|[CHILD]|[       OFFSETS AND CHILDREN      ]|#####|[     HEAP    ]
+ * [...82B TreeNode header...][HEAPSIZE][DEADSPACE]|[CHILD]|[[OFFSET][CHILD][OFFSET][CHILD]...]|#####|[[KEYSIZE][KEY]]
+ *  0                          82        84          86      110
+ * </pre>
+ * Offsets and key sizes are unsigned shorts, which limits the page size to 64KiB. HEAPSIZE is the number of bytes
+ * from the end of the page to the lowest allocated key and DEADSPACE is the number of those bytes which belongs to
+ * removed keys. Both are only valid when key count is greater than zero, which means that a node initialized
+ * with {@link TreeNode#initializeLeaf(PageCursor, long, long)} or
+ * {@link TreeNode#initializeInternal(PageCursor, long, long)} is empty without further initialization.
+ * <p>
+ * Keys are limited to a quarter of the space in a node, so that a split or rebalance always find a division of
+ * entries which fits in both nodes.
+ * <p>
+ * Concurrent readers may see offsets and sizes from a node in the middle of a change. Such values are checked
+ * before following them, and if out of range {@link PageCursor#setCursorException(String)} is called instead,
+ * which will be cleared when the reader retries.
+ *
+ * @param <KEY> type of key
+ * @param <VALUE> type of value
+ */
+class TreeNodeDynamicSize<KEY,VALUE> extends TreeNode<KEY,VALUE>
+{
+    private static final int SIZE_OFFSET = Short.BYTES;
+    private static final int SIZE_KEY_SIZE = Short.BYTES;
+    private static final int SIZE_INTERNAL_SLOT = SIZE_OFFSET + SIZE_PAGE_REFERENCE;
+    private static final int BYTE_POS_HEAP_SIZE = HEADER_LENGTH;
+    private static final int BYTE_POS_DEAD_SPACE = BYTE_POS_HEAP_SIZE + Short.BYTES;
+    static final int HEADER_LENGTH_DYNAMIC = BYTE_POS_DEAD_SPACE + Short.BYTES;
+    private static final int MAX_PAGE_SIZE = 1 << Short.SIZE;
+    private static final byte[] EMPTY_CHILD = new byte[SIZE_PAGE_REFERENCE];
+
+    private final int valueSize;
+    private final int leafSpace;
+    private final int internalSpace;
+    private final int maxKeySize;
+    private final int leafMaxKeyCount;
+    private final int internalMaxKeyCount;
+
+    TreeNodeDynamicSize( int pageSize, Layout<KEY,VALUE> layout )
+    {
+        super( pageSize, layout );
+        this.valueSize = layout.valueSize();
+        this.leafSpace = pageSize - HEADER_LENGTH_DYNAMIC;
+        this.internalSpace = pageSize - HEADER_LENGTH_DYNAMIC - SIZE_PAGE_REFERENCE;
+        this.maxKeySize = keySizeCap( pageSize, valueSize );
+        this.leafMaxKeyCount = leafSpace / (SIZE_OFFSET + SIZE_KEY_SIZE + valueSize);
+        this.internalMaxKeyCount = internalSpace / (SIZE_INTERNAL_SLOT + SIZE_KEY_SIZE);
+
+        if ( pageSize > MAX_PAGE_SIZE )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d is too big, maximum is %d",
+                    layout, pageSize, MAX_PAGE_SIZE );
+        }
+        if ( maxKeySize < 1 )
+        {
+            throw new MetadataMismatchException( "For layout %s a page size of %d would not fit any keys",
+                    layout, pageSize );
+        }
+    }
+
+    /**
+     * @param pageSize size of tree nodes.
+     * @param valueSize size of values.
+     * @return the largest key, in bytes, which a tree with this node format can hold.
+     */
+    static int keySizeCap( int pageSize, int valueSize )
+    {
+        int leafSpace = pageSize - HEADER_LENGTH_DYNAMIC;
+        int internalSpace = leafSpace - SIZE_PAGE_REFERENCE;
+        return min( leafSpace / 4 - SIZE_OFFSET - SIZE_KEY_SIZE - valueSize,
+                internalSpace / 4 - SIZE_INTERNAL_SLOT - SIZE_KEY_SIZE );
+    }
+
+    @Override
+    byte format()
+    {
+        return FORMAT_DYNAMIC_SIZE;
+    }
+
+    // BODY METHODS
+
+    @Override
+    KEY keyAt( PageCursor cursor, KEY into, int pos )
+    {
+        int offset = readKeyOffset( cursor, pos, isLeaf( cursor ) );
+        int keySize = readKeySize( cursor, offset, 0 );
+        if ( keySize >= 0 )
+        {
+            cursor.setOffset( offset + SIZE_KEY_SIZE );
+            layout.readKey( cursor, into, keySize );
+        }
+        return into;
+    }
+
+    @Override
+    VALUE valueAt( PageCursor cursor, VALUE into, int pos )
+    {
+        int offset = readKeyOffset( cursor, pos, true );
+        int keySize = readKeySize( cursor, offset, valueSize );
+        if ( keySize >= 0 )
+        {
+            cursor.setOffset( offset + SIZE_KEY_SIZE + keySize );
+            layout.readValue( cursor, into );
+        }
+        return into;
+    }
+
+    @Override
+    boolean setValueAt( PageCursor cursor, VALUE value, int pos )
+    {
+        int offset = readKeyOffset( cursor, pos, true );
+        int keySize = readKeySize( cursor, offset, valueSize );
+        cursor.setOffset( offset + SIZE_KEY_SIZE + keySize );
+        layout.writeValue( cursor, value );
+        return true;
+    }
+
+    @Override
+    void insertKeyValueAt( PageCursor cursor, KEY key, VALUE value, int pos, int keyCount )
+    {
+        int keySize = layout.keySize( key );
+        int entrySize = SIZE_KEY_SIZE + keySize + valueSize;
+        int allocOffset = allocOffset( cursor, keyCount );
+        int deadSpace = deadSpace( cursor, keyCount );
+        if ( allocOffset - entrySize < leafSlot( keyCount + 1 ) )
+        {
+            allocOffset = compact( cursor, keyCount, true, -1 );
+            deadSpace = 0;
+        }
+
+        allocOffset -= entrySize;
+        cursor.setOffset( allocOffset );
+        cursor.putShort( (short) keySize );
+        layout.writeKey( cursor, key );
+        layout.writeValue( cursor, value );
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.putShort( leafSlot( i + 1 ), cursor.getShort( leafSlot( i ) ) );
+        }
+        cursor.putShort( leafSlot( pos ), (short) allocOffset );
+        setHeap( cursor, allocOffset, deadSpace );
+    }
+
+    @Override
+    void insertKeyAndRightChildAt( PageCursor cursor, KEY key, long child, int pos, int keyCount,
+            long stableGeneration, long unstableGeneration )
+    {
+        int keySize = layout.keySize( key );
+        int entrySize = SIZE_KEY_SIZE + keySize;
+        int allocOffset = allocOffset( cursor, keyCount );
+        int deadSpace = deadSpace( cursor, keyCount );
+        if ( allocOffset - entrySize < internalSlot( keyCount + 1 ) )
+        {
+            allocOffset = compact( cursor, keyCount, false, -1 );
+            deadSpace = 0;
+        }
+
+        allocOffset -= entrySize;
+        cursor.setOffset( allocOffset );
+        cursor.putShort( (short) keySize );
+        layout.writeKey( cursor, key );
+        for ( int i = keyCount - 1; i >= pos; i-- )
+        {
+            cursor.copyTo( internalSlot( i ), cursor, internalSlot( i + 1 ), SIZE_INTERNAL_SLOT );
+        }
+        cursor.putShort( internalSlot( pos ), (short) allocOffset );
+        if ( pos == keyCount )
+        {
+            // This child slot may previously have been part of the heap and so contain garbage, which
+            // GenerationSafePointerPair wouldn't be able to write a pointer over
+            cursor.setOffset( childOffset( pos + 1 ) );
+            cursor.putBytes( EMPTY_CHILD );
+        }
+        setChildAt( cursor, child, pos + 1, stableGeneration, unstableGeneration );
+        setHeap( cursor, allocOffset, deadSpace );
+    }
+
+    @Override
+    void removeKeyValueAt( PageCursor cursor, int pos, int keyCount )
+    {
+        int entrySize = leafEntrySizeAt( cursor, pos );
+        freeEntry( cursor, keyCount, readKeyOffset( cursor, pos, true ), entrySize );
+        for ( int i = pos + 1; i < keyCount; i++ )
+        {
+            cursor.putShort( leafSlot( i - 1 ), cursor.getShort( leafSlot( i ) ) );
+        }
+    }
+
+    @Override
+    void removeKeyAndLeftChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        // Let the right child take the place of the left child, then remove the key and the right child
+        cursor.copyTo( childOffset( keyPos + 1 ), cursor, childOffset( keyPos ), SIZE_PAGE_REFERENCE );
+        removeKeyAndRightChildAt( cursor, keyPos, keyCount );
+    }
+
+    @Override
+    void removeKeyAndRightChildAt( PageCursor cursor, int keyPos, int keyCount )
+    {
+        int entrySize = internalEntrySizeAt( cursor, keyPos );
+        freeEntry( cursor, keyCount, readKeyOffset( cursor, keyPos, false ), entrySize );
+        for ( int i = keyPos + 1; i < keyCount; i++ )
+        {
+            cursor.copyTo( internalSlot( i ), cursor, internalSlot( i - 1 ), SIZE_INTERNAL_SLOT );
+        }
+    }
+
+    @Override
+    boolean setKeyAtInternal( PageCursor cursor, KEY key, int pos )
+    {
+        int keyCount = keyCount( cursor );
+        int oldOffset = readKeyOffset( cursor, pos, false );
+        int oldEntrySize = internalEntrySizeAt( cursor, pos );
+        int keySize = layout.keySize( key );
+        int newEntrySize = SIZE_KEY_SIZE + keySize;
+        int allocOffset = allocOffset( cursor, keyCount );
+        int deadSpace = deadSpace( cursor, keyCount );
+
+        int offset;
+        if ( newEntrySize <= oldEntrySize )
+        {
+            // Overwrite in place, the rest of the old entry becomes dead space
+            offset = oldOffset;
+            deadSpace += oldEntrySize - newEntrySize;
+        }
+        else
+        {
+            if ( internalUsed( cursor, keyCount ) - oldEntrySize + newEntrySize > internalSpace )
+            {
+                return false;
+            }
+            if ( allocOffset - newEntrySize < internalSlot( keyCount ) )
+            {
+                allocOffset = compact( cursor, keyCount, false, pos );
+                deadSpace = 0;
+            }
+            else
+            {
+                deadSpace += oldEntrySize;
+            }
+            allocOffset -= newEntrySize;
+            offset = allocOffset;
+        }
+
+        cursor.setOffset( offset );
+        cursor.putShort( (short) keySize );
+        layout.writeKey( cursor, key );
+        cursor.putShort( internalSlot( pos ), (short) offset );
+        setHeap( cursor, allocOffset, deadSpace );
+        return true;
+    }
+
+    @Override
+    boolean leafOverflow( PageCursor cursor, int keyCount, KEY key, VALUE value )
+    {
+        return leafUsed( cursor, keyCount ) + leafEntrySize( key, value ) > leafSpace;
+    }
+
+    @Override
+    boolean internalOverflow( PageCursor cursor, int keyCount, KEY key )
+    {
+        return internalUsed( cursor, keyCount ) + internalEntrySize( key ) > internalSpace;
+    }
+
+    @Override
+    boolean leafUnderflowAfterRemove( PageCursor cursor, int keyCount, int pos )
+    {
+        int usedAfterRemove = leafUsed( cursor, keyCount ) - SIZE_OFFSET - leafEntrySizeAt( cursor, pos );
+        return usedAfterRemove < leafSpace / 2;
+    }
+
+    @Override
+    boolean canRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        return !canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+    }
+
+    @Override
+    boolean canMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        return leafUsed( leftCursor, leftKeyCount ) + leafUsed( rightCursor, rightKeyCount ) <= leafSpace;
+    }
+
+    @Override
+    void doSplitLeaf( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, VALUE newValue, KEY newSplitter )
+    {
+        // Entries after insert are the existing entries with the new entry at insertPos.
+        // Find the first entry of the right leaf so that the two leaves gets about the same number of bytes.
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int newEntrySize = SIZE_OFFSET + leafEntrySize( newKey, newValue );
+        int halfSpace = (leafUsed( leftCursor, leftKeyCount ) + newEntrySize) / 2;
+        int splitPos = 0;
+        for ( int used = 0; splitPos < keyCountAfterInsert; splitPos++ )
+        {
+            int entrySize = splitPos == insertPos ? newEntrySize
+                    : SIZE_OFFSET + leafEntrySizeAt( leftCursor, existingPos( splitPos, insertPos ) );
+            if ( used + entrySize > halfSpace )
+            {
+                break;
+            }
+            used += entrySize;
+        }
+        splitPos = clamp( splitPos, 1, keyCountAfterInsert - 1 );
+
+        if ( splitPos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, existingPos( splitPos, insertPos ) );
+        }
+
+        // Right
+        int allocOffset = pageSize;
+        for ( int pos = splitPos; pos < keyCountAfterInsert; pos++ )
+        {
+            int rightPos = pos - splitPos;
+            if ( pos == insertPos )
+            {
+                allocOffset -= newEntrySize - SIZE_OFFSET;
+                rightCursor.setOffset( allocOffset );
+                rightCursor.putShort( (short) layout.keySize( newKey ) );
+                layout.writeKey( rightCursor, newKey );
+                layout.writeValue( rightCursor, newValue );
+            }
+            else
+            {
+                int leftPos = existingPos( pos, insertPos );
+                int entrySize = leafEntrySizeAt( leftCursor, leftPos );
+                allocOffset -= entrySize;
+                leftCursor.copyTo( readKeyOffset( leftCursor, leftPos, true ), rightCursor, allocOffset, entrySize );
+            }
+            rightCursor.putShort( leafSlot( rightPos ), (short) allocOffset );
+        }
+        setHeap( rightCursor, allocOffset, 0 );
+        setKeyCount( rightCursor, keyCountAfterInsert - splitPos );
+
+        // Left
+        if ( insertPos < splitPos )
+        {
+            truncateLeaf( leftCursor, leftKeyCount, splitPos - 1 );
+            insertKeyValueAt( leftCursor, newKey, newValue, insertPos, splitPos - 1 );
+        }
+        else
+        {
+            truncateLeaf( leftCursor, leftKeyCount, splitPos );
+        }
+        setKeyCount( leftCursor, splitPos );
+    }
+
+    @Override
+    void doSplitInternal( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int insertPos,
+            KEY newKey, long newRightChild, long stableGeneration, long unstableGeneration, KEY newSplitter )
+    {
+        // Keys after insert are the existing keys with the new key at insertPos, and the new child at insertPos + 1.
+        // Find the key to move up so that the two nodes gets about the same number of bytes.
+        int keyCountAfterInsert = leftKeyCount + 1;
+        int newEntrySize = internalEntrySize( newKey );
+        int halfSpace = (internalUsed( leftCursor, leftKeyCount ) + newEntrySize) / 2;
+        int middlePos = 0;
+        for ( int used = 0; middlePos < keyCountAfterInsert; middlePos++ )
+        {
+            int entrySize = middlePos == insertPos ? newEntrySize
+                    : SIZE_INTERNAL_SLOT + internalEntrySizeAt( leftCursor, existingPos( middlePos, insertPos ) );
+            if ( used + entrySize > halfSpace )
+            {
+                break;
+            }
+            used += entrySize;
+        }
+        middlePos = clamp( middlePos, 1, keyCountAfterInsert - 2 );
+
+        if ( middlePos == insertPos )
+        {
+            layout.copyKey( newKey, newSplitter );
+        }
+        else
+        {
+            keyAt( leftCursor, newSplitter, existingPos( middlePos, insertPos ) );
+        }
+
+        // Right
+        copyChildAfterInsert( leftCursor, middlePos + 1, rightCursor, 0, insertPos, newRightChild,
+                stableGeneration, unstableGeneration );
+        int allocOffset = pageSize;
+        for ( int pos = middlePos + 1; pos < keyCountAfterInsert; pos++ )
+        {
+            int rightPos = pos - middlePos - 1;
+            if ( pos == insertPos )
+            {
+                allocOffset -= newEntrySize - SIZE_INTERNAL_SLOT;
+                rightCursor.setOffset( allocOffset );
+                rightCursor.putShort( (short) layout.keySize( newKey ) );
+                layout.writeKey( rightCursor, newKey );
+            }
+            else
+            {
+                int leftPos = existingPos( pos, insertPos );
+                int entrySize = internalEntrySizeAt( leftCursor, leftPos );
+                allocOffset -= entrySize;
+                leftCursor.copyTo( readKeyOffset( leftCursor, leftPos, false ), rightCursor, allocOffset,
+                        entrySize );
+            }
+            rightCursor.putShort( internalSlot( rightPos ), (short) allocOffset );
+            copyChildAfterInsert( leftCursor, pos + 1, rightCursor, rightPos + 1, insertPos, newRightChild,
+                    stableGeneration, unstableGeneration );
+        }
+        setHeap( rightCursor, allocOffset, 0 );
+        setKeyCount( rightCursor, keyCountAfterInsert - middlePos - 1 );
+
+        // Left
+        if ( insertPos < middlePos )
+        {
+            truncateInternal( leftCursor, leftKeyCount, middlePos - 1 );
+            insertKeyAndRightChildAt( leftCursor, newKey, newRightChild, insertPos, middlePos - 1,
+                    stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            truncateInternal( leftCursor, leftKeyCount, middlePos );
+        }
+        setKeyCount( leftCursor, middlePos );
+    }
+
+    @Override
+    void doMergeLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        moveLeafEntriesFromLeftToRight( leftCursor, 0, leftKeyCount, rightCursor, rightKeyCount );
+    }
+
+    @Override
+    void doRebalanceLeaves( PageCursor leftCursor, int leftKeyCount, PageCursor rightCursor, int rightKeyCount )
+    {
+        int leftUsed = leafUsed( leftCursor, leftKeyCount );
+        int rightUsed = leafUsed( rightCursor, rightKeyCount );
+        int fromPos = leftKeyCount;
+        while ( fromPos > 1 && rightUsed < leftUsed )
+        {
+            int entrySize = SIZE_OFFSET + leafEntrySizeAt( leftCursor, fromPos - 1 );
+            if ( rightUsed + entrySize > leafSpace )
+            {
+                break;
+            }
+            leftUsed -= entrySize;
+            rightUsed += entrySize;
+            fromPos--;
+        }
+
+        moveLeafEntriesFromLeftToRight( leftCursor, fromPos, leftKeyCount - fromPos, rightCursor, rightKeyCount );
+        truncateLeaf( leftCursor, leftKeyCount, fromPos );
+        setKeyCount( leftCursor, fromPos );
+    }
+
+    private void moveLeafEntriesFromLeftToRight( PageCursor leftCursor, int fromPos, int count,
+            PageCursor rightCursor, int rightKeyCount )
+    {
+        int bytesToMove = 0;
+        for ( int pos = fromPos; pos < fromPos + count; pos++ )
+        {
+            bytesToMove += leafEntrySizeAt( leftCursor, pos );
+        }
+        int allocOffset = allocOffset( rightCursor, rightKeyCount );
+        int deadSpace = deadSpace( rightCursor, rightKeyCount );
+        if ( allocOffset - bytesToMove < leafSlot( rightKeyCount + count ) )
+        {
+            allocOffset = compact( rightCursor, rightKeyCount, true, -1 );
+            deadSpace = 0;
+        }
+
+        // Push offsets in right sibling to the right
+        for ( int i = rightKeyCount - 1; i >= 0; i-- )
+        {
+            rightCursor.putShort( leafSlot( i + count ), rightCursor.getShort( leafSlot( i ) ) );
+        }
+
+        // Move entries from left sibling to right sibling
+        for ( int i = 0; i < count; i++ )
+        {
+            int leftPos = fromPos + i;
+            int entrySize = leafEntrySizeAt( leftCursor, leftPos );
+            allocOffset -= entrySize;
+            leftCursor.copyTo( readKeyOffset( leftCursor, leftPos, true ), rightCursor, allocOffset, entrySize );
+            rightCursor.putShort( leafSlot( i ), (short) allocOffset );
+        }
+        setHeap( rightCursor, allocOffset, deadSpace );
+        setKeyCount( rightCursor, rightKeyCount + count );
+    }
+
+    @Override
+    int leafSpace()
+    {
+        return leafSpace;
+    }
+
+    @Override
+    int leafEntrySize( KEY key, VALUE value )
+    {
+        return SIZE_OFFSET + SIZE_KEY_SIZE + layout.keySize( key ) + valueSize;
+    }
+
+    @Override
+    int internalSpace()
+    {
+        return internalSpace;
+    }
+
+    @Override
+    int internalEntrySize( KEY key )
+    {
+        return SIZE_INTERNAL_SLOT + SIZE_KEY_SIZE + layout.keySize( key );
+    }
+
+    @Override
+    int maxKeySize()
+    {
+        return maxKeySize;
+    }
+
+    @Override
+    int internalMaxKeyCount()
+    {
+        return internalMaxKeyCount;
+    }
+
+    @Override
+    int leafMaxKeyCount()
+    {
+        return leafMaxKeyCount;
+    }
+
+    @Override
+    int childOffset( int pos )
+    {
+        return HEADER_LENGTH_DYNAMIC + pos * SIZE_INTERNAL_SLOT;
+    }
+
+    // HELPERS
+
+    private static int leafSlot( int pos )
+    {
+        return HEADER_LENGTH_DYNAMIC + pos * SIZE_OFFSET;
+    }
+
+    private static int internalSlot( int pos )
+    {
+        return HEADER_LENGTH_DYNAMIC + SIZE_PAGE_REFERENCE + pos * SIZE_INTERNAL_SLOT;
+    }
+
+    /**
+     * Position of existing entry which ends up at {@code posAfterInsert} after inserting a new entry at
+     * {@code insertPos}.
+     */
+    private static int existingPos( int posAfterInsert, int insertPos )
+    {
+        return posAfterInsert < insertPos ? posAfterInsert : posAfterInsert - 1;
+    }
+
+    private static int clamp( int value, int min, int max )
+    {
+        return Math.max( min, Math.min( max, value ) );
+    }
+
+    private void copyChildAfterInsert( PageCursor fromCursor, int posAfterInsert, PageCursor toCursor, int toPos,
+            int insertPos, long newRightChild, long stableGeneration, long unstableGeneration )
+    {
+        if ( posAfterInsert == insertPos + 1 )
+        {
+            setChildAt( toCursor, newRightChild, toPos, stableGeneration, unstableGeneration );
+        }
+        else
+        {
+            int fromPos = posAfterInsert <= insertPos ? posAfterInsert : posAfterInsert - 1;
+            fromCursor.copyTo( childOffset( fromPos ), toCursor, childOffset( toPos ), SIZE_PAGE_REFERENCE );
+        }
+    }
+
+    private int readKeyOffset( PageCursor cursor, int pos, boolean leaf )
+    {
+        return cursor.getShort( leaf ? leafSlot( pos ) : internalSlot( pos ) ) & 0xFFFF;
+    }
+
+    /**
+     * Reads size of key in entry at {@code offset}, checking that the entry, followed by {@code trailingSize}
+     * bytes, is within the page.
+     *
+     * @return key size, or {@code -1} if offset or key size is out of range, in which case a cursor exception
+     * has been set.
+     */
+    private int readKeySize( PageCursor cursor, int offset, int trailingSize )
+    {
+        if ( offset < HEADER_LENGTH_DYNAMIC || offset + SIZE_KEY_SIZE > pageSize )
+        {
+            cursor.setCursorException( "Tried to read key on offset " + offset + ". Page size " + pageSize );
+            return -1;
+        }
+        int keySize = cursor.getShort( offset ) & 0xFFFF;
+        if ( keySize > maxKeySize || offset + SIZE_KEY_SIZE + keySize + trailingSize > pageSize )
+        {
+            cursor.setCursorException( "Read unreliable key, keySize=" + keySize + ", offset=" + offset +
+                    ", maxKeySize=" + maxKeySize );
+            return -1;
+        }
+        return keySize;
+    }
+
+    private int leafEntrySizeAt( PageCursor cursor, int pos )
+    {
+        return SIZE_KEY_SIZE + (cursor.getShort( readKeyOffset( cursor, pos, true ) ) & 0xFFFF) + valueSize;
+    }
+
+    private int internalEntrySizeAt( PageCursor cursor, int pos )
+    {
+        return SIZE_KEY_SIZE + (cursor.getShort( readKeyOffset( cursor, pos, false ) ) & 0xFFFF);
+    }
+
+    private int allocOffset( PageCursor cursor, int keyCount )
+    {
+        return keyCount == 0 ? pageSize : pageSize - (cursor.getShort( BYTE_POS_HEAP_SIZE ) & 0xFFFF);
+    }
+
+    private static int deadSpace( PageCursor cursor, int keyCount )
+    {
+        return keyCount == 0 ? 0 : cursor.getShort( BYTE_POS_DEAD_SPACE ) & 0xFFFF;
+    }
+
+    private void setHeap( PageCursor cursor, int allocOffset, int deadSpace )
+    {
+        cursor.putShort( BYTE_POS_HEAP_SIZE, (short) (pageSize - allocOffset) );
+        cursor.putShort( BYTE_POS_DEAD_SPACE, (short) deadSpace );
+    }
+
+    private int heapUsed( PageCursor cursor, int keyCount )
+    {
+        return pageSize - allocOffset( cursor, keyCount ) - deadSpace( cursor, keyCount );
+    }
+
+    private int leafUsed( PageCursor cursor, int keyCount )
+    {
+        return keyCount * SIZE_OFFSET + heapUsed( cursor, keyCount );
+    }
+
+    private int internalUsed( PageCursor cursor, int keyCount )
+    {
+        return keyCount * SIZE_INTERNAL_SLOT + heapUsed( cursor, keyCount );
+    }
+
+    /**
+     * Accounts for an entry which is no longer referenced. If it's the lowest entry in the heap the heap simply
+     * shrinks, otherwise it becomes dead space.
+     */
+    private void freeEntry( PageCursor cursor, int keyCount, int offset, int entrySize )
+    {
+        int allocOffset = allocOffset( cursor, keyCount );
+        int deadSpace = deadSpace( cursor, keyCount );
+        if ( offset == allocOffset )
+        {
+            setHeap( cursor, allocOffset + entrySize, deadSpace );
+        }
+        else
+        {
+            setHeap( cursor, allocOffset, deadSpace + entrySize );
+        }
+    }
+
+    private void truncateLeaf( PageCursor cursor, int keyCount, int newKeyCount )
+    {
+        int freed = 0;
+        for ( int pos = newKeyCount; pos < keyCount; pos++ )
+        {
+            freed += leafEntrySizeAt( cursor, pos );
+        }
+        truncate( cursor, keyCount, newKeyCount, freed );
+    }
+
+    private void truncateInternal( PageCursor cursor, int keyCount, int newKeyCount )
+    {
+        int freed = 0;
+        for ( int pos = newKeyCount; pos < keyCount; pos++ )
+        {
+            freed += internalEntrySizeAt( cursor, pos );
+        }
+        truncate( cursor, keyCount, newKeyCount, freed );
+    }
+
+    private void truncate( PageCursor cursor, int keyCount, int newKeyCount, int freed )
+    {
+        if ( newKeyCount > 0 )
+        {
+            setHeap( cursor, allocOffset( cursor, keyCount ), deadSpace( cursor, keyCount ) + freed );
+        }
+        setKeyCount( cursor, newKeyCount );
+    }
+
+    /**
+     * Moves all live entries to the end of the page, reclaiming all dead space.
+     *
+     * @param cursor {@link PageCursor} pinned to the node to compact.
+     * @param keyCount number of keys in the node.
+     * @param leaf whether or not the node is a leaf.
+     * @param skipPos position of a key which should be left out, because it's about to be overwritten,
+     * or {@code -1} to keep all keys.
+     * @return offset of the lowest allocated entry after compaction.
+     */
+    private int compact( PageCursor cursor, int keyCount, boolean leaf, int skipPos )
+    {
+        int[] offsets = new int[keyCount];
+        int[] sizes = new int[keyCount];
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            offsets[pos] = readKeyOffset( cursor, pos, leaf );
+            sizes[pos] = leaf ? leafEntrySizeAt( cursor, pos ) : internalEntrySizeAt( cursor, pos );
+        }
+        byte[] page = new byte[pageSize];
+        cursor.setOffset( 0 );
+        cursor.getBytes( page );
+
+        int allocOffset = pageSize;
+        for ( int pos = 0; pos < keyCount; pos++ )
+        {
+            if ( pos != skipPos )
+            {
+                allocOffset -= sizes[pos];
+                cursor.setOffset( allocOffset );
+                cursor.putBytes( page, offsets[pos], sizes[pos] );
+                cursor.putShort( leaf ? leafSlot( pos ) : internalSlot( pos ), (short) allocOffset );
+            }
+        }
+        setHeap( cursor, allocOffset, 0 );
+        return allocOffset;
+    }
+
+    @Override
+    public String toString()
+    {
+        return "TreeNodeDynamicSize[pageSize:" + pageSize + ", maxKeySize:" + maxKeySize +
+                ", valueSize:" + valueSize + "]";
+    }
+}
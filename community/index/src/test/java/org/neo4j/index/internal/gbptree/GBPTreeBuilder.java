@@ -48,6 +48,7 @@ class GBPTreeBuilder<KEY,VALUE>
     private Layout<KEY,VALUE> layout;
     private Consumer<PageCursor> headerWriter = NO_HEADER_WRITER;
     private RecoveryCleanupWorkCollector recoveryCleanupWorkCollector = RecoveryCleanupWorkCollector.IMMEDIATE;
+    private boolean compressedNodes;
 
     GBPTreeBuilder()
     {
@@ -108,9 +109,15 @@ class GBPTreeBuilder<KEY,VALUE>
         return this;
     }
 
+    GBPTreeBuilder<KEY,VALUE> withCompressedNodes( boolean compressedNodes )
+    {
+        this.compressedNodes = compressedNodes;
+        return this;
+    }
+
     GBPTree<KEY,VALUE> build() throws IOException
     {
         return new GBPTree<>( pageCache, file, layout, tentativeIndexPageSize, monitor, headerReader, headerWriter,
-                recoveryCleanupWorkCollector );
+                recoveryCleanupWorkCollector, compressedNodes );
     }
 }
@@ -0,0 +1,308 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class GBPTreeBulkLoadTest
+{
+    private static final int PAGE_SIZE = 256;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule( config().withAccessChecks( true ) );
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule );
+
+    private final SimpleLongLayout layout = new SimpleLongLayout();
+
+    @Test
+    public void shouldBuildConsistentTreesOfAnySize() throws Exception
+    {
+        // Every number of entries up to a few levels deep, so that the last internal node on some level ends up
+        // with a single child, and has to borrow one from its left sibling, for some of the sizes
+        PageCache pageCache = pageCache();
+        for ( int count = 0; count < 2_000; count += 7 )
+        {
+            for ( double fillFactor : new double[]{1.0, 0.5} )
+            {
+                File file = directory.file( "index-" + count + "-" + fillFactor );
+                try ( GBPTree<MutableLong,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+                {
+                    // WHEN
+                    index.bulkLoad( source( 0, count, 2 ), fillFactor );
+
+                    // THEN
+                    assertTrue( index.consistencyCheck() );
+                    assertSeekMatches( index, 0, count, 2 );
+                }
+            }
+        }
+    }
+
+    @Test
+    public void shouldBuildMultiLevelTreeWhichCanBeModifiedAndReopened() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCache();
+        File file = directory.file( "index" );
+        int count = 10_000;
+        try ( GBPTree<MutableLong,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            // WHEN
+            index.bulkLoad( source( 0, count, 2 ), 0.9 );
+
+            // THEN the loaded tree takes updates like any other tree
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( long key = 1; key < count * 2; key += 2 )
+                {
+                    writer.put( new MutableLong( key ), new MutableLong( value( key ) ) );
+                }
+            }
+            assertTrue( index.consistencyCheck() );
+            index.checkpoint( IOLimiter.unlimited() );
+        }
+
+        // and survives a restart
+        try ( GBPTree<MutableLong,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+        {
+            assertTrue( index.consistencyCheck() );
+            assertSeekMatches( index, 0, count * 2, 1 );
+        }
+    }
+
+    @Test
+    public void shouldLeaveTreeEmptyAndUsableOnEmptySource() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), layout ).build() )
+        {
+            // WHEN
+            index.bulkLoad( source( 0, 0, 1 ), 1.0 );
+
+            // THEN
+            assertSeekMatches( index, 0, 0, 1 );
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                writer.put( new MutableLong( 0 ), new MutableLong( value( 0 ) ) );
+            }
+            assertSeekMatches( index, 0, 1, 1 );
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
+    @Test
+    public void shouldNotBulkLoadIntoNonEmptyTree() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                writer.put( new MutableLong( 0 ), new MutableLong( value( 0 ) ) );
+            }
+
+            // WHEN
+            try
+            {
+                index.bulkLoad( source( 1, 10, 1 ), 1.0 );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // THEN good
+            }
+            assertSeekMatches( index, 0, 1, 1 );
+        }
+    }
+
+    @Test
+    public void shouldNotBulkLoadUnsortedEntries() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), layout ).build() )
+        {
+            // WHEN
+            try
+            {
+                index.bulkLoad( sourceOf( 10, 5, 3, 7 ), 1.0 );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // THEN good
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotBulkLoadDuplicateKeys() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), layout ).build() )
+        {
+            // WHEN
+            try
+            {
+                index.bulkLoad( sourceOf( 1, 2, 2, 3 ), 1.0 );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // THEN good
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptFillFactorOutOfRange() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), layout ).build() )
+        {
+            for ( double fillFactor : new double[]{0, -0.5, 1.1} )
+            {
+                try
+                {
+                    index.bulkLoad( source( 0, 10, 1 ), fillFactor );
+                    fail( "Should have failed for fill factor " + fillFactor );
+                }
+                catch ( IllegalArgumentException e )
+                {
+                    // good
+                }
+            }
+        }
+    }
+
+    private PageCache pageCache()
+    {
+        return pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ).withAccessChecks( true ) );
+    }
+
+    private static long value( long key )
+    {
+        return key * 10;
+    }
+
+    private void assertSeekMatches( GBPTree<MutableLong,MutableLong> index, long from, long count, long stride )
+            throws IOException
+    {
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      index.seek( new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            for ( long i = 0; i < count; i++ )
+            {
+                long expectedKey = from + i * stride;
+                assertTrue( "Expected key " + expectedKey, cursor.next() );
+                assertEquals( expectedKey, cursor.get().key().longValue() );
+                assertEquals( value( expectedKey ), cursor.get().value().longValue() );
+            }
+            assertFalse( cursor.next() );
+        }
+    }
+
+    /**
+     * @return {@code count} entries with keys from {@code from}, each {@code stride} apart.
+     */
+    private static RawCursor<Hit<MutableLong,MutableLong>,IOException> source( long from, long count, long stride )
+    {
+        long[] keys = new long[(int) count];
+        for ( int i = 0; i < count; i++ )
+        {
+            keys[i] = from + i * stride;
+        }
+        return sourceOf( keys );
+    }
+
+    private static RawCursor<Hit<MutableLong,MutableLong>,IOException> sourceOf( long... keys )
+    {
+        return new RawCursor<Hit<MutableLong,MutableLong>,IOException>()
+        {
+            private final MutableLong key = new MutableLong();
+            private final MutableLong value = new MutableLong();
+            private final Hit<MutableLong,MutableLong> hit = new Hit<MutableLong,MutableLong>()
+            {
+                @Override
+                public MutableLong key()
+                {
+                    return key;
+                }
+
+                @Override
+                public MutableLong value()
+                {
+                    return value;
+                }
+            };
+            private int index;
+
+            @Override
+            public boolean next()
+            {
+                if ( index < keys.length )
+                {
+                    key.setValue( keys[index] );
+                    value.setValue( value( keys[index] ) );
+                    index++;
+                    return true;
+                }
+                return false;
+            }
+
+            @Override
+            public Hit<MutableLong,MutableLong> get()
+            {
+                return hit;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+        };
+    }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.SimpleByteArrayLayout.ByteArrayKey;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+/**
+ * Tests a {@link GBPTree} with the {@link TreeNodeCompressed compressed node format}, both for keys with
+ * common prefixes and for values of variable size.
+ */
+public class GBPTreeCompressedIT
+{
+    private static final int PAGE_SIZE = 512;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+
+    @Test
+    public void shouldStayCorrectAfterRandomModificationsOfKeysWithCommonPrefixes() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCache();
+        File file = directory.file( "index" );
+        int maxKeySize = TreeNode.keySizeCap( PAGE_SIZE, layout, TreeNode.FORMAT_COMPRESSED );
+        TreeMap<ByteArrayKey,MutableLong> data = new TreeMap<>( layout );
+
+        for ( int round = 0; round < 10; round++ )
+        {
+            try ( GBPTree<ByteArrayKey,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout )
+                    .withCompressedNodes( true ).build() )
+            {
+                // WHEN
+                try ( Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+                {
+                    for ( int i = 0; i < 1_000; i++ )
+                    {
+                        if ( !data.isEmpty() && random.nextInt( 3 ) == 0 )
+                        {
+                            ByteArrayKey key = randomExistingKey( data );
+                            MutableLong expectedValue = data.remove( key );
+                            MutableLong removedValue = writer.remove( key );
+                            assertEquals( expectedValue, removedValue );
+                        }
+                        else
+                        {
+                            ByteArrayKey key = randomKey( random.nextBoolean() ? 20 : maxKeySize );
+                            MutableLong value = new MutableLong( random.nextLong() );
+                            writer.put( key, value );
+                            data.put( key, value );
+                        }
+                    }
+                }
+
+                // THEN
+                assertSeekMatches( index, new ByteArrayKey(), highestKey( maxKeySize ), data, layout,
+                        ( expected, actual ) -> assertEquals( expected, actual ) );
+                index.consistencyCheck();
+                index.checkpoint( IOLimiter.unlimited() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldStayCorrectAfterRandomModificationsOfValuesOfDifferentSizes() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCache();
+        File file = directory.file( "index" );
+        VariableValueLayout variableValueLayout = new VariableValueLayout();
+        TreeMap<MutableLong,ByteArrayKey> data = new TreeMap<>( variableValueLayout );
+
+        for ( int round = 0; round < 10; round++ )
+        {
+            try ( GBPTree<MutableLong,ByteArrayKey> index =
+                    new GBPTreeBuilder<>( pageCache, file, variableValueLayout ).build() )
+            {
+                // WHEN
+                try ( Writer<MutableLong,ByteArrayKey> writer = index.writer() )
+                {
+                    for ( int i = 0; i < 1_000; i++ )
+                    {
+                        if ( !data.isEmpty() && random.nextInt( 3 ) == 0 )
+                        {
+                            MutableLong key = randomExistingKey( data );
+                            ByteArrayKey expectedValue = data.remove( key );
+                            ByteArrayKey removedValue = writer.remove( key );
+                            assertArrayEquals( expectedValue.bytes, removedValue.bytes );
+                        }
+                        else
+                        {
+                            // Few distinct keys so that values are often replaced by bigger or smaller values
+                            MutableLong key = new MutableLong( random.nextInt( 500 ) );
+                            ByteArrayKey value = randomKey( random.nextBoolean() ? 10 : variableValueLayout.valueSize() );
+                            writer.put( key, value );
+                            data.put( key, value );
+                        }
+                    }
+                }
+
+                // THEN
+                assertSeekMatches( index, new MutableLong( Long.MIN_VALUE ), new MutableLong( Long.MAX_VALUE ), data,
+                        variableValueLayout, ( expected, actual ) -> assertArrayEquals( expected.bytes, actual.bytes ) );
+                index.consistencyCheck();
+                index.checkpoint( IOLimiter.unlimited() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptValuesLargerThanValueSize() throws Exception
+    {
+        // GIVEN
+        VariableValueLayout variableValueLayout = new VariableValueLayout();
+        try ( GBPTree<MutableLong,ByteArrayKey> index =
+                      new GBPTreeBuilder<>( pageCache(), directory.file( "index" ), variableValueLayout ).build();
+              Writer<MutableLong,ByteArrayKey> writer = index.writer() )
+        {
+            // WHEN
+            writer.put( new MutableLong( 1 ), new ByteArrayKey( new byte[variableValueLayout.valueSize()] ) );
+            try
+            {
+                writer.put( new MutableLong( 2 ), new ByteArrayKey( new byte[variableValueLayout.valueSize() + 1] ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // THEN good
+            }
+        }
+    }
+
+    @Test
+    public void shouldKeepNodeFormatOfExistingTree() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCache();
+        File file = directory.file( "index" );
+        TreeMap<ByteArrayKey,MutableLong> data = new TreeMap<>( layout );
+        try ( GBPTree<ByteArrayKey,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout )
+                .withCompressedNodes( true ).build() )
+        {
+            insertKeysWithCommonPrefix( index, data, 0, 1_000 );
+            index.checkpoint( IOLimiter.unlimited() );
+        }
+
+        // WHEN
+        try ( GBPTree<ByteArrayKey,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout )
+                .withCompressedNodes( false ).build() )
+        {
+            insertKeysWithCommonPrefix( index, data, 1_000, 2_000 );
+
+            // THEN
+            int maxKeySize = TreeNode.keySizeCap( PAGE_SIZE, layout, TreeNode.FORMAT_COMPRESSED );
+            assertSeekMatches( index, new ByteArrayKey(), highestKey( maxKeySize ), data, layout,
+                    ( expected, actual ) -> assertEquals( expected, actual ) );
+            index.consistencyCheck();
+        }
+    }
+
+    @Test
+    public void shouldUseFewerPagesForKeysWithCommonPrefixes() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCache();
+        File uncompressedFile = directory.file( "uncompressed" );
+        File compressedFile = directory.file( "compressed" );
+
+        // WHEN
+        try ( GBPTree<ByteArrayKey,MutableLong> uncompressed = new GBPTreeBuilder<>( pageCache, uncompressedFile, layout )
+                .withCompressedNodes( false ).build();
+              GBPTree<ByteArrayKey,MutableLong> compressed = new GBPTreeBuilder<>( pageCache, compressedFile, layout )
+                .withCompressedNodes( true ).build() )
+        {
+            insertKeysWithCommonPrefix( uncompressed, new TreeMap<>( layout ), 0, 10_000 );
+            insertKeysWithCommonPrefix( compressed, new TreeMap<>( layout ), 0, 10_000 );
+            uncompressed.checkpoint( IOLimiter.unlimited() );
+            compressed.checkpoint( IOLimiter.unlimited() );
+        }
+
+        // THEN
+        long uncompressedSize = fs.get().getFileSize( uncompressedFile );
+        long compressedSize = fs.get().getFileSize( compressedFile );
+        assertTrue( "Expected compressed tree of size " + compressedSize + " to be less than half the size of " +
+                "uncompressed tree of size " + uncompressedSize, compressedSize * 2 < uncompressedSize );
+    }
+
+    private PageCache pageCache()
+    {
+        return pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ).withAccessChecks( true ) );
+    }
+
+    private static void insertKeysWithCommonPrefix( GBPTree<ByteArrayKey,MutableLong> index,
+            TreeMap<ByteArrayKey,MutableLong> data, int from, int to ) throws IOException
+    {
+        try ( Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+        {
+            for ( int i = from; i < to; i++ )
+            {
+                ByteArrayKey key = new ByteArrayKey( String.format( "http://example.com/some/common/path/%08d", i ).getBytes() );
+                MutableLong value = new MutableLong( i );
+                writer.put( key, value );
+                data.put( key, value );
+            }
+        }
+    }
+
+    private static ByteArrayKey highestKey( int maxKeySize )
+    {
+        byte[] highestBytes = new byte[maxKeySize];
+        Arrays.fill( highestBytes, (byte) 0xFF );
+        return new ByteArrayKey( highestBytes );
+    }
+
+    private static <KEY,VALUE> void assertSeekMatches( GBPTree<KEY,VALUE> index, KEY from, KEY to,
+            Map<KEY,VALUE> expected, Comparator<KEY> comparator, ValueAssertion<VALUE> valueAssertion ) throws IOException
+    {
+        try ( RawCursor<Hit<KEY,VALUE>,IOException> cursor = index.seek( from, to ) )
+        {
+            Iterator<Map.Entry<KEY,VALUE>> expectedEntries = expected.entrySet().iterator();
+            while ( cursor.next() )
+            {
+                assertTrue( expectedEntries.hasNext() );
+                Map.Entry<KEY,VALUE> expectedEntry = expectedEntries.next();
+                assertEquals( 0, comparator.compare( expectedEntry.getKey(), cursor.get().key() ) );
+                valueAssertion.assertEquals( expectedEntry.getValue(), cursor.get().value() );
+            }
+            assertFalse( expectedEntries.hasNext() );
+        }
+    }
+
+    private <KEY> KEY randomExistingKey( TreeMap<KEY,?> data )
+    {
+        List<KEY> keys = new ArrayList<>( data.keySet() );
+        return keys.get( random.nextInt( keys.size() ) );
+    }
+
+    private ByteArrayKey randomKey( int maxSize )
+    {
+        byte[] bytes = new byte[random.nextInt( maxSize + 1 )];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            // Small alphabet to get many keys with common prefixes
+            bytes[i] = (byte) random.among( new Integer[]{0, 1, 0x7F, 0x80, 0xFE} ).intValue();
+        }
+        return new ByteArrayKey( bytes );
+    }
+
+    private interface ValueAssertion<VALUE>
+    {
+        void assertEquals( VALUE expected, VALUE actual );
+    }
+
+    /**
+     * {@link Layout} with long keys and byte array values of variable size.
+     */
+    private static class VariableValueLayout extends Layout.Adapter<MutableLong,ByteArrayKey>
+    {
+        @Override
+        public int compare( MutableLong o1, MutableLong o2 )
+        {
+            return Long.compare( o1.longValue(), o2.longValue() );
+        }
+
+        @Override
+        public MutableLong newKey()
+        {
+            return new MutableLong();
+        }
+
+        @Override
+        public MutableLong copyKey( MutableLong key, MutableLong into )
+        {
+            into.setValue( key.longValue() );
+            return into;
+        }
+
+        @Override
+        public ByteArrayKey newValue()
+        {
+            return new ByteArrayKey();
+        }
+
+        @Override
+        public int keySize()
+        {
+            return Long.BYTES;
+        }
+
+        @Override
+        public int valueSize()
+        {
+            return 40;
+        }
+
+        @Override
+        public int valueSize( ByteArrayKey value )
+        {
+            return value.bytes.length;
+        }
+
+        @Override
+        public boolean fixedValueSize()
+        {
+            return false;
+        }
+
+        @Override
+        public void writeKey( PageCursor cursor, MutableLong key )
+        {
+            cursor.putLong( key.longValue() );
+        }
+
+        @Override
+        public void writeValue( PageCursor cursor, ByteArrayKey value )
+        {
+            cursor.putBytes( value.bytes );
+        }
+
+        @Override
+        public void readKey( PageCursor cursor, MutableLong into )
+        {
+            into.setValue( cursor.getLong() );
+        }
+
+        @Override
+        public void readValue( PageCursor cursor, ByteArrayKey into )
+        {
+            throw new UnsupportedOperationException( "Value size is required for reading values of variable size" );
+        }
+
+        @Override
+        public void readValue( PageCursor cursor, ByteArrayKey into, int valueSize )
+        {
+            if ( valueSize < 0 || valueSize > valueSize() )
+            {
+                cursor.setCursorException( "Unexpected value size " + valueSize );
+                return;
+            }
+            into.bytes = new byte[valueSize];
+            cursor.getBytes( into.bytes );
+        }
+
+        @Override
+        public long identifier()
+        {
+            return 997;
+        }
+
+        @Override
+        public int majorVersion()
+        {
+            return 0;
+        }
+
+        @Override
+        public int minorVersion()
+        {
+            return 0;
+        }
+    }
+}
@@ -0,0 +1,239 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.SimpleByteArrayLayout.ByteArrayKey;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+/**
+ * Tests a {@link GBPTree} with keys of variable size, i.e. a {@link Layout} which isn't {@link Layout#fixedSize() fixed size}.
+ */
+public class GBPTreeDynamicSizeIT
+{
+    private static final int PAGE_SIZE = 512;
+
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( pageCacheRule ).around( random );
+
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+
+    @Test
+    public void shouldStayCorrectAfterRandomModificationsOfKeysOfDifferentSizes() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ).withAccessChecks( true ) );
+        File file = directory.file( "index" );
+        int maxKeySize = GBPTree.keySizeCap( PAGE_SIZE, layout );
+        TreeMap<ByteArrayKey,MutableLong> data = new TreeMap<>( layout );
+
+        for ( int round = 0; round < 10; round++ )
+        {
+            try ( GBPTree<ByteArrayKey,MutableLong> index = new GBPTreeBuilder<>( pageCache, file, layout ).build() )
+            {
+                // WHEN
+                try ( Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+                {
+                    for ( int i = 0; i < 1_000; i++ )
+                    {
+                        if ( !data.isEmpty() && random.nextInt( 3 ) == 0 )
+                        {
+                            ByteArrayKey key = randomExistingKey( data );
+                            MutableLong expectedValue = data.remove( key );
+                            MutableLong removedValue = writer.remove( key );
+                            assertEquals( expectedValue, removedValue );
+                        }
+                        else
+                        {
+                            ByteArrayKey key = randomKey( random.nextBoolean() ? 10 : maxKeySize );
+                            MutableLong value = new MutableLong( random.nextLong() );
+                            writer.put( key, value );
+                            data.put( key, value );
+                        }
+                    }
+                }
+
+                // THEN
+                assertSeekMatches( index, data );
+                for ( int i = 0; i < 10; i++ )
+                {
+                    ByteArrayKey from = randomKey( 5 );
+                    ByteArrayKey to = randomKey( 5 );
+                    if ( layout.compare( from, to ) > 0 )
+                    {
+                        ByteArrayKey tmp = from;
+                        from = to;
+                        to = tmp;
+                    }
+                    // A seek where from and to are equal is an exact match
+                    boolean toInclusive = layout.compare( from, to ) == 0;
+                    assertSeekMatches( index, from, to, data.subMap( from, true, to, toInclusive ) );
+                }
+                index.consistencyCheck();
+                index.checkpoint( IOLimiter.unlimited() );
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotAcceptKeysLargerThanKeySizeCap() throws Exception
+    {
+        // GIVEN
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ).withAccessChecks( true ) );
+        try ( GBPTree<ByteArrayKey,MutableLong> index = new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build();
+              Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+        {
+            // WHEN
+            int maxKeySize = index.keySizeCap();
+            writer.put( new ByteArrayKey( new byte[maxKeySize] ), new MutableLong( 1 ) );
+            try
+            {
+                writer.put( new ByteArrayKey( new byte[maxKeySize + 1] ), new MutableLong( 2 ) );
+                fail( "Should have failed" );
+            }
+            catch ( IllegalArgumentException e )
+            {
+                // THEN good
+            }
+        }
+    }
+
+    @Test
+    public void shouldStayConsistentWhenMergingLeavesWithMoreKeysIntoRightSiblings() throws Exception
+    {
+        // GIVEN
+        // keys growing in size, so that a leaf has more keys than its right sibling
+        // and merges into right siblings in other subtrees, as the leftmost leaf is emptied
+        PageCache pageCache = pageCacheRule.getPageCache( fs.get(), config().withPageSize( PAGE_SIZE ).withAccessChecks( true ) );
+        int maxKeySize = GBPTree.keySizeCap( PAGE_SIZE, layout );
+        int count = 2_000;
+        TreeMap<ByteArrayKey,MutableLong> data = new TreeMap<>( layout );
+        for ( int i = 0; i < count; i++ )
+        {
+            byte[] bytes = new byte[Integer.BYTES + (int) ((long) i * (maxKeySize - Integer.BYTES) / count)];
+            ByteBuffer.wrap( bytes ).putInt( i );
+            data.put( new ByteArrayKey( bytes ), new MutableLong( i ) );
+        }
+        try ( GBPTree<ByteArrayKey,MutableLong> index =
+                new GBPTreeBuilder<>( pageCache, directory.file( "index" ), layout ).build() )
+        {
+            try ( Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+            {
+                for ( Map.Entry<ByteArrayKey,MutableLong> entry : data.entrySet() )
+                {
+                    writer.put( entry.getKey(), entry.getValue() );
+                }
+            }
+
+            // WHEN
+            while ( !data.isEmpty() )
+            {
+                Map.Entry<ByteArrayKey,MutableLong> lowest = data.pollFirstEntry();
+                try ( Writer<ByteArrayKey,MutableLong> writer = index.writer() )
+                {
+                    assertEquals( lowest.getValue(), writer.remove( lowest.getKey() ) );
+                }
+
+                // THEN
+                index.consistencyCheck();
+                if ( data.size() % 100 == 0 )
+                {
+                    assertSeekMatches( index, data );
+                }
+            }
+        }
+    }
+
+    private void assertSeekMatches( GBPTree<ByteArrayKey,MutableLong> index, TreeMap<ByteArrayKey,MutableLong> data )
+            throws IOException
+    {
+        ByteArrayKey lowest = new ByteArrayKey();
+        byte[] highestBytes = new byte[GBPTree.keySizeCap( PAGE_SIZE, layout )];
+        Arrays.fill( highestBytes, (byte) 0xFF );
+        ByteArrayKey highest = new ByteArrayKey( highestBytes );
+        assertSeekMatches( index, lowest, highest, data );
+    }
+
+    private void assertSeekMatches( GBPTree<ByteArrayKey,MutableLong> index, ByteArrayKey from, ByteArrayKey to,
+            Map<ByteArrayKey,MutableLong> expected ) throws IOException
+    {
+        try ( RawCursor<Hit<ByteArrayKey,MutableLong>,IOException> cursor = index.seek( from, to ) )
+        {
+            Iterator<Map.Entry<ByteArrayKey,MutableLong>> expectedEntries = expected.entrySet().iterator();
+            while ( cursor.next() )
+            {
+                assertTrue( expectedEntries.hasNext() );
+                Map.Entry<ByteArrayKey,MutableLong> expectedEntry = expectedEntries.next();
+                assertEquals( 0, layout.compare( expectedEntry.getKey(), cursor.get().key() ) );
+                assertEquals( expectedEntry.getValue(), cursor.get().value() );
+            }
+            assertFalse( expectedEntries.hasNext() );
+        }
+    }
+
+    private ByteArrayKey randomExistingKey( TreeMap<ByteArrayKey,MutableLong> data )
+    {
+        List<ByteArrayKey> keys = new ArrayList<>( data.keySet() );
+        return keys.get( random.nextInt( keys.size() ) );
+    }
+
+    private ByteArrayKey randomKey( int maxSize )
+    {
+        byte[] bytes = new byte[random.nextInt( maxSize + 1 )];
+        for ( int i = 0; i < bytes.length; i++ )
+        {
+            // Small alphabet to get many keys with common prefixes
+            bytes[i] = (byte) random.among( new Integer[]{0, 1, 0x7F, 0x80, 0xFE} ).intValue();
+        }
+        return new ByteArrayKey( bytes );
+    }
+}
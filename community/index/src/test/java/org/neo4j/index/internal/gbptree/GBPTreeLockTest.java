@@ -161,6 +161,69 @@ public class GBPTreeLockTest
         assertOnlyOneSucceeds( lock::writerAndCleanerLock, lock::writerAndCleanerLock );
     }
 
+    @Test
+    public void sharedWritersShouldNotBlockEachOther() throws Throwable
+    {
+        assertBothSucceeds( lock::sharedWriterLock, lock::sharedWriterLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void sharedWriterShouldExcludeWriter() throws Throwable
+    {
+        assertOnlyOneSucceeds( lock::sharedWriterLock, lock::writerLock );
+    }
+
+    @Test
+    public void sharedWriterShouldNotBlockCleaner() throws Throwable
+    {
+        assertBothSucceeds( lock::sharedWriterLock, lock::cleanerLock );
+    }
+
+    @Test( timeout = 10_000 )
+    public void writerShouldWaitForAllSharedWritersToUnlock() throws Exception
+    {
+        // given
+        lock.sharedWriterLock();
+        lock.sharedWriterLock();
+
+        // when
+        Future<Object> writer = executor.execute( state ->
+        {
+            lock.writerLock();
+            return null;
+        } );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+        lock.sharedWriterUnlock();
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "doLock" ) );
+        lock.sharedWriterUnlock();
+
+        // then
+        writer.get();
+        lock.writerUnlock();
+        assertUU();
+    }
+
+    @Test( timeout = 10_000 )
+    public void sharedWriterShouldWaitForWriterToUnlock() throws Exception
+    {
+        // given
+        lock.writerLock();
+
+        // when
+        Future<Object> sharedWriter = executor.execute( state ->
+        {
+            lock.sharedWriterLock();
+            return null;
+        } );
+        executor.get().waitUntilWaiting( details -> details.isAt( GBPTreeLock.class, "sharedWriterLock" ) );
+        lock.writerUnlock();
+
+        // then
+        sharedWriter.get();
+        lock.sharedWriterUnlock();
+        assertUU();
+    }
+
     private void assertOnlyOneSucceeds( Runnable lockAction1, Runnable lockAction2 ) throws Throwable
     {
         assertUU();
@@ -276,6 +339,7 @@ public class GBPTreeLockTest
         assertThrow( lock::writerUnlock );
         assertThrow( lock::cleanerUnlock );
         assertThrow( lock::writerAndCleanerUnlock );
+        assertThrow( lock::sharedWriterUnlock );
     }
 
     private void assertUL() throws Exception
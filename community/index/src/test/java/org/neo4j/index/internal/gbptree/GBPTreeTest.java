@@ -373,7 +373,7 @@ public class GBPTreeTest
         try ( GBPTree<MutableLong,MutableLong> ignored = builder.build() )
         {   // Open/close is enough
         }
-        setFormatVersion( pageCache, pageSize, GBPTree.FORMAT_VERSION - 1 );
+        setFormatVersion( pageCache, pageSize, GBPTree.FORMAT_VERSION_WITHOUT_NODE_FORMAT - 1 );
 
         try
         {
@@ -387,6 +387,47 @@ public class GBPTreeTest
         }
     }
 
+    @Test
+    public void shouldOpenTreeWithMetaPageOfPreviousFormatVersion() throws Exception
+    {
+        // GIVEN
+        int pageSize = DEFAULT_PAGE_SIZE;
+        PageCache pageCache = createPageCache( pageSize );
+        GBPTreeBuilder<MutableLong,MutableLong> builder = index( pageCache );
+        try ( GBPTree<MutableLong,MutableLong> index = builder.build() )
+        {
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                writer.put( new MutableLong( 1 ), new MutableLong( 10 ) );
+            }
+            index.checkpoint( unlimited() );
+        }
+        // Meta page as written before it contained the tree node format
+        try ( PagedFile pagedFile = pageCache.map( indexFile, pageSize );
+              PageCursor cursor = pagedFile.io( IdSpace.META_PAGE_ID, PF_SHARED_WRITE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putInt( GBPTree.FORMAT_VERSION_WITHOUT_NODE_FORMAT );
+            cursor.putInt( pageSize );
+            cursor.putLong( layout.identifier() );
+            cursor.putInt( layout.majorVersion() );
+            cursor.putInt( layout.minorVersion() );
+            layout.writeMetaData( cursor );
+        }
+
+        // WHEN
+        try ( GBPTree<MutableLong,MutableLong> index = builder.build();
+              RawCursor<Hit<MutableLong,MutableLong>,IOException> seek =
+                      index.seek( new MutableLong( 0 ), new MutableLong( 10 ) ) )
+        {
+            // THEN
+            assertTrue( seek.next() );
+            assertEquals( 10L, seek.get().value().longValue() );
+            assertFalse( seek.next() );
+            assertEquals( layout.keySize(), index.keySizeCap() );
+        }
+    }
+
     @Test
     public void shouldReturnNoResultsOnEmptyIndex() throws Exception
     {
@@ -754,6 +795,133 @@ public class GBPTreeTest
         }
     }
 
+    @Test( timeout = 5_000L )
+    public void concurrentWriterShouldLockOutWriter() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            Writer<MutableLong,MutableLong> concurrentWriter = index.concurrentWriter();
+
+            // WHEN
+            Future<?> writerClose = executor.submit( throwing( () -> index.writer().close() ) );
+
+            // THEN
+            shouldWait( writerClose );
+            concurrentWriter.close();
+            writerClose.get();
+        }
+    }
+
+    @Test( timeout = 5_000L )
+    public void concurrentWritersShouldNotLockOutEachOther() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            try ( Writer<MutableLong,MutableLong> first = index.concurrentWriter();
+                  Writer<MutableLong,MutableLong> second = index.concurrentWriter() )
+            {
+                // WHEN
+                first.put( new MutableLong( 1 ), new MutableLong( 1 ) );
+                second.put( new MutableLong( 2 ), new MutableLong( 2 ) );
+            }
+
+            // THEN
+            assertEquals( 2, countHits( index ) );
+        }
+    }
+
+    @Test( timeout = 5_000L )
+    public void concurrentWritersOnDisjointKeyRangesShouldProceedConcurrently() throws Exception
+    {
+        // GIVEN
+        StructureLockMonitor monitor = new StructureLockMonitor();
+        try ( GBPTree<MutableLong,MutableLong> index = index().with( monitor ).build() )
+        {
+            int count = 1_000;
+            try ( Writer<MutableLong,MutableLong> writer = index.writer() )
+            {
+                for ( int i = 0; i < count; i++ )
+                {
+                    writer.put( new MutableLong( i ), new MutableLong( i ) );
+                }
+            }
+            Barrier.Control barrier = new Barrier.Control();
+            ValueMerger<MutableLong,MutableLong> blockingMerger = ( existingKey, newKey, existingValue, newValue ) ->
+            {
+                barrier.reached();
+                return newValue;
+            };
+            Future<?> first = executor.submit( throwing( () ->
+            {
+                try ( Writer<MutableLong,MutableLong> writer = index.concurrentWriter() )
+                {
+                    writer.merge( new MutableLong( 0 ), new MutableLong( -1 ), blockingMerger );
+                }
+            } ) );
+            barrier.awaitUninterruptibly();
+            // now the first writer is in the smack middle of changing the leftmost leaf
+
+            // WHEN
+            try ( Writer<MutableLong,MutableLong> second = index.concurrentWriter() )
+            {
+                second.put( new MutableLong( count - 1 ), new MutableLong( -1 ) );
+            }
+
+            // THEN
+            assertEquals( 0, monitor.exclusive.get() );
+            assertEquals( 0, monitor.contended.get() );
+            barrier.release();
+            first.get();
+            assertEquals( -1, valueOf( index, 0 ) );
+            assertEquals( -1, valueOf( index, count - 1 ) );
+            assertEquals( count, countHits( index ) );
+        }
+    }
+
+    @Test( timeout = 5_000L )
+    public void checkPointShouldWaitForConcurrentWriter() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            Writer<MutableLong,MutableLong> concurrentWriter = index.concurrentWriter();
+            concurrentWriter.put( new MutableLong( 1 ), new MutableLong( 1 ) );
+
+            // WHEN
+            Future<?> checkpoint = executor.submit( throwing( () -> index.checkpoint( unlimited() ) ) );
+
+            // THEN
+            shouldWait( checkpoint );
+            concurrentWriter.close();
+            checkpoint.get();
+        }
+    }
+
+    @Test
+    public void shouldNotAllowClosingConcurrentWriterMultipleTimes() throws Exception
+    {
+        // GIVEN
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            Writer<MutableLong,MutableLong> writer = index.concurrentWriter();
+            writer.close();
+
+            try
+            {
+                // WHEN
+                writer.close();
+                fail( "Should have failed" );
+            }
+            catch ( IllegalStateException e )
+            {
+                // THEN
+                assertThat( e.getMessage(), containsString( "already closed" ) );
+            }
+        }
+    }
+
     @Test( timeout = 5_000L )
     public void closeShouldLockOutWriter() throws Exception
     {
@@ -1141,6 +1309,62 @@ public class GBPTreeTest
         }
     }
 
+    @Test
+    public void shouldSeeInsertionsAndRemovalsFromConcurrentWriters() throws Exception
+    {
+        try ( GBPTree<MutableLong,MutableLong> index = index().build() )
+        {
+            // WHEN
+            int threads = 4;
+            int countPerThread = 2_000;
+            List<Future<?>> writers = new ArrayList<>();
+            for ( int t = 0; t < threads; t++ )
+            {
+                // Interleave the keys of the writers so that they contend for the same leaves and splits
+                int offset = t;
+                writers.add( executor.submit( throwing( () ->
+                {
+                    try ( Writer<MutableLong,MutableLong> writer = index.concurrentWriter() )
+                    {
+                        for ( int i = 0; i < countPerThread; i++ )
+                        {
+                            long key = (long) i * threads + offset;
+                            writer.put( new MutableLong( key ), new MutableLong( key ) );
+                        }
+                        for ( int i = 0; i < countPerThread; i += 2 )
+                        {
+                            long key = (long) i * threads + offset;
+                            MutableLong removed = writer.remove( new MutableLong( key ) );
+                            assertEquals( key, removed.longValue() );
+                        }
+                    }
+                } ) ) );
+            }
+            for ( Future<?> writer : writers )
+            {
+                writer.get();
+            }
+
+            // THEN
+            try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                          index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+            {
+                for ( int i = 1; i < countPerThread; i += 2 )
+                {
+                    for ( int t = 0; t < threads; t++ )
+                    {
+                        long expected = (long) i * threads + t;
+                        assertTrue( cursor.next() );
+                        assertEquals( expected, cursor.get().key().longValue() );
+                        assertEquals( expected, cursor.get().value().longValue() );
+                    }
+                }
+                assertFalse( cursor.next() );
+            }
+            assertTrue( index.consistencyCheck() );
+        }
+    }
+
     /* Randomized tests */
 
     @Test
@@ -1664,6 +1888,30 @@ public class GBPTreeTest
         }
     }
 
+    private static int countHits( GBPTree<MutableLong,MutableLong> index ) throws IOException
+    {
+        int count = 0;
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      index.seek( new MutableLong( 0 ), new MutableLong( Long.MAX_VALUE ) ) )
+        {
+            while ( cursor.next() )
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static long valueOf( GBPTree<MutableLong,MutableLong> index, long key ) throws IOException
+    {
+        try ( RawCursor<Hit<MutableLong,MutableLong>,IOException> cursor =
+                      index.seek( new MutableLong( key ), new MutableLong( key + 1 ) ) )
+        {
+            assertTrue( cursor.next() );
+            return cursor.get().value().longValue();
+        }
+    }
+
     private void shouldWait( Future<?> future )throws InterruptedException, ExecutionException
     {
         try
@@ -1724,6 +1972,25 @@ public class GBPTreeTest
         }
     }
 
+    private static class StructureLockMonitor extends Monitor.Adaptor
+    {
+        private final AtomicInteger exclusive = new AtomicInteger();
+        private final AtomicInteger contended = new AtomicInteger();
+
+        @Override
+        public void structureLockAcquired( boolean exclusive, boolean contended )
+        {
+            if ( exclusive )
+            {
+                this.exclusive.incrementAndGet();
+            }
+            if ( contended )
+            {
+                this.contended.incrementAndGet();
+            }
+        }
+    }
+
     private static class CheckpointCounter extends Monitor.Adaptor
     {
         private int count;
@@ -67,7 +67,7 @@ public class SeekCursorTest
 
     private final SimpleIdProvider id = new SimpleIdProvider();
     private final Layout<MutableLong,MutableLong> layout = new SimpleLongLayout();
-    private final TreeNode<MutableLong,MutableLong> node = new TreeNode<>( PAGE_SIZE, layout );
+    private final TreeNodeFixedSize<MutableLong,MutableLong> node = new TreeNodeFixedSize<>( PAGE_SIZE, layout );
     private final InternalTreeLogic<MutableLong,MutableLong> treeLogic = new InternalTreeLogic<>( id, node, layout );
     private final StructurePropagation<MutableLong> structurePropagation =
             new StructurePropagation<>( layout.newKey(), layout.newKey(), layout.newKey() );
@@ -220,6 +220,32 @@ public class SeekCursorTest
         }
     }
 
+    @Test
+    public void mustFindEntriesWithinRangeStartingBetweenKeysInSingleLeafBackwards() throws Exception
+    {
+        // GIVEN
+        for ( int i = 0; i < maxKeyCount; i++ )
+        {
+            append( i * 2 );
+        }
+        int middle = maxKeyCount / 2;
+        int fromInclusive = middle * 2 + 1;
+        int toExclusive = middle;
+
+        // WHEN
+        try ( SeekCursor<MutableLong,MutableLong> cursor = seekCursor( fromInclusive, toExclusive ) )
+        {
+            // THEN
+            long expectedKey = fromInclusive - 1;
+            while ( cursor.next() )
+            {
+                assertKeyAndValue( cursor, expectedKey );
+                expectedKey -= 2;
+            }
+            assertEquals( toExclusive - toExclusive % 2, expectedKey );
+        }
+    }
+
     @Test
     public void mustFindEntriesSpanningTwoLeaves() throws Exception
     {
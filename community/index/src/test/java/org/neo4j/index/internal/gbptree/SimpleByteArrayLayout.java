@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+
+import java.util.Arrays;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} with keys of variable size, byte arrays compared unsigned lexicographically.
+ */
+class SimpleByteArrayLayout extends Layout.Adapter<SimpleByteArrayLayout.ByteArrayKey,MutableLong>
+{
+    static class ByteArrayKey
+    {
+        byte[] bytes = new byte[0];
+
+        ByteArrayKey()
+        {
+        }
+
+        ByteArrayKey( byte[] bytes )
+        {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString()
+        {
+            return Arrays.toString( bytes );
+        }
+    }
+
+    @Override
+    public int compare( ByteArrayKey o1, ByteArrayKey o2 )
+    {
+        int length = Math.min( o1.bytes.length, o2.bytes.length );
+        for ( int i = 0; i < length; i++ )
+        {
+            int comparison = Integer.compare( o1.bytes[i] & 0xFF, o2.bytes[i] & 0xFF );
+            if ( comparison != 0 )
+            {
+                return comparison;
+            }
+        }
+        return Integer.compare( o1.bytes.length, o2.bytes.length );
+    }
+
+    @Override
+    public ByteArrayKey newKey()
+    {
+        return new ByteArrayKey();
+    }
+
+    @Override
+    public ByteArrayKey copyKey( ByteArrayKey key, ByteArrayKey into )
+    {
+        into.bytes = key.bytes.clone();
+        return into;
+    }
+
+    @Override
+    public MutableLong newValue()
+    {
+        return new MutableLong();
+    }
+
+    @Override
+    public int keySize()
+    {
+        return 0;
+    }
+
+    @Override
+    public int keySize( ByteArrayKey key )
+    {
+        return key.bytes.length;
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return false;
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return Long.BYTES;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, ByteArrayKey key )
+    {
+        cursor.putBytes( key.bytes );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, MutableLong value )
+    {
+        cursor.putLong( value.longValue() );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, ByteArrayKey into )
+    {
+        throw new UnsupportedOperationException( "Key size is required for reading keys of variable size" );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, ByteArrayKey into, int keySize )
+    {
+        if ( keySize < 0 || keySize > cursor.getCurrentPageSize() )
+        {
+            cursor.setCursorException( "Unexpected key size " + keySize );
+            return;
+        }
+        into.bytes = new byte[keySize];
+        cursor.getBytes( into.bytes );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, MutableLong into )
+    {
+        into.setValue( cursor.getLong() );
+    }
+
+    @Override
+    public long identifier()
+    {
+        return 998;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 0;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 0;
+    }
+}
@@ -0,0 +1,136 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.index.internal.gbptree;
+
+import org.apache.commons.lang3.mutable.MutableLong;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.neo4j.index.internal.gbptree.SimpleByteArrayLayout.ByteArrayKey;
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TreeNodeCompressedTest
+{
+    private static final int STABLE_GENERATION = 1;
+    private static final int UNSTABLE_GENERATION = 2;
+    private static final int PAGE_SIZE = 512;
+    private static final int PREFIX_SIZE = 40;
+
+    private final PageCursor leftCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+    private final PageCursor rightCursor = new PageAwareByteArrayCursor( PAGE_SIZE );
+    private final SimpleByteArrayLayout layout = new SimpleByteArrayLayout();
+    private final TreeNodeCompressed<ByteArrayKey,MutableLong> node = new TreeNodeCompressed<>( PAGE_SIZE, layout );
+
+    @Before
+    public void prepareCursors() throws IOException
+    {
+        leftCursor.next();
+        rightCursor.next();
+        TreeNode.initializeLeaf( leftCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+        TreeNode.initializeLeaf( rightCursor, STABLE_GENERATION, UNSTABLE_GENERATION );
+    }
+
+    @Test
+    public void shouldRebalanceUnderflowingLeafWhenEntriesOfLeftSiblingDontCompressAgainstItsBase() throws Exception
+    {
+        // GIVEN
+        // a right leaf which has just become less than half full, with keys which have nothing in common with
+        // the keys of its left sibling, which is just as full, so that the left leaf doesn't fit in the right leaf
+        // when compressed against its base
+        int rightKeyCount = 0;
+        while ( rightKeyCount == 0 || node.leafUnderflowAfterRemove( rightCursor, rightKeyCount, rightKeyCount - 1 ) )
+        {
+            insert( rightCursor, rightKeyCount, key( (byte) 2, rightKeyCount ) );
+            rightKeyCount++;
+        }
+        remove( rightCursor, rightKeyCount-- );
+        remove( rightCursor, rightKeyCount-- );
+        int leftKeyCount = rightKeyCount;
+        for ( int i = 0; i < leftKeyCount; i++ )
+        {
+            insert( leftCursor, i, key( (byte) 1, i ) );
+        }
+        List<ByteArrayKey> expectedKeys = new ArrayList<>();
+        expectedKeys.addAll( keys( leftCursor, leftKeyCount ) );
+        expectedKeys.addAll( keys( rightCursor, rightKeyCount ) );
+        assertFalse( node.canMergeLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) );
+
+        // WHEN
+        assertTrue( node.canRebalanceLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount ) );
+        node.doRebalanceLeaves( leftCursor, leftKeyCount, rightCursor, rightKeyCount );
+
+        // THEN
+        int leftKeyCountAfter = TreeNode.keyCount( leftCursor );
+        int rightKeyCountAfter = TreeNode.keyCount( rightCursor );
+        assertTrue( rightKeyCountAfter > rightKeyCount );
+        assertTrue( leftKeyCountAfter > 0 );
+        List<ByteArrayKey> actualKeys = new ArrayList<>();
+        actualKeys.addAll( keys( leftCursor, leftKeyCountAfter ) );
+        actualKeys.addAll( keys( rightCursor, rightKeyCountAfter ) );
+        assertEquals( expectedKeys.size(), actualKeys.size() );
+        for ( int i = 0; i < expectedKeys.size(); i++ )
+        {
+            assertArrayEquals( expectedKeys.get( i ).bytes, actualKeys.get( i ).bytes );
+        }
+    }
+
+    private void insert( PageCursor cursor, int keyCount, ByteArrayKey key )
+    {
+        node.insertKeyValueAt( cursor, key, new MutableLong( keyCount ), keyCount, keyCount );
+        TreeNode.setKeyCount( cursor, keyCount + 1 );
+    }
+
+    private void remove( PageCursor cursor, int keyCount )
+    {
+        node.removeKeyValueAt( cursor, keyCount - 1, keyCount );
+        TreeNode.setKeyCount( cursor, keyCount - 1 );
+    }
+
+    private List<ByteArrayKey> keys( PageCursor cursor, int keyCount )
+    {
+        List<ByteArrayKey> keys = new ArrayList<>();
+        for ( int i = 0; i < keyCount; i++ )
+        {
+            keys.add( node.keyAt( cursor, layout.newKey(), i ) );
+        }
+        return keys;
+    }
+
+    private static ByteArrayKey key( byte prefix, int i )
+    {
+        byte[] bytes = new byte[PREFIX_SIZE + Short.BYTES];
+        for ( int j = 0; j < PREFIX_SIZE; j++ )
+        {
+            bytes[j] = prefix;
+        }
+        bytes[PREFIX_SIZE] = (byte) (i >>> 8);
+        bytes[PREFIX_SIZE + 1] = (byte) i;
+        return new ByteArrayKey( bytes );
+    }
+}
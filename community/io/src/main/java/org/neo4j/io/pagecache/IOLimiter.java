@@ -103,6 +103,18 @@ public interface IOLimiter
         // Same as for disableLimit().
     }
 
+    /**
+     * The rate of IO, in IOs per second, that this limiter currently allows. This can change over time, if the
+     * limiter adapts the rate to the load on the system.
+     *
+     * @return the current IOPS limit, or -1 if the rate of IO is currently not limited.
+     */
+    default long currentIOPSLimit()
+    {
+        // By default we assume that the implementation has no limit.
+        return -1;
+    }
+
     /**
      * An IOPSLimiter implementation that does not restrict the rate of IO. Use this implementation if you want the
      * flush to go as fast as possible.
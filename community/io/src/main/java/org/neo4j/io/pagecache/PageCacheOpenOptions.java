@@ -33,5 +33,27 @@ public enum PageCacheOpenOptions implements OpenOption
      * If so, the given file page size will be ignored and a {@link PagedFile} will be returned that uses the
      * file page size of the existing mapping.
      */
-    ANY_PAGE_SIZE
+    ANY_PAGE_SIZE,
+
+    /**
+     * Map the file in the high priority class. Pages from high priority files are given a second chance when they are
+     * about to be evicted, which makes the page cache prefer evicting pages from other files.
+     * Priority classes only take effect when the file is first mapped, and are ignored for existing mappings.
+     */
+    HIGH_PRIORITY,
+
+    /**
+     * Map the file in the low priority class. Pages from low priority files age twice as fast as other pages, which
+     * makes them the first to be evicted when the page cache needs to make room.
+     * Priority classes only take effect when the file is first mapped, and are ignored for existing mappings.
+     */
+    LOW_PRIORITY,
+
+    /**
+     * Keep compressed copies of clean pages from this file when they are evicted, if the page cache has a tier of
+     * memory set aside for compressed pages. Page faults will then decompress the page instead of reading it from the
+     * file. This is useful for large and cold files whose contents compress well.
+     * The option only takes effect when the file is first mapped, and is ignored for existing mappings.
+     */
+    COMPRESSED
 }
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache;
+
+import java.io.File;
+import java.nio.file.OpenOption;
+
+/**
+ * An {@link OpenOption} for {@link PageCache#map(File, int, OpenOption...)}, that reserves a minimum share of the
+ * pages in the page cache for the mapped file. The page cache will not evict pages from the file, as long as the file
+ * has no more pages in memory than what has been reserved for it.
+ * <p>
+ * Quotas only take effect when the file is first mapped, and are ignored for existing mappings. The page cache may
+ * refuse to map a file, if the sum of all reserved shares would leave too little memory for the unreserved files.
+ */
+public final class PageCacheQuota implements OpenOption
+{
+    private final double reservedShare;
+
+    private PageCacheQuota( double reservedShare )
+    {
+        this.reservedShare = reservedShare;
+    }
+
+    /**
+     * Reserve the given share of the page cache for the mapped file.
+     * @param reservedShare The share of pages to reserve, as a number greater than 0 and less than 1.
+     * @return The page cache quota option.
+     */
+    public static PageCacheQuota reserve( double reservedShare )
+    {
+        if ( !(reservedShare > 0.0 && reservedShare < 1.0) )
+        {
+            throw new IllegalArgumentException(
+                    "The reserved share must be greater than 0 and less than 1, but was " + reservedShare );
+        }
+        return new PageCacheQuota( reservedShare );
+    }
+
+    /**
+     * @return The share of pages in the page cache that is reserved for the mapped file.
+     */
+    public double reservedShare()
+    {
+        return reservedShare;
+    }
+
+    /**
+     * Compute the number of pages reserved by this quota, in a page cache of the given capacity.
+     */
+    public long reservedPages( long maxCachedPages )
+    {
+        return (long) (maxCachedPages * reservedShare);
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        return Double.compare( ((PageCacheQuota) o).reservedShare, reservedShare ) == 0;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Double.hashCode( reservedShare );
+    }
+
+    @Override
+    public String toString()
+    {
+        return "PageCacheQuota[reservedShare=" + reservedShare + "]";
+    }
+}
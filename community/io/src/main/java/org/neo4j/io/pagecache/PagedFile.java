@@ -63,13 +63,20 @@ public interface PagedFile extends AutoCloseable
     int PF_NO_GROW = 1 << 2;
     /**
      * Read-ahead hint for sequential forward scanning.
+     * <p>
+     * Read cursors opened with this flag will fault in the pages ahead of them in the background, while they are
+     * moving sequentially forward through the file.
      */
-    int PF_READ_AHEAD = 1 << 3; // TBD
+    int PF_READ_AHEAD = 1 << 3;
     /**
-     * Do not load in the page if it is not loaded already. Only useful with
-     * exclusive locking when you want to overwrite the whole page anyway.
+     * Do not load in the page if it is not loaded already.
+     * <p>
+     * The {@link PageCursor#next()} and {@link PageCursor#next(long)} methods will still return {@code true} for pages
+     * that are within the range of the file, but {@link PageCursor#getCurrentPageId()} will return
+     * {@link PageCursor#UNBOUND_PAGE_ID} for the pages that are not in memory. Only the pages that are already in
+     * memory will be bound to the cursor, and can be accessed through it.
      */
-    int PF_NO_FAULT = 1 << 4; // TBD
+    int PF_NO_FAULT = 1 << 4;
     /**
      * Do not update page access statistics.
      */
@@ -144,6 +151,11 @@ public interface PagedFile extends AutoCloseable
      */
     long fileSize() throws IOException;
 
+    /**
+     * Get the file that is mapped by this paged file.
+     */
+    File file();
+
     /**
      * Flush all dirty pages into the file channel, and force the file channel to disk.
      */
@@ -0,0 +1,369 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.AsynchronousFileChannel;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A PageSwapper that performs vectored reads and writes as individual page reads and writes on an
+ * {@link AsynchronousFileChannel}, keeping up to a given queue depth of them in flight at the same time.
+ * <p>
+ * The {@link SingleFilePageSwapper} performs a vectored operation as a single scatter/gather system call, which holds
+ * the position lock of the channel, and thus serialises all vectored IO going to the same channel stripe. On devices
+ * that can serve many concurrent requests, such as NVMe drives, the latency of the individual calls then becomes the
+ * bottleneck, rather than the bandwidth of the device. This swapper instead issues the page reads and writes of a
+ * vectored operation asynchronously, which gets a deeper queue on the device. How the asynchronous channel performs
+ * them is up to the platform: on Windows it uses overlapped IO, while on Linux the JDK performs positional IO on the
+ * threads of the pool the channel was opened with.
+ * <p>
+ * Single page operations are passed straight through to the underlying {@link SingleFilePageSwapper}, which also takes
+ * care of file locking, size tracking, and reopening channels that have been closed by interrupts. So is all IO when
+ * there is no asynchronous channel, which is the case for file systems other than the default one.
+ */
+public class AsyncBatchedPageSwapper implements PageSwapper
+{
+    private final SingleFilePageSwapper delegate;
+    private final AsynchronousFileChannel channel;
+    private final int filePageSize;
+    private final int queueDepth;
+
+    AsyncBatchedPageSwapper( SingleFilePageSwapper delegate, AsynchronousFileChannel channel, int filePageSize,
+            int queueDepth )
+    {
+        this.delegate = delegate;
+        this.channel = channel;
+        this.filePageSize = filePageSize;
+        this.queueDepth = queueDepth;
+    }
+
+    @Override
+    public long read( long filePageId, long bufferAddress, int bufferSize ) throws IOException
+    {
+        return delegate.read( filePageId, bufferAddress, bufferSize );
+    }
+
+    @Override
+    public long read( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length )
+            throws IOException
+    {
+        if ( channel == null || length < 2 )
+        {
+            return delegate.read( startFilePageId, bufferAddresses, bufferSize, arrayOffset, length );
+        }
+        return transfer( startFilePageId, bufferAddresses, bufferSize, arrayOffset, length, false );
+    }
+
+    @Override
+    public long write( long filePageId, long bufferAddress ) throws IOException
+    {
+        return delegate.write( filePageId, bufferAddress );
+    }
+
+    @Override
+    public long write( long startFilePageId, long[] bufferAddresses, int arrayOffset, int length ) throws IOException
+    {
+        if ( channel == null || length < 2 )
+        {
+            return delegate.write( startFilePageId, bufferAddresses, arrayOffset, length );
+        }
+        delegate.increaseFileSizeTo( pageIdToPosition( startFilePageId + length ) );
+        return transfer( startFilePageId, bufferAddresses, filePageSize, arrayOffset, length, true );
+    }
+
+    /**
+     * Submit the page transfers of the given range of pages, keeping at most queue depth of them in flight, and wait
+     * for them in order. Then return the total number of bytes transferred.
+     */
+    private long transfer( long startFilePageId, long[] bufferAddresses, int bufferSize, int arrayOffset, int length,
+            boolean write ) throws IOException
+    {
+        long fileSize = delegate.getCurrentFileSize();
+        PageTransfer[] transfers = new PageTransfer[length];
+        int submitted = 0;
+        int completed = 0;
+        long bytes = 0;
+        IOException exception = null;
+        boolean interrupted = false;
+
+        // We must wait for all transfers that were submitted, regardless of failures and interrupts, since they are
+        // using the buffers of the pages that we were given, and those pages may be reused as soon as we return.
+        while ( true )
+        {
+            while ( exception == null && submitted < length && submitted - completed < queueDepth )
+            {
+                long position = pageIdToPosition( startFilePageId + submitted );
+                long bufferAddress = bufferAddresses[arrayOffset + submitted];
+                if ( !write && position >= fileSize )
+                {
+                    // Nothing to read past the end of the file, just like in the single file swapper.
+                    UnsafeUtil.setMemory( bufferAddress, bufferSize, MuninnPageCache.ZERO_BYTE );
+                    submitted++;
+                    continue;
+                }
+                try
+                {
+                    PageTransfer transfer = new PageTransfer( bufferAddress, position, write );
+                    transfer.submit();
+                    transfers[submitted++] = transfer;
+                }
+                catch ( IOException | RuntimeException e )
+                {
+                    exception = chain( exception, asIOException( e ) );
+                }
+            }
+            if ( completed == submitted )
+            {
+                break;
+            }
+
+            PageTransfer transfer = transfers[completed];
+            try
+            {
+                if ( transfer == null || transfer.awaitCompletion() )
+                {
+                    bytes += transfer == null ? 0 : transfer.transferred();
+                    completed++;
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                interrupted = true;
+            }
+            catch ( ExecutionException e )
+            {
+                exception = chain( exception, asIOException( e.getCause() ) );
+                completed++;
+            }
+            catch ( RuntimeException e )
+            {
+                exception = chain( exception, asIOException( e ) );
+                completed++;
+            }
+        }
+        if ( interrupted )
+        {
+            // Never swallow an interrupt.
+            Thread.currentThread().interrupt();
+        }
+        if ( exception != null )
+        {
+            throw exception;
+        }
+        return bytes;
+    }
+
+    private long pageIdToPosition( long pageId )
+    {
+        return filePageSize * pageId;
+    }
+
+    private static IOException asIOException( Throwable cause )
+    {
+        if ( cause instanceof IOException )
+        {
+            return (IOException) cause;
+        }
+        return new IOException( cause );
+    }
+
+    private static IOException chain( IOException initial, IOException current )
+    {
+        if ( initial == null )
+        {
+            return current;
+        }
+        initial.addSuppressed( current );
+        return initial;
+    }
+
+    @Override
+    public void evicted( long pageId )
+    {
+        delegate.evicted( pageId );
+    }
+
+    @Override
+    public File file()
+    {
+        return delegate.file();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        try
+        {
+            closeChannel();
+        }
+        finally
+        {
+            delegate.close();
+        }
+    }
+
+    @Override
+    public void closeAndDelete() throws IOException
+    {
+        try
+        {
+            closeChannel();
+        }
+        finally
+        {
+            delegate.closeAndDelete();
+        }
+    }
+
+    private void closeChannel() throws IOException
+    {
+        if ( channel != null )
+        {
+            channel.close();
+        }
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        if ( channel != null )
+        {
+            // Not all platforms flush writes made through other handles of the same file.
+            channel.force( false );
+        }
+        delegate.force();
+    }
+
+    @Override
+    public long getLastPageId() throws IOException
+    {
+        return delegate.getLastPageId();
+    }
+
+    @Override
+    public void truncate() throws IOException
+    {
+        delegate.truncate();
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+
+        AsyncBatchedPageSwapper that = (AsyncBatchedPageSwapper) o;
+
+        return delegate.equals( that.delegate );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return delegate.hashCode();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "AsyncBatchedPageSwapper{" +
+                "filePageSize=" + filePageSize +
+                ", queueDepth=" + queueDepth +
+                ", async=" + (channel != null) +
+                ", file=" + file() +
+                '}';
+    }
+
+    /**
+     * The read or write of a single page through the asynchronous channel, which is resubmitted for the rest of the
+     * page if the channel transfers less than a page.
+     */
+    private class PageTransfer
+    {
+        private final long bufferAddress;
+        private final ByteBuffer buffer;
+        private final long position;
+        private final boolean write;
+        private Future<Integer> future;
+
+        PageTransfer( long bufferAddress, long position, boolean write ) throws IOException
+        {
+            this.bufferAddress = bufferAddress;
+            this.position = position;
+            this.write = write;
+            try
+            {
+                buffer = UnsafeUtil.newDirectByteBuffer( bufferAddress, filePageSize );
+            }
+            catch ( Exception e )
+            {
+                throw new IOException( e );
+            }
+        }
+
+        void submit()
+        {
+            long filePosition = position + buffer.position();
+            future = write ? channel.write( buffer, filePosition ) : channel.read( buffer, filePosition );
+        }
+
+        /**
+         * Wait for the submitted transfer, and submit the rest of the page if only a part of it was transferred.
+         *
+         * @return {@code true} if the page has been transferred, or the end of the file was reached while reading it,
+         * or {@code false} if the rest of the page has been submitted.
+         */
+        boolean awaitCompletion() throws InterruptedException, ExecutionException
+        {
+            int transferred = future.get();
+            if ( buffer.hasRemaining() && transferred != -1 )
+            {
+                submit();
+                return false;
+            }
+            if ( !write )
+            {
+                // Zero-fill the rest, if we read past the end of the file.
+                UnsafeUtil.setMemory( bufferAddress + buffer.position(), buffer.remaining(),
+                        MuninnPageCache.ZERO_BYTE );
+            }
+            return true;
+        }
+
+        int transferred()
+        {
+            return buffer.position();
+        }
+    }
+}
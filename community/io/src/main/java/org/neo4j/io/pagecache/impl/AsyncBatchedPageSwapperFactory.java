@@ -0,0 +1,173 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.AsynchronousFileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardOpenOption;
+import java.util.EnumSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageEvictionCallback;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * A factory for AsyncBatchedPageSwapper instances.
+ * <p>
+ * The asynchronous channels of all swappers created by this factory share a single pool of IO threads, the size of
+ * which is the queue depth: the maximum number of page reads or writes that can be in flight at the same time, on
+ * behalf of vectored swapper operations. Asynchronous channels can only be opened on the default file system, so
+ * swappers on other file systems perform all their IO through the {@link SingleFilePageSwapper} they wrap.
+ *
+ * @see org.neo4j.io.pagecache.impl.AsyncBatchedPageSwapper
+ */
+public class AsyncBatchedPageSwapperFactory implements PageSwapperFactory
+{
+    static final int DEFAULT_QUEUE_DEPTH = FeatureToggles.getInteger(
+            AsyncBatchedPageSwapperFactory.class, "queueDepth", 8 );
+
+    private final int queueDepth;
+    private FileSystemAbstraction fs;
+    private ExecutorService ioExecutor;
+
+    public AsyncBatchedPageSwapperFactory()
+    {
+        this( DEFAULT_QUEUE_DEPTH );
+    }
+
+    public AsyncBatchedPageSwapperFactory( int queueDepth )
+    {
+        if ( queueDepth < 1 )
+        {
+            throw new IllegalArgumentException( "Queue depth must be positive, but was " + queueDepth );
+        }
+        this.queueDepth = queueDepth;
+    }
+
+    @Override
+    public void open( FileSystemAbstraction fs, Configuration config )
+    {
+        this.fs = fs;
+        AtomicInteger threadCounter = new AtomicInteger();
+        this.ioExecutor = Executors.newFixedThreadPool( queueDepth, runnable ->
+        {
+            Thread thread = new Thread( runnable, "PageSwapperIO-" + threadCounter.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        } );
+    }
+
+    @Override
+    public FileSystemAbstraction getFileSystemAbstraction()
+    {
+        return fs;
+    }
+
+    @Override
+    public PageSwapper createPageSwapper(
+            File file,
+            int filePageSize,
+            PageEvictionCallback onEviction,
+            boolean createIfNotExist ) throws IOException
+    {
+        if ( !fs.fileExists( file ) )
+        {
+            if ( createIfNotExist )
+            {
+                fs.create( file ).close();
+            }
+            else
+            {
+                throw new NoSuchFileException( file.getPath(), null, "Cannot map non-existing file" );
+            }
+        }
+        SingleFilePageSwapper delegate = new SingleFilePageSwapper( file, fs, filePageSize, onEviction );
+        AsynchronousFileChannel channel = null;
+        if ( queueDepth > 1 && fs instanceof DefaultFileSystemAbstraction )
+        {
+            try
+            {
+                channel = AsynchronousFileChannel.open( file.toPath(),
+                        EnumSet.of( StandardOpenOption.READ, StandardOpenOption.WRITE ), ioExecutor );
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                try
+                {
+                    delegate.close();
+                }
+                catch ( IOException closeException )
+                {
+                    e.addSuppressed( closeException );
+                }
+                throw e;
+            }
+        }
+        return new AsyncBatchedPageSwapper( delegate, channel, filePageSize, queueDepth );
+    }
+
+    @Override
+    public void syncDevice()
+    {
+        // Nothing do to, since we `fsync` files individually in `force()`.
+    }
+
+    @Override
+    public void close()
+    {
+        if ( ioExecutor != null )
+        {
+            ioExecutor.shutdown();
+        }
+    }
+
+    @Override
+    public String implementationName()
+    {
+        return "async";
+    }
+
+    @Override
+    public int getCachePageSizeHint()
+    {
+        return 8192;
+    }
+
+    @Override
+    public boolean isCachePageSizeHintStrict()
+    {
+        return false;
+    }
+
+    @Override
+    public long getRequiredBufferAlignment()
+    {
+        return 1;
+    }
+}
@@ -166,7 +166,8 @@ public class SingleFilePageSwapper implements PageSwapper
                 && StoreFileChannelUnwrapper.unwrap( channels[0] ).getClass() == sun.nio.ch.FileChannelImpl.class;
     }
 
-    private void increaseFileSizeTo( long newFileSize )
+    // Also used by the AsyncBatchedPageSwapper, when it writes to the file through its own channel.
+    void increaseFileSizeTo( long newFileSize )
     {
         long currentFileSize;
         do
@@ -177,7 +178,7 @@ public class SingleFilePageSwapper implements PageSwapper
                 this, fileSizeOffset, currentFileSize, newFileSize ) );
     }
 
-    private long getCurrentFileSize()
+    long getCurrentFileSize()
     {
         return UnsafeUtil.getLongVolatile( this, fileSizeOffset );
     }
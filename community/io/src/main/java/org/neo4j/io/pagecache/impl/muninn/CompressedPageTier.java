@@ -0,0 +1,241 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIntMap;
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * An off-heap tier of LZ4 compressed pages, that sits between the page cache and the storage device.
+ * <p>
+ * When a clean page from a file that has been mapped with
+ * {@link org.neo4j.io.pagecache.PageCacheOpenOptions#COMPRESSED} is evicted, a compressed copy of it is kept here, and
+ * a subsequent page fault of the same file page can then be served by decompressing the copy, instead of reading the
+ * page from the storage device. This stretches the effective size of the page cache, for data that compresses well,
+ * such as property and string store records.
+ * <p>
+ * The compressed pages are kept in a ring buffer, in the order they were stored. When the buffer is full, the oldest
+ * compressed pages are discarded to make room for new ones. Each entry in the buffer consists of a header with the key
+ * of the page, the epoch of its file, and the compressed length, followed by the compressed bytes. Entries are aligned
+ * to 8 bytes. An index from page keys to buffer offsets is used for look-ups.
+ * <p>
+ * The copies in this tier are always identical to the contents of the page on the storage device, because only clean
+ * pages are stored, and because a page is removed from this tier when it is faulted back into the page cache, where it
+ * may get modified. When a file is unmapped, the epoch of its swapper id is incremented, which invalidates all of its
+ * compressed pages, without having to find them in the buffer.
+ * <p>
+ * All methods synchronize on the tier. The cost of this is small compared to the cost of the (de)compression itself,
+ * and the alternative of going to the storage device.
+ */
+final class CompressedPageTier
+{
+    private static final int HEADER_SIZE = 16;
+    private static final int HEADER_EPOCH_OFFSET = 8;
+    private static final int HEADER_LENGTH_OFFSET = 12;
+    private static final long PADDING_KEY = -1;
+    private static final int SWAPPER_ID_BITS = 16;
+    private static final long MAX_CAPACITY = 16L * 1024 * 1024 * 1024; // Offsets are indexed in units of 8 bytes.
+
+    private final long buffer;
+    private final long capacity;
+    private final int cachePageSize;
+    private final int maxCompressedLength;
+    private final long scratch;
+    private final int[] hashTable;
+    private final PrimitiveLongIntMap index;
+    private final int[] epochs;
+    private final boolean[] enabled;
+
+    // The absolute positions of the next free byte, and the oldest entry, in the ring buffer.
+    private long head;
+    private long tail;
+
+    /**
+     * @param capacity The number of bytes to use for compressed pages.
+     * @param cachePageSize The size of the pages in the page cache.
+     * @param memoryManager The memory manager to allocate the off-heap memory from.
+     */
+    CompressedPageTier( long capacity, int cachePageSize, MemoryManager memoryManager )
+    {
+        if ( capacity < cachePageSize || capacity > MAX_CAPACITY )
+        {
+            throw new IllegalArgumentException( "The compressed page tier must be at least one page (" +
+                    cachePageSize + " bytes) and at most " + MAX_CAPACITY + " bytes, but was " + capacity );
+        }
+        this.capacity = capacity & ~7L;
+        this.cachePageSize = cachePageSize;
+        // Pages that don't compress to less than three quarters of their size are not worth keeping.
+        this.maxCompressedLength = cachePageSize - (cachePageSize >>> 2);
+        this.buffer = memoryManager.allocateAligned( this.capacity );
+        this.scratch = memoryManager.allocateAligned( Lz4BlockCodec.maxCompressedLength( cachePageSize ) );
+        this.hashTable = new int[Lz4BlockCodec.HASH_TABLE_SIZE];
+        this.index = Primitive.longIntMap();
+        this.epochs = new int[SwapperSet.MAX_SWAPPER_ID + 1];
+        this.enabled = new boolean[SwapperSet.MAX_SWAPPER_ID + 1];
+    }
+
+    /**
+     * Start keeping compressed copies of evicted pages from the file with the given swapper id.
+     */
+    synchronized void enable( int swapperId )
+    {
+        enabled[swapperId] = true;
+    }
+
+    /**
+     * Stop keeping compressed copies of pages from the file with the given swapper id, and invalidate all of the
+     * compressed pages it currently has in this tier. This must be called before the swapper id is freed.
+     */
+    synchronized void disable( int swapperId )
+    {
+        enabled[swapperId] = false;
+        epochs[swapperId]++;
+    }
+
+    /**
+     * Store a compressed copy of the given clean page, if its file is enabled, and if the page compresses well enough.
+     * Any existing copy of the page is replaced.
+     *
+     * @param swapperId The swapper id of the file of the page.
+     * @param filePageId The file page id of the page.
+     * @param address The address of the page contents.
+     * @return {@code true} if a compressed copy of the page was stored.
+     */
+    synchronized boolean store( int swapperId, long filePageId, long address )
+    {
+        if ( !enabled[swapperId] )
+        {
+            return false;
+        }
+        long key = key( swapperId, filePageId );
+        index.remove( key );
+        int compressedLength = Lz4BlockCodec.compress( address, cachePageSize, scratch, hashTable );
+        if ( compressedLength > maxCompressedLength )
+        {
+            return false;
+        }
+
+        long entrySize = align( HEADER_SIZE + compressedLength );
+        long offset = head % capacity;
+        if ( offset + entrySize > capacity )
+        {
+            // The entry does not fit in the remainder of the buffer, so we pad it out and wrap around.
+            makeRoom( capacity - offset );
+            if ( capacity - offset >= HEADER_SIZE )
+            {
+                writeHeader( offset, PADDING_KEY, 0, (int) (capacity - offset - HEADER_SIZE) );
+            }
+            head += capacity - offset;
+            offset = 0;
+        }
+        makeRoom( entrySize );
+        writeHeader( offset, key, epochs[swapperId], compressedLength );
+        UnsafeUtil.copyMemory( scratch, buffer + offset + HEADER_SIZE, compressedLength );
+        head += entrySize;
+        index.put( key, (int) (offset >>> 3) );
+        return true;
+    }
+
+    /**
+     * Decompress the copy of the given page into the given address, if this tier has one. The copy is removed from
+     * this tier, since the page is going back into the page cache.
+     *
+     * @param swapperId The swapper id of the file of the page.
+     * @param filePageId The file page id of the page.
+     * @param address The address to decompress the page contents into.
+     * @return {@code true} if the page was found and decompressed, {@code false} if it must be read from the file.
+     */
+    synchronized boolean load( int swapperId, long filePageId, long address )
+    {
+        if ( !enabled[swapperId] )
+        {
+            return false;
+        }
+        long key = key( swapperId, filePageId );
+        int slot = index.remove( key );
+        if ( slot == -1 )
+        {
+            return false;
+        }
+        long entry = buffer + (((long) slot) << 3);
+        if ( UnsafeUtil.getInt( entry + HEADER_EPOCH_OFFSET ) != epochs[swapperId] )
+        {
+            return false;
+        }
+        int compressedLength = UnsafeUtil.getInt( entry + HEADER_LENGTH_OFFSET );
+        Lz4BlockCodec.decompress( entry + HEADER_SIZE, compressedLength, address, cachePageSize );
+        return true;
+    }
+
+    /**
+     * @return the number of compressed pages currently in this tier.
+     */
+    synchronized int size()
+    {
+        return index.size();
+    }
+
+    /**
+     * Discard the oldest entries until there are at least the given number of free bytes after the head.
+     */
+    private void makeRoom( long bytes )
+    {
+        while ( capacity - (head - tail) < bytes )
+        {
+            long offset = tail % capacity;
+            long remaining = capacity - offset;
+            if ( remaining < HEADER_SIZE )
+            {
+                // Too small for a header, so the head wrapped around without writing a padding entry here.
+                tail += remaining;
+                continue;
+            }
+            long entry = buffer + offset;
+            long key = UnsafeUtil.getLong( entry );
+            long entrySize = align( HEADER_SIZE + UnsafeUtil.getInt( entry + HEADER_LENGTH_OFFSET ) );
+            if ( key != PADDING_KEY && index.get( key ) == (int) (offset >>> 3) )
+            {
+                // Only remove the index entry if it still points to this copy, and not to a newer one.
+                index.remove( key );
+            }
+            tail += entrySize;
+        }
+    }
+
+    private void writeHeader( long offset, long key, int epoch, int length )
+    {
+        long entry = buffer + offset;
+        UnsafeUtil.putLong( entry, key );
+        UnsafeUtil.putInt( entry + HEADER_EPOCH_OFFSET, epoch );
+        UnsafeUtil.putInt( entry + HEADER_LENGTH_OFFSET, length );
+    }
+
+    private static long key( int swapperId, long filePageId )
+    {
+        return (filePageId << SWAPPER_ID_BITS) | swapperId;
+    }
+
+    private static long align( long size )
+    {
+        return (size + 7) & ~7L;
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policies that the {@link MuninnPageCache} can use, for deciding which pages to evict when it runs out
+ * of free pages.
+ */
+public enum EvictionPolicy
+{
+    /**
+     * The classic CLOCK algorithm. The clock arm sweeps over all pages and decrements their usage counters, and pages
+     * are evicted when their usage counter reaches zero. Page pins increment the usage counters to a maximum of 4.
+     */
+    CLOCK,
+
+    /**
+     * A scan-resistant and frequency-aware variant of the CLOCK algorithm, inspired by the TinyLFU admission filter.
+     * <p>
+     * An approximate history of how often file pages have been faulted in is kept in a {@link FrequencySketch}.
+     * Pages that are faulted in for the first time in recent history, such as the pages touched by a large sequential
+     * scan, are admitted on probation with a usage counter of zero, which makes them the first to go when the clock
+     * arm comes around. Pages that keep being faulted back in after eviction, are given a second chance by the
+     * background eviction thread, when their usage counter reaches zero. Together, this prevents one-off scans from
+     * flushing the frequently used working set out of the cache.
+     */
+    TINY_LFU
+}
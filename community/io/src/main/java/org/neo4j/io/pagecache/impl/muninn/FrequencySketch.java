@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * A compact and approximate histogram of how frequently file pages are faulted into the page cache. This is used by
+ * the {@link EvictionPolicy#TINY_LFU} eviction policy to tell pages that are re-referenced across evictions apart from
+ * pages that are only touched once.
+ * <p>
+ * The histogram is a count-min sketch with four rows of 4-bit counters, that are packed 16 to a {@code long}. Once
+ * the number of recorded increments reach the sample size, all counters are halved. This way the frequencies age over
+ * time, and the pages that were popular a long time ago are eventually forgotten.
+ * <p>
+ * The sketch is intentionally left benignly racy for performance, just like the usage counters in the
+ * {@link PageList}. Lost updates only make the frequency estimates slightly less accurate.
+ */
+final class FrequencySketch
+{
+    // Large odd constants used for deriving the independent row hashes from the page key.
+    private static final long[] SEEDS = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final long ONE_MASK = 0x1111_1111_1111_1111L;
+    private static final int MAX_TABLE_LENGTH = 1 << 22; // 32 MiB of counters is enough for very large caches.
+    private static final int MAX_FREQUENCY = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int size;
+
+    /**
+     * @param pageCount the number of pages in the page cache that this sketch is tracking frequencies for.
+     */
+    FrequencySketch( int pageCount )
+    {
+        int length = ceilingPowerOfTwo( Math.max( pageCount / 4, 16 ) );
+        length = Math.min( length, MAX_TABLE_LENGTH );
+        table = new long[length];
+        tableMask = length - 1;
+        sampleSize = (int) Math.min( 10L * Math.max( pageCount, 16 ), Integer.MAX_VALUE );
+    }
+
+    private static int ceilingPowerOfTwo( int value )
+    {
+        return 1 << -Integer.numberOfLeadingZeros( value - 1 );
+    }
+
+    /**
+     * Record that the given file page has been faulted in.
+     */
+    void increment( int swapperId, long filePageId )
+    {
+        long hash = spread( swapperId, filePageId );
+        int start = ((int) hash & 3) << 2;
+        boolean added = false;
+        for ( int i = 0; i < 4; i++ )
+        {
+            added |= incrementAt( indexOf( hash, i ), start + i );
+        }
+        if ( added && ++size >= sampleSize )
+        {
+            reset();
+        }
+    }
+
+    /**
+     * @return the estimated number of times the given file page has been faulted in, in recent history. At most 15.
+     */
+    int frequency( int swapperId, long filePageId )
+    {
+        long hash = spread( swapperId, filePageId );
+        int start = ((int) hash & 3) << 2;
+        int frequency = MAX_FREQUENCY;
+        for ( int i = 0; i < 4; i++ )
+        {
+            int offset = (start + i) << 2;
+            int count = (int) ((table[indexOf( hash, i )] >>> offset) & 0xfL);
+            frequency = Math.min( frequency, count );
+        }
+        return frequency;
+    }
+
+    private boolean incrementAt( int index, int counter )
+    {
+        int offset = counter << 2;
+        long mask = 0xfL << offset;
+        long word = table[index];
+        if ( (word & mask) != mask )
+        {
+            table[index] = word + (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Halve all the counters, to age the recorded frequencies.
+     */
+    private void reset()
+    {
+        int oddCounters = 0;
+        for ( int i = 0; i < table.length; i++ )
+        {
+            oddCounters += Long.bitCount( table[i] & ONE_MASK );
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size >>> 1) - (oddCounters >>> 2);
+    }
+
+    private int indexOf( long hash, int row )
+    {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return ((int) h) & tableMask;
+    }
+
+    private static long spread( int swapperId, long filePageId )
+    {
+        long h = filePageId * 0x9E3779B97F4A7C15L + swapperId;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+}
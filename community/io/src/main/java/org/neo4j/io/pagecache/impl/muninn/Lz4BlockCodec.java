@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.Arrays;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+/**
+ * A compressor and decompressor for the LZ4 block format, that works directly on off-heap memory.
+ * <p>
+ * The compressor is a simple greedy single-pass matcher, with a hash table of the positions of recently seen 4-byte
+ * sequences. It favours speed over compression ratio, since it is used on the page eviction and page fault paths.
+ * <p>
+ * The compressed block is a sequence of LZ4 sequences, each consisting of a token byte with the literal length in the
+ * high nibble and the match length (minus 4) in the low nibble, optional extra literal length bytes, the literals, a
+ * 2-byte little endian match offset, and optional extra match length bytes. The last sequence has only literals.
+ */
+final class Lz4BlockCodec
+{
+    private static final int HASH_LOG = 12;
+    static final int HASH_TABLE_SIZE = 1 << HASH_LOG;
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5; // The last 5 bytes are always literals.
+    private static final int MF_LIMIT = 12; // The last match must start at least 12 bytes before the end.
+    private static final int MAX_DISTANCE = (1 << 16) - 1;
+    private static final int RUN_MASK = 15;
+
+    private Lz4BlockCodec()
+    {
+    }
+
+    /**
+     * @return the size of a buffer that is guaranteed to be big enough to hold the compressed form of the given
+     * number of bytes.
+     */
+    static int maxCompressedLength( int length )
+    {
+        return length + length / 255 + 16;
+    }
+
+    /**
+     * Compress the given number of bytes from the source address, into the destination address.
+     *
+     * @param src The address of the bytes to compress.
+     * @param length The number of bytes to compress.
+     * @param dst The address to write the compressed bytes to. There must be room for at least
+     * {@link #maxCompressedLength(int)} bytes.
+     * @param hashTable Scratch space for the compressor, of length {@link #HASH_TABLE_SIZE}.
+     * @return The compressed length.
+     */
+    static int compress( long src, int length, long dst, int[] hashTable )
+    {
+        Arrays.fill( hashTable, -1 );
+        int anchor = 0;
+        int op = 0;
+        int ip = 0;
+        int matchLimit = length - LAST_LITERALS;
+        int mfLimit = length - MF_LIMIT;
+
+        while ( ip < mfLimit )
+        {
+            int sequence = UnsafeUtil.getInt( src + ip );
+            int hash = hash( sequence );
+            int ref = hashTable[hash];
+            hashTable[hash] = ip;
+            if ( ref < 0 || ip - ref > MAX_DISTANCE || UnsafeUtil.getInt( src + ref ) != sequence )
+            {
+                ip++;
+                continue;
+            }
+
+            // Extend the match backwards, into the literals, and then forwards.
+            while ( ip > anchor && ref > 0 && UnsafeUtil.getByte( src + ip - 1 ) == UnsafeUtil.getByte( src + ref - 1 ) )
+            {
+                ip--;
+                ref--;
+            }
+            int matchLength = MIN_MATCH;
+            while ( ip + matchLength + Long.BYTES <= matchLimit &&
+                    UnsafeUtil.getLong( src + ip + matchLength ) == UnsafeUtil.getLong( src + ref + matchLength ) )
+            {
+                matchLength += Long.BYTES;
+            }
+            while ( ip + matchLength < matchLimit &&
+                    UnsafeUtil.getByte( src + ip + matchLength ) == UnsafeUtil.getByte( src + ref + matchLength ) )
+            {
+                matchLength++;
+            }
+
+            int literalLength = ip - anchor;
+            int matchRun = matchLength - MIN_MATCH;
+            UnsafeUtil.putByte( dst + op++,
+                    (byte) ((Math.min( literalLength, RUN_MASK ) << 4) | Math.min( matchRun, RUN_MASK )) );
+            op = writeRunLength( dst, op, literalLength );
+            UnsafeUtil.copyMemory( src + anchor, dst + op, literalLength );
+            op += literalLength;
+            int offset = ip - ref;
+            UnsafeUtil.putByte( dst + op++, (byte) offset );
+            UnsafeUtil.putByte( dst + op++, (byte) (offset >>> 8) );
+            op = writeRunLength( dst, op, matchRun );
+
+            ip += matchLength;
+            anchor = ip;
+        }
+
+        int literalLength = length - anchor;
+        UnsafeUtil.putByte( dst + op++, (byte) (Math.min( literalLength, RUN_MASK ) << 4) );
+        op = writeRunLength( dst, op, literalLength );
+        UnsafeUtil.copyMemory( src + anchor, dst + op, literalLength );
+        op += literalLength;
+        return op;
+    }
+
+    private static int hash( int sequence )
+    {
+        return (sequence * -1640531535) >>> (Integer.SIZE - HASH_LOG);
+    }
+
+    private static int writeRunLength( long dst, int op, int length )
+    {
+        if ( length >= RUN_MASK )
+        {
+            int remaining = length - RUN_MASK;
+            while ( remaining >= 255 )
+            {
+                UnsafeUtil.putByte( dst + op++, (byte) 255 );
+                remaining -= 255;
+            }
+            UnsafeUtil.putByte( dst + op++, (byte) remaining );
+        }
+        return op;
+    }
+
+    /**
+     * Decompress the given compressed bytes from the source address, into the destination address.
+     *
+     * @param src The address of the compressed bytes.
+     * @param compressedLength The number of compressed bytes.
+     * @param dst The address to write the decompressed bytes to.
+     * @param length The exact number of bytes that the compressed bytes decompress to.
+     * @throws IllegalStateException if the compressed bytes are malformed, or do not decompress to exactly the given
+     * number of bytes.
+     */
+    static void decompress( long src, int compressedLength, long dst, int length )
+    {
+        int ip = 0;
+        int op = 0;
+        while ( ip < compressedLength )
+        {
+            int token = UnsafeUtil.getByte( src + ip++ ) & 0xFF;
+            int literalLength = token >>> 4;
+            if ( literalLength == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    checkBounds( ip < compressedLength );
+                    b = UnsafeUtil.getByte( src + ip++ ) & 0xFF;
+                    literalLength += b;
+                }
+                while ( b == 255 );
+            }
+            checkBounds( ip + literalLength <= compressedLength && op + literalLength <= length );
+            UnsafeUtil.copyMemory( src + ip, dst + op, literalLength );
+            ip += literalLength;
+            op += literalLength;
+            if ( ip == compressedLength )
+            {
+                break; // The last sequence has no match.
+            }
+
+            checkBounds( ip + 2 <= compressedLength );
+            int offset = (UnsafeUtil.getByte( src + ip ) & 0xFF) | ((UnsafeUtil.getByte( src + ip + 1 ) & 0xFF) << 8);
+            ip += 2;
+            int matchLength = token & RUN_MASK;
+            if ( matchLength == RUN_MASK )
+            {
+                int b;
+                do
+                {
+                    checkBounds( ip < compressedLength );
+                    b = UnsafeUtil.getByte( src + ip++ ) & 0xFF;
+                    matchLength += b;
+                }
+                while ( b == 255 );
+            }
+            matchLength += MIN_MATCH;
+            checkBounds( offset > 0 && offset <= op && op + matchLength <= length );
+            if ( offset >= matchLength )
+            {
+                UnsafeUtil.copyMemory( dst + op - offset, dst + op, matchLength );
+            }
+            else
+            {
+                // The match overlaps the bytes it produces, so it must be copied byte by byte.
+                for ( int i = 0; i < matchLength; i++ )
+                {
+                    UnsafeUtil.putByte( dst + op + i, UnsafeUtil.getByte( dst + op - offset + i ) );
+                }
+            }
+            op += matchLength;
+        }
+        checkBounds( op == length );
+    }
+
+    private static void checkBounds( boolean inBounds )
+    {
+        if ( !inBounds )
+        {
+            throw new IllegalStateException( "Malformed LZ4 compressed block" );
+        }
+    }
+}
@@ -24,6 +24,7 @@ import java.io.IOException;
 import java.io.UncheckedIOException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
@@ -37,6 +38,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageCacheQuota;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.FileIsMappedException;
@@ -117,6 +119,23 @@ public class MuninnPageCache implements PageCache
     private static final int cooperativeEvictionLiveLockThreshold = getInteger(
             MuninnPageCache.class, "cooperativeEvictionLiveLockThreshold", 100 );
 
+    // When using the TINY_LFU eviction policy, pages that have been faulted in at least this many times in recent
+    // history, are considered frequently used, and will be given a second chance by the background eviction thread.
+    private static final int frequentPageThreshold = getInteger(
+            MuninnPageCache.class, "frequentPageThreshold", 3 );
+
+    // The number of pages ahead of the eviction clock arm, that the background flusher keeps clean.
+    private static final int backgroundFlushAheadPages = getInteger(
+            MuninnPageCache.class, "backgroundFlushAheadPages", 1024 );
+
+    // The max number of adjacent dirty pages that the background flusher will write with a single vectored write.
+    private static final int backgroundFlushMaxVectorPages = getInteger(
+            MuninnPageCache.class, "backgroundFlushMaxVectorPages", 64 );
+
+    // The page quotas of all mapped files must add up to no more than this share of the page cache, so that the
+    // unreserved files always have some memory to work with.
+    private static final double maxReservedShare = 0.9;
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     @SuppressWarnings( "ThrowableInstanceNeverThrown" )
     private static final IOException oomException = new IOException(
@@ -152,6 +171,11 @@ public class MuninnPageCache implements PageCache
     private final int keepFree;
     private final PageCacheTracer pageCacheTracer;
     private final PageCursorTracerSupplier pageCursorTracerSupplier;
+    // The page fault frequency histogram used by the TINY_LFU eviction policy, or null for the CLOCK policy.
+    private final FrequencySketch frequencySketch;
+    // Whether to run a background thread that flushes the dirty pages just ahead of the eviction clock arm, so that
+    // eviction rarely has to flush pages itself.
+    private final boolean backgroundFlushing;
     final PageList pages;
     // All PageCursors are initialised with their pointers pointing to the victim page. This way, we don't have to throw
     // exceptions on bounds checking failures; we can instead return the victim page pointer, and permit the page
@@ -170,6 +194,13 @@ public class MuninnPageCache implements PageCache
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
+    // The mapped files indexed by their swapper id, so eviction can quickly find the priority and quota of the file
+    // that a page is bound to. Writes guarded by synchronized(this), reads can be unsynchronized.
+    private volatile MuninnPagedFile[] filesBySwapperId = new MuninnPagedFile[0];
+
+    // The tier of compressed copies of evicted pages, or null if the page cache has no compressed tier.
+    final CompressedPageTier compressedTier;
+
     // The thread that runs the eviction algorithm. We unpark this when we've run out of
     // free pages to grab.
     private volatile Thread evictionThread;
@@ -180,6 +211,12 @@ public class MuninnPageCache implements PageCache
     // threads scheduling meta-data in the OS kernel.
     private volatile boolean evictorParked;
     private volatile IOException evictorException;
+    // The position of the clock arm of the background eviction thread, as of its last eviction run. The background
+    // flusher keeps the pages just ahead of this position clean.
+    private volatile int evictionClockArm;
+
+    // The thread that runs the background flusher, if background flushing is enabled.
+    private volatile Thread flushThread;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
@@ -205,6 +242,112 @@ public class MuninnPageCache implements PageCache
             int cachePageSize,
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier,
+                EvictionPolicy.CLOCK );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy used for deciding which pages to evict
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier, evictionPolicy, 0 );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy used for deciding which pages to evict
+     * @param compressedTierBytes the number of bytes of memory to use for keeping compressed copies of evicted pages
+     * from files mapped with {@link PageCacheOpenOptions#COMPRESSED}, or zero to not keep any compressed pages
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy,
+            long compressedTierBytes )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier, evictionPolicy,
+                compressedTierBytes, false );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy used for deciding which pages to evict
+     * @param compressedTierBytes the number of bytes of memory to use for keeping compressed copies of evicted pages
+     * from files mapped with {@link PageCacheOpenOptions#COMPRESSED}, or zero to not keep any compressed pages
+     * @param backgroundFlushing whether to flush the dirty pages ahead of eviction in a background thread, so page
+     * faulting threads that evict pages rarely have to wait for them to be written
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy,
+            long compressedTierBytes,
+            boolean backgroundFlushing )
+    {
+        this( swapperFactory, maxPages, cachePageSize, pageCacheTracer, pageCursorTracerSupplier, evictionPolicy,
+                compressedTierBytes, backgroundFlushing, false );
+    }
+
+    /**
+     * Create page cache
+     * @param swapperFactory page cache swapper factory
+     * @param maxPages maximum number of pages
+     * @param cachePageSize page cache size
+     * @param pageCacheTracer global page cache tracer
+     * @param pageCursorTracerSupplier supplier of thread local (transaction local) page cursor tracer that will provide
+     * thread local page cache statistics
+     * @param evictionPolicy the policy used for deciding which pages to evict
+     * @param compressedTierBytes the number of bytes of memory to use for keeping compressed copies of evicted pages
+     * from files mapped with {@link PageCacheOpenOptions#COMPRESSED}, or zero to not keep any compressed pages
+     * @param backgroundFlushing whether to flush the dirty pages ahead of eviction in a background thread, so page
+     * faulting threads that evict pages rarely have to wait for them to be written
+     * @param hugePageAlignedMemory whether to allocate the page memory in large chunks that are aligned to 2 MiB huge
+     * page boundaries, so that transparent huge pages can back the page cache memory, and the cost of TLB misses on
+     * large caches is reduced
+     */
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheTracer pageCacheTracer,
+            PageCursorTracerSupplier pageCursorTracerSupplier,
+            EvictionPolicy evictionPolicy,
+            long compressedTierBytes,
+            boolean backgroundFlushing,
+            boolean hugePageAlignedMemory )
     {
         verifyHacks();
         verifyCachePageSizeIsPowerOfTwo( cachePageSize );
@@ -217,15 +360,20 @@ public class MuninnPageCache implements PageCache
         this.pageCacheTracer = pageCacheTracer;
         this.pageCursorTracerSupplier = pageCursorTracerSupplier;
         this.printExceptionsOnClose = true;
+        this.frequencySketch = evictionPolicy == EvictionPolicy.TINY_LFU ? new FrequencySketch( maxPages ) : null;
+        this.backgroundFlushing = backgroundFlushing;
 
         long alignment = swapperFactory.getRequiredBufferAlignment();
         long expectedMaxMemory = ((long) maxPages) * cachePageSize; // cast to long prevents overflow
-        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment );
+        MemoryManager memoryManager = new MemoryManager( expectedMaxMemory, alignment, hugePageAlignedMemory );
         this.victimPage = VictimPageReference.getVictimPage( cachePageSize );
 
         this.pages = new PageList( maxPages, cachePageSize, memoryManager, new SwapperSet(), victimPage );
+        this.compressedTier = compressedTierBytes > 0 ? new CompressedPageTier( compressedTierBytes, cachePageSize,
+                new MemoryManager( compressedTierBytes, Long.BYTES ) ) : null;
 
         setFreelistHead( new AtomicInteger() );
+        pageCacheTracer.evictionPolicy( evictionPolicy.name() );
     }
 
     private static void verifyHacks()
@@ -271,6 +419,9 @@ public class MuninnPageCache implements PageCache
         boolean truncateExisting = false;
         boolean deleteOnClose = false;
         boolean anyPageSize = false;
+        int priority = MuninnPagedFile.PRIORITY_NORMAL;
+        long reservedPages = 0;
+        boolean compressed = false;
         for ( OpenOption option : openOptions )
         {
             if ( option.equals( StandardOpenOption.CREATE ) )
@@ -289,6 +440,22 @@ public class MuninnPageCache implements PageCache
             {
                 anyPageSize = true;
             }
+            else if ( option.equals( PageCacheOpenOptions.HIGH_PRIORITY ) )
+            {
+                priority = MuninnPagedFile.PRIORITY_HIGH;
+            }
+            else if ( option.equals( PageCacheOpenOptions.LOW_PRIORITY ) )
+            {
+                priority = MuninnPagedFile.PRIORITY_LOW;
+            }
+            else if ( option.equals( PageCacheOpenOptions.COMPRESSED ) )
+            {
+                compressed = true;
+            }
+            else if ( option instanceof PageCacheQuota )
+            {
+                reservedPages = ((PageCacheQuota) option).reservedPages( maxCachedPages() );
+            }
             else if ( !ignoredOpenOptions.contains( option ) )
             {
                 throw new UnsupportedOperationException( "Unsupported OpenOption: " + option );
@@ -330,6 +497,11 @@ public class MuninnPageCache implements PageCache
                     Long.BYTES + " bytes" );
         }
 
+        if ( reservedPages > 0 )
+        {
+            verifyReservedPagesAvailable( file, reservedPages );
+        }
+
         // there was no existing mapping
         MuninnPagedFile pagedFile = new MuninnPagedFile(
                 file,
@@ -339,16 +511,67 @@ public class MuninnPageCache implements PageCache
                 pageCacheTracer,
                 pageCursorTracerSupplier,
                 createIfNotExists,
-                truncateExisting );
+                truncateExisting,
+                priority,
+                reservedPages,
+                compressed );
+        if ( compressed && compressedTier != null )
+        {
+            compressedTier.enable( pagedFile.swapperId );
+        }
         pagedFile.incrementRefCount();
         pagedFile.markDeleteOnClose( deleteOnClose );
         current = new FileMapping( file, pagedFile );
         current.next = mappedFiles;
         mappedFiles = current;
+        indexBySwapperId( pagedFile );
         pageCacheTracer.mappedFile( file );
         return pagedFile;
     }
 
+    private void verifyReservedPagesAvailable( File file, long reservedPages )
+    {
+        long totalReserved = reservedPages;
+        for ( FileMapping mapping = mappedFiles; mapping != null; mapping = mapping.next )
+        {
+            totalReserved += mapping.pagedFile.reservedPages();
+        }
+        long maxReserved = (long) (maxCachedPages() * maxReservedShare);
+        if ( totalReserved > maxReserved )
+        {
+            throw new IllegalArgumentException(
+                    "Cannot map file " + file + " with a quota of " + reservedPages + " pages, because that would " +
+                    "reserve " + totalReserved + " pages in total, which is more than the " + maxReserved +
+                    " pages that can be reserved in this page cache." );
+        }
+    }
+
+    /**
+     * Note: Must be called while synchronizing on the MuninnPageCache instance.
+     */
+    private void indexBySwapperId( MuninnPagedFile pagedFile )
+    {
+        MuninnPagedFile[] files = filesBySwapperId;
+        int swapperId = pagedFile.swapperId;
+        if ( files.length <= swapperId )
+        {
+            files = Arrays.copyOf( files, swapperId + 1 );
+        }
+        files[swapperId] = pagedFile;
+        filesBySwapperId = files; // Volatile store synchronizes-with loads in fileOf.
+    }
+
+    /**
+     * Get the mapped file that the given page is bound to, or {@code null} if the page is not bound to any file that
+     * is currently mapped.
+     */
+    private MuninnPagedFile fileOf( long pageRef )
+    {
+        int swapperId = pages.getSwapperId( pageRef );
+        MuninnPagedFile[] files = filesBySwapperId;
+        return swapperId < files.length ? files[swapperId] : null;
+    }
+
     @Override
     public synchronized Optional<PagedFile> getExistingMapping( File file ) throws IOException
     {
@@ -365,6 +588,24 @@ public class MuninnPageCache implements PageCache
         return Optional.empty();
     }
 
+    @Override
+    public synchronized List<PagedFile> listExistingMappings() throws IOException
+    {
+        assertHealthy();
+        ensureThreadsInitialised();
+
+        List<PagedFile> list = new ArrayList<>();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            MuninnPagedFile pagedFile = current.pagedFile;
+            pagedFile.incrementRefCount();
+            list.add( pagedFile );
+            current = current.next;
+        }
+        return list;
+    }
+
     private MuninnPagedFile tryGetMappingOrNull( File file ) throws IOException
     {
         FileMapping current = mappedFiles;
@@ -405,6 +646,10 @@ public class MuninnPageCache implements PageCache
         try
         {
             backgroundThreadExecutor.execute( new EvictionTask( this ) );
+            if ( backgroundFlushing )
+            {
+                backgroundThreadExecutor.execute( new FlushTask( this ) );
+            }
         }
         catch ( Exception e )
         {
@@ -443,6 +688,13 @@ public class MuninnPageCache implements PageCache
                         prev.next = current.next;
                     }
                     pageCacheTracer.unmappedFile( current.file );
+                    MuninnPagedFile[] files = filesBySwapperId;
+                    if ( files[file.swapperId] == file )
+                    {
+                        files[file.swapperId] = null;
+                        filesBySwapperId = files;
+                    }
+                    file.awaitReadAheads();
                     flushAndCloseWithoutFail( file );
                     break;
                 }
@@ -554,6 +806,8 @@ public class MuninnPageCache implements PageCache
 
         interrupt( evictionThread );
         evictionThread = null;
+        interrupt( flushThread );
+        flushThread = null;
 
         // Close the page swapper factory last. If this fails then we will still consider ourselves closed.
         swapperFactory.close();
@@ -615,6 +869,61 @@ public class MuninnPageCache implements PageCache
         return pageCacheId;
     }
 
+    /**
+     * Called by page faulting threads once the given page has been faulted in and pinned. With the TINY_LFU eviction
+     * policy, this records the fault in the frequency sketch, and puts pages that have not been faulted in recently on
+     * probation, by clearing their usage counter.
+     */
+    void pageFaulted( long pageRef, int swapperId, long filePageId )
+    {
+        FrequencySketch sketch = frequencySketch;
+        if ( sketch != null )
+        {
+            sketch.increment( swapperId, filePageId );
+            if ( sketch.frequency( swapperId, filePageId ) <= 1 )
+            {
+                pages.clearUsage( pageRef );
+            }
+        }
+    }
+
+    /**
+     * Age the given page by decrementing its usage counter, and decide if the clock arm should try to evict it.
+     * Pages from low priority files age twice as fast as other pages, and pages from files that are within their
+     * quota are never evicted.
+     */
+    private boolean isEvictionCandidate( long pageRef )
+    {
+        MuninnPagedFile file = fileOf( pageRef );
+        if ( file != null && file.priority == MuninnPagedFile.PRIORITY_LOW )
+        {
+            pages.decrementUsage( pageRef );
+        }
+        return pages.decrementUsage( pageRef ) && (file == null || !file.isWithinQuota());
+    }
+
+    /**
+     * Decide if the given page, whose usage counter has reached zero, should be given a second chance by the clock
+     * arm. This happens for pages from high priority files, and, with the TINY_LFU eviction policy, for pages that
+     * are frequently faulted in.
+     */
+    private boolean shouldReprieve( long pageRef )
+    {
+        MuninnPagedFile file = fileOf( pageRef );
+        boolean reprieve = file != null && file.priority == MuninnPagedFile.PRIORITY_HIGH;
+        FrequencySketch sketch = frequencySketch;
+        if ( !reprieve && sketch != null )
+        {
+            long filePageId = pages.getFilePageId( pageRef );
+            reprieve = sketch.frequency( pages.getSwapperId( pageRef ), filePageId ) >= frequentPageThreshold;
+        }
+        if ( reprieve )
+        {
+            pages.incrementUsage( pageRef );
+        }
+        return reprieve;
+    }
+
     long grabFreeAndExclusivelyLockedPage( PageFaultEvent faultEvent ) throws IOException
     {
         // Review the comment on the freelist field before making changes to
@@ -707,7 +1016,7 @@ public class MuninnPageCache implements PageCache
             }
 
             pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && isEvictionCandidate( pageRef ) )
             {
                 evicted = pages.tryEvict( pageRef, faultEvent );
             }
@@ -784,6 +1093,7 @@ public class MuninnPageCache implements PageCache
             {
                 clockArm = evictPages( pageCountToEvict, clockArm, evictionRunEvent );
             }
+            evictionClockArm = clockArm;
         }
 
         // The last thing we do, is signalling the shutdown of the cache via
@@ -832,6 +1142,9 @@ public class MuninnPageCache implements PageCache
 
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
+        // Hand out at most one full lap of reprieves per eviction run, so we are guaranteed to make progress even when
+        // all pages are frequently used.
+        int reprieves = pages.getPageCount();
         while ( pageCountToEvict > 0 && !closed )
         {
             if ( clockArm == pages.getPageCount() )
@@ -846,8 +1159,14 @@ public class MuninnPageCache implements PageCache
             }
 
             long pageRef = pages.deref( clockArm );
-            if ( pages.isLoaded( pageRef ) && pages.decrementUsage( pageRef ) )
+            if ( pages.isLoaded( pageRef ) && isEvictionCandidate( pageRef ) )
             {
+                if ( reprieves > 0 && shouldReprieve( pageRef ) )
+                {
+                    reprieves--;
+                    clockArm++;
+                    continue;
+                }
                 try
                 {
                     if ( pages.tryEvict( pageRef, evictionRunEvent ) )
@@ -878,7 +1197,74 @@ public class MuninnPageCache implements PageCache
         return clockArm;
     }
 
-    private void addFreePageToFreelist( long pageRef )
+    /**
+     * Continuously flush the dirty pages that are just ahead of the clock arm of the eviction thread, so that the
+     * eviction thread, and the page faulting threads that have to cooperatively evict pages, mostly find clean pages
+     * to evict. Dirty pages that are adjacent in their file, are flushed together with vectored writes.
+     * <p>
+     * The flusher only does any work once the page cache has filled up, and eviction has started.
+     */
+    void continuouslyFlushPages()
+    {
+        flushThread = Thread.currentThread();
+        int vectorPages = Math.max( 1, backgroundFlushMaxVectorPages );
+        long[] pageRefs = new long[vectorPages];
+        long[] flushStamps = new long[vectorPages];
+        long[] bufferAddresses = new long[vectorPages];
+        long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
+
+        while ( !closed )
+        {
+            LockSupport.parkNanos( this, parkNanos );
+            if ( Thread.interrupted() || closed )
+            {
+                continue;
+            }
+            Object freelistHead = getFreelistHead();
+            if ( freelistHead == null || freelistHead.getClass() == FreePage.class )
+            {
+                flushPagesAheadOfEviction( pageRefs, flushStamps, bufferAddresses );
+            }
+        }
+    }
+
+    int flushPagesAheadOfEviction( long[] pageRefs, long[] flushStamps, long[] bufferAddresses )
+    {
+        int pageCount = pages.getPageCount();
+        int pagesToCheck = Math.min( pageCount, backgroundFlushAheadPages );
+        int clockArm = evictionClockArm;
+        int pagesFlushed = 0;
+        try ( MajorFlushEvent cacheFlush = pageCacheTracer.beginCacheFlush() )
+        {
+            FlushEventOpportunity flushOpportunity = cacheFlush.flushEventOpportunity();
+            for ( int i = 0; i < pagesToCheck && !closed; i++ )
+            {
+                long pageRef = pages.deref( (clockArm + i) % pageCount );
+                if ( !pages.isLoaded( pageRef ) || !pages.isModified( pageRef ) )
+                {
+                    continue;
+                }
+                MuninnPagedFile file = fileOf( pageRef );
+                if ( file != null )
+                {
+                    try
+                    {
+                        pagesFlushed += file.flushAdjacentDirtyPages(
+                                pages.getFilePageId( pageRef ), pageRefs, flushStamps, bufferAddresses,
+                                flushOpportunity );
+                    }
+                    catch ( IOException | IllegalStateException ignore )
+                    {
+                        // The write failed, or the file was unmapped concurrently. Either way, any page that we did
+                        // not manage to flush is still dirty, and eviction will flush it, and report the failure.
+                    }
+                }
+            }
+        }
+        return pagesFlushed;
+    }
+
+    void addFreePageToFreelist( long pageRef )
     {
         Object current;
         FreePage freePage = new FreePage( pageRef );
@@ -32,9 +32,12 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracer;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
 import static org.neo4j.io.pagecache.PagedFile.PF_EAGER_FLUSH;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.UNMAPPED_TTE;
 import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.flag;
+import static org.neo4j.unsafe.impl.internal.dragons.FeatureToggles.getInteger;
 
 abstract class MuninnPageCursor extends PageCursor
 {
@@ -43,6 +46,15 @@ abstract class MuninnPageCursor extends PageCursor
 
     private static final boolean boundsCheck = flag( MuninnPageCursor.class, "boundsCheck", true );
 
+    // Read cursors opened with PF_READ_AHEAD start reading ahead once they have moved sequentially forward through
+    // readAheadSequentialPins pages. With adaptiveReadAhead, all read cursors do this, regardless of the flag.
+    private static final boolean adaptiveReadAhead = flag( MuninnPageCursor.class, "adaptiveReadAhead", false );
+    private static final int readAheadSequentialPins = getInteger(
+            MuninnPageCursor.class, "readAheadSequentialPins", 4 );
+    // The read-ahead window starts out at the min size, and doubles every time it is moved ahead, up to the max size.
+    private static final int readAheadMinPages = getInteger( MuninnPageCursor.class, "readAheadMinPages", 8 );
+    private static final int readAheadMaxPages = getInteger( MuninnPageCursor.class, "readAheadMaxPages", 128 );
+
     // Size of the respective primitive types in bytes.
     private static final int SIZE_OF_BYTE = Byte.BYTES;
     private static final int SIZE_OF_SHORT = Short.BYTES;
@@ -59,6 +71,14 @@ abstract class MuninnPageCursor extends PageCursor
     protected long pageId;
     protected int pf_flags;
     protected boolean eagerFlush;
+    protected boolean noFault;
+    private boolean readAheadHint;
+    // The read-ahead state is deliberately kept when the cursor is closed and returned to the cursor pool, such that
+    // a sequential scan that opens a new cursor for every record, will still be recognised as sequential.
+    private long lastPinnedPageId = UNBOUND_PAGE_ID;
+    private int sequentialPins;
+    private int readAheadWindow;
+    private long readAheadEnd;
     protected long currentPageId;
     protected long nextPageId;
     protected MuninnPageCursor linkedCursor;
@@ -93,6 +113,8 @@ abstract class MuninnPageCursor extends PageCursor
         this.pageId = pageId;
         this.pf_flags = pf_flags;
         this.eagerFlush = (pf_flags & PF_EAGER_FLUSH) == PF_EAGER_FLUSH;
+        this.noFault = (pf_flags & PF_NO_FAULT) == PF_NO_FAULT;
+        this.readAheadHint = (pf_flags & PF_READ_AHEAD) == PF_READ_AHEAD;
     }
 
     @Override
@@ -267,6 +289,50 @@ abstract class MuninnPageCursor extends PageCursor
         }
     }
 
+    /**
+     * Called after a page has been pinned through {@link #next()}, to keep track of whether the cursor is moving
+     * sequentially forward through the file, and if so, to make sure that the pages ahead of the cursor are being read
+     * ahead in the background.
+     * <p>
+     * Like the read-ahead in operating system kernels, the next window of pages is requested when the cursor has come
+     * half way through the current window, so the IO can overlap with the work the cursor is doing. The window starts
+     * out small and doubles every time it is moved, so short sequential runs don't read in a lot of pages that never
+     * get used.
+     */
+    protected final void readAheadIfSequential( long filePageId, long lastPageId )
+    {
+        if ( (!readAheadHint & !adaptiveReadAhead) || filePageId == lastPinnedPageId )
+        {
+            return;
+        }
+        // Skipping forward over pages that are already being read ahead, still counts as moving sequentially.
+        if ( filePageId == lastPinnedPageId + 1 || (filePageId > lastPinnedPageId && filePageId < readAheadEnd) )
+        {
+            sequentialPins++;
+        }
+        else
+        {
+            sequentialPins = 1;
+            readAheadWindow = 0;
+            readAheadEnd = filePageId + 1;
+        }
+        lastPinnedPageId = filePageId;
+
+        boolean sequential = sequentialPins >= readAheadSequentialPins;
+        boolean nearEndOfWindow = filePageId + (readAheadWindow >> 1) >= readAheadEnd;
+        if ( sequential && nearEndOfWindow && readAheadEnd <= lastPageId )
+        {
+            int window = readAheadWindow == 0 ? readAheadMinPages : Math.min( readAheadWindow << 1, readAheadMaxPages );
+            long start = Math.max( readAheadEnd, filePageId + 1 );
+            int readAheadPages = pagedFile.readAhead( start, window );
+            if ( readAheadPages > 0 )
+            {
+                readAheadWindow = readAheadPages;
+                readAheadEnd = start + readAheadPages;
+            }
+        }
+    }
+
     private int[][] expandTranslationTableCapacity( int chunkId )
     {
         return pagedFile.expandCapacity( chunkId );
@@ -274,6 +340,13 @@ abstract class MuninnPageCursor extends PageCursor
 
     private boolean uncommonPin( long filePageId, long chunkOffset, int[] chunk ) throws IOException
     {
+        if ( noFault )
+        {
+            // The page is not in memory, and we've been asked not to fault it in. We leave the cursor unpinned, with
+            // all page access going to the victim page. Since there is no page to unpin, we close the pin event here.
+            pinEvent.done();
+            return true;
+        }
         // Looks like there's no mapping, so we'd like to do a page fault.
         LatchMap.Latch latch = pagedFile.pageFaultLatches.takeOrAwaitLatch( filePageId );
         if ( latch != null )
@@ -287,6 +360,7 @@ abstract class MuninnPageCursor extends PageCursor
                 // Sweet, we didn't race with any other fault on this translation table entry.
                 long pageRef = pageFault( filePageId, swapper, chunkOffset, chunk, latch );
                 pinCursorToPage( pageRef, filePageId, swapper );
+                pagedFile.pageFaulted( pageRef, filePageId );
                 return true;
             }
             // Oops, looks like we raced with another page fault on this file page.
@@ -25,6 +25,8 @@ import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCursor;
@@ -34,17 +36,24 @@ import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.PagedReadableByteChannel;
 import org.neo4j.io.pagecache.impl.PagedWritableByteChannel;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
+import org.neo4j.io.pagecache.tracing.EvictionEvent;
+import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.FlushEvent;
 import org.neo4j.io.pagecache.tracing.FlushEventOpportunity;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.PageFaultEvent;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
 
-final class MuninnPagedFile extends PageList implements PagedFile, Flushable
+final class MuninnPagedFile extends PageList implements PagedFile, Flushable, PagedFileCounters
 {
     static final int UNMAPPED_TTE = -1;
+    static final int PRIORITY_LOW = -1;
+    static final int PRIORITY_NORMAL = 0;
+    static final int PRIORITY_HIGH = 1;
     private static final int translationTableChunkSizePower = Integer.getInteger(
             "org.neo4j.io.pagecache.impl.muninn.MuninnPagedFile.translationTableChunkSizePower", 12 );
     private static final int translationTableChunkSize = 1 << translationTableChunkSizePower;
@@ -52,6 +61,18 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     private static final int translationTableChunkArrayBase = UnsafeUtil.arrayBaseOffset( int[].class );
     private static final int translationTableChunkArrayScale = UnsafeUtil.arrayIndexScale( int[].class );
 
+    // The maximum number of read-ahead tasks that can be running for a single file at the same time. Further
+    // read-ahead requests are ignored, while this many are in flight.
+    private static final int maxConcurrentReadAheads = FeatureToggles.getInteger(
+            MuninnPagedFile.class, "maxConcurrentReadAheads", 4 );
+    // A single read-ahead never covers more than 1/readAheadCacheFraction of the pages in the page cache, and it
+    // only holds exclusive locks on up to readAheadChunkPages pages at a time. Each chunk is faulted in with its own
+    // vectored read, and published before the next chunk is claimed.
+    private static final int readAheadCacheFraction = FeatureToggles.getInteger(
+            MuninnPagedFile.class, "readAheadCacheFraction", 64 );
+    private static final int readAheadChunkPages = FeatureToggles.getInteger(
+            MuninnPagedFile.class, "readAheadChunkPages", 16 );
+
     private static final long headerStateOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "headerState" );
     private static final int headerStateRefCountShift = 48;
@@ -72,6 +93,21 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
     final int swapperId;
     private final CursorPool cursorPool;
 
+    // The eviction priority class of this file; one of the PRIORITY_* constants.
+    final int priority;
+    // The number of pages reserved for this file by its quota. The page cache will not evict pages from this file,
+    // while it has no more than this many pages in memory.
+    final long reservedPages;
+    // The number of pages from this file that are currently in memory. Incremented by page faults, and decremented
+    // by the eviction callback.
+    private final AtomicLong residentPages = new AtomicLong();
+    // The number of read-ahead tasks currently running for this file. The last unmapping waits for this to reach
+    // zero, before closing the swapper.
+    private final AtomicInteger readAheadsInFlight = new AtomicInteger();
+    private final Object readAheadsDone = new Object();
+
+    // True if evicted pages from this file are kept in the compressed page tier of the page cache, if it has one.
+    final boolean compressed;
     // Guarded by the monitor lock on MuninnPageCache (map and unmap)
     private boolean deleteOnClose;
 
@@ -106,6 +142,9 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
      * thread local page cache statistics
      * @param createIfNotExists should create file if it does not exists
      * @param truncateExisting should truncate file if it exists
+     * @param priority the eviction priority class of the file, one of the {@code PRIORITY_*} constants
+     * @param reservedPages the number of pages reserved for this file, or zero if the file has no quota
+     * @param compressed {@code true} if evicted pages from this file should be kept in the compressed page tier
      * @throws IOException If the {@link PageSwapper} could not be created.
      */
     MuninnPagedFile(
@@ -116,10 +155,16 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
             PageCacheTracer pageCacheTracer,
             PageCursorTracerSupplier pageCursorTracerSupplier,
             boolean createIfNotExists,
-            boolean truncateExisting ) throws IOException
+            boolean truncateExisting,
+            int priority,
+            long reservedPages,
+            boolean compressed ) throws IOException
     {
         super( pageCache.pages );
         this.pageCache = pageCache;
+        this.priority = priority;
+        this.reservedPages = reservedPages;
+        this.compressed = compressed;
         this.filePageSize = filePageSize;
         this.cursorPool = new CursorPool( this, pageCursorTracerSupplier, pageCacheTracer );
         this.pageCacheTracer = pageCacheTracer;
@@ -212,13 +257,40 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return (lastPageId + 1) * pageSize();
     }
 
-    File file()
+    @Override
+    public File file()
     {
         return swapper.file();
     }
 
+    @Override
+    public long residentPages()
+    {
+        return residentPages.get();
+    }
+
+    @Override
+    public long reservedPages()
+    {
+        return reservedPages;
+    }
+
+    /**
+     * @return {@code true} if the quota of this file protects its pages from being evicted.
+     */
+    boolean isWithinQuota()
+    {
+        return reservedPages > 0 && residentPages.get() <= reservedPages;
+    }
+
     public void close() throws IOException
     {
+        if ( getRefCount() == 1 )
+        {
+            // This is likely the last unmapping. Let any running read-aheads finish before we take the page cache
+            // monitor, so unmapping does not have to wait for them while other threads are blocked on the monitor.
+            awaitReadAheads();
+        }
         pageCache.unmap( this );
     }
 
@@ -248,6 +320,11 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         {
             swapper.closeAndDelete();
         }
+        CompressedPageTier tier = pageCache.compressedTier;
+        if ( compressed && tier != null )
+        {
+            tier.disable( swapperId );
+        }
         if ( getSwappers().free( swapperId ) )
         {
             // We need to do a vacuum of the cache, fully evicting all pages that have freed swapper ids.
@@ -503,6 +580,83 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return success;
     }
 
+    /**
+     * Flush the dirty page that is bound to the given file page id, together with the dirty pages that are adjacent to
+     * it in the file, with a single vectored write. This is used by the background flusher, so we only take the flush
+     * locks that are immediately available, and never wait for page faults or writers.
+     *
+     * @param filePageId The file page id of a page that is believed to be dirty.
+     * @param pages Scratch array for the page refs of the vector. The length of this array is the max vector length.
+     * @param flushStamps Scratch array for the flush lock stamps, at least as long as the pages array.
+     * @param bufferAddresses Scratch array for the buffer addresses, at least as long as the pages array.
+     * @param flushOpportunity The event opportunity for the flush.
+     * @return The number of pages that were flushed.
+     */
+    int flushAdjacentDirtyPages( long filePageId, long[] pages, long[] flushStamps, long[] bufferAddresses,
+            FlushEventOpportunity flushOpportunity ) throws IOException
+    {
+        int maxPages = pages.length;
+        long lastPageId = getLastPageId();
+        long startFilePageId = filePageId;
+        while ( startFilePageId > 0 && filePageId - startFilePageId < maxPages / 2 &&
+                isDirtyInMemory( startFilePageId - 1 ) )
+        {
+            startFilePageId--;
+        }
+
+        int pagesGrabbed = 0;
+        for ( long id = startFilePageId; id <= lastPageId && pagesGrabbed < maxPages; id++ )
+        {
+            long pageRef = loadedPageRef( id );
+            if ( pageRef == 0 )
+            {
+                break;
+            }
+            long flushStamp = tryFlushLock( pageRef );
+            if ( flushStamp == 0 )
+            {
+                break;
+            }
+            if ( !isBoundTo( pageRef, swapperId, id ) || !isModified( pageRef ) )
+            {
+                unlockFlush( pageRef, flushStamp, false );
+                break;
+            }
+            pages[pagesGrabbed] = pageRef;
+            flushStamps[pagesGrabbed] = flushStamp;
+            bufferAddresses[pagesGrabbed] = getAddress( pageRef );
+            pagesGrabbed++;
+        }
+        if ( pagesGrabbed > 0 )
+        {
+            vectoredFlush( pages, bufferAddresses, flushStamps, pagesGrabbed, flushOpportunity, false );
+        }
+        return pagesGrabbed;
+    }
+
+    private boolean isDirtyInMemory( long filePageId )
+    {
+        long pageRef = loadedPageRef( filePageId );
+        return pageRef != 0 && isModified( pageRef );
+    }
+
+    /**
+     * Look up the page that the given file page id is mapped to in the translation table, without expanding the
+     * table.
+     * @return The page ref of the mapped page, or 0 if the file page is not in memory.
+     */
+    private long loadedPageRef( long filePageId )
+    {
+        int chunkId = computeChunkId( filePageId );
+        int[][] tt = translationTable;
+        if ( chunkId >= tt.length )
+        {
+            return 0;
+        }
+        int pageId = UnsafeUtil.getIntVolatile( tt[chunkId], computeChunkOffset( filePageId ) );
+        return pageId == UNMAPPED_TTE ? 0 : deref( pageId );
+    }
+
     private void syncDevice() throws IOException
     {
         pageCache.syncDevice();
@@ -643,6 +797,261 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         return pageCache.grabFreeAndExclusivelyLockedPage( faultEvent );
     }
 
+    @Override
+    public void fault( long pageRef, PageSwapper swapper, int swapperId, long filePageId, PageFaultEvent event )
+            throws IOException
+    {
+        super.fault( pageRef, swapper, swapperId, filePageId, event );
+        residentPages.incrementAndGet();
+    }
+
+    @Override
+    protected long swapIn( PageSwapper swapper, int swapperId, long filePageId, long address ) throws IOException
+    {
+        CompressedPageTier tier = pageCache.compressedTier;
+        if ( compressed && tier != null && tier.load( swapperId, filePageId, address ) )
+        {
+            return 0; // Nothing was read from the file.
+        }
+        return super.swapIn( swapper, swapperId, filePageId, address );
+    }
+
+    /**
+     * Notify the page cache that the given page has been faulted in and pinned.
+     */
+    void pageFaulted( long pageRef, long filePageId )
+    {
+        pageCache.pageFaulted( pageRef, swapperId, filePageId );
+    }
+
+    @Override
+    public void fault( long[] pageRefs, int length, PageSwapper swapper, int swapperId, long startFilePageId,
+            PageFaultEvent event ) throws IOException
+    {
+        super.fault( pageRefs, length, swapper, swapperId, startFilePageId, event );
+        residentPages.addAndGet( length );
+    }
+
+    /**
+     * Fault in up to the given number of file pages, starting at the given file page id, on a background thread.
+     * <p>
+     * This is only a hint, and the read-ahead stops early at the end of the file, or at the first page that is
+     * already in memory or is being faulted in by someone else. The number of pages is capped to a small fraction of
+     * the page cache, and the pages are faulted in with one vectored read per chunk of pages. The pages are not
+     * pinned, so their usage counters start out at zero. This way, pages that are read ahead but then never used,
+     * are the first candidates for eviction.
+     *
+     * @return the number of pages the started read-ahead covers, or zero if too many read-aheads are already in
+     * flight for this file, or if the file is being unmapped.
+     */
+    int readAhead( long startFilePageId, int pageCount )
+    {
+        if ( readAheadsInFlight.get() >= maxConcurrentReadAheads )
+        {
+            return 0;
+        }
+        int maxPages = Math.max( 1, getPageCount() / readAheadCacheFraction );
+        int windowPages = Math.min( pageCount, maxPages );
+        // Increment before checking the reference count, so unmapping either sees our read-ahead and waits for it,
+        // or we see that the file is being unmapped and back off.
+        readAheadsInFlight.incrementAndGet();
+        boolean started = false;
+        try
+        {
+            if ( getRefCount() > 0 )
+            {
+                BackgroundThreadExecutor.INSTANCE.execute( () ->
+                {
+                    try
+                    {
+                        readAheadPages( startFilePageId, windowPages );
+                    }
+                    catch ( Throwable ignore )
+                    {
+                        // Read-ahead is best-effort. If it fails, then the page will be faulted in when it is pinned,
+                        // and any real problem will surface from there.
+                    }
+                    finally
+                    {
+                        readAheadFinished();
+                    }
+                } );
+                started = true;
+            }
+        }
+        finally
+        {
+            if ( !started )
+            {
+                readAheadFinished();
+            }
+        }
+        return started ? windowPages : 0;
+    }
+
+    private void readAheadPages( long startFilePageId, int pageCount ) throws IOException
+    {
+        long endFilePageId = Math.min( startFilePageId + pageCount, getLastPageId() + 1 );
+        LatchMap.Latch[] latches = new LatchMap.Latch[readAheadChunkPages];
+        long[] pageRefs = new long[readAheadChunkPages];
+        long filePageId = startFilePageId;
+        while ( filePageId < endFilePageId && getRefCount() > 0 )
+        {
+            int length = (int) Math.min( readAheadChunkPages, endFilePageId - filePageId );
+            int claimed = readAheadChunk( filePageId, length, latches, pageRefs );
+            if ( claimed < length )
+            {
+                // We ran into a page that is in memory or being faulted in by someone else; the cursor will take
+                // it from here.
+                return;
+            }
+            filePageId += claimed;
+        }
+    }
+
+    private int readAheadChunk( long startFilePageId, int length, LatchMap.Latch[] latches, long[] pageRefs )
+            throws IOException
+    {
+        // Claim the leading run of file pages that are neither in memory, nor being faulted in by anyone else.
+        int claimed = 0;
+        while ( claimed < length )
+        {
+            long filePageId = startFilePageId + claimed;
+            int[] chunk = chunkFor( filePageId );
+            long chunkOffset = computeChunkOffset( filePageId );
+            if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+            {
+                break;
+            }
+            LatchMap.Latch latch = pageFaultLatches.tryTakeLatch( filePageId );
+            if ( latch == null )
+            {
+                break;
+            }
+            if ( UnsafeUtil.getIntVolatile( chunk, chunkOffset ) != UNMAPPED_TTE )
+            {
+                latch.release();
+                break;
+            }
+            latches[claimed] = latch;
+            claimed++;
+        }
+        if ( claimed == 0 )
+        {
+            return 0;
+        }
+
+        int grabbed = 0;
+        boolean faulting = false;
+        try ( EvictionRunEvent evictionRunEvent = pageCacheTracer.beginPageEvictions( claimed ) )
+        {
+            ReadAheadFaultEvent faultEvent = new ReadAheadFaultEvent( evictionRunEvent );
+            try
+            {
+                while ( grabbed < claimed )
+                {
+                    long pageRef = grabFreeAndExclusivelyLockedPage( faultEvent );
+                    pageRefs[grabbed++] = pageRef;
+                    initBuffer( pageRef );
+                }
+                // Check that we are not racing with unmapping, before we touch the swapper.
+                getLastPageId();
+                faulting = true;
+                fault( pageRefs, claimed, swapper, swapperId, startFilePageId, faultEvent );
+            }
+            catch ( Throwable throwable )
+            {
+                abortReadAhead( pageRefs, grabbed, faulting, latches, claimed );
+                throw throwable;
+            }
+            for ( int i = 0; i < claimed; i++ )
+            {
+                long filePageId = startFilePageId + i;
+                // Publish the page in the translation table before unlocking it, as we could otherwise race with
+                // eviction. See MuninnPageCursor.pageFault.
+                int[] chunk = chunkFor( filePageId );
+                UnsafeUtil.putIntVolatile( chunk, computeChunkOffset( filePageId ), toId( pageRefs[i] ) );
+                unlockExclusive( pageRefs[i] );
+                latches[i].release();
+            }
+            pageCacheTracer.bytesRead( faultEvent.bytesRead );
+            pageCacheTracer.readAheadPages( claimed );
+        }
+        return claimed;
+    }
+
+    private void abortReadAhead( long[] pageRefs, int grabbed, boolean faulting, LatchMap.Latch[] latches, int claimed )
+    {
+        for ( int i = 0; i < grabbed; i++ )
+        {
+            if ( faulting )
+            {
+                // The pages have been assigned file page ids, and are thus considered loaded. Unlock them, so the
+                // eviction thread can pick up our trash.
+                unlockExclusive( pageRefs[i] );
+            }
+            else
+            {
+                // The pages are still free and exclusively locked, just like the pages on the freelist.
+                pageCache.addFreePageToFreelist( pageRefs[i] );
+            }
+        }
+        for ( int i = 0; i < claimed; i++ )
+        {
+            latches[i].release();
+        }
+    }
+
+    private int[] chunkFor( long filePageId )
+    {
+        int chunkId = computeChunkId( filePageId );
+        int[][] tt = translationTable;
+        if ( tt.length <= chunkId )
+        {
+            tt = expandCapacity( chunkId );
+        }
+        return tt[chunkId];
+    }
+
+    private void readAheadFinished()
+    {
+        if ( readAheadsInFlight.decrementAndGet() == 0 )
+        {
+            synchronized ( readAheadsDone )
+            {
+                readAheadsDone.notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Wait for all read-ahead tasks that are running for this file to finish. This is called when the file is
+     * unmapped for the last time, before its swapper is closed. Read-ahead tasks check the reference count between
+     * chunks, so once the file is no longer mapped, they finish after at most one chunk.
+     */
+    void awaitReadAheads()
+    {
+        boolean interrupted = false;
+        synchronized ( readAheadsDone )
+        {
+            while ( readAheadsInFlight.get() > 0 )
+            {
+                try
+                {
+                    readAheadsDone.wait();
+                }
+                catch ( InterruptedException e )
+                {
+                    interrupted = true;
+                }
+            }
+        }
+        if ( interrupted )
+        {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     /**
      * Remove the mapping of the given filePageId from the translation table, and return the evicted page object.
      * @param filePageId The id of the file page to evict.
@@ -652,7 +1061,19 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         int chunkId = computeChunkId( filePageId );
         long chunkOffset = computeChunkOffset( filePageId );
         int[] chunk = translationTable[chunkId];
+        CompressedPageTier tier = pageCache.compressedTier;
+        if ( compressed && tier != null )
+        {
+            // The page is still exclusively locked and clean at this point, so its contents are the same as in the
+            // file, and can be kept in the compressed tier.
+            int pageId = UnsafeUtil.getIntVolatile( chunk, chunkOffset );
+            if ( pageId != UNMAPPED_TTE )
+            {
+                tier.store( swapperId, filePageId, getAddress( deref( pageId ) ) );
+            }
+        }
         UnsafeUtil.putIntVolatile( chunk, chunkOffset, UNMAPPED_TTE );
+        residentPages.decrementAndGet();
     }
 
     /**
@@ -701,4 +1122,46 @@ final class MuninnPagedFile extends PageList implements PagedFile, Flushable
         int index = (int) (filePageId & translationTableChunkSizeMask);
         return UnsafeUtil.arrayOffset( index, translationTableChunkArrayBase, translationTableChunkArrayScale );
     }
+
+    /**
+     * The page fault event of a read-ahead. Read-ahead is not part of any pin, so the evictions it causes are reported
+     * as part of an eviction run instead, and the bytes read are reported to the page cache tracer directly.
+     */
+    private static final class ReadAheadFaultEvent implements PageFaultEvent
+    {
+        private final EvictionRunEvent evictionRunEvent;
+        private long bytesRead;
+
+        ReadAheadFaultEvent( EvictionRunEvent evictionRunEvent )
+        {
+            this.evictionRunEvent = evictionRunEvent;
+        }
+
+        @Override
+        public void addBytesRead( long bytes )
+        {
+            bytesRead += bytes;
+        }
+
+        @Override
+        public void setCachePageId( long cachePageId )
+        {
+        }
+
+        @Override
+        public void done()
+        {
+        }
+
+        @Override
+        public void done( Throwable throwable )
+        {
+        }
+
+        @Override
+        public EvictionEvent beginEviction()
+        {
+            return evictionRunEvent.beginEviction();
+        }
+    }
 }
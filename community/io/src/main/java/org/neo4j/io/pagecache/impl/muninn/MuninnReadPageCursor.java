@@ -57,8 +57,9 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             return false;
         }
         pin( nextPageId, false );
-        currentPageId = nextPageId;
+        currentPageId = pinnedPageRef == 0 ? UNBOUND_PAGE_ID : nextPageId; // no page is pinned with PF_NO_FAULT
         nextPageId++;
+        readAheadIfSequential( currentPageId, lastPageId );
         return true;
     }
 
@@ -78,7 +79,11 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( long pageRef, long filePageId, PageSwapper swapper )
     {
         reset( pageRef );
-        pagedFile.incrementUsage( pageRef );
+        if ( !noFault )
+        {
+            // Cursors that don't fault, like the ones profiling the page cache, must not make pages look hot.
+            pagedFile.incrementUsage( pageRef );
+        }
     }
 
     @Override
@@ -151,6 +156,11 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             pinnedPageRef = 0;
             // Then try pin again.
             pin( currentPageId, false );
+            if ( pinnedPageRef == 0 )
+            {
+                // The page was evicted, and we were not allowed to fault it back in.
+                currentPageId = UNBOUND_PAGE_ID;
+            }
         }
     }
 
@@ -94,7 +94,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             }
         }
         pin( nextPageId, true );
-        currentPageId = nextPageId;
+        currentPageId = pinnedPageRef == 0 ? UNBOUND_PAGE_ID : nextPageId; // no page is pinned with PF_NO_FAULT
         nextPageId++;
         return true;
     }
@@ -123,7 +123,10 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         // after the reset() call, which means that if we throw, the cursor will
         // be closed and the page lock will be released.
         assertPagedFileStillMappedAndGetIdOfLastPage();
-        pagedFile.incrementUsage( pageRef );
+        if ( !noFault )
+        {
+            pagedFile.incrementUsage( pageRef );
+        }
     }
 
     @Override
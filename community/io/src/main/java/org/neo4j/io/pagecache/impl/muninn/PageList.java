@@ -316,6 +316,14 @@ class PageList
         return usage == 0;
     }
 
+    /**
+     * Clear the usage stamp, making the page the next candidate for eviction.
+     **/
+    public void clearUsage( long pageRef )
+    {
+        setUsageCounter( pageRef, (byte) 0 );
+    }
+
     public long getFilePageId( long pageRef )
     {
         return UnsafeUtil.getLong( offFilePageId( pageRef ) );
@@ -368,12 +376,57 @@ class PageList
         // the file page, so any subsequent thread that finds the page in their
         // translation table will re-do the page fault.
         setFilePageId( pageRef, filePageId ); // Page now considered isLoaded()
-        long bytesRead = swapper.read( filePageId, getAddress( pageRef ), cachePageSize );
+        long bytesRead = swapIn( swapper, swapperId, filePageId, getAddress( pageRef ) );
         event.addBytesRead( bytesRead );
         event.setCachePageId( toId( pageRef ) );
         setSwapperId( pageRef, swapperId ); // Page now considered isBoundTo( swapper, filePageId )
     }
 
+    /**
+     * Swap the contents of the given file page into the given page memory.
+     * @return the number of bytes read from the file.
+     */
+    protected long swapIn( PageSwapper swapper, int swapperId, long filePageId, long address ) throws IOException
+    {
+        return swapper.read( filePageId, address, cachePageSize );
+    }
+
+    /**
+     * Fault the given number of consecutive file pages, starting at the given file page id, into the given
+     * exclusively locked and unbound pages, using a single vectored read.
+     */
+    public void fault( long[] pageRefs, int length, PageSwapper swapper, int swapperId, long startFilePageId,
+            PageFaultEvent event ) throws IOException
+    {
+        if ( swapper == null )
+        {
+            throw swapperCannotBeNull();
+        }
+        long[] addresses = new long[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            long pageRef = pageRefs[i];
+            long filePageId = startFilePageId + i;
+            int currentSwapper = getSwapperId( pageRef );
+            long currentFilePageId = getFilePageId( pageRef );
+            if ( filePageId == PageCursor.UNBOUND_PAGE_ID || !isExclusivelyLocked( pageRef )
+                 || currentSwapper != 0 || currentFilePageId != PageCursor.UNBOUND_PAGE_ID )
+            {
+                throw cannotFaultException(
+                        pageRef, swapper, swapperId, filePageId, currentSwapper, currentFilePageId );
+            }
+            // See the single page fault above, for why we assign the filePageId before swapping in.
+            setFilePageId( pageRef, filePageId );
+            addresses[i] = getAddress( pageRef );
+        }
+        long bytesRead = swapper.read( startFilePageId, addresses, cachePageSize, 0, length );
+        event.addBytesRead( bytesRead );
+        for ( int i = 0; i < length; i++ )
+        {
+            setSwapperId( pageRefs[i], swapperId );
+        }
+    }
+
     private static IllegalArgumentException swapperCannotBeNull()
     {
         return new IllegalArgumentException( "swapper cannot be null" );
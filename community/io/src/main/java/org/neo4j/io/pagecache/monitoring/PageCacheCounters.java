@@ -80,8 +80,29 @@ public interface PageCacheCounters
      */
     long evictionExceptions();
 
+    /**
+     * @return The number of pages that have been faulted in by read-ahead thus far.
+     */
+    long readAheadPages();
+
+    /**
+     * @return The total time, in nanoseconds, that cursors have spent waiting for page faults thus far.
+     */
+    long faultNanos();
+
+    /**
+     * @return The number of evictions that had to flush a dirty page, before the page could be evicted, thus far.
+     */
+    long evictionFlushes();
+
     /**
      * @return The cache hit ratio observed thus far.
      */
     double hitRatio();
+
+    /**
+     * @return The name of the eviction policy that the hits, faults and hit ratio have been observed under, or
+     * {@code null} if no page cache has reported its eviction policy.
+     */
+    String evictionPolicy();
 }
@@ -0,0 +1,44 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.File;
+
+/**
+ * The PagedFileCounters exposes how much of the page cache an individual mapped file occupies, compared to the quota
+ * that has been reserved for it.
+ */
+public interface PagedFileCounters
+{
+    /**
+     * @return The mapped file.
+     */
+    File file();
+
+    /**
+     * @return The number of pages from the file that are currently in memory.
+     */
+    long residentPages();
+
+    /**
+     * @return The number of pages that are reserved for the file, or zero if the file has no quota.
+     */
+    long reservedPages();
+}
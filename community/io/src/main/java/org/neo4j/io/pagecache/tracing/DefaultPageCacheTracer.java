@@ -42,6 +42,10 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     protected final LongAdder filesMapped = new LongAdder();
     protected final LongAdder filesUnmapped = new LongAdder();
     protected final LongAdder evictionExceptions = new LongAdder();
+    protected final LongAdder readAheadPages = new LongAdder();
+    protected final LongAdder faultNanos = new LongAdder();
+    protected final LongAdder evictionFlushes = new LongAdder();
+    protected volatile String evictionPolicy;
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -71,6 +75,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
 
     private final FlushEventOpportunity flushEventOpportunity = ( filePageId, cachePageId, swapper ) -> flushEvent;
 
+    private final FlushEventOpportunity evictionFlushEventOpportunity = ( filePageId, cachePageId, swapper ) ->
+    {
+        evictionFlushes.increment();
+        return flushEvent;
+    };
+
     private final EvictionEvent evictionEvent = new EvictionEvent()
     {
         @Override
@@ -86,7 +96,7 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         @Override
         public FlushEventOpportunity flushEventOpportunity()
         {
-            return flushEventOpportunity;
+            return evictionFlushEventOpportunity;
         }
 
         @Override
@@ -147,6 +157,12 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         filesUnmapped.increment();
     }
 
+    @Override
+    public void evictionPolicy( String policyName )
+    {
+        this.evictionPolicy = policyName;
+    }
+
     @Override
     public EvictionRunEvent beginPageEvictions( int pageCountToEvict )
     {
@@ -231,12 +247,36 @@ public class DefaultPageCacheTracer implements PageCacheTracer
         return evictionExceptions.sum();
     }
 
+    @Override
+    public long readAheadPages()
+    {
+        return readAheadPages.sum();
+    }
+
+    @Override
+    public long faultNanos()
+    {
+        return faultNanos.sum();
+    }
+
+    @Override
+    public long evictionFlushes()
+    {
+        return evictionFlushes.sum();
+    }
+
     @Override
     public double hitRatio()
     {
         return MathUtil.portion( hits(), faults() );
     }
 
+    @Override
+    public String evictionPolicy()
+    {
+        return evictionPolicy;
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -290,4 +330,22 @@ public class DefaultPageCacheTracer implements PageCacheTracer
     {
         this.flushes.add( flushes );
     }
+
+    @Override
+    public void readAheadPages( long pages )
+    {
+        this.readAheadPages.add( pages );
+    }
+
+    @Override
+    public void faultNanos( long nanos )
+    {
+        this.faultNanos.add( nanos );
+    }
+
+    @Override
+    public void evictionFlushes( long evictionFlushes )
+    {
+        this.evictionFlushes.add( evictionFlushes );
+    }
 }
@@ -130,12 +130,41 @@ public interface PageCacheTracer extends PageCacheCounters
             return 0;
         }
 
+        @Override
+        public long readAheadPages()
+        {
+            return 0;
+        }
+
+        @Override
+        public long faultNanos()
+        {
+            return 0;
+        }
+
+        @Override
+        public long evictionFlushes()
+        {
+            return 0;
+        }
+
         @Override
         public double hitRatio()
         {
             return 0d;
         }
 
+        @Override
+        public String evictionPolicy()
+        {
+            return null;
+        }
+
+        @Override
+        public void evictionPolicy( String policyName )
+        {
+        }
+
         @Override
         public void pins( long pins )
         {
@@ -181,6 +210,21 @@ public interface PageCacheTracer extends PageCacheCounters
         {
         }
 
+        @Override
+        public void readAheadPages( long pages )
+        {
+        }
+
+        @Override
+        public void faultNanos( long nanos )
+        {
+        }
+
+        @Override
+        public void evictionFlushes( long evictionFlushes )
+        {
+        }
+
         @Override
         public String toString()
         {
@@ -198,6 +242,12 @@ public interface PageCacheTracer extends PageCacheCounters
      */
     void unmappedFile( File file );
 
+    /**
+     * The page cache has been created with the eviction policy of the given name. Any hits and faults that are
+     * subsequently reported, are observed under this policy.
+     */
+    void evictionPolicy( String policyName );
+
     /**
      * A background eviction has begun. Called from the background eviction thread.
      *
@@ -270,4 +320,22 @@ public interface PageCacheTracer extends PageCacheCounters
      * @param flushes number of flushes
      */
     void flushes( long flushes );
+
+    /**
+     * Report number of pages faulted in by read-ahead
+     * @param pages number of pages read ahead
+     */
+    void readAheadPages( long pages );
+
+    /**
+     * Report time spent waiting for page faults
+     * @param nanos number of nanoseconds spent in page faults
+     */
+    void faultNanos( long nanos );
+
+    /**
+     * Report evictions that had to flush a dirty page
+     * @param evictionFlushes number of evictions that flushed a page
+     */
+    void evictionFlushes( long evictionFlushes );
 }
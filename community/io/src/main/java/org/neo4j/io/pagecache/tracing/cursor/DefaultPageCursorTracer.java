@@ -36,10 +36,13 @@ public class DefaultPageCursorTracer implements PageCursorTracer
     private long unpins;
     private long hits;
     private long faults;
+    private long faultNanos;
+    private long faultStartNanos;
     private long bytesRead;
     private long bytesWritten;
     private long evictions;
     private long evictionExceptions;
+    private long evictionFlushes;
     private long flushes;
 
     private PageCacheTracer pageCacheTracer = PageCacheTracer.NULL;
@@ -69,6 +72,10 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         {
             pageCacheTracer.faults( faults );
         }
+        if ( faultNanos > 0 )
+        {
+            pageCacheTracer.faultNanos( faultNanos );
+        }
         if ( bytesRead > 0 )
         {
             pageCacheTracer.bytesRead( bytesRead );
@@ -81,6 +88,10 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         {
             pageCacheTracer.evictionExceptions( evictionExceptions );
         }
+        if ( evictionFlushes > 0 )
+        {
+            pageCacheTracer.evictionFlushes( evictionFlushes );
+        }
         if ( bytesWritten > 0 )
         {
             pageCacheTracer.bytesWritten( bytesWritten );
@@ -98,10 +109,12 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         unpins = 0;
         hits = 0;
         faults = 0;
+        faultNanos = 0;
         bytesRead = 0;
         bytesWritten = 0;
         evictions = 0;
         evictionExceptions = 0;
+        evictionFlushes = 0;
         flushes = 0;
     }
 
@@ -221,6 +234,7 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public void done()
         {
             faults++;
+            faultNanos += System.nanoTime() - faultStartNanos;
         }
 
         @Override
@@ -246,6 +260,8 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         @Override
         public FlushEvent beginFlush( long filePageId, long cachePageId, PageSwapper swapper )
         {
+            // Cursors only ever flush pages when they have to evict them during page faults.
+            evictionFlushes++;
             return flushEvent;
         }
     };
@@ -289,6 +305,7 @@ public class DefaultPageCursorTracer implements PageCursorTracer
         public PageFaultEvent beginPageFault()
         {
             eventHits = 0;
+            faultStartNanos = System.nanoTime();
             return pageFaultEvent;
         }
 
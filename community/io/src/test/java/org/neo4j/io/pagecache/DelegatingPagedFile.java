@@ -19,6 +19,7 @@
  */
 package org.neo4j.io.pagecache;
 
+import java.io.File;
 import java.io.IOException;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.channels.WritableByteChannel;
@@ -58,6 +59,12 @@ public class DelegatingPagedFile implements PagedFile
         return delegate.fileSize();
     }
 
+    @Override
+    public File file()
+    {
+        return delegate.file();
+    }
+
     public void close() throws IOException
     {
         delegate.close();
@@ -37,6 +37,7 @@ import java.nio.channels.WritableByteChannel;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.OpenOption;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
@@ -1161,6 +1162,65 @@ public abstract class PageCacheTest<T extends PageCache> extends PageCacheTestSu
         assertFalse( dont_exist.isPresent() );
     }
 
+    @Test
+    public void mustListExistingMappings() throws Exception
+    {
+        configureStandardPageCache();
+        File f1 = file( "a" );
+        File f2 = file( "b" );
+        try ( PagedFile pf1 = pageCache.map( f1, filePageSize );
+              PagedFile pf2 = pageCache.map( f2, filePageSize ) )
+        {
+            List<PagedFile> list = pageCache.listExistingMappings();
+            assertThat( list.size(), is( 2 ) );
+            List<File> files = new ArrayList<>();
+            for ( PagedFile pagedFile : list )
+            {
+                files.add( pagedFile.file().getCanonicalFile() );
+                pagedFile.close();
+            }
+            assertTrue( files.contains( pf1.file().getCanonicalFile() ) );
+            assertTrue( files.contains( pf2.file().getCanonicalFile() ) );
+        }
+        assertTrue( pageCache.listExistingMappings().isEmpty() );
+    }
+
+    @Test( timeout = SHORT_TIMEOUT_MILLIS )
+    public void noFaultCursorMustOnlyBindPagesThatAreInMemory() throws Exception
+    {
+        generateFileWithRecords( file( "a" ), recordsPerFilePage * 4, recordSize );
+        configureStandardPageCache();
+        try ( PagedFile pf = pageCache.map( file( "a" ), filePageSize ) )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 1 ) );
+                assertTrue( cursor.next( 3 ) );
+            }
+
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( 1L ) );
+                verifyRecordsMatchExpected( cursor );
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( 3L ) );
+                assertFalse( cursor.next() );
+            }
+
+            // The no-fault cursor must not have faulted in any of the pages that were not in memory.
+            try ( PageCursor cursor = pf.io( 2, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+            {
+                assertTrue( cursor.next() );
+                assertThat( cursor.getCurrentPageId(), is( PageCursor.UNBOUND_PAGE_ID ) );
+            }
+        }
+    }
+
     private void verifyOnReadCursor(
             ThrowingConsumer<PageCursorAction,IOException> testTemplate ) throws IOException
     {
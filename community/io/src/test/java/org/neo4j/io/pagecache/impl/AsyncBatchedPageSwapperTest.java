@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.graphdb.config.Configuration;
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PageSwapperFactory;
+import org.neo4j.io.pagecache.PageSwapperTest;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncBatchedPageSwapperTest extends PageSwapperTest
+{
+    private static final int QUEUE_DEPTH = 4;
+
+    private EphemeralFileSystemAbstraction ephemeralFileSystem;
+    private DefaultFileSystemAbstraction fileSystem;
+    private File file;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        file = new File( "file" ).getCanonicalFile();
+        ephemeralFileSystem = new EphemeralFileSystemAbstraction();
+        fileSystem = new DefaultFileSystemAbstraction();
+    }
+
+    @After
+    public void tearDown() throws Exception
+    {
+        IOUtils.closeAll( ephemeralFileSystem, fileSystem );
+    }
+
+    @Override
+    protected PageSwapperFactory swapperFactory()
+    {
+        AsyncBatchedPageSwapperFactory factory = new AsyncBatchedPageSwapperFactory( QUEUE_DEPTH );
+        factory.open( getFs(), Configuration.EMPTY );
+        return factory;
+    }
+
+    @Override
+    protected void mkdirs( File dir ) throws IOException
+    {
+        getFs().mkdirs( dir );
+    }
+
+    @Override
+    protected File baseDirectory() throws IOException
+    {
+        File dir = getFile().getParentFile();
+        mkdirs( dir );
+        return dir;
+    }
+
+    @Override
+    protected boolean isRootAccessible()
+    {
+        return true;
+    }
+
+    protected File getFile()
+    {
+        return file;
+    }
+
+    protected FileSystemAbstraction getFs()
+    {
+        return ephemeralFileSystem;
+    }
+
+    protected FileSystemAbstraction getRealFileSystem()
+    {
+        return fileSystem;
+    }
+
+    @Test
+    public void vectoredWriteAndReadMustRoundTripPagesSplitIntoUnevenBatches() throws Exception
+    {
+        PageSwapperFactory factory = createSwapperFactory();
+        PageSwapper swapper = createSwapperAndFile( factory, getFile(), 4 );
+
+        // More pages than the queue depth, and not a multiple of it, so the batches get different sizes.
+        int pageCount = QUEUE_DEPTH * 5 + 3;
+        long[] pages = new long[pageCount];
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            pages[i] = createPage( 4 );
+            putInt( pages[i], 0, i + 1 );
+        }
+        assertThat( swapper.write( 2, pages, 0, pageCount ), is( pageCount * 4L ) );
+        assertThat( swapper.getLastPageId(), is( pageCount + 1L ) );
+
+        for ( long page : pages )
+        {
+            putInt( page, 0, 0 );
+        }
+        // Read from one page before the written range, which is a hole in the file, to one page past the end of it.
+        long[] targets = new long[pageCount + 2];
+        System.arraycopy( pages, 0, targets, 1, pageCount );
+        targets[0] = createPage( 4 );
+        targets[pageCount + 1] = createPage( 4 );
+        putInt( targets[pageCount + 1], 0, -1 );
+        assertThat( swapper.read( 1, targets, 4, 0, targets.length ), is( (pageCount + 1) * 4L ) );
+
+        assertThat( getInt( targets[0], 0 ), is( 0 ) );
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            assertThat( getInt( pages[i], 0 ), is( i + 1 ) );
+        }
+        assertThat( getInt( targets[pageCount + 1], 0 ), is( 0 ) );
+    }
+
+    @Test
+    public void vectoredReadMustSeePagesWrittenOneByOne() throws Exception
+    {
+        PageSwapperFactory factory = createSwapperFactory();
+        PageSwapper swapper = createSwapperAndFile( factory, getFile(), 4 );
+
+        int pageCount = QUEUE_DEPTH * 3;
+        long[] pages = new long[pageCount];
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            pages[i] = createPage( 4 );
+            putInt( pages[i], 0, i + 1 );
+            assertThat( swapper.write( i, pages[i] ), is( 4L ) );
+            putInt( pages[i], 0, 0 );
+        }
+
+        assertThat( swapper.read( 0, pages, 4, 0, pageCount ), is( pageCount * 4L ) );
+        for ( int i = 0; i < pageCount; i++ )
+        {
+            assertThat( getInt( pages[i], 0 ), is( i + 1 ) );
+        }
+    }
+}
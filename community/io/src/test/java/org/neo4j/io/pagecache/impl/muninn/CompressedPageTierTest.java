@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neo4j.unsafe.impl.internal.dragons.MemoryManager;
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class CompressedPageTierTest
+{
+    private static final int PAGE_SIZE = 8192;
+
+    private CompressedPageTier tier;
+    private long page;
+    private long target;
+
+    @Before
+    public void setUp()
+    {
+        tier = new CompressedPageTier( PAGE_SIZE * 4, PAGE_SIZE, new MemoryManager( PAGE_SIZE * 8, Long.BYTES ) );
+        tier.enable( 1 );
+        page = UnsafeUtil.allocateMemory( PAGE_SIZE );
+        target = UnsafeUtil.allocateMemory( PAGE_SIZE );
+    }
+
+    @After
+    public void tearDown()
+    {
+        UnsafeUtil.free( page );
+        UnsafeUtil.free( target );
+    }
+
+    @Test
+    public void mustLoadStoredPage() throws Exception
+    {
+        fillPage( 42 );
+        assertTrue( tier.store( 1, 7, page ) );
+        assertTrue( tier.load( 1, 7, target ) );
+        assertPageContents( target, 42 );
+    }
+
+    @Test
+    public void mustRemovePageWhenLoaded() throws Exception
+    {
+        fillPage( 42 );
+        tier.store( 1, 7, page );
+        tier.load( 1, 7, target );
+        assertFalse( tier.load( 1, 7, target ) );
+        assertEquals( 0, tier.size() );
+    }
+
+    @Test
+    public void mustNotStorePagesFromFilesThatAreNotEnabled() throws Exception
+    {
+        fillPage( 42 );
+        assertFalse( tier.store( 2, 7, page ) );
+        assertFalse( tier.load( 2, 7, target ) );
+    }
+
+    @Test
+    public void mustNotStorePagesThatDoNotCompress() throws Exception
+    {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            UnsafeUtil.putByte( page + i, (byte) rng.nextInt() );
+        }
+        assertFalse( tier.store( 1, 7, page ) );
+        assertFalse( tier.load( 1, 7, target ) );
+    }
+
+    @Test
+    public void storingPageAgainMustReplaceOldCopy() throws Exception
+    {
+        fillPage( 1 );
+        tier.store( 1, 7, page );
+        fillPage( 2 );
+        tier.store( 1, 7, page );
+        assertEquals( 1, tier.size() );
+        assertTrue( tier.load( 1, 7, target ) );
+        assertPageContents( target, 2 );
+    }
+
+    @Test
+    public void mustDiscardOldestPagesWhenFull() throws Exception
+    {
+        int pages = 10_000;
+        for ( int i = 0; i < pages; i++ )
+        {
+            fillPage( i );
+            assertTrue( tier.store( 1, i, page ) );
+        }
+        assertFalse( tier.load( 1, 0, target ) );
+        assertTrue( tier.load( 1, pages - 1, target ) );
+        assertPageContents( target, pages - 1 );
+    }
+
+    @Test
+    public void disablingFileMustInvalidateItsPages() throws Exception
+    {
+        fillPage( 42 );
+        tier.store( 1, 7, page );
+        tier.disable( 1 );
+        tier.enable( 1 ); // Swapper id reused by another file.
+        assertFalse( tier.load( 1, 7, target ) );
+    }
+
+    private void fillPage( int seed )
+    {
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            UnsafeUtil.putByte( page + i, (byte) (seed + i % 17) );
+        }
+    }
+
+    private static void assertPageContents( long address, int seed )
+    {
+        for ( int i = 0; i < PAGE_SIZE; i++ )
+        {
+            assertEquals( "byte " + i, (byte) (seed + i % 17), UnsafeUtil.getByte( address + i ) );
+        }
+    }
+}
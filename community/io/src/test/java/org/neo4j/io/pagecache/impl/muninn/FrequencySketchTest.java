@@ -0,0 +1,82 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class FrequencySketchTest
+{
+    private final FrequencySketch sketch = new FrequencySketch( 1024 );
+
+    @Test
+    public void frequencyOfUnseenPageMustBeZero() throws Exception
+    {
+        assertThat( sketch.frequency( 1, 42 ), is( 0 ) );
+    }
+
+    @Test
+    public void frequencyMustCountIncrements() throws Exception
+    {
+        sketch.increment( 1, 42 );
+        sketch.increment( 1, 42 );
+        sketch.increment( 1, 42 );
+        assertThat( sketch.frequency( 1, 42 ), greaterThanOrEqualTo( 3 ) );
+    }
+
+    @Test
+    public void frequencyMustBeCappedAtFifteen() throws Exception
+    {
+        for ( int i = 0; i < 100; i++ )
+        {
+            sketch.increment( 1, 42 );
+        }
+        assertThat( sketch.frequency( 1, 42 ), is( 15 ) );
+    }
+
+    @Test
+    public void samePageIdInDifferentFilesMustBeTrackedSeparately() throws Exception
+    {
+        for ( int i = 0; i < 10; i++ )
+        {
+            sketch.increment( 1, 42 );
+        }
+        assertThat( sketch.frequency( 2, 42 ), lessThan( 10 ) );
+    }
+
+    @Test
+    public void frequenciesMustAgeOverTime() throws Exception
+    {
+        for ( int i = 0; i < 15; i++ )
+        {
+            sketch.increment( 1, 42 );
+        }
+        // Simulate a long scan that faults in lots of pages once.
+        for ( int i = 0; i < 20 * 1024; i++ )
+        {
+            sketch.increment( 2, i );
+        }
+        assertThat( sketch.frequency( 1, 42 ), lessThan( 15 ) );
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.neo4j.unsafe.impl.internal.dragons.UnsafeUtil;
+
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+
+public class Lz4BlockCodecTest
+{
+    private static final int SIZE = 8192;
+
+    private long src;
+    private long compressed;
+    private long dst;
+    private int[] hashTable;
+
+    @Before
+    public void setUp()
+    {
+        src = UnsafeUtil.allocateMemory( SIZE );
+        compressed = UnsafeUtil.allocateMemory( Lz4BlockCodec.maxCompressedLength( SIZE ) );
+        dst = UnsafeUtil.allocateMemory( SIZE );
+        hashTable = new int[Lz4BlockCodec.HASH_TABLE_SIZE];
+    }
+
+    @After
+    public void tearDown()
+    {
+        UnsafeUtil.free( src );
+        UnsafeUtil.free( compressed );
+        UnsafeUtil.free( dst );
+    }
+
+    @Test
+    public void mustRoundTripRandomData() throws Exception
+    {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            UnsafeUtil.putByte( src + i, (byte) rng.nextInt() );
+        }
+        int length = roundTrip( SIZE );
+        assertThat( length, lessThanOrEqualTo( Lz4BlockCodec.maxCompressedLength( SIZE ) ) );
+    }
+
+    @Test
+    public void mustRoundTripAndCompressRepetitiveData() throws Exception
+    {
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            UnsafeUtil.putByte( src + i, (byte) (i % 13) );
+        }
+        int length = roundTrip( SIZE );
+        assertThat( length, lessThan( SIZE / 10 ) );
+    }
+
+    @Test
+    public void mustRoundTripDataOfAllLengths() throws Exception
+    {
+        ThreadLocalRandom rng = ThreadLocalRandom.current();
+        for ( int i = 0; i < SIZE; i++ )
+        {
+            UnsafeUtil.putByte( src + i, (byte) rng.nextInt( 4 ) );
+        }
+        for ( int length = 0; length < 300; length++ )
+        {
+            roundTrip( length );
+        }
+    }
+
+    @Test
+    public void mustThrowOnTruncatedInput() throws Exception
+    {
+        UnsafeUtil.setMemory( src, SIZE, (byte) 0 );
+        int length = Lz4BlockCodec.compress( src, SIZE, compressed, hashTable );
+        try
+        {
+            Lz4BlockCodec.decompress( compressed, length - 1, dst, SIZE );
+            fail( "Decompressing a truncated block should have thrown" );
+        }
+        catch ( IllegalStateException e )
+        {
+            // Good
+        }
+    }
+
+    private int roundTrip( int length )
+    {
+        int compressedLength = Lz4BlockCodec.compress( src, length, compressed, hashTable );
+        UnsafeUtil.setMemory( dst, SIZE, (byte) 0 );
+        Lz4BlockCodec.decompress( compressed, compressedLength, dst, length );
+        for ( int i = 0; i < length; i++ )
+        {
+            assertEquals( "byte " + i, UnsafeUtil.getByte( src + i ), UnsafeUtil.getByte( dst + i ) );
+        }
+        return compressedLength;
+    }
+}
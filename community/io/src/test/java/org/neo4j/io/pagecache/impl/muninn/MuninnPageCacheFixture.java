@@ -30,12 +30,13 @@ import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
 public class MuninnPageCacheFixture extends PageCacheTestSupport.Fixture<MuninnPageCache>
 {
     CountDownLatch backgroundFlushLatch;
+    EvictionPolicy evictionPolicy = EvictionPolicy.CLOCK;
 
     @Override
     public MuninnPageCache createPageCache( PageSwapperFactory swapperFactory, int maxPages, int pageSize,
             PageCacheTracer tracer, PageCursorTracerSupplier cursorTracerSupplier )
     {
-        return new MuninnPageCache( swapperFactory, maxPages, pageSize, tracer, cursorTracerSupplier );
+        return new MuninnPageCache( swapperFactory, maxPages, pageSize, tracer, cursorTracerSupplier, evictionPolicy );
     }
 
     @Override
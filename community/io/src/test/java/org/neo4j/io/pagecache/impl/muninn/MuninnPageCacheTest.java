@@ -33,9 +33,12 @@ import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.io.pagecache.PageCacheTest;
+import org.neo4j.io.pagecache.PageCacheQuota;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.io.pagecache.tracing.ConfigurablePageCursorTracerSupplier;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.DelegatingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.EvictionRunEvent;
 import org.neo4j.io.pagecache.tracing.MajorFlushEvent;
@@ -45,6 +48,7 @@ import org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer;
 import org.neo4j.io.pagecache.tracing.recording.RecordingPageCursorTracer.Fault;
 
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -52,7 +56,9 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
 import static org.neo4j.io.pagecache.tracing.recording.RecordingPageCacheTracer.Evict;
@@ -115,6 +121,216 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    public void tinyLfuMustKeepFrequentlyFaultedPagesOverPagesFaultedOnce() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        fixture.evictionPolicy = EvictionPolicy.TINY_LFU;
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( PageCacheTracer.NULL ),
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            // Page 0 is hot; it keeps getting faulted back in after being evicted.
+            for ( int i = 0; i < 3; i++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                }
+                pageCache.evictPages( 1, 0, EvictionRunEvent.NULL );
+            }
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            // Page 1 is only faulted in once, as if by a scan.
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            pageCache.evictPages( 1, 0, EvictionRunEvent.NULL );
+
+            assertThat( pageCache.pages.getFilePageId( pageCache.pages.deref( 0 ) ), is( 0L ) );
+            assertFalse( pageCache.pages.isLoaded( pageCache.pages.deref( 1 ) ) );
+        }
+    }
+
+    @Test
+    public void mustNotEvictPagesFromFileWithinItsQuota() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( PageCacheTracer.NULL ),
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile reserved = pageCache.map( file( "a" ), 8, PageCacheQuota.reserve( 0.5 ) );
+              PagedFile unreserved = pageCache.map( file( "b" ), 8 ) )
+        {
+            try ( PageCursor cursor = reserved.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            try ( PageCursor cursor = unreserved.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            pageCache.evictPages( 1, 0, EvictionRunEvent.NULL );
+
+            assertTrue( pageCache.pages.isLoaded( pageCache.pages.deref( 0 ) ) );
+            assertFalse( pageCache.pages.isLoaded( pageCache.pages.deref( 1 ) ) );
+            PagedFileCounters counters = (PagedFileCounters) reserved;
+            assertThat( counters.residentPages(), is( 1L ) );
+            assertThat( counters.reservedPages(), is( 2L ) );
+            assertThat( ((PagedFileCounters) unreserved).residentPages(), is( 0L ) );
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void mustThrowWhenReservingMoreThanTheReservablePages() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        writeInitialDataTo( file( "b" ) );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile ignoreA = pageCache.map( file( "a" ), 8, PageCacheQuota.reserve( 0.6 ) );
+              PagedFile ignoreB = pageCache.map( file( "b" ), 8, PageCacheQuota.reserve( 0.6 ) ) )
+        {
+            fail( "Should not have been able to reserve more pages than the page cache can spare" );
+        }
+    }
+
+    @Test
+    public void noFaultPinsMustNotIncrementUsage() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, PageCacheTracer.NULL,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            long pageRef0;
+            long pageRef1;
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next( 0 ) );
+                pageRef0 = ((MuninnPageCursor) cursor).pinnedPageRef;
+                assertTrue( cursor.next( 1 ) );
+                pageRef1 = ((MuninnPageCursor) cursor).pinnedPageRef;
+            }
+            for ( int i = 0; i < 3; i++ )
+            {
+                try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+                {
+                    assertTrue( cursor.next() );
+                    assertThat( cursor.getCurrentPageId(), is( 0L ) );
+                }
+            }
+
+            // Page 0 has been pinned just as many times as page 1, when we don't count the no-fault pins.
+            assertThat( decrementsUntilUnused( pageCache.pages, pageRef0 ),
+                    is( decrementsUntilUnused( pageCache.pages, pageRef1 ) ) );
+        }
+    }
+
+    private static int decrementsUntilUnused( PageList pages, long pageRef )
+    {
+        int decrements = 1;
+        while ( !pages.decrementUsage( pageRef ) )
+        {
+            decrements++;
+        }
+        return decrements;
+    }
+
+    @Test
+    public void mustReportEvictionPolicyToTracer() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        fixture.evictionPolicy = EvictionPolicy.TINY_LFU;
+        try ( MuninnPageCache ignore = createPageCache( fs, 4, 8, tracer, DefaultPageCursorTracerSupplier.INSTANCE ) )
+        {
+            assertThat( tracer.evictionPolicy(), is( EvictionPolicy.TINY_LFU.name() ) );
+        }
+    }
+
+    @Test( timeout = 30000 )
+    public void sequentialReadCursorWithReadAheadHintMustFaultInPagesAhead() throws Exception
+    {
+        int filePages = 32;
+        try ( StoreChannel channel = fs.create( file( "a" ) ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( filePages * 8 ) );
+        }
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 64, 8, tracer,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                // Read-ahead starts after four sequential pins, and will then read ahead of the fourth page.
+                for ( int i = 0; i < 4; i++ )
+                {
+                    assertTrue( cursor.next() );
+                }
+            }
+            while ( tracer.readAheadPages() == 0 )
+            {
+                Thread.sleep( 1 );
+            }
+            PagedFileCounters counters = (PagedFileCounters) pagedFile;
+            assertThat( counters.residentPages(), greaterThan( 4L ) );
+        }
+    }
+
+    @Test( timeout = 30000 )
+    public void readAheadMustNotCoverMoreThanSmallFractionOfPageCache() throws Exception
+    {
+        int filePages = 256;
+        try ( StoreChannel channel = fs.create( file( "a" ) ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( filePages * 8 ) );
+        }
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 128, 8, tracer,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            int pages = ((MuninnPagedFile) pagedFile).readAhead( 0, 128 );
+            assertThat( (long) pages, is( pageCache.maxCachedPages() / 64 ) );
+            while ( tracer.readAheadPages() < pages )
+            {
+                Thread.sleep( 1 );
+            }
+            assertThat( ((PagedFileCounters) pagedFile).residentPages(), is( (long) pages ) );
+        }
+    }
+
+    @Test
+    public void randomReadCursorMustNotReadAhead() throws Exception
+    {
+        int filePages = 32;
+        try ( StoreChannel channel = fs.create( file( "a" ) ) )
+        {
+            channel.writeAll( ByteBuffer.allocate( filePages * 8 ) );
+        }
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+        try ( MuninnPageCache pageCache = createPageCache( fs, 64, 8, tracer,
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+            {
+                for ( long pageId : new long[]{3, 17, 5, 29, 11, 2, 23, 8} )
+                {
+                    assertTrue( cursor.next( pageId ) );
+                }
+            }
+            assertThat( tracer.readAheadPages(), is( 0L ) );
+            assertThat( ((PagedFileCounters) pagedFile).residentPages(), is( 8L ) );
+        }
+    }
+
     @Test
     public void mustFlushDirtyPagesOnEvictingFirstPage() throws Exception
     {
@@ -214,6 +430,94 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         }
     }
 
+    @Test
+    public void evictionOfDirtyPageMustBeCountedAsEvictionFlush() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ),
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( 0L );
+            }
+            try ( PageCursor cursor = pagedFile.io( 1, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+
+            pageCache.evictPages( 2, 0, tracer.beginPageEvictions( 2 ) );
+            assertThat( tracer.evictions(), is( 2L ) );
+            assertThat( tracer.evictionFlushes(), is( 1L ) );
+        }
+    }
+
+    @Test
+    public void backgroundFlushMustWriteAdjacentDirtyPagesWithOneVectoredWrite() throws Exception
+    {
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 8, 8, blockCacheFlush( tracer ),
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( existingFile( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_WRITE_LOCK ) )
+            {
+                for ( int i = 0; i < 6; i++ )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( i );
+                }
+            }
+
+            int vectorLength = 8;
+            MajorFlushEvent flushEvent = tracer.beginCacheFlush();
+            int pagesFlushed = ((MuninnPagedFile) pagedFile).flushAdjacentDirtyPages( 2, new long[vectorLength],
+                    new long[vectorLength], new long[vectorLength], flushEvent.flushEventOpportunity() );
+            assertThat( pagesFlushed, is( 6 ) );
+            assertThat( tracer.flushes(), is( 1L ) );
+            assertThat( tracer.bytesWritten(), is( 48L ) );
+
+            ByteBuffer buf = readIntoBuffer( "a" );
+            assertThat( buf.getLong(), is( 0L ) );
+            assertThat( buf.getLong(), is( 1L ) );
+
+            // The pages are now clean, so evicting them must not flush anything.
+            pageCache.evictPages( 6, 0, tracer.beginPageEvictions( 6 ) );
+            assertThat( tracer.evictions(), is( 6L ) );
+            assertThat( tracer.evictionFlushes(), is( 0L ) );
+            assertThat( tracer.flushes(), is( 1L ) );
+        }
+    }
+
+    @Test
+    public void backgroundFlushMustNotFlushPagesThatAreNotDirty() throws Exception
+    {
+        writeInitialDataTo( file( "a" ) );
+        DefaultPageCacheTracer tracer = new DefaultPageCacheTracer();
+
+        try ( MuninnPageCache pageCache = createPageCache( fs, 4, 8, blockCacheFlush( tracer ),
+                DefaultPageCursorTracerSupplier.INSTANCE );
+              PagedFile pagedFile = pageCache.map( file( "a" ), 8 ) )
+        {
+            try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_READ_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+
+            MajorFlushEvent flushEvent = tracer.beginCacheFlush();
+            int pagesFlushed = ((MuninnPagedFile) pagedFile).flushAdjacentDirtyPages( 0, new long[4],
+                    new long[4], new long[4], flushEvent.flushEventOpportunity() );
+            assertThat( pagesFlushed, is( 0 ) );
+            assertThat( tracer.flushes(), is( 0L ) );
+        }
+    }
+
     @Test
     public void closingTheCursorMustUnlockModifiedPage() throws Exception
     {
@@ -73,6 +73,18 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.hits();
     }
 
+    @Override
+    public void evictionPolicy( String policyName )
+    {
+        delegate.evictionPolicy( policyName );
+    }
+
+    @Override
+    public String evictionPolicy()
+    {
+        return delegate.evictionPolicy();
+    }
+
     @Override
     public MajorFlushEvent beginCacheFlush()
     {
@@ -115,6 +127,42 @@ public class DelegatingPageCacheTracer implements PageCacheTracer
         return delegate.hitRatio();
     }
 
+    @Override
+    public long readAheadPages()
+    {
+        return delegate.readAheadPages();
+    }
+
+    @Override
+    public void readAheadPages( long pages )
+    {
+        delegate.readAheadPages( pages );
+    }
+
+    @Override
+    public long faultNanos()
+    {
+        return delegate.faultNanos();
+    }
+
+    @Override
+    public void faultNanos( long nanos )
+    {
+        delegate.faultNanos( nanos );
+    }
+
+    @Override
+    public long evictionFlushes()
+    {
+        return delegate.evictionFlushes();
+    }
+
+    @Override
+    public void evictionFlushes( long evictionFlushes )
+    {
+        delegate.evictionFlushes( evictionFlushes );
+    }
+
     @Override
     public void pins( long pins )
     {
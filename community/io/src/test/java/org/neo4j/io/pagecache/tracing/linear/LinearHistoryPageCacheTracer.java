@@ -144,12 +144,41 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
         return 0;
     }
 
+    @Override
+    public long readAheadPages()
+    {
+        return 0;
+    }
+
+    @Override
+    public long faultNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public long evictionFlushes()
+    {
+        return 0;
+    }
+
     @Override
     public double hitRatio()
     {
         return 0d;
     }
 
+    @Override
+    public String evictionPolicy()
+    {
+        return null;
+    }
+
+    @Override
+    public void evictionPolicy( String policyName )
+    {
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -194,4 +223,19 @@ public final class LinearHistoryPageCacheTracer implements PageCacheTracer
     public void flushes( long flushes )
     {
     }
+
+    @Override
+    public void readAheadPages( long pages )
+    {
+    }
+
+    @Override
+    public void faultNanos( long nanos )
+    {
+    }
+
+    @Override
+    public void evictionFlushes( long evictionFlushes )
+    {
+    }
 }
@@ -149,12 +149,41 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
         return 0;
     }
 
+    @Override
+    public long readAheadPages()
+    {
+        return 0;
+    }
+
+    @Override
+    public long faultNanos()
+    {
+        return 0;
+    }
+
+    @Override
+    public long evictionFlushes()
+    {
+        return 0;
+    }
+
     @Override
     public double hitRatio()
     {
         return 0d;
     }
 
+    @Override
+    public String evictionPolicy()
+    {
+        return null;
+    }
+
+    @Override
+    public void evictionPolicy( String policyName )
+    {
+    }
+
     @Override
     public void pins( long pins )
     {
@@ -203,6 +232,21 @@ public class RecordingPageCacheTracer extends RecordingTracer implements PageCac
     {
     }
 
+    @Override
+    public void readAheadPages( long pages )
+    {
+    }
+
+    @Override
+    public void faultNanos( long nanos )
+    {
+    }
+
+    @Override
+    public void evictionFlushes( long evictionFlushes )
+    {
+    }
+
     private void evicted( long filePageId, PageSwapper swapper )
     {
         record( new Evict( swapper, filePageId ) );
@@ -349,6 +349,30 @@ public class GraphDatabaseSettings implements LoadableConfig
                   "Set this to -1 to disable the IOPS limit." )
     public static final Setting<Integer> check_point_iops_limit = setting( "dbms.checkpoint.iops.limit", INTEGER, "300" );
 
+    @Description( "Let the IOPS limit of the background checkpoint process adapt to the load on the database. " +
+                  "The adaptive limit starts out at the configured `dbms.checkpoint.iops.limit`, and is raised for " +
+                  "as long as page faults and transaction log forces are not slowed down by the checkpoint IO. " +
+                  "When they are slowed down, the limit is lowered again, but never below the configured limit. " +
+                  "This setting is ignored in Neo4j Community Edition, and when the IOPS limit is disabled." )
+    public static final Setting<Boolean> check_point_iops_limit_adaptive =
+            setting( "dbms.checkpoint.iops.limit.adaptive", BOOLEAN, FALSE );
+
+    @Description( "Configures the check pointing policy. The `periodic` policy check-points when either " +
+                  "`dbms.checkpoint.interval.tx` or `dbms.checkpoint.interval.time` is reached. The `continuous` " +
+                  "policy check-points again as soon as the previous check-point has completed, if any transactions " +
+                  "have been committed in the meantime. Together with an IOPS limit, this spreads the flushing of " +
+                  "dirty pages evenly over time, instead of flushing them in bursts." )
+    public static final Setting<String> check_point_policy =
+            setting( "dbms.checkpoint", options( "periodic", "continuous" ), "periodic" );
+
+    @Description( "The number of threads to apply transactions with, when recovering the database after a crash. " +
+                  "Transactions changing any of the same records are still applied in the order they were " +
+                  "committed, while other transactions are applied concurrently. Transactions changing the schema, " +
+                  "tokens or explicit indexes are applied alone. The default of 1 applies all recovered " +
+                  "transactions sequentially." )
+    public static final Setting<Integer> recovery_parallelism =
+            buildSetting( "dbms.recovery.parallelism", INTEGER, "1" ).constraint( min( 1 ) ).build();
+
     // Auto Indexing
     @Description( "Controls the auto indexing feature for nodes. Setting it to `false` shuts it down, " +
             "while `true` enables it by default for properties listed in the dbms.auto_index.nodes.keys setting." )
@@ -416,6 +440,10 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Boolean> enable_native_schema_index =
             setting( "unsupported.dbms.enable_native_schema_index", BOOLEAN, TRUE );
 
+    @Internal
+    public static final Setting<Boolean> enable_native_string_schema_index =
+            setting( "unsupported.dbms.enable_native_string_schema_index", BOOLEAN, FALSE );
+
     // Store settings
     @Description( "Make Neo4j keep the logical transaction logs for being able to backup the database. " +
             "Can be used for specifying the threshold to prune logical logs after. For example \"10 days\" will " +
@@ -431,6 +459,19 @@ public class GraphDatabaseSettings implements LoadableConfig
     public static final Setting<Long> logical_log_rotation_threshold =
             buildSetting( "dbms.tx_log.rotation.size", BYTES, "250M" ).constraint( min( ByteUnit.mebiBytes( 1 ) ) ).build();
 
+    @Description( "Compress the commands of big enough transactions when writing them to the transaction log, " +
+            "which makes transaction logs smaller at the cost of some processing when committing and reading " +
+            "transactions. Commands of transactions that serialize to more than 1 MiB are compressed as they're " +
+            "serialized, so that only their compressed form is held in memory. Commands that don't compress to less " +
+            "than 90% of their size are written uncompressed. Transaction logs with compressed transactions can't " +
+            "be read by older versions of Neo4j." )
+    public static final Setting<Boolean> tx_log_compression = setting( "dbms.tx_log.compression", BOOLEAN, FALSE );
+
+    @Description( "Preallocate new transaction log files to the size at which they're rotated, so that forcing the " +
+            "transaction log doesn't also have to update the size of the file. The whole file is written when it's " +
+            "created. Shut the database down cleanly before turning preallocation off again." )
+    public static final Setting<Boolean> tx_log_preallocate = setting( "dbms.tx_log.preallocate", BOOLEAN, FALSE );
+
     @Description( "Use a quick approach for rebuilding the ID generators. This give quicker recovery time, " +
             "but will limit the ability to reuse the space of deleted entities." )
     @Internal
@@ -457,10 +498,70 @@ public class GraphDatabaseSettings implements LoadableConfig
                     .constraint( min( 8192 * 30L ) ).build();
 
     @Description( "Specify which page swapper to use for doing paged IO. " +
-                  "This is only used when integrating with proprietary storage technology." )
+                  "The default swapper does one positional read or write per page, or one vectored read or write " +
+                  "per batch of pages. The `async` swapper instead keeps a queue of concurrent page reads and " +
+                  "writes in flight, which can make better use of devices with deep command queues, such as NVMe " +
+                  "drives. This is otherwise only used when integrating with proprietary storage technology." )
     public static final Setting<String> pagecache_swapper =
             setting( "dbms.memory.pagecache.swapper", STRING, null );
 
+    @Description( "The eviction policy used by the page cache for deciding which pages to evict, when it needs to " +
+                  "make room for pages that are faulted in. `clock` is the classic clock-sweep over page usage " +
+                  "counters. `tiny_lfu` additionally keeps an approximate history of how often pages are faulted in, " +
+                  "and uses it to keep large sequential scans from flushing the frequently used pages out of the " +
+                  "page cache." )
+    public static final Setting<String> pagecache_eviction_policy =
+            setting( "dbms.memory.pagecache.eviction_policy", options( "clock", "tiny_lfu" ), "clock" );
+
+    @Description( "The amount of memory to set aside, in addition to the page cache memory, for keeping LZ4 " +
+                  "compressed copies of evicted pages from the property, string and array stores. Page faults on " +
+                  "those stores will then decompress the page from memory, instead of reading it from the storage " +
+                  "device, whenever the page is still in the compressed tier. The default of zero disables the " +
+                  "compressed tier." )
+    public static final Setting<Long> pagecache_compressed_tier_size =
+            buildSetting( "dbms.memory.pagecache.compressed_tier.size", BYTES, "0" )
+                    .constraint( range( 0L, 16L * 1024 * 1024 * 1024 ) ).build();
+
+    @Description( "Run a background thread that writes out the dirty pages that the page cache will evict next, so " +
+                  "that threads faulting pages in rarely have to wait for evicted pages to be written. This can " +
+                  "reduce latency for write heavy workloads whose store is larger than the page cache, at the cost " +
+                  "of writing some pages more than once." )
+    public static final Setting<Boolean> pagecache_background_flushing_enabled =
+            setting( "dbms.memory.pagecache.background_flushing.enable", BOOLEAN, FALSE );
+
+    @Description( "Allocate the page cache memory in large chunks that are aligned to 2 MiB boundaries, so that the " +
+                  "transparent huge pages of Linux can back the page cache memory. This reduces the number of TLB " +
+                  "misses when accessing a large page cache. Transparent huge pages must be set to `always` in " +
+                  "`/sys/kernel/mm/transparent_hugepage/enabled` for this to have an effect. The alignment padding " +
+                  "costs address space, but no physical memory." )
+    public static final Setting<Boolean> pagecache_huge_page_alignment_enabled =
+            setting( "dbms.memory.pagecache.huge_page_alignment.enable", BOOLEAN, FALSE );
+
+    @Description( "Map the node and relationship group stores in the high priority class of the page cache, and the " +
+                  "dynamic string and array property stores in the low priority class. This makes the page cache " +
+                  "prefer keeping the stores that every traversal touches first in memory." )
+    public static final Setting<Boolean> pagecache_prioritise_topology_stores =
+            setting( "dbms.memory.pagecache.prioritise_topology_stores", BOOLEAN, FALSE );
+
+    @Description( "The share of the page cache to reserve for each of the node and relationship group stores. " +
+                  "Pages from these stores will not be evicted while the store has no more pages in memory than " +
+                  "what has been reserved for it. The default of 0 means that no pages are reserved." )
+    public static final Setting<Double> pagecache_topology_stores_reserved_share =
+            buildSetting( "dbms.memory.pagecache.topology_stores_reserved_share", DOUBLE, "0.0" )
+                    .constraint( range( 0.0, 0.4 ) ).build();
+
+    @Description( "Keep a profile of which pages are in the page cache, and use it to load the same pages back into " +
+                  "the page cache in the background, when the database starts up again. This shortens the time it " +
+                  "takes for the database to reach its steady-state performance after a restart. The profiles are " +
+                  "written next to the store files, with a `.cacheprof` suffix." )
+    public static final Setting<Boolean> pagecache_warmup_enabled =
+            setting( "dbms.memory.pagecache.warmup.enable", BOOLEAN, FALSE );
+
+    @Description( "How often to write the profile of which pages are in the page cache, when page cache warmup is " +
+                  "enabled. The profile is also written when the database shuts down." )
+    public static final Setting<Duration> pagecache_warmup_profiling_interval =
+            setting( "dbms.memory.pagecache.warmup.profile.interval", DURATION, "1m" );
+
     /**
      * Block size properties values depends from selected record format.
      * We can't figured out record format until it will be selected by corresponding edition.
@@ -617,6 +718,13 @@ public class GraphDatabaseSettings implements LoadableConfig
             setting( "dbms.label_index", optionsIgnoreCase( LabelIndex.NATIVE.name(), LabelIndex.AUTO.name() ),
                     LabelIndex.NATIVE.name() );
 
+    @Description( "Store the node id ranges of the label index in which few nodes have a label more compactly, " +
+            "which makes the label index smaller for labels with nodes spread over the store. Takes effect when the " +
+            "label index is created or rebuilt, e.g. after deleting its file. An existing label index is kept in " +
+            "the format it was created with. Label indexes in this format can't be read by older versions of Neo4j." )
+    public static final Setting<Boolean> label_index_sparse_ranges =
+            setting( "dbms.label_index.sparse_ranges", BOOLEAN, FALSE );
+
     // Security settings
 
     @Description( "Enable auth requirement to access Neo4j." )
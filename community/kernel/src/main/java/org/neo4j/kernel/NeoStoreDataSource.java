@@ -84,6 +84,8 @@ import org.neo4j.kernel.impl.locking.LockService;
 import org.neo4j.kernel.impl.locking.ReentrantLockService;
 import org.neo4j.kernel.impl.locking.StatementLocksFactory;
 import org.neo4j.kernel.impl.logging.LogService;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmer;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
 import org.neo4j.kernel.impl.proc.Procedures;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
 import org.neo4j.kernel.impl.storageengine.impl.recordstorage.id.IdController;
@@ -515,6 +517,13 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
             throw Exceptions.launderedException( e );
         }
 
+        if ( config.get( GraphDatabaseSettings.pagecache_warmup_enabled ) )
+        {
+            life.add( new PageCacheWarmer( fs, pageCache, scheduler,
+                    monitors.newMonitor( PageCacheWarmerMonitor.class ), logProvider.getLog( PageCacheWarmer.class ),
+                    config.get( GraphDatabaseSettings.pagecache_warmup_profiling_interval ).toMillis() ) );
+        }
+
         // NOTE: please make sure this is performed after having added everything to the life, in fact we would like
         // to perform the checkpointing as first step when the life is shutdown.
         life.add( lifecycleToTriggerCheckPointOnShutdown() );
@@ -611,7 +620,7 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
         final PhysicalLogFile logFile = life.add( new PhysicalLogFile( fileSystemAbstraction, logFiles,
                 config.get( GraphDatabaseSettings.logical_log_rotation_threshold ),
                 transactionIdStore::getLastCommittedTransactionId, logVersionRepository, physicalLogMonitor,
-                logHeaderCache ) );
+                logHeaderCache, config.get( GraphDatabaseSettings.tx_log_preallocate ) ) );
 
         final PhysicalLogFileInformation.LogVersionToTimestamp logInformation = version ->
         {
@@ -648,25 +657,36 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
 
         final TransactionAppender appender = life.add( new BatchingTransactionAppender(
                 logFile, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
-                databaseHealth ) );
+                databaseHealth, config.get( GraphDatabaseSettings.tx_log_compression ) ) );
         final LogicalTransactionStore logicalTransactionStore =
                 new PhysicalLogicalTransactionStore( logFile, transactionMetadataCache, logEntryReader );
 
-        int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
-        final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
-                new CountCommittedTransactionThreshold( txThreshold );
+        CheckPointThreshold threshold;
+        long recurringPeriod;
+        if ( "continuous".equals( config.get( GraphDatabaseSettings.check_point_policy ) ) )
+        {
+            // Check point again as soon as the previous check point has completed, if anything has been committed.
+            threshold = new CountCommittedTransactionThreshold( 1 );
+            recurringPeriod = TimeUnit.SECONDS.toMillis( 1 );
+        }
+        else
+        {
+            int txThreshold = config.get( GraphDatabaseSettings.check_point_interval_tx );
+            final CountCommittedTransactionThreshold countCommittedTransactionThreshold =
+                    new CountCommittedTransactionThreshold( txThreshold );
 
-        long timeMillisThreshold = config.get( GraphDatabaseSettings.check_point_interval_time ).toMillis();
-        TimeCheckPointThreshold timeCheckPointThreshold = new TimeCheckPointThreshold( timeMillisThreshold, clock );
+            long timeMillisThreshold = config.get( GraphDatabaseSettings.check_point_interval_time ).toMillis();
+            TimeCheckPointThreshold timeCheckPointThreshold =
+                    new TimeCheckPointThreshold( timeMillisThreshold, clock );
 
-        CheckPointThreshold threshold =
-                CheckPointThresholds.or( countCommittedTransactionThreshold, timeCheckPointThreshold );
+            threshold = CheckPointThresholds.or( countCommittedTransactionThreshold, timeCheckPointThreshold );
+            recurringPeriod = Math.min( timeMillisThreshold, TimeUnit.SECONDS.toMillis( 10 ) );
+        }
 
         final CheckPointerImpl checkPointer = new CheckPointerImpl(
                 transactionIdStore, threshold, storageEngine, logPruning, appender, databaseHealth, logProvider,
                 tracers.checkPointTracer, ioLimiter, storeCopyCheckPointMutex );
 
-        long recurringPeriod = Math.min( timeMillisThreshold, TimeUnit.SECONDS.toMillis( 10 ) );
         CheckPointScheduler checkPointScheduler = new CheckPointScheduler( checkPointer, ioLimiter, scheduler,
                 recurringPeriod, databaseHealth );
 
@@ -690,7 +710,8 @@ public class NeoStoreDataSource implements Lifecycle, IndexProviders
     {
         Recovery.SPI spi =
                 new DefaultRecoverySPI( storageEngine, logFiles, fileSystemAbstraction, tailScanner, transactionIdStore,
-                        logicalTransactionStore, positionMonitor );
+                        logicalTransactionStore, positionMonitor,
+                        config.get( GraphDatabaseSettings.recovery_parallelism ) );
         Recovery recovery = new Recovery( spi, recoveryMonitor );
         monitors.addMonitorListener( new Recovery.Monitor()
         {
@@ -43,6 +43,7 @@ import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.proc.ProcedureSignature;
 import org.neo4j.kernel.api.proc.QualifiedName;
 import org.neo4j.kernel.api.proc.UserFunctionSignature;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
 import org.neo4j.kernel.api.schema.SchemaDescriptor;
@@ -57,6 +58,8 @@ import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.values.storable.Value;
 
@@ -117,6 +120,15 @@ public interface ReadOperations
      */
     PrimitiveLongIterator nodesGetForLabel( int labelId );
 
+    /**
+     * Intersects the label scans of the given labels in the label scan store, rather than checking
+     * the labels of every node with one of them.
+     *
+     * @param labelIds the label ids of the labels that returned nodes are guaranteed to have
+     * @return ids of all nodes that have all of the given labels
+     */
+    PrimitiveLongIterator nodesGetForAllLabels( int... labelIds );
+
     /**
      * Queries the given index with the given index query.
      *
@@ -128,6 +140,47 @@ public interface ReadOperations
     PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexQuery... predicates )
             throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
 
+    /**
+     * Queries the given index with the given index query, returning the matching nodes ordered by their indexed
+     * property value. The order comes directly from the index if it
+     * {@link #indexSupportsOrder(IndexDescriptor, IndexOrder, IndexQuery...) supports it}, which makes e.g. reading
+     * the first few nodes of a range cheap, and only nodes changed in this transaction are sorted. Otherwise all
+     * matching nodes are sorted before returned. Ordering is only supported for queries with a single predicate.
+     *
+     * @param index the index to query against.
+     * @param order the {@link IndexOrder} to return the matching nodes in.
+     * @param predicates array of the {@link IndexQuery} predicates to query for.
+     * @return ids of the matching nodes, in the given order.
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException if no such index is found.
+     */
+    PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+            throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
+
+    /**
+     * @param index the index to query against.
+     * @param order the {@link IndexOrder} to check.
+     * @param predicates array of the {@link IndexQuery} predicates to check the order for.
+     * @return whether or not the given index can return the nodes matching the given query in the given order by
+     * itself, without {@link #indexQuery(IndexDescriptor, IndexOrder, IndexQuery...)} having to sort all of them.
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException if no such index is found.
+     */
+    boolean indexSupportsOrder( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Queries the given index with the given index query, returning the matching nodes along with their indexed
+     * property values where the index provides them. Values are only provided if the transaction has no changes,
+     * for other nodes {@link NodeValueIterator#values()} returns {@code null} and values need to be read from
+     * the nodes themselves.
+     *
+     * @param index the index to query against.
+     * @param predicates array of the {@link IndexQuery} predicates to query for.
+     * @return ids of the matching nodes, with their indexed property values if available.
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException if no such index is found.
+     */
+    NodeValueIterator indexQueryWithValues( IndexDescriptor index, IndexQuery... predicates )
+            throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
+
     /**
      * @return an iterator over all nodes in the database.
      */
@@ -246,6 +299,12 @@ public interface ReadOperations
     /** Calculate the index unique values percentage (range: {@code 0.0} exclusive to {@code 1.0} inclusive). */
     double indexUniqueValuesSelectivity( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Histogram of the numeric values in the index, computed by the index from statistics it keeps up to date.
+     * Returns {@code null} if the index doesn't provide histograms or is empty.
+     */
+    IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     /** Returns the failure description of a failed index. */
     String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
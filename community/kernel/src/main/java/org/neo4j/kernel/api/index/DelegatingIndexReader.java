@@ -21,9 +21,12 @@ package org.neo4j.kernel.api.index;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 
 public class DelegatingIndexReader implements IndexReader
@@ -53,6 +56,31 @@ public class DelegatingIndexReader implements IndexReader
         return delegate.query( predicates );
     }
 
+    @Override
+    public PrimitiveLongIterator query( IndexOrder order, IndexQuery... predicates )
+            throws IndexNotApplicableKernelException
+    {
+        return delegate.query( order, predicates );
+    }
+
+    @Override
+    public boolean supportsOrder( IndexOrder order, IndexQuery... predicates )
+    {
+        return delegate.supportsOrder( order, predicates );
+    }
+
+    @Override
+    public NodeValueIterator queryWithValues( IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        return delegate.queryWithValues( predicates );
+    }
+
+    @Override
+    public boolean providesValues( IndexQuery... predicates )
+    {
+        return delegate.providesValues( predicates );
+    }
+
     @Override
     public void close()
     {
@@ -65,6 +93,12 @@ public class DelegatingIndexReader implements IndexReader
         return delegate.hasFullNumberPrecision( predicates );
     }
 
+    @Override
+    public IndexHistogram histogram()
+    {
+        return delegate.histogram();
+    }
+
     @Override
     public String toString()
     {
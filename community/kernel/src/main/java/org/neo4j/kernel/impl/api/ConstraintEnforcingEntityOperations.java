@@ -49,6 +49,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.RepeatedPropertyInCompositeSchemaException;
 import org.neo4j.kernel.api.exceptions.schema.UnableToValidateConstraintException;
 import org.neo4j.kernel.api.exceptions.schema.UniquePropertyValueValidationException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
@@ -76,6 +77,7 @@ import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
@@ -356,6 +358,12 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations, Sc
         return entityReadOperations.nodesGetForLabel( state, labelId );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetForAllLabels( KernelStatement state, int... labelIds )
+    {
+        return entityReadOperations.nodesGetForAllLabels( state, labelIds );
+    }
+
     @Override
     public PrimitiveLongIterator indexQuery( KernelStatement statement, IndexDescriptor index,
             IndexQuery[] predicates )
@@ -364,6 +372,27 @@ public class ConstraintEnforcingEntityOperations implements EntityOperations, Sc
         return entityReadOperations.indexQuery( statement, index, predicates );
     }
 
+    @Override
+    public PrimitiveLongIterator indexQuery( KernelStatement statement, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        return entityReadOperations.indexQuery( statement, index, order, predicates );
+    }
+
+    @Override
+    public boolean indexSupportsOrder( KernelStatement statement, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException
+    {
+        return entityReadOperations.indexSupportsOrder( statement, index, order, predicates );
+    }
+
+    @Override
+    public NodeValueIterator indexQueryWithValues( KernelStatement statement, IndexDescriptor index,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        return entityReadOperations.indexQueryWithValues( statement, index, predicates );
+    }
+
     @Override
     public long nodeGetFromUniqueIndexSeek(
             KernelStatement state,
@@ -35,7 +35,7 @@ import org.neo4j.scheduler.JobScheduler;
 import org.neo4j.time.Clocks;
 import org.neo4j.time.SystemNanoClock;
 
-public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor
+public class DefaultTransactionTracer implements TransactionTracer, LogRotationMonitor, LogForceMonitor
 {
     public interface Monitor
     {
@@ -49,10 +49,17 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
     private final AtomicLong counter = new AtomicLong();
     private final AtomicLong accumulatedTotalTimeNanos = new AtomicLong();
 
+    private final AtomicLong logForceCounter = new AtomicLong();
+    private final AtomicLong logForceAccumulatedTotalTimeNanos = new AtomicLong();
+
     private long startTimeNanos;
+    // The log is forced by one thread at a time, so we can keep the start time of the force in a field.
+    private volatile long logForceStartTimeNanos;
 
     private final LogRotateEvent logRotateEvent = this::updateCountersAndNotifyListeners;
 
+    private final LogForceEvent logForceEvent = this::updateLogForceCounters;
+
     private final LogAppendEvent logAppendEvent = new LogAppendEvent()
     {
         @Override
@@ -88,7 +95,8 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         @Override
         public LogForceEvent beginLogForce()
         {
-            return LogForceEvent.NULL;
+            logForceStartTimeNanos = clock.nanos();
+            return logForceEvent;
         }
     };
 
@@ -177,6 +185,18 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
         return TimeUnit.NANOSECONDS.toMillis( accumulatedTotalTimeNanos.get() );
     }
 
+    @Override
+    public long numberOfLogForceEvents()
+    {
+        return logForceCounter.get();
+    }
+
+    @Override
+    public long logForceAccumulatedTotalTimeNanos()
+    {
+        return logForceAccumulatedTotalTimeNanos.get();
+    }
+
     private void updateCountersAndNotifyListeners()
     {
         counter.incrementAndGet();
@@ -188,4 +208,10 @@ public class DefaultTransactionTracer implements TransactionTracer, LogRotationM
             monitor.lastLogRotationEventDuration( millis );
         } );
     }
+
+    private void updateLogForceCounters()
+    {
+        logForceCounter.incrementAndGet();
+        logForceAccumulatedTotalTimeNanos.addAndGet( clock.nanos() - logForceStartTimeNanos );
+    }
 }
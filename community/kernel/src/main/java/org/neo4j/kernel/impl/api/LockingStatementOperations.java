@@ -57,6 +57,7 @@ import org.neo4j.kernel.impl.api.operations.SchemaStateOperations;
 import org.neo4j.kernel.impl.api.operations.SchemaWriteOperations;
 import org.neo4j.kernel.impl.locking.ResourceTypes;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.values.storable.Value;
 
@@ -218,6 +219,15 @@ public class LockingStatementOperations implements
         return schemaReadDelegate.indexUniqueValuesPercentage( state, descriptor );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        sharedLabelLock( state, descriptor.schema().getLabelId() );
+        state.assertOpen();
+        return schemaReadDelegate.indexHistogram( state, descriptor );
+    }
+
     @Override
     public Long indexGetOwningUniquenessConstraintId( KernelStatement state, IndexDescriptor index )
     {
@@ -73,6 +73,7 @@ import org.neo4j.kernel.api.proc.ProcedureSignature;
 import org.neo4j.kernel.api.proc.QualifiedName;
 import org.neo4j.kernel.api.proc.UserFunctionSignature;
 import org.neo4j.kernel.api.query.ExecutingQuery;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
 import org.neo4j.kernel.api.schema.RelationTypeSchemaDescriptor;
@@ -108,6 +109,8 @@ import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.storageengine.api.schema.SchemaRule;
 import org.neo4j.values.storable.Value;
@@ -223,6 +226,20 @@ public class OperationsFacade
         return dataRead().nodesGetForLabel( statement, labelId );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetForAllLabels( int... labelIds )
+    {
+        statement.assertOpen();
+        for ( int labelId : labelIds )
+        {
+            if ( labelId == StatementConstants.NO_SUCH_LABEL )
+            {
+                return PrimitiveLongCollections.emptyIterator();
+            }
+        }
+        return dataRead().nodesGetForAllLabels( statement, labelIds );
+    }
+
     @Override
     public PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexQuery... predicates )
             throws IndexNotFoundKernelException, IndexNotApplicableKernelException
@@ -231,6 +248,30 @@ public class OperationsFacade
         return dataRead().indexQuery( statement, index, predicates );
     }
 
+    @Override
+    public PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+            throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        statement.assertOpen();
+        return dataRead().indexQuery( statement, index, order, predicates );
+    }
+
+    @Override
+    public boolean indexSupportsOrder( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+            throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().indexSupportsOrder( statement, index, order, predicates );
+    }
+
+    @Override
+    public NodeValueIterator indexQueryWithValues( IndexDescriptor index, IndexQuery... predicates )
+            throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        statement.assertOpen();
+        return dataRead().indexQueryWithValues( statement, index, predicates );
+    }
+
     @Override
     public long nodeGetFromUniqueIndexSeek( IndexDescriptor index, IndexQuery.ExactPredicate... predicates )
             throws IndexNotFoundKernelException, IndexBrokenKernelException, IndexNotApplicableKernelException
@@ -612,6 +653,13 @@ public class OperationsFacade
         return schemaRead().indexUniqueValuesPercentage( statement, descriptor );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return schemaRead().indexHistogram( statement, descriptor );
+    }
+
     @Override
     public String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
     {
@@ -19,8 +19,11 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 
 import org.neo4j.collection.primitive.Primitive;
@@ -28,10 +31,13 @@ import org.neo4j.collection.primitive.PrimitiveIntCollection;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntSet;
 import org.neo4j.collection.primitive.PrimitiveIntStack;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.collection.primitive.PrimitiveLongResourceIterator;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.graphdb.NotFoundException;
+import org.neo4j.helpers.collection.Pair;
 import org.neo4j.kernel.api.DataWriteOperations;
 import org.neo4j.kernel.api.ExplicitIndex;
 import org.neo4j.kernel.api.ExplicitIndexHits;
@@ -58,6 +64,7 @@ import org.neo4j.kernel.api.exceptions.schema.UniquePropertyValueValidationExcep
 import org.neo4j.kernel.api.explicitindex.AutoIndexing;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.PropertyKeyIdIterator;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
 import org.neo4j.kernel.api.schema.RelationTypeSchemaDescriptor;
@@ -97,7 +104,9 @@ import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.StoreReadLayer;
 import org.neo4j.storageengine.api.Token;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.storageengine.api.txstate.NodeState;
 import org.neo4j.storageengine.api.txstate.ReadableDiffSets;
@@ -546,6 +555,51 @@ public class StateHandlingStatementOperations implements
         return storeLayer.nodesGetForLabel( state.getStoreStatement(), labelId );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetForAllLabels( KernelStatement state, int... labelIds )
+    {
+        PrimitiveLongIterator stored = storeLayer.nodesGetForAllLabels( state.getStoreStatement(), labelIds );
+        if ( state.hasTxStateWithChanges() )
+        {
+            // Nodes that got or lost any of the labels in this transaction are checked against their
+            // current labels, the stored intersection is trusted for all others
+            PrimitiveLongSet changed = Primitive.longSet();
+            for ( int labelId : labelIds )
+            {
+                ReadableDiffSets<Long> labelChanges = state.txState().nodesWithLabelChanged( labelId );
+                labelChanges.getAdded().forEach( changed::add );
+                labelChanges.getRemoved().forEach( changed::add );
+            }
+            PrimitiveLongIterator unchanged = PrimitiveLongCollections.filter( stored, id -> !changed.contains( id ) );
+            PrimitiveLongIterator added = PrimitiveLongCollections.filter( changed.iterator(),
+                    id -> nodeHasAllLabels( state, id, labelIds ) );
+            return state.txState().addedAndRemovedNodes().augmentWithRemovals(
+                    PrimitiveLongCollections.concat( unchanged, added ) );
+        }
+        return stored;
+    }
+
+    private boolean nodeHasAllLabels( KernelStatement state, long nodeId, int[] labelIds )
+    {
+        try ( Cursor<NodeItem> cursor = nodeCursorById( state, nodeId ) )
+        {
+            NodeItem node = cursor.get();
+            for ( int labelId : labelIds )
+            {
+                if ( !node.hasLabel( labelId ) )
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+        catch ( EntityNotFoundException e )
+        {
+            // The node has been deleted in this transaction
+            return false;
+        }
+    }
+
     @Override
     public long nodesGetCount( KernelStatement state )
     {
@@ -877,6 +931,210 @@ public class StateHandlingStatementOperations implements
         }
     }
 
+    @Override
+    public PrimitiveLongIterator indexQuery( KernelStatement state, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        if ( order == IndexOrder.NONE )
+        {
+            return indexQuery( state, index, predicates );
+        }
+        assertSinglePredicate( predicates );
+        int propertyKeyId = predicates[0].propertyKeyId();
+        Comparator<Pair<Long,Value>> comparator = propertyValueComparator( order );
+
+        IndexReader reader = state.getStoreStatement().getIndexReader( index );
+        if ( !reader.supportsOrder( order, predicates ) )
+        {
+            List<Pair<Long,Value>> nodes =
+                    sortedByPropertyValue( state, indexQuery( state, index, predicates ), propertyKeyId, comparator );
+            long[] sortedNodeIds = new long[nodes.size()];
+            for ( int i = 0; i < sortedNodeIds.length; i++ )
+            {
+                sortedNodeIds[i] = nodes.get( i ).first();
+            }
+            return PrimitiveLongCollections.iterator( sortedNodeIds );
+        }
+
+        // Filtering out inexact matches keeps the order of the index
+        PrimitiveLongIterator committed = reader.query( order, predicates );
+        PrimitiveLongIterator exactMatches = reader.hasFullNumberPrecision( predicates )
+                ? committed : LookupFilter.exactIndexMatches( this, state, committed, predicates );
+        if ( !state.hasTxStateWithChanges() )
+        {
+            return exactMatches;
+        }
+
+        // Only the nodes which this transaction has added to the result are sorted, and merged into the index hits
+        ReadableDiffSets<Long> changes = indexUpdates( state, index, predicates[0] );
+        PrimitiveLongIterator unchanged = state.txState().addedAndRemovedNodes().augmentWithRemovals(
+                changes.augmentWithRemovals( PrimitiveLongCollections.filter( exactMatches,
+                        nodeId -> !changes.isAdded( nodeId ) ) ) );
+        if ( changes.getAdded().isEmpty() )
+        {
+            return unchanged;
+        }
+        List<Pair<Long,Value>> added = sortedByPropertyValue( state,
+                PrimitiveLongCollections.toPrimitiveIterator( changes.getAdded().iterator() ), propertyKeyId,
+                comparator );
+        return mergedByPropertyValue( state, unchanged, added, propertyKeyId, comparator );
+    }
+
+    @Override
+    public boolean indexSupportsOrder( KernelStatement state, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException
+    {
+        if ( order == IndexOrder.NONE )
+        {
+            return true;
+        }
+        return predicates.length == 1 &&
+               state.getStoreStatement().getIndexReader( index ).supportsOrder( order, predicates );
+    }
+
+    private ReadableDiffSets<Long> indexUpdates( KernelStatement state, IndexDescriptor index, IndexQuery predicate )
+    {
+        switch ( predicate.type() )
+        {
+        case exact:
+            return state.txState().indexUpdatesForSeek( index,
+                    IndexQuery.asValueTuple( (IndexQuery.ExactPredicate) predicate ) );
+        case exists:
+            return state.txState().indexUpdatesForScan( index );
+        case rangeNumeric:
+        {
+            IndexQuery.NumberRangePredicate numPred = (IndexQuery.NumberRangePredicate) predicate;
+            return state.txState().indexUpdatesForRangeSeekByNumber( index, numPred.from(), numPred.fromInclusive(),
+                    numPred.to(), numPred.toInclusive() );
+        }
+        case rangeString:
+        {
+            IndexQuery.StringRangePredicate strPred = (IndexQuery.StringRangePredicate) predicate;
+            return state.txState().indexUpdatesForRangeSeekByString( index, strPred.from(), strPred.fromInclusive(),
+                    strPred.to(), strPred.toInclusive() );
+        }
+        case stringPrefix:
+            return state.txState().indexUpdatesForRangeSeekByPrefix( index,
+                    ((IndexQuery.StringPrefixPredicate) predicate).prefix() );
+        default:
+            throw new UnsupportedOperationException( "Ordered query not supported: " + predicate );
+        }
+    }
+
+    @Override
+    public NodeValueIterator indexQueryWithValues( KernelStatement state, IndexDescriptor index,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+    {
+        IndexReader reader = state.getStoreStatement().getIndexReader( index );
+        if ( !state.hasTxStateWithChanges() && reader.providesValues( predicates ) &&
+             reader.hasFullNumberPrecision( predicates ) )
+        {
+            return reader.queryWithValues( predicates );
+        }
+
+        // Values of nodes changed in this transaction aren't in the index, so leave all values to be read from store
+        return withoutValues( indexQuery( state, index, predicates ) );
+    }
+
+    private static NodeValueIterator withoutValues( PrimitiveLongIterator nodeIds )
+    {
+        return new NodeValueIterator()
+        {
+            @Override
+            public Value[] values()
+            {
+                return null;
+            }
+
+            @Override
+            public boolean hasNext()
+            {
+                return nodeIds.hasNext();
+            }
+
+            @Override
+            public long next()
+            {
+                return nodeIds.next();
+            }
+        };
+    }
+
+    /**
+     * Orders nodes by property value like the index does, with the node id deciding between equal values.
+     */
+    private static Comparator<Pair<Long,Value>> propertyValueComparator( IndexOrder order )
+    {
+        Comparator<Pair<Long,Value>> comparator =
+                Comparator.comparing( (Pair<Long,Value> node) -> node.other(), Values.COMPARATOR )
+                        .thenComparing( Pair::first );
+        return order == IndexOrder.DESCENDING ? comparator.reversed() : comparator;
+    }
+
+    private List<Pair<Long,Value>> sortedByPropertyValue( KernelStatement state, PrimitiveLongIterator nodeIds,
+            int propertyKeyId, Comparator<Pair<Long,Value>> comparator )
+    {
+        List<Pair<Long,Value>> nodes = new ArrayList<>();
+        while ( nodeIds.hasNext() )
+        {
+            Pair<Long,Value> node = withPropertyValue( state, nodeIds.next(), propertyKeyId );
+            if ( node != null )
+            {
+                nodes.add( node );
+            }
+        }
+        nodes.sort( comparator );
+        return nodes;
+    }
+
+    /**
+     * Merges the already sorted nodes into the nodes coming in order from the index. Property values of the nodes
+     * from the index are read one node at a time, as the merge gets to them.
+     */
+    private PrimitiveLongIterator mergedByPropertyValue( KernelStatement state, PrimitiveLongIterator ordered,
+            List<Pair<Long,Value>> sorted, int propertyKeyId, Comparator<Pair<Long,Value>> comparator )
+    {
+        return new PrimitiveLongCollections.PrimitiveLongBaseIterator()
+        {
+            private Pair<Long,Value> nextOrdered;
+            private int nextSorted;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                while ( nextOrdered == null && ordered.hasNext() )
+                {
+                    nextOrdered = withPropertyValue( state, ordered.next(), propertyKeyId );
+                }
+                if ( nextSorted < sorted.size() &&
+                     (nextOrdered == null || comparator.compare( sorted.get( nextSorted ), nextOrdered ) <= 0) )
+                {
+                    return next( sorted.get( nextSorted++ ).first() );
+                }
+                if ( nextOrdered != null )
+                {
+                    long nodeId = nextOrdered.first();
+                    nextOrdered = null;
+                    return next( nodeId );
+                }
+                return false;
+            }
+        };
+    }
+
+    private Pair<Long,Value> withPropertyValue( KernelStatement state, long nodeId, int propertyKeyId )
+    {
+        try ( Cursor<NodeItem> node = nodeCursorById( state, nodeId ) )
+        {
+            return Pair.of( nodeId, nodeGetProperty( state, node.get(), propertyKeyId ) );
+        }
+        catch ( EntityNotFoundException ignored )
+        {
+            // The node has been deleted but was still reported from the index, it's excluded from the result
+            return null;
+        }
+    }
+
     private IndexQuery.ExactPredicate[] assertOnlyExactPredicates( IndexQuery[] predicates )
     {
         IndexQuery.ExactPredicate[] exactPredicates;
@@ -1271,6 +1529,13 @@ public class StateHandlingStatementOperations implements
         return storeLayer.indexUniqueValuesPercentage( descriptor.schema() );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( KernelStatement statement, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return storeLayer.indexHistogram( descriptor.schema() );
+    }
+
     @Override
     public DoubleLongRegister indexUpdatesAndSize( KernelStatement statement, IndexDescriptor index,
             DoubleLongRegister target ) throws IndexNotFoundKernelException
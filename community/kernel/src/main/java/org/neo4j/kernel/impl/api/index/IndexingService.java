@@ -59,6 +59,8 @@ import org.neo4j.logging.LogProvider;
 import org.neo4j.register.Register.DoubleLongRegister;
 import org.neo4j.register.Registers;
 import org.neo4j.scheduler.JobScheduler;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.IndexReader;
 
 import static java.lang.String.format;
 import static java.util.concurrent.TimeUnit.MINUTES;
@@ -355,6 +357,23 @@ public class IndexingService extends LifecycleAdapter implements IndexingUpdateS
         return output;
     }
 
+    /**
+     * Histograms are computed on demand by the index itself, from statistics it keeps up to date, so they're
+     * available also right after a restart, and reflect updates made since the index was last sampled.
+     *
+     * @param descriptor schema of the index.
+     * @return histogram of the numeric values in the index, or {@code null} if the index doesn't provide one.
+     * @throws IndexNotFoundKernelException if there's no online index for the given schema.
+     */
+    public IndexHistogram indexHistogram( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        final long indexId = indexMapRef.getOnlineIndexId( descriptor );
+        try ( IndexReader reader = indexMapRef.getIndexProxy( indexId ).newReader() )
+        {
+            return reader.histogram();
+        }
+    }
+
     public double indexUniqueValuesPercentage( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException
     {
         final long indexId = indexMapRef.getOnlineIndexId( descriptor );
@@ -29,6 +29,7 @@ import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
 import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.KernelStatement;
@@ -37,6 +38,7 @@ import org.neo4j.storageengine.api.Direction;
 import org.neo4j.storageengine.api.NodeItem;
 import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 
 public interface EntityReadOperations
@@ -47,6 +49,12 @@ public interface EntityReadOperations
      */
     PrimitiveLongIterator nodesGetForLabel( KernelStatement state, int labelId );
 
+    /**
+     * @param labelIds the label ids of the labels that returned nodes are guaranteed to have
+     * @return ids of all nodes that have all of the given labels
+     */
+    PrimitiveLongIterator nodesGetForAllLabels( KernelStatement state, int... labelIds );
+
     /**
      * Queries the given index with the given index query.
      *
@@ -59,6 +67,43 @@ public interface EntityReadOperations
     PrimitiveLongIterator indexQuery( KernelStatement statement, IndexDescriptor index, IndexQuery... predicates )
             throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
 
+    /**
+     * Queries the given index with the given index query, returning the matching nodes in the given order.
+     *
+     * @param statement the KernelStatement to use.
+     * @param index the index to query against.
+     * @param order the {@link IndexOrder} to return the matching nodes in.
+     * @param predicates the {@link IndexQuery} predicates to query for.
+     * @return ids of the matching nodes, in the given order.
+     * @throws IndexNotFoundKernelException if no such index is found.
+     */
+    PrimitiveLongIterator indexQuery( KernelStatement statement, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
+
+    /**
+     * @param statement the KernelStatement to use.
+     * @param index the index to query against.
+     * @param order the {@link IndexOrder} to check.
+     * @param predicates the {@link IndexQuery} predicates to check the order for.
+     * @return whether or not the index can return the nodes matching the query in the given order by itself.
+     * @throws IndexNotFoundKernelException if no such index is found.
+     */
+    boolean indexSupportsOrder( KernelStatement statement, IndexDescriptor index, IndexOrder order,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException;
+
+    /**
+     * Queries the given index with the given index query, returning the matching nodes along with their indexed
+     * property values, if available.
+     *
+     * @param statement the KernelStatement to use.
+     * @param index the index to query against.
+     * @param predicates the {@link IndexQuery} predicates to query for.
+     * @return ids of the matching nodes, with their indexed property values if available.
+     * @throws IndexNotFoundKernelException if no such index is found.
+     */
+    NodeValueIterator indexQueryWithValues( KernelStatement statement, IndexDescriptor index,
+            IndexQuery... predicates ) throws IndexNotFoundKernelException, IndexNotApplicableKernelException;
+
     /**
      * Returns the id of the matched node, or {@link StatementConstants#NO_SUCH_NODE} if no node was found.
      *
@@ -30,6 +30,7 @@ import org.neo4j.kernel.api.schema.SchemaDescriptor;
 import org.neo4j.kernel.api.schema.constaints.ConstraintDescriptor;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.KernelStatement;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
 public interface SchemaReadOperations
@@ -70,6 +71,11 @@ public interface SchemaReadOperations
      **/
     double indexUniqueValuesPercentage( KernelStatement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Returns histogram of the numeric values in the index, or {@code null} if there is none.
+     **/
+    IndexHistogram indexHistogram( KernelStatement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     /**
      * Returns the failure description of a failed index.
      */
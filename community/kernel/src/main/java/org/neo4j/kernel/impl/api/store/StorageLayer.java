@@ -78,6 +78,7 @@ import org.neo4j.storageengine.api.StorageProperty;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.StoreReadLayer;
 import org.neo4j.storageengine.api.Token;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.storageengine.api.schema.SchemaRule;
 
@@ -180,6 +181,12 @@ public class StorageLayer implements StoreReadLayer
         return statement.getLabelScanReader().nodesWithLabel( labelId );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetForAllLabels( StorageStatement statement, int... labelIds )
+    {
+        return statement.getLabelScanReader().nodesWithAllLabels( labelIds );
+    }
+
     @Override
     public IndexDescriptor indexGetForSchema( LabelSchemaDescriptor descriptor )
     {
@@ -253,6 +260,12 @@ public class StorageLayer implements StoreReadLayer
         return indexService.indexUniqueValuesPercentage( descriptor );
     }
 
+    @Override
+    public IndexHistogram indexHistogram( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return indexService.indexHistogram( descriptor );
+    }
+
     @Override
     public String indexGetFailure( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException
     {
@@ -213,7 +213,7 @@ public class DataSourceModule
                 platformModule.monitors,
                 platformModule.tracers,
                 procedures,
-                editionModule.ioLimiter,
+                deps.satisfyDependency( editionModule.ioLimiter ),
                 platformModule.availabilityGuard,
                 platformModule.clock, editionModule.accessCapability,
                 platformModule.storeCopyCheckPointMutex,
@@ -0,0 +1,298 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+
+/**
+ * {@link PrimitiveLongIterator} combining {@link LabelScanValue} ranges of multiple labels, a whole range at a time.
+ * Both {@code AND} and {@code OR} combining is supported.
+ * <p>
+ * One {@link RawCursor} is opened per label and cursors are kept aligned on {@link LabelScanKey#idRange}.
+ * Bits of all labels having the same range are combined in one go, i.e. {@code AND} or {@code OR} of one
+ * {@code long} per label, and the node ids are then extracted from the combined bit set. This is much cheaper than
+ * merging node id by node id, which is what {@link CompositeLabelScanValueIterator} does.
+ * <p>
+ * When doing {@code AND}, a label lagging behind the others is advanced until it reaches the range of the label
+ * furthest ahead. If that means skipping lots of ranges, e.g. when intersecting a dense label with a sparse one,
+ * the cursor is instead re-seeked from that range, going through the tree from the root rather than visiting
+ * all leaves in between.
+ * <p>
+ * The provided {@link RawCursor cursors} are managed externally, e.g. {@link NativeLabelScanReader},
+ * this because implemented interface lacks close-method.
+ */
+class CompositeLabelScanRangeIterator extends PrimitiveLongBaseIterator
+{
+    /**
+     * Number of ranges a lagging cursor is advanced using {@link RawCursor#next()} before re-seeking it instead.
+     * Roughly the number of entries in a leaf.
+     */
+    static final int MAX_SKIPPED_RANGES_BEFORE_RESEEK = 200;
+
+    private static final long EXHAUSTED = Long.MAX_VALUE;
+    private static final long NOT_INITIALIZED = -1;
+
+    private final GBPTree<LabelScanKey,LabelScanValue> index;
+    private final int[] labelIds;
+    private final boolean trueForAll;
+    private final Collection<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors;
+    private final RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>[] cursors;
+
+    /**
+     * {@link LabelScanKey#idRange} of current, not yet combined, range of each label.
+     */
+    private final long[] ranges;
+
+    /**
+     * {@link LabelScanValue#bits} of current, not yet combined, range of each label.
+     */
+    private final long[] rangeBits;
+
+    /**
+     * Base node id of the combined range currently being iterated over.
+     */
+    private long baseNodeId;
+
+    /**
+     * Combined bits of the range currently being iterated over.
+     */
+    private long bits;
+
+    /**
+     * Constructs a {@link CompositeLabelScanRangeIterator}.
+     *
+     * @param index {@link GBPTree} to seek in.
+     * @param labelIds label ids to combine.
+     * @param trueForAll if {@code true} using {@code AND} combining, otherwise {@code OR} combining.
+     * @param openCursors collection where opened cursors are registered, and removed from when closed.
+     */
+    @SuppressWarnings( "unchecked" )
+    CompositeLabelScanRangeIterator( GBPTree<LabelScanKey,LabelScanValue> index, int[] labelIds, boolean trueForAll,
+            Collection<RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException>> openCursors )
+    {
+        this.index = index;
+        this.labelIds = labelIds;
+        this.trueForAll = trueForAll;
+        this.openCursors = openCursors;
+        this.cursors = new RawCursor[labelIds.length];
+        this.ranges = new long[labelIds.length];
+        this.rangeBits = new long[labelIds.length];
+        try
+        {
+            for ( int i = 0; i < labelIds.length; i++ )
+            {
+                cursors[i] = seek( labelIds[i], 0 );
+                ranges[i] = NOT_INITIALIZED;
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    protected boolean fetchNext()
+    {
+        try
+        {
+            while ( bits == 0 )
+            {
+                if ( !(trueForAll ? nextIntersectedRange() : nextUnitedRange()) )
+                {
+                    return false;
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+
+        int delta = Long.numberOfTrailingZeros( bits );
+        bits &= bits - 1;
+        return next( baseNodeId + delta );
+    }
+
+    /**
+     * Combines all labels having the lowest current range, using {@code OR}.
+     *
+     * @return {@code true} if there was a range to combine, otherwise {@code false} if all labels are exhausted.
+     */
+    private boolean nextUnitedRange() throws IOException
+    {
+        long lowestRange = EXHAUSTED;
+        for ( int i = 0; i < cursors.length; i++ )
+        {
+            if ( ranges[i] == NOT_INITIALIZED )
+            {
+                advance( i );
+            }
+            lowestRange = Math.min( lowestRange, ranges[i] );
+        }
+        if ( lowestRange == EXHAUSTED )
+        {
+            return false;
+        }
+
+        long combined = 0;
+        for ( int i = 0; i < cursors.length; i++ )
+        {
+            if ( ranges[i] == lowestRange )
+            {
+                combined |= rangeBits[i];
+                advance( i );
+            }
+        }
+        setCurrent( lowestRange, combined );
+        return true;
+    }
+
+    /**
+     * Aligns all labels on the same range and combines them, using {@code AND}.
+     *
+     * @return {@code true} if there was a range to combine, otherwise {@code false} if any label is exhausted.
+     */
+    private boolean nextIntersectedRange() throws IOException
+    {
+        if ( cursors.length == 0 )
+        {
+            return false;
+        }
+
+        long targetRange = 0;
+        int aligned = 0;
+        for ( int i = 0; aligned < cursors.length; i = (i + 1) % cursors.length )
+        {
+            if ( ranges[i] < targetRange )
+            {
+                advanceTo( i, targetRange );
+            }
+            if ( ranges[i] == EXHAUSTED )
+            {
+                closeAll();
+                return false;
+            }
+            if ( ranges[i] > targetRange )
+            {
+                // This label is further ahead, all other labels must catch up to it
+                targetRange = ranges[i];
+                aligned = 1;
+            }
+            else
+            {
+                aligned++;
+            }
+        }
+
+        long combined = -1;
+        for ( int i = 0; i < cursors.length; i++ )
+        {
+            combined &= rangeBits[i];
+            ranges[i] = NOT_INITIALIZED;
+        }
+        setCurrent( targetRange, combined );
+        return true;
+    }
+
+    private void setCurrent( long range, long combinedBits )
+    {
+        baseNodeId = range * LabelScanValue.RANGE_SIZE;
+        bits = combinedBits;
+    }
+
+    /**
+     * Moves label at index {@code i} forward to {@code targetRange}, or the closest range after it.
+     */
+    private void advanceTo( int i, long targetRange ) throws IOException
+    {
+        int skipped = 0;
+        while ( ranges[i] < targetRange )
+        {
+            if ( ranges[i] != NOT_INITIALIZED && ++skipped > MAX_SKIPPED_RANGES_BEFORE_RESEEK )
+            {
+                closeCursor( i );
+                cursors[i] = seek( labelIds[i], targetRange );
+                ranges[i] = NOT_INITIALIZED;
+                skipped = 0;
+            }
+            advance( i );
+        }
+    }
+
+    /**
+     * Reads next range of label at index {@code i}.
+     */
+    private void advance( int i ) throws IOException
+    {
+        if ( ranges[i] == EXHAUSTED )
+        {
+            return;
+        }
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = cursors[i];
+        if ( cursor.next() )
+        {
+            Hit<LabelScanKey,LabelScanValue> hit = cursor.get();
+            assert hit.key().idRange > ranges[i] : "Expected to get ordered results, got " + hit.key() +
+                    " where previous range was " + ranges[i];
+            ranges[i] = hit.key().idRange;
+            rangeBits[i] = hit.value().bits;
+        }
+        else
+        {
+            ranges[i] = EXHAUSTED;
+            closeCursor( i );
+        }
+    }
+
+    private RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> seek( int labelId, long fromRange )
+            throws IOException
+    {
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor =
+                index.seek( new LabelScanKey( labelId, fromRange ), new LabelScanKey( labelId, Long.MAX_VALUE ) );
+        openCursors.add( cursor );
+        return cursor;
+    }
+
+    private void closeAll() throws IOException
+    {
+        for ( int i = 0; i < cursors.length; i++ )
+        {
+            ranges[i] = EXHAUSTED;
+            closeCursor( i );
+        }
+    }
+
+    private void closeCursor( int i ) throws IOException
+    {
+        if ( openCursors.remove( cursors[i] ) )
+        {
+            cursors[i].close();
+        }
+    }
+}
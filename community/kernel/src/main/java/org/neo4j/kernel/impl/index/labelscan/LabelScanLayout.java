@@ -35,6 +35,7 @@ import org.neo4j.io.pagecache.PageCursor;
  * a node with that label, such that {@code nodeId = nodeIdRange+bitOffset}. Range size is 64 bits.
  * </li>
  * </ul>
+ * See {@link SparseLabelScanLayout} for a layout which stores ranges with few nodes more compactly.
  */
 class LabelScanLayout extends Layout.Adapter<LabelScanKey,LabelScanValue>
 {
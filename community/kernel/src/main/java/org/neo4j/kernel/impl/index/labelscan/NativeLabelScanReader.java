@@ -21,9 +21,7 @@ package org.neo4j.kernel.impl.index.labelscan;
 
 import java.io.IOException;
 import java.io.UncheckedIOException;
-import java.util.ArrayList;
 import java.util.HashSet;
-import java.util.List;
 import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
@@ -96,34 +94,13 @@ class NativeLabelScanReader implements LabelScanReader
     @Override
     public PrimitiveLongIterator nodesWithAnyOfLabels( int... labelIds )
     {
-        List<PrimitiveLongIterator> iterators = iteratorsForLabels( labelIds );
-        return new CompositeLabelScanValueIterator( iterators, false );
+        return new CompositeLabelScanRangeIterator( index, labelIds, false, openCursors );
     }
 
     @Override
     public PrimitiveLongIterator nodesWithAllLabels( int... labelIds )
     {
-        List<PrimitiveLongIterator> iterators = iteratorsForLabels( labelIds );
-        return new CompositeLabelScanValueIterator( iterators, true );
-    }
-
-    private List<PrimitiveLongIterator> iteratorsForLabels( int[] labelIds )
-    {
-        List<PrimitiveLongIterator> iterators = new ArrayList<>();
-        try
-        {
-            for ( int labelId : labelIds )
-            {
-                RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor = seekerForLabel( labelId );
-                openCursors.add( cursor );
-                iterators.add( new LabelScanValueIterator( cursor, openCursors ) );
-            }
-        }
-        catch ( IOException e )
-        {
-            throw new UncheckedIOException( e );
-        }
-        return iterators;
+        return new CompositeLabelScanRangeIterator( index, labelIds, true, openCursors );
     }
 
     private RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> seekerForLabel( int labelId ) throws IOException
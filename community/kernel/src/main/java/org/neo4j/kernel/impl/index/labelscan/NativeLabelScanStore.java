@@ -70,6 +70,8 @@ import static org.neo4j.kernel.impl.store.MetaDataStore.DEFAULT_NAME;
  * is configurable on initial creation of the store, 8, 16, 32 or 64.
  * </li>
  * </ul>
+ * Stores can also be created with {@link SparseLabelScanLayout}, which stores ranges with few nodes more compactly.
+ * Either way, an existing store is opened with the layout it was created with, until it's rebuilt.
  * <p>
  * {@link #force(IOLimiter)} is vital for allowing this store to be recoverable, and must be called
  * whenever Neo4j performs a checkpoint.
@@ -130,6 +132,11 @@ public class NativeLabelScanStore implements LabelScanStore
      */
     private final int pageSize;
 
+    /**
+     * Whether or not to use {@link SparseLabelScanLayout} when creating or rebuilding the store.
+     */
+    private final boolean sparseRanges;
+
     /**
      * Used for all file operations on the gbpTree file.
      */
@@ -170,9 +177,20 @@ public class NativeLabelScanStore implements LabelScanStore
 
     public NativeLabelScanStore( PageCache pageCache, File storeDir, FullStoreChangeStream fullStoreChangeStream,
             boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        this( pageCache, storeDir, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector, false );
+    }
+
+    /**
+     * @param sparseRanges whether or not to store ranges with few nodes compactly, using
+     * {@link SparseLabelScanLayout}, if the store is created or rebuilt.
+     */
+    public NativeLabelScanStore( PageCache pageCache, File storeDir, FullStoreChangeStream fullStoreChangeStream,
+            boolean readOnly, Monitors monitors, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector,
+            boolean sparseRanges )
     {
         this( pageCache, storeDir, fullStoreChangeStream, readOnly, monitors, recoveryCleanupWorkCollector,
-                /*means no opinion about page size*/ 0 );
+                /*means no opinion about page size*/ 0, sparseRanges );
     }
 
     /*
@@ -180,10 +198,11 @@ public class NativeLabelScanStore implements LabelScanStore
      */
     NativeLabelScanStore( PageCache pageCache, File storeDir,
                 FullStoreChangeStream fullStoreChangeStream, boolean readOnly, Monitors monitors,
-                RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, int pageSize )
+                RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, int pageSize, boolean sparseRanges )
     {
         this.pageCache = pageCache;
         this.pageSize = pageSize;
+        this.sparseRanges = sparseRanges;
         this.fullStoreChangeStream = fullStoreChangeStream;
         this.storeFile = getLabelScanStoreFile( storeDir );
         this.singleWriter = new NativeLabelScanWriter( 1_000 );
@@ -367,8 +386,27 @@ public class NativeLabelScanStore implements LabelScanStore
         MutableBoolean isRebuilding = new MutableBoolean();
         Header.Reader readRebuilding =
                 headerData -> isRebuilding.setValue( headerData.get() == NEEDS_REBUILDING );
-        index = new GBPTree<>( pageCache, storeFile, new LabelScanLayout(), pageSize, monitor, readRebuilding,
-                needsRebuildingWriter, recoveryCleanupWorkCollector );
+        LabelScanLayout layout = sparseRanges ? new SparseLabelScanLayout() : new LabelScanLayout();
+        try
+        {
+            index = new GBPTree<>( pageCache, storeFile, layout, pageSize, monitor, readRebuilding,
+                    needsRebuildingWriter, recoveryCleanupWorkCollector );
+        }
+        catch ( MetadataMismatchException e )
+        {
+            // The store may have been created with the other layout, before sparse ranges were enabled or disabled
+            LabelScanLayout otherLayout = sparseRanges ? new LabelScanLayout() : new SparseLabelScanLayout();
+            try
+            {
+                index = new GBPTree<>( pageCache, storeFile, otherLayout, pageSize, monitor, readRebuilding,
+                        needsRebuildingWriter, recoveryCleanupWorkCollector );
+            }
+            catch ( MetadataMismatchException other )
+            {
+                e.addSuppressed( other );
+                throw e;
+            }
+        }
         return isRebuilding.getValue();
     }
 
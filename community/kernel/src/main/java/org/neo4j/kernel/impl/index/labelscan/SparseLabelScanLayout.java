@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link LabelScanLayout} which stores each value in one of two containers, depending on how many nodes of the
+ * range have the label:
+ *
+ * <ul>
+ * <li>
+ * An array container, for ranges with less than {@value #MAX_ARRAY_CONTAINER_SIZE} nodes. It holds one byte per
+ * node, which is the offset of the node in the range.
+ * </li>
+ * <li>
+ * A bitmap container for all other ranges, which is the 64-bit bit set of {@link LabelScanLayout}.
+ * </li>
+ * </ul>
+ * The container is given by the size of the value, so values are not of fixed size and the tree stores them in
+ * its compressed node format, which also shares the common bytes of keys in the same node. Ranges of labels
+ * with few nodes spread over the store then take one byte per node for their value, instead of eight.
+ * Values are read back into the same 64-bit bit sets, so readers don't see the difference.
+ * <p>
+ * Label scan stores created with this layout have a different major version than those created with
+ * {@link LabelScanLayout}, so that the two can be told apart when opening an existing store.
+ */
+class SparseLabelScanLayout extends LabelScanLayout
+{
+    /**
+     * Ranges with this many nodes, or more, are stored as a bitmap, since an array would be at least as big.
+     */
+    static final int MAX_ARRAY_CONTAINER_SIZE = LabelScanValue.RANGE_SIZE_BYTES;
+
+    @Override
+    public boolean fixedValueSize()
+    {
+        return false;
+    }
+
+    @Override
+    public int valueSize( LabelScanValue value )
+    {
+        int nodes = Long.bitCount( value.bits );
+        return nodes < MAX_ARRAY_CONTAINER_SIZE ? nodes : LabelScanValue.RANGE_SIZE_BYTES;
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, LabelScanValue value )
+    {
+        long bits = value.bits;
+        if ( Long.bitCount( bits ) >= MAX_ARRAY_CONTAINER_SIZE )
+        {
+            cursor.putLong( bits );
+            return;
+        }
+        while ( bits != 0 )
+        {
+            cursor.putByte( (byte) Long.numberOfTrailingZeros( bits ) );
+            bits &= bits - 1;
+        }
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, LabelScanValue into )
+    {
+        readValue( cursor, into, LabelScanValue.RANGE_SIZE_BYTES );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, LabelScanValue into, int valueSize )
+    {
+        if ( valueSize >= MAX_ARRAY_CONTAINER_SIZE )
+        {
+            into.bits = cursor.getLong();
+            return;
+        }
+        long bits = 0;
+        for ( int i = 0; i < valueSize; i++ )
+        {
+            // Masked, since the value may be read while it's being changed, in which case the read is retried
+            bits |= 1L << (cursor.getByte() & (LabelScanValue.RANGE_SIZE - 1));
+        }
+        into.bits = bits;
+    }
+
+    @Override
+    public int majorVersion()
+    {
+        return 1;
+    }
+
+    @Override
+    public int minorVersion()
+    {
+        return 0;
+    }
+}
@@ -26,19 +26,22 @@ import org.neo4j.index.internal.gbptree.Writer;
  * {@link ValueMerger} which will merely detect conflict, not change any value if conflict, i.e. if the
  * key already exists. After this merge has been used in a call to {@link Writer#merge(Object, Object, ValueMerger)}
  * the {@link #wasConflict()} accessor can be called to check whether or not that call conflicted with
- * an existing key. A call to {@link #wasConflict()} will also clear the conflict flag.
+ * an existing key. A call to {@link #wasConflict()} will also clear the conflict flag. Similarly {@link #wasMerged()}
+ * can be called to check whether or not the key already existed at all.
  *
  * @param <VALUE> type of values being merged.
  */
-class ConflictDetectingValueMerger<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> implements ValueMerger<KEY,VALUE>
+class ConflictDetectingValueMerger<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> implements ValueMerger<KEY,VALUE>
 {
     private boolean conflict;
+    private boolean merged;
     private long existingNodeId;
     private long addedNodeId;
 
     @Override
     public VALUE merge( KEY existingKey, KEY newKey, VALUE existingValue, VALUE newValue )
     {
+        merged = true;
         if ( existingKey.entityId != newKey.entityId )
         {
             conflict = true;
@@ -61,6 +64,16 @@ class ConflictDetectingValueMerger<KEY extends SchemaNumberKey, VALUE extends Sc
         return result;
     }
 
+    /**
+     * @return whether or not merge was called, i.e. whether or not the key already existed. This call also clears the merged flag.
+     */
+    boolean wasMerged()
+    {
+        boolean result = merged;
+        merged = false;
+        return result;
+    }
+
     long existingNodeId()
     {
         return existingNodeId;
@@ -0,0 +1,240 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.IndexSample;
+
+/**
+ * Keeps an {@link IndexSample} of a native schema index up to date as entries are added and removed, so that
+ * sampling never needs to scan the index.
+ * <p>
+ * The number of entries in the index is counted exactly. Unique values are estimated from a distinct sample:
+ * a value is part of the sample if the lowest {@code level} bits of its hash are all zero, which is the case for
+ * roughly one in 2^level of all unique values, regardless of how many entries each value has. For the values in
+ * the sample the number of entries is counted exactly, which means that removing entries is as exact as adding
+ * them. Whenever the sample grows beyond its capacity the level is increased, dropping about half of the sampled
+ * values. Since the ratio between unique values and entries is the same in the sample as in the index,
+ * the sample can be used for selectivity estimates as is. For the same reason the sampled values, weighted by
+ * their number of entries, make up a histogram of the values in the index. The number value of each sampled key
+ * is therefore kept along with its count, see {@link #numberHistogram()}.
+ * <p>
+ * The state is small enough to be stored in the header of the {@link GBPTree}, see {@link #write(PageCursor)}
+ * and {@link #read(ByteBuffer, int)}. Adding and removing must be done while holding the writer of the tree
+ * and writing while holding the check point lock, for the written state to match the entries of the tree.
+ */
+class IncrementalIndexSampler
+{
+    private static final byte FORMAT_VERSION = 2;
+    private static final int MAX_CAPACITY = 256;
+    private static final int ENTRY_SIZE = Long.BYTES * 3;
+    private static final int HISTOGRAM_BUCKETS = 16;
+
+    private final int capacity;
+    private final Map<Long,SampledValue> sampledValues = new HashMap<>();
+    private long indexSize;
+    private int level;
+
+    IncrementalIndexSampler( int capacity )
+    {
+        this.capacity = capacity;
+    }
+
+    /**
+     * @param pageSize size of the pages of the tree whose header this sampler is stored in.
+     * @return capacity of a sampler which fits comfortably in a header of a tree with the given page size.
+     */
+    static int capacityFor( int pageSize )
+    {
+        return Math.max( 1, Math.min( MAX_CAPACITY, pageSize / 2 / ENTRY_SIZE ) );
+    }
+
+    /**
+     * Includes an entry, added to the index, with the value of the given key.
+     *
+     * @param key key of the added entry.
+     */
+    synchronized void include( NativeSchemaKey key )
+    {
+        indexSize++;
+        long hash = mix( key.valueHash() );
+        if ( isSampled( hash ) )
+        {
+            sampledValues.computeIfAbsent( hash, sampledHash -> new SampledValue( key.numberValue() ) ).count++;
+            while ( sampledValues.size() > capacity )
+            {
+                level++;
+                sampledValues.keySet().removeIf( sampledHash -> !isSampled( sampledHash ) );
+            }
+        }
+    }
+
+    /**
+     * Excludes an entry, removed from the index, with the value of the given key.
+     *
+     * @param key key of the removed entry.
+     */
+    synchronized void exclude( NativeSchemaKey key )
+    {
+        indexSize = Math.max( 0, indexSize - 1 );
+        long hash = mix( key.valueHash() );
+        if ( isSampled( hash ) )
+        {
+            SampledValue sampled = sampledValues.get( hash );
+            if ( sampled != null && --sampled.count == 0 )
+            {
+                sampledValues.remove( hash );
+            }
+        }
+    }
+
+    synchronized IndexSample result()
+    {
+        return new IndexSample( indexSize, sampledValues.size(), sampleSize() );
+    }
+
+    /**
+     * Histogram of the number values of the sampled keys, weighted by their number of entries. Keys which aren't
+     * numbers, see {@link NativeSchemaKey#numberValue()}, are left out. Cheap enough to be built whenever it's
+     * asked for, since the sample is small.
+     *
+     * @return histogram of the values in the index, or {@code null} if there are no sampled number values.
+     */
+    synchronized IndexHistogram numberHistogram()
+    {
+        TreeMap<Double,Long> numberValues = new TreeMap<>();
+        long numberSampleSize = 0;
+        for ( SampledValue sampled : sampledValues.values() )
+        {
+            if ( !Double.isNaN( sampled.numberValue ) )
+            {
+                numberValues.merge( sampled.numberValue, sampled.count, Long::sum );
+                numberSampleSize += sampled.count;
+            }
+        }
+        if ( numberSampleSize == 0 )
+        {
+            return null;
+        }
+        double[] values = new double[numberValues.size()];
+        long[] counts = new long[numberValues.size()];
+        int i = 0;
+        for ( Map.Entry<Double,Long> entry : numberValues.entrySet() )
+        {
+            values[i] = entry.getKey();
+            counts[i] = entry.getValue();
+            i++;
+        }
+        // The share of number values is the same in the sample as in the index
+        long numberOfEntries = Math.round( (double) indexSize * numberSampleSize / sampleSize() );
+        return IndexHistogram.equiDepth( values, counts, HISTOGRAM_BUCKETS, numberOfEntries );
+    }
+
+    private long sampleSize()
+    {
+        long sampleSize = 0;
+        for ( SampledValue sampled : sampledValues.values() )
+        {
+            sampleSize += sampled.count;
+        }
+        return sampleSize;
+    }
+
+    synchronized void write( PageCursor cursor )
+    {
+        cursor.putByte( FORMAT_VERSION );
+        cursor.putLong( indexSize );
+        cursor.putByte( (byte) level );
+        cursor.putInt( sampledValues.size() );
+        for ( Map.Entry<Long,SampledValue> entry : sampledValues.entrySet() )
+        {
+            cursor.putLong( entry.getKey() );
+            cursor.putLong( entry.getValue().count );
+            cursor.putLong( Double.doubleToLongBits( entry.getValue().numberValue ) );
+        }
+    }
+
+    /**
+     * @param buffer header data positioned where a sampler was {@link #write(PageCursor) written}.
+     * @param capacity capacity of the read sampler.
+     * @return the read sampler, or {@code null} if there's no sampler of the current format in the header data.
+     */
+    static IncrementalIndexSampler read( ByteBuffer buffer, int capacity )
+    {
+        if ( !buffer.hasRemaining() || buffer.get() != FORMAT_VERSION )
+        {
+            return null;
+        }
+        IncrementalIndexSampler sampler = new IncrementalIndexSampler( capacity );
+        sampler.indexSize = buffer.getLong();
+        sampler.level = buffer.get();
+        int numberOfSampledValues = buffer.getInt();
+        for ( int i = 0; i < numberOfSampledValues; i++ )
+        {
+            long hash = buffer.getLong();
+            long count = buffer.getLong();
+            SampledValue sampled = new SampledValue( Double.longBitsToDouble( buffer.getLong() ) );
+            sampled.count = count;
+            sampler.sampledValues.put( hash, sampled );
+        }
+        return sampler;
+    }
+
+    private boolean isSampled( long hash )
+    {
+        return Long.numberOfTrailingZeros( hash ) >= level;
+    }
+
+    /**
+     * Spreads the bits of the given hash, so that the lowest bits are well distributed, using the finalizer
+     * of MurmurHash3.
+     */
+    private static long mix( long hash )
+    {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A sampled value, whose entries are counted. Keys of different values may have the same hash,
+     * in which case the number value is that of the first of them to be sampled.
+     */
+    private static class SampledValue
+    {
+        private final double numberValue;
+        private long count;
+
+        SampledValue( double numberValue )
+        {
+            this.numberValue = numberValue;
+        }
+    }
+}
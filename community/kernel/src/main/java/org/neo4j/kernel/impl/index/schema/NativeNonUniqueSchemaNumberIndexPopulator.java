@@ -21,8 +21,10 @@ package org.neo4j.kernel.impl.index.schema;
 
 import java.io.File;
 import java.io.IOException;
-import java.io.UncheckedIOException;
+import java.util.Collection;
 
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.Hit;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
@@ -31,58 +33,100 @@ import org.neo4j.kernel.impl.api.index.sampling.DefaultNonUniqueIndexSampler;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.api.index.sampling.NonUniqueIndexSampler;
 import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 
 /**
  * {@link NativeSchemaNumberIndexPopulator} which can accept duplicate values (for different entity ids).
+ * <p>
+ * Since entries can't conflict, updates are not applied to the tree as they come. Instead they are collected and
+ * sorted by a {@link NumberIndexEntrySorter}, and the tree is bulk loaded from the sorted entries when population
+ * completes.
  */
 class NativeNonUniqueSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
         extends NativeSchemaNumberIndexPopulator<KEY,VALUE>
 {
+    private static final int SORT_BATCH_SIZE =
+            FeatureToggles.getInteger( NativeNonUniqueSchemaNumberIndexPopulator.class, "sortBatchSize", 1 << 20 );
+    private static final int SORT_MERGE_FACTOR =
+            FeatureToggles.getInteger( NativeNonUniqueSchemaNumberIndexPopulator.class, "sortMergeFactor", 64 );
+    private static final double BULK_LOAD_FILL_FACTOR =
+            FeatureToggles.getDouble( NativeNonUniqueSchemaNumberIndexPopulator.class, "bulkLoadFillFactor", 0.9 );
+
     private final IndexSamplingConfig samplingConfig;
+    private final FileSystemAbstraction fs;
     private boolean updateSampling;
     private NonUniqueIndexSampler sampler;
+    private NumberIndexEntrySorter<KEY,VALUE> sorter;
 
     NativeNonUniqueSchemaNumberIndexPopulator( PageCache pageCache, FileSystemAbstraction fs, File storeFile, Layout<KEY,VALUE> layout,
             IndexSamplingConfig samplingConfig )
     {
         super( pageCache, fs, storeFile, layout );
+        this.fs = fs;
         this.samplingConfig = samplingConfig;
         this.sampler = new DefaultNonUniqueIndexSampler( samplingConfig.sampleSizeLimit() );
     }
 
     @Override
-    public void includeSample( IndexEntryUpdate<?> update )
+    public synchronized void create() throws IOException
     {
-        sampler.include( SamplingUtil.encodedStringValuesForSampling( (Object[]) update.values() ) );
+        super.create();
+        sorter = new NumberIndexEntrySorter<>( fs, storeFile, layout, SORT_BATCH_SIZE, SORT_MERGE_FACTOR );
     }
 
     @Override
-    public IndexSample sampleResult()
+    void processUpdates( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    {
+        sorter.addAll( updates );
+    }
+
+    @Override
+    public synchronized void drop() throws IOException
     {
-        // Close the writer before scanning
         try
         {
-            closeWriter();
+            closeSorter();
         }
-        catch ( IOException e )
+        finally
         {
-            throw new UncheckedIOException( e );
+            super.drop();
         }
+    }
 
+    @Override
+    public synchronized void close( boolean populationCompletedSuccessfully ) throws IOException
+    {
         try
         {
-            return sampler.result();
+            if ( populationCompletedSuccessfully && sorter != null )
+            {
+                try ( RawCursor<Hit<KEY,VALUE>,IOException> entries = sorter.sortedEntries() )
+                {
+                    tree.bulkLoad( entries, BULK_LOAD_FILL_FACTOR );
+                }
+            }
         }
         finally
         {
-            try
-            {
-                instantiateWriter();
-            }
-            catch ( IOException e )
-            {
-                throw new UncheckedIOException( e );
-            }
+            closeSorter();
         }
+        super.close( populationCompletedSuccessfully );
+    }
+
+    private void closeSorter() throws IOException
+    {
+        sorter = closeIfPresent( sorter );
+    }
+
+    @Override
+    public void includeSample( IndexEntryUpdate<?> update )
+    {
+        sampler.include( SamplingUtil.encodedStringValuesForSampling( (Object[]) update.values() ) );
+    }
+
+    @Override
+    public IndexSample sampleResult()
+    {
+        return sampler.result();
     }
 }
@@ -0,0 +1,162 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.BoundedIterable;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.storageengine.api.schema.IndexReader;
+
+import static org.neo4j.helpers.collection.Iterators.asResourceIterator;
+import static org.neo4j.helpers.collection.Iterators.iterator;
+import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
+
+/**
+ * Base {@link IndexAccessor} for native schema indexes, backed by a {@link GBPTree}.
+ * Subclasses decide which {@link IndexReader} to use for reading the tree, see {@link #newReader()}.
+ * <p>
+ * An {@link IncrementalIndexSampler}, seeded when the index was populated, is kept in the header of the tree
+ * and updated along with the tree, such that index samples can be provided without scanning the index.
+ * Indexes populated before there was such a sampler in the header are sampled by scanning them, see {@link #sampler}.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
+ */
+public abstract class NativeSchemaIndexAccessor<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaNumberIndex<KEY,VALUE> implements IndexAccessor
+{
+    private final NativeSchemaNumberIndexUpdater<KEY,VALUE> singleUpdater;
+
+    /**
+     * Sampler read from the header of the tree, or {@code null} if there was none.
+     */
+    final IncrementalIndexSampler sampler;
+
+    NativeSchemaIndexAccessor( PageCache pageCache, FileSystemAbstraction fs, File storeFile,
+            Layout<KEY,VALUE> layout, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector ) throws IOException
+    {
+        super( pageCache, fs, storeFile, layout );
+        SamplerHeaderReader headerReader = new SamplerHeaderReader( IncrementalIndexSampler.capacityFor( pageCache.pageSize() ) );
+        instantiateTree( recoveryCleanupWorkCollector, headerReader, NO_HEADER_WRITER );
+        sampler = headerReader.sampler;
+        singleUpdater = new NativeSchemaNumberIndexUpdater<>( layout.newKey(), layout.newValue(), sampler );
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        closeTree();
+        gbpTreeFileUtil.deleteFile( storeFile );
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        assertOpen();
+        try
+        {
+            return singleUpdater.initialize( tree.writer(), true );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        // TODO add IOLimiter arg
+        if ( sampler != null )
+        {
+            // Written while holding the check point lock, so that the sampler matches the entries of the tree
+            tree.checkpoint( IOLimiter.unlimited(), pc ->
+            {
+                pc.putByte( BYTE_ONLINE );
+                sampler.write( pc );
+            } );
+        }
+        else
+        {
+            tree.checkpoint( IOLimiter.unlimited() );
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        closeTree();
+    }
+
+    @Override
+    public BoundedIterable<Long> newAllEntriesReader()
+    {
+        return new NumberAllEntriesReader<>( tree, layout );
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles() throws IOException
+    {
+        return asResourceIterator( iterator( storeFile ) );
+    }
+
+    @Override
+    public void verifyDeferredConstraints( PropertyAccessor propertyAccessor )
+            throws IndexEntryConflictException, IOException
+    {   // Not needed since uniqueness is verified automatically w/o cost for every update.
+    }
+
+    private static class SamplerHeaderReader implements Header.Reader
+    {
+        private final int capacity;
+        private IncrementalIndexSampler sampler;
+
+        SamplerHeaderReader( int capacity )
+        {
+            this.capacity = capacity;
+        }
+
+        @Override
+        public void read( ByteBuffer headerData )
+        {
+            if ( headerData.hasRemaining() && headerData.get() == BYTE_ONLINE )
+            {
+                sampler = IncrementalIndexSampler.read( headerData, capacity );
+            }
+        }
+    }
+}
@@ -0,0 +1,192 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
+import org.neo4j.logging.Log;
+import org.neo4j.logging.LogProvider;
+
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_FAILED;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_POPULATING;
+
+/**
+ * Base schema index provider for native indexes backed by e.g. {@link GBPTree}. Keeps track of index files
+ * and index states, whereas subclasses decide which {@link Layout layouts} and populators/accessors to use.
+ */
+public abstract class NativeSchemaIndexProvider extends SchemaIndexProvider
+{
+    final PageCache pageCache;
+    final FileSystemAbstraction fs;
+    final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
+    private final Log log;
+    private final boolean readOnly;
+
+    NativeSchemaIndexProvider( Descriptor descriptor, int priority, PageCache pageCache, FileSystemAbstraction fs,
+            IndexDirectoryStructure.Factory directoryStructure, LogProvider logging,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly )
+    {
+        super( descriptor, priority, directoryStructure );
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.log = logging.getLog( getClass() );
+        this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
+        this.readOnly = readOnly;
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+    {
+        if ( readOnly )
+        {
+            throw new UnsupportedOperationException( "Can't create populator for read only index" );
+        }
+
+        return newPopulator( nativeIndexFileFromIndexId( indexId ), descriptor, samplingConfig );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+            throws IOException
+    {
+        return newAccessor( nativeIndexFileFromIndexId( indexId ), descriptor, samplingConfig );
+    }
+
+    /**
+     * @param storeFile file of the index.
+     * @param descriptor {@link IndexDescriptor} of the index.
+     * @param samplingConfig {@link IndexSamplingConfig} for the index.
+     * @return a new {@link IndexPopulator} for the index in {@code storeFile}.
+     */
+    abstract IndexPopulator newPopulator( File storeFile, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig );
+
+    /**
+     * @param storeFile file of the index.
+     * @param descriptor {@link IndexDescriptor} of the index.
+     * @param samplingConfig {@link IndexSamplingConfig} for the index.
+     * @return a new {@link IndexAccessor} for the index in {@code storeFile}.
+     * @throws IOException on error opening the index.
+     */
+    abstract IndexAccessor newAccessor( File storeFile, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+            throws IOException;
+
+    /**
+     * Used when reading the header of an index without knowing which of the layouts of this provider it was
+     * created with, see {@link Layout#compatibleWith(long, int, int)}.
+     *
+     * @return whether or not the given layout identifier and version is one of the layouts of this provider.
+     */
+    abstract boolean compatibleLayout( long layoutIdentifier, int majorVersion, int minorVersion );
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        try
+        {
+            String failureMessage = readPopulationFailure( indexId );
+            if ( failureMessage == null )
+            {
+                throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+            }
+            return failureMessage;
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+    }
+
+    private String readPopulationFailure( long indexId ) throws IOException
+    {
+        NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
+        GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaLayout(),
+                headerReader );
+        return headerReader.failureMessage;
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
+    {
+        try
+        {
+            NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
+            GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaLayout(),
+                    headerReader );
+            switch ( headerReader.state )
+            {
+            case BYTE_FAILED:
+                return InternalIndexState.FAILED;
+            case BYTE_ONLINE:
+                return InternalIndexState.ONLINE;
+            case BYTE_POPULATING:
+                return InternalIndexState.POPULATING;
+            default:
+                throw new IllegalStateException( "Unexpected initial state byte value " + headerReader.state );
+            }
+        }
+        catch ( IOException e )
+        {
+            log.error( "Failed to open index:" + indexId + ", requesting re-population.", e );
+            return InternalIndexState.POPULATING;
+        }
+    }
+
+    @Override
+    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache )
+    {
+        // Since this native provider is a new one, there's no need for migration on this level.
+        // Migration should happen in the combined layer for the time being.
+        return StoreMigrationParticipant.NOT_PARTICIPATING;
+    }
+
+    private File nativeIndexFileFromIndexId( long indexId )
+    {
+        return new File( directoryStructure().directoryForIndex( indexId ), indexFileName( indexId ) );
+    }
+
+    private static String indexFileName( long indexId )
+    {
+        return "index-" + indexId;
+    }
+
+    private class ReadOnlyMetaLayout extends Layout.ReadOnlyMetaLayout
+    {
+        @Override
+        public boolean compatibleWith( long layoutIdentifier, int majorVersion, int minorVersion )
+        {
+            return compatibleLayout( layoutIdentifier, majorVersion, minorVersion );
+        }
+    }
+}
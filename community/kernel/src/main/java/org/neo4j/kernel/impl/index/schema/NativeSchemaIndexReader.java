@@ -0,0 +1,190 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.IOUtils;
+import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Base {@link IndexReader} for native schema indexes, backed by a {@link GBPTree}. Subclasses translate
+ * the queries they support into seeks in the tree, see {@link #startSeekForInitializedRange()}.
+ * Hits of a seek come in the order of the keys in the tree, or in reverse order for
+ * {@link IndexOrder#DESCENDING}, which seeks the tree backwards.
+ *
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
+ */
+abstract class NativeSchemaIndexReader<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
+        implements IndexReader
+{
+    final GBPTree<KEY,VALUE> tree;
+    final Layout<KEY,VALUE> layout;
+    final KEY treeKeyFrom;
+    final KEY treeKeyTo;
+    final Set<RawCursor<Hit<KEY,VALUE>,IOException>> openSeekers;
+    final IncrementalIndexSampler incrementalSampler;
+
+    /**
+     * Whether or not the query currently being initialized should seek the tree backwards.
+     */
+    private boolean descending;
+
+    /**
+     * @param incrementalSampler sampler kept up to date by the accessor, or {@code null} if the index
+     * must be scanned for sampling.
+     */
+    NativeSchemaIndexReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout, IncrementalIndexSampler incrementalSampler )
+    {
+        this.tree = tree;
+        this.layout = layout;
+        this.incrementalSampler = incrementalSampler;
+        this.treeKeyFrom = layout.newKey();
+        this.treeKeyTo = layout.newKey();
+        this.openSeekers = new HashSet<>();
+    }
+
+    @Override
+    public void close()
+    {
+        ensureOpenSeekersClosed();
+    }
+
+    @Override
+    public IndexSampler createSampler()
+    {
+        if ( incrementalSampler != null )
+        {
+            return incrementalSampler::result;
+        }
+
+        // For an unique index there's an optimization, knowing that all values in it are unique, to simply count
+        // the number of indexes values and create a sample for that count. The GBPTree doesn't have an O(1)
+        // count mechanism, it will have to manually count the indexed values in it to get it.
+        // For that reason this implementation opts for keeping complexity down by just using the existing
+        // non-unique sampler which scans the index and counts (potentially duplicates, of which there will
+        // be none in a unique index).
+
+        IndexSamplingConfig indexSamplingConfig = new IndexSamplingConfig( Config.defaults() );
+        FullScanNonUniqueIndexSampler<KEY,VALUE> sampler =
+                new FullScanNonUniqueIndexSampler<>( tree, layout, indexSamplingConfig );
+        return sampler::result;
+    }
+
+    @Override
+    public PrimitiveLongIterator query( IndexOrder order, IndexQuery... predicates )
+            throws IndexNotApplicableKernelException
+    {
+        if ( !supportsOrder( order, predicates ) )
+        {
+            throw new UnsupportedOperationException( "Ordered query not supported, " + order );
+        }
+        descending = order == IndexOrder.DESCENDING;
+        try
+        {
+            return query( predicates );
+        }
+        finally
+        {
+            descending = false;
+        }
+    }
+
+    @Override
+    public long countIndexedNodes( long nodeId, Value... propertyValues )
+    {
+        treeKeyFrom.from( nodeId, propertyValues );
+        treeKeyTo.from( nodeId, propertyValues );
+        try ( RawCursor<Hit<KEY,VALUE>,IOException> seeker = tree.seek( treeKeyFrom, treeKeyTo ) )
+        {
+            long count = 0;
+            while ( seeker.next() )
+            {
+                if ( seeker.get().key().entityId == nodeId )
+                {
+                    count++;
+                }
+            }
+            return count;
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    PrimitiveLongIterator startSeekForInitializedRange()
+    {
+        if ( layout.compare( treeKeyFrom, treeKeyTo ) > 0 )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+        try
+        {
+            RawCursor<Hit<KEY,VALUE>,IOException> seeker =
+                    descending ? tree.seek( treeKeyTo, treeKeyFrom ) : tree.seek( treeKeyFrom, treeKeyTo );
+            openSeekers.add( seeker );
+            return newHitIterator( seeker );
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+
+    /**
+     * @param seeker {@link RawCursor} of a seek initialized by a subclass.
+     * @return the entity ids of the hits of the {@code seeker}.
+     */
+    PrimitiveLongIterator newHitIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker )
+    {
+        return new NumberHitIterator<>( seeker, openSeekers );
+    }
+
+    private void ensureOpenSeekersClosed()
+    {
+        try
+        {
+            IOUtils.closeAll( openSeekers );
+            openSeekers.clear();
+        }
+        catch ( IOException e )
+        {
+            throw new UncheckedIOException( e );
+        }
+    }
+}
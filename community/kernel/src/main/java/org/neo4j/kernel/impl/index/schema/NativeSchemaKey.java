@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueWriter;
+
+/**
+ * Key in a native schema index {@link GBPTree}. Includes value(s) and entity id (to be able to handle non-unique values).
+ * How the value(s) are represented is up to each type of key.
+ */
+abstract class NativeSchemaKey extends ValueWriter.Adapter<RuntimeException>
+{
+    long entityId;
+
+    /**
+     * Marks that comparisons with this key requires also comparing entityId, this allows functionality
+     * of inclusive/exclusive bounds of range queries.
+     * This is because {@link GBPTree} only support from inclusive and to exclusive.
+     * <p>
+     * Note that {@code entityIdIsSpecialTieBreaker} is only an in memory state.
+     */
+    boolean entityIdIsSpecialTieBreaker;
+
+    /**
+     * Initializes this key with the given entity id and property value(s).
+     *
+     * @param entityId id of the entity, typically node id.
+     * @param values property value(s) of the entity.
+     */
+    abstract void from( long entityId, Value... values );
+
+    /**
+     * Initializes this key so that it's lower than any key in the tree, for use as lower bound in seeks.
+     */
+    abstract void initAsLowest();
+
+    /**
+     * Initializes this key so that it's higher than any key in the tree, for use as upper bound in seeks.
+     */
+    abstract void initAsHighest();
+
+    /**
+     * @return the value(s) of this key as a string, such that keys with equal values produce equal strings.
+     */
+    abstract String propertiesAsString();
+
+    /**
+     * @return hash of the value(s) of this key, such that keys with equal values produce equal hashes.
+     */
+    abstract long valueHash();
+
+    /**
+     * @return the value of this key as a {@code double}, for histograms of the values in the index,
+     * or {@link Double#NaN} if the value isn't a number.
+     */
+    abstract double numberValue();
+}
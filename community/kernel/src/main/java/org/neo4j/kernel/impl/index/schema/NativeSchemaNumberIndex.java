@@ -25,6 +25,7 @@ import java.io.IOException;
 import java.util.function.Consumer;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Header;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -35,7 +36,7 @@ import org.neo4j.kernel.impl.index.GBPTreeFileUtil;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_READER;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_MONITOR;
 
-class NativeSchemaNumberIndex<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+class NativeSchemaNumberIndex<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
 {
     final PageCache pageCache;
     final File storeFile;
@@ -54,9 +55,15 @@ class NativeSchemaNumberIndex<KEY extends SchemaNumberKey, VALUE extends SchemaN
 
     void instantiateTree( RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, Consumer<PageCursor> headerWriter )
             throws IOException
+    {
+        instantiateTree( recoveryCleanupWorkCollector, NO_HEADER_READER, headerWriter );
+    }
+
+    void instantiateTree( RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, Header.Reader headerReader,
+            Consumer<PageCursor> headerWriter ) throws IOException
     {
         ensureDirectoryExist();
-        tree = new GBPTree<>( pageCache, storeFile, layout, 0, NO_MONITOR, NO_HEADER_READER, headerWriter,
+        tree = new GBPTree<>( pageCache, storeFile, layout, 0, NO_MONITOR, headerReader, headerWriter,
                 recoveryCleanupWorkCollector );
     }
 
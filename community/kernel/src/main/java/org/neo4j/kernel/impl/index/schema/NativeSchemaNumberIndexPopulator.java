@@ -24,12 +24,10 @@ import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.concurrent.ExecutionException;
 
-import org.neo4j.concurrent.Work;
-import org.neo4j.concurrent.WorkSync;
-import org.neo4j.helpers.Exceptions;
+import org.neo4j.cursor.RawCursor;
 import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
 import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.index.internal.gbptree.Writer;
@@ -47,31 +45,22 @@ import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
 /**
  * {@link IndexPopulator} backed by a {@link GBPTree}.
  *
- * @param <KEY> type of {@link SchemaNumberKey}.
- * @param <VALUE> type of {@link SchemaNumberValue}.
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
  */
-public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+public abstract class NativeSchemaNumberIndexPopulator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
         extends NativeSchemaNumberIndex<KEY,VALUE> implements IndexPopulator
 {
     static final byte BYTE_FAILED = 0;
     static final byte BYTE_ONLINE = 1;
     static final byte BYTE_POPULATING = 2;
 
-    private final KEY treeKey;
-    private final VALUE treeValue;
-    private final ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger;
-    private WorkSync<IndexUpdateApply<KEY,VALUE>,IndexUpdateWork<KEY,VALUE>> workSync;
-
-    private Writer<KEY,VALUE> singleTreeWriter;
     private byte[] failureBytes;
     private boolean dropped;
 
     NativeSchemaNumberIndexPopulator( PageCache pageCache, FileSystemAbstraction fs, File storeFile, Layout<KEY,VALUE> layout )
     {
         super( pageCache, fs, storeFile, layout );
-        this.treeKey = layout.newKey();
-        this.treeValue = layout.newValue();
-        this.conflictDetectingValueMerger = new ConflictDetectingValueMerger<>();
     }
 
     @Override
@@ -79,14 +68,6 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     {
         gbpTreeFileUtil.deleteFileIfPresent( storeFile );
         instantiateTree( RecoveryCleanupWorkCollector.IMMEDIATE, new NativeSchemaIndexHeaderWriter( BYTE_POPULATING ) );
-        instantiateWriter();
-        workSync = new WorkSync<>( new IndexUpdateApply<>( treeKey, treeValue, singleTreeWriter, conflictDetectingValueMerger ) );
-    }
-
-    void instantiateWriter() throws IOException
-    {
-        assert singleTreeWriter == null;
-        singleTreeWriter = tree.writer();
     }
 
     @Override
@@ -94,7 +75,6 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     {
         try
         {
-            closeWriter();
             closeTree();
             gbpTreeFileUtil.deleteFileIfPresent( storeFile );
         }
@@ -107,7 +87,7 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     @Override
     public void add( Collection<? extends IndexEntryUpdate<?>> updates ) throws IndexEntryConflictException, IOException
     {
-        applyWithWorkSync( updates );
+        processUpdates( updates );
     }
 
     @Override
@@ -135,7 +115,7 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
             @Override
             public void close() throws IOException, IndexEntryConflictException
             {
-                applyWithWorkSync( updates );
+                processUpdates( updates );
                 closed = true;
             }
 
@@ -152,7 +132,6 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
     @Override
     public synchronized void close( boolean populationCompletedSuccessfully ) throws IOException
     {
-        closeWriter();
         if ( populationCompletedSuccessfully && failureBytes != null )
         {
             throw new IllegalStateException( "Can't mark index as online after it has been marked as failure" );
@@ -178,15 +157,30 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
         }
     }
 
-    private void applyWithWorkSync( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    /**
+     * Applies updates from the store scan, as well as concurrent updates, to the tree.
+     * <p>
+     * Batches from the store scan are added from multiple threads at the same time, and concern distinct entities,
+     * so each call applies its updates through its own {@link GBPTree#concurrentWriter() concurrent writer}.
+     * Conflicting values from different entities are still detected, since changes to the same leaf are serialized
+     * by the tree.
+     *
+     * @param updates updates to apply, in the order they happened.
+     * @throws IOException on error applying the updates.
+     * @throws IndexEntryConflictException if an added value conflicts with an existing one.
+     */
+    void processUpdates( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException, IndexEntryConflictException
     {
-        try
-        {
-            workSync.apply( new IndexUpdateWork<>( updates ) );
-        }
-        catch ( ExecutionException e )
+        KEY treeKey = layout.newKey();
+        VALUE treeValue = layout.newValue();
+        ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger = new ConflictDetectingValueMerger<>();
+        try ( Writer<KEY,VALUE> writer = tree.concurrentWriter() )
         {
-            throw Exceptions.launderedException( IOException.class, e );
+            for ( IndexEntryUpdate<?> indexEntryUpdate : updates )
+            {
+                NativeSchemaNumberIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer,
+                        conflictDetectingValueMerger );
+            }
         }
     }
 
@@ -231,61 +225,32 @@ public abstract class NativeSchemaNumberIndexPopulator<KEY extends SchemaNumberK
 
     private void markTreeAsOnline() throws IOException
     {
-        tree.checkpoint( IOLimiter.unlimited(), pc -> pc.putByte( BYTE_ONLINE ) );
-    }
-
-    void closeWriter() throws IOException
-    {
-        singleTreeWriter = closeIfPresent( singleTreeWriter );
-    }
-
-    private static class IndexUpdateApply<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-    {
-        private final KEY treeKey;
-        private final VALUE treeValue;
-        private final Writer<KEY,VALUE> writer;
-        private final ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger;
-
-        IndexUpdateApply( KEY treeKey, VALUE treeValue, Writer<KEY,VALUE> writer,
-                ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger )
+        IncrementalIndexSampler sampler = sampleTree();
+        tree.checkpoint( IOLimiter.unlimited(), pc ->
         {
-            this.treeKey = treeKey;
-            this.treeValue = treeValue;
-            this.writer = writer;
-            this.conflictDetectingValueMerger = conflictDetectingValueMerger;
-        }
-
-        public void process( IndexEntryUpdate<?> indexEntryUpdate ) throws Exception
-        {
-            NativeSchemaNumberIndexUpdater.processUpdate( treeKey, treeValue, indexEntryUpdate, writer, conflictDetectingValueMerger );
-        }
+            pc.putByte( BYTE_ONLINE );
+            sampler.write( pc );
+        } );
     }
 
-    private static class IndexUpdateWork<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-            implements Work<IndexUpdateApply<KEY,VALUE>,IndexUpdateWork<KEY,VALUE>>
+    /**
+     * Scans the populated tree once, to seed the {@link IncrementalIndexSampler} which the online index keeps
+     * up to date from there on, see {@link NativeSchemaIndexAccessor}.
+     */
+    private IncrementalIndexSampler sampleTree() throws IOException
     {
-        private final Collection<? extends IndexEntryUpdate<?>> updates;
-
-        IndexUpdateWork( Collection<? extends IndexEntryUpdate<?>> updates )
+        IncrementalIndexSampler sampler = new IncrementalIndexSampler( IncrementalIndexSampler.capacityFor( pageCache.pageSize() ) );
+        KEY lowest = layout.newKey();
+        lowest.initAsLowest();
+        KEY highest = layout.newKey();
+        highest.initAsHighest();
+        try ( RawCursor<Hit<KEY,VALUE>,IOException> seek = tree.seek( lowest, highest ) )
         {
-            this.updates = updates;
-        }
-
-        @Override
-        public IndexUpdateWork<KEY,VALUE> combine( IndexUpdateWork<KEY,VALUE> work )
-        {
-            ArrayList<IndexEntryUpdate<?>> combined = new ArrayList<>( updates );
-            combined.addAll( work.updates );
-            return new IndexUpdateWork<>( combined );
-        }
-
-        @Override
-        public void apply( IndexUpdateApply<KEY,VALUE> indexUpdateApply ) throws Exception
-        {
-            for ( IndexEntryUpdate<?> indexEntryUpdate : updates )
+            while ( seek.next() )
             {
-                indexUpdateApply.process( indexEntryUpdate );
+                sampler.include( seek.get().key() );
             }
         }
+        return sampler;
     }
 }
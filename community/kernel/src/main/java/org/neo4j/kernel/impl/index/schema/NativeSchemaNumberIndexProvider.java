@@ -23,59 +23,33 @@ import java.io.File;
 import java.io.IOException;
 
 import org.neo4j.index.internal.gbptree.GBPTree;
-import org.neo4j.index.internal.gbptree.Layout;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.kernel.api.index.IndexPopulator;
-import org.neo4j.kernel.api.index.InternalIndexState;
-import org.neo4j.kernel.api.index.SchemaIndexProvider;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
-import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
-import org.neo4j.logging.Log;
 import org.neo4j.logging.LogProvider;
 
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_FAILED;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
-import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_POPULATING;
-
 /**
  * Schema index provider for native indexes backed by e.g. {@link GBPTree}.
  */
-public class NativeSchemaNumberIndexProvider extends SchemaIndexProvider
+public class NativeSchemaNumberIndexProvider extends NativeSchemaIndexProvider
 {
     public static final String KEY = "native";
     public static final Descriptor NATIVE_PROVIDER_DESCRIPTOR = new Descriptor( KEY, "1.0" );
 
-    private final PageCache pageCache;
-    private final FileSystemAbstraction fs;
-    private final Log log;
-    private final RecoveryCleanupWorkCollector recoveryCleanupWorkCollector;
-    private final boolean readOnly;
-
     public NativeSchemaNumberIndexProvider( PageCache pageCache, FileSystemAbstraction fs, IndexDirectoryStructure.Factory directoryStructure,
             LogProvider logging, RecoveryCleanupWorkCollector recoveryCleanupWorkCollector, boolean readOnly )
     {
-        super( NATIVE_PROVIDER_DESCRIPTOR, 0, directoryStructure );
-        this.pageCache = pageCache;
-        this.fs = fs;
-        this.log = logging.getLog( getClass() );
-        this.recoveryCleanupWorkCollector = recoveryCleanupWorkCollector;
-        this.readOnly = readOnly;
+        super( NATIVE_PROVIDER_DESCRIPTOR, 0, pageCache, fs, directoryStructure, logging, recoveryCleanupWorkCollector, readOnly );
     }
 
     @Override
-    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
+    IndexPopulator newPopulator( File storeFile, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
     {
-        if ( readOnly )
-        {
-            throw new UnsupportedOperationException( "Can't create populator for read only index" );
-        }
-
-        File storeFile = nativeIndexFileFromIndexId( indexId );
         switch ( descriptor.type() )
         {
         case GENERAL:
@@ -88,10 +62,8 @@ public class NativeSchemaNumberIndexProvider extends SchemaIndexProvider
     }
 
     @Override
-    public IndexAccessor getOnlineAccessor( long indexId, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig )
-            throws IOException
+    IndexAccessor newAccessor( File storeFile, IndexDescriptor descriptor, IndexSamplingConfig samplingConfig ) throws IOException
     {
-        File storeFile = nativeIndexFileFromIndexId( indexId );
         NumberLayout layout;
         switch ( descriptor.type() )
         {
@@ -108,87 +80,13 @@ public class NativeSchemaNumberIndexProvider extends SchemaIndexProvider
     }
 
     @Override
-    public String getPopulationFailure( long indexId ) throws IllegalStateException
-    {
-        try
-        {
-            String failureMessage = readPopulationFailure( indexId );
-            if ( failureMessage == null )
-            {
-                throw new IllegalStateException( "Index " + indexId + " isn't failed" );
-            }
-            return failureMessage;
-        }
-        catch ( IOException e )
-        {
-            throw new RuntimeException( e );
-        }
-    }
-
-    private String readPopulationFailure( long indexId ) throws IOException
-    {
-        NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
-        GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaNumberLayout(),
-                headerReader );
-        return headerReader.failureMessage;
-    }
-
-    @Override
-    public InternalIndexState getInitialState( long indexId, IndexDescriptor descriptor )
+    boolean compatibleLayout( long layoutIdentifier, int majorVersion, int minorVersion )
     {
-        try
-        {
-            NativeSchemaIndexHeaderReader headerReader = new NativeSchemaIndexHeaderReader();
-            GBPTree.readHeader( pageCache, nativeIndexFileFromIndexId( indexId ), new ReadOnlyMetaNumberLayout(),
-                    headerReader );
-            switch ( headerReader.state )
-            {
-            case BYTE_FAILED:
-                return InternalIndexState.FAILED;
-            case BYTE_ONLINE:
-                return InternalIndexState.ONLINE;
-            case BYTE_POPULATING:
-                return InternalIndexState.POPULATING;
-            default:
-                throw new IllegalStateException( "Unexpected initial state byte value " + headerReader.state );
-            }
-        }
-        catch ( IOException e )
-        {
-            log.error( "Failed to open index:" + indexId + ", requesting re-population.", e );
-            return InternalIndexState.POPULATING;
-        }
-    }
-
-    @Override
-    public StoreMigrationParticipant storeMigrationParticipant( FileSystemAbstraction fs, PageCache pageCache )
-    {
-        // Since this native provider is a new one, there's no need for migration on this level.
-        // Migration should happen in the combined layer for the time being.
-        return StoreMigrationParticipant.NOT_PARTICIPATING;
-    }
-
-    private File nativeIndexFileFromIndexId( long indexId )
-    {
-        return new File( directoryStructure().directoryForIndex( indexId ), indexFileName( indexId ) );
-    }
-
-    private static String indexFileName( long indexId )
-    {
-        return "index-" + indexId;
-    }
-
-    private class ReadOnlyMetaNumberLayout extends Layout.ReadOnlyMetaLayout
-    {
-        @Override
-        public boolean compatibleWith( long layoutIdentifier, int majorVersion, int minorVersion )
-        {
-            return (layoutIdentifier == UniqueNumberLayout.IDENTIFIER &&
-                    majorVersion == UniqueNumberLayout.MAJOR_VERSION &&
-                    minorVersion == UniqueNumberLayout.MINOR_VERSION) ||
-                    (layoutIdentifier == NonUniqueNumberLayout.IDENTIFIER &&
-                            majorVersion == NonUniqueNumberLayout.MAJOR_VERSION &&
-                            minorVersion == NonUniqueNumberLayout.MINOR_VERSION);
-        }
+        return (layoutIdentifier == UniqueNumberLayout.IDENTIFIER &&
+                majorVersion == UniqueNumberLayout.MAJOR_VERSION &&
+                minorVersion == UniqueNumberLayout.MINOR_VERSION) ||
+                (layoutIdentifier == NonUniqueNumberLayout.IDENTIFIER &&
+                        majorVersion == NonUniqueNumberLayout.MAJOR_VERSION &&
+                        minorVersion == NonUniqueNumberLayout.MINOR_VERSION);
     }
 }
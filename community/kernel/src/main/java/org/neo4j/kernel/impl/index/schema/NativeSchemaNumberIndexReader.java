@@ -20,89 +20,39 @@
 package org.neo4j.kernel.impl.index.schema;
 
 import java.io.IOException;
-import java.io.UncheckedIOException;
-import java.util.HashSet;
-import java.util.Set;
 
-import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.RawCursor;
 import org.neo4j.index.internal.gbptree.GBPTree;
 import org.neo4j.index.internal.gbptree.Hit;
 import org.neo4j.index.internal.gbptree.Layout;
-import org.neo4j.io.IOUtils;
 import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.NumberRangePredicate;
-import org.neo4j.kernel.configuration.Config;
-import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
-import org.neo4j.storageengine.api.schema.IndexReader;
-import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueGroup;
 
 class NativeSchemaNumberIndexReader<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
-        implements IndexReader
+        extends NativeSchemaIndexReader<KEY,VALUE>
 {
-    private final GBPTree<KEY,VALUE> tree;
-    private final Layout<KEY,VALUE> layout;
-    private final KEY treeKeyFrom;
-    private final KEY treeKeyTo;
-    private final Set<RawCursor<Hit<KEY,VALUE>,IOException>> openSeekers;
+    /**
+     * Whether or not the query currently being initialized should provide the values of its hits.
+     */
+    private boolean withValues;
 
-    NativeSchemaNumberIndexReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout )
+    NativeSchemaNumberIndexReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout, IncrementalIndexSampler incrementalSampler )
     {
-        this.tree = tree;
-        this.layout = layout;
-        this.treeKeyFrom = layout.newKey();
-        this.treeKeyTo = layout.newKey();
-        this.openSeekers = new HashSet<>();
+        super( tree, layout, incrementalSampler );
     }
 
     @Override
-    public void close()
+    public IndexHistogram histogram()
     {
-        ensureOpenSeekersClosed();
-    }
-
-    @Override
-    public IndexSampler createSampler()
-    {
-        // For an unique index there's an optimization, knowing that all values in it are unique, to simply count
-        // the number of indexes values and create a sample for that count. The GBPTree doesn't have an O(1)
-        // count mechanism, it will have to manually count the indexed values in it to get it.
-        // For that reason this implementation opts for keeping complexity down by just using the existing
-        // non-unique sampler which scans the index and counts (potentially duplicates, of which there will
-        // be none in a unique index).
-
-        IndexSamplingConfig indexSamplingConfig = new IndexSamplingConfig( Config.defaults() );
-        FullScanNonUniqueIndexSampler<KEY,VALUE> sampler =
-                new FullScanNonUniqueIndexSampler<>( tree, layout, indexSamplingConfig );
-        return sampler::result;
-    }
-
-    @Override
-    public long countIndexedNodes( long nodeId, Value... propertyValues )
-    {
-        treeKeyFrom.from( nodeId, propertyValues );
-        treeKeyTo.from( nodeId, propertyValues );
-        try ( RawCursor<Hit<KEY,VALUE>,IOException> seeker = tree.seek( treeKeyFrom, treeKeyTo ) )
-        {
-            long count = 0;
-            while ( seeker.next() )
-            {
-                if ( seeker.get().key().entityId == nodeId )
-                {
-                    count++;
-                }
-            }
-            return count;
-        }
-        catch ( IOException e )
-        {
-            throw new UncheckedIOException( e );
-        }
+        return incrementalSampler != null ? incrementalSampler.numberHistogram() : null;
     }
 
     @Override
@@ -164,40 +114,71 @@ class NativeSchemaNumberIndexReader<KEY extends SchemaNumberKey, VALUE extends S
         }
     }
 
+    /**
+     * Keys are ordered by numeric value, then entity id, which is the order of all queries this reader supports
+     * since they are all seeks of a single range.
+     */
     @Override
-    public boolean hasFullNumberPrecision( IndexQuery... predicates )
+    public boolean supportsOrder( IndexOrder order, IndexQuery... predicates )
     {
-        return true;
+        return order == IndexOrder.NONE || isSupportedQuery( predicates );
     }
 
-    private PrimitiveLongIterator startSeekForInitializedRange()
+    @Override
+    public NodeValueIterator queryWithValues( IndexQuery... predicates ) throws IndexNotApplicableKernelException
     {
-        if ( layout.compare( treeKeyFrom, treeKeyTo ) > 0 )
+        if ( !providesValues( predicates ) )
         {
-            return PrimitiveLongCollections.emptyIterator();
+            throw new UnsupportedOperationException( "Query with values not supported" );
         }
+        withValues = true;
         try
         {
-            RawCursor<Hit<KEY,VALUE>,IOException> seeker = tree.seek( treeKeyFrom, treeKeyTo );
-            openSeekers.add( seeker );
-            return new NumberHitIterator<>( seeker, openSeekers );
+            // An empty range doesn't start a seek and so doesn't get a hit iterator with values
+            PrimitiveLongIterator hits = query( predicates );
+            return hits instanceof NodeValueIterator ? (NodeValueIterator) hits : NodeValueIterator.EMPTY;
         }
-        catch ( IOException e )
+        finally
         {
-            throw new UncheckedIOException( e );
+            withValues = false;
         }
     }
 
-    private void ensureOpenSeekersClosed()
+    /**
+     * Keys store numbers with their exact type, so the value of each hit can be read from its key.
+     */
+    @Override
+    public boolean providesValues( IndexQuery... predicates )
     {
-        try
+        return isSupportedQuery( predicates );
+    }
+
+    @Override
+    PrimitiveLongIterator newHitIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker )
+    {
+        return withValues ? new NumberHitValueIterator<>( seeker, openSeekers ) : super.newHitIterator( seeker );
+    }
+
+    private static boolean isSupportedQuery( IndexQuery... predicates )
+    {
+        if ( predicates.length != 1 )
         {
-            IOUtils.closeAll( openSeekers );
-            openSeekers.clear();
+            return false;
         }
-        catch ( IOException e )
+        switch ( predicates[0].type() )
         {
-            throw new UncheckedIOException( e );
+        case exists:
+        case exact:
+        case rangeNumeric:
+            return true;
+        default:
+            return false;
         }
     }
+
+    @Override
+    public boolean hasFullNumberPrecision( IndexQuery... predicates )
+    {
+        return true;
+    }
 }
@@ -27,21 +27,28 @@ import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.values.storable.ValueTuple;
 
-class NativeSchemaNumberIndexUpdater<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+class NativeSchemaNumberIndexUpdater<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
         implements IndexUpdater
 {
     private final KEY treeKey;
     private final VALUE treeValue;
     private final ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger;
+    private final IncrementalIndexSampler sampler;
     private Writer<KEY,VALUE> writer;
 
     private boolean closed = true;
     private boolean manageClosingOfWriter;
 
     NativeSchemaNumberIndexUpdater( KEY treeKey, VALUE treeValue )
+    {
+        this( treeKey, treeValue, null );
+    }
+
+    NativeSchemaNumberIndexUpdater( KEY treeKey, VALUE treeValue, IncrementalIndexSampler sampler )
     {
         this.treeKey = treeKey;
         this.treeValue = treeValue;
+        this.sampler = sampler;
         this.conflictDetectingValueMerger = new ConflictDetectingValueMerger<>();
     }
 
@@ -62,7 +69,7 @@ class NativeSchemaNumberIndexUpdater<KEY extends SchemaNumberKey, VALUE extends
     public void process( IndexEntryUpdate<?> update ) throws IOException, IndexEntryConflictException
     {
         assertOpen();
-        processUpdate( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+        processUpdate( treeKey, treeValue, update, writer, conflictDetectingValueMerger, sampler );
     }
 
     @Override
@@ -83,62 +90,82 @@ class NativeSchemaNumberIndexUpdater<KEY extends SchemaNumberKey, VALUE extends
         }
     }
 
-    static <KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> void processUpdate( KEY treeKey, VALUE treeValue,
+    static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void processUpdate( KEY treeKey, VALUE treeValue,
             IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger )
             throws IOException, IndexEntryConflictException
+    {
+        processUpdate( treeKey, treeValue, update, writer, conflictDetectingValueMerger, null );
+    }
+
+    /**
+     * Applies the update to the tree and, if a {@code sampler} is given, includes/excludes entries which were
+     * actually added/removed by it in the sampler.
+     */
+    static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void processUpdate( KEY treeKey, VALUE treeValue,
+            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger,
+            IncrementalIndexSampler sampler ) throws IOException, IndexEntryConflictException
     {
         switch ( update.updateMode() )
         {
         case ADDED:
-            processAdd( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+            processAdd( treeKey, treeValue, update, writer, conflictDetectingValueMerger, sampler );
             break;
         case CHANGED:
-            processChange( treeKey, treeValue, update, writer, conflictDetectingValueMerger );
+            processChange( treeKey, treeValue, update, writer, conflictDetectingValueMerger, sampler );
             break;
         case REMOVED:
-            processRemove( treeKey, update, writer );
+            processRemove( treeKey, update, writer, sampler );
             break;
         default:
             throw new IllegalArgumentException();
         }
     }
 
-    private static <KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> void processRemove( KEY treeKey,
-            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer ) throws IOException
+    private static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void processRemove( KEY treeKey,
+            IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer, IncrementalIndexSampler sampler ) throws IOException
     {
-        // todo Do we need to verify that we actually removed something at all?
         // todo Difference between online and recovery?
         treeKey.from( update.getEntityId(), update.values() );
-        writer.remove( treeKey );
+        remove( treeKey, writer, sampler );
     }
 
-    private static <KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> void processChange( KEY treeKey, VALUE treeValue,
+    private static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void remove( KEY treeKey,
+            Writer<KEY,VALUE> writer, IncrementalIndexSampler sampler ) throws IOException
+    {
+        if ( writer.remove( treeKey ) != null && sampler != null )
+        {
+            sampler.exclude( treeKey );
+        }
+    }
+
+    private static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void processChange( KEY treeKey, VALUE treeValue,
             IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer,
-            ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger )
+            ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger, IncrementalIndexSampler sampler )
             throws IOException, IndexEntryConflictException
     {
         // Remove old entry
         treeKey.from( update.getEntityId(), update.beforeValues() );
-        writer.remove( treeKey );
+        remove( treeKey, writer, sampler );
         // Insert new entry
-        treeKey.from( update.getEntityId(), update.values() );
-        treeValue.from( update.values() );
-        writer.merge( treeKey, treeValue, conflictDetectingValueMerger );
-        assertNoConflict( update, conflictDetectingValueMerger );
+        processAdd( treeKey, treeValue, update, writer, conflictDetectingValueMerger, sampler );
     }
 
-    static <KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> void processAdd( KEY treeKey, VALUE treeValue,
+    private static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void processAdd( KEY treeKey, VALUE treeValue,
             IndexEntryUpdate<?> update, Writer<KEY,VALUE> writer,
-            ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger )
+            ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger, IncrementalIndexSampler sampler )
             throws IOException, IndexEntryConflictException
     {
         treeKey.from( update.getEntityId(), update.values() );
         treeValue.from( update.values() );
         writer.merge( treeKey, treeValue, conflictDetectingValueMerger );
         assertNoConflict( update, conflictDetectingValueMerger );
+        if ( !conflictDetectingValueMerger.wasMerged() && sampler != null )
+        {
+            sampler.include( treeKey );
+        }
     }
 
-    private static <KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> void assertNoConflict( IndexEntryUpdate<?> update,
+    private static <KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue> void assertNoConflict( IndexEntryUpdate<?> update,
             ConflictDetectingValueMerger<KEY,VALUE> conflictDetectingValueMerger ) throws IndexEntryConflictException
     {
         if ( conflictDetectingValueMerger.wasConflict() )
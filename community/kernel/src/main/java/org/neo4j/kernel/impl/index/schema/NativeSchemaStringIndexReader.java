@@ -0,0 +1,195 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.function.Predicate;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringContainsPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringPrefixPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringRangePredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.StringSuffixPredicate;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * {@link NativeSchemaIndexReader} for strings, and composites of strings and numbers. Range and prefix queries
+ * are seeks in the tree, whereas contains and suffix queries are full scans of the tree where each key is
+ * matched in its encoded form, which is cheaper than the corresponding scan of a lucene index.
+ */
+class NativeSchemaStringIndexReader<KEY extends SchemaStringKey, VALUE extends NativeSchemaValue>
+        extends NativeSchemaIndexReader<KEY,VALUE>
+{
+    /**
+     * Filter for the query currently being initialized, or {@code null} if all hits within the range match.
+     */
+    private Predicate<KEY> filter;
+
+    NativeSchemaStringIndexReader( GBPTree<KEY,VALUE> tree, Layout<KEY,VALUE> layout, IncrementalIndexSampler incrementalSampler )
+    {
+        super( tree, layout, incrementalSampler );
+    }
+
+    @Override
+    public PrimitiveLongIterator query( IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        filter = null;
+        if ( predicates.length > 1 )
+        {
+            return queryComposite( predicates );
+        }
+
+        IndexQuery predicate = predicates[0];
+        switch ( predicate.type() )
+        {
+        case exists:
+            treeKeyFrom.initAsLowest();
+            treeKeyTo.initAsHighest();
+            return startSeekForInitializedRange();
+        case exact:
+            ExactPredicate exactPredicate = (ExactPredicate) predicate;
+            treeKeyFrom.from( Long.MIN_VALUE, exactPredicate.value() );
+            treeKeyTo.from( Long.MAX_VALUE, exactPredicate.value() );
+            return startSeekForInitializedRange();
+        case rangeString:
+            StringRangePredicate rangePredicate = (StringRangePredicate) predicate;
+            initFromForRange( rangePredicate );
+            initToForRange( rangePredicate );
+            return startSeekForInitializedRange();
+        case stringPrefix:
+            String prefix = ((StringPrefixPredicate) predicate).prefix();
+            treeKeyFrom.initAsPrefixLow( prefix );
+            treeKeyTo.initAsPrefixHigh( prefix );
+            return startSeekForInitializedRange();
+        case stringContains:
+            byte[] contains = ((StringContainsPredicate) predicate).contains().getBytes( UTF_8 );
+            return startFilteredScan( key -> key.valueContains( contains ) );
+        case stringSuffix:
+            byte[] suffix = ((StringSuffixPredicate) predicate).suffix().getBytes( UTF_8 );
+            return startFilteredScan( key -> key.valueEndsWith( suffix ) );
+        default:
+            throw new IllegalArgumentException( "IndexQuery of type " + predicate.type() + " is not supported." );
+        }
+    }
+
+    private PrimitiveLongIterator queryComposite( IndexQuery[] predicates )
+    {
+        if ( allOfType( predicates, IndexQuery.IndexQueryType.exists ) )
+        {
+            treeKeyFrom.initAsLowest();
+            treeKeyTo.initAsHighest();
+            return startSeekForInitializedRange();
+        }
+        if ( allOfType( predicates, IndexQuery.IndexQueryType.exact ) )
+        {
+            Value[] values = new Value[predicates.length];
+            for ( int i = 0; i < predicates.length; i++ )
+            {
+                values[i] = ((ExactPredicate) predicates[i]).value();
+            }
+            treeKeyFrom.from( Long.MIN_VALUE, values );
+            treeKeyTo.from( Long.MAX_VALUE, values );
+            return startSeekForInitializedRange();
+        }
+        throw new IllegalArgumentException( "Composite queries other than exact and exists are not supported." );
+    }
+
+    private static boolean allOfType( IndexQuery[] predicates, IndexQuery.IndexQueryType type )
+    {
+        for ( IndexQuery predicate : predicates )
+        {
+            if ( predicate.type() != type )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private PrimitiveLongIterator startFilteredScan( Predicate<KEY> filter )
+    {
+        this.filter = filter;
+        treeKeyFrom.initAsLowest();
+        treeKeyTo.initAsHighest();
+        return startSeekForInitializedRange();
+    }
+
+    private void initToForRange( StringRangePredicate rangePredicate )
+    {
+        String toValue = rangePredicate.to();
+        if ( toValue == null )
+        {
+            treeKeyTo.initAsHighest();
+        }
+        else
+        {
+            treeKeyTo.from( rangePredicate.toInclusive() ? Long.MAX_VALUE : Long.MIN_VALUE, Values.stringValue( toValue ) );
+            treeKeyTo.entityIdIsSpecialTieBreaker = true;
+        }
+    }
+
+    private void initFromForRange( StringRangePredicate rangePredicate )
+    {
+        String fromValue = rangePredicate.from();
+        if ( fromValue == null )
+        {
+            treeKeyFrom.initAsLowest();
+        }
+        else
+        {
+            treeKeyFrom.from( rangePredicate.fromInclusive() ? Long.MIN_VALUE : Long.MAX_VALUE, Values.stringValue( fromValue ) );
+            treeKeyFrom.entityIdIsSpecialTieBreaker = true;
+        }
+    }
+
+    @Override
+    PrimitiveLongIterator newHitIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker )
+    {
+        Predicate<KEY> hitFilter = filter;
+        if ( hitFilter == null )
+        {
+            return super.newHitIterator( seeker );
+        }
+        return new NumberHitIterator<KEY,VALUE>( seeker, openSeekers )
+        {
+            @Override
+            boolean acceptKey( KEY key )
+            {
+                return hitFilter.test( key );
+            }
+        };
+    }
+
+    @Override
+    public boolean hasFullNumberPrecision( IndexQuery... predicates )
+    {
+        return true;
+    }
+}
@@ -19,6 +19,10 @@
  */
 package org.neo4j.kernel.impl.index.schema;
 
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.ExistsPredicate;
+import org.neo4j.kernel.api.schema.IndexQuery.NumberRangePredicate;
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueGroup;
@@ -42,4 +46,31 @@ public class NativeSelector implements FusionSchemaIndexProvider.Selector
         }
         return luceneInstance;
     }
+
+    @Override
+    public <T> T select( T nativeInstance, T luceneInstance, IndexQuery... predicates )
+    {
+        if ( predicates.length > 1 )
+        {
+            return luceneInstance;
+        }
+
+        IndexQuery predicate = predicates[0];
+        if ( predicate instanceof ExactPredicate )
+        {
+            return select( nativeInstance, luceneInstance, ((ExactPredicate) predicate).value() );
+        }
+
+        if ( predicate instanceof NumberRangePredicate )
+        {
+            return nativeInstance;
+        }
+
+        if ( predicate instanceof ExistsPredicate )
+        {
+            return null;
+        }
+
+        return luceneInstance;
+    }
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Selects {@link NativeSchemaStringIndexProvider native string index} for strings, and composites of strings and numbers,
+ * as long as their encoded size fits in a tree node. Everything else goes to lucene.
+ */
+public class NativeStringSelector implements FusionSchemaIndexProvider.Selector
+{
+    private final int maxValueBytes;
+
+    /**
+     * @param maxValueBytes max size of encoded value(s) the native index can hold,
+     * see {@link NativeSchemaStringIndexProvider#maxValueBytes(int)}.
+     */
+    public NativeStringSelector( int maxValueBytes )
+    {
+        this.maxValueBytes = maxValueBytes;
+    }
+
+    @Override
+    public <T> T select( T nativeInstance, T luceneInstance, Value... values )
+    {
+        int size = SchemaStringKey.encodedSize( values );
+        return size != -1 && size <= maxValueBytes ? nativeInstance : luceneInstance;
+    }
+
+    @Override
+    public <T> T select( T nativeInstance, T luceneInstance, IndexQuery... predicates )
+    {
+        if ( predicates.length > 1 )
+        {
+            return selectComposite( nativeInstance, luceneInstance, predicates );
+        }
+
+        IndexQuery predicate = predicates[0];
+        switch ( predicate.type() )
+        {
+        case exact:
+            return select( nativeInstance, luceneInstance, ((ExactPredicate) predicate).value() );
+        case rangeString:
+        case stringPrefix:
+        case stringContains:
+        case stringSuffix:
+        case exists:
+            // Some of the matching strings may be too big for the native index and therefore be in lucene
+            return null;
+        default:
+            return luceneInstance;
+        }
+    }
+
+    private <T> T selectComposite( T nativeInstance, T luceneInstance, IndexQuery[] predicates )
+    {
+        Value[] values = new Value[predicates.length];
+        boolean allExists = true;
+        for ( int i = 0; i < predicates.length; i++ )
+        {
+            IndexQuery predicate = predicates[i];
+            if ( predicate instanceof ExactPredicate )
+            {
+                values[i] = ((ExactPredicate) predicate).value();
+                allExists = false;
+            }
+            else if ( predicate.type() != IndexQuery.IndexQueryType.exists )
+            {
+                // Other composite queries are answered by lucene alone
+                return luceneInstance;
+            }
+        }
+        if ( allExists )
+        {
+            return null;
+        }
+        for ( Value value : values )
+        {
+            if ( value == null )
+            {
+                // Mix of exact and exists
+                return luceneInstance;
+            }
+        }
+        return select( nativeInstance, luceneInstance, values );
+    }
+}
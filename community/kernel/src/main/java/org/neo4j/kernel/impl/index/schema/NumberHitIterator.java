@@ -29,14 +29,14 @@ import org.neo4j.cursor.RawCursor;
 import org.neo4j.index.internal.gbptree.Hit;
 
 /**
- * Wraps number key/value results in a {@link PrimitiveLongIterator}.
+ * Wraps native schema index key/value results in a {@link PrimitiveLongIterator}.
  * The {@link RawCursor seeker} which gets passed in will have to be closed somewhere else because
  * the {@link PrimitiveLongIterator} is just a plain iterator, no resource.
  *
- * @param <KEY> type of {@link SchemaNumberKey}.
- * @param <VALUE> type of {@link SchemaNumberValue}.
+ * @param <KEY> type of {@link NativeSchemaKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
  */
-public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue>
+public class NumberHitIterator<KEY extends NativeSchemaKey, VALUE extends NativeSchemaValue>
         extends PrimitiveLongCollections.PrimitiveLongBaseIterator
 {
     private final RawCursor<Hit<KEY,VALUE>,IOException> seeker;
@@ -55,15 +55,16 @@ public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends Schema
     {
         try
         {
-            if ( !closed && seeker.next() )
+            while ( !closed && seeker.next() )
             {
-                return next( seeker.get().key().entityId );
-            }
-            else
-            {
-                ensureCursorClosed();
-                return false;
+                KEY key = seeker.get().key();
+                if ( acceptKey( key ) )
+                {
+                    return next( key.entityId );
+                }
             }
+            ensureCursorClosed();
+            return false;
         }
         catch ( IOException e )
         {
@@ -71,6 +72,17 @@ public class NumberHitIterator<KEY extends SchemaNumberKey, VALUE extends Schema
         }
     }
 
+    /**
+     * Filters hits which were within the seeked range, but still don't match the query. By default all hits match.
+     *
+     * @param key key of a hit.
+     * @return {@code true} if the entity of this hit should be returned, otherwise {@code false}.
+     */
+    boolean acceptKey( KEY key )
+    {
+        return true;
+    }
+
     private void ensureCursorClosed() throws IOException
     {
         if ( !closed )
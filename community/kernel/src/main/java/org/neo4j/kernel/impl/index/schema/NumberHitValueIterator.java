@@ -0,0 +1,75 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+import java.util.Collection;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.Value;
+
+/**
+ * {@link NumberHitIterator} which also provides the value of each hit, read from its key.
+ * The value of a hit is read when fetching it, but only exposed when the hit is returned from {@link #next()},
+ * since this iterator fetches one hit ahead.
+ *
+ * @param <KEY> type of {@link SchemaNumberKey}.
+ * @param <VALUE> type of {@link NativeSchemaValue}.
+ */
+class NumberHitValueIterator<KEY extends SchemaNumberKey, VALUE extends NativeSchemaValue>
+        extends NumberHitIterator<KEY,VALUE> implements NodeValueIterator
+{
+    private NumberValue nextValue;
+    private Value[] values;
+
+    NumberHitValueIterator( RawCursor<Hit<KEY,VALUE>,IOException> seeker,
+            Collection<RawCursor<Hit<KEY,VALUE>,IOException>> toRemoveFromWhenExhausted )
+    {
+        super( seeker, toRemoveFromWhenExhausted );
+    }
+
+    @Override
+    boolean acceptKey( KEY key )
+    {
+        if ( super.acceptKey( key ) )
+        {
+            nextValue = key.asValue();
+            return true;
+        }
+        return false;
+    }
+
+    @Override
+    public long next()
+    {
+        long nodeId = super.next();
+        values = new Value[]{nextValue};
+        return nodeId;
+    }
+
+    @Override
+    public Value[] values()
+    {
+        return values;
+    }
+}
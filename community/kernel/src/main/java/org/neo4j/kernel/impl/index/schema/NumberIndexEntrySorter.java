@@ -0,0 +1,554 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.index.internal.gbptree.GBPTree;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.IOUtils;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.values.storable.Value;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+/**
+ * Collects the updates made to a number index during population and provides the resulting entries sorted by key,
+ * so that they can be {@link GBPTree#bulkLoad(RawCursor, double) bulk loaded} into the tree instead of being
+ * inserted one by one.
+ * <p>
+ * Updates are collected in memory and sorted in batches. Batches are spilled as sorted runs to files next to
+ * the index, which are merged when the entries are read, in several passes if there are many runs.
+ * Removals are kept as tombstones until the final merge. When the same key is changed more than once,
+ * the last change wins, just like when the changes are applied to the tree in order.
+ * <p>
+ * Only usable for layouts where keys are unique per entity, i.e. where there can be no conflicts between entries.
+ *
+ * @param <KEY> type of {@link SchemaNumberKey}.
+ * @param <VALUE> type of {@link SchemaNumberValue}.
+ */
+class NumberIndexEntrySorter<KEY extends SchemaNumberKey, VALUE extends SchemaNumberValue> implements Closeable
+{
+    private static final byte REMOVE = 0;
+    private static final byte ADD = 1;
+    private static final int INITIAL_CAPACITY = 1024;
+    private static final int RUN_BUFFER_SIZE = 1 << 16;
+
+    private final FileSystemAbstraction fs;
+    private final File storeFile;
+    private final Layout<KEY,VALUE> layout;
+    private final int batchSize;
+    private final int mergeFactor;
+    private final KEY updateKey;
+    private final KEY left;
+    private final KEY right;
+    private final List<File> runs = new ArrayList<>();
+    private int nextRunId;
+
+    private byte[] types = new byte[INITIAL_CAPACITY];
+    private long[] rawValueBits = new long[INITIAL_CAPACITY];
+    private long[] entityIds = new long[INITIAL_CAPACITY];
+    private byte[] operations = new byte[INITIAL_CAPACITY];
+    private int[] order = new int[INITIAL_CAPACITY];
+    private int count;
+
+    /**
+     * @param fs {@link FileSystemAbstraction} to create the run files in.
+     * @param storeFile index file which the run files are created next to.
+     * @param layout {@link Layout} of the index, which decides the order of the entries.
+     * @param batchSize max number of updates to keep in memory before spilling them to a run file.
+     * @param mergeFactor max number of runs to merge at the same time.
+     */
+    NumberIndexEntrySorter( FileSystemAbstraction fs, File storeFile, Layout<KEY,VALUE> layout, int batchSize,
+            int mergeFactor )
+    {
+        if ( mergeFactor < 2 )
+        {
+            throw new IllegalArgumentException( "Merge factor must be at least 2, but was " + mergeFactor );
+        }
+        this.fs = fs;
+        this.storeFile = storeFile;
+        this.layout = layout;
+        this.batchSize = batchSize;
+        this.mergeFactor = mergeFactor;
+        this.updateKey = layout.newKey();
+        this.left = layout.newKey();
+        this.right = layout.newKey();
+    }
+
+    synchronized void addAll( Collection<? extends IndexEntryUpdate<?>> updates ) throws IOException
+    {
+        for ( IndexEntryUpdate<?> update : updates )
+        {
+            switch ( update.updateMode() )
+            {
+            case ADDED:
+                add( ADD, update.getEntityId(), update.values() );
+                break;
+            case CHANGED:
+                add( REMOVE, update.getEntityId(), update.beforeValues() );
+                add( ADD, update.getEntityId(), update.values() );
+                break;
+            case REMOVED:
+                add( REMOVE, update.getEntityId(), update.values() );
+                break;
+            default:
+                throw new IllegalArgumentException();
+            }
+        }
+    }
+
+    private void add( byte operation, long entityId, Value[] values ) throws IOException
+    {
+        updateKey.from( entityId, values );
+        if ( count == types.length )
+        {
+            if ( count >= batchSize )
+            {
+                spill();
+            }
+            else
+            {
+                grow( min( batchSize, count * 2 ) );
+            }
+        }
+        types[count] = updateKey.type;
+        rawValueBits[count] = updateKey.rawValueBits;
+        entityIds[count] = updateKey.entityId;
+        operations[count] = operation;
+        count++;
+    }
+
+    private void grow( int capacity )
+    {
+        types = Arrays.copyOf( types, capacity );
+        rawValueBits = Arrays.copyOf( rawValueBits, capacity );
+        entityIds = Arrays.copyOf( entityIds, capacity );
+        operations = Arrays.copyOf( operations, capacity );
+        order = Arrays.copyOf( order, capacity );
+    }
+
+    private void spill() throws IOException
+    {
+        sortBatch();
+        File run = newRunFile();
+        try ( Run source = new BatchRun( Integer.MAX_VALUE );
+              DataOutputStream out = openForWriting( run ) )
+        {
+            while ( source.next() )
+            {
+                source.writeTo( out );
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            // The run isn't tracked yet, so close won't delete it
+            fs.deleteFile( run );
+            throw e;
+        }
+        runs.add( run );
+        count = 0;
+    }
+
+    /**
+     * Merges all collected updates into the resulting index entries. No more updates may be added after this call.
+     *
+     * @return the index entries in ascending key order, each key at most once.
+     * @throws IOException on error reading or writing run files.
+     */
+    synchronized RawCursor<Hit<KEY,VALUE>,IOException> sortedEntries() throws IOException
+    {
+        // Merge the oldest runs first. Their result holds the oldest changes, so it goes first among the runs.
+        while ( runs.size() + 1 > mergeFactor )
+        {
+            File merged = newRunFile();
+            List<File> oldest = new ArrayList<>( runs.subList( 0, mergeFactor ) );
+            try ( MergingCursor source = new MergingCursor( openRuns( oldest, false ) );
+                  DataOutputStream out = openForWriting( merged ) )
+            {
+                while ( source.next() )
+                {
+                    source.winner.writeTo( out );
+                }
+            }
+            catch ( IOException | RuntimeException e )
+            {
+                fs.deleteFile( merged );
+                throw e;
+            }
+            runs.removeAll( oldest );
+            runs.add( 0, merged );
+            deleteRuns( oldest );
+        }
+        return new MergingCursor( openRuns( runs, true ) );
+    }
+
+    private List<Run> openRuns( List<File> files, boolean includeBatch ) throws IOException
+    {
+        List<Run> sources = new ArrayList<>();
+        try
+        {
+            for ( int i = 0; i < files.size(); i++ )
+            {
+                sources.add( new FileRun( openForReading( files.get( i ) ), i ) );
+            }
+            if ( includeBatch )
+            {
+                sortBatch();
+                sources.add( new BatchRun( files.size() ) );
+            }
+            return sources;
+        }
+        catch ( IOException e )
+        {
+            IOUtils.closeAllSilently( sources );
+            throw e;
+        }
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        deleteRuns( runs );
+        runs.clear();
+        count = 0;
+    }
+
+    private void deleteRuns( List<File> files ) throws IOException
+    {
+        for ( File file : files )
+        {
+            fs.deleteFileOrThrow( file );
+        }
+    }
+
+    private File newRunFile()
+    {
+        return new File( storeFile.getParentFile(), storeFile.getName() + ".sort-" + nextRunId++ );
+    }
+
+    private DataOutputStream openForWriting( File file ) throws IOException
+    {
+        return new DataOutputStream( new BufferedOutputStream( fs.openAsOutputStream( file, false ), RUN_BUFFER_SIZE ) );
+    }
+
+    private DataInputStream openForReading( File file ) throws IOException
+    {
+        return new DataInputStream( new BufferedInputStream( fs.openAsInputStream( file ), RUN_BUFFER_SIZE ) );
+    }
+
+    // === In-memory sorting of the current batch ===
+
+    private void sortBatch()
+    {
+        for ( int i = 0; i < count; i++ )
+        {
+            order[i] = i;
+        }
+        sort( 0, count - 1 );
+    }
+
+    /**
+     * Quick sort of {@link #order}, i.e. indexes into the batch. Updates of the same key keep the order they were
+     * added in, which is what makes the last change to a key win.
+     */
+    private void sort( int low, int high )
+    {
+        while ( high - low > 16 )
+        {
+            int pivot = order[(low + high) >>> 1];
+            int i = low;
+            int j = high;
+            while ( i <= j )
+            {
+                while ( compareBatchEntries( order[i], pivot ) < 0 )
+                {
+                    i++;
+                }
+                while ( compareBatchEntries( order[j], pivot ) > 0 )
+                {
+                    j--;
+                }
+                if ( i <= j )
+                {
+                    int tmp = order[i];
+                    order[i++] = order[j];
+                    order[j--] = tmp;
+                }
+            }
+            // Recurse into the smaller part, to bound the stack depth
+            if ( j - low < high - i )
+            {
+                sort( low, j );
+                low = i;
+            }
+            else
+            {
+                sort( i, high );
+                high = j;
+            }
+        }
+        for ( int i = low + 1; i <= high; i++ )
+        {
+            int candidate = order[i];
+            int j = i - 1;
+            while ( j >= low && compareBatchEntries( order[j], candidate ) > 0 )
+            {
+                order[j + 1] = order[j];
+                j--;
+            }
+            order[j + 1] = candidate;
+        }
+    }
+
+    private int compareBatchEntries( int a, int b )
+    {
+        int comparison = compareBatchKeys( a, b );
+        return comparison != 0 ? comparison : Integer.compare( a, b );
+    }
+
+    private int compareBatchKeys( int a, int b )
+    {
+        loadBatchKey( a, left );
+        loadBatchKey( b, right );
+        return layout.compare( left, right );
+    }
+
+    private void loadBatchKey( int index, SchemaNumberKey into )
+    {
+        into.type = types[index];
+        into.rawValueBits = rawValueBits[index];
+        into.entityId = entityIds[index];
+        into.entityIdIsSpecialTieBreaker = false;
+    }
+
+    // === Merging of runs ===
+
+    /**
+     * Sorted source of entries, where every key occurs at most once. Runs with higher {@link #age} hold later
+     * changes than runs with lower age.
+     */
+    private abstract class Run implements Closeable
+    {
+        final int age;
+        final KEY key = layout.newKey();
+        byte operation;
+
+        Run( int age )
+        {
+            this.age = age;
+        }
+
+        abstract boolean next() throws IOException;
+
+        void writeTo( DataOutputStream out ) throws IOException
+        {
+            out.writeByte( key.type );
+            out.writeLong( key.rawValueBits );
+            out.writeLong( key.entityId );
+            out.writeByte( operation );
+        }
+    }
+
+    private class BatchRun extends Run
+    {
+        private int position;
+
+        BatchRun( int age )
+        {
+            super( age );
+        }
+
+        @Override
+        boolean next()
+        {
+            // Of several updates of the same key only the last one counts
+            while ( position + 1 < count && compareBatchKeys( order[position], order[position + 1] ) == 0 )
+            {
+                position++;
+            }
+            if ( position >= count )
+            {
+                return false;
+            }
+            int index = order[position++];
+            loadBatchKey( index, key );
+            operation = operations[index];
+            return true;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    private class FileRun extends Run
+    {
+        private final DataInputStream in;
+
+        FileRun( DataInputStream in, int age )
+        {
+            super( age );
+            this.in = in;
+        }
+
+        @Override
+        boolean next() throws IOException
+        {
+            try
+            {
+                key.type = in.readByte();
+            }
+            catch ( EOFException e )
+            {
+                return false;
+            }
+            key.rawValueBits = in.readLong();
+            key.entityId = in.readLong();
+            operation = in.readByte();
+            return true;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Merges runs into a single sorted stream of the entries which were added and not later removed. This drops all
+     * tombstones, which is only correct when the oldest runs are among the merged ones, since there's nothing older
+     * for the tombstones to remove.
+     */
+    private class MergingCursor implements RawCursor<Hit<KEY,VALUE>,IOException>, Hit<KEY,VALUE>
+    {
+        private final List<Run> sources;
+        private final PriorityQueue<Run> queue;
+        private final VALUE value = layout.newValue();
+        private final List<Run> polled = new ArrayList<>();
+        private Run winner;
+
+        MergingCursor( List<Run> sources ) throws IOException
+        {
+            this.sources = sources;
+            Comparator<Run> byKeyThenAge = ( a, b ) ->
+            {
+                int comparison = layout.compare( a.key, b.key );
+                return comparison != 0 ? comparison : Integer.compare( a.age, b.age );
+            };
+            this.queue = new PriorityQueue<>( max( 1, sources.size() ), byKeyThenAge );
+            try
+            {
+                for ( Run source : sources )
+                {
+                    if ( source.next() )
+                    {
+                        queue.add( source );
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                IOUtils.closeAllSilently( sources );
+                throw e;
+            }
+        }
+
+        @Override
+        public boolean next() throws IOException
+        {
+            while ( true )
+            {
+                advancePolled();
+                if ( queue.isEmpty() )
+                {
+                    return false;
+                }
+                // Of runs having the same key, the youngest is polled last and has the change that wins
+                winner = queue.poll();
+                polled.add( winner );
+                while ( !queue.isEmpty() && layout.compare( queue.peek().key, winner.key ) == 0 )
+                {
+                    winner = queue.poll();
+                    polled.add( winner );
+                }
+                if ( winner.operation == ADD )
+                {
+                    return true;
+                }
+            }
+        }
+
+        private void advancePolled() throws IOException
+        {
+            for ( Run run : polled )
+            {
+                if ( run.next() )
+                {
+                    queue.add( run );
+                }
+            }
+            polled.clear();
+        }
+
+        @Override
+        public Hit<KEY,VALUE> get()
+        {
+            return this;
+        }
+
+        @Override
+        public KEY key()
+        {
+            return winner.key;
+        }
+
+        @Override
+        public VALUE value()
+        {
+            return value;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            IOUtils.closeAll( sources );
+        }
+    }
+}
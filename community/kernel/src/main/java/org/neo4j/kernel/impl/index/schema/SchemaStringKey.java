@@ -0,0 +1,375 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.Arrays;
+
+import org.neo4j.values.storable.NumberType;
+import org.neo4j.values.storable.NumberValue;
+import org.neo4j.values.storable.TextValue;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.ValueGroup;
+
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.ISO_8859_1;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Includes value(s) and entity id (to be able to handle non-unique values). The value(s) are encoded into a
+ * byte array of variable length, such that comparing two keys byte by byte, unsigned, is a comparison of their values.
+ * <p>
+ * A single string is encoded as its UTF-8 bytes, which keeps the lexicographic order of the strings and means that
+ * all strings starting with a certain prefix are found in one range, see {@link #initAsPrefixHigh(String)}.
+ * <p>
+ * Composite values, i.e. multiple values of strings and/or numbers, are encoded one after the other, each prefixed
+ * by a type byte. Strings are encoded as length followed by their UTF-8 bytes. Numbers are encoded as a long
+ * if they have an integral value which fits in a long, otherwise as the raw bits of their double value,
+ * so that numerically equal values of different number types are equal also in this index.
+ * The order of composite keys isn't meaningful beyond equality.
+ */
+class SchemaStringKey extends NativeSchemaKey
+{
+    static final int ENTITY_ID_SIZE = Long.BYTES;
+
+    private static final byte TYPE_LONG = 1;
+    private static final byte TYPE_DOUBLE = 2;
+    private static final byte TYPE_STRING = 3;
+    private static final int SIZE_TYPE = Byte.BYTES;
+    private static final int SIZE_STRING_LENGTH = Integer.BYTES;
+    private static final int SIZE_NUMBER = Long.BYTES;
+
+    /**
+     * No valid encoding starts with this byte, it's neither a valid first byte of UTF-8 nor a type byte.
+     */
+    private static final byte HIGHEST_BYTE = (byte) 0xFF;
+
+    /**
+     * Contains the encoded value(s) of this key, in its first {@link #bytesLength} bytes.
+     */
+    byte[] bytes = new byte[16];
+    int bytesLength;
+
+    @Override
+    void from( long entityId, Value... values )
+    {
+        if ( values.length == 0 )
+        {
+            throw new IllegalArgumentException( "Tried to create key without value" );
+        }
+        if ( encodedSize( values ) == -1 )
+        {
+            throw new IllegalArgumentException(
+                    "Key layout does only support strings, or composites of strings and numbers, tried to create key from " +
+                    Arrays.toString( values ) );
+        }
+        bytesLength = 0;
+        if ( values.length == 1 )
+        {
+            appendBytes( ((TextValue) values[0]).stringValue().getBytes( UTF_8 ) );
+        }
+        else
+        {
+            for ( Value value : values )
+            {
+                appendComponent( value );
+            }
+        }
+        this.entityId = entityId;
+        entityIdIsSpecialTieBreaker = false;
+    }
+
+    /**
+     * Initializes this key as the lower bound of the range of keys starting with {@code prefix}.
+     *
+     * @param prefix string prefix.
+     */
+    void initAsPrefixLow( String prefix )
+    {
+        bytesLength = 0;
+        appendBytes( prefix.getBytes( UTF_8 ) );
+        entityId = Long.MIN_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    /**
+     * Initializes this key as the (exclusive) upper bound of the range of keys starting with {@code prefix}.
+     * Relies on that a UTF-8 encoded string never contains a byte which is {@code 0xFF}.
+     *
+     * @param prefix string prefix.
+     */
+    void initAsPrefixHigh( String prefix )
+    {
+        initAsPrefixLow( prefix );
+        appendByte( HIGHEST_BYTE );
+    }
+
+    @Override
+    void initAsLowest()
+    {
+        bytesLength = 0;
+        entityId = Long.MIN_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    @Override
+    void initAsHighest()
+    {
+        bytesLength = 0;
+        appendByte( HIGHEST_BYTE );
+        entityId = Long.MAX_VALUE;
+        entityIdIsSpecialTieBreaker = true;
+    }
+
+    @Override
+    String propertiesAsString()
+    {
+        // Only needs to be equal for equal values, e.g. for sampling of unique values
+        return new String( bytes, 0, bytesLength, ISO_8859_1 );
+    }
+
+    @Override
+    long valueHash()
+    {
+        long hash = bytesLength;
+        for ( int i = 0; i < bytesLength; i++ )
+        {
+            hash = 31 * hash + bytes[i];
+        }
+        return hash;
+    }
+
+    @Override
+    double numberValue()
+    {
+        return Double.NaN;
+    }
+
+    /**
+     * Compares the value of this key to that of another key.
+     * This method is expected to be called in scenarios where inconsistent reads may happen (and later retried).
+     *
+     * @param other the {@link SchemaStringKey} to compare to.
+     * @return comparison against the {@code other} {@link SchemaStringKey}.
+     */
+    int compareValueTo( SchemaStringKey other )
+    {
+        int length = Math.min( bytesLength, other.bytesLength );
+        for ( int i = 0; i < length; i++ )
+        {
+            int comparison = Integer.compare( bytes[i] & 0xFF, other.bytes[i] & 0xFF );
+            if ( comparison != 0 )
+            {
+                return comparison;
+            }
+        }
+        return Integer.compare( bytesLength, other.bytesLength );
+    }
+
+    /**
+     * @param needle UTF-8 bytes to look for.
+     * @return whether or not the value of this key contains {@code needle}. Since UTF-8 is self-synchronizing
+     * this is the same as the string value of this key containing the string of {@code needle}.
+     */
+    boolean valueContains( byte[] needle )
+    {
+        for ( int start = 0; start <= bytesLength - needle.length; start++ )
+        {
+            if ( valueRegionEquals( start, needle ) )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param suffix UTF-8 bytes to look for.
+     * @return whether or not the value of this key ends with {@code suffix}.
+     */
+    boolean valueEndsWith( byte[] suffix )
+    {
+        return bytesLength >= suffix.length && valueRegionEquals( bytesLength - suffix.length, suffix );
+    }
+
+    private boolean valueRegionEquals( int start, byte[] other )
+    {
+        for ( int i = 0; i < other.length; i++ )
+        {
+            if ( bytes[start + i] != other[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Makes room for {@code length} bytes and sets {@link #bytesLength} to it, typically before reading a key
+     * of that size into {@link #bytes}.
+     *
+     * @param length number of bytes of the value(s) of this key.
+     */
+    void setBytesLength( int length )
+    {
+        ensureCapacity( length );
+        bytesLength = length;
+    }
+
+    /**
+     * Calculates how many bytes the given value(s) will be encoded into, if at all supported by this key.
+     *
+     * @param values value(s) to calculate encoded size for.
+     * @return size, in bytes, of the encoded value(s), excluding entity id, or {@code -1} if not supported.
+     */
+    static int encodedSize( Value... values )
+    {
+        if ( values.length == 1 )
+        {
+            return isString( values[0] ) ? utf8Length( ((TextValue) values[0]).stringValue() ) : -1;
+        }
+
+        int size = 0;
+        for ( Value value : values )
+        {
+            if ( isString( value ) )
+            {
+                size += SIZE_TYPE + SIZE_STRING_LENGTH + utf8Length( ((TextValue) value).stringValue() );
+            }
+            else if ( value.valueGroup() == ValueGroup.NUMBER )
+            {
+                size += SIZE_TYPE + SIZE_NUMBER;
+            }
+            else
+            {
+                return -1;
+            }
+        }
+        return size;
+    }
+
+    private static boolean isString( Value value )
+    {
+        return value.valueGroup() == ValueGroup.TEXT;
+    }
+
+    /**
+     * @return number of bytes {@link String#getBytes(java.nio.charset.Charset)} would produce for UTF-8,
+     * without encoding it.
+     */
+    private static int utf8Length( String string )
+    {
+        int length = 0;
+        for ( int i = 0; i < string.length(); i++ )
+        {
+            char c = string.charAt( i );
+            if ( c < 0x80 )
+            {
+                length += 1;
+            }
+            else if ( c < 0x800 )
+            {
+                length += 2;
+            }
+            else if ( Character.isHighSurrogate( c ) && i + 1 < string.length() &&
+                    Character.isLowSurrogate( string.charAt( i + 1 ) ) )
+            {
+                length += 4;
+                i++;
+            }
+            else if ( Character.isSurrogate( c ) )
+            {
+                // Malformed, will be replaced by a single '?'
+                length += 1;
+            }
+            else
+            {
+                length += 3;
+            }
+        }
+        return length;
+    }
+
+    private void appendComponent( Value value )
+    {
+        if ( isString( value ) )
+        {
+            byte[] utf8 = ((TextValue) value).stringValue().getBytes( UTF_8 );
+            appendByte( TYPE_STRING );
+            appendLong( utf8.length, SIZE_STRING_LENGTH );
+            appendBytes( utf8 );
+            return;
+        }
+
+        NumberValue number = (NumberValue) value;
+        double doubleValue = number.doubleValue();
+        if ( number.numberType() == NumberType.INTEGRAL )
+        {
+            appendByte( TYPE_LONG );
+            appendLong( number.longValue(), SIZE_NUMBER );
+        }
+        else if ( doubleValue >= -0x1p63 && doubleValue < 0x1p63 && doubleValue == Math.rint( doubleValue ) )
+        {
+            // A floating point value with an integral value, encoded as the equal long value
+            appendByte( TYPE_LONG );
+            appendLong( (long) doubleValue, SIZE_NUMBER );
+        }
+        else
+        {
+            appendByte( TYPE_DOUBLE );
+            appendLong( Double.doubleToLongBits( doubleValue ), SIZE_NUMBER );
+        }
+    }
+
+    private void appendLong( long value, int size )
+    {
+        ensureCapacity( bytesLength + size );
+        for ( int i = size - 1; i >= 0; i-- )
+        {
+            bytes[bytesLength++] = (byte) (value >>> (i * Byte.SIZE));
+        }
+    }
+
+    private void appendByte( byte value )
+    {
+        ensureCapacity( bytesLength + 1 );
+        bytes[bytesLength++] = value;
+    }
+
+    private void appendBytes( byte[] value )
+    {
+        ensureCapacity( bytesLength + value.length );
+        System.arraycopy( value, 0, bytes, bytesLength, value.length );
+        bytesLength += value.length;
+    }
+
+    private void ensureCapacity( int capacity )
+    {
+        if ( bytes.length < capacity )
+        {
+            bytes = Arrays.copyOf( bytes, Math.max( capacity, bytes.length * 2 ) );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "value=%s,entityId=%d", Arrays.toString( Arrays.copyOf( bytes, bytesLength ) ), entityId );
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.index.internal.gbptree.Layout;
+import org.neo4j.io.pagecache.PageCursor;
+
+/**
+ * {@link Layout} for strings, and composites of strings and numbers. Keys are of variable size,
+ * see {@link SchemaStringKey}.
+ */
+abstract class StringLayout extends Layout.Adapter<SchemaStringKey,NativeSchemaValue>
+{
+    @Override
+    public SchemaStringKey newKey()
+    {
+        return new SchemaStringKey();
+    }
+
+    @Override
+    public SchemaStringKey copyKey( SchemaStringKey key,
+            SchemaStringKey into )
+    {
+        into.setBytesLength( key.bytesLength );
+        System.arraycopy( key.bytes, 0, into.bytes, 0, key.bytesLength );
+        into.entityId = key.entityId;
+        into.entityIdIsSpecialTieBreaker = key.entityIdIsSpecialTieBreaker;
+        return into;
+    }
+
+    @Override
+    public NativeSchemaValue newValue()
+    {
+        return NativeSchemaValue.INSTANCE;
+    }
+
+    @Override
+    public int keySize()
+    {
+        // Smallest possible key, i.e. an empty string
+        return SchemaStringKey.ENTITY_ID_SIZE;
+    }
+
+    @Override
+    public int keySize( SchemaStringKey key )
+    {
+        return SchemaStringKey.ENTITY_ID_SIZE + key.bytesLength;
+    }
+
+    @Override
+    public boolean fixedSize()
+    {
+        return false;
+    }
+
+    @Override
+    public int valueSize()
+    {
+        return NativeSchemaValue.SIZE;
+    }
+
+    @Override
+    public void writeKey( PageCursor cursor, SchemaStringKey key )
+    {
+        cursor.putLong( key.entityId );
+        cursor.putBytes( key.bytes, 0, key.bytesLength );
+    }
+
+    @Override
+    public void writeValue( PageCursor cursor, NativeSchemaValue value )
+    {
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, SchemaStringKey into )
+    {
+        throw new UnsupportedOperationException( "Key size is required for reading keys of variable size" );
+    }
+
+    @Override
+    public void readKey( PageCursor cursor, SchemaStringKey into, int keySize )
+    {
+        int bytesLength = keySize - SchemaStringKey.ENTITY_ID_SIZE;
+        if ( bytesLength < 0 || keySize > cursor.getCurrentPageSize() )
+        {
+            // Inconsistent read, will be retried
+            cursor.setCursorException( "Unexpected key size " + keySize );
+            into.setBytesLength( 0 );
+            return;
+        }
+        into.entityId = cursor.getLong();
+        into.setBytesLength( bytesLength );
+        cursor.getBytes( into.bytes, 0, bytesLength );
+    }
+
+    @Override
+    public void readValue( PageCursor cursor, NativeSchemaValue into )
+    {
+    }
+}
@@ -22,13 +22,13 @@ package org.neo4j.kernel.impl.index.schema.fusion;
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
-import org.neo4j.kernel.api.schema.IndexQuery.ExactPredicate;
-import org.neo4j.kernel.api.schema.IndexQuery.ExistsPredicate;
-import org.neo4j.kernel.api.schema.IndexQuery.NumberRangePredicate;
 import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider.Selector;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 
 class FusionIndexReader implements IndexReader
@@ -72,53 +72,78 @@ class FusionIndexReader implements IndexReader
     @Override
     public PrimitiveLongIterator query( IndexQuery... predicates ) throws IndexNotApplicableKernelException
     {
-        if ( predicates.length > 1 )
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        if ( reader != null )
         {
-            return luceneReader.query( predicates );
+            return reader.query( predicates );
         }
 
-        if ( predicates[0] instanceof ExactPredicate )
+        // todo: There will be no ordering of the node ids here. Is this a problem?
+        PrimitiveLongIterator nativeResult = nativeReader.query( predicates );
+        PrimitiveLongIterator luceneResult = luceneReader.query( predicates );
+        return PrimitiveLongCollections.concat( nativeResult, luceneResult );
+    }
+
+    @Override
+    public PrimitiveLongIterator query( IndexOrder order, IndexQuery... predicates )
+            throws IndexNotApplicableKernelException
+    {
+        if ( order == IndexOrder.NONE )
+        {
+            return query( predicates );
+        }
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        if ( reader == null )
         {
-            ExactPredicate exactPredicate = (ExactPredicate) predicates[0];
-            return selector.select( nativeReader, luceneReader, exactPredicate.value() ).query( predicates );
+            throw new UnsupportedOperationException( "Ordered query not supported, " + order );
         }
+        return reader.query( order, predicates );
+    }
 
-        if ( predicates[0] instanceof NumberRangePredicate )
+    @Override
+    public boolean supportsOrder( IndexOrder order, IndexQuery... predicates )
+    {
+        if ( order == IndexOrder.NONE )
         {
-            return nativeReader.query( predicates[0] );
+            return true;
         }
+        // Concatenated results from both indexes aren't ordered
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        return reader != null && reader.supportsOrder( order, predicates );
+    }
 
-        // todo: There will be no ordering of the node ids here. Is this a problem?
-        if ( predicates[0] instanceof ExistsPredicate )
+    @Override
+    public NodeValueIterator queryWithValues( IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        if ( reader == null )
         {
-            PrimitiveLongIterator nativeResult = nativeReader.query( predicates[0] );
-            PrimitiveLongIterator luceneResult = luceneReader.query( predicates[0] );
-            return PrimitiveLongCollections.concat( nativeResult, luceneResult );
+            throw new UnsupportedOperationException( "Query with values not supported" );
         }
+        return reader.queryWithValues( predicates );
+    }
 
-        return luceneReader.query( predicates );
+    @Override
+    public boolean providesValues( IndexQuery... predicates )
+    {
+        // Lucene doesn't provide values, so neither do combined results from both indexes
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        return reader != null && reader.providesValues( predicates );
     }
 
     @Override
     public boolean hasFullNumberPrecision( IndexQuery... predicates )
     {
-        if ( predicates.length > 1 )
-        {
-            return false;
-        }
+        // Combined results from both indexes doesn't have full number precision, since lucene doesn't
+        IndexReader reader = selector.select( nativeReader, luceneReader, predicates );
+        return reader != null && reader.hasFullNumberPrecision( predicates );
+    }
 
-        IndexQuery predicate = predicates[0];
-        if ( predicate instanceof ExactPredicate )
-        {
-            Value value = ((ExactPredicate) predicate).value();
-            return selector.select(
-                    nativeReader.hasFullNumberPrecision( predicates ),
-                    luceneReader.hasFullNumberPrecision( predicates ), value );
-        }
-        if ( predicates[0] instanceof NumberRangePredicate )
-        {
-            return nativeReader.hasFullNumberPrecision( predicates );
-        }
-        return false;
+    @Override
+    public IndexHistogram histogram()
+    {
+        // At most one of the fused indexes holds numbers, so at most one of them provides a histogram
+        IndexHistogram histogram = nativeReader.histogram();
+        return histogram != null ? histogram : luceneReader.histogram();
     }
 }
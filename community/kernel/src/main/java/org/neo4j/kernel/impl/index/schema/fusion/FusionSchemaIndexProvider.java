@@ -28,6 +28,7 @@ import org.neo4j.kernel.api.index.IndexDirectoryStructure;
 import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
 import org.neo4j.kernel.impl.storemigration.StoreMigrationParticipant;
@@ -44,6 +45,14 @@ public class FusionSchemaIndexProvider extends SchemaIndexProvider
     public interface Selector
     {
         <T> T select( T nativeInstance, T luceneInstance, Value... values );
+
+        /**
+         * Selects which instance can answer a query with the given predicates.
+         *
+         * @return {@code nativeInstance} or {@code luceneInstance} if all results are found in that index,
+         * or {@code null} if both need to be queried and their results combined.
+         */
+        <T> T select( T nativeInstance, T luceneInstance, IndexQuery... predicates );
     }
 
     private final SchemaIndexProvider nativeProvider;
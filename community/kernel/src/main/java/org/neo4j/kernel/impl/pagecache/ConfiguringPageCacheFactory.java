@@ -25,6 +25,7 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicy;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.io.pagecache.tracing.PageCacheTracer;
 import org.neo4j.io.pagecache.tracing.cursor.PageCursorTracerSupplier;
@@ -33,6 +34,10 @@ import org.neo4j.kernel.impl.util.OsBeanUtil;
 import org.neo4j.logging.Log;
 
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_background_flushing_enabled;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_compressed_tier_size;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_eviction_policy;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_huge_page_alignment_enabled;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_memory;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.pagecache_swapper;
 import static org.neo4j.kernel.configuration.Settings.BYTES;
@@ -85,7 +90,23 @@ public class ConfiguringPageCacheFactory
         return new MuninnPageCache(
                 swapperFactory,
                 maxPages,
-                cachePageSize, pageCacheTracer, pageCursorTracerSupplier );
+                cachePageSize, pageCacheTracer, pageCursorTracerSupplier, getEvictionPolicy( config ),
+                config.get( pagecache_compressed_tier_size ), config.get( pagecache_background_flushing_enabled ),
+                config.get( pagecache_huge_page_alignment_enabled ) );
+    }
+
+    private static EvictionPolicy getEvictionPolicy( Config config )
+    {
+        String policy = config.get( pagecache_eviction_policy );
+        switch ( policy )
+        {
+        case "clock":
+            return EvictionPolicy.CLOCK;
+        case "tiny_lfu":
+            return EvictionPolicy.TINY_LFU;
+        default:
+            throw new IllegalArgumentException( "Unknown " + pagecache_eviction_policy.name() + ": " + policy );
+        }
     }
 
     public int calculateMaxPages( Config config, int cachePageSize )
@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.logging.Log;
+import org.neo4j.scheduler.JobScheduler;
+
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.neo4j.io.pagecache.PagedFile.PF_NO_FAULT;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.scheduler.JobScheduler.Groups.pageCacheWarmup;
+
+/**
+ * The page cache warmer keeps a profile of which pages are in memory, for every file that is mapped by the page cache,
+ * and uses these profiles to load the same pages back into memory when the database starts up again.
+ * <p>
+ * A profile is a gzip compressed bitmap with one bit per page in the file, and it is written next to the file it
+ * profiles, with the {@value #SUFFIX_CACHEPROF} suffix. The profiles are written periodically in the background, and
+ * once more when the database shuts down.
+ * <p>
+ * The warmup runs in the background when the database starts, so the database can serve requests while the page
+ * cache is warming up. The files are warmed up in parallel, and the pages of each file are loaded in file order, with
+ * read cursors that read ahead, so runs of hot pages are loaded with vectored reads.
+ */
+public class PageCacheWarmer extends LifecycleAdapter
+{
+    public static final String SUFFIX_CACHEPROF = ".cacheprof";
+    private static final String SUFFIX_CACHEPROF_TMP = ".cacheprof.tmp";
+
+    private final FileSystemAbstraction fs;
+    private final PageCache pageCache;
+    private final JobScheduler scheduler;
+    private final PageCacheWarmerMonitor monitor;
+    private final Log log;
+    private final long profileIntervalMillis;
+    private final int parallelism;
+    // Held by whoever is warming up or profiling the page cache, so the two never run at the same time.
+    private final Lock jobLock = new ReentrantLock();
+    private volatile boolean stopped;
+    // We must not write any profiles until the warmup has completed, or we would overwrite the profiles with whatever
+    // subset of the pages that the warmup managed to load so far.
+    private volatile boolean warmupCompleted;
+    private volatile JobScheduler.JobHandle warmupHandle;
+    private volatile JobScheduler.JobHandle profileHandle;
+
+    public PageCacheWarmer( FileSystemAbstraction fs, PageCache pageCache, JobScheduler scheduler,
+            PageCacheWarmerMonitor monitor, Log log, long profileIntervalMillis )
+    {
+        this.fs = fs;
+        this.pageCache = pageCache;
+        this.scheduler = scheduler;
+        this.monitor = monitor;
+        this.log = log;
+        this.profileIntervalMillis = profileIntervalMillis;
+        this.parallelism = Runtime.getRuntime().availableProcessors();
+    }
+
+    @Override
+    public void start() throws Throwable
+    {
+        stopped = false;
+        warmupCompleted = false;
+        warmupHandle = scheduler.schedule( pageCacheWarmup, this::warmupInBackground );
+        profileHandle = scheduler.scheduleRecurring( pageCacheWarmup, this::profileInBackground,
+                profileIntervalMillis, profileIntervalMillis, MILLISECONDS );
+    }
+
+    @Override
+    public void stop() throws Throwable
+    {
+        stopped = true;
+        profileHandle.cancel( false );
+        warmupHandle.cancel( false );
+        // Wait for any ongoing warmup or profile to finish, and then write the profiles one last time.
+        jobLock.lock();
+        try
+        {
+            if ( warmupCompleted )
+            {
+                profile();
+            }
+        }
+        finally
+        {
+            jobLock.unlock();
+        }
+    }
+
+    private void warmupInBackground()
+    {
+        jobLock.lock();
+        try
+        {
+            if ( !stopped )
+            {
+                reheat();
+            }
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache warmup failed.", e );
+        }
+        finally
+        {
+            // Even if the warmup failed, we want to start profiling again.
+            warmupCompleted = !stopped;
+            jobLock.unlock();
+        }
+    }
+
+    private void profileInBackground()
+    {
+        if ( !warmupCompleted || !jobLock.tryLock() )
+        {
+            return;
+        }
+        try
+        {
+            if ( !stopped )
+            {
+                profile();
+            }
+        }
+        catch ( Exception e )
+        {
+            log.warn( "Page cache profiling failed.", e );
+        }
+        finally
+        {
+            jobLock.unlock();
+        }
+    }
+
+    /**
+     * Load the pages in the profiles of all mapped files into the page cache, in parallel across the files.
+     * @return the total number of pages that were loaded.
+     */
+    public long reheat() throws IOException
+    {
+        long start = System.currentTimeMillis();
+        List<PagedFile> files = pageCache.listExistingMappings();
+        AtomicInteger nextFile = new AtomicInteger();
+        AtomicLong pagesLoaded = new AtomicLong();
+        List<JobScheduler.JobHandle> workers = new ArrayList<>();
+        try
+        {
+            monitor.warmupStarted( files.size() );
+            Runnable worker = () ->
+            {
+                int fileIndex;
+                while ( !stopped && (fileIndex = nextFile.getAndIncrement()) < files.size() )
+                {
+                    PagedFile file = files.get( fileIndex );
+                    try
+                    {
+                        long pages = reheat( file );
+                        pagesLoaded.addAndGet( pages );
+                        monitor.fileWarmedUp( file.file(), pages );
+                    }
+                    catch ( Exception e )
+                    {
+                        log.warn( "Could not load the pages of " + file.file() + " into the page cache. " +
+                                  "Continuing the warmup with the next file.", e );
+                    }
+                }
+            };
+            int workerCount = Math.min( parallelism, files.size() );
+            for ( int i = 0; i < workerCount; i++ )
+            {
+                workers.add( scheduler.schedule( pageCacheWarmup, worker ) );
+            }
+            awaitTermination( workers );
+        }
+        finally
+        {
+            closeFiles( files );
+        }
+
+        long elapsedMillis = System.currentTimeMillis() - start;
+        if ( !stopped )
+        {
+            monitor.warmupCompleted( elapsedMillis, pagesLoaded.get() );
+            log.info( "Page cache warmup completed. %d pages loaded in %d ms.", pagesLoaded.get(), elapsedMillis );
+        }
+        return pagesLoaded.get();
+    }
+
+    private long reheat( PagedFile file ) throws IOException
+    {
+        File profile = profileFile( file );
+        if ( !fs.fileExists( profile ) )
+        {
+            return 0;
+        }
+
+        long pagesLoaded = 0;
+        long lastPageId = file.getLastPageId();
+        try ( InputStream input = new BufferedInputStream( new GZIPInputStream( fs.openAsInputStream( profile ) ) );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_READ_AHEAD ) )
+        {
+            long pageId = 0;
+            int bits;
+            while ( (bits = input.read()) != -1 )
+            {
+                for ( int i = 0; i < Byte.SIZE; i++, pageId++ )
+                {
+                    if ( (bits & (1 << i)) == 0 )
+                    {
+                        continue;
+                    }
+                    if ( pageId > lastPageId || stopped )
+                    {
+                        // The file has shrunk since it was profiled, or we are shutting down.
+                        return pagesLoaded;
+                    }
+                    if ( cursor.next( pageId ) )
+                    {
+                        pagesLoaded++;
+                    }
+                }
+            }
+        }
+        return pagesLoaded;
+    }
+
+    /**
+     * Write the profiles of all mapped files.
+     * @return the total number of pages that were in memory.
+     */
+    public long profile() throws IOException
+    {
+        long start = System.currentTimeMillis();
+        long pagesInMemory = 0;
+        List<PagedFile> files = pageCache.listExistingMappings();
+        try
+        {
+            for ( PagedFile file : files )
+            {
+                try
+                {
+                    pagesInMemory += profile( file );
+                }
+                catch ( IllegalStateException e )
+                {
+                    // The file was unmapped while we were profiling it. This is fine, as there's nothing to profile.
+                }
+            }
+        }
+        finally
+        {
+            closeFiles( files );
+        }
+        monitor.profileCompleted( System.currentTimeMillis() - start, pagesInMemory );
+        return pagesInMemory;
+    }
+
+    private long profile( PagedFile file ) throws IOException
+    {
+        File profile = profileFile( file );
+        File tmpProfile = new File( profile.getParentFile(), file.file().getName() + SUFFIX_CACHEPROF_TMP );
+        long pagesInMemory = 0;
+        try ( OutputStream output = new BufferedOutputStream(
+                      new GZIPOutputStream( fs.openAsOutputStream( tmpProfile, false ) ) );
+              PageCursor cursor = file.io( 0, PF_SHARED_READ_LOCK | PF_NO_FAULT ) )
+        {
+            int bits = 0;
+            int bit = 0;
+            while ( cursor.next() )
+            {
+                if ( cursor.getCurrentPageId() != PageCursor.UNBOUND_PAGE_ID )
+                {
+                    bits |= 1 << bit;
+                    pagesInMemory++;
+                }
+                if ( ++bit == Byte.SIZE )
+                {
+                    output.write( bits );
+                    bits = 0;
+                    bit = 0;
+                }
+            }
+            if ( bit > 0 )
+            {
+                output.write( bits );
+            }
+        }
+        fs.renameFile( tmpProfile, profile, REPLACE_EXISTING, ATOMIC_MOVE );
+        return pagesInMemory;
+    }
+
+    private static File profileFile( PagedFile file )
+    {
+        File mappedFile = file.file();
+        return new File( mappedFile.getParentFile(), mappedFile.getName() + SUFFIX_CACHEPROF );
+    }
+
+    private static void awaitTermination( List<JobScheduler.JobHandle> workers ) throws IOException
+    {
+        for ( JobScheduler.JobHandle worker : workers )
+        {
+            try
+            {
+                worker.waitTermination();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new IOException( "Interrupted while waiting for the page cache warmup to complete", e );
+            }
+            catch ( ExecutionException e )
+            {
+                throw new IOException( "Page cache warmup failed", e.getCause() );
+            }
+        }
+    }
+
+    private void closeFiles( List<PagedFile> files )
+    {
+        for ( PagedFile file : files )
+        {
+            try
+            {
+                file.close();
+            }
+            catch ( IOException e )
+            {
+                log.warn( "Could not close the mapping of " + file.file(), e );
+            }
+        }
+    }
+}
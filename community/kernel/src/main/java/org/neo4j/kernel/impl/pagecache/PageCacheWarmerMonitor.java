@@ -0,0 +1,48 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import java.io.File;
+
+/**
+ * Monitor for the {@link PageCacheWarmer}, that reports on the progress of page cache warmups and profiles.
+ */
+public interface PageCacheWarmerMonitor
+{
+    /**
+     * The page cache warmup has started loading pages from the profiles of the given number of files.
+     */
+    void warmupStarted( int files );
+
+    /**
+     * The pages in the profile of the given file have been loaded into the page cache.
+     */
+    void fileWarmedUp( File file, long pagesLoaded );
+
+    /**
+     * The page cache warmup has completed, after having loaded the given number of pages in total.
+     */
+    void warmupCompleted( long elapsedMillis, long pagesLoaded );
+
+    /**
+     * The profiles of all mapped files have been written, with the given total number of pages in memory.
+     */
+    void profileCompleted( long elapsedMillis, long pagesInMemory );
+}
@@ -204,7 +204,8 @@ public class RecordStorageEngine implements StorageEngine, Lifecycle
             NeoStoreIndexStoreView neoStoreIndexStoreView = new NeoStoreIndexStoreView( lockService, neoStores );
             Boolean readOnly = config.get( GraphDatabaseSettings.read_only ) && operationalMode == OperationalMode.single;
             labelScanStore = new NativeLabelScanStore( pageCache, storeDir, new FullLabelStream( neoStoreIndexStoreView ),
-                    readOnly, monitors, recoveryCleanupWorkCollector );
+                    readOnly, monitors, recoveryCleanupWorkCollector,
+                    config.get( GraphDatabaseSettings.label_index_sparse_ranges ) );
 
             indexStoreView = new DynamicIndexStoreView( neoStoreIndexStoreView, labelScanStore, lockService, neoStores, logProvider );
             schemaIndexProviderMap = indexProviderMap;
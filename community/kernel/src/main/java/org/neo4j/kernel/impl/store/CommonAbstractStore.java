@@ -1026,7 +1026,21 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public RECORD getRecord( long id, RECORD record, RecordLoad mode )
     {
-        try ( PageCursor cursor = storeFile.io( getNumberOfReservedLowIds(), PF_SHARED_READ_LOCK ) )
+        return getRecord( id, record, mode, PF_SHARED_READ_LOCK );
+    }
+
+    /**
+     * Like {@link #getRecord(long, AbstractBaseRecord, RecordLoad)}, but for callers that read records in id order,
+     * like store scans. The page cache reads pages ahead, once it sees that consecutive pages are being read.
+     */
+    public RECORD getRecordInScan( long id, RECORD record, RecordLoad mode )
+    {
+        return getRecord( id, record, mode, PF_SHARED_READ_LOCK | PF_READ_AHEAD );
+    }
+
+    private RECORD getRecord( long id, RECORD record, RecordLoad mode, int pf_flags )
+    {
+        try ( PageCursor cursor = storeFile.io( getNumberOfReservedLowIds(), pf_flags ) )
         {
             readIntoRecord( id, record, mode, cursor );
             return record;
@@ -1108,7 +1122,8 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public <EXCEPTION extends Exception> void scanAllRecords( Visitor<RECORD,EXCEPTION> visitor ) throws EXCEPTION
     {
-        try ( RecordCursor<RECORD> cursor = newRecordCursor( newRecord() ) )
+        int pf_flags = PF_SHARED_READ_LOCK | PF_READ_AHEAD;
+        try ( RecordCursor<RECORD> cursor = new StoreRecordCursor<>( newRecord(), this, pf_flags ) )
         {
             long highId = getHighId();
             cursor.acquire( getNumberOfReservedLowIds(), CHECK );
@@ -1135,7 +1150,7 @@ public abstract class CommonAbstractStore<RECORD extends AbstractBaseRecord,HEAD
     @Override
     public RecordCursor<RECORD> newRecordCursor( final RECORD record )
     {
-        return new StoreRecordCursor<>( record, this );
+        return new StoreRecordCursor<>( record, this, PF_SHARED_READ_LOCK );
     }
 
     private void verifyAfterNotRead( RECORD record, RecordLoad mode )
@@ -36,6 +36,8 @@ import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCacheOpenOptions;
+import org.neo4j.io.pagecache.PageCacheQuota;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.NeoStoresDiagnostics;
 import org.neo4j.kernel.configuration.Config;
@@ -528,15 +530,61 @@ public class NeoStores implements AutoCloseable
             throw new IllegalArgumentException( "Block size of dynamic array store should be positive integer." );
         }
         File storeFile = getStoreFile( storeName );
+        OpenOption[] options = idType == IdType.ARRAY_BLOCK ? propertyDataOpenOptions() : openOptions;
         return initialize( new DynamicArrayStore( storeFile, config, idType, idGeneratorFactory, pageCache,
-                logProvider, blockSize, recordFormats.dynamic(), recordFormats.storeVersion(), openOptions ) );
+                logProvider, blockSize, recordFormats.dynamic(), recordFormats.storeVersion(), options ) );
     }
 
     CommonAbstractStore createNodeStore( String storeName )
     {
         File storeFile = getStoreFile( storeName );
         return initialize( new NodeStore( storeFile, config, idGeneratorFactory, pageCache, logProvider,
-                (DynamicArrayStore) getOrCreateStore( StoreType.NODE_LABEL ), recordFormats, openOptions ) );
+                (DynamicArrayStore) getOrCreateStore( StoreType.NODE_LABEL ), recordFormats,
+                topologyOpenOptions() ) );
+    }
+
+    /**
+     * The open options for the stores that every traversal touches first; the node and relationship group stores.
+     */
+    private OpenOption[] topologyOpenOptions()
+    {
+        OpenOption[] options = openOptions;
+        if ( config.get( GraphDatabaseSettings.pagecache_prioritise_topology_stores ) )
+        {
+            options = ArrayUtil.concat( options, PageCacheOpenOptions.HIGH_PRIORITY );
+        }
+        double reservedShare = config.get( GraphDatabaseSettings.pagecache_topology_stores_reserved_share );
+        if ( reservedShare > 0.0 )
+        {
+            options = ArrayUtil.concat( options, PageCacheQuota.reserve( reservedShare ) );
+        }
+        return options;
+    }
+
+    /**
+     * The open options for the dynamic string and array property stores, which tend to be large but cold.
+     */
+    private OpenOption[] propertyDataOpenOptions()
+    {
+        OpenOption[] options = openOptions;
+        if ( config.get( GraphDatabaseSettings.pagecache_prioritise_topology_stores ) )
+        {
+            options = ArrayUtil.concat( options, PageCacheOpenOptions.LOW_PRIORITY );
+        }
+        return compressibleOpenOptions( options );
+    }
+
+    /**
+     * Add the option for keeping compressed copies of evicted pages, to the given open options, if the page cache has
+     * been configured with a compressed tier. Only used for the property stores, whose records compress well.
+     */
+    private OpenOption[] compressibleOpenOptions( OpenOption[] options )
+    {
+        if ( config.get( GraphDatabaseSettings.pagecache_compressed_tier_size ) > 0 )
+        {
+            return ArrayUtil.concat( options, PageCacheOpenOptions.COMPRESSED );
+        }
+        return options;
     }
 
     CommonAbstractStore createPropertyKeyTokenStore( String storeName )
@@ -553,7 +601,8 @@ public class NeoStores implements AutoCloseable
         return initialize( new PropertyStore( storeFile, config, idGeneratorFactory, pageCache, logProvider,
                 (DynamicStringStore) getOrCreateStore( StoreType.PROPERTY_STRING ),
                 (PropertyKeyTokenStore) getOrCreateStore( StoreType.PROPERTY_KEY_TOKEN ),
-                (DynamicArrayStore) getOrCreateStore( StoreType.PROPERTY_ARRAY ), recordFormats, openOptions ) );
+                (DynamicArrayStore) getOrCreateStore( StoreType.PROPERTY_ARRAY ), recordFormats,
+                compressibleOpenOptions( openOptions ) ) );
     }
 
     CommonAbstractStore createRelationshipStore( String storeName )
@@ -572,9 +621,10 @@ public class NeoStores implements AutoCloseable
     CommonAbstractStore createDynamicStringStore( String storeName, IdType idType, int blockSize )
     {
         File storeFile = getStoreFile( storeName );
+        OpenOption[] options = idType == IdType.STRING_BLOCK ? propertyDataOpenOptions() : openOptions;
         return initialize( new DynamicStringStore( storeFile, config, idType, idGeneratorFactory,
                 pageCache, logProvider, blockSize, recordFormats.dynamic(), recordFormats.storeVersion(),
-                openOptions ) );
+                options ) );
     }
 
     CommonAbstractStore createRelationshipTypeTokenStore( String storeName )
@@ -605,7 +655,7 @@ public class NeoStores implements AutoCloseable
     {
         File storeFile = getStoreFile( storeName );
         return initialize( new RelationshipGroupStore( storeFile, config, idGeneratorFactory, pageCache, logProvider,
-                recordFormats, openOptions ) );
+                recordFormats, topologyOpenOptions() ) );
     }
 
     CountsTracker createCountStore( String storeName )
@@ -25,7 +25,6 @@ import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
 import org.neo4j.kernel.impl.store.record.RecordLoad;
 
-import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
 import static org.neo4j.kernel.impl.store.record.Record.NULL_REFERENCE;
 
 class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCursor<RECORD>
@@ -35,11 +34,13 @@ class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCurs
     private long currentId;
     private RecordLoad mode;
     private PageCursor pageCursor;
+    private final int pf_flags;
 
-    StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store )
+    StoreRecordCursor( RECORD record, CommonAbstractStore<RECORD,?> store, int pf_flags )
     {
         this.record = record;
         this.store = store;
+        this.pf_flags = pf_flags;
     }
 
     @Override
@@ -117,7 +118,7 @@ class StoreRecordCursor<RECORD extends AbstractBaseRecord> implements RecordCurs
         this.mode = mode;
         try
         {
-            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), PF_SHARED_READ_LOCK );
+            this.pageCursor = store.storeFile.io( store.pageIdForRecord( id ), pf_flags );
         }
         catch ( IOException e )
         {
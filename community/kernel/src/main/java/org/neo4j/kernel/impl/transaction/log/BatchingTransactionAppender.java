@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Flushable;
 import java.io.IOException;
 import java.nio.channels.ClosedChannelException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
@@ -65,14 +67,27 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     private final LogPositionMarker positionMarker = new LogPositionMarker();
     private final DatabaseHealth databaseHealth;
     private final Lock forceLock = new ReentrantLock();
+    private final boolean compress;
+    // Serialization buffers not currently used by any committer. Pooled rather than thread local, so that the
+    // deflaters of the buffers can be released when shutting down
+    private final Queue<TransactionSerializationBuffer> serializationBuffers = new ConcurrentLinkedQueue<>();
 
     private FlushablePositionAwareChannel writer;
+    private LogEntryWriter logEntryWriter;
     private TransactionLogWriter transactionLogWriter;
     private IndexCommandDetector indexCommandDetector;
 
     public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
             TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
             IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth )
+    {
+        this( logFile, logRotation, transactionMetadataCache, transactionIdStore, explicitIndexTransactionOrdering,
+                databaseHealth, false );
+    }
+
+    public BatchingTransactionAppender( LogFile logFile, LogRotation logRotation,
+            TransactionMetadataCache transactionMetadataCache, TransactionIdStore transactionIdStore,
+            IdOrderingQueue explicitIndexTransactionOrdering, DatabaseHealth databaseHealth, boolean compress )
     {
         this.logFile = logFile;
         this.logRotation = logRotation;
@@ -80,6 +95,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         this.explicitIndexTransactionOrdering = explicitIndexTransactionOrdering;
         this.databaseHealth = databaseHealth;
         this.transactionMetadataCache = transactionMetadataCache;
+        this.compress = compress;
     }
 
     @Override
@@ -87,11 +103,65 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
     {
         this.writer = logFile.getWriter();
         this.indexCommandDetector = new IndexCommandDetector();
-        this.transactionLogWriter = new TransactionLogWriter( new LogEntryWriter( writer ) );
+        this.logEntryWriter = new LogEntryWriter( writer );
+        this.transactionLogWriter = new TransactionLogWriter( logEntryWriter );
+    }
+
+    @Override
+    public void shutdown() throws Throwable
+    {
+        TransactionSerializationBuffer serialized;
+        while ( (serialized = serializationBuffers.poll()) != null )
+        {
+            serialized.close();
+        }
     }
 
     @Override
     public long append( TransactionToApply batch, LogAppendEvent logAppendEvent ) throws IOException
+    {
+        long lastTransactionId;
+        // Serialize the transactions in this batch before grabbing the logFile monitor, so that committers
+        // only hold it while copying already serialized transactions into the log. The commit entries contain
+        // the transaction ids, which are assigned under the monitor, so those are written when appending.
+        // Transactions too big for the serialization buffer, which can't be compressed on the side, are
+        // serialized directly into the log under the monitor, like before.
+        TransactionSerializationBuffer serialized = acquireSerializationBuffer();
+        try
+        {
+            for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+            {
+                serialized.serialize( tx.transactionRepresentation() );
+            }
+            lastTransactionId = appendSerialized( batch, serialized, logAppendEvent );
+        }
+        finally
+        {
+            // Drop what a big batch may have grown the buffer to, before pooling it
+            serialized.reset();
+            serializationBuffers.offer( serialized );
+        }
+
+        // At this point we've appended all transactions in this batch, but we can't mark any of them
+        // as committed since they haven't been forced to disk yet. So here we force, or potentially
+        // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
+        // in this batch exist durably on disk.
+        if ( forceAfterAppend( logAppendEvent ) )
+        {
+            // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committerss
+            // checks the need for log rotation.
+            boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
+            logAppendEvent.setLogRotated( logRotated );
+        }
+
+        // Mark all transactions as committed
+        publishAsCommitted( batch );
+
+        return lastTransactionId;
+    }
+
+    private long appendSerialized( TransactionToApply batch, TransactionSerializationBuffer serialized,
+            LogAppendEvent logAppendEvent ) throws IOException
     {
         // Assigned base tx id just to make compiler happy
         long lastTransactionId = TransactionIdStore.BASE_TX_ID;
@@ -104,6 +174,7 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
             {
                 // Append all transactions in this batch to the log under the same logFile monitor
                 TransactionToApply tx = batch;
+                int index = 0;
                 while ( tx != null )
                 {
                     long transactionId = transactionIdStore.nextCommittingTransactionId();
@@ -114,7 +185,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                     // really recover from and would point to a bug somewhere.
                     matchAgainstExpectedTransactionIdIfAny( transactionId, tx );
 
-                    TransactionCommitment commitment = appendToLog( tx.transactionRepresentation(), transactionId );
+                    TransactionCommitment commitment =
+                            appendToLog( tx.transactionRepresentation(), serialized, index++, transactionId );
                     tx.commitment( commitment, transactionId );
                     tx.logPosition( commitment.logPosition() );
                     tx = tx.next();
@@ -122,25 +194,15 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
                 }
             }
         }
-
-        // At this point we've appended all transactions in this batch, but we can't mark any of them
-        // as committed since they haven't been forced to disk yet. So here we force, or potentially
-        // piggy-back on another force, but anyway after this call below we can be sure that all our transactions
-        // in this batch exist durably on disk.
-        if ( forceAfterAppend( logAppendEvent ) )
-        {
-            // We got lucky and were the one forcing the log. It's enough if ones of all doing concurrent committerss
-            // checks the need for log rotation.
-            boolean logRotated = logRotation.rotateLogIfNeeded( logAppendEvent );
-            logAppendEvent.setLogRotated( logRotated );
-        }
-
-        // Mark all transactions as committed
-        publishAsCommitted( batch );
-
         return lastTransactionId;
     }
 
+    private TransactionSerializationBuffer acquireSerializationBuffer()
+    {
+        TransactionSerializationBuffer serialized = serializationBuffers.poll();
+        return serialized != null ? serialized : new TransactionSerializationBuffer( compress );
+    }
+
     private void matchAgainstExpectedTransactionIdIfAny( long transactionId, TransactionToApply tx )
     {
         long expectedTransactionId = tx.transactionId();
@@ -191,8 +253,8 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
      * @return A TransactionCommitment instance with metadata about the committed transaction, such as whether or not
      * this transaction contains any explicit index changes.
      */
-    private TransactionCommitment appendToLog( TransactionRepresentation transaction, long transactionId )
-            throws IOException
+    private TransactionCommitment appendToLog( TransactionRepresentation transaction,
+            TransactionSerializationBuffer serialized, int index, long transactionId ) throws IOException
     {
         // Reset command writer so that we, after we've written the transaction, can ask it whether or
         // not any explicit index command was written. If so then there's additional ordering to care about below.
@@ -207,7 +269,11 @@ public class BatchingTransactionAppender extends LifecycleAdapter implements Tra
         try
         {
             LogPosition logPositionBeforeCommit = writer.getCurrentPosition( positionMarker ).newPosition();
-            transactionLogWriter.append( transaction, transactionId );
+            if ( !serialized.writeTo( writer, logEntryWriter, index ) )
+            {
+                transactionLogWriter.appendWithoutCommit( transaction );
+            }
+            transactionLogWriter.appendCommit( transaction, transactionId );
             LogPosition logPositionAfterCommit = writer.getCurrentPosition( positionMarker ).newPosition();
 
             long transactionChecksum =
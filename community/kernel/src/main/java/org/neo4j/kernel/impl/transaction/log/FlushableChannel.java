@@ -22,6 +22,7 @@ package org.neo4j.kernel.impl.transaction.log;
 import java.io.Closeable;
 import java.io.Flushable;
 import java.io.IOException;
+import java.util.Arrays;
 
 import org.neo4j.storageengine.api.WritableChannel;
 
@@ -60,4 +61,18 @@ public interface FlushableChannel extends WritableChannel, Closeable
 
     @Override
     FlushableChannel put( byte[] value, int length ) throws IOException;
+
+    /**
+     * Writes part of a {@code byte[]} to this channel.
+     *
+     * @param value byte array to write bytes from.
+     * @param offset offset in the array of the first byte to write.
+     * @param length number of bytes to write.
+     * @return this channel, for fluent usage.
+     * @throws IOException if I/O error occurs.
+     */
+    default FlushableChannel put( byte[] value, int offset, int length ) throws IOException
+    {
+        return offset == 0 ? put( value, length ) : put( Arrays.copyOfRange( value, offset, offset + length ), length );
+    }
 }
@@ -127,6 +127,13 @@ public class InMemoryClosableChannel implements ReadableClosablePositionAwareCha
         return this;
     }
 
+    @Override
+    public InMemoryClosableChannel put( byte[] bytes, int offset, int length ) throws IOException
+    {
+        writer.put( bytes, offset, length );
+        return this;
+    }
+
     public boolean isOpen()
     {
         return true;
@@ -416,6 +423,13 @@ public class InMemoryClosableChannel implements ReadableClosablePositionAwareCha
             return this;
         }
 
+        @Override
+        public Writer put( byte[] bytes, int offset, int length ) throws IOException
+        {
+            buffer.put( bytes, offset, length );
+            return this;
+        }
+
         @Override
         public Flushable prepareForFlush() throws IOException
         {
@@ -58,6 +58,16 @@ public interface LogFile
      */
     ReadableLogChannel getReader( LogPosition position, LogVersionBridge logVersionBridge ) throws IOException;
 
+    /**
+     * Opens a {@link MappedLogChannel reader} at the desired {@link LogPosition}, like {@link #getReader(LogPosition)}
+     * does, but which reads log versions that have been rotated away through memory mapping.
+     *
+     * @param position {@link LogPosition} to position the returned reader at.
+     * @return {@link MappedLogChannel} capable of reading log data, starting from {@link LogPosition position}.
+     * @throws IOException on I/O error.
+     */
+    MappedLogChannel getMappedReader( LogPosition position ) throws IOException;
+
     void accept( LogFileVisitor visitor, LogPosition startingFromPosition ) throws IOException;
 
     void accept( LogHeaderVisitor visitor ) throws IOException;
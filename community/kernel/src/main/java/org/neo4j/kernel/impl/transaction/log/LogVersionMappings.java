@@ -0,0 +1,94 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+
+/**
+ * Memory mappings of log versions which have been rotated away, shared by the {@link MappedLogChannel} reading them.
+ * A rotated away log version no longer changes, so it's mapped once, in its entirety, and the mapping is reused by
+ * every reader of it until it's evicted by mappings of more recently read log versions. The current log version,
+ * which may still grow, or have space preallocated after its entries, isn't mapped at all.
+ * <p>
+ * There's no way of explicitly unmapping memory, evicted mappings are released when garbage collected.
+ */
+public class LogVersionMappings
+{
+    /**
+     * Maps nothing, all log versions are read into memory instead.
+     */
+    public static final LogVersionMappings NO_MAPPINGS = new LogVersionMappings( () -> Long.MIN_VALUE, 0 );
+
+    private final LongSupplier currentVersion;
+    private final Map<Long,ByteBuffer> mappings;
+
+    /**
+     * @param currentVersion the log version currently appended to, log versions before it have been rotated away.
+     * @param maxMappedVersions number of rotated away log versions to keep the mappings of.
+     */
+    public LogVersionMappings( LongSupplier currentVersion, int maxMappedVersions )
+    {
+        this.currentVersion = currentVersion;
+        this.mappings = new LinkedHashMap<Long,ByteBuffer>( 16, 0.75f, true )
+        {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<Long,ByteBuffer> eldest )
+            {
+                return size() > maxMappedVersions;
+            }
+        };
+    }
+
+    /**
+     * @param channel log version to get the mapping of.
+     * @return a buffer of its own over the mapping of the whole log version, or {@code null} if the log version
+     * hasn't been rotated away, or can't be mapped.
+     * @throws IOException on I/O error.
+     */
+    public synchronized ByteBuffer mapping( LogVersionedStoreChannel channel ) throws IOException
+    {
+        long version = channel.getVersion();
+        if ( version >= currentVersion.getAsLong() || !(channel instanceof PhysicalLogVersionedStoreChannel) )
+        {
+            return null;
+        }
+        long size = channel.size();
+        ByteBuffer mapping = mappings.get( version );
+        if ( mapping == null || mapping.capacity() != size )
+        {
+            // A differently sized mapping is of a log version file which has since been replaced, e.g. by a store copy
+            if ( size > Integer.MAX_VALUE )
+            {
+                return null;
+            }
+            mapping = ((PhysicalLogVersionedStoreChannel) channel).map( 0, (int) size );
+            if ( mapping == null )
+            {
+                return null;
+            }
+            mappings.put( version, mapping );
+        }
+        return mapping.duplicate();
+    }
+}
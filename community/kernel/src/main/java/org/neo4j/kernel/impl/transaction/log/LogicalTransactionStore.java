@@ -45,6 +45,22 @@ public interface LogicalTransactionStore
     TransactionCursor getTransactions( long transactionIdToStartFrom )
             throws IOException;
 
+    /**
+     * Acquires a {@link MappedTransactionCursor cursor} like {@link #getTransactions(long)} does, but which reads
+     * the log through memory mapping and also provides the log entries of each transaction the way they are in
+     * the log.
+     *
+     * @param transactionIdToStartFrom id of the first transaction that the cursor will return.
+     * @return a {@link MappedTransactionCursor} capable of returning {@link CommittedTransactionRepresentation}
+     * instances, and their log entries, for committed transactions, starting from the specified
+     * {@code transactionIdToStartFrom}.
+     * @throws NoSuchTransactionException if the requested transaction hasn't been committed,
+     * or if the transaction has been committed, but information about it is no longer available for some reason.
+     * @throws IOException if there was an I/O related error looking for the start transaction.
+     */
+    MappedTransactionCursor getMappedTransactions( long transactionIdToStartFrom )
+            throws IOException;
+
     /**
      * Acquires a {@link TransactionCursor cursor} which will provide {@link CommittedTransactionRepresentation}
      * instances for committed transactions, starting from the specified {@link LogPosition}.
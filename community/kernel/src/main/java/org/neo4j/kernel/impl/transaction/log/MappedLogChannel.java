@@ -0,0 +1,246 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.storageengine.api.ReadPastEndException;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+
+import static org.neo4j.io.ByteUnit.mebiBytes;
+
+/**
+ * {@link ReadableLogChannel} reading log versions through memory mapping, instead of copying their contents into
+ * a read-ahead buffer like {@link ReadAheadLogChannel} does. Ranges of what has been read can be
+ * {@link #bytesSince(LogPosition) handed out} without copying them, e.g. for shipping log entries as they are.
+ * <p>
+ * Log versions which have been rotated away are read through the one mapping of each of them which
+ * {@link LogVersionMappings} keeps, so moving around in them, or handing out ranges of them, never maps anything.
+ * The current log version, and log versions which can't be mapped, are read into memory one chunk at a time instead.
+ * More of a log version is read if it grows while being read. Log entries never span log versions, so values are
+ * never read across the end of a log version.
+ */
+public class MappedLogChannel implements ReadableLogChannel, PositionableChannel
+{
+    private static final int READ_CHUNK_SIZE = toIntExact( mebiBytes( 1 ) );
+
+    private final LogVersionBridge bridge;
+    private final LogVersionMappings mappings;
+    private LogVersionedStoreChannel channel;
+    // Offset in the current log version of the first byte in the region
+    private long regionStart;
+    private ByteBuffer region;
+
+    /**
+     * @param startingChannel the log version to start reading, from its current position.
+     * @param bridge how to get to the next log version.
+     * @param mappings mappings of the log versions which have been rotated away.
+     * @throws IOException on I/O error.
+     */
+    public MappedLogChannel( LogVersionedStoreChannel startingChannel, LogVersionBridge bridge,
+            LogVersionMappings mappings ) throws IOException
+    {
+        this.channel = startingChannel;
+        this.bridge = bridge;
+        this.mappings = mappings;
+        loadRegion( startingChannel.position(), 0 );
+    }
+
+    @Override
+    public byte get() throws IOException
+    {
+        return ensureDataExists( Byte.BYTES ).get();
+    }
+
+    @Override
+    public short getShort() throws IOException
+    {
+        return ensureDataExists( Short.BYTES ).getShort();
+    }
+
+    @Override
+    public int getInt() throws IOException
+    {
+        return ensureDataExists( Integer.BYTES ).getInt();
+    }
+
+    @Override
+    public long getLong() throws IOException
+    {
+        return ensureDataExists( Long.BYTES ).getLong();
+    }
+
+    @Override
+    public float getFloat() throws IOException
+    {
+        return ensureDataExists( Float.BYTES ).getFloat();
+    }
+
+    @Override
+    public double getDouble() throws IOException
+    {
+        return ensureDataExists( Double.BYTES ).getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length ) throws IOException
+    {
+        assert length <= bytes.length;
+        ensureDataExists( length ).get( bytes, 0, length );
+    }
+
+    /**
+     * @param start position in the current log version, at or before the current position.
+     * @return the bytes between the given position and the current position, without copying them. The returned
+     * buffer stays valid after this channel has moved on, or has been closed.
+     * @throws IOException on I/O error.
+     */
+    public ByteBuffer bytesSince( LogPosition start ) throws IOException
+    {
+        long end = position();
+        if ( start.getLogVersion() != channel.getVersion() || start.getByteOffset() > end )
+        {
+            throw new IllegalArgumentException( start + " isn't before the current position " +
+                    new LogPosition( channel.getVersion(), end ) );
+        }
+        if ( start.getByteOffset() < regionStart )
+        {
+            loadRegion( start.getByteOffset(), toIntExact( end - start.getByteOffset() ) );
+        }
+        ByteBuffer bytes = region.duplicate();
+        bytes.limit( toIntExact( end - regionStart ) );
+        bytes.position( toIntExact( start.getByteOffset() - regionStart ) );
+        region.position( toIntExact( end - regionStart ) );
+        return bytes.slice();
+    }
+
+    private ByteBuffer ensureDataExists( int requestedNumberOfBytes ) throws IOException
+    {
+        while ( region.remaining() < requestedNumberOfBytes )
+        {
+            if ( channel.size() > regionStart + region.limit() )
+            {
+                // There's more of the log version than the region has, e.g. since the log version has grown
+                loadRegion( position(), requestedNumberOfBytes );
+            }
+            else if ( region.hasRemaining() )
+            {
+                // Only part of the value is in this log version, it will never be completed
+                throw ReadPastEndException.INSTANCE;
+            }
+            else
+            {
+                LogVersionedStoreChannel nextChannel = bridge.next( channel );
+                if ( nextChannel == channel )
+                {
+                    throw ReadPastEndException.INSTANCE;
+                }
+                channel = nextChannel;
+                loadRegion( nextChannel.position(), requestedNumberOfBytes );
+            }
+        }
+        return region;
+    }
+
+    /**
+     * Positions the region at the given offset in the current log version. The region is the mapping of the whole
+     * log version, if it has been rotated away, or otherwise at least the given number of bytes of it read into
+     * memory. Read regions are never reused, so that buffers handed out by {@link #bytesSince(LogPosition)} stay
+     * valid, and mappings are never written to.
+     */
+    private void loadRegion( long start, int minimumSize ) throws IOException
+    {
+        ByteBuffer mapping = mappings.mapping( channel );
+        if ( mapping != null && start <= mapping.limit() )
+        {
+            mapping.position( toIntExact( start ) );
+            regionStart = 0;
+            region = mapping;
+        }
+        else
+        {
+            long available = max( 0, channel.size() - start );
+            regionStart = start;
+            region = read( start, (int) min( available, max( READ_CHUNK_SIZE, minimumSize ) ) );
+        }
+    }
+
+    private ByteBuffer read( long start, int size ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( size );
+        while ( buffer.hasRemaining() )
+        {
+            if ( channel.read( buffer, start + buffer.position() ) == -1 )
+            {
+                break;
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private long position()
+    {
+        return regionStart + region.position();
+    }
+
+    @Override
+    public void setCurrentPosition( long byteOffset ) throws IOException
+    {
+        long positionInRegion = byteOffset - regionStart;
+        if ( positionInRegion >= 0 && positionInRegion <= region.limit() )
+        {
+            region.position( toIntExact( positionInRegion ) );
+        }
+        else
+        {
+            loadRegion( byteOffset, 0 );
+        }
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
+    {
+        positionMarker.mark( channel.getVersion(), position() );
+        return positionMarker;
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return channel.getVersion();
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return channel.getLogFormatVersion();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
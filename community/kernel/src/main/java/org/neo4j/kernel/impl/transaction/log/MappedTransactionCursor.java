@@ -0,0 +1,101 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
+
+/**
+ * {@link TransactionCursor} reading transactions through a {@link MappedLogChannel}, which also provides the
+ * {@link #logEntries() log entries} of each transaction the way they are in the log, e.g. for shipping transactions
+ * elsewhere without serializing them again.
+ * <p>
+ * Log entries carry no length, so the only way to find where a transaction ends is to read all its entries,
+ * commands included. Every transaction is therefore still read in full; what this cursor saves its users is
+ * serializing the transaction again, and copying the bytes through an intermediate buffer.
+ */
+public class MappedTransactionCursor implements TransactionCursor
+{
+    private final MappedLogChannel channel;
+    private final PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> transactions;
+    private ByteBuffer logEntries;
+    private boolean compressed;
+
+    public MappedTransactionCursor( MappedLogChannel channel,
+            LogEntryReader<ReadableClosablePositionAwareChannel> entryReader ) throws IOException
+    {
+        this.channel = channel;
+        this.transactions = new PhysicalTransactionCursor<>( channel, source ->
+        {
+            LogEntry entry = entryReader.readLogEntry( source );
+            compressed |= entry instanceof LogEntryCompressedCommands;
+            return entry;
+        } );
+    }
+
+    @Override
+    public boolean next() throws IOException
+    {
+        compressed = false;
+        if ( !transactions.next() )
+        {
+            logEntries = null;
+            return false;
+        }
+        // The channel is right after the commit entry of the transaction which was just read
+        logEntries = compressed ? null : channel.bytesSince( transactions.get().getStartEntry().getStartPosition() );
+        return true;
+    }
+
+    @Override
+    public CommittedTransactionRepresentation get()
+    {
+        return transactions.get();
+    }
+
+    /**
+     * @return the log entries of the current transaction, from its start entry up to and including its commit
+     * entry, the way they are in the log. The returned buffer stays valid after this cursor has moved on.
+     * Returns {@code null} if the commands of the transaction are {@link LogEntryCompressedCommands compressed} in
+     * the log, since readers of shipped transactions, e.g. members of an earlier version, may not be able to read
+     * them. Such transactions are to be serialized again, which writes the commands uncompressed.
+     */
+    public ByteBuffer logEntries()
+    {
+        return logEntries;
+    }
+
+    @Override
+    public LogPosition position()
+    {
+        return transactions.position();
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        transactions.close();
+    }
+}
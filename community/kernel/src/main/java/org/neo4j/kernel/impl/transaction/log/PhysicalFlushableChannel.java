@@ -137,10 +137,16 @@ public class PhysicalFlushableChannel implements FlushableChannel
     @Override
     public FlushableChannel put( byte[] value, int length ) throws IOException
     {
-        int offset = 0;
-        while ( offset < length )
+        return put( value, 0, length );
+    }
+
+    @Override
+    public FlushableChannel put( byte[] value, int offset, int length ) throws IOException
+    {
+        int end = offset + length;
+        while ( offset < end )
         {
-            int chunkSize = min( length - offset, buffer.capacity() >> 1 );
+            int chunkSize = min( end - offset, buffer.capacity() >> 1 );
             bufferWithGuaranteedSpace( chunkSize ).put( value, offset, chunkSize );
 
             offset += chunkSize;
@@ -26,11 +26,15 @@ import java.nio.ByteBuffer;
 import java.util.function.Supplier;
 
 import org.neo4j.helpers.Exceptions;
+import org.neo4j.io.ByteUnit;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.lifecycle.Lifecycle;
 
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderReader.readLogHeader;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
@@ -38,6 +42,10 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LO
 
 /**
  * {@link LogFile} backed by one or more files in a {@link FileSystemAbstraction}.
+ * <p>
+ * New log files can be preallocated to the size at which they're rotated, so that forcing the log doesn't also
+ * have to update the size of the file. The preallocated space is zeros, which readers take as the end of the log
+ * entries, and is cut off when the log file is rotated away or closed.
  */
 public class PhysicalLogFile implements LogFile, Lifecycle
 {
@@ -60,7 +68,12 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     public static final String REGEX_DEFAULT_NAME = "neostore\\.transaction\\.db";
     public static final String DEFAULT_VERSION_SUFFIX = ".";
     public static final String REGEX_DEFAULT_VERSION_SUFFIX = "\\.";
+    private static final int PREALLOCATION_CHUNK_SIZE = (int) ByteUnit.mebiBytes( 1 );
+    // Readers are mostly behind by no more than a few log versions, e.g. when catching up
+    private static final int MAPPED_LOG_VERSIONS = 4;
+
     private final long rotateAtSize;
+    private final boolean preallocate;
     private final FileSystemAbstraction fileSystem;
     private final Supplier<Long> lastCommittedId;
     private final PhysicalLogFiles logFiles;
@@ -70,6 +83,7 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     private PositionAwarePhysicalFlushableChannel writer;
     private final LogVersionRepository logVersionRepository;
     private final LogVersionBridge readerLogVersionBridge;
+    private final LogVersionMappings logVersionMappings;
 
     private volatile PhysicalLogVersionedStoreChannel channel;
 
@@ -77,15 +91,26 @@ public class PhysicalLogFile implements LogFile, Lifecycle
                             Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
                             Monitor monitor, LogHeaderCache logHeaderCache
     )
+    {
+        this( fileSystem, logFiles, rotateAtSize, lastCommittedId, logVersionRepository, monitor, logHeaderCache,
+                false );
+    }
+
+    public PhysicalLogFile( FileSystemAbstraction fileSystem, PhysicalLogFiles logFiles, long rotateAtSize,
+                            Supplier<Long> lastCommittedId, LogVersionRepository logVersionRepository,
+                            Monitor monitor, LogHeaderCache logHeaderCache, boolean preallocate )
     {
         this.fileSystem = fileSystem;
         this.rotateAtSize = rotateAtSize;
+        this.preallocate = preallocate;
         this.lastCommittedId = lastCommittedId;
         this.logVersionRepository = logVersionRepository;
         this.monitor = monitor;
         this.logHeaderCache = logHeaderCache;
         this.logFiles = logFiles;
         this.readerLogVersionBridge = new ReaderLogVersionBridge( fileSystem, logFiles );
+        this.logVersionMappings =
+                new LogVersionMappings( logVersionRepository::getCurrentLogVersion, MAPPED_LOG_VERSIONS );
     }
 
     @Override
@@ -105,8 +130,8 @@ public class PhysicalLogFile implements LogFile, Lifecycle
 
         long lastLogVersionUsed = logVersionRepository.getCurrentLogVersion();
         channel = createLogChannelForVersion( lastLogVersionUsed );
-        // Move to the end
-        channel.position( channel.size() );
+        // Move to the end, which is before any space preallocated for the log file
+        channel.position( endOfEntries( lastLogVersionUsed, channel.size() ) );
 
         writer = new PositionAwarePhysicalFlushableChannel( channel );
     }
@@ -125,6 +150,8 @@ public class PhysicalLogFile implements LogFile, Lifecycle
     {
         if ( writer != null )
         {
+            writer.prepareForFlush().flush();
+            truncatePreallocatedSpace( channel );
             writer.close();
         }
         if ( channel != null )
@@ -158,17 +185,16 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      *
      * Steps during rotation are:
      * <ol>
-     * <li>1: Increment log version, {@link LogVersionRepository#incrementAndGetVersion()} (also flushes the store)</li>
-     * <li>2: Flush current log</li>
+     * <li>1: Flush current log, cutting off any space preallocated after its entries</li>
+     * <li>2: Increment log version, {@link LogVersionRepository#incrementAndGetVersion()} (also flushes the store)</li>
      * <li>3: Create new log file</li>
-     * <li>4: Write header</li>
+     * <li>4: Write header, and preallocate the new log file if configured to</li>
      * </ol>
      *
      * Recovery: what happens if crash between:
      * <ol>
-     * <li>1-2: New log version has been set, starting the writer will create the new log file idempotently.
-     * At this point there may have been half-written transactions in the previous log version,
-     * although they haven't been considered committed and so they will be truncated from log during recovery</li>
+     * <li>1-2: The log version hasn't changed, so starting the writer will continue appending to the current log
+     * file. Since its preallocated space has been cut off, it's only appended to, not written into.</li>
      * <li>2-3: New log version has been set, starting the writer will create the new log file idempotently.
      * At this point there may be complete transactions in the previous log version which may not have been
      * acknowledged to be committed back to the user, but will be considered committed anyway.</li>
@@ -181,10 +207,11 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      *
      * Reading: what happens when rotation is between:
      * <ol>
-     * <li>1-2: Reader bridge will see that there's a new version (when asking {@link LogVersionRepository}
+     * <li>1-2: The current log file ends with its entries or with preallocated space, both of which readers see
+     * as the end of the entries</li>
+     * <li>2-3: Reader bridge will see that there's a new version (when asking {@link LogVersionRepository}
      * and try to open it. The log file doesn't exist yet though. The bridge can parry for this by catching
      * {@link FileNotFoundException} and tell the reader that the stream has ended</li>
-     * <li>2-3: Same as (1-2)</li>
      * <li>3-4: Here the new log file exists, but the header may not be fully written yet.
      * the reader will fail when trying to read the header since it's reading it strictly and bridge
      * catches that exception, treating it the same as if the file didn't exist.</li>
@@ -196,18 +223,21 @@ public class PhysicalLogFile implements LogFile, Lifecycle
      */
     private PhysicalLogVersionedStoreChannel rotate( LogVersionedStoreChannel currentLog ) throws IOException
     {
-        /*
-         * The store is now flushed. If we fail now the recovery code will open the
-         * current log file and replay everything. That's unnecessary but totally ok.
-         */
-        long newLogVersion = logVersionRepository.incrementAndGetVersion();
         /*
          * Rotation can happen at any point, although not concurrently with an append,
          * although an append may have (most likely actually) left at least some bytes left
          * in the buffer for future flushing. Flushing that buffer now makes the last appended
          * transaction complete in the log we're rotating away. Awesome.
+         * Readers bridge over to the next log file when they reach the end of a log file, so the log we're
+         * rotating away must end where its entries end, before it's rotated away.
          */
         writer.prepareForFlush().flush();
+        truncatePreallocatedSpace( currentLog );
+        /*
+         * The store is now flushed. If we fail now the recovery code will open the
+         * current log file and replay everything. That's unnecessary but totally ok.
+         */
+        long newLogVersion = logVersionRepository.incrementAndGetVersion();
         /*
          * The log version is now in the store, flushed and persistent. If we crash
          * now, on recovery we'll attempt to open the version we're about to create
@@ -243,12 +273,83 @@ public class PhysicalLogFile implements LogFile, Lifecycle
             writeLogHeader( headerBuffer, forVersion, lastTxId );
             logHeaderCache.putHeader( forVersion, lastTxId );
             storeChannel.writeAll( headerBuffer );
+            if ( preallocate )
+            {
+                preallocate( storeChannel );
+            }
             monitor.opened( toOpen, forVersion, lastTxId, true );
         }
         byte formatVersion = header == null ? CURRENT_LOG_VERSION : header.logFormatVersion;
         return new PhysicalLogVersionedStoreChannel( storeChannel, forVersion, formatVersion );
     }
 
+    /**
+     * Fills the given, newly created, log file with zeros up to the size at which it's rotated, so that the file
+     * system allocates all of it up front. The channel is left positioned after the header.
+     */
+    private void preallocate( StoreChannel storeChannel ) throws IOException
+    {
+        ByteBuffer zeros = ByteBuffer.allocate( PREALLOCATION_CHUNK_SIZE );
+        long position = storeChannel.position();
+        while ( position < rotateAtSize )
+        {
+            zeros.clear();
+            zeros.limit( (int) Math.min( zeros.capacity(), rotateAtSize - position ) );
+            storeChannel.writeAll( zeros );
+            position += zeros.limit();
+        }
+        storeChannel.force( true );
+        storeChannel.position( LOG_HEADER_SIZE );
+    }
+
+    /**
+     * Cuts off the space preallocated after the entries of the given log file, which must have had any buffered
+     * entries flushed to it.
+     */
+    private void truncatePreallocatedSpace( LogVersionedStoreChannel log ) throws IOException
+    {
+        long endOfEntries = log.position();
+        if ( log.size() > endOfEntries )
+        {
+            log.truncate( endOfEntries );
+            log.force( true );
+        }
+    }
+
+    /**
+     * @return the position after the last entry in the log file with the given version, which is the size of the
+     * log file unless it has space preallocated after its entries, e.g. after a crash. This is checked regardless
+     * of whether preallocation is currently enabled, since the log file may have been preallocated before.
+     */
+    private long endOfEntries( long version, long size ) throws IOException
+    {
+        if ( size <= LOG_HEADER_SIZE )
+        {
+            return size;
+        }
+        try ( StoreChannel storeChannel = fileSystem.open( logFiles.getLogFileForVersion( version ), "r" ) )
+        {
+            ByteBuffer lastByte = ByteBuffer.allocate( 1 );
+            if ( storeChannel.read( lastByte, size - 1 ) != 1 || lastByte.get( 0 ) != 0 )
+            {
+                return size;
+            }
+        }
+
+        LogEntryReader<ReadableLogChannel> entryReader = new VersionAwareLogEntryReader<>();
+        try ( ReadableLogChannel reader = new ReadAheadLogChannel(
+                openForVersion( logFiles, fileSystem, version, false ), NO_MORE_CHANNELS ) )
+        {
+            LogPositionMarker endOfEntries = new LogPositionMarker();
+            reader.getCurrentPosition( endOfEntries );
+            while ( entryReader.readLogEntry( reader ) != null )
+            {
+                reader.getCurrentPosition( endOfEntries );
+            }
+            return endOfEntries.getByteOffset();
+        }
+    }
+
     @Override
     public FlushablePositionAwareChannel getWriter()
     {
@@ -270,6 +371,16 @@ public class PhysicalLogFile implements LogFile, Lifecycle
         return new ReadAheadLogChannel( logChannel, logVersionBridge );
     }
 
+    @Override
+    public MappedLogChannel getMappedReader( LogPosition position ) throws IOException
+    {
+        PhysicalLogVersionedStoreChannel logChannel =
+                openForVersion( logFiles, fileSystem, position.getLogVersion(), false );
+        logChannel.position( position.getByteOffset() );
+        // Only log versions which have been rotated away, and so have had any preallocated space cut off, are mapped
+        return new MappedLogChannel( logChannel, readerLogVersionBridge, logVersionMappings );
+    }
+
     public static PhysicalLogVersionedStoreChannel openForVersion( PhysicalLogFiles logFiles,
             FileSystemAbstraction fileSystem,
             long version, boolean write ) throws IOException
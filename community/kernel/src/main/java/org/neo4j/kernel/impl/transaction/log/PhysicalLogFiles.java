@@ -21,9 +21,11 @@ package org.neo4j.kernel.impl.transaction.log;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.regex.Pattern;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 
 import static java.lang.Math.max;
@@ -90,7 +92,22 @@ public class PhysicalLogFiles
 
     public boolean hasAnyEntries( long version )
     {
-        return fileSystem.getFileSize( getLogFileForVersion( version ) ) > LOG_HEADER_SIZE;
+        File file = getLogFileForVersion( version );
+        if ( fileSystem.getFileSize( file ) <= LOG_HEADER_SIZE )
+        {
+            return false;
+        }
+        // A log file with preallocated space may have no entries, but zeros, after the header
+        try ( StoreChannel channel = fileSystem.open( file, "r" ) )
+        {
+            ByteBuffer firstEntryByte = ByteBuffer.allocate( 1 );
+            return channel.read( firstEntryByte, LOG_HEADER_SIZE ) != 1 || firstEntryByte.get( 0 ) != 0;
+        }
+        catch ( IOException e )
+        {
+            // Can't tell, but there's more than a header in the file
+            return true;
+        }
     }
 
     public long getHighestLogVersion()
@@ -24,6 +24,10 @@ import java.nio.ByteBuffer;
 import java.nio.channels.FileLock;
 
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.fs.StoreFileChannel;
+import org.neo4j.io.fs.StoreFileChannelUnwrapper;
+
+import static java.nio.channels.FileChannel.MapMode.READ_ONLY;
 
 public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChannel
 {
@@ -69,7 +73,31 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
     @Override
     public int read( ByteBuffer dst, long position ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        return delegateChannel.read( dst, position );
+    }
+
+    /**
+     * Maps a region of this log version into memory, read only.
+     *
+     * @param position offset in this log version where the region starts.
+     * @param size number of bytes in the region.
+     * @return the mapped region, or {@code null} if this log version can't be memory mapped.
+     */
+    public ByteBuffer map( long position, int size )
+    {
+        if ( !(delegateChannel instanceof StoreFileChannel) )
+        {
+            return null;
+        }
+        try
+        {
+            return StoreFileChannelUnwrapper.unwrap( delegateChannel ).map( READ_ONLY, position, size );
+        }
+        catch ( IOException | UnsupportedOperationException e )
+        {
+            // E.g. the file system doesn't support memory mapping, in which case the caller reads it instead
+            return null;
+        }
     }
 
     @Override
@@ -71,35 +71,58 @@ public class PhysicalLogicalTransactionStore implements LogicalTransactionStore
     public TransactionCursor getTransactions( final long transactionIdToStartFrom )
             throws IOException
     {
-        // look up in position cache
         try
         {
-            TransactionMetadataCache.TransactionMetadata transactionMetadata =
-                    transactionMetadataCache.getTransactionMetadata( transactionIdToStartFrom );
-            if ( transactionMetadata != null )
-            {
-                // we're good
-                ReadableLogChannel channel = logFile.getReader( transactionMetadata.getStartPosition() );
-                return new PhysicalTransactionCursor<>( channel, logEntryReader );
-            }
-
-            // ask LogFile about the version it may be in
-            LogVersionLocator headerVisitor = new LogVersionLocator( transactionIdToStartFrom );
-            logFile.accept( headerVisitor );
-
-            // ask LogFile
-            TransactionPositionLocator transactionPositionLocator =
-                    new TransactionPositionLocator( transactionIdToStartFrom, logEntryReader );
-            logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
-            LogPosition position = transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+            LogPosition position = startPositionOf( transactionIdToStartFrom );
             return new PhysicalTransactionCursor<>( logFile.getReader( position ), logEntryReader );
         }
         catch ( FileNotFoundException e )
         {
-            throw new NoSuchTransactionException( transactionIdToStartFrom,
-                    "Log position acquired, but couldn't find the log file itself. " +
-                            "Perhaps it just recently was deleted? [" + e.getMessage() + "]" );
+            throw logFileNotFound( transactionIdToStartFrom, e );
+        }
+    }
+
+    @Override
+    public MappedTransactionCursor getMappedTransactions( long transactionIdToStartFrom ) throws IOException
+    {
+        try
+        {
+            LogPosition position = startPositionOf( transactionIdToStartFrom );
+            return new MappedTransactionCursor( logFile.getMappedReader( position ), logEntryReader );
         }
+        catch ( FileNotFoundException e )
+        {
+            throw logFileNotFound( transactionIdToStartFrom, e );
+        }
+    }
+
+    private LogPosition startPositionOf( long transactionId ) throws IOException
+    {
+        // look up in position cache
+        TransactionMetadataCache.TransactionMetadata transactionMetadata =
+                transactionMetadataCache.getTransactionMetadata( transactionId );
+        if ( transactionMetadata != null )
+        {
+            // we're good
+            return transactionMetadata.getStartPosition();
+        }
+
+        // ask LogFile about the version it may be in
+        LogVersionLocator headerVisitor = new LogVersionLocator( transactionId );
+        logFile.accept( headerVisitor );
+
+        // ask LogFile
+        TransactionPositionLocator transactionPositionLocator =
+                new TransactionPositionLocator( transactionId, logEntryReader );
+        logFile.accept( transactionPositionLocator, headerVisitor.getLogPosition() );
+        return transactionPositionLocator.getAndCacheFoundLogPosition( transactionMetadataCache );
+    }
+
+    private static NoSuchTransactionException logFileNotFound( long transactionId, FileNotFoundException e )
+    {
+        return new NoSuchTransactionException( transactionId,
+                "Log position acquired, but couldn't find the log file itself. " +
+                        "Perhaps it just recently was deleted? [" + e.getMessage() + "]" );
     }
 
     @Override
@@ -99,6 +99,12 @@ public class PositionAwarePhysicalFlushableChannel implements FlushablePositionA
         return channel.put( value, length );
     }
 
+    @Override
+    public FlushableChannel put( byte[] value, int offset, int length ) throws IOException
+    {
+        return channel.put( value, offset, length );
+    }
+
     @Override
     public void close() throws IOException
     {
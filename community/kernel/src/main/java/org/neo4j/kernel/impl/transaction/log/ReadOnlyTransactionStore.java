@@ -61,6 +61,12 @@ public class ReadOnlyTransactionStore extends LifecycleAdapter implements Logica
         return physicalStore.getTransactions( transactionIdToStartFrom );
     }
 
+    @Override
+    public MappedTransactionCursor getMappedTransactions( long transactionIdToStartFrom ) throws IOException
+    {
+        return physicalStore.getMappedTransactions( transactionIdToStartFrom );
+    }
+
     @Override
     public TransactionCursor getTransactions( LogPosition position ) throws IOException
     {
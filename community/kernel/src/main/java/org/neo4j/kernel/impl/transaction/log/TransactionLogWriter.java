@@ -34,6 +34,18 @@ public class TransactionLogWriter
     }
 
     public void append( TransactionRepresentation transaction, long transactionId ) throws IOException
+    {
+        appendWithoutCommit( transaction );
+        appendCommit( transaction, transactionId );
+    }
+
+    /**
+     * Writes the start entry and the commands of the given transaction, which together with a later call to
+     * {@link #appendCommit(TransactionRepresentation, long)} is the same as {@link #append(TransactionRepresentation,
+     * long)}. Separated for serializing a transaction before the transaction id, which the commit entry contains,
+     * has been assigned.
+     */
+    public void appendWithoutCommit( TransactionRepresentation transaction ) throws IOException
     {
         writer.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
                 transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
@@ -41,8 +53,10 @@ public class TransactionLogWriter
 
         // Write all the commands to the log channel
         writer.serialize( transaction );
+    }
 
-        // Write commit record
+    public void appendCommit( TransactionRepresentation transaction, long transactionId ) throws IOException
+    {
         writer.writeCommitEntry( transactionId, transaction.getTimeCommitted() );
     }
 
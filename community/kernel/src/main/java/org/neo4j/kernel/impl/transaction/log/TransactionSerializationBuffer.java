@@ -0,0 +1,493 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.storageengine.api.StorageCommand;
+
+import static org.neo4j.io.ByteUnit.kibiBytes;
+import static org.neo4j.io.ByteUnit.mebiBytes;
+
+/**
+ * Growable in-memory buffer which transactions are serialized into before they're appended to the log, so that the
+ * serialization of the commands of a transaction can happen outside of the log file monitor, concurrently with
+ * other transactions being appended and with the log being forced. All of a transaction but its commit entry is
+ * serialized, since the commit entry contains the transaction id, which is assigned when appending.
+ * <p>
+ * If compression is enabled, the commands of transactions big enough to benefit from it are written as
+ * {@link LogEntryCompressedCommands compressed commands} instead of as one entry each.
+ * <p>
+ * The buffer doesn't grow beyond {@link #MAX_SERIALIZED_SIZE}, so that big transactions aren't held in memory in
+ * serialized form as well. If compression is enabled, the commands of a transaction which doesn't fit are streamed
+ * through the {@link Deflater} instead, and only their compressed form is kept, next to the buffer. Otherwise, or if
+ * they don't compress well enough, the transaction isn't serialized, and is meant to be written directly into the
+ * log instead. Transactions after it are serialized into the buffer as usual.
+ * <p>
+ * Not thread safe, meant to be used by one committing thread at a time.
+ */
+class TransactionSerializationBuffer implements FlushableChannel
+{
+    private static final int INITIAL_CAPACITY = 4096;
+    // Buffers grown beyond this size by big transactions are dropped on reset, instead of being kept around
+    private static final int MAX_RETAINED_CAPACITY = (int) kibiBytes( 64 );
+    private static final int MAX_SERIALIZED_SIZE = (int) mebiBytes( 1 );
+    private static final IOException SERIALIZED_SIZE_EXCEEDED = new IOException( "Serialized size exceeded" )
+    {
+        @Override
+        public synchronized Throwable fillInStackTrace()
+        {
+            return this;
+        }
+    };
+    // Commands smaller than this compress too poorly to be worth the effort
+    private static final int MIN_COMPRESSED_LENGTH = 512;
+
+    private final LogEntryWriter entryWriter = new LogEntryWriter( this );
+    private final TransactionLogWriter writer = new TransactionLogWriter( entryWriter );
+    private final Deflater deflater;
+    private int commandCount;
+    private final Visitor<StorageCommand,IOException> commandCounter = command ->
+    {
+        commandCount++;
+        return false;
+    };
+    private ByteBuffer buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+    private byte[] compressed = new byte[0];
+    // Per transaction, the end of what's serialized into the buffer, i.e. everything, or just the start entry of
+    // transactions with commands compressed on the side. A transaction with nothing in the buffer wasn't serialized.
+    private int[] ends = new int[8];
+    private CompressedCommands[] bigCommands = new CompressedCommands[8];
+    private int numberOfTransactions;
+
+    /**
+     * @param compress whether or not to compress the commands of transactions.
+     */
+    TransactionSerializationBuffer( boolean compress )
+    {
+        this.deflater = compress ? new Deflater( Deflater.BEST_SPEED ) : null;
+    }
+
+    /**
+     * Clears this buffer of all serialized transactions.
+     */
+    void reset()
+    {
+        if ( buffer.capacity() > MAX_RETAINED_CAPACITY )
+        {
+            buffer = ByteBuffer.allocate( INITIAL_CAPACITY );
+        }
+        if ( compressed.length > MAX_RETAINED_CAPACITY )
+        {
+            compressed = new byte[0];
+        }
+        buffer.clear();
+        Arrays.fill( bigCommands, 0, numberOfTransactions, null );
+        numberOfTransactions = 0;
+    }
+
+    /**
+     * Serializes all but the commit entry of the given transaction, after any previously serialized transactions.
+     * A transaction which is too big to be serialized is still counted, but {@link #writeTo(FlushableChannel,
+     * LogEntryWriter, int) writing} it is left to the caller.
+     *
+     * @param transaction the transaction to serialize.
+     */
+    void serialize( TransactionRepresentation transaction ) throws IOException
+    {
+        int start = buffer.position();
+        CompressedCommands big = null;
+        try
+        {
+            if ( deflater == null )
+            {
+                writer.appendWithoutCommit( transaction );
+            }
+            else
+            {
+                entryWriter.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                        transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                        transaction.additionalHeader() );
+                int commandsStart = buffer.position();
+                entryWriter.serialize( transaction );
+                compressCommands( transaction, commandsStart );
+            }
+        }
+        catch ( IOException e )
+        {
+            if ( e != SERIALIZED_SIZE_EXCEEDED )
+            {
+                throw e;
+            }
+            buffer.position( start );
+            if ( deflater != null )
+            {
+                big = compressBigCommands( transaction, start );
+            }
+        }
+        if ( numberOfTransactions == ends.length )
+        {
+            ends = Arrays.copyOf( ends, ends.length * 2 );
+            bigCommands = Arrays.copyOf( bigCommands, bigCommands.length * 2 );
+        }
+        ends[numberOfTransactions] = buffer.position();
+        bigCommands[numberOfTransactions] = big;
+        numberOfTransactions++;
+    }
+
+    private void compressCommands( TransactionRepresentation transaction, int commandsStart ) throws IOException
+    {
+        int uncompressedLength = buffer.position() - commandsStart;
+        if ( uncompressedLength < MIN_COMPRESSED_LENGTH )
+        {
+            return;
+        }
+
+        if ( compressed.length < uncompressedLength )
+        {
+            compressed = new byte[uncompressedLength];
+        }
+        deflater.reset();
+        deflater.setInput( buffer.array(), commandsStart, uncompressedLength );
+        deflater.finish();
+        int compressedLength = deflater.deflate( compressed, 0, uncompressedLength );
+        if ( !deflater.finished() || !compressedEnough( compressedLength, uncompressedLength ) )
+        {
+            // Not compressible enough, keep the commands as they are
+            return;
+        }
+
+        buffer.position( commandsStart );
+        entryWriter.writeCompressedCommandsEntry( countCommands( transaction ), uncompressedLength, compressed,
+                compressedLength );
+    }
+
+    /**
+     * Serializes the start entry of a transaction whose commands don't fit in the buffer, and streams the commands
+     * through the deflater, keeping only their compressed form.
+     *
+     * @return the compressed commands, or {@code null} if they don't compress well enough, or if not even the start
+     * entry fits, in which case the buffer is left as it was.
+     */
+    private CompressedCommands compressBigCommands( TransactionRepresentation transaction, int start )
+            throws IOException
+    {
+        try
+        {
+            entryWriter.writeStartEntry( transaction.getMasterId(), transaction.getAuthorId(),
+                    transaction.getTimeStarted(), transaction.getLatestCommittedTxWhenStarted(),
+                    transaction.additionalHeader() );
+        }
+        catch ( IOException e )
+        {
+            if ( e != SERIALIZED_SIZE_EXCEEDED )
+            {
+                throw e;
+            }
+            buffer.position( start );
+            return null;
+        }
+
+        DeflatingChannel deflating = new DeflatingChannel( deflater );
+        new LogEntryWriter( deflating ).serialize( transaction );
+        deflating.finish();
+        int uncompressedLength = deflating.uncompressedLength();
+        int compressedLength = deflating.compressedLength();
+        if ( uncompressedLength == Integer.MAX_VALUE || !compressedEnough( compressedLength, uncompressedLength ) )
+        {
+            buffer.position( start );
+            return null;
+        }
+        return new CompressedCommands( countCommands( transaction ), uncompressedLength, deflating.compressed(),
+                compressedLength );
+    }
+
+    private static boolean compressedEnough( int compressedLength, int uncompressedLength )
+    {
+        return compressedLength < uncompressedLength - uncompressedLength / 10;
+    }
+
+    private int countCommands( TransactionRepresentation transaction ) throws IOException
+    {
+        commandCount = 0;
+        transaction.accept( commandCounter );
+        return commandCount;
+    }
+
+    /**
+     * Writes one of the transactions given to {@link #serialize(TransactionRepresentation)} to the given channel.
+     *
+     * @param channel the channel to write to.
+     * @param entryWriter writer of log entries to the same channel.
+     * @param transaction index of the transaction, in the order they were given to serialize.
+     * @return {@code true} if the transaction was written, or {@code false} if it was too big to be serialized, in
+     * which case the caller has to write it.
+     */
+    boolean writeTo( FlushableChannel channel, LogEntryWriter entryWriter, int transaction ) throws IOException
+    {
+        int start = transaction == 0 ? 0 : ends[transaction - 1];
+        int length = ends[transaction] - start;
+        if ( length == 0 )
+        {
+            return false;
+        }
+        channel.put( buffer.array(), start, length );
+        CompressedCommands big = bigCommands[transaction];
+        if ( big != null )
+        {
+            entryWriter.writeCompressedCommandsEntry( big.commandCount, big.uncompressedLength, big.compressed,
+                    big.compressedLength );
+        }
+        return true;
+    }
+
+    private ByteBuffer bufferWithSpace( int bytes ) throws IOException
+    {
+        if ( buffer.remaining() < bytes )
+        {
+            if ( buffer.position() + bytes > MAX_SERIALIZED_SIZE )
+            {
+                throw SERIALIZED_SIZE_EXCEEDED;
+            }
+            int capacity = Math.min( Math.max( buffer.capacity() * 2, buffer.position() + bytes ),
+                    MAX_SERIALIZED_SIZE );
+            ByteBuffer grown = ByteBuffer.allocate( capacity );
+            buffer.flip();
+            grown.put( buffer );
+            buffer = grown;
+        }
+        return buffer;
+    }
+
+    @Override
+    public Flushable prepareForFlush()
+    {
+        // Nothing to flush, the serialized transactions are written to the log explicitly
+        return () -> {};
+    }
+
+    @Override
+    public TransactionSerializationBuffer put( byte value ) throws IOException
+    {
+        bufferWithSpace( Byte.BYTES ).put( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer putShort( short value ) throws IOException
+    {
+        bufferWithSpace( Short.BYTES ).putShort( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer putInt( int value ) throws IOException
+    {
+        bufferWithSpace( Integer.BYTES ).putInt( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer putLong( long value ) throws IOException
+    {
+        bufferWithSpace( Long.BYTES ).putLong( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer putFloat( float value ) throws IOException
+    {
+        bufferWithSpace( Float.BYTES ).putFloat( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer putDouble( double value ) throws IOException
+    {
+        bufferWithSpace( Double.BYTES ).putDouble( value );
+        return this;
+    }
+
+    @Override
+    public TransactionSerializationBuffer put( byte[] value, int length ) throws IOException
+    {
+        bufferWithSpace( length ).put( value, 0, length );
+        return this;
+    }
+
+    @Override
+    public void close()
+    {
+        if ( deflater != null )
+        {
+            deflater.end();
+        }
+    }
+
+    private static class CompressedCommands
+    {
+        private final int commandCount;
+        private final int uncompressedLength;
+        private final byte[] compressed;
+        private final int compressedLength;
+
+        CompressedCommands( int commandCount, int uncompressedLength, byte[] compressed, int compressedLength )
+        {
+            this.commandCount = commandCount;
+            this.uncompressedLength = uncompressedLength;
+            this.compressed = compressed;
+            this.compressedLength = compressedLength;
+        }
+    }
+
+    /**
+     * Compresses everything written to it into a growing array, counting the uncompressed bytes.
+     */
+    private static class DeflatingChannel implements FlushableChannel
+    {
+        private final CompressedBytes compressedBytes = new CompressedBytes();
+        private final DeflaterOutputStream deflaterStream;
+        private final DataOutputStream out;
+
+        DeflatingChannel( Deflater deflater )
+        {
+            deflater.reset();
+            deflaterStream = new DeflaterOutputStream( compressedBytes, deflater, INITIAL_CAPACITY );
+            out = new DataOutputStream( new BufferedOutputStream( deflaterStream, INITIAL_CAPACITY ) );
+        }
+
+        void finish() throws IOException
+        {
+            out.flush();
+            deflaterStream.finish();
+        }
+
+        /**
+         * @return number of bytes written, or {@link Integer#MAX_VALUE} if that many or more.
+         */
+        int uncompressedLength()
+        {
+            return out.size();
+        }
+
+        int compressedLength()
+        {
+            return compressedBytes.size();
+        }
+
+        byte[] compressed()
+        {
+            return compressedBytes.array();
+        }
+
+        @Override
+        public Flushable prepareForFlush()
+        {
+            return () -> {};
+        }
+
+        @Override
+        public DeflatingChannel put( byte value ) throws IOException
+        {
+            out.writeByte( value );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel putShort( short value ) throws IOException
+        {
+            out.writeShort( value );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel putInt( int value ) throws IOException
+        {
+            out.writeInt( value );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel putLong( long value ) throws IOException
+        {
+            out.writeLong( value );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel putFloat( float value ) throws IOException
+        {
+            // Raw bits, like ByteBuffer
+            out.writeInt( Float.floatToRawIntBits( value ) );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel putDouble( double value ) throws IOException
+        {
+            out.writeLong( Double.doubleToRawLongBits( value ) );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel put( byte[] value, int length ) throws IOException
+        {
+            out.write( value, 0, length );
+            return this;
+        }
+
+        @Override
+        public DeflatingChannel put( byte[] value, int offset, int length ) throws IOException
+        {
+            out.write( value, offset, length );
+            return this;
+        }
+
+        @Override
+        public void close()
+        {   // The deflater is owned by the serialization buffer
+        }
+    }
+
+    private static class CompressedBytes extends ByteArrayOutputStream
+    {
+        CompressedBytes()
+        {
+            super( INITIAL_CAPACITY );
+        }
+
+        byte[] array()
+        {
+            return buf;
+        }
+    }
+}
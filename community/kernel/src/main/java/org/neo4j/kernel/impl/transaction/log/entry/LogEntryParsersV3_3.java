@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.entry;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import org.neo4j.kernel.impl.transaction.log.InMemoryClosableChannel;
+import org.neo4j.kernel.impl.transaction.log.LogPositionMarker;
+import org.neo4j.kernel.impl.transaction.log.ReadableClosableChannel;
+import org.neo4j.storageengine.api.CommandReader;
+import org.neo4j.storageengine.api.CommandReaderFactory;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * Parsers for the entry types added in {@link LogEntryVersion#V3_3}, the rest are parsed by
+ * {@link LogEntryParsersV2_3}.
+ */
+public enum LogEntryParsersV3_3 implements LogEntryParser<LogEntry>
+{
+    COMPRESSED_COMMANDS
+            {
+                @Override
+                public LogEntry parse( LogEntryVersion version, ReadableClosableChannel channel, LogPositionMarker marker,
+                                       CommandReaderFactory commandReader ) throws IOException
+                {
+                    int commandCount = channel.getInt();
+                    int uncompressedLength = channel.getInt();
+                    int compressedLength = channel.getInt();
+                    byte[] compressed = new byte[compressedLength];
+                    channel.get( compressed, compressedLength );
+
+                    InMemoryClosableChannel commandChannel = new InMemoryClosableChannel(
+                            decompress( compressed, uncompressedLength ), true );
+                    List<LogEntryCommand> commands = new ArrayList<>( commandCount );
+                    for ( int i = 0; i < commandCount; i++ )
+                    {
+                        // Each command is written as a regular command entry, so that this entry holds exactly
+                        // what would otherwise have been written uncompressed
+                        LogEntryVersion commandVersion = LogEntryVersion.byVersion( commandChannel.get() );
+                        byte type = commandChannel.get();
+                        if ( type != LogEntryByteCodes.COMMAND )
+                        {
+                            throw new IOException( "Expected a command entry in compressed commands, but got entry " +
+                                    "type " + type );
+                        }
+                        CommandReader reader = commandReader.byVersion( commandVersion.byteCode() );
+                        StorageCommand command = reader.read( commandChannel );
+                        if ( command == null )
+                        {
+                            throw new IOException( "Unable to read command " + i + " of " + commandCount +
+                                    " compressed commands" );
+                        }
+                        commands.add( new LogEntryCommand( commandVersion, command ) );
+                    }
+                    return new LogEntryCompressedCommands( version, commands );
+                }
+
+                @Override
+                public byte byteCode()
+                {
+                    return LogEntryByteCodes.COMPRESSED_COMMANDS;
+                }
+
+                @Override
+                public boolean skip()
+                {
+                    return false;
+                }
+            };
+
+    private static byte[] decompress( byte[] compressed, int uncompressedLength ) throws IOException
+    {
+        byte[] uncompressed = new byte[uncompressedLength];
+        Inflater inflater = new Inflater();
+        try
+        {
+            inflater.setInput( compressed );
+            int length = inflater.inflate( uncompressed );
+            if ( !inflater.finished() )
+            {
+                // The end of the compressed data may not have been seen if the uncompressed bytes fit exactly
+                length += inflater.inflate( new byte[1] );
+            }
+            if ( length != uncompressedLength || !inflater.finished() )
+            {
+                throw new IOException( "Compressed commands didn't decompress into the expected " +
+                        uncompressedLength + " bytes" );
+            }
+            return uncompressed;
+        }
+        catch ( DataFormatException e )
+        {
+            throw new IOException( "Unable to decompress commands", e );
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+}
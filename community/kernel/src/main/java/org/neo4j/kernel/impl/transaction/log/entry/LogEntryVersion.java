@@ -57,7 +57,8 @@ import static java.lang.String.format;
  * The process of making an update to log entry or command format is to:
  * <ol>
  * <li>Copy {@link PhysicalLogCommandReaderV3_0_2} or similar and modify the new copy</li>
- * <li>Copy {@link LogEntryParsersV2_3} or similar and modify the new copy if entry layout has changed</li>
+ * <li>Copy {@link LogEntryParsersV2_3} or similar and modify the new copy if entry layout has changed, or add
+ * parsers for new entry types in a new class, like {@link LogEntryParsersV3_3}</li>
  * <li>Add an entry in this enum, like {@link #V3_0_10} pointing to the above new classes, version needs to be negative
  * to detect log files from older versions of neo4j</li>
  * <li>Modify {@link StorageCommand#serialize(WritableChannel)}.
@@ -79,16 +80,22 @@ public enum LogEntryVersion
     // as of 2017-05-26: the records in command log entries include a bit that specifies if the command is serialised
     // using a fixed-width reference format, or not. This change is technically backwards compatible, so we bump the
     // log version to prevent mixed-version clusters from forming.
-    V3_0_10( -10, LogEntryParsersV2_3.class );
-    // Method moreRecentVersionExists() relies on the fact that we have negative numbers, thus next version to use is -11
+    V3_0_10( -10, LogEntryParsersV2_3.class ),
+    // as of 2017-09-12: the commands of a transaction may be written compressed, in a single entry, which earlier
+    // versions can't read. Commands are serialized the same way as before. Only compressed commands entries are
+    // written with this version, all other entries are still written with CURRENT, so that logs are compatible
+    // with earlier versions as long as compression isn't enabled.
+    V3_3( -11, LogEntryParsersV2_3.class, LogEntryParsersV3_3.class );
+    // Method moreRecentVersionExists() relies on the fact that we have negative numbers, thus next version to use is -12
 
     public static final LogEntryVersion CURRENT = V3_0_10;
+    public static final LogEntryVersion COMPRESSED_COMMANDS = V3_3;
     private static final byte LOWEST_VERSION = (byte)-V2_3.byteCode();
     private static final LogEntryVersion[] ALL = values();
     private static final LogEntryVersion[] LOOKUP_BY_VERSION;
     static
     {
-        LOOKUP_BY_VERSION = new LogEntryVersion[(-CURRENT.byteCode()) + 1]; // pessimistic size
+        LOOKUP_BY_VERSION = new LogEntryVersion[(-ALL[ALL.length - 1].byteCode()) + 1]; // pessimistic size
         for ( LogEntryVersion version : ALL )
         {
             put( LOOKUP_BY_VERSION, -version.byteCode(), version );
@@ -98,13 +105,22 @@ public enum LogEntryVersion
     private final byte version;
     private final LogEntryParser<LogEntry>[] entryTypes;
 
-    LogEntryVersion( int version, Class<? extends Enum<? extends LogEntryParser<? extends LogEntry>>> cls )
+    @SafeVarargs
+    LogEntryVersion( int version, Class<? extends Enum<? extends LogEntryParser<? extends LogEntry>>>... classes )
     {
-        this.entryTypes = new LogEntryParser[highestCode( cls ) + 1];
-        for ( Enum<? extends LogEntryParser<? extends LogEntry>> parser : cls.getEnumConstants() )
+        int highestCode = 0;
+        for ( Class<? extends Enum<? extends LogEntryParser<? extends LogEntry>>> cls : classes )
         {
-            LogEntryParser<LogEntry> candidate = (LogEntryParser<LogEntry>) parser;
-            this.entryTypes[candidate.byteCode()] = candidate;
+            highestCode = Math.max( highestCode, highestCode( cls ) );
+        }
+        this.entryTypes = new LogEntryParser[highestCode + 1];
+        for ( Class<? extends Enum<? extends LogEntryParser<? extends LogEntry>>> cls : classes )
+        {
+            for ( Enum<? extends LogEntryParser<? extends LogEntry>> parser : cls.getEnumConstants() )
+            {
+                LogEntryParser<LogEntry> candidate = (LogEntryParser<LogEntry>) parser;
+                this.entryTypes[candidate.byteCode()] = candidate;
+            }
         }
         this.version = safeCastToByte( version );
     }
@@ -158,13 +174,13 @@ public enum LogEntryVersion
         {
             return LOOKUP_BY_VERSION[positiveVersion];
         }
-        byte positiveCurrentVersion = (byte) -CURRENT.byteCode();
-        if ( positiveVersion > positiveCurrentVersion )
+        byte positiveLatestVersion = (byte) (LOOKUP_BY_VERSION.length - 1);
+        if ( positiveVersion > positiveLatestVersion )
         {
             throw new IllegalArgumentException( String.format(
                     "Transaction logs contains entries with prefix %d, and the highest supported prefix is %d. This " +
                             "indicates that the log files originates from a newer version of neo4j.",
-                    positiveVersion, positiveCurrentVersion ) );
+                    positiveVersion, positiveLatestVersion ) );
         }
         throw new IllegalArgumentException( String.format(
                 "Transaction logs contains entries with prefix %d, and the lowest supported prefix is %d. This " +
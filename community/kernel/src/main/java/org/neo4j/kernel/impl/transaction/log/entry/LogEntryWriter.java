@@ -30,6 +30,7 @@ import org.neo4j.storageengine.api.StorageCommand;
 
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.CHECK_POINT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMMAND;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.COMPRESSED_COMMANDS;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_1P_COMMIT;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryByteCodes.TX_START;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.CURRENT;
@@ -51,7 +52,12 @@ public class LogEntryWriter
 
     private void writeLogEntryHeader( byte type ) throws IOException
     {
-        channel.put( CURRENT.byteCode() ).put( type );
+        writeLogEntryHeader( CURRENT, type );
+    }
+
+    private void writeLogEntryHeader( LogEntryVersion version, byte type ) throws IOException
+    {
+        channel.put( version.byteCode() ).put( type );
     }
 
     public void writeStartEntry( int masterId, int authorId, long timeWritten, long latestCommittedTxWhenStarted,
@@ -81,6 +87,24 @@ public class LogEntryWriter
         }
     }
 
+    /**
+     * Writes the commands of a transaction as a single compressed entry, instead of {@link #serialize serializing}
+     * them one entry each. The entry is written with {@link LogEntryVersion#COMPRESSED_COMMANDS}, since earlier
+     * versions can't read it.
+     *
+     * @param commandCount number of commands.
+     * @param uncompressedLength length of the commands as serialized by {@link #serialize}.
+     * @param compressed the serialized commands, compressed using {@link java.util.zip.Deflater}.
+     * @param compressedLength length of the compressed commands.
+     */
+    public void writeCompressedCommandsEntry( int commandCount, int uncompressedLength, byte[] compressed,
+            int compressedLength ) throws IOException
+    {
+        writeLogEntryHeader( LogEntryVersion.COMPRESSED_COMMANDS, COMPRESSED_COMMANDS );
+        channel.putInt( commandCount ).putInt( uncompressedLength ).putInt( compressedLength )
+               .put( compressed, compressedLength );
+    }
+
     public void writeCheckPointEntry( LogPosition logPosition ) throws IOException
     {
         writeLogEntryHeader( CHECK_POINT );
@@ -38,6 +38,7 @@ import static org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion.byVers
  * Version aware implementation of LogEntryReader
  * Starting with Neo4j version 2.1, log entries are prefixed with a version. This allows for Neo4j instances of
  * different versions to exchange transaction data, either directly or via logical logs.
+ * Since all versions are negative, reading a zero where a version is expected means the end of the entries.
  *
  * Read all about it at {@link LogEntryVersion}.
  */
@@ -70,6 +71,15 @@ public class VersionAwareLogEntryReader<SOURCE extends ReadableClosablePositionA
                 channel.getCurrentPosition( positionMarker );
 
                 byte versionCode = channel.get();
+                if ( versionCode == 0 )
+                {
+                    // No version is zero, this is space preallocated after the last entry in the log file
+                    if ( channelSupportsPositioning( channel ) )
+                    {
+                        ((PositionableChannel) channel).setCurrentPosition( positionMarker.getByteOffset() );
+                    }
+                    return null;
+                }
                 byte typeCode = channel.get();
 
                 LogEntryVersion version = null;
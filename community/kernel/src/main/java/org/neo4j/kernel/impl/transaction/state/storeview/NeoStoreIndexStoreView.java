@@ -40,17 +40,31 @@ import org.neo4j.kernel.impl.store.record.PropertyRecord;
 import org.neo4j.kernel.impl.store.record.Record;
 import org.neo4j.register.Register.DoubleLongRegister;
 import org.neo4j.storageengine.api.EntityType;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
+import static java.lang.Math.max;
+import static java.lang.Math.min;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 import static org.neo4j.kernel.impl.store.record.RecordLoad.FORCE;
 
 /**
  * Node store view that will always visit all nodes during store scan.
+ * <p>
+ * Scans feeding only property updates, i.e. index population, are split into partitions read in parallel,
+ * see {@link PartitionedStoreViewNodeStoreScan}, if the node store is big enough.
  */
 public class NeoStoreIndexStoreView implements IndexStoreView
 {
+    static final String SCAN_PARTITIONS_NAME = "scan_partitions";
+    static final String MIN_NODES_PER_SCAN_PARTITION_NAME = "min_nodes_per_scan_partition";
+
+    private final int maxScanPartitions = FeatureToggles.getInteger( NeoStoreIndexStoreView.class,
+            SCAN_PARTITIONS_NAME, Runtime.getRuntime().availableProcessors() );
+    private final long minNodesPerScanPartition = FeatureToggles.getLong( NeoStoreIndexStoreView.class,
+            MIN_NODES_PER_SCAN_PARTITION_NAME, 1_000_000 );
+
     protected final PropertyStore propertyStore;
     protected final NodeStore nodeStore;
     protected final LockService locks;
@@ -102,10 +116,22 @@ public class NeoStoreIndexStoreView implements IndexStoreView
             final Visitor<NodeLabelUpdate, FAILURE> labelUpdateVisitor,
             boolean forceStoreScan )
     {
+        int partitions = numberOfScanPartitions();
+        if ( labelUpdateVisitor == null && propertyUpdatesVisitor != null && partitions > 1 )
+        {
+            return new PartitionedStoreViewNodeStoreScan<>( nodeStore, locks, propertyStore, propertyUpdatesVisitor,
+                    labelIds, propertyKeyIdFilter, partitions );
+        }
         return new StoreViewNodeStoreScan<>( nodeStore, locks, propertyStore, labelUpdateVisitor,
                 propertyUpdatesVisitor, labelIds, propertyKeyIdFilter );
     }
 
+    private int numberOfScanPartitions()
+    {
+        long partitionsBySize = nodeStore.getHighId() / max( 1, minNodesPerScanPartition );
+        return (int) min( maxScanPartitions, partitionsBySize );
+    }
+
     @Override
     public NodeUpdates nodeAsUpdates( long nodeId )
     {
@@ -69,7 +69,7 @@ public abstract class NodeStoreScan<FAILURE extends Exception> implements StoreS
                 try ( Lock ignored = locks.acquireNodeLock( id, LockService.LockType.READ_LOCK ) )
                 {
                     count++;
-                    if ( nodeStore.getRecord( id, record, FORCE ).inUse() )
+                    if ( nodeStore.getRecordInScan( id, record, FORCE ).inUse() )
                     {
                         process( record );
                     }
@@ -0,0 +1,326 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state.storeview;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntPredicate;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.impl.api.index.MultipleIndexPopulator;
+import org.neo4j.kernel.impl.api.index.NodeUpdates;
+import org.neo4j.kernel.impl.locking.Lock;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.store.NodeStore;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.storageengine.api.schema.PopulationProgress;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+import static org.neo4j.helpers.Exceptions.launderedException;
+import static org.neo4j.helpers.NamedThreadFactory.daemon;
+import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
+import static org.neo4j.kernel.impl.store.record.RecordLoad.FORCE;
+
+/**
+ * {@link StoreViewNodeStoreScan} which splits the node store into a number of id ranges, partitions, each read
+ * by its own thread. Reading node records and their property chains is what dominates a store scan and that
+ * part scales with the number of partitions.
+ * <p>
+ * Each partition is read in chunks of {@link #CHUNK_SIZE} node ids. Read chunks are handed over to the thread
+ * calling {@link #run()}, which is the only thread feeding the property updates visitor. Chunks from one partition
+ * are delivered in id order, whereas chunks from different partitions are interleaved. The populators are fed
+ * updates in batches and sort them themselves where that matters, so this makes no difference to them.
+ * <p>
+ * Updates made concurrently to the scan, coming in through {@link #acceptUpdate(MultipleIndexPopulator.MultipleIndexUpdater,
+ * IndexEntryUpdate, long)}, are applied if the node has been delivered to the visitor already, exactly like for a
+ * single threaded scan. Other updates are not applied. Instead, the node is remembered and will be read again,
+ * under lock, when its chunk is delivered. This is needed because the node may have been read into a chunk before
+ * the update was made, but not delivered yet.
+ *
+ * @param <FAILURE> type of exception thrown on failure
+ */
+public class PartitionedStoreViewNodeStoreScan<FAILURE extends Exception> extends StoreViewNodeStoreScan<FAILURE>
+{
+    static final int CHUNK_SIZE = 1_000;
+    private static final int MAX_PENDING_CHUNKS_PER_PARTITION = 4;
+    private static final String SCAN_THREAD_NAME_PREFIX = "Index Population Scan Thread";
+
+    private final int numberOfPartitions;
+    private final long partitionSize;
+    private final long totalCount;
+    private final AtomicLong count = new AtomicLong();
+    private final BlockingQueue<Chunk> deliveryQueue = new LinkedBlockingQueue<>();
+    private final Semaphore pendingChunks;
+    private volatile boolean continueScanning;
+    private volatile boolean completed;
+
+    /**
+     * Highest node id, per partition, which has been delivered to the property updates visitor.
+     * Only accessed by the thread delivering chunks.
+     */
+    private final long[] deliveredUpTo;
+
+    /**
+     * Nodes which got updates before being delivered and must therefore be read again when delivered.
+     * Only accessed by the thread delivering chunks.
+     */
+    private final NavigableSet<Long> nodesToReread = new TreeSet<>();
+
+    public PartitionedStoreViewNodeStoreScan( NodeStore nodeStore, LockService locks, PropertyStore propertyStore,
+            Visitor<NodeUpdates,FAILURE> propertyUpdatesVisitor, int[] labelIds, IntPredicate propertyKeyIdFilter,
+            int numberOfPartitions )
+    {
+        super( nodeStore, locks, propertyStore, null, propertyUpdatesVisitor, labelIds, propertyKeyIdFilter );
+        long highId = nodeStore.getHighId();
+        this.numberOfPartitions = numberOfPartitions;
+        this.partitionSize = max( 1, (highId + numberOfPartitions - 1) / numberOfPartitions );
+        this.totalCount = highId;
+        this.pendingChunks = new Semaphore( numberOfPartitions * MAX_PENDING_CHUNKS_PER_PARTITION );
+        this.deliveredUpTo = new long[numberOfPartitions];
+        for ( int i = 0; i < numberOfPartitions; i++ )
+        {
+            deliveredUpTo[i] = partitionStart( i ) - 1;
+        }
+    }
+
+    @Override
+    public void run() throws FAILURE
+    {
+        continueScanning = true;
+        ExecutorService executor = Executors.newFixedThreadPool( numberOfPartitions, daemon( SCAN_THREAD_NAME_PREFIX ) );
+        try
+        {
+            for ( int i = 0; i < numberOfPartitions; i++ )
+            {
+                int partition = i;
+                executor.execute( () -> readPartition( partition ) );
+            }
+
+            int activePartitions = numberOfPartitions;
+            NodeRecord record = nodeStore.newRecord();
+            while ( activePartitions > 0 )
+            {
+                Chunk chunk = deliveryQueue.take();
+                if ( chunk.failure != null )
+                {
+                    throw launderedException( chunk.failure );
+                }
+                if ( chunk.updates == null )
+                {
+                    activePartitions--;
+                    continue;
+                }
+                if ( continueScanning )
+                {
+                    deliver( chunk, record );
+                }
+                pendingChunks.release();
+            }
+
+            // Nodes created after their partition was read may still have been marked as updated
+            Long nodeId;
+            while ( continueScanning && (nodeId = nodesToReread.pollFirst()) != null )
+            {
+                deliver( partitionOf( nodeId ), nodeId, read( nodeId, record ) );
+            }
+            completed = continueScanning;
+        }
+        catch ( InterruptedException e )
+        {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException( "Interrupted while scanning node store", e );
+        }
+        finally
+        {
+            continueScanning = false;
+            executor.shutdownNow();
+        }
+    }
+
+    @Override
+    public void stop()
+    {
+        continueScanning = false;
+    }
+
+    @Override
+    public void acceptUpdate( MultipleIndexPopulator.MultipleIndexUpdater updater, IndexEntryUpdate<?> update,
+            long currentlyIndexedNodeId )
+    {
+        long nodeId = update.getEntityId();
+        if ( completed || nodeId <= deliveredUpTo[partitionOf( nodeId )] )
+        {
+            updater.process( update );
+        }
+        else
+        {
+            nodesToReread.add( nodeId );
+        }
+    }
+
+    @Override
+    public PopulationProgress getProgress()
+    {
+        if ( totalCount > 0 )
+        {
+            return new PopulationProgress( min( count.get(), totalCount ), totalCount );
+        }
+
+        // nothing to do 100% completed
+        return PopulationProgress.DONE;
+    }
+
+    private void readPartition( int partition )
+    {
+        try
+        {
+            NodeRecord record = nodeStore.newRecord();
+            long id = partitionStart( partition );
+            while ( continueScanning && id < partitionEnd( partition ) )
+            {
+                pendingChunks.acquire();
+                long fromId = id;
+                long toId = min( id + CHUNK_SIZE, partitionEnd( partition ) );
+                List<NodeUpdates> updates = new ArrayList<>();
+                for ( ; id < toId && continueScanning; id++ )
+                {
+                    NodeUpdates nodeUpdates = read( id, record, true );
+                    if ( nodeUpdates != null )
+                    {
+                        updates.add( nodeUpdates );
+                    }
+                }
+                count.addAndGet( id - fromId );
+                deliveryQueue.add( new Chunk( partition, id, updates, null ) );
+            }
+            deliveryQueue.add( new Chunk( partition, id, null, null ) );
+        }
+        catch ( Throwable t )
+        {
+            deliveryQueue.add( new Chunk( partition, -1, null, t ) );
+        }
+    }
+
+    private void deliver( Chunk chunk, NodeRecord record ) throws FAILURE
+    {
+        for ( NodeUpdates updates : chunk.updates )
+        {
+            long nodeId = updates.getNodeId();
+            rereadAndDeliverUpdatedNodes( chunk.partition, nodeId, record );
+            if ( nodesToReread.remove( nodeId ) )
+            {
+                updates = read( nodeId, record );
+            }
+            deliver( chunk.partition, nodeId, updates );
+        }
+        rereadAndDeliverUpdatedNodes( chunk.partition, chunk.toId, record );
+        deliveredUpTo[chunk.partition] = chunk.toId - 1;
+    }
+
+    /**
+     * Updated nodes up to, but not including, {@code toId} in the given partition are read again and delivered.
+     * Nodes can be marked as updated while delivering, so this needs to be checked again for every delivered node.
+     */
+    private void rereadAndDeliverUpdatedNodes( int partition, long toId, NodeRecord record ) throws FAILURE
+    {
+        Long nodeId;
+        while ( (nodeId = nodesToReread.ceiling( deliveredUpTo[partition] + 1 )) != null && nodeId < toId )
+        {
+            nodesToReread.remove( nodeId );
+            deliver( partition, nodeId, read( nodeId, record ) );
+        }
+    }
+
+    private void deliver( int partition, long nodeId, NodeUpdates updates ) throws FAILURE
+    {
+        // Mark as delivered before visiting since the visitor may apply concurrent updates
+        deliveredUpTo[partition] = nodeId;
+        if ( updates != null )
+        {
+            propertyUpdatesVisitor.visit( updates );
+        }
+    }
+
+    private NodeUpdates read( long nodeId, NodeRecord record )
+    {
+        return read( nodeId, record, false );
+    }
+
+    private NodeUpdates read( long nodeId, NodeRecord record, boolean inScan )
+    {
+        try ( Lock ignored = locks.acquireNodeLock( nodeId, LockService.LockType.READ_LOCK ) )
+        {
+            NodeRecord node = inScan ? nodeStore.getRecordInScan( nodeId, record, FORCE )
+                                     : nodeStore.getRecord( nodeId, record, FORCE );
+            if ( !node.inUse() )
+            {
+                return null;
+            }
+            long[] labels = parseLabelsField( record ).get( nodeStore );
+            return labels.length == 0 ? null : propertyUpdates( record, labels );
+        }
+    }
+
+    private long partitionStart( int partition )
+    {
+        return partition == 0 ? nodeStore.getNumberOfReservedLowIds() : partition * partitionSize;
+    }
+
+    /**
+     * The last partition has no fixed end, it continues up to high id as it is when getting there,
+     * just like {@link org.neo4j.kernel.impl.store.StoreIdIterator} does.
+     */
+    private long partitionEnd( int partition )
+    {
+        return partition == numberOfPartitions - 1 ? nodeStore.getHighId() : (partition + 1) * partitionSize;
+    }
+
+    private int partitionOf( long nodeId )
+    {
+        return (int) min( nodeId / partitionSize, numberOfPartitions - 1 );
+    }
+
+    private static class Chunk
+    {
+        private final int partition;
+        private final long toId;
+        private final List<NodeUpdates> updates;
+        private final Throwable failure;
+
+        Chunk( int partition, long toId, List<NodeUpdates> updates, Throwable failure )
+        {
+            this.partition = partition;
+            this.toId = toId;
+            this.updates = updates;
+            this.failure = failure;
+        }
+    }
+}
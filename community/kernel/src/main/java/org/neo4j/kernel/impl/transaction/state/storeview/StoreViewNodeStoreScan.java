@@ -51,7 +51,7 @@ public class StoreViewNodeStoreScan<FAILURE extends Exception> extends NodeStore
     private final PropertyStore propertyStore;
 
     private final Visitor<NodeLabelUpdate,FAILURE> labelUpdateVisitor;
-    private final Visitor<NodeUpdates,FAILURE> propertyUpdatesVisitor;
+    protected final Visitor<NodeUpdates,FAILURE> propertyUpdatesVisitor;
     private final IntPredicate propertyKeyIdFilter;
     protected final int[] labelIds;
 
@@ -91,31 +91,49 @@ public class StoreViewNodeStoreScan<FAILURE extends Exception> extends NodeStore
             labelUpdateVisitor.visit( labelChanges( node.getId(), EMPTY_LONG_ARRAY, labels ) );
         }
 
-        if ( propertyUpdatesVisitor != null && containsAnyLabel( labelIds, labels ) )
+        if ( propertyUpdatesVisitor != null )
         {
-            // Notify the property update visitor
-            // TODO: reuse object instead? Better in terms of speed and GC?
-            NodeUpdates.Builder updates = NodeUpdates.forNode( node.getId(), labels );
-            boolean hasRelevantProperty = false;
-
-            for ( PropertyBlock property : properties( node ) )
+            NodeUpdates updates = propertyUpdates( node, labels );
+            if ( updates != null )
             {
-                int propertyKeyId = property.getKeyIndexId();
-                if ( propertyKeyIdFilter.test( propertyKeyId ) )
-                {
-                    // This node has a property of interest to us
-                    Value value = valueOf( property );
-                    Validators.INDEX_VALUE_VALIDATOR.validate( value );
-                    updates.added( propertyKeyId, value );
-                    hasRelevantProperty = true;
-                }
+                // Notify the property update visitor
+                propertyUpdatesVisitor.visit( updates );
             }
+        }
+    }
 
-            if ( hasRelevantProperty )
+    /**
+     * Reads the properties of interest from the given node.
+     *
+     * @param node node record, in use.
+     * @param labels labels of the node.
+     * @return {@link NodeUpdates} with all properties of interest, or {@code null} if the node has none of the
+     * labels of interest or none of the properties of interest.
+     */
+    protected NodeUpdates propertyUpdates( NodeRecord node, long[] labels )
+    {
+        if ( !containsAnyLabel( labelIds, labels ) )
+        {
+            return null;
+        }
+
+        // TODO: reuse object instead? Better in terms of speed and GC?
+        NodeUpdates.Builder updates = NodeUpdates.forNode( node.getId(), labels );
+        boolean hasRelevantProperty = false;
+
+        for ( PropertyBlock property : properties( node ) )
+        {
+            int propertyKeyId = property.getKeyIndexId();
+            if ( propertyKeyIdFilter.test( propertyKeyId ) )
             {
-                propertyUpdatesVisitor.visit( updates.build() );
+                // This node has a property of interest to us
+                Value value = valueOf( property );
+                Validators.INDEX_VALUE_VALIDATOR.validate( value );
+                updates.added( propertyKeyId, value );
+                hasRelevantProperty = true;
             }
         }
+        return hasRelevantProperty ? updates.build() : null;
     }
 
     private Iterable<PropertyBlock> properties( final NodeRecord node )
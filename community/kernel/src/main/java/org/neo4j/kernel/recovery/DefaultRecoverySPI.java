@@ -47,6 +47,7 @@ public class DefaultRecoverySPI implements Recovery.SPI
     private final StorageEngine storageEngine;
     private final TransactionIdStore transactionIdStore;
     private final LogicalTransactionStore logicalTransactionStore;
+    private final int parallelism;
 
     public DefaultRecoverySPI(
             StorageEngine storageEngine,
@@ -54,6 +55,20 @@ public class DefaultRecoverySPI implements Recovery.SPI
             LogTailScanner logTailScanner,
             TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
             PositionToRecoverFrom.Monitor monitor )
+    {
+        this( storageEngine, logFiles, fs, logTailScanner, transactionIdStore, logicalTransactionStore, monitor, 1 );
+    }
+
+    /**
+     * @param parallelism number of threads to apply recovered transactions with, where 1 means that transactions
+     * are applied sequentially, in batches.
+     */
+    public DefaultRecoverySPI(
+            StorageEngine storageEngine,
+            PhysicalLogFiles logFiles, FileSystemAbstraction fs,
+            LogTailScanner logTailScanner,
+            TransactionIdStore transactionIdStore, LogicalTransactionStore logicalTransactionStore,
+            PositionToRecoverFrom.Monitor monitor, int parallelism )
     {
         this.storageEngine = storageEngine;
         this.logFiles = logFiles;
@@ -61,6 +76,7 @@ public class DefaultRecoverySPI implements Recovery.SPI
         this.transactionIdStore = transactionIdStore;
         this.logicalTransactionStore = logicalTransactionStore;
         this.positionToRecoverFrom = new PositionToRecoverFrom( logTailScanner, monitor );
+        this.parallelism = parallelism;
     }
 
     @Override
@@ -83,6 +99,11 @@ public class DefaultRecoverySPI implements Recovery.SPI
     @Override
     public RecoveryApplier getRecoveryApplier( TransactionApplicationMode mode ) throws Exception
     {
+        if ( mode == TransactionApplicationMode.RECOVERY && parallelism > 1 )
+        {
+            // Reverse recovery only applies to the neo store, which is quick enough to do sequentially
+            return new ParallelRecoveryVisitor( storageEngine, mode, parallelism );
+        }
         return new RecoveryVisitor( new TransactionQueue( 100, ( first, last ) -> storageEngine.apply( first, mode ) ) );
     }
 
@@ -116,6 +137,16 @@ public class DefaultRecoverySPI implements Recovery.SPI
                 positionAfterLastRecoveredTransaction.getByteOffset() );
     }
 
+    static TransactionToApply toApply( CommittedTransactionRepresentation transaction )
+    {
+        TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
+        long txId = transaction.getCommitEntry().getTxId();
+        TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
+        tx.commitment( NO_COMMITMENT, txId );
+        tx.logPosition( transaction.getStartEntry().getStartPosition() );
+        return tx;
+    }
+
     static class RecoveryVisitor implements RecoveryApplier
     {
         private final TransactionQueue transactionsToApply;
@@ -128,12 +159,7 @@ public class DefaultRecoverySPI implements Recovery.SPI
         @Override
         public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
         {
-            TransactionRepresentation txRepresentation = transaction.getTransactionRepresentation();
-            long txId = transaction.getCommitEntry().getTxId();
-            TransactionToApply tx = new TransactionToApply( txRepresentation, txId );
-            tx.commitment( NO_COMMITMENT, txId );
-            tx.logPosition( transaction.getStartEntry().getStartPosition() );
-            transactionsToApply.queue( tx );
+            transactionsToApply.queue( toApply( transaction ) );
             return false;
         }
 
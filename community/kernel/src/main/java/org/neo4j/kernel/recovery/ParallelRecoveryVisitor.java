@@ -0,0 +1,220 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.NamedThreadFactory;
+import org.neo4j.kernel.api.schema.constaints.ConstraintDescriptor;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.recovery.Recovery.RecoveryApplier;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.TransactionApplicationMode;
+
+/**
+ * Applies recovered transactions concurrently, while transactions are read ahead from the log. Transactions
+ * changing any of the same {@link TouchedRecords records} are applied in the order they were committed, each one
+ * waiting for the previous transaction changing any of its records to be applied. Transactions which
+ * {@link TouchedRecords#mustApplyAlone() must be applied alone} wait for all previous transactions to be applied,
+ * and are applied before reading further.
+ * <p>
+ * {@link #visit(CommittedTransactionRepresentation)} returns once a transaction is scheduled, so
+ * {@link Recovery.Monitor#transactionRecovered(long)} is reported before the transaction is applied. Closing this
+ * visitor waits for all scheduled transactions to be applied.
+ */
+class ParallelRecoveryVisitor implements RecoveryApplier
+{
+    private static final int TRANSACTIONS_IN_FLIGHT_PER_THREAD = 64;
+    private static final int FORGET_APPLIED_INTERVAL = 1024;
+
+    private final StorageEngine storageEngine;
+    private final TransactionApplicationMode mode;
+    private final ExecutorService executor;
+    private final int maxTransactionsInFlight;
+    private final Semaphore transactionsInFlight;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final PrimitiveLongObjectMap<CompletableFuture<Void>> lastApplicationOfRecord = Primitive.longObjectMap();
+    private PrimitiveIntSet uniquePropertyKeys;
+    private long visitedTransactions;
+
+    ParallelRecoveryVisitor( StorageEngine storageEngine, TransactionApplicationMode mode, int parallelism )
+    {
+        this.storageEngine = storageEngine;
+        this.mode = mode;
+        this.executor = Executors.newFixedThreadPool( parallelism, new NamedThreadFactory( "recovery" ) );
+        this.maxTransactionsInFlight = parallelism * TRANSACTIONS_IN_FLIGHT_PER_THREAD;
+        this.transactionsInFlight = new Semaphore( maxTransactionsInFlight );
+        this.uniquePropertyKeys = uniquePropertyKeys();
+    }
+
+    @Override
+    public boolean visit( CommittedTransactionRepresentation transaction ) throws Exception
+    {
+        checkFailure();
+        TransactionToApply tx = DefaultRecoverySPI.toApply( transaction );
+        TouchedRecords touched = TouchedRecords.of( transaction.getTransactionRepresentation(), uniquePropertyKeys );
+        if ( touched.mustApplyAlone() )
+        {
+            awaitAllApplied();
+            storageEngine.apply( tx, mode );
+            lastApplicationOfRecord.clear();
+            // The transaction may have changed constraints
+            uniquePropertyKeys = uniquePropertyKeys();
+            return false;
+        }
+
+        transactionsInFlight.acquire();
+        CompletableFuture<Void> application = applyAfter( previousApplications( touched.records() ), tx );
+        application.whenComplete( ( result, cause ) ->
+        {
+            if ( cause != null )
+            {
+                failure.compareAndSet( null, cause instanceof CompletionException ? cause.getCause() : cause );
+            }
+            transactionsInFlight.release();
+        } );
+        touched.records().visitKeys( record ->
+        {
+            lastApplicationOfRecord.put( record, application );
+            return false;
+        } );
+
+        if ( ++visitedTransactions % FORGET_APPLIED_INTERVAL == 0 )
+        {
+            forgetAppliedRecords();
+        }
+        return false;
+    }
+
+    private CompletableFuture<?>[] previousApplications( PrimitiveLongSet records )
+    {
+        Set<CompletableFuture<Void>> previous = Collections.newSetFromMap( new IdentityHashMap<>() );
+        records.visitKeys( record ->
+        {
+            CompletableFuture<Void> application = lastApplicationOfRecord.get( record );
+            if ( application != null && !application.isDone() )
+            {
+                previous.add( application );
+            }
+            return false;
+        } );
+        return previous.toArray( new CompletableFuture<?>[previous.size()] );
+    }
+
+    private CompletableFuture<Void> applyAfter( CompletableFuture<?>[] previous, TransactionToApply tx )
+    {
+        Runnable apply = () ->
+        {
+            try
+            {
+                storageEngine.apply( tx, mode );
+            }
+            catch ( Exception e )
+            {
+                throw new CompletionException( e );
+            }
+        };
+        return previous.length == 0 ? CompletableFuture.runAsync( apply, executor )
+                                    : CompletableFuture.allOf( previous ).thenRunAsync( apply, executor );
+    }
+
+    private void forgetAppliedRecords()
+    {
+        PrimitiveLongSet applied = Primitive.longSet();
+        lastApplicationOfRecord.visitEntries( ( record, application ) ->
+        {
+            if ( application.isDone() )
+            {
+                applied.add( record );
+            }
+            return false;
+        } );
+        applied.visitKeys( record ->
+        {
+            lastApplicationOfRecord.remove( record );
+            return false;
+        } );
+    }
+
+    private PrimitiveIntSet uniquePropertyKeys()
+    {
+        PrimitiveIntSet propertyKeys = Primitive.intSet();
+        Iterator<ConstraintDescriptor> constraints = storageEngine.storeReadLayer().constraintsGetAll();
+        while ( constraints.hasNext() )
+        {
+            ConstraintDescriptor constraint = constraints.next();
+            if ( constraint.enforcesUniqueness() )
+            {
+                for ( int propertyKey : constraint.schema().getPropertyIds() )
+                {
+                    propertyKeys.add( propertyKey );
+                }
+            }
+        }
+        return propertyKeys;
+    }
+
+    private void awaitAllApplied() throws Exception
+    {
+        transactionsInFlight.acquire( maxTransactionsInFlight );
+        transactionsInFlight.release( maxTransactionsInFlight );
+        checkFailure();
+    }
+
+    private void checkFailure() throws Exception
+    {
+        Throwable cause = failure.get();
+        if ( cause instanceof Exception )
+        {
+            throw (Exception) cause;
+        }
+        if ( cause != null )
+        {
+            throw (Error) cause;
+        }
+    }
+
+    @Override
+    public void close() throws Exception
+    {
+        try
+        {
+            awaitAllApplied();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+}
@@ -44,6 +44,13 @@ public class Recovery extends LifecycleAdapter
         { // no-op by default
         }
 
+        /**
+         * Called when a transaction has been read from the log and handed to the {@link RecoveryApplier}. The applier
+         * may batch transactions, or apply them concurrently, so the transaction is not necessarily applied to the
+         * store yet. All transactions have been applied once the applier is closed.
+         *
+         * @param txId id of the recovered transaction.
+         */
         default void transactionRecovered( long txId )
         { // no-op by default
         }
@@ -0,0 +1,211 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.impl.store.record.AbstractBaseRecord;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipCountsCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.RelationshipGroupCommand;
+import org.neo4j.storageengine.api.StorageCommand;
+
+/**
+ * The records which a recovered transaction changes, for deciding which transactions can be applied concurrently
+ * during recovery. Transactions changing any of the same records must be applied in the order they were committed,
+ * while transactions changing disjoint sets of records can be applied in any order. Each record is represented by
+ * a long combining the kind of record with its id.
+ * <p>
+ * Apart from the records themselves, property changes are also attributed to the entity owning the property, since
+ * index updates are derived from all properties of an entity. Changes to labels or to properties which have
+ * uniqueness constraints are all attributed to the same pseudo record, since uniqueness can be violated, if only
+ * temporarily, by applying changes to different entities in a different order.
+ * <p>
+ * Transactions with any other kinds of commands, e.g. schema, token or explicit index commands, are to be applied
+ * {@link #mustApplyAlone() alone}.
+ */
+final class TouchedRecords implements Visitor<StorageCommand,IOException>
+{
+    private static final int TYPE_SHIFT = 56;
+    private static final long NODE = 1L << TYPE_SHIFT;
+    private static final long RELATIONSHIP = 2L << TYPE_SHIFT;
+    private static final long RELATIONSHIP_GROUP = 3L << TYPE_SHIFT;
+    private static final long PROPERTY = 4L << TYPE_SHIFT;
+    private static final long DYNAMIC_PROPERTY_VALUE = 5L << TYPE_SHIFT;
+    private static final long DYNAMIC_LABELS = 6L << TYPE_SHIFT;
+    private static final long UNIQUENESS = 7L << TYPE_SHIFT;
+
+    private final PrimitiveIntSet uniquePropertyKeys;
+    private final PrimitiveLongSet records = Primitive.longSet();
+    private boolean applyAlone;
+
+    private TouchedRecords( PrimitiveIntSet uniquePropertyKeys )
+    {
+        this.uniquePropertyKeys = uniquePropertyKeys;
+    }
+
+    /**
+     * @param transaction the transaction to find the changed records of.
+     * @param uniquePropertyKeys ids of the property keys which have uniqueness constraints.
+     * @return the records changed by the given transaction.
+     */
+    static TouchedRecords of( TransactionRepresentation transaction, PrimitiveIntSet uniquePropertyKeys )
+            throws IOException
+    {
+        TouchedRecords touched = new TouchedRecords( uniquePropertyKeys );
+        transaction.accept( touched );
+        return touched;
+    }
+
+    /**
+     * @return whether or not the transaction must be applied when no other transaction is being applied.
+     */
+    boolean mustApplyAlone()
+    {
+        return applyAlone;
+    }
+
+    /**
+     * @return the records changed by the transaction, not applicable if it {@link #mustApplyAlone()}.
+     */
+    PrimitiveLongSet records()
+    {
+        return records;
+    }
+
+    @Override
+    public boolean visit( StorageCommand command )
+    {
+        if ( command instanceof NodeCommand )
+        {
+            visitNode( (NodeCommand) command );
+        }
+        else if ( command instanceof RelationshipCommand )
+        {
+            RelationshipCommand relationship = (RelationshipCommand) command;
+            add( RELATIONSHIP, relationship.getBefore(), relationship.getAfter() );
+        }
+        else if ( command instanceof RelationshipGroupCommand )
+        {
+            RelationshipGroupCommand group = (RelationshipGroupCommand) command;
+            add( RELATIONSHIP_GROUP, group.getBefore(), group.getAfter() );
+        }
+        else if ( command instanceof PropertyCommand )
+        {
+            visitProperty( (PropertyCommand) command );
+        }
+        else if ( !(command instanceof NodeCountsCommand || command instanceof RelationshipCountsCommand) )
+        {
+            // Counts are commutative, but the rest changes state which other transactions depend on
+            applyAlone = true;
+            return true;
+        }
+        return false;
+    }
+
+    private void visitNode( NodeCommand command )
+    {
+        NodeRecord before = command.getBefore();
+        NodeRecord after = command.getAfter();
+        add( NODE, before, after );
+        for ( DynamicRecord labels : after.getDynamicLabelRecords() )
+        {
+            add( DYNAMIC_LABELS, labels );
+        }
+        if ( !uniquePropertyKeys.isEmpty() && (before.inUse() != after.inUse() ||
+                before.getLabelField() != after.getLabelField() || !after.getDynamicLabelRecords().isEmpty()) )
+        {
+            records.add( UNIQUENESS );
+        }
+    }
+
+    private void visitProperty( PropertyCommand command )
+    {
+        PropertyRecord before = command.getBefore();
+        PropertyRecord after = command.getAfter();
+        add( PROPERTY, before, after );
+        for ( DynamicRecord deleted : after.getDeletedRecords() )
+        {
+            add( DYNAMIC_PROPERTY_VALUE, deleted );
+        }
+        visitPropertyOwner( before );
+        visitPropertyOwner( after );
+        visitPropertyBlocks( before );
+        visitPropertyBlocks( after );
+    }
+
+    private void visitPropertyOwner( PropertyRecord property )
+    {
+        if ( property.isNodeSet() )
+        {
+            records.add( NODE | property.getNodeId() );
+        }
+        else if ( property.isRelSet() )
+        {
+            records.add( RELATIONSHIP | property.getRelId() );
+        }
+    }
+
+    private void visitPropertyBlocks( PropertyRecord property )
+    {
+        for ( PropertyBlock block : property )
+        {
+            for ( DynamicRecord value : block.getValueRecords() )
+            {
+                add( DYNAMIC_PROPERTY_VALUE, value );
+            }
+            if ( property.isNodeSet() && uniquePropertyKeys.contains( block.getKeyIndexId() ) )
+            {
+                records.add( UNIQUENESS );
+            }
+        }
+    }
+
+    private void add( long type, AbstractBaseRecord before, AbstractBaseRecord after )
+    {
+        add( type, after );
+        // A record which no longer needs its secondary unit frees it, and another transaction may then take it
+        if ( before.requiresSecondaryUnit() )
+        {
+            records.add( type | before.getSecondaryUnitId() );
+        }
+    }
+
+    private void add( long type, AbstractBaseRecord record )
+    {
+        records.add( type | record.getId() );
+        if ( record.requiresSecondaryUnit() )
+        {
+            records.add( type | record.getSecondaryUnitId() );
+        }
+    }
+}
@@ -44,6 +44,7 @@ import org.neo4j.kernel.impl.api.DegreeVisitor;
 import org.neo4j.kernel.impl.api.RelationshipVisitor;
 import org.neo4j.kernel.impl.api.store.RelationshipIterator;
 import org.neo4j.register.Register.DoubleLongRegister;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 
 /**
@@ -130,6 +131,13 @@ public interface StoreReadLayer
 
     PrimitiveLongIterator nodesGetForLabel( StorageStatement statement, int labelId );
 
+    /**
+     * @param statement {@link StorageStatement} to use for reading.
+     * @param labelIds label token ids.
+     * @return ids of all stored nodes that have all of the given labels.
+     */
+    PrimitiveLongIterator nodesGetForAllLabels( StorageStatement statement, int... labelIds );
+
     /**
      * Looks for a stored index by given {@code descriptor}
      *
@@ -339,6 +347,15 @@ public interface StoreReadLayer
      */
     double indexUniqueValuesPercentage( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Returns histogram of the numeric values in the given index, computed by the index on demand.
+     *
+     * @param descriptor {@link LabelSchemaDescriptor} to get histogram for.
+     * @return histogram of the index, or {@code null} if the index doesn't provide one or is empty.
+     * @throws IndexNotFoundKernelException if no such index exists.
+     */
+    IndexHistogram indexHistogram( LabelSchemaDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     long nodesGetCount();
 
     long relationshipsGetCount();
@@ -0,0 +1,166 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.storageengine.api.schema;
+
+import java.util.Arrays;
+
+/**
+ * Equi-depth histogram of the numeric values in an index, i.e. the range of values is divided into buckets which
+ * all hold the same number of index entries. Used for estimating the fraction of entries within a range of values.
+ * A bucket with equal lower and upper bound holds entries of a single value, which is how values with many
+ * entries are represented.
+ */
+public final class IndexHistogram
+{
+    private final double[] bounds;
+    private final long numberOfEntries;
+
+    /**
+     * @param bounds bounds of the buckets in ascending order, bucket {@code i} holding the entries with values
+     * between {@code bounds[i]} and {@code bounds[i + 1]}. The first bound is the lowest and the last bound the
+     * highest value.
+     * @param numberOfEntries number of index entries the histogram describes.
+     */
+    public IndexHistogram( double[] bounds, long numberOfEntries )
+    {
+        if ( bounds.length < 2 )
+        {
+            throw new IllegalArgumentException( "Histogram needs at least one bucket, got bounds " +
+                    Arrays.toString( bounds ) );
+        }
+        this.bounds = bounds;
+        this.numberOfEntries = numberOfEntries;
+    }
+
+    /**
+     * Builds an equi-depth histogram from sampled values and the number of entries of each value.
+     *
+     * @param values sampled values, in ascending order.
+     * @param counts number of entries of each of the sampled values.
+     * @param numberOfBuckets number of buckets of the histogram.
+     * @param numberOfEntries number of index entries the sampled values were sampled from.
+     * @return the histogram, or {@code null} if there are no entries.
+     */
+    public static IndexHistogram equiDepth( double[] values, long[] counts, int numberOfBuckets, long numberOfEntries )
+    {
+        long total = 0;
+        for ( long count : counts )
+        {
+            total += count;
+        }
+        if ( total == 0 )
+        {
+            return null;
+        }
+
+        double[] bounds = new double[numberOfBuckets + 1];
+        bounds[0] = values[0];
+        long cumulative = 0;
+        int valueIndex = 0;
+        for ( int bucket = 1; bucket < numberOfBuckets; bucket++ )
+        {
+            double depth = (double) total * bucket / numberOfBuckets;
+            while ( cumulative + counts[valueIndex] < depth )
+            {
+                cumulative += counts[valueIndex];
+                valueIndex++;
+            }
+            bounds[bucket] = values[valueIndex];
+        }
+        bounds[numberOfBuckets] = values[values.length - 1];
+        return new IndexHistogram( bounds, numberOfEntries );
+    }
+
+    /**
+     * @return number of index entries this histogram describes, which for an index with values of different types
+     * may be fewer than the entries in the index.
+     */
+    public long numberOfEntries()
+    {
+        return numberOfEntries;
+    }
+
+    /**
+     * Estimates the fraction of the entries which have a value within the given range, assuming values to be
+     * evenly distributed within each bucket. Use infinity for unbounded ends of the range.
+     *
+     * @param from lower end of the range.
+     * @param fromInclusive whether or not values equal to {@code from} are within the range.
+     * @param to upper end of the range.
+     * @param toInclusive whether or not values equal to {@code to} are within the range.
+     * @return estimated fraction, between 0 and 1, of the entries which are within the range.
+     */
+    public double rangeSelectivity( double from, boolean fromInclusive, double to, boolean toInclusive )
+    {
+        int numberOfBuckets = bounds.length - 1;
+        double buckets = 0;
+        for ( int i = 0; i < numberOfBuckets; i++ )
+        {
+            double low = bounds[i];
+            double high = bounds[i + 1];
+            if ( low == high )
+            {
+                boolean aboveFrom = fromInclusive ? low >= from : low > from;
+                boolean belowTo = toInclusive ? low <= to : low < to;
+                buckets += aboveFrom && belowTo ? 1 : 0;
+            }
+            else
+            {
+                double overlap = Math.min( high, to ) - Math.max( low, from );
+                if ( overlap > 0 )
+                {
+                    // A bucket spanning infinity can't be interpolated, it counts as a whole if overlapping at all
+                    buckets += Double.isInfinite( high - low ) ? 1 : Math.min( 1, overlap / (high - low) );
+                }
+            }
+        }
+        return buckets / numberOfBuckets;
+    }
+
+    @Override
+    public boolean equals( Object o )
+    {
+        if ( this == o )
+        {
+            return true;
+        }
+        if ( o == null || getClass() != o.getClass() )
+        {
+            return false;
+        }
+        IndexHistogram that = (IndexHistogram) o;
+        return numberOfEntries == that.numberOfEntries && Arrays.equals( bounds, that.bounds );
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return 31 * Arrays.hashCode( bounds ) + (int) (numberOfEntries ^ (numberOfEntries >>> 32));
+    }
+
+    @Override
+    public String toString()
+    {
+        return "IndexHistogram{" +
+               "bounds=" + Arrays.toString( bounds ) +
+               ", numberOfEntries=" + numberOfEntries +
+               '}';
+    }
+}
@@ -24,6 +24,7 @@ import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Resource;
 import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.values.storable.Value;
 
@@ -50,6 +51,57 @@ public interface IndexReader extends Resource
      */
     PrimitiveLongIterator query( IndexQuery... predicates ) throws IndexNotApplicableKernelException;
 
+    /**
+     * Queries the index for the given {@link IndexQuery} predicates, returning the hits in the given {@link IndexOrder}.
+     * Only orders for which {@link #supportsOrder(IndexOrder, IndexQuery...)} returns {@code true} may be asked for.
+     *
+     * @param order the order in which to return the matching entity IDs.
+     * @param predicates the predicates to query for.
+     * @return the matching entity IDs, in the given order.
+     */
+    default PrimitiveLongIterator query( IndexOrder order, IndexQuery... predicates )
+            throws IndexNotApplicableKernelException
+    {
+        if ( order != IndexOrder.NONE )
+        {
+            throw new UnsupportedOperationException( "Ordered query not supported, " + order );
+        }
+        return query( predicates );
+    }
+
+    /**
+     * @param order {@link IndexOrder} to check.
+     * @param predicates query to check the order for.
+     * @return whether or not {@link #query(IndexOrder, IndexQuery...)} can return the hits of the given query
+     * in the given order.
+     */
+    default boolean supportsOrder( IndexOrder order, IndexQuery... predicates )
+    {
+        return order == IndexOrder.NONE;
+    }
+
+    /**
+     * Queries the index for the given {@link IndexQuery} predicates, returning the indexed values along with
+     * the hits. Only queries for which {@link #providesValues(IndexQuery...)} returns {@code true} may be asked for.
+     *
+     * @param predicates the predicates to query for.
+     * @return the matching entity IDs, with their indexed values.
+     */
+    default NodeValueIterator queryWithValues( IndexQuery... predicates ) throws IndexNotApplicableKernelException
+    {
+        throw new UnsupportedOperationException( "Query with values not supported" );
+    }
+
+    /**
+     * @param predicates query to check.
+     * @return whether or not {@link #queryWithValues(IndexQuery...)} can return the indexed values of the hits
+     * of the given query, exactly as they are stored in the property store.
+     */
+    default boolean providesValues( IndexQuery... predicates )
+    {
+        return false;
+    }
+
     /**
      * @param predicates query to determine whether or not index has full number precision for.
      * @return whether or not this reader will only return 100% matching results from {@link #query(IndexQuery...)}
@@ -60,6 +112,18 @@ public interface IndexReader extends Resource
      */
     boolean hasFullNumberPrecision( IndexQuery... predicates );
 
+    /**
+     * Returns a histogram of the numeric values in the index, if the index keeps track of one. This is expected
+     * to be cheap, i.e. derived from statistics the index keeps up to date anyway, as opposed to
+     * {@link #createSampler() sampling} the index.
+     *
+     * @return histogram of the numeric values in the index, or {@code null} if the index doesn't provide one.
+     */
+    default IndexHistogram histogram()
+    {
+        return null;
+    }
+
     IndexReader EMPTY = new IndexReader()
     {
         // Used for checking index correctness
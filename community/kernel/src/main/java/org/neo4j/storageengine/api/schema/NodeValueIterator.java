@@ -0,0 +1,59 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.storageengine.api.schema;
+
+import java.util.NoSuchElementException;
+
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.values.storable.Value;
+
+/**
+ * Iterator over node ids from an index query which can also provide the indexed values of each node, which saves
+ * the caller from reading them from the store.
+ */
+public interface NodeValueIterator extends PrimitiveLongIterator
+{
+    /**
+     * @return the indexed values of the node last returned from {@link #next()}, in the order of the properties
+     * of the index, or {@code null} if values aren't available for this node.
+     */
+    Value[] values();
+
+    NodeValueIterator EMPTY = new NodeValueIterator()
+    {
+        @Override
+        public Value[] values()
+        {
+            return null;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            return false;
+        }
+
+        @Override
+        public long next()
+        {
+            throw new NoSuchElementException();
+        }
+    };
+}
@@ -300,7 +300,8 @@ public class BatchInserterImpl implements BatchInserter, IndexConfigStoreProvide
                 HighestSelectionStrategy.INSTANCE );
         schemaIndexProviders = new DefaultSchemaIndexProviderMap( provider );
         labelScanStore = new NativeLabelScanStore( pageCache, storeDir, FullStoreChangeStream.EMPTY, false, new Monitors(),
-                RecoveryCleanupWorkCollector.IMMEDIATE );
+                RecoveryCleanupWorkCollector.IMMEDIATE,
+                config.get( GraphDatabaseSettings.label_index_sparse_ranges ) );
         life.add( labelScanStore );
         actions = new BatchSchemaActions();
 
@@ -99,9 +99,9 @@ public class MultipleIndexPopulatorUpdatesTest
                 .thenReturn( Registers.newDoubleLongRegister( 3, 3 ) );
         when( nodeStore.getHighestPossibleIdInUse() ).thenReturn( 20L );
         when( nodeStore.newRecord() ).thenReturn( nodeRecord );
-        when( nodeStore.getRecord( anyInt(), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer(
+        when( nodeStore.getRecordInScan( anyInt(), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer(
                 new SetNodeIdRecordAnswer( nodeRecord, 1 ) );
-        when( nodeStore.getRecord( eq(7L), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer( new
+        when( nodeStore.getRecordInScan( eq(7L), eq( nodeRecord ), any( RecordLoad.class ) ) ).thenAnswer( new
                 SetNodeIdRecordAnswer( nodeRecord, 7 ) );
 
         ProcessListenableNeoStoreIndexView
@@ -22,9 +22,13 @@ package org.neo4j.kernel.impl.api.state;
 import org.junit.Test;
 
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 
+import org.neo4j.collection.primitive.PrimitiveIntCollections;
+import org.neo4j.collection.primitive.PrimitiveIntSet;
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.Cursor;
@@ -35,6 +39,7 @@ import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.explicitindex.AutoIndexOperations;
 import org.neo4j.kernel.api.explicitindex.AutoIndexing;
 import org.neo4j.kernel.api.properties.PropertyKeyValue;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
 import org.neo4j.kernel.api.schema.SchemaDescriptorFactory;
@@ -56,14 +61,17 @@ import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.StorageStatement;
 import org.neo4j.storageengine.api.StoreReadLayer;
 import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.storageengine.api.txstate.PropertyContainerState;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.ValueTuple;
 import org.neo4j.values.storable.Values;
 
 import static java.util.Collections.emptyIterator;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
@@ -244,6 +252,47 @@ public class StateHandlingStatementOperationsTest
         assertEquals( asSet( 42L, 43L ), PrimitiveLongCollections.toSet( results ) );
     }
 
+    @Test
+    public void shouldConsiderTransactionStateWhenGettingNodesWithAllLabels() throws Exception
+    {
+        // Given
+        TransactionState txState = mock( TransactionState.class );
+        KernelStatement statement = mock( KernelStatement.class );
+        StorageStatement storageStatement = mock( StorageStatement.class );
+        when( statement.hasTxStateWithChanges() ).thenReturn( true );
+        when( statement.txState() ).thenReturn( txState );
+        when( statement.getStoreStatement() ).thenReturn( storageStatement );
+        when( txState.nodesWithLabelChanged( 1 ) ).thenReturn( new DiffSets<>() );
+        when( txState.nodesWithLabelChanged( 2 ) ).thenReturn(
+                new DiffSets<>( asSet( 13L, 14L ), Collections.singleton( 11L ) )
+        );
+        when( txState.addedAndRemovedNodes() ).thenReturn(
+                new DiffSets<>( Collections.emptySet(), Collections.singleton( 12L ) )
+        );
+        Map<Long,PrimitiveIntSet> labelsInTransaction = new HashMap<>();
+        labelsInTransaction.put( 11L, PrimitiveIntCollections.asSet( new int[]{1} ) );
+        labelsInTransaction.put( 13L, PrimitiveIntCollections.asSet( new int[]{1, 2} ) );
+        labelsInTransaction.put( 14L, PrimitiveIntCollections.asSet( new int[]{2} ) );
+        when( txState.augmentSingleNodeCursor( any( Cursor.class ), anyLong() ) ).thenAnswer( invocationOnMock ->
+        {
+            long nodeId = (long) invocationOnMock.getArguments()[1];
+            return asNodeCursor( nodeId, labelsInTransaction.get( nodeId ) );
+        } );
+
+        StoreReadLayer storeReadLayer = mock( StoreReadLayer.class );
+        when( storeReadLayer.nodesGetForAllLabels( storageStatement, 1, 2 ) ).thenReturn(
+                PrimitiveLongCollections.iterator( 10L, 11L, 12L )
+        );
+
+        StateHandlingStatementOperations context = newTxStateOps( storeReadLayer );
+
+        // When
+        PrimitiveLongIterator results = context.nodesGetForAllLabels( statement, 1, 2 );
+
+        // Then
+        assertEquals( asSet( 10L, 13L ), PrimitiveLongCollections.toSet( results ) );
+    }
+
     @Test
     public void shouldConsiderTransactionStateDuringIndexSeekWithIndexQuery() throws Exception
     {
@@ -450,6 +499,126 @@ public class StateHandlingStatementOperationsTest
         assertEquals( asSet( 42L, 43L ), PrimitiveLongCollections.toSet( results ) );
     }
 
+    @Test
+    public void shouldReturnHitsInOrderOfIndexForOrderedIndexQueryWithoutTransactionState() throws Exception
+    {
+        // Given
+        KernelStatement statement = mock( KernelStatement.class );
+        when( statement.hasTxStateWithChanges() ).thenReturn( false );
+        IndexReader indexReader = addMockedIndexReader( statement );
+        IndexQuery.NumberRangePredicate indexQuery =
+                IndexQuery.range( index.schema().getPropertyId(), 10, true, 20, false );
+        when( indexReader.supportsOrder( IndexOrder.DESCENDING, indexQuery ) ).thenReturn( true );
+        when( indexReader.hasFullNumberPrecision( indexQuery ) ).thenReturn( true );
+        when( indexReader.query( IndexOrder.DESCENDING, indexQuery ) ).thenReturn(
+                PrimitiveLongCollections.resourceIterator( PrimitiveLongCollections.iterator( 46L, 44L, 43L ), null )
+        );
+
+        StateHandlingStatementOperations context = newTxStateOps( mock( StoreReadLayer.class ) );
+
+        // When
+        PrimitiveLongIterator results = context.indexQuery( statement, index, IndexOrder.DESCENDING, indexQuery );
+
+        // Then
+        assertArrayEquals( new long[]{46L, 44L, 43L}, PrimitiveLongCollections.asArray( results ) );
+    }
+
+    @Test
+    public void shouldReturnValuesFromIndexForIndexQueryWithValuesWithoutTransactionState() throws Exception
+    {
+        // Given
+        KernelStatement statement = mock( KernelStatement.class );
+        when( statement.hasTxStateWithChanges() ).thenReturn( false );
+        IndexReader indexReader = addMockedIndexReader( statement );
+        IndexQuery.NumberRangePredicate indexQuery =
+                IndexQuery.range( index.schema().getPropertyId(), 10, true, 20, false );
+        when( indexReader.providesValues( indexQuery ) ).thenReturn( true );
+        when( indexReader.hasFullNumberPrecision( indexQuery ) ).thenReturn( true );
+        NodeValueIterator hits = mock( NodeValueIterator.class );
+        when( indexReader.queryWithValues( indexQuery ) ).thenReturn( hits );
+
+        StateHandlingStatementOperations context = newTxStateOps( mock( StoreReadLayer.class ) );
+
+        // When
+        NodeValueIterator results = context.indexQueryWithValues( statement, index, indexQuery );
+
+        // Then
+        assertSame( hits, results );
+    }
+
+    @Test
+    public void shouldMergeTransactionStateIntoOrderedHitsForOrderedIndexQuery() throws Exception
+    {
+        assertOrderedIndexQueryWithTransactionState( true );
+    }
+
+    @Test
+    public void shouldSortHitsByPropertyValueForOrderedIndexQueryIfIndexDoesNotSupportOrder() throws Exception
+    {
+        assertOrderedIndexQueryWithTransactionState( false );
+    }
+
+    private void assertOrderedIndexQueryWithTransactionState( boolean indexSupportsOrder )
+            throws Exception
+    {
+        // Given
+        final int propertyKey = 2;
+        int lower = 10;
+        int upper = 20;
+        Map<Long,Integer> propertyValues = new HashMap<>();
+        propertyValues.put( 42L, 15 );
+        propertyValues.put( 43L, 12 );
+        propertyValues.put( 46L, 18 );
+
+        TransactionState txState = mock( TransactionState.class );
+        KernelStatement statement = mock( KernelStatement.class );
+        when( statement.hasTxStateWithChanges() ).thenReturn( true );
+        when( statement.txState() ).thenReturn( txState );
+        StorageStatement storageStatement = mock( StorageStatement.class );
+        when( statement.getStoreStatement() ).thenReturn( storageStatement );
+        when( txState.indexUpdatesForRangeSeekByNumber( index, lower, true, upper, false ) ).thenReturn(
+                new DiffSets<>( Collections.singleton( 42L ), Collections.singleton( 44L ) )
+        );
+        when( txState.addedAndRemovedNodes() ).thenReturn( new DiffSets<>() );
+        when( txState.augmentSingleNodeCursor( any( Cursor.class ), anyLong() ) )
+                .thenAnswer( invocationOnMock -> invocationOnMock.getArguments()[0] );
+        when( txState.augmentSinglePropertyCursor( any( Cursor.class ), any( PropertyContainerState.class ),
+                eq( propertyKey ) ) ).thenAnswer( invocationOnMock -> invocationOnMock.getArguments()[0] );
+
+        IndexReader indexReader = addMockedIndexReader( storageStatement );
+        IndexQuery.NumberRangePredicate indexQuery =
+                IndexQuery.range( index.schema().getPropertyId(), lower, true, upper, false );
+        when( indexReader.supportsOrder( IndexOrder.ASCENDING, indexQuery ) ).thenReturn( indexSupportsOrder );
+        when( indexReader.hasFullNumberPrecision( indexQuery ) ).thenReturn( true );
+        // Only the ordered query returns the hits in order
+        when( indexReader.query( IndexOrder.ASCENDING, indexQuery ) ).thenReturn(
+                PrimitiveLongCollections.resourceIterator( PrimitiveLongCollections.iterator( 43L, 44L, 46L ), null )
+        );
+        when( indexReader.query( indexQuery ) ).thenReturn(
+                PrimitiveLongCollections.resourceIterator( PrimitiveLongCollections.iterator( 46L, 44L, 43L ), null )
+        );
+        when( storageStatement.acquireSingleNodeCursor( anyLong() ) ).thenAnswer( invocationOnMock ->
+        {
+            long nodeId = (long) invocationOnMock.getArguments()[0];
+            return asNodeCursor( nodeId, nodeId + 20000 );
+        } );
+        StoreReadLayer storeReadLayer = mock( StoreReadLayer.class );
+        when( storeReadLayer.nodeGetProperty( eq( storageStatement ), any( NodeItem.class ), eq( propertyKey ),
+                any( AssertOpen.class ) ) ).thenAnswer( invocationOnMock ->
+        {
+            long nodeId = ((NodeItem) invocationOnMock.getArguments()[1]).id();
+            return asPropertyCursor( new PropertyKeyValue( propertyKey, Values.of( propertyValues.get( nodeId ) ) ) );
+        } );
+
+        StateHandlingStatementOperations context = newTxStateOps( storeReadLayer );
+
+        // When
+        PrimitiveLongIterator results = context.indexQuery( statement, index, IndexOrder.ASCENDING, indexQuery );
+
+        // Then
+        assertArrayEquals( new long[]{43L, 42L, 46L}, PrimitiveLongCollections.asArray( results ) );
+    }
+
     @Test
     public void shouldConsiderTransactionStateDuringIndexBetweenRangeSeekByStringWithIndexQuery() throws Exception
     {
@@ -137,6 +137,84 @@ public class NativeLabelScanReaderTest
         verify( cursor2, times( 1 ) ).close();
     }
 
+    @SuppressWarnings( "unchecked" )
+    @Test
+    public void shouldIntersectLabelsRangeByRange() throws Exception
+    {
+        // GIVEN
+        GBPTree<LabelScanKey,LabelScanValue> index = mock( GBPTree.class );
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor1 = mock( RawCursor.class );
+        when( cursor1.next() ).thenReturn( true, true, true, false );
+        when( cursor1.get() ).thenReturn(
+                hit( 0, 0b1000_1000__1100_0010L ),
+                hit( 1, 0b0000_0010__0000_1000L ),
+                hit( 3, 0b0010_0000__1010_0001L ),
+                null );
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor2 = mock( RawCursor.class );
+        when( cursor2.next() ).thenReturn( true, true, true, false );
+        when( cursor2.get() ).thenReturn(
+                hit( 0, 0b0000_1000__0100_0011L ),
+                hit( 2, 0b1111_1111__1111_1111L ),
+                hit( 3, 0b0010_0000__0000_0001L ),
+                null );
+        when( index.seek( any( LabelScanKey.class ), any( LabelScanKey.class ) ) ).thenReturn( cursor1, cursor2 );
+        try ( NativeLabelScanReader reader = new NativeLabelScanReader( index ) )
+        {
+            // WHEN
+            PrimitiveLongIterator iterator = reader.nodesWithAllLabels( LABEL_ID, LABEL_ID + 1 );
+
+            // THEN
+            assertArrayEquals( new long[] {
+                    // base 0*64 = 0
+                    1, 6, 11,
+                    // base 3*64 = 192
+                    192 + 0, 192 + 13 },
+
+                    asArray( iterator ) );
+            verify( cursor1, times( 1 ) ).close();
+            verify( cursor2, times( 1 ) ).close();
+        }
+    }
+
+    @SuppressWarnings( "unchecked" )
+    @Test
+    public void shouldUniteLabelsRangeByRange() throws Exception
+    {
+        // GIVEN
+        GBPTree<LabelScanKey,LabelScanValue> index = mock( GBPTree.class );
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor1 = mock( RawCursor.class );
+        when( cursor1.next() ).thenReturn( true, true, false );
+        when( cursor1.get() ).thenReturn(
+                hit( 0, 0b0000_0000__0000_0010L ),
+                hit( 3, 0b0000_0000__0000_0001L ),
+                null );
+        RawCursor<Hit<LabelScanKey,LabelScanValue>,IOException> cursor2 = mock( RawCursor.class );
+        when( cursor2.next() ).thenReturn( true, true, false );
+        when( cursor2.get() ).thenReturn(
+                hit( 0, 0b0000_0000__0000_0011L ),
+                hit( 2, 0b1000_0000__0000_0000L ),
+                null );
+        when( index.seek( any( LabelScanKey.class ), any( LabelScanKey.class ) ) ).thenReturn( cursor1, cursor2 );
+        try ( NativeLabelScanReader reader = new NativeLabelScanReader( index ) )
+        {
+            // WHEN
+            PrimitiveLongIterator iterator = reader.nodesWithAnyOfLabels( LABEL_ID, LABEL_ID + 1 );
+
+            // THEN
+            assertArrayEquals( new long[] {
+                    // base 0*64 = 0
+                    0, 1,
+                    // base 2*64 = 128
+                    128 + 15,
+                    // base 3*64 = 192
+                    192 + 0 },
+
+                    asArray( iterator ) );
+            verify( cursor1, times( 1 ) ).close();
+            verify( cursor2, times( 1 ) ).close();
+        }
+    }
+
     private static Hit<LabelScanKey,LabelScanValue> hit( long baseNodeId, long bits )
     {
         LabelScanKey key = new LabelScanKey( LABEL_ID, baseNodeId );
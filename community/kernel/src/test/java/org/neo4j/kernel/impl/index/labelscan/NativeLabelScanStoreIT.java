@@ -65,8 +65,8 @@ public class NativeLabelScanStoreIT
         PageCache pageCache = pageCacheRule.getPageCache( new DefaultFileSystemAbstraction() );
         store = life.add( new NativeLabelScanStore( pageCache, directory.absolutePath(), FullStoreChangeStream.EMPTY,
                 false, new Monitors(), RecoveryCleanupWorkCollector.IMMEDIATE,
-                // a bit of random pageSize
-                Math.min( pageCache.pageSize(), 256 << random.nextInt( 5 ) ) ) );
+                // a bit of random pageSize and layout
+                Math.min( pageCache.pageSize(), 256 << random.nextInt( 5 ) ), random.nextBoolean() ) );
     }
 
     @Test
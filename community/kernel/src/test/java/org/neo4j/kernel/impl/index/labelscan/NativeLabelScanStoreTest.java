@@ -27,21 +27,29 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.api.impl.labelscan.LabelScanStoreTest;
 import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.LabelScanWriter;
 import org.neo4j.kernel.impl.api.scan.FullStoreChangeStream;
 import org.neo4j.kernel.lifecycle.LifeSupport;
 import org.neo4j.kernel.monitoring.Monitors;
 import org.neo4j.test.rule.PageCacheRule;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.Iterators.asSet;
+import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
 import static org.neo4j.kernel.impl.api.scan.FullStoreChangeStream.EMPTY;
 
 public class NativeLabelScanStoreTest extends LabelScanStoreTest
 {
+    private static final long[] NO_LABELS = new long[0];
+
     @Rule
     public PageCacheRule pageCacheRule = new PageCacheRule();
 
@@ -54,7 +62,12 @@ public class NativeLabelScanStoreTest extends LabelScanStoreTest
         monitors.addMonitorListener( monitor );
         PageCache pageCache = pageCacheRule.getPageCache( fileSystemAbstraction );
         return new NativeLabelScanStore( pageCache, rootFolder,
-                fullStoreChangeStream, readOnly, monitors, RecoveryCleanupWorkCollector.IMMEDIATE );
+                fullStoreChangeStream, readOnly, monitors, RecoveryCleanupWorkCollector.IMMEDIATE, sparseRanges() );
+    }
+
+    protected boolean sparseRanges()
+    {
+        return false;
     }
 
     @Override
@@ -97,4 +110,43 @@ public class NativeLabelScanStoreTest extends LabelScanStoreTest
         assertTrue( monitor.rebuiltCalled );
         life.shutdown();
     }
+
+    @Test
+    public void shouldOpenStoreCreatedWithOtherLayoutWithoutRebuilding() throws Exception
+    {
+        // given
+        // a label scan store created with the other layout
+        LifeSupport life = new LifeSupport();
+        Monitors monitors = new Monitors();
+        NativeLabelScanStore other = new NativeLabelScanStore( pageCacheRule.getPageCache( fileSystemRule.get() ), dir,
+                EMPTY, false, monitors, RecoveryCleanupWorkCollector.IMMEDIATE, !sparseRanges() );
+        life.add( other );
+        life.start();
+        try ( LabelScanWriter writer = other.newWriter() )
+        {
+            writer.write( labelChanges( 1, NO_LABELS, new long[]{1} ) );
+            writer.write( labelChanges( 70, NO_LABELS, new long[]{1, 2} ) );
+        }
+        life.shutdown();
+
+        // when
+        life = new LifeSupport();
+        TrackingMonitor monitor = new TrackingMonitor();
+        LabelScanStore store = createLabelScanStore( fileSystemRule.get(), dir, EMPTY, true, false, monitor );
+        life.add( store );
+        life.start();
+
+        // then
+        try
+        {
+            assertFalse( monitor.corruptedIndex );
+            assertFalse( monitor.rebuildingCalled );
+            assertEquals( asSet( 1L, 70L ), PrimitiveLongCollections.toSet( store.newReader().nodesWithLabel( 1 ) ) );
+            assertEquals( asSet( 70L ), PrimitiveLongCollections.toSet( store.newReader().nodesWithLabel( 2 ) ) );
+        }
+        finally
+        {
+            life.shutdown();
+        }
+    }
 }
@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.StubPageCursor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+public class SparseLabelScanLayoutTest
+{
+    private final SparseLabelScanLayout layout = new SparseLabelScanLayout();
+
+    @Test
+    public void shouldStoreRangesWithFewNodesAsArray() throws Exception
+    {
+        shouldWriteAndReadValue( 0b1L, 1 );
+        shouldWriteAndReadValue( 1L << 63, 1 );
+        shouldWriteAndReadValue( 0x8040_2010_0004_0201L, 7 );
+    }
+
+    @Test
+    public void shouldStoreRangesWithManyNodesAsBitmap() throws Exception
+    {
+        shouldWriteAndReadValue( 0b1111_1111L, LabelScanValue.RANGE_SIZE_BYTES );
+        shouldWriteAndReadValue( 0x8040_2010_0804_0201L, LabelScanValue.RANGE_SIZE_BYTES );
+        shouldWriteAndReadValue( -1L, LabelScanValue.RANGE_SIZE_BYTES );
+    }
+
+    @Test
+    public void shouldStoreEmptyRangeAsEmptyArray() throws Exception
+    {
+        shouldWriteAndReadValue( 0, 0 );
+    }
+
+    @Test
+    public void shouldHaveVariableSizeValuesAndOtherMajorVersion() throws Exception
+    {
+        assertFalse( layout.fixedValueSize() );
+        assertEquals( 0, new LabelScanLayout().majorVersion() );
+        assertEquals( 1, layout.majorVersion() );
+    }
+
+    private void shouldWriteAndReadValue( long bits, int expectedSize )
+    {
+        // GIVEN
+        LabelScanValue value = new LabelScanValue();
+        value.bits = bits;
+        PageCursor cursor = new StubPageCursor( 0, 64 );
+
+        // WHEN
+        int valueSize = layout.valueSize( value );
+        layout.writeValue( cursor, value );
+
+        // THEN
+        assertEquals( expectedSize, valueSize );
+        assertEquals( expectedSize, cursor.getOffset() );
+        cursor.setOffset( 0 );
+        LabelScanValue read = new LabelScanValue();
+        read.bits = 0b1010;
+        layout.readValue( cursor, read, valueSize );
+        assertEquals( bits, read.bits );
+        assertEquals( expectedSize, cursor.getOffset() );
+    }
+}
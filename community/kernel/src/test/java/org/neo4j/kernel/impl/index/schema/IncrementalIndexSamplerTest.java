@@ -0,0 +1,248 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import org.neo4j.io.pagecache.StubPageCursor;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalIndexSamplerTest
+{
+    private static final int CAPACITY = 64;
+
+    private final IncrementalIndexSampler sampler = new IncrementalIndexSampler( CAPACITY );
+
+    @Test
+    public void shouldSampleAllValuesWhileWithinCapacity() throws Exception
+    {
+        // when
+        for ( int i = 0; i < CAPACITY; i++ )
+        {
+            sampler.include( key( i ) );
+            sampler.include( key( i ) );
+        }
+
+        // then
+        assertSample( sampler.result(), CAPACITY * 2, CAPACITY, CAPACITY * 2 );
+    }
+
+    @Test
+    public void shouldExcludeRemovedEntries() throws Exception
+    {
+        // given
+        for ( int i = 0; i < 10; i++ )
+        {
+            sampler.include( key( i ) );
+            sampler.include( key( i ) );
+        }
+
+        // when
+        sampler.exclude( key( 0 ) );
+        sampler.exclude( key( 1 ) );
+        sampler.exclude( key( 1 ) );
+
+        // then
+        assertSample( sampler.result(), 17, 9, 17 );
+    }
+
+    @Test
+    public void shouldEstimateSelectivityBeyondCapacity() throws Exception
+    {
+        // given
+        int uniqueValues = 100_000;
+        int entriesPerValue = 4;
+
+        // when
+        for ( int i = 0; i < uniqueValues; i++ )
+        {
+            for ( int j = 0; j < entriesPerValue; j++ )
+            {
+                sampler.include( key( i ) );
+            }
+        }
+
+        // then
+        IndexSample sample = sampler.result();
+        assertEquals( uniqueValues * entriesPerValue, sample.indexSize() );
+        assertTrue( sample.uniqueValues() > 0 && sample.uniqueValues() <= CAPACITY );
+        assertEquals( entriesPerValue * sample.uniqueValues(), sample.sampleSize() );
+    }
+
+    @Test
+    public void shouldKeepEstimateWhenRemovingBeyondCapacity() throws Exception
+    {
+        // given
+        int uniqueValues = 10_000;
+        for ( int i = 0; i < uniqueValues; i++ )
+        {
+            sampler.include( key( i ) );
+        }
+
+        // when
+        for ( int i = 0; i < uniqueValues / 2; i++ )
+        {
+            sampler.include( key( i ) );
+        }
+        for ( int i = uniqueValues / 2; i < uniqueValues; i++ )
+        {
+            sampler.exclude( key( i ) );
+        }
+
+        // then all remaining values have two entries each
+        IndexSample sample = sampler.result();
+        assertEquals( uniqueValues, sample.indexSize() );
+        assertEquals( sample.uniqueValues() * 2, sample.sampleSize() );
+    }
+
+    @Test
+    public void shouldReadWhatWasWritten() throws Exception
+    {
+        // given
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            sampler.include( key( i % 300 ) );
+        }
+        byte[] header = new byte[CAPACITY * Long.BYTES * 3 + 100];
+
+        // when
+        sampler.write( new StubPageCursor( 0, ByteBuffer.wrap( header ) ) );
+        IncrementalIndexSampler read = IncrementalIndexSampler.read( ByteBuffer.wrap( header ), CAPACITY );
+
+        // then
+        IndexSample expected = sampler.result();
+        assertSample( read.result(), expected.indexSize(), expected.uniqueValues(), expected.sampleSize() );
+        assertEquals( sampler.numberHistogram(), read.numberHistogram() );
+        sampler.include( key( 1_000 ) );
+        read.include( key( 1_000 ) );
+        expected = sampler.result();
+        assertSample( read.result(), expected.indexSize(), expected.uniqueValues(), expected.sampleSize() );
+    }
+
+    @Test
+    public void shouldReadNoSamplerFromHeaderWithoutOne() throws Exception
+    {
+        assertNull( IncrementalIndexSampler.read( ByteBuffer.allocate( 0 ), CAPACITY ) );
+    }
+
+    @Test
+    public void shouldBuildHistogramOfSampledNumberValues() throws Exception
+    {
+        // given
+        for ( int i = 0; i < CAPACITY; i++ )
+        {
+            sampler.include( key( i ) );
+        }
+
+        // when
+        IndexHistogram histogram = sampler.numberHistogram();
+
+        // then
+        assertEquals( CAPACITY, histogram.numberOfEntries() );
+        assertEquals( 1.0, histogram.rangeSelectivity( Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, true ),
+                0.0 );
+        assertEquals( 0.5, histogram.rangeSelectivity( 0, true, CAPACITY / 2, false ), 0.02 );
+        assertEquals( 0.0, histogram.rangeSelectivity( CAPACITY, false, Double.POSITIVE_INFINITY, true ), 0.0 );
+    }
+
+    @Test
+    public void shouldRepresentFrequentNumberValuesInHistogram() throws Exception
+    {
+        // given half of the entries having the same value
+        for ( int i = 0; i < CAPACITY / 2; i++ )
+        {
+            sampler.include( key( i ) );
+            sampler.include( key( 42.5 ) );
+        }
+
+        // when
+        IndexHistogram histogram = sampler.numberHistogram();
+
+        // then
+        assertEquals( 0.5, histogram.rangeSelectivity( 42.5, true, 42.5, true ), 0.1 );
+        assertEquals( 0.0, histogram.rangeSelectivity( 42.5, false, 42.5, true ), 0.0 );
+    }
+
+    @Test
+    public void shouldNotBuildHistogramWithoutEntries() throws Exception
+    {
+        assertNull( sampler.numberHistogram() );
+    }
+
+    @Test
+    public void shouldLeaveValuesWhichAreNotNumbersOutOfHistogram() throws Exception
+    {
+        // given
+        for ( int i = 0; i < CAPACITY / 2; i++ )
+        {
+            sampler.include( key( i ) );
+            sampler.include( stringKey( "value" + i ) );
+        }
+
+        // when
+        IndexHistogram histogram = sampler.numberHistogram();
+
+        // then
+        assertEquals( CAPACITY / 2, histogram.numberOfEntries() );
+        assertEquals( 0.5, histogram.rangeSelectivity( 0, true, CAPACITY / 4, false ), 0.05 );
+    }
+
+    @Test
+    public void shouldNotBuildHistogramOfValuesWhichAreNotNumbers() throws Exception
+    {
+        // given
+        for ( int i = 0; i < CAPACITY; i++ )
+        {
+            sampler.include( stringKey( String.valueOf( i ) ) );
+        }
+
+        // then
+        assertNull( sampler.numberHistogram() );
+    }
+
+    private static NativeSchemaKey key( double value )
+    {
+        SchemaNumberKey key = new SchemaNumberKey();
+        key.from( 0, Values.doubleValue( value ) );
+        return key;
+    }
+
+    private static NativeSchemaKey stringKey( String value )
+    {
+        SchemaStringKey key = new SchemaStringKey();
+        key.from( 0, Values.stringValue( value ) );
+        return key;
+    }
+
+    private static void assertSample( IndexSample sample, long indexSize, long uniqueValues, long sampleSize )
+    {
+        assertEquals( indexSize, sample.indexSize() );
+        assertEquals( uniqueValues, sample.uniqueValues() );
+        assertEquals( sampleSize, sample.sampleSize() );
+    }
+}
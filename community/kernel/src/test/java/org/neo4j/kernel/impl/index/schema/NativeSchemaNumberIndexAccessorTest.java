@@ -27,8 +27,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Map;
 import java.util.Set;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
@@ -40,12 +43,14 @@ import org.neo4j.graphdb.ResourceIterator;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.storageengine.api.schema.IndexSample;
 import org.neo4j.storageengine.api.schema.IndexSampler;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.values.storable.Value;
 import org.neo4j.values.storable.Values;
 
@@ -425,6 +430,107 @@ public abstract class NativeSchemaNumberIndexAccessorTest<KEY extends SchemaNumb
         assertEntityIdHits( EMPTY_LONG_ARRAY, result );
     }
 
+    @Test
+    public void shouldReturnMatchingEntriesInAscendingOrderForOrderedRangePredicate() throws Exception
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        processAll( updates );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        IndexQuery query = IndexQuery.range( 0, Double.NEGATIVE_INFINITY, false, Double.POSITIVE_INFINITY, true );
+        assertTrue( reader.supportsOrder( IndexOrder.ASCENDING, query ) );
+        PrimitiveLongIterator result = reader.query( IndexOrder.ASCENDING, query );
+
+        // then
+        long[] expected =
+                extractOrderedEntityIds( updates, greaterThan( Double.NEGATIVE_INFINITY ), IndexOrder.ASCENDING );
+        assertArrayEquals( expected, PrimitiveLongCollections.asArray( result ) );
+    }
+
+    @Test
+    public void shouldReturnMatchingEntriesInDescendingOrderForOrderedRangePredicate() throws Exception
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        processAll( updates );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        IndexQuery query = IndexQuery.range( 0, Double.NEGATIVE_INFINITY, true, Double.POSITIVE_INFINITY, false );
+        assertTrue( reader.supportsOrder( IndexOrder.DESCENDING, query ) );
+        PrimitiveLongIterator result = reader.query( IndexOrder.DESCENDING, query );
+
+        // then
+        long[] expected =
+                extractOrderedEntityIds( updates, lessThan( Double.POSITIVE_INFINITY ), IndexOrder.DESCENDING );
+        assertArrayEquals( expected, PrimitiveLongCollections.asArray( result ) );
+    }
+
+    @Test
+    public void shouldReturnAllEntriesInDescendingOrderForOrderedExistsPredicate() throws Exception
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        processAll( updates );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        PrimitiveLongIterator result = reader.query( IndexOrder.DESCENDING, IndexQuery.exists( 0 ) );
+
+        // then
+        long[] expected =
+                extractOrderedEntityIds( updates, alwaysTrue(), IndexOrder.DESCENDING );
+        assertArrayEquals( expected, PrimitiveLongCollections.asArray( result ) );
+    }
+
+    @Test
+    public void shouldReturnIndexedValuesForQueryWithValues() throws Exception
+    {
+        // given
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        processAll( updates );
+        Map<Long,Value> expectedValues = new HashMap<>();
+        for ( IndexEntryUpdate<IndexDescriptor> update : updates )
+        {
+            expectedValues.put( update.getEntityId(), update.values()[0] );
+        }
+
+        // when
+        IndexReader reader = accessor.newReader();
+        IndexQuery query = IndexQuery.exists( 0 );
+        assertTrue( reader.providesValues( query ) );
+        NodeValueIterator result = reader.queryWithValues( query );
+
+        // then
+        int count = 0;
+        while ( result.hasNext() )
+        {
+            long entityId = result.next();
+            Value expected = expectedValues.get( entityId );
+            Value actual = result.values()[0];
+            assertEquals( expected, actual );
+            assertEquals( expected.getClass(), actual.getClass() );
+            count++;
+        }
+        assertEquals( expectedValues.size(), count );
+    }
+
+    @Test
+    public void shouldReturnNoHitsForEmptyRangeQueryWithValues() throws Exception
+    {
+        // given
+        processAll( layoutUtil.someUpdates() );
+
+        // when
+        IndexReader reader = accessor.newReader();
+        NodeValueIterator result = reader.queryWithValues( IndexQuery.range( 0, 10, true, 5, true ) );
+
+        // then
+        assertFalse( result.hasNext() );
+    }
+
     @Test
     public void shouldHandleMultipleConsecutiveUpdaters() throws Exception
     {
@@ -671,6 +777,19 @@ public abstract class NativeSchemaNumberIndexAccessorTest<KEY extends SchemaNumb
         return Arrays.copyOf( entityIds, cursor );
     }
 
+    private long[] extractOrderedEntityIds( IndexEntryUpdate<?>[] updates, Predicate<Value> valueFilter,
+            IndexOrder order )
+    {
+        Comparator<IndexEntryUpdate<?>> comparator =
+                Comparator.comparing( (IndexEntryUpdate<?> update) -> update.values()[0], COMPARATOR )
+                        .thenComparingLong( IndexEntryUpdate::getEntityId );
+        return Stream.of( updates )
+                .filter( update -> valueFilter.test( update.values()[0] ) )
+                .sorted( order == IndexOrder.DESCENDING ? comparator.reversed() : comparator )
+                .mapToLong( IndexEntryUpdate::getEntityId )
+                .toArray();
+    }
+
     private void applyUpdatesToExpectedData( Set<IndexEntryUpdate<IndexDescriptor>> expectedData,
             IndexEntryUpdate<IndexDescriptor>[] batch )
     {
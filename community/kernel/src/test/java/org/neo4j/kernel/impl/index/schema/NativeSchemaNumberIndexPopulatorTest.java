@@ -43,21 +43,27 @@ import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.index.IndexEntryUpdate;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.PropertyAccessor;
 import org.neo4j.kernel.api.schema.index.IndexDescriptor;
 import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
 import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSample;
 import org.neo4j.values.storable.Values;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.index.internal.gbptree.GBPTree.NO_HEADER_WRITER;
+import static org.neo4j.kernel.impl.index.schema.LayoutTestUtil.countUniqueValues;
 import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_FAILED;
 import static org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexPopulator.BYTE_ONLINE;
 
@@ -267,6 +273,53 @@ public abstract class NativeSchemaNumberIndexPopulatorTest<KEY extends SchemaNum
         assertHeader( true, null, false );
     }
 
+    @Test
+    public void successfulCloseMustWriteSamplerKeptUpToDateByAccessor() throws Exception
+    {
+        // given
+        populator.create();
+        IndexEntryUpdate<IndexDescriptor>[] updates = layoutUtil.someUpdates();
+        populator.add( Arrays.asList( updates ) );
+
+        // when
+        populator.close( true );
+
+        // then
+        IndexEntryUpdate<IndexDescriptor>[] remaining = Arrays.copyOfRange( updates, 1, updates.length );
+        try ( NativeSchemaNumberIndexAccessor<KEY,VALUE> accessor = newAccessor() )
+        {
+            assertSample( accessor, updates );
+            try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+            {
+                updater.process( IndexEntryUpdate.remove( updates[0].getEntityId(), indexDescriptor, updates[0].values() ) );
+            }
+            assertSample( accessor, remaining );
+            accessor.force();
+        }
+        try ( NativeSchemaNumberIndexAccessor<KEY,VALUE> accessor = newAccessor() )
+        {
+            assertSample( accessor, remaining );
+        }
+    }
+
+    private NativeSchemaNumberIndexAccessor<KEY,VALUE> newAccessor() throws IOException
+    {
+        return new NativeSchemaNumberIndexAccessor<>( pageCache, fs, indexFile, layout, RecoveryCleanupWorkCollector.IMMEDIATE );
+    }
+
+    private static void assertSample( NativeSchemaNumberIndexAccessor<?,?> accessor, IndexEntryUpdate<IndexDescriptor>[] expected )
+            throws IndexNotFoundKernelException
+    {
+        assertNotNull( accessor.sampler );
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            IndexSample sample = reader.createSampler().sampleIndex();
+            assertEquals( expected.length, sample.indexSize() );
+            assertEquals( expected.length, sample.sampleSize() );
+            assertEquals( countUniqueValues( expected ), sample.uniqueValues() );
+        }
+    }
+
     @Test
     public void unsuccessfulCloseMustSucceedWithoutMarkAsFailed() throws Exception
     {
@@ -0,0 +1,337 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.helpers.Exceptions;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.exceptions.index.IndexNotApplicableKernelException;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.api.index.sampling.IndexSamplingConfig;
+import org.neo4j.logging.AssertableLogProvider;
+import org.neo4j.storageengine.api.schema.IndexReader;
+import org.neo4j.storageengine.api.schema.IndexSample;
+import org.neo4j.test.rule.PageCacheAndDependenciesRule;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import static org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector.IMMEDIATE;
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByProvider;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.add;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
+
+public class NativeSchemaStringIndexProviderTest
+{
+    @Rule
+    public PageCacheAndDependenciesRule rules = new PageCacheAndDependenciesRule();
+
+    private static final int indexId = 1;
+    private static final int labelId = 1;
+    private static final int propId = 1;
+    private static final int otherPropId = 2;
+    private NativeSchemaStringIndexProvider provider;
+    private final AssertableLogProvider logging = new AssertableLogProvider();
+
+    @Before
+    public void setup() throws IOException
+    {
+        provider = newProvider();
+        rules.fileSystem().mkdirs( provider.directoryStructure().rootDirectory() );
+    }
+
+    /* getPopulator */
+
+    @Test
+    public void getPopulatorMustCreateUniquePopulatorForTypeUnique() throws Exception
+    {
+        // when
+        IndexPopulator populator = provider.getPopulator( indexId, descriptorUnique(), samplingConfig() );
+
+        // then
+        assertTrue( "Expected populator to be unique populator", populator instanceof NativeUniqueSchemaNumberIndexPopulator );
+    }
+
+    @Test
+    public void getPopulatorMustCreateNonUniquePopulatorForTypeGeneral() throws Exception
+    {
+        // when
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor(), samplingConfig() );
+
+        // then
+        assertTrue( "Expected populator to be non-unique string populator",
+                populator instanceof NativeNonUniqueSchemaStringIndexPopulator );
+    }
+
+    /* getOnlineAccessor */
+
+    @Test
+    public void getOnlineAccessorMustCreateStringAccessor() throws Exception
+    {
+        // given
+        populate( descriptor() );
+
+        // when
+        try ( IndexAccessor accessor = provider.getOnlineAccessor( indexId, descriptor(), samplingConfig() ) )
+        {
+            // then
+            assertTrue( "Expected string accessor", accessor instanceof NativeSchemaStringIndexAccessor );
+        }
+    }
+
+    /* population */
+
+    @Test
+    public void populatedIndexMustAnswerAllTypesOfStringQueries() throws Exception
+    {
+        // given
+        IndexDescriptor descriptor = descriptor();
+        populate( descriptor,
+                add( 1, descriptor, Values.stringValue( "apa" ) ),
+                add( 2, descriptor, Values.stringValue( "apple" ) ),
+                add( 3, descriptor, Values.stringValue( "banana" ) ),
+                add( 4, descriptor, Values.stringValue( "bandana" ) ),
+                add( 5, descriptor, Values.stringValue( "" ) ),
+                add( 6, descriptor, Values.stringValue( "cherry" ) ),
+                add( 7, descriptor, Values.stringValue( "åsa" ) ),
+                add( 8, descriptor, Values.stringValue( "apple" ) ) );
+
+        // when
+        try ( IndexAccessor accessor = provider.getOnlineAccessor( indexId, descriptor, samplingConfig() );
+              IndexReader reader = accessor.newReader() )
+        {
+            // then
+            assertHits( reader, new long[]{2, 8}, IndexQuery.exact( propId, "apple" ) );
+            assertHits( reader, new long[]{5}, IndexQuery.exact( propId, "" ) );
+            assertHits( reader, new long[]{7}, IndexQuery.exact( propId, "åsa" ) );
+            assertHits( reader, new long[0], IndexQuery.exact( propId, "app" ) );
+            assertHits( reader, new long[]{2, 8}, IndexQuery.range( propId, "apple", true, "banana", false ) );
+            assertHits( reader, new long[]{3}, IndexQuery.range( propId, "apple", false, "banana", true ) );
+            assertHits( reader, new long[]{1, 2, 5, 8}, IndexQuery.range( propId, null, false, "b", false ) );
+            assertHits( reader, new long[]{3, 4, 6, 7}, IndexQuery.range( propId, "banana", true, null, false ) );
+            assertHits( reader, new long[]{3, 4}, IndexQuery.stringPrefix( propId, "ban" ) );
+            assertHits( reader, new long[]{1, 2, 8}, IndexQuery.stringPrefix( propId, "ap" ) );
+            assertHits( reader, new long[]{3, 4}, IndexQuery.stringContains( propId, "an" ) );
+            assertHits( reader, new long[]{2, 8}, IndexQuery.stringContains( propId, "pp" ) );
+            assertHits( reader, new long[]{7}, IndexQuery.stringContains( propId, "å" ) );
+            assertHits( reader, new long[]{3, 4}, IndexQuery.stringSuffix( propId, "ana" ) );
+            assertHits( reader, new long[]{1, 3, 4, 7}, IndexQuery.stringSuffix( propId, "a" ) );
+            assertHits( reader, new long[]{1, 2, 3, 4, 5, 6, 7, 8}, IndexQuery.exists( propId ) );
+        }
+    }
+
+    @Test
+    public void onlineUpdatesMustBeVisibleToQueries() throws Exception
+    {
+        // given
+        IndexDescriptor descriptor = descriptor();
+        populate( descriptor,
+                add( 1, descriptor, Values.stringValue( "apa" ) ),
+                add( 2, descriptor, Values.stringValue( "apple" ) ),
+                add( 3, descriptor, Values.stringValue( "banana" ) ),
+                add( 4, descriptor, Values.stringValue( "bandana" ) ) );
+
+        try ( IndexAccessor accessor = provider.getOnlineAccessor( indexId, descriptor, samplingConfig() ) )
+        {
+            // when
+            try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+            {
+                updater.process( change( 3, descriptor, Values.stringValue( "banana" ), Values.stringValue( "kiwi" ) ) );
+                updater.process( remove( 2, descriptor, Values.stringValue( "apple" ) ) );
+                updater.process( add( 5, descriptor, Values.stringValue( "apricot" ) ) );
+            }
+
+            // then
+            try ( IndexReader reader = accessor.newReader() )
+            {
+                assertHits( reader, new long[]{1, 5}, IndexQuery.stringPrefix( propId, "ap" ) );
+                assertHits( reader, new long[]{3}, IndexQuery.exact( propId, "kiwi" ) );
+                assertHits( reader, new long[0], IndexQuery.exact( propId, "banana" ) );
+                assertHits( reader, new long[]{4}, IndexQuery.stringContains( propId, "an" ) );
+                assertHits( reader, new long[]{1, 3, 4, 5}, IndexQuery.exists( propId ) );
+            }
+        }
+    }
+
+    @Test
+    public void compositeIndexMustMatchEqualNumbersOfDifferentTypes() throws Exception
+    {
+        // given
+        IndexDescriptor descriptor = descriptorComposite();
+        populate( descriptor,
+                add( 1, descriptor, Values.stringValue( "a" ), Values.longValue( 5 ) ),
+                add( 2, descriptor, Values.stringValue( "a" ), Values.doubleValue( 5.5 ) ),
+                add( 3, descriptor, Values.stringValue( "b" ), Values.longValue( 5 ) ) );
+
+        // when
+        try ( IndexAccessor accessor = provider.getOnlineAccessor( indexId, descriptor, samplingConfig() );
+              IndexReader reader = accessor.newReader() )
+        {
+            // then
+            assertHits( reader, new long[]{1},
+                    IndexQuery.exact( propId, "a" ), IndexQuery.exact( otherPropId, 5 ) );
+            assertHits( reader, new long[]{1},
+                    IndexQuery.exact( propId, "a" ), IndexQuery.exact( otherPropId, 5.0d ) );
+            assertHits( reader, new long[]{2},
+                    IndexQuery.exact( propId, "a" ), IndexQuery.exact( otherPropId, 5.5d ) );
+            assertHits( reader, new long[0],
+                    IndexQuery.exact( propId, "c" ), IndexQuery.exact( otherPropId, 5 ) );
+            assertHits( reader, new long[]{1, 2, 3},
+                    IndexQuery.exists( propId ), IndexQuery.exists( otherPropId ) );
+        }
+    }
+
+    @Test
+    public void nonUniquePopulatorMustSampleIncludedUpdates() throws Exception
+    {
+        // given
+        IndexDescriptor descriptor = descriptor();
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor, samplingConfig() );
+        populator.create();
+        List<IndexEntryUpdate<IndexDescriptor>> updates = Arrays.asList(
+                add( 1, descriptor, Values.stringValue( "apa" ) ),
+                add( 2, descriptor, Values.stringValue( "apple" ) ),
+                add( 3, descriptor, Values.stringValue( "apa" ) ) );
+        try
+        {
+            populator.add( updates );
+
+            // when
+            updates.forEach( populator::includeSample );
+            IndexSample sample = populator.sampleResult();
+
+            // then
+            assertEquals( 3, sample.indexSize() );
+            assertEquals( 2, sample.uniqueValues() );
+            assertEquals( 3, sample.sampleSize() );
+        }
+        finally
+        {
+            populator.close( true );
+        }
+    }
+
+    @Test
+    public void uniquePopulatorMustDetectDuplicateStrings() throws Exception
+    {
+        // given
+        IndexDescriptor descriptor = descriptorUnique();
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor, samplingConfig() );
+        populator.create();
+
+        // when
+        try
+        {
+            populator.add( Arrays.asList(
+                    add( 1, descriptor, Values.stringValue( "apa" ) ),
+                    add( 2, descriptor, Values.stringValue( "apa" ) ) ) );
+            fail( "Should have failed" );
+        }
+        catch ( Throwable e )
+        {
+            // then
+            assertTrue( Exceptions.contains( e, IndexEntryConflictException.class ) );
+        }
+        finally
+        {
+            populator.close( true );
+        }
+    }
+
+    @SafeVarargs
+    private final void populate( IndexDescriptor descriptor, IndexEntryUpdate<IndexDescriptor>... updates ) throws Exception
+    {
+        IndexPopulator populator = provider.getPopulator( indexId, descriptor, samplingConfig() );
+        populator.create();
+        populator.add( Arrays.asList( updates ) );
+        populator.close( true );
+    }
+
+    private static void assertHits( IndexReader reader, long[] expected, IndexQuery... predicates )
+            throws IndexNotApplicableKernelException
+    {
+        long[] actual = PrimitiveLongCollections.asArray( reader.query( predicates ) );
+        Arrays.sort( actual );
+        assertArrayEquals( Arrays.toString( predicates ), expected, actual );
+    }
+
+    private IndexSamplingConfig samplingConfig()
+    {
+        return new IndexSamplingConfig( Config.defaults() );
+    }
+
+    private IndexDescriptor descriptor()
+    {
+        return IndexDescriptorFactory.forLabel( labelId, propId );
+    }
+
+    private IndexDescriptor descriptorUnique()
+    {
+        return IndexDescriptorFactory.uniqueForLabel( labelId, propId );
+    }
+
+    private IndexDescriptor descriptorComposite()
+    {
+        return IndexDescriptorFactory.forLabel( labelId, propId, otherPropId );
+    }
+
+    private NativeSchemaStringIndexProvider newProvider()
+    {
+        return new NativeSchemaStringIndexProvider( pageCache(), fs(), directoriesByProvider( baseDir() ), logging, IMMEDIATE, false );
+    }
+
+    private PageCache pageCache()
+    {
+        return rules.pageCache();
+    }
+
+    private FileSystemAbstraction fs()
+    {
+        return rules.fileSystem();
+    }
+
+    private File baseDir()
+    {
+        return rules.directory().absolutePath();
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class NativeStringSelectorTest
+{
+    private static final int MAX_VALUE_BYTES = 20;
+    private static final int PROP_KEY = 1;
+    private static final int OTHER_PROP_KEY = 2;
+
+    private final Object nativeInstance = new Object();
+    private final Object luceneInstance = new Object();
+    private final NativeStringSelector selector = new NativeStringSelector( MAX_VALUE_BYTES );
+
+    /* values */
+
+    @Test
+    public void mustSelectNativeForStringsWhichFit() throws Exception
+    {
+        assertSame( nativeInstance, select( Values.stringValue( "" ) ) );
+        assertSame( nativeInstance, select( Values.stringValue( "apa" ) ) );
+        assertSame( nativeInstance, select( Values.stringValue( string( MAX_VALUE_BYTES ) ) ) );
+    }
+
+    @Test
+    public void mustSelectLuceneForStringsWhichDoNotFit() throws Exception
+    {
+        assertSame( luceneInstance, select( Values.stringValue( string( MAX_VALUE_BYTES + 1 ) ) ) );
+        // Each of these characters is two bytes in UTF-8
+        char[] chars = new char[MAX_VALUE_BYTES / 2 + 1];
+        Arrays.fill( chars, 'å' );
+        assertSame( luceneInstance, select( Values.stringValue( new String( chars ) ) ) );
+    }
+
+    @Test
+    public void mustSelectLuceneForSingleNonStringValues() throws Exception
+    {
+        assertSame( luceneInstance, select( Values.intValue( 1 ) ) );
+        assertSame( luceneInstance, select( Values.doubleValue( 1.5 ) ) );
+        assertSame( luceneInstance, select( Values.booleanValue( true ) ) );
+        assertSame( luceneInstance, select( Values.intArray( new int[]{1, 2} ) ) );
+    }
+
+    @Test
+    public void mustSelectNativeForCompositesOfStringsAndNumbersWhichFit() throws Exception
+    {
+        assertSame( nativeInstance, select( Values.stringValue( "a" ), Values.longValue( 1 ) ) );
+        assertSame( nativeInstance, select( Values.intValue( 1 ), Values.doubleValue( 2.5 ) ) );
+    }
+
+    @Test
+    public void mustSelectLuceneForCompositesWhichDoNotFitOrHaveOtherTypes() throws Exception
+    {
+        assertSame( luceneInstance,
+                select( Values.stringValue( string( MAX_VALUE_BYTES ) ), Values.longValue( 1 ) ) );
+        assertSame( luceneInstance, select( Values.stringValue( "a" ), Values.booleanValue( true ) ) );
+    }
+
+    /* queries */
+
+    @Test
+    public void mustSelectByValueForExactPredicate() throws Exception
+    {
+        assertSame( nativeInstance, select( IndexQuery.exact( PROP_KEY, "apa" ) ) );
+        assertSame( luceneInstance, select( IndexQuery.exact( PROP_KEY, string( MAX_VALUE_BYTES + 1 ) ) ) );
+        assertSame( luceneInstance, select( IndexQuery.exact( PROP_KEY, 1 ) ) );
+    }
+
+    @Test
+    public void mustSelectBothForStringPredicatesWhichMayMatchStringsInLucene() throws Exception
+    {
+        assertNull( select( IndexQuery.range( PROP_KEY, "a", true, "b", false ) ) );
+        assertNull( select( IndexQuery.stringPrefix( PROP_KEY, "a" ) ) );
+        assertNull( select( IndexQuery.stringContains( PROP_KEY, "a" ) ) );
+        assertNull( select( IndexQuery.stringSuffix( PROP_KEY, "a" ) ) );
+        assertNull( select( IndexQuery.exists( PROP_KEY ) ) );
+    }
+
+    @Test
+    public void mustSelectLuceneForNumberRangePredicate() throws Exception
+    {
+        assertSame( luceneInstance, select( IndexQuery.range( PROP_KEY, 0, true, 10, false ) ) );
+    }
+
+    @Test
+    public void mustSelectByValuesForCompositeExactPredicate() throws Exception
+    {
+        assertSame( nativeInstance, select( IndexQuery.exact( PROP_KEY, "a" ), IndexQuery.exact( OTHER_PROP_KEY, 1 ) ) );
+        assertSame( luceneInstance,
+                select( IndexQuery.exact( PROP_KEY, "a" ), IndexQuery.exact( OTHER_PROP_KEY, true ) ) );
+    }
+
+    @Test
+    public void mustSelectBothForCompositeExistsPredicate() throws Exception
+    {
+        assertNull( select( IndexQuery.exists( PROP_KEY ), IndexQuery.exists( OTHER_PROP_KEY ) ) );
+    }
+
+    @Test
+    public void mustSelectLuceneForOtherCompositePredicates() throws Exception
+    {
+        assertSame( luceneInstance, select( IndexQuery.exact( PROP_KEY, "a" ), IndexQuery.exists( OTHER_PROP_KEY ) ) );
+        assertSame( luceneInstance,
+                select( IndexQuery.exact( PROP_KEY, "a" ), IndexQuery.stringPrefix( OTHER_PROP_KEY, "b" ) ) );
+    }
+
+    private Object select( Value... values )
+    {
+        return selector.select( nativeInstance, luceneInstance, values );
+    }
+
+    private Object select( IndexQuery... predicates )
+    {
+        return selector.select( nativeInstance, luceneInstance, predicates );
+    }
+
+    private static String string( int length )
+    {
+        char[] chars = new char[length];
+        Arrays.fill( chars, 'a' );
+        return new String( chars );
+    }
+}
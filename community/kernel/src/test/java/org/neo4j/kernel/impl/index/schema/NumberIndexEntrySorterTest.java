@@ -0,0 +1,325 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeMap;
+
+import org.neo4j.cursor.RawCursor;
+import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
+import org.neo4j.index.internal.gbptree.Hit;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.schema.index.IndexDescriptor;
+import org.neo4j.kernel.api.schema.index.IndexDescriptorFactory;
+import org.neo4j.test.rule.RandomRule;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.rules.RuleChain.outerRule;
+
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.add;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.change;
+import static org.neo4j.kernel.api.index.IndexEntryUpdate.remove;
+
+public class NumberIndexEntrySorterTest
+{
+    private final DefaultFileSystemRule fs = new DefaultFileSystemRule();
+    private final TestDirectory directory = TestDirectory.testDirectory( getClass(), fs.get() );
+    private final RandomRule random = new RandomRule();
+
+    @Rule
+    public final RuleChain rules = outerRule( fs ).around( directory ).around( random );
+
+    private final IndexDescriptor descriptor = IndexDescriptorFactory.forLabel( 42, 666 );
+    private final NonUniqueNumberLayout layout = new NonUniqueNumberLayout();
+    private File storeFile;
+
+    @Before
+    public void setUp()
+    {
+        storeFile = directory.file( "index" );
+    }
+
+    @Test
+    public void shouldProvideNoEntriesIfNoUpdates() throws Exception
+    {
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( 10, 2 );
+              RawCursor<Hit<SchemaNumberKey,SchemaNumberValue>,IOException> entries = sorter.sortedEntries() )
+        {
+            assertFalse( entries.next() );
+        }
+    }
+
+    @Test
+    public void shouldProvideAddedEntriesInOrder() throws Exception
+    {
+        // given
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( 100, 4 ) )
+        {
+            TreeMap<SchemaNumberKey,SchemaNumberKey> expected = new TreeMap<>( layout );
+            List<IndexEntryUpdate<IndexDescriptor>> updates = new ArrayList<>();
+            for ( long entityId = 0; entityId < 1_000; entityId++ )
+            {
+                IndexEntryUpdate<IndexDescriptor> update = add( entityId, descriptor, Values.of( random.nextInt( 100 ) ) );
+                updates.add( update );
+                expectAdd( expected, update.getEntityId(), update.values() );
+            }
+            Collections.shuffle( updates, random.random() );
+
+            // when
+            sorter.addAll( updates );
+
+            // then
+            assertEntries( expected, sorter );
+        }
+    }
+
+    @Test
+    public void shouldLetLastUpdateOfKeyWin() throws Exception
+    {
+        // given
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( 3, 2 ) )
+        {
+            // when
+            sorter.addAll( Collections.singletonList( add( 1, descriptor, Values.of( 10 ) ) ) );
+            sorter.addAll( Collections.singletonList( add( 2, descriptor, Values.of( 20 ) ) ) );
+            sorter.addAll( Collections.singletonList( add( 3, descriptor, Values.of( 30 ) ) ) );
+            sorter.addAll( Collections.singletonList( remove( 1, descriptor, Values.of( 10 ) ) ) );
+            sorter.addAll( Collections.singletonList( change( 2, descriptor, Values.of( 20 ), Values.of( 25 ) ) ) );
+            sorter.addAll( Collections.singletonList( remove( 3, descriptor, Values.of( 30 ) ) ) );
+            sorter.addAll( Collections.singletonList( add( 3, descriptor, Values.of( 30 ) ) ) );
+
+            // then
+            TreeMap<SchemaNumberKey,SchemaNumberKey> expected = new TreeMap<>( layout );
+            expectAdd( expected, 2, Values.of( 25 ) );
+            expectAdd( expected, 3, Values.of( 30 ) );
+            assertEntries( expected, sorter );
+        }
+    }
+
+    @Test
+    public void shouldApplyRandomUpdatesAcrossManyRuns() throws Exception
+    {
+        // given
+        int batchSize = random.nextInt( 1, 50 );
+        int mergeFactor = random.nextInt( 2, 5 );
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( batchSize, mergeFactor ) )
+        {
+            TreeMap<SchemaNumberKey,SchemaNumberKey> expected = new TreeMap<>( layout );
+            Value[] currentValues = new Value[100];
+            for ( int i = 0; i < 5_000; i++ )
+            {
+                int entityId = random.nextInt( currentValues.length );
+                Value value = Values.of( random.nextInt( 50 ) );
+                Value current = currentValues[entityId];
+                IndexEntryUpdate<IndexDescriptor> update;
+                if ( current == null )
+                {
+                    update = add( entityId, descriptor, value );
+                    expectAdd( expected, entityId, value );
+                    currentValues[entityId] = value;
+                }
+                else if ( random.nextBoolean() )
+                {
+                    update = change( entityId, descriptor, current, value );
+                    expectRemove( expected, entityId, current );
+                    expectAdd( expected, entityId, value );
+                    currentValues[entityId] = value;
+                }
+                else
+                {
+                    update = remove( entityId, descriptor, current );
+                    expectRemove( expected, entityId, current );
+                    currentValues[entityId] = null;
+                }
+
+                // when
+                sorter.addAll( Collections.singletonList( update ) );
+            }
+
+            // then
+            assertEntries( expected, sorter );
+        }
+    }
+
+    @Test
+    public void shouldDeleteRunFilesOnClose() throws Exception
+    {
+        // given
+        NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( 10, 2 );
+        List<IndexEntryUpdate<IndexDescriptor>> updates = new ArrayList<>();
+        for ( long entityId = 0; entityId < 100; entityId++ )
+        {
+            updates.add( add( entityId, descriptor, Values.of( entityId ) ) );
+        }
+        sorter.addAll( updates );
+        assertTrue( runFiles().length > 0 );
+
+        // when
+        sorter.close();
+
+        // then
+        assertArrayEquals( new File[0], runFiles() );
+    }
+
+    @Test
+    public void shouldSortUpdatesSpanningSeveralFullSizeBatches() throws Exception
+    {
+        // given the batch size which the populator uses by default
+        int batchSize = 1 << 20;
+        long entityCount = batchSize * 2L + 1_000;
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter = newSorter( batchSize, 2 ) )
+        {
+            // when
+            List<IndexEntryUpdate<IndexDescriptor>> updates = new ArrayList<>();
+            for ( long entityId = entityCount - 1; entityId >= 0; entityId-- )
+            {
+                updates.add( add( entityId, descriptor, Values.of( entityId ) ) );
+                if ( updates.size() == 10_000 )
+                {
+                    sorter.addAll( updates );
+                    updates.clear();
+                }
+            }
+            // removals of entries which were spilled to the oldest run
+            for ( long entityId = entityCount - 1; entityId >= entityCount - batchSize; entityId -= 3 )
+            {
+                updates.add( remove( entityId, descriptor, Values.of( entityId ) ) );
+            }
+            sorter.addAll( updates );
+
+            // then
+            try ( RawCursor<Hit<SchemaNumberKey,SchemaNumberValue>,IOException> entries = sorter.sortedEntries() )
+            {
+                for ( long entityId = 0; entityId < entityCount; entityId++ )
+                {
+                    if ( entityId >= entityCount - batchSize && (entityCount - 1 - entityId) % 3 == 0 )
+                    {
+                        continue;
+                    }
+                    assertTrue( entries.next() );
+                    assertEquals( entityId, entries.get().key().entityId );
+                }
+                assertFalse( entries.next() );
+            }
+        }
+        assertArrayEquals( new File[0], runFiles() );
+    }
+
+    @Test
+    public void shouldDeleteRunFileOfFailedSpill() throws Exception
+    {
+        // given
+        DelegatingFileSystemAbstraction failingFs = new DelegatingFileSystemAbstraction( fs.get() )
+        {
+            @Override
+            public OutputStream openAsOutputStream( File fileName, boolean append ) throws IOException
+            {
+                return new FilterOutputStream( super.openAsOutputStream( fileName, append ) )
+                {
+                    @Override
+                    public void write( byte[] b, int off, int len ) throws IOException
+                    {
+                        throw new IOException( "Simulated failure writing " + fileName );
+                    }
+                };
+            }
+        };
+        try ( NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter =
+                new NumberIndexEntrySorter<>( failingFs, storeFile, layout, 10, 2 ) )
+        {
+            List<IndexEntryUpdate<IndexDescriptor>> updates = new ArrayList<>();
+            for ( long entityId = 0; entityId < 11; entityId++ )
+            {
+                updates.add( add( entityId, descriptor, Values.of( entityId ) ) );
+            }
+
+            // when
+            try
+            {
+                sorter.addAll( updates );
+                fail( "Should have failed" );
+            }
+            catch ( IOException e )
+            {
+                // then
+                assertArrayEquals( new File[0], runFiles() );
+            }
+        }
+    }
+
+    private NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> newSorter( int batchSize, int mergeFactor )
+    {
+        return new NumberIndexEntrySorter<>( fs.get(), storeFile, layout, batchSize, mergeFactor );
+    }
+
+    private File[] runFiles()
+    {
+        return fs.get().listFiles( directory.directory(), ( dir, name ) -> name.startsWith( storeFile.getName() + ".sort-" ) );
+    }
+
+    private void expectAdd( TreeMap<SchemaNumberKey,SchemaNumberKey> expected, long entityId, Value... values )
+    {
+        SchemaNumberKey key = layout.newKey();
+        key.from( entityId, values );
+        expected.put( key, key );
+    }
+
+    private void expectRemove( TreeMap<SchemaNumberKey,SchemaNumberKey> expected, long entityId, Value... values )
+    {
+        SchemaNumberKey key = layout.newKey();
+        key.from( entityId, values );
+        expected.remove( key );
+    }
+
+    private void assertEntries( TreeMap<SchemaNumberKey,SchemaNumberKey> expected,
+            NumberIndexEntrySorter<SchemaNumberKey,SchemaNumberValue> sorter ) throws IOException
+    {
+        try ( RawCursor<Hit<SchemaNumberKey,SchemaNumberValue>,IOException> entries = sorter.sortedEntries() )
+        {
+            for ( SchemaNumberKey expectedKey : expected.keySet() )
+            {
+                assertTrue( entries.next() );
+                SchemaNumberKey key = entries.get().key();
+                assertEquals( expectedKey.entityId, key.entityId );
+                assertEquals( 0, layout.compare( expectedKey, key ) );
+            }
+            assertFalse( entries.next() );
+        }
+    }
+}
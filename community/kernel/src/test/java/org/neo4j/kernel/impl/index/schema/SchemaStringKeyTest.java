@@ -0,0 +1,165 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.kernel.api.schema.IndexQuery;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class SchemaStringKeyTest
+{
+    private final NonUniqueStringLayout layout = new NonUniqueStringLayout();
+
+    @Test
+    public void shouldOrderStringsLikeTheirUtf8Bytes()
+    {
+        // given
+        List<String> strings = Arrays.asList( "", "a", "ab", "b", "å", "中", "😀" );
+
+        // then
+        for ( int i = 0; i < strings.size(); i++ )
+        {
+            for ( int j = 0; j < strings.size(); j++ )
+            {
+                SchemaStringKey first = key( 0, Values.stringValue( strings.get( i ) ) );
+                SchemaStringKey second = key( 0, Values.stringValue( strings.get( j ) ) );
+                assertEquals( strings.get( i ) + " vs " + strings.get( j ),
+                        Integer.signum( Integer.compare( i, j ) ), Integer.signum( first.compareValueTo( second ) ) );
+            }
+        }
+    }
+
+    @Test
+    public void shouldCalculateEncodedSize()
+    {
+        for ( String string : Arrays.asList( "", "abc", "åäö", "中", "😀", "\ud83d", "a\ude00b" ) )
+        {
+            // when
+            SchemaStringKey key = key( 0, Values.stringValue( string ) );
+
+            // then
+            assertEquals( string.getBytes( UTF_8 ).length, key.bytesLength );
+            assertEquals( key.bytesLength, SchemaStringKey.encodedSize( Values.stringValue( string ) ) );
+        }
+
+        Value[] composite = {Values.stringValue( "å" ), Values.of( 1.5 ), Values.of( 10 )};
+        assertEquals( key( 0, composite ).bytesLength, SchemaStringKey.encodedSize( composite ) );
+    }
+
+    @Test
+    public void shouldNotSupportNonStringValues()
+    {
+        assertEquals( -1, SchemaStringKey.encodedSize( Values.of( 1 ) ) );
+        assertEquals( -1, SchemaStringKey.encodedSize( Values.of( true ), Values.stringValue( "a" ) ) );
+        assertEquals( -1, SchemaStringKey.encodedSize( Values.of( new int[]{1} ), Values.of( 1 ) ) );
+    }
+
+    @Test
+    public void shouldEncodeEqualNumbersOfDifferentTypesEquallyInComposites()
+    {
+        // given
+        SchemaStringKey intKey = key( 0, Values.stringValue( "a" ), Values.of( 5 ) );
+        SchemaStringKey doubleKey = key( 0, Values.stringValue( "a" ), Values.of( 5.0 ) );
+        SchemaStringKey floatKey = key( 0, Values.stringValue( "a" ), Values.of( 5.0f ) );
+        SchemaStringKey otherKey = key( 0, Values.stringValue( "a" ), Values.of( 5.5 ) );
+        SchemaStringKey negativeZeroKey = key( 0, Values.stringValue( "a" ), Values.of( -0.0 ) );
+        SchemaStringKey zeroKey = key( 0, Values.stringValue( "a" ), Values.of( 0L ) );
+
+        // then
+        assertEquals( 0, layout.compare( intKey, doubleKey ) );
+        assertEquals( 0, layout.compare( intKey, floatKey ) );
+        assertEquals( 0, layout.compare( zeroKey, negativeZeroKey ) );
+        assertTrue( layout.compare( intKey, otherKey ) != 0 );
+    }
+
+    @Test
+    public void shouldFindPrefixesContainsAndSuffixes()
+    {
+        // given
+        SchemaStringKey key = key( 0, Values.stringValue( "abåc" ) );
+        SchemaStringKey prefixLow = layout.newKey();
+        SchemaStringKey prefixHigh = layout.newKey();
+        prefixLow.initAsPrefixLow( "ab" );
+        prefixHigh.initAsPrefixHigh( "ab" );
+
+        // then
+        assertTrue( layout.compare( prefixLow, key ) < 0 );
+        assertTrue( layout.compare( key, prefixHigh ) < 0 );
+        assertTrue( key.valueContains( "bå".getBytes( UTF_8 ) ) );
+        assertFalse( key.valueContains( "ba".getBytes( UTF_8 ) ) );
+        assertTrue( key.valueEndsWith( "åc".getBytes( UTF_8 ) ) );
+        assertFalse( key.valueEndsWith( "ab".getBytes( UTF_8 ) ) );
+    }
+
+    @Test
+    public void shouldPlaceAllKeysBetweenLowestAndHighest()
+    {
+        // given
+        SchemaStringKey lowest = layout.newKey();
+        SchemaStringKey highest = layout.newKey();
+        lowest.initAsLowest();
+        highest.initAsHighest();
+
+        // then
+        for ( Value[] values : Arrays.asList( new Value[]{Values.stringValue( "" )}, new Value[]{Values.stringValue( "￿" )},
+                new Value[]{Values.stringValue( "😀" )}, new Value[]{Values.of( 1 ), Values.stringValue( "a" )} ) )
+        {
+            SchemaStringKey key = key( 10, values );
+            assertTrue( layout.compare( lowest, key ) < 0 );
+            assertTrue( layout.compare( key, highest ) < 0 );
+        }
+    }
+
+    @Test
+    public void selectorShouldSelectNativeForStringsWhichFit()
+    {
+        // given
+        NativeStringSelector selector = new NativeStringSelector( 20 );
+
+        // then
+        assertSame( "native", selector.select( "native", "lucene", Values.stringValue( "abc" ) ) );
+        assertSame( "native", selector.select( "native", "lucene", Values.stringValue( "abc" ), Values.of( 1 ) ) );
+        assertSame( "lucene", selector.select( "native", "lucene", Values.stringValue( "abcdefghijklmnopqrstu" ) ) );
+        assertSame( "lucene", selector.select( "native", "lucene", Values.of( 1 ) ) );
+        assertSame( "native", selector.select( "native", "lucene", IndexQuery.exact( 1, "abc" ) ) );
+        assertSame( "lucene", selector.select( "native", "lucene", IndexQuery.range( 1, 0, true, 1, true ) ) );
+        assertNull( selector.select( "native", "lucene", IndexQuery.stringPrefix( 1, "abc" ) ) );
+        assertNull( selector.select( "native", "lucene", IndexQuery.exists( 1 ) ) );
+    }
+
+    private SchemaStringKey key( long entityId, Value... values )
+    {
+        SchemaStringKey key = layout.newKey();
+        key.from( entityId, values );
+        return key;
+    }
+}
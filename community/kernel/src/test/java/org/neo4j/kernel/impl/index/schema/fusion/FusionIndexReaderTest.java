@@ -33,16 +33,24 @@ import org.neo4j.kernel.api.schema.IndexQuery.StringContainsPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringPrefixPredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringRangePredicate;
 import org.neo4j.kernel.api.schema.IndexQuery.StringSuffixPredicate;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.impl.index.schema.NativeSelector;
+import org.neo4j.kernel.impl.index.schema.NativeStringSelector;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
 import org.neo4j.storageengine.api.schema.IndexReader;
 import org.neo4j.values.storable.Value;
 
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class FusionIndexReaderTest
@@ -73,6 +81,26 @@ public class FusionIndexReaderTest
         verify( luceneReader, times( 1 ) ).close();
     }
 
+    /* histogram */
+
+    @Test
+    public void histogramMustComeFromWhicheverReaderProvidesOne() throws Exception
+    {
+        // given
+        IndexHistogram histogram = IndexHistogram.equiDepth( new double[]{1, 2}, new long[]{1, 1}, 2, 2 );
+
+        // when/then
+        when( nativeReader.histogram() ).thenReturn( histogram );
+        assertSame( histogram, fusionIndexReader.histogram() );
+
+        when( nativeReader.histogram() ).thenReturn( null );
+        when( luceneReader.histogram() ).thenReturn( histogram );
+        assertSame( histogram, fusionIndexReader.histogram() );
+
+        when( luceneReader.histogram() ).thenReturn( null );
+        assertNull( fusionIndexReader.histogram() );
+    }
+
     /* countIndexedNodes */
 
     @Test
@@ -214,6 +242,65 @@ public class FusionIndexReaderTest
         }
     }
 
+    /* query with string selector */
+
+    @Test
+    public void mustSelectNativeStringReaderForExactPredicateWithStringWhichFits() throws Exception
+    {
+        // given
+        FusionIndexReader stringFusionReader = new FusionIndexReader( nativeReader, luceneReader, new NativeStringSelector( 10 ) );
+        IndexQuery exact = IndexQuery.exact( PROP_KEY, "abc" );
+
+        // when
+        stringFusionReader.query( exact );
+
+        // then
+        verify( nativeReader, times( 1 ) ).query( exact );
+        verifyZeroInteractions( luceneReader );
+    }
+
+    @Test
+    public void mustSelectLuceneForExactPredicateWithStringWhichDoesNotFitInNativeStringIndex() throws Exception
+    {
+        // given
+        FusionIndexReader stringFusionReader = new FusionIndexReader( nativeReader, luceneReader, new NativeStringSelector( 10 ) );
+        IndexQuery exact = IndexQuery.exact( PROP_KEY, "abcdefghijk" );
+
+        // when
+        stringFusionReader.query( exact );
+
+        // then
+        verify( luceneReader, times( 1 ) ).query( exact );
+        verifyZeroInteractions( nativeReader );
+    }
+
+    @Test
+    public void mustConcatenateResultsFromBothReadersForStringPredicatesWithStringSelector() throws Exception
+    {
+        // given
+        FusionIndexReader stringFusionReader = new FusionIndexReader( nativeReader, luceneReader, new NativeStringSelector( 10 ) );
+        IndexQuery[] predicates = {
+                IndexQuery.range( PROP_KEY, "abc", true, "def", false ),
+                IndexQuery.stringPrefix( PROP_KEY, "abc" ),
+                IndexQuery.stringContains( PROP_KEY, "abc" ),
+                IndexQuery.stringSuffix( PROP_KEY, "abc" ),
+                IndexQuery.exists( PROP_KEY )};
+        for ( IndexQuery predicate : predicates )
+        {
+            when( nativeReader.query( predicate ) ).thenReturn( Primitive.iterator( 1L, 3L ) );
+            when( luceneReader.query( predicate ) ).thenReturn( Primitive.iterator( 2L ) );
+
+            // when
+            PrimitiveLongIterator result = stringFusionReader.query( predicate );
+
+            // then
+            assertArrayEquals( predicate.toString(), new long[]{1L, 3L, 2L}, PrimitiveLongCollections.asArray( result ) );
+            assertFalse( stringFusionReader.supportsOrder( IndexOrder.ASCENDING, predicate ) );
+            assertFalse( stringFusionReader.providesValues( predicate ) );
+            assertFalse( stringFusionReader.hasFullNumberPrecision( predicate ) );
+        }
+    }
+
     private void verifyQueryWithCorrectReader( IndexReader expectedReader, IndexReader unexpectedReader, IndexQuery... indexQuery )
             throws IndexNotApplicableKernelException
     {
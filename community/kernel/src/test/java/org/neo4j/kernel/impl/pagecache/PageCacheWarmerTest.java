@@ -0,0 +1,172 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.pagecache;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.kernel.impl.util.Neo4jJobScheduler;
+import org.neo4j.logging.NullLog;
+import org.neo4j.test.rule.PageCacheRule;
+import org.neo4j.test.rule.fs.EphemeralFileSystemRule;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_READ_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_WRITE_LOCK;
+import static org.neo4j.test.rule.PageCacheRule.config;
+
+public class PageCacheWarmerTest
+{
+    private final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    private final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    @Rule
+    public final RuleChain rules = RuleChain.outerRule( fsRule ).around( pageCacheRule );
+
+    private final File storeDir = new File( "store" ).getAbsoluteFile();
+    private final File file = new File( storeDir, "a" );
+    private final PageCacheWarmerMonitor monitor = mock( PageCacheWarmerMonitor.class );
+    private Neo4jJobScheduler scheduler;
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private PageCacheWarmer warmer;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        fs = fsRule.get();
+        fs.mkdirs( storeDir );
+        scheduler = new Neo4jJobScheduler();
+        scheduler.init();
+        pageCache = pageCacheRule.getPageCache( fs, config().withInconsistentReads( false ) );
+        warmer = new PageCacheWarmer( fs, pageCache, scheduler, monitor, NullLog.getInstance(), 1000 );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize(), CREATE );
+              PageCursor cursor = pf.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < 10; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+    }
+
+    @After
+    public void tearDown()
+    {
+        scheduler.shutdown();
+    }
+
+    @Test
+    public void mustNotProfilePagesThatAreNotInMemory() throws Exception
+    {
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.profile(), is( 0L ) );
+        }
+        assertTrue( fs.fileExists( new File( storeDir, "a" + PageCacheWarmer.SUFFIX_CACHEPROF ) ) );
+    }
+
+    @Test
+    public void mustReheatProfiledPages() throws Exception
+    {
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touchPages( pf, 2, 3, 7 );
+            assertThat( warmer.profile(), is( 3L ) );
+        }
+
+        // Remapping the file gives us a cold start, as far as this file is concerned.
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat(), is( 3L ) );
+            assertThat( warmer.profile(), is( 3L ) );
+        }
+        verify( monitor ).warmupStarted( 1 );
+        verify( monitor ).fileWarmedUp( pageCacheFile(), 3L );
+    }
+
+    @Test
+    public void mustIgnoreProfiledPagesBeyondTheEndOfTheFile() throws Exception
+    {
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            touchPages( pf, 1, 9 );
+            assertThat( warmer.profile(), is( 2L ) );
+        }
+
+        // Replace the file with a shorter one, so that page 9 in the profile no longer exists.
+        fs.deleteFileOrThrow( file );
+        try ( PagedFile pf = pageCache.map( file, pageCache.pageSize(), CREATE );
+              PageCursor cursor = pf.io( 0, PF_SHARED_WRITE_LOCK ) )
+        {
+            for ( int i = 0; i < 5; i++ )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat(), is( 1L ) );
+        }
+    }
+
+    @Test
+    public void mustNotReheatFilesWithoutProfiles() throws Exception
+    {
+        try ( PagedFile ignore = pageCache.map( file, pageCache.pageSize() ) )
+        {
+            assertThat( warmer.reheat(), is( 0L ) );
+            assertFalse( fs.fileExists( new File( storeDir, "a" + PageCacheWarmer.SUFFIX_CACHEPROF ) ) );
+        }
+    }
+
+    private File pageCacheFile() throws IOException
+    {
+        return file.getCanonicalFile();
+    }
+
+    private static void touchPages( PagedFile pf, long... pageIds ) throws IOException
+    {
+        try ( PageCursor cursor = pf.io( 0, PF_SHARED_READ_LOCK ) )
+        {
+            for ( long pageId : pageIds )
+            {
+                assertTrue( cursor.next( pageId ) );
+            }
+        }
+    }
+}
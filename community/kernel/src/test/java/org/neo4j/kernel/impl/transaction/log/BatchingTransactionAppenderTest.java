@@ -27,15 +27,20 @@ import java.io.Flushable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
+import org.neo4j.io.ByteUnit;
 import org.neo4j.kernel.impl.api.TransactionToApply;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntry;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCommit;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryCompressedCommands;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReader;
 import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryVersion;
 import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
 import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
 import org.neo4j.kernel.impl.transaction.tracing.LogAppendEvent;
@@ -46,12 +51,16 @@ import org.neo4j.storageengine.api.StorageCommand;
 import org.neo4j.test.rule.CleanupRule;
 
 import static org.hamcrest.CoreMatchers.containsString;
+import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyByte;
 import static org.mockito.Matchers.anyInt;
 import static org.mockito.Matchers.anyLong;
@@ -115,6 +124,52 @@ public class BatchingTransactionAppenderTest
         }
     }
 
+    @Test
+    public void shouldAppendTransactionWithCompressedCommands() throws Exception
+    {
+        // GIVEN
+        when( logFile.getWriter() ).thenReturn( channel );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 15L );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, true ) );
+        Collection<StorageCommand> commands = new ArrayList<>();
+        for ( int i = 0; i < 30; i++ )
+        {
+            commands.addAll( singleCreateNodeCommand( i ) );
+        }
+        TransactionRepresentation transaction = transaction( commands, new byte[0], 0, 0, 0, 1, 0 );
+
+        // WHEN
+        appender.append( new TransactionToApply( transaction ), logAppendEvent );
+
+        // THEN the commands are written in a single entry, the only one of a version earlier versions can't read
+        LogEntryReader<ReadableLogChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        LogEntry start = logEntryReader.readLogEntry( channel );
+        assertThat( start, instanceOf( LogEntryStart.class ) );
+        assertEquals( LogEntryVersion.CURRENT, start.getVersion() );
+        LogEntry compressedCommands = logEntryReader.readLogEntry( channel );
+        assertThat( compressedCommands, instanceOf( LogEntryCompressedCommands.class ) );
+        assertEquals( LogEntryVersion.COMPRESSED_COMMANDS, compressedCommands.getVersion() );
+        LogEntry commit = logEntryReader.readLogEntry( channel );
+        assertThat( commit, instanceOf( LogEntryCommit.class ) );
+        assertEquals( LogEntryVersion.CURRENT, commit.getVersion() );
+
+        // and are read as individual commands
+        channel.positionReader( 0 );
+        try ( PhysicalTransactionCursor<ReadableLogChannel> reader =
+                      new PhysicalTransactionCursor<>( channel, logEntryReader ) )
+        {
+            assertTrue( reader.next() );
+            List<StorageCommand> readCommands = new ArrayList<>();
+            reader.get().getTransactionRepresentation().accept( command ->
+            {
+                readCommands.add( command );
+                return false;
+            } );
+            assertEquals( commands, readCommands );
+        }
+    }
+
     @Test
     public void shouldAppendBatchOfTransactions() throws Exception
     {
@@ -141,6 +196,97 @@ public class BatchingTransactionAppenderTest
         assertNull( tx.next() );
     }
 
+    @Test
+    public void shouldAppendBatchWithTransactionTooBigToSerializeBeforeAppending() throws Exception
+    {
+        // GIVEN
+        InMemoryClosableChannel bigChannel = new InMemoryClosableChannel( (int) ByteUnit.mebiBytes( 8 ) );
+        when( logFile.getWriter() ).thenReturn( bigChannel );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth ) );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L, 4L );
+        Collection<StorageCommand> manyCommands = new ArrayList<>();
+        for ( int i = 0; i < 50_000; i++ )
+        {
+            manyCommands.addAll( singleCreateNodeCommand( i ) );
+        }
+        TransactionToApply batch = batchOf(
+                transaction( singleCreateNodeCommand( 0 ), new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( manyCommands, new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( singleCreateNodeCommand( 2 ), new byte[0], 0, 0, 0, 1, 0 ) );
+
+        // WHEN
+        appender.append( batch, logAppendEvent );
+
+        // THEN all transactions are appended, in order
+        LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        try ( PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> reader =
+                      new PhysicalTransactionCursor<>( bigChannel, logEntryReader ) )
+        {
+            for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+            {
+                assertTrue( reader.next() );
+                assertEquals( tx.transactionId(), reader.get().getCommitEntry().getTxId() );
+                assertEquals( commandsOf( tx.transactionRepresentation() ),
+                        commandsOf( reader.get().getTransactionRepresentation() ) );
+            }
+            assertFalse( reader.next() );
+        }
+    }
+
+    @Test
+    public void shouldCompressTransactionTooBigToSerializeBeforeAppending() throws Exception
+    {
+        // GIVEN
+        InMemoryClosableChannel bigChannel = new InMemoryClosableChannel( (int) ByteUnit.mebiBytes( 8 ) );
+        when( logFile.getWriter() ).thenReturn( bigChannel );
+        TransactionAppender appender = life.add( new BatchingTransactionAppender( logFile, NO_ROTATION, positionCache,
+                transactionIdStore, BYPASS, databaseHealth, true ) );
+        when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( 2L, 3L, 4L );
+        Collection<StorageCommand> fewCommands = new ArrayList<>();
+        for ( int i = 0; i < 30; i++ )
+        {
+            fewCommands.addAll( singleCreateNodeCommand( i ) );
+        }
+        Collection<StorageCommand> manyCommands = new ArrayList<>();
+        for ( int i = 0; i < 50_000; i++ )
+        {
+            manyCommands.addAll( singleCreateNodeCommand( i ) );
+        }
+        TransactionToApply batch = batchOf(
+                transaction( fewCommands, new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( manyCommands, new byte[0], 0, 0, 0, 1, 0 ),
+                transaction( fewCommands, new byte[0], 0, 0, 0, 1, 0 ) );
+
+        // WHEN
+        appender.append( batch, logAppendEvent );
+
+        // THEN the commands of all transactions are compressed, also those of the big one and the one after it
+        LogEntryReader<ReadableClosablePositionAwareChannel> logEntryReader = new VersionAwareLogEntryReader<>();
+        for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+        {
+            assertThat( logEntryReader.readLogEntry( bigChannel ), instanceOf( LogEntryStart.class ) );
+            assertThat( logEntryReader.readLogEntry( bigChannel ), instanceOf( LogEntryCompressedCommands.class ) );
+            assertThat( logEntryReader.readLogEntry( bigChannel ), instanceOf( LogEntryCommit.class ) );
+        }
+        assertTrue( bigChannel.writerPosition() < ByteUnit.mebiBytes( 1 ) );
+
+        // and are read as they were written, in order
+        bigChannel.positionReader( 0 );
+        try ( PhysicalTransactionCursor<ReadableClosablePositionAwareChannel> reader =
+                      new PhysicalTransactionCursor<>( bigChannel, logEntryReader ) )
+        {
+            for ( TransactionToApply tx = batch; tx != null; tx = tx.next() )
+            {
+                assertTrue( reader.next() );
+                assertEquals( tx.transactionId(), reader.get().getCommitEntry().getTxId() );
+                assertEquals( commandsOf( tx.transactionRepresentation() ),
+                        commandsOf( reader.get().getTransactionRepresentation() ) );
+            }
+            assertFalse( reader.next() );
+        }
+    }
+
     @Test
     public void shouldAppendCommittedTransactions() throws Exception
     {
@@ -237,7 +383,7 @@ public class BatchingTransactionAppenderTest
         String failureMessage = "Forces a failure";
         FlushablePositionAwareChannel channel = spy( new InMemoryClosableChannel() );
         IOException failure = new IOException( failureMessage );
-        when( channel.putInt( anyInt() ) ).thenThrow( failure );
+        when( channel.put( any( byte[].class ), anyInt() ) ).thenThrow( failure );
         when( logFile.getWriter() ).thenReturn( channel );
         when( transactionIdStore.nextCommittingTransactionId() ).thenReturn( txId );
         Mockito.reset( databaseHealth );
@@ -397,6 +543,17 @@ public class BatchingTransactionAppenderTest
         return commands;
     }
 
+    private List<StorageCommand> commandsOf( TransactionRepresentation transaction ) throws IOException
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        transaction.accept( command ->
+        {
+            commands.add( command );
+            return false;
+        } );
+        return commands;
+    }
+
     private TransactionToApply batchOf( TransactionRepresentation... transactions )
     {
         TransactionToApply first = null;
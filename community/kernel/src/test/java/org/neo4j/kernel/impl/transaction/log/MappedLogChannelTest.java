@@ -0,0 +1,232 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.storageengine.api.ReadPastEndException;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionMappings.NO_MAPPINGS;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
+
+public class MappedLogChannelTest
+{
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    private final AtomicInteger mapCalls = new AtomicInteger();
+    private long currentVersion = 10;
+    private final LogVersionMappings mappings = new LogVersionMappings( () -> currentVersion, 4 );
+
+    @Test
+    public void shouldReadValuesFromConsecutiveLogVersions() throws Exception
+    {
+        // GIVEN
+        PhysicalLogVersionedStoreChannel first = logVersion( 1, ByteBuffer.allocate( 12 ).putInt( 42 ).putLong( 10 ) );
+        PhysicalLogVersionedStoreChannel second = logVersion( 2, ByteBuffer.allocate( 2 ).putShort( (short) 5 ) );
+        LogVersionBridge bridge = channel -> channel == first ? second : channel;
+
+        // WHEN
+        try ( MappedLogChannel channel = new MappedLogChannel( first, bridge, mappings ) )
+        {
+            // THEN
+            assertEquals( 42, channel.getInt() );
+            assertEquals( 10L, channel.getLong() );
+            assertEquals( 1L, channel.getVersion() );
+            assertEquals( (short) 5, channel.getShort() );
+            assertEquals( 2L, channel.getVersion() );
+            assertReadPastEnd( channel );
+        }
+    }
+
+    @Test
+    public void shouldReadWhatIsAppendedToLogVersionWhileReadingIt() throws Exception
+    {
+        // GIVEN
+        currentVersion = 1;
+        PhysicalLogVersionedStoreChannel logVersion = logVersion( 1, ByteBuffer.allocate( 4 ).putInt( 1 ) );
+        try ( MappedLogChannel channel = new MappedLogChannel( logVersion, NO_MORE_CHANNELS, mappings ) )
+        {
+            assertEquals( 1, channel.getInt() );
+            assertReadPastEnd( channel );
+
+            // WHEN
+            append( 1, ByteBuffer.allocate( 8 ).putLong( 2 ) );
+
+            // THEN
+            assertEquals( 2L, channel.getLong() );
+            assertEquals( 0, mapCalls.get() );
+        }
+    }
+
+    @Test
+    public void shouldProvideBytesSinceEarlierPosition() throws Exception
+    {
+        // GIVEN
+        PhysicalLogVersionedStoreChannel logVersion =
+                logVersion( 1, ByteBuffer.allocate( 16 ).putLong( 1 ).putInt( 2 ).putInt( 3 ) );
+        try ( MappedLogChannel channel = new MappedLogChannel( logVersion, NO_MORE_CHANNELS, mappings ) )
+        {
+            channel.getLong();
+            LogPositionMarker start = new LogPositionMarker();
+            channel.getCurrentPosition( start );
+            channel.getInt();
+
+            // WHEN
+            ByteBuffer bytes = channel.bytesSince( start.newPosition() );
+
+            // THEN
+            assertEquals( 4, bytes.remaining() );
+            assertEquals( 2, bytes.getInt() );
+            assertEquals( 3, channel.getInt() );
+        }
+    }
+
+    @Test
+    public void shouldMapRotatedAwayLogVersionOnceForAllReaders() throws Exception
+    {
+        // GIVEN
+        logVersion( 1, ByteBuffer.allocate( 16 ).putLong( 1 ).putLong( 2 ) );
+        LogPosition start = new LogPosition( 1, 0 );
+
+        // WHEN
+        for ( int i = 0; i < 3; i++ )
+        {
+            try ( MappedLogChannel channel = new MappedLogChannel( open( 1 ), NO_MORE_CHANNELS, mappings ) )
+            {
+                channel.setCurrentPosition( Long.BYTES );
+                assertEquals( 2L, channel.getLong() );
+                channel.setCurrentPosition( 0 );
+                assertEquals( 1L, channel.getLong() );
+                channel.setCurrentPosition( 2 * Long.BYTES );
+                ByteBuffer bytes = channel.bytesSince( start );
+
+                // THEN
+                assertEquals( 16, bytes.remaining() );
+                assertTrue( bytes.isReadOnly() );
+            }
+        }
+        assertEquals( 1, mapCalls.get() );
+    }
+
+    @Test
+    public void shouldMapLogVersionOnceRotatedAway() throws Exception
+    {
+        // GIVEN
+        currentVersion = 1;
+        PhysicalLogVersionedStoreChannel logVersion = logVersion( 1, ByteBuffer.allocate( 4 ).putInt( 1 ) );
+        try ( MappedLogChannel channel = new MappedLogChannel( logVersion, NO_MORE_CHANNELS, mappings ) )
+        {
+            assertEquals( 1, channel.getInt() );
+
+            // WHEN
+            append( 1, ByteBuffer.allocate( 8 ).putLong( 2 ) );
+            currentVersion = 2;
+
+            // THEN
+            assertEquals( 2L, channel.getLong() );
+            assertEquals( 1, mapCalls.get() );
+            assertReadPastEnd( channel );
+        }
+    }
+
+    @Test
+    public void shouldReadLogVersionsIntoMemoryIfNotMapping() throws Exception
+    {
+        // GIVEN
+        PhysicalLogVersionedStoreChannel logVersion =
+                logVersion( 1, ByteBuffer.allocate( 12 ).putInt( 3 ).putLong( 4 ) );
+
+        // WHEN
+        try ( MappedLogChannel channel = new MappedLogChannel( logVersion, NO_MORE_CHANNELS, NO_MAPPINGS ) )
+        {
+            // THEN
+            assertEquals( 3, channel.getInt() );
+            assertEquals( 4L, channel.getLong() );
+            assertReadPastEnd( channel );
+            assertEquals( 0, mapCalls.get() );
+        }
+    }
+
+    private PhysicalLogVersionedStoreChannel logVersion( long version, ByteBuffer contents ) throws IOException
+    {
+        append( version, contents );
+        return open( version );
+    }
+
+    private PhysicalLogVersionedStoreChannel open( long version ) throws IOException
+    {
+        StoreChannel channel = fileSystemRule.get().open( file( version ), "r" );
+        return new PhysicalLogVersionedStoreChannel( channel, version, CURRENT_LOG_VERSION )
+        {
+            @Override
+            public ByteBuffer map( long position, int size )
+            {
+                mapCalls.incrementAndGet();
+                return super.map( position, size );
+            }
+        };
+    }
+
+    private void append( long version, ByteBuffer contents ) throws IOException
+    {
+        try ( StoreChannel channel = fileSystemRule.get().open( file( version ), "rw" ) )
+        {
+            channel.position( channel.size() );
+            contents.flip();
+            channel.writeAll( contents );
+        }
+    }
+
+    private File file( long version )
+    {
+        return directory.file( "log." + version );
+    }
+
+    private static void assertReadPastEnd( MappedLogChannel channel ) throws IOException
+    {
+        try
+        {
+            channel.get();
+            fail( "Should have thrown exception signalling end of log reached" );
+        }
+        catch ( ReadPastEndException endOfLog )
+        {
+            // outstanding
+        }
+    }
+}
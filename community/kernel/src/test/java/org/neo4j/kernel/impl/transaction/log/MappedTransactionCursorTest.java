@@ -0,0 +1,178 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.RuleChain;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.VersionAwareLogEntryReader;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.test.rule.TestDirectory;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionBridge.NO_MORE_CHANNELS;
+import static org.neo4j.kernel.impl.transaction.log.LogVersionMappings.NO_MAPPINGS;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
+
+public class MappedTransactionCursorTest
+{
+    private final TestDirectory directory = TestDirectory.testDirectory();
+    private final DefaultFileSystemRule fileSystemRule = new DefaultFileSystemRule();
+
+    @Rule
+    public RuleChain ruleChain = RuleChain.outerRule( directory ).around( fileSystemRule );
+
+    private final InMemoryClosableChannel log = new InMemoryClosableChannel( 10_000 );
+    private final LogEntryWriter writer = new LogEntryWriter( log );
+
+    @Test
+    public void shouldProvideLogEntriesOfEachTransaction() throws Exception
+    {
+        // GIVEN
+        int firstStart = log.writerPosition();
+        writeTransaction( 2, createNodeCommands( 0, 3 ) );
+        int secondStart = log.writerPosition();
+        writeTransaction( 3, createNodeCommands( 3, 5 ) );
+        int end = log.writerPosition();
+
+        try ( MappedTransactionCursor cursor = openCursor() )
+        {
+            // WHEN/THEN
+            assertTrue( cursor.next() );
+            assertEquals( 2L, cursor.get().getCommitEntry().getTxId() );
+            assertEquals( logBytes( firstStart, secondStart ), cursor.logEntries() );
+            assertTrue( cursor.next() );
+            assertEquals( 3L, cursor.get().getCommitEntry().getTxId() );
+            assertEquals( logBytes( secondStart, end ), cursor.logEntries() );
+            assertFalse( cursor.next() );
+            assertNull( cursor.logEntries() );
+        }
+    }
+
+    @Test
+    public void shouldNotProvideLogEntriesOfTransactionWithCompressedCommands() throws Exception
+    {
+        // GIVEN
+        writeCompressedTransaction( 2, createNodeCommands( 0, 30 ) );
+        int secondStart = log.writerPosition();
+        writeTransaction( 3, createNodeCommands( 30, 31 ) );
+        int end = log.writerPosition();
+
+        try ( MappedTransactionCursor cursor = openCursor() )
+        {
+            // WHEN/THEN the compressed transaction is read, but has to be serialized again to be shipped
+            assertTrue( cursor.next() );
+            assertEquals( 2L, cursor.get().getCommitEntry().getTxId() );
+            assertEquals( createNodeCommands( 0, 30 ), commandsOf( cursor ) );
+            assertNull( cursor.logEntries() );
+
+            // and the transaction after it is provided as usual
+            assertTrue( cursor.next() );
+            assertEquals( 3L, cursor.get().getCommitEntry().getTxId() );
+            assertEquals( logBytes( secondStart, end ), cursor.logEntries() );
+            assertFalse( cursor.next() );
+        }
+    }
+
+    private void writeTransaction( long txId, List<StorageCommand> commands ) throws IOException
+    {
+        writer.writeStartEntry( 0, 0, txId, txId - 1, new byte[0] );
+        writer.serialize( commands );
+        writer.writeCommitEntry( txId, txId );
+    }
+
+    private void writeCompressedTransaction( long txId, List<StorageCommand> commands ) throws IOException
+    {
+        InMemoryClosableChannel serialized = new InMemoryClosableChannel( 10_000 );
+        new LogEntryWriter( serialized ).serialize( commands );
+        byte[] uncompressed = new byte[serialized.writerPosition()];
+        serialized.get( uncompressed, uncompressed.length );
+        Deflater deflater = new Deflater();
+        deflater.setInput( uncompressed );
+        deflater.finish();
+        byte[] compressed = new byte[uncompressed.length * 2];
+        int compressedLength = deflater.deflate( compressed );
+        deflater.end();
+
+        writer.writeStartEntry( 0, 0, txId, txId - 1, new byte[0] );
+        writer.writeCompressedCommandsEntry( commands.size(), uncompressed.length, compressed, compressedLength );
+        writer.writeCommitEntry( txId, txId );
+    }
+
+    private MappedTransactionCursor openCursor() throws IOException
+    {
+        File file = directory.file( "log.1" );
+        try ( StoreChannel channel = fileSystemRule.get().open( file, "rw" ) )
+        {
+            channel.writeAll( logBytes( 0, log.writerPosition() ) );
+        }
+        PhysicalLogVersionedStoreChannel logVersion =
+                new PhysicalLogVersionedStoreChannel( fileSystemRule.get().open( file, "r" ), 1, CURRENT_LOG_VERSION );
+        return new MappedTransactionCursor( new MappedLogChannel( logVersion, NO_MORE_CHANNELS, NO_MAPPINGS ),
+                new VersionAwareLogEntryReader<>() );
+    }
+
+    private ByteBuffer logBytes( int from, int to ) throws IOException
+    {
+        byte[] bytes = new byte[to - from];
+        log.positionReader( from );
+        log.get( bytes, bytes.length );
+        return ByteBuffer.wrap( bytes );
+    }
+
+    private static List<StorageCommand> createNodeCommands( long fromId, long toId )
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        for ( long id = fromId; id < toId; id++ )
+        {
+            NodeRecord after = new NodeRecord( id );
+            after.setInUse( true );
+            commands.add( new NodeCommand( new NodeRecord( id ), after ) );
+        }
+        return commands;
+    }
+
+    private static List<StorageCommand> commandsOf( MappedTransactionCursor cursor ) throws IOException
+    {
+        List<StorageCommand> commands = new ArrayList<>();
+        cursor.get().getTransactionRepresentation().accept( command ->
+        {
+            commands.add( command );
+            return false;
+        } );
+        return commands;
+    }
+}
@@ -34,6 +34,7 @@ import org.neo4j.kernel.impl.transaction.DeadSimpleLogVersionRepository;
 import org.neo4j.kernel.impl.transaction.DeadSimpleTransactionIdStore;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile.Monitor;
 import org.neo4j.kernel.impl.transaction.log.entry.IncompleteLogHeaderException;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriter;
 import org.neo4j.kernel.impl.transaction.log.entry.LogHeader;
 import org.neo4j.kernel.lifecycle.LifeRule;
 import org.neo4j.test.rule.TestDirectory;
@@ -186,6 +187,76 @@ public class PhysicalLogFileTest
         }
     }
 
+    @Test
+    public void shouldContinueAfterEntriesInPreallocatedLogFile() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        File file = logFiles.getLogFileForVersion( 1L );
+        LogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 10_000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true ) );
+        assertEquals( 10_000, fs.getFileSize( file ) );
+
+        FlushablePositionAwareChannel writer = logFile.getWriter();
+        new LogEntryWriter( writer ).writeCommitEntry( 4, 10 );
+        writer.prepareForFlush().flush();
+        LogPositionMarker endOfEntries = new LogPositionMarker();
+        writer.getCurrentPosition( endOfEntries );
+
+        // WHEN starting on the log file as it is, like after a crash
+        LogFile restartedLogFile = life.add( new PhysicalLogFile( fs, logFiles, 10_000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true ) );
+
+        // THEN
+        LogPositionMarker position = new LogPositionMarker();
+        restartedLogFile.getWriter().getCurrentPosition( position );
+        assertEquals( endOfEntries.newPosition(), position.newPosition() );
+
+        // and WHEN
+        life.shutdown();
+
+        // THEN the preallocated space is cut off
+        assertEquals( endOfEntries.getByteOffset(), fs.getFileSize( file ) );
+    }
+
+    @Test
+    public void shouldContinueAfterEntriesInPreallocatedLogFileWhenNoLongerPreallocating() throws Exception
+    {
+        // GIVEN
+        String name = "log";
+        FileSystemAbstraction fs = fileSystemRule.get();
+        PhysicalLogFiles logFiles = new PhysicalLogFiles( directory.directory(), name, fs );
+        File file = logFiles.getLogFileForVersion( 1L );
+        LogFile logFile = life.add( new PhysicalLogFile( fs, logFiles, 10_000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), true ) );
+        FlushablePositionAwareChannel writer = logFile.getWriter();
+        new LogEntryWriter( writer ).writeCommitEntry( 4, 10 );
+        writer.prepareForFlush().flush();
+        LogPositionMarker endOfEntries = new LogPositionMarker();
+        writer.getCurrentPosition( endOfEntries );
+
+        // WHEN starting on the log file as it is, like after a crash, with preallocation disabled
+        LogFile restartedLogFile = life.add( new PhysicalLogFile( fs, logFiles, 10_000,
+                transactionIdStore::getLastCommittedTransactionId, logVersionRepository, mock( Monitor.class ),
+                new LogHeaderCache( 10 ), false ) );
+
+        // THEN
+        LogPositionMarker position = new LogPositionMarker();
+        restartedLogFile.getWriter().getCurrentPosition( position );
+        assertEquals( endOfEntries.newPosition(), position.newPosition() );
+
+        // and WHEN
+        life.shutdown();
+
+        // THEN the previously preallocated space is cut off
+        assertEquals( endOfEntries.getByteOffset(), fs.getFileSize( file ) );
+    }
+
     @Test
     public void shouldVisitLogFile() throws Exception
     {
@@ -156,6 +156,26 @@ public class VersionAwareLogEntryReaderTest
         assertNull( logEntry );
     }
 
+    @Test
+    public void shouldReturnNullWhenReachingPreallocatedSpace() throws IOException
+    {
+        // given
+        final InMemoryClosableChannel channel = new InMemoryClosableChannel();
+        LogEntryWriter writer = new LogEntryWriter( channel.writer() );
+        writer.writeCommitEntry( 42, 21 );
+        int endOfEntries = channel.writerPosition();
+        channel.putLong( 0 );
+
+        // when
+        LogEntry commit = logEntryReader.readLogEntry( channel.reader() );
+        LogEntry logEntry = logEntryReader.readLogEntry( channel.reader() );
+
+        // then
+        assertEquals( new OnePhaseCommit( 42, 21 ), commit );
+        assertNull( logEntry );
+        assertEquals( endOfEntries, channel.readerPosition() );
+    }
+
     @Test
     public void shouldBeAbleToSkipBadVersionAndTypeBytesInBetweenLogEntries() throws Exception
     {
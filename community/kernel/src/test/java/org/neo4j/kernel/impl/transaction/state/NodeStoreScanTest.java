@@ -54,7 +54,7 @@ public class NodeStoreScanTest
         when( nodeStore.getHighId() ).thenReturn( (long) total );
         NodeRecord inUseRecord = new NodeRecord( 42 );
         inUseRecord.setInUse( true );
-        when( nodeStore.getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) ).thenReturn(
+        when( nodeStore.getRecordInScan( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) ).thenReturn(
                 inUseRecord, inUseRecord, inUseRecord, inUseRecord,
                 inUseRecord, inUseRecord, inUseRecord, inUseRecord, inUseRecord, inUseRecord );
 
@@ -70,7 +70,8 @@ public class DynamicIndexStoreViewTest
         when( neoStores.getCounts() ).thenReturn( countStore );
         when( neoStores.getNodeStore() ).thenReturn( nodeStore );
         when( nodeStore.newRecord() ).thenReturn( nodeRecord );
-        when( nodeStore.getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) ).thenReturn( nodeRecord );
+        when( nodeStore.getRecordInScan( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) ) )
+                .thenReturn( nodeRecord );
     }
 
     @Test
@@ -96,7 +97,7 @@ public class DynamicIndexStoreViewTest
         storeScan.run();
 
         Mockito.verify( nodeStore, times( 8 ) )
-                .getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
+                .getRecordInScan( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
     }
 
     @Test
@@ -118,7 +119,7 @@ public class DynamicIndexStoreViewTest
         storeScan.run();
 
         Mockito.verify( nodeStore, times( 20 ) )
-                .getRecord( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
+                .getRecordInScan( anyLong(), any( NodeRecord.class ), any( RecordLoad.class ) );
     }
 
     private DynamicIndexStoreView dynamicIndexStoreView()
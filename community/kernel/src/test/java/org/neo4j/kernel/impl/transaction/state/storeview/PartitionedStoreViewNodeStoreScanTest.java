@@ -0,0 +1,200 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state.storeview;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.api.Statement;
+import org.neo4j.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.index.IndexEntryUpdate;
+import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
+import org.neo4j.kernel.api.schema.SchemaDescriptorFactory;
+import org.neo4j.kernel.impl.api.index.MultipleIndexPopulator;
+import org.neo4j.kernel.impl.api.index.NodeUpdates;
+import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
+import org.neo4j.kernel.impl.locking.LockService;
+import org.neo4j.kernel.impl.storageengine.impl.recordstorage.RecordStorageEngine;
+import org.neo4j.kernel.impl.store.NeoStores;
+import org.neo4j.kernel.internal.GraphDatabaseAPI;
+import org.neo4j.test.rule.EmbeddedDatabaseRule;
+import org.neo4j.values.storable.Value;
+import org.neo4j.values.storable.Values;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.neo4j.helpers.collection.Iterables.single;
+
+public class PartitionedStoreViewNodeStoreScanTest
+{
+    private static final int NODE_COUNT = 5_000;
+    private static final String KEY = "key";
+
+    @Rule
+    public EmbeddedDatabaseRule dbRule = new EmbeddedDatabaseRule();
+
+    private final Label label = Label.label( "Label" );
+
+    private GraphDatabaseAPI graphDb;
+    private NeoStores neoStores;
+    private int labelId;
+    private int propertyKeyId;
+
+    @Before
+    public void before() throws KernelException
+    {
+        graphDb = dbRule.getGraphDatabaseAPI();
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            for ( int i = 0; i < NODE_COUNT; i++ )
+            {
+                graphDb.createNode( label ).setProperty( KEY, i );
+            }
+            tx.success();
+        }
+        getOrCreateIds();
+        neoStores = graphDb.getDependencyResolver().resolveDependency( RecordStorageEngine.class ).testAccessNeoStores();
+    }
+
+    @Test
+    public void shouldVisitAllNodesOnce() throws Exception
+    {
+        // given
+        Map<Long,NodeUpdates> visited = new HashMap<>();
+        PartitionedStoreViewNodeStoreScan<RuntimeException> scan = scan( updates ->
+        {
+            assertNull( "Visited twice " + updates, visited.put( updates.getNodeId(), updates ) );
+            return false;
+        } );
+
+        // when
+        scan.run();
+
+        // then
+        assertEquals( NODE_COUNT, visited.size() );
+        for ( long nodeId = 0; nodeId < NODE_COUNT; nodeId++ )
+        {
+            assertEquals( Values.of( (int) nodeId ), valueOf( visited.get( nodeId ) ) );
+        }
+        assertTrue( scan.getProgress().getCompleted() >= NODE_COUNT );
+    }
+
+    @Test
+    public void shouldReadNodesUpdatedBeforeBeingVisitedAgain() throws Exception
+    {
+        // given
+        MultipleIndexPopulator.MultipleIndexUpdater updater = mock( MultipleIndexPopulator.MultipleIndexUpdater.class );
+        Map<Long,NodeUpdates> visited = new HashMap<>();
+        long[] updatedNodeId = {-1};
+        PartitionedStoreViewNodeStoreScan<?>[] scan = new PartitionedStoreViewNodeStoreScan[1];
+        scan[0] = scan( updates ->
+        {
+            visited.put( updates.getNodeId(), updates );
+            if ( updatedNodeId[0] == -1 )
+            {
+                // The next node is in the same partition, and likely in the same chunk, and hasn't been visited yet
+                updatedNodeId[0] = updates.getNodeId() + 1;
+                setProperty( updatedNodeId[0], -1 );
+                scan[0].acceptUpdate( updater, IndexEntryUpdate.change( updatedNodeId[0], index(),
+                        Values.of( (int) updatedNodeId[0] ), Values.of( -1 ) ), updates.getNodeId() );
+            }
+            return false;
+        } );
+
+        // when
+        scan[0].run();
+
+        // then
+        verify( updater, never() ).process( any() );
+        assertEquals( NODE_COUNT, visited.size() );
+        assertEquals( Values.of( -1 ), valueOf( visited.get( updatedNodeId[0] ) ) );
+    }
+
+    @Test
+    public void shouldApplyUpdatesForNodesAlreadyVisited() throws Exception
+    {
+        // given
+        MultipleIndexPopulator.MultipleIndexUpdater updater = mock( MultipleIndexPopulator.MultipleIndexUpdater.class );
+        PartitionedStoreViewNodeStoreScan<RuntimeException> scan = scan( updates -> false );
+        scan.run();
+
+        // when
+        IndexEntryUpdate<LabelSchemaDescriptor> update = IndexEntryUpdate.change( 0, index(), Values.of( 0 ),
+                Values.of( -1 ) );
+        scan.acceptUpdate( updater, update, Long.MAX_VALUE );
+
+        // then
+        verify( updater ).process( update );
+    }
+
+    private PartitionedStoreViewNodeStoreScan<RuntimeException> scan( Visitor<NodeUpdates,RuntimeException> visitor )
+    {
+        return new PartitionedStoreViewNodeStoreScan<>( neoStores.getNodeStore(), LockService.NO_LOCK_SERVICE,
+                neoStores.getPropertyStore(), visitor, new int[]{labelId}, id -> id == propertyKeyId, 3 );
+    }
+
+    private LabelSchemaDescriptor index()
+    {
+        return SchemaDescriptorFactory.forLabel( labelId, propertyKeyId );
+    }
+
+    private Value valueOf( NodeUpdates updates )
+    {
+        return single( updates.forIndexKeys( singletonList( index() ) ) ).values()[0];
+    }
+
+    private void setProperty( long nodeId, int value )
+    {
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            graphDb.getNodeById( nodeId ).setProperty( KEY, value );
+            tx.success();
+        }
+    }
+
+    private void getOrCreateIds() throws KernelException
+    {
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            ThreadToStatementContextBridge bridge =
+                    graphDb.getDependencyResolver().resolveDependency( ThreadToStatementContextBridge.class );
+
+            try ( Statement statement = bridge.get() )
+            {
+                labelId = statement.tokenWriteOperations().labelGetOrCreateForName( label.name() );
+                propertyKeyId = statement.tokenWriteOperations().propertyKeyGetOrCreateForName( KEY );
+            }
+            tx.success();
+        }
+    }
+}
@@ -0,0 +1,255 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.recovery;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+
+import org.neo4j.kernel.api.schema.constaints.ConstraintDescriptor;
+import org.neo4j.kernel.api.schema.constaints.ConstraintDescriptorFactory;
+import org.neo4j.kernel.impl.api.TransactionToApply;
+import org.neo4j.kernel.impl.store.PropertyStore;
+import org.neo4j.kernel.impl.store.record.LabelTokenRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.store.record.PropertyBlock;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.command.Command.LabelTokenCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.log.LogPosition;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryStart;
+import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
+import org.neo4j.storageengine.api.CommandsToApply;
+import org.neo4j.storageengine.api.StorageCommand;
+import org.neo4j.storageengine.api.StorageEngine;
+import org.neo4j.storageengine.api.StoreReadLayer;
+import org.neo4j.values.storable.Values;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.storageengine.api.TransactionApplicationMode.RECOVERY;
+
+public class ParallelRecoveryVisitorTest
+{
+    private final StorageEngine storageEngine = mock( StorageEngine.class );
+    private final List<ConstraintDescriptor> constraints = new ArrayList<>();
+    private final List<Long> appliedTransactions = new CopyOnWriteArrayList<>();
+    private final CountDownLatch firstTransactionMayComplete = new CountDownLatch( 1 );
+    private final CountDownLatch lastTransactionApplied = new CountDownLatch( 1 );
+    private long lastTransactionId;
+
+    @Before
+    public void setUp() throws Exception
+    {
+        StoreReadLayer storeReadLayer = mock( StoreReadLayer.class );
+        when( storeReadLayer.constraintsGetAll() ).thenAnswer( invocation -> constraints.iterator() );
+        when( storageEngine.storeReadLayer() ).thenReturn( storeReadLayer );
+        doAnswer( invocation ->
+        {
+            long txId = invocation.getArgumentAt( 0, TransactionToApply.class ).transactionId();
+            if ( txId == 1 )
+            {
+                firstTransactionMayComplete.await();
+            }
+            appliedTransactions.add( txId );
+            if ( txId == lastTransactionId )
+            {
+                lastTransactionApplied.countDown();
+            }
+            return null;
+        } ).when( storageEngine ).apply( any( CommandsToApply.class ), any() );
+    }
+
+    @Test
+    public void shouldApplyTransactionsChangingSameRecordsInCommitOrder() throws Exception
+    {
+        // given
+        lastTransactionId = 3;
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 ) )
+        {
+            // when
+            visitor.visit( transaction( 1, nodeCommand( 1 ) ) );
+            visitor.visit( transaction( 2, nodeCommand( 1 ), nodeCommand( 2 ) ) );
+            visitor.visit( transaction( 3, nodeCommand( 3 ) ) );
+
+            // then the unrelated transaction is applied while the first one is still being applied
+            lastTransactionApplied.await();
+            assertThat( appliedTransactions, not( hasItem( 2L ) ) );
+            firstTransactionMayComplete.countDown();
+        }
+        assertThat( appliedTransactions, contains( 3L, 1L, 2L ) );
+    }
+
+    @Test
+    public void shouldApplyTransactionsChangingNodePropertiesInCommitOrder() throws Exception
+    {
+        // given
+        lastTransactionId = 3;
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 ) )
+        {
+            // when different property records of the same node are changed
+            visitor.visit( transaction( 1, propertyCommand( 10, 1, 0 ) ) );
+            visitor.visit( transaction( 2, propertyCommand( 11, 1, 1 ) ) );
+            visitor.visit( transaction( 3, propertyCommand( 12, 2, 0 ) ) );
+
+            // then
+            lastTransactionApplied.await();
+            assertThat( appliedTransactions, not( hasItem( 2L ) ) );
+            firstTransactionMayComplete.countDown();
+        }
+        assertThat( appliedTransactions, contains( 3L, 1L, 2L ) );
+    }
+
+    @Test
+    public void shouldApplyTransactionReusingFreedSecondaryUnitAfterTransactionFreeingIt() throws Exception
+    {
+        // given
+        lastTransactionId = 3;
+        NodeCommand freeingSecondaryUnit = nodeCommand( 1 );
+        freeingSecondaryUnit.getBefore().setRequiresSecondaryUnit( true );
+        freeingSecondaryUnit.getBefore().setSecondaryUnitId( 2 );
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 ) )
+        {
+            // when the secondary unit of a node record is freed, and then used for another node
+            visitor.visit( transaction( 1, freeingSecondaryUnit ) );
+            visitor.visit( transaction( 2, nodeCommand( 2 ) ) );
+            visitor.visit( transaction( 3, nodeCommand( 3 ) ) );
+
+            // then
+            lastTransactionApplied.await();
+            assertThat( appliedTransactions, not( hasItem( 2L ) ) );
+            firstTransactionMayComplete.countDown();
+        }
+        assertThat( appliedTransactions, contains( 3L, 1L, 2L ) );
+    }
+
+    @Test
+    public void shouldApplyChangesToUniquePropertiesInCommitOrder() throws Exception
+    {
+        // given
+        constraints.add( ConstraintDescriptorFactory.uniqueForLabel( 0, 5 ) );
+        lastTransactionId = 3;
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 ) )
+        {
+            // when the unique property is changed on different nodes
+            visitor.visit( transaction( 1, propertyCommand( 10, 1, 5 ) ) );
+            visitor.visit( transaction( 2, propertyCommand( 11, 2, 5 ) ) );
+            visitor.visit( transaction( 3, propertyCommand( 12, 3, 6 ) ) );
+
+            // then
+            lastTransactionApplied.await();
+            assertThat( appliedTransactions, not( hasItem( 2L ) ) );
+            firstTransactionMayComplete.countDown();
+        }
+        assertThat( appliedTransactions, contains( 3L, 1L, 2L ) );
+    }
+
+    @Test
+    public void shouldApplyTransactionsWithOtherCommandsAlone() throws Exception
+    {
+        // given
+        firstTransactionMayComplete.countDown();
+        try ( ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 ) )
+        {
+            // when
+            visitor.visit( transaction( 1, nodeCommand( 1 ) ) );
+            visitor.visit( transaction( 2,
+                    new LabelTokenCommand( new LabelTokenRecord( 0 ), new LabelTokenRecord( 0 ) ) ) );
+            visitor.visit( transaction( 3, nodeCommand( 2 ) ) );
+        }
+
+        // then
+        assertThat( appliedTransactions, contains( 1L, 2L, 3L ) );
+    }
+
+    @Test
+    public void shouldFailOnCloseIfApplyingTransactionFailed() throws Exception
+    {
+        // given
+        IOException failure = new IOException( "Failed to apply" );
+        doAnswer( invocation ->
+        {
+            throw failure;
+        } ).when( storageEngine ).apply( any( CommandsToApply.class ), any() );
+
+        // when
+        ParallelRecoveryVisitor visitor = new ParallelRecoveryVisitor( storageEngine, RECOVERY, 4 );
+        visitor.visit( transaction( 1, nodeCommand( 1 ) ) );
+        try
+        {
+            visitor.close();
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // then
+            assertSame( failure, e );
+        }
+    }
+
+    private static CommittedTransactionRepresentation transaction( long txId, Command... commands )
+    {
+        PhysicalTransactionRepresentation transaction =
+                new PhysicalTransactionRepresentation( Arrays.<StorageCommand>asList( commands ) );
+        transaction.setHeader( new byte[0], 0, 0, 0, txId - 1, 0, 0 );
+        return new CommittedTransactionRepresentation(
+                new LogEntryStart( 0, 0, 0, txId - 1, new byte[0], LogPosition.UNSPECIFIED ), transaction,
+                new OnePhaseCommit( txId, 0 ) );
+    }
+
+    private static NodeCommand nodeCommand( long nodeId )
+    {
+        NodeRecord before = new NodeRecord( nodeId );
+        NodeRecord after = new NodeRecord( nodeId );
+        after.setInUse( true );
+        return new NodeCommand( before, after );
+    }
+
+    private static PropertyCommand propertyCommand( long propertyId, long nodeId, int propertyKey )
+    {
+        PropertyRecord before = new PropertyRecord( propertyId );
+        before.setNodeId( nodeId );
+        PropertyRecord after = new PropertyRecord( propertyId );
+        after.setNodeId( nodeId );
+        after.setInUse( true );
+        PropertyBlock block = new PropertyBlock();
+        PropertyStore.encodeValue( block, propertyKey, Values.of( 42 ), null, null );
+        after.addPropertyBlock( block );
+        return new PropertyCommand( before, after );
+    }
+}
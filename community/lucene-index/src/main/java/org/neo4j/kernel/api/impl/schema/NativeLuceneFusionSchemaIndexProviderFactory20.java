@@ -0,0 +1,116 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.schema;
+
+import java.io.File;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexDirectoryStructure;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaNumberIndexProvider;
+import org.neo4j.kernel.impl.index.schema.NativeSchemaStringIndexProvider;
+import org.neo4j.kernel.impl.index.schema.NativeSelector;
+import org.neo4j.kernel.impl.index.schema.NativeStringSelector;
+import org.neo4j.kernel.impl.index.schema.fusion.FusionSchemaIndexProvider;
+import org.neo4j.kernel.impl.spi.KernelContext;
+import org.neo4j.logging.LogProvider;
+
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesByProvider;
+import static org.neo4j.kernel.api.index.IndexDirectoryStructure.directoriesBySubProvider;
+
+/**
+ * Like {@link NativeLuceneFusionSchemaIndexProviderFactory}, but with strings, and composites of strings and numbers,
+ * in a native index too. Numbers goes to the native number index, strings and composites to the native string index
+ * and the rest, e.g. too big strings, to lucene. This is two nested {@link FusionSchemaIndexProvider fusion providers}:
+ * <pre>
+ * fusion( native number, fusion( native string, lucene ) )
+ * </pre>
+ */
+@Service.Implementation( KernelExtensionFactory.class )
+public class NativeLuceneFusionSchemaIndexProviderFactory20
+        extends KernelExtensionFactory<NativeLuceneFusionSchemaIndexProviderFactory.Dependencies>
+{
+    public static final String KEY = NativeLuceneFusionSchemaIndexProviderFactory.KEY + "+" + NativeSchemaStringIndexProvider.KEY;
+    private static final int PRIORITY = LuceneSchemaIndexProvider.PRIORITY + 2;
+
+    private static final SchemaIndexProvider.Descriptor DESCRIPTOR = new SchemaIndexProvider.Descriptor( KEY, "2.0" );
+    private static final SchemaIndexProvider.Descriptor STRING_LUCENE_DESCRIPTOR =
+            new SchemaIndexProvider.Descriptor( LuceneSchemaIndexProviderFactory.KEY + "+" + NativeSchemaStringIndexProvider.KEY, "2.0" );
+
+    public NativeLuceneFusionSchemaIndexProviderFactory20()
+    {
+        super( KEY );
+    }
+
+    @Override
+    public FusionSchemaIndexProvider newInstance( KernelContext context, NativeLuceneFusionSchemaIndexProviderFactory.Dependencies dependencies )
+            throws Throwable
+    {
+        PageCache pageCache = dependencies.pageCache();
+        File storeDir = context.storeDir();
+        FileSystemAbstraction fs = dependencies.fileSystem();
+        LogProvider logProvider = dependencies.getLogging().getInternalLogProvider();
+        Config config = dependencies.getConfig();
+        OperationalMode operationalMode = context.databaseInfo().operationalMode;
+        RecoveryCleanupWorkCollector recoveryCleanupWorkCollector = dependencies.recoveryCleanupWorkCollector();
+        return newInstance( pageCache, storeDir, fs, logProvider, config, operationalMode, recoveryCleanupWorkCollector );
+    }
+
+    public static FusionSchemaIndexProvider newInstance( PageCache pageCache, File storeDir, FileSystemAbstraction fs,
+            LogProvider logProvider, Config config, OperationalMode operationalMode,
+            RecoveryCleanupWorkCollector recoveryCleanupWorkCollector )
+    {
+        IndexDirectoryStructure.Factory childDirectoryStructure = subProviderDirectoryStructure( storeDir );
+        boolean readOnly = isReadOnly( config, operationalMode );
+        NativeSchemaNumberIndexProvider numberProvider =
+                new NativeSchemaNumberIndexProvider( pageCache, fs, childDirectoryStructure, logProvider, recoveryCleanupWorkCollector, readOnly );
+        NativeSchemaStringIndexProvider stringProvider =
+                new NativeSchemaStringIndexProvider( pageCache, fs, childDirectoryStructure, logProvider, recoveryCleanupWorkCollector, readOnly );
+        LuceneSchemaIndexProvider luceneProvider = LuceneSchemaIndexProviderFactory.create( fs, childDirectoryStructure, logProvider, config,
+                operationalMode );
+
+        NativeStringSelector stringSelector = new NativeStringSelector( NativeSchemaStringIndexProvider.maxValueBytes( pageCache.pageSize() ) );
+        FusionSchemaIndexProvider stringLuceneProvider = new FusionSchemaIndexProvider( stringProvider,
+                luceneProvider, stringSelector, STRING_LUCENE_DESCRIPTOR, 0, childDirectoryStructure, fs );
+
+        boolean useNativeStringIndex = config.get( GraphDatabaseSettings.enable_native_string_schema_index );
+        int priority = useNativeStringIndex ? PRIORITY : 0;
+        return new FusionSchemaIndexProvider( numberProvider,
+                stringLuceneProvider, new NativeSelector(), DESCRIPTOR, priority, directoriesByProvider( storeDir ), fs );
+    }
+
+    public static IndexDirectoryStructure.Factory subProviderDirectoryStructure( File storeDir )
+    {
+        IndexDirectoryStructure parentDirectoryStructure = directoriesByProvider( storeDir ).forProvider( DESCRIPTOR );
+        return directoriesBySubProvider( parentDirectoryStructure );
+    }
+
+    private static boolean isReadOnly( Config config, OperationalMode operationalMode )
+    {
+        return config.get( GraphDatabaseSettings.read_only ) && (OperationalMode.single == operationalMode);
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.impl.schema;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.index.internal.gbptree.RecoveryCleanupWorkCollector;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.configuration.Settings;
+import org.neo4j.kernel.impl.factory.OperationalMode;
+import org.neo4j.logging.NullLogProvider;
+import org.neo4j.test.rule.PageCacheAndDependenciesRule;
+import org.neo4j.test.rule.fs.DefaultFileSystemRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class NativeLuceneFusionSchemaIndexProviderFactory20Test
+{
+    @Rule
+    public final PageCacheAndDependenciesRule rules =
+            new PageCacheAndDependenciesRule( DefaultFileSystemRule::new, NativeLuceneFusionSchemaIndexProviderFactory20Test.class );
+
+    @Test
+    public void shouldDescribeItselfAsVersion20() throws Exception
+    {
+        // when
+        SchemaIndexProvider provider = newProvider( Config.defaults() );
+
+        // then
+        SchemaIndexProvider.Descriptor descriptor = provider.getProviderDescriptor();
+        assertEquals( NativeLuceneFusionSchemaIndexProviderFactory20.KEY, descriptor.getKey() );
+        assertEquals( "2.0", descriptor.getVersion() );
+    }
+
+    @Test
+    public void shouldNotBePreferredOverVersion10ByDefault() throws Exception
+    {
+        // given
+        Config config = Config.defaults();
+
+        // when
+        SchemaIndexProvider provider20 = newProvider( config );
+        SchemaIndexProvider provider10 = newProvider10( config );
+
+        // then
+        assertTrue( provider20.compareTo( provider10 ) < 0 );
+    }
+
+    @Test
+    public void shouldBePreferredOverVersion10WhenNativeStringIndexIsEnabled() throws Exception
+    {
+        // given
+        Config config = Config.defaults( stringMap( GraphDatabaseSettings.enable_native_string_schema_index.name(), Settings.TRUE ) );
+
+        // when
+        SchemaIndexProvider provider20 = newProvider( config );
+        SchemaIndexProvider provider10 = newProvider10( config );
+
+        // then
+        assertTrue( provider20.compareTo( provider10 ) > 0 );
+    }
+
+    private SchemaIndexProvider newProvider( Config config )
+    {
+        return NativeLuceneFusionSchemaIndexProviderFactory20.newInstance( rules.pageCache(), rules.directory().graphDbDir(),
+                rules.fileSystem(), NullLogProvider.getInstance(), config, OperationalMode.single,
+                RecoveryCleanupWorkCollector.IMMEDIATE );
+    }
+
+    private SchemaIndexProvider newProvider10( Config config )
+    {
+        return NativeLuceneFusionSchemaIndexProviderFactory.newInstance( rules.pageCache(), rules.directory().graphDbDir(),
+                rules.fileSystem(), NullLogProvider.getInstance(), config, OperationalMode.single,
+                RecoveryCleanupWorkCollector.IMMEDIATE );
+    }
+}
@@ -66,6 +66,7 @@ import org.neo4j.kernel.api.proc.ProcedureSignature;
 import org.neo4j.kernel.api.proc.QualifiedName;
 import org.neo4j.kernel.api.proc.UserFunctionSignature;
 import org.neo4j.kernel.api.query.ExecutingQuery;
+import org.neo4j.kernel.api.schema.IndexOrder;
 import org.neo4j.kernel.api.schema.IndexQuery;
 import org.neo4j.kernel.api.schema.LabelSchemaDescriptor;
 import org.neo4j.kernel.api.schema.SchemaDescriptor;
@@ -91,6 +92,8 @@ import org.neo4j.storageengine.api.PropertyItem;
 import org.neo4j.storageengine.api.RelationshipItem;
 import org.neo4j.storageengine.api.Token;
 import org.neo4j.storageengine.api.lock.ResourceType;
+import org.neo4j.storageengine.api.schema.IndexHistogram;
+import org.neo4j.storageengine.api.schema.NodeValueIterator;
 import org.neo4j.storageengine.api.schema.PopulationProgress;
 import org.neo4j.test.rule.EmbeddedDatabaseRule;
 import org.neo4j.values.storable.Value;
@@ -459,6 +462,12 @@ public class QueryExecutionLocksIT
             return readOperations.nodesGetForLabel( labelId );
         }
 
+        @Override
+        public PrimitiveLongIterator nodesGetForAllLabels( int... labelIds )
+        {
+            return readOperations.nodesGetForAllLabels( labelIds );
+        }
+
         @Override
         public PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexQuery... predicates )
                 throws IndexNotFoundKernelException, IndexNotApplicableKernelException
@@ -466,6 +475,27 @@ public class QueryExecutionLocksIT
             return readOperations.indexQuery( index, predicates );
         }
 
+        @Override
+        public PrimitiveLongIterator indexQuery( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+                throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+        {
+            return readOperations.indexQuery( index, order, predicates );
+        }
+
+        @Override
+        public boolean indexSupportsOrder( IndexDescriptor index, IndexOrder order, IndexQuery... predicates )
+                throws IndexNotFoundKernelException
+        {
+            return readOperations.indexSupportsOrder( index, order, predicates );
+        }
+
+        @Override
+        public NodeValueIterator indexQueryWithValues( IndexDescriptor index, IndexQuery... predicates )
+                throws IndexNotFoundKernelException, IndexNotApplicableKernelException
+        {
+            return readOperations.indexQueryWithValues( index, predicates );
+        }
+
         @Override
         public PrimitiveLongIterator nodesGetAll()
         {
@@ -688,6 +718,12 @@ public class QueryExecutionLocksIT
             return readOperations.indexUniqueValuesSelectivity( descriptor );
         }
 
+        @Override
+        public IndexHistogram indexHistogram( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+        {
+            return readOperations.indexHistogram( descriptor );
+        }
+
         @Override
         public String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
         {
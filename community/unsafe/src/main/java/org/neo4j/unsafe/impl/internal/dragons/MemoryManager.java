@@ -26,6 +26,11 @@ package org.neo4j.unsafe.impl.internal.dragons;
  * aligned, and plays well with transparent huge pages and other operating system optimisations.
  *
  * The memory manager assumes that the memory claimed from it is evenly divisible in units of pages.
+ *
+ * Optionally, the grabs can be made large and aligned to the 2 MiB boundaries of huge pages. On Linux with transparent
+ * huge pages enabled, this allows the operating system to back the memory with huge pages, which greatly reduces the
+ * number of TLB misses when accessing a large amount of memory at random. The padding needed for the alignment is
+ * never touched, so it only costs address space, not physical memory.
  */
 public final class MemoryManager
 {
@@ -34,11 +39,25 @@ public final class MemoryManager
      */
     private static final long GRAB_SIZE = FeatureToggles.getInteger( MemoryManager.class, "GRAB_SIZE", 512 * 1024 ); // 512 KiB
 
+    /**
+     * The size of a huge page on x86-64 and ARM64, which is what grabs are aligned to when huge pages are used.
+     */
+    public static final long HUGE_PAGE_SIZE = 2 * 1024 * 1024; // 2 MiB
+
+    /**
+     * The amount of memory, in bytes, to grab in each Grab, when huge pages are used. Always a multiple of the huge
+     * page size.
+     */
+    private static final long HUGE_PAGE_GRAB_SIZE = roundUpToHugePage( FeatureToggles.getInteger(
+            MemoryManager.class, "HUGE_PAGE_GRAB_SIZE", 32 * 1024 * 1024 ) ); // 32 MiB
+
     /**
      * The amount of memory that this memory manager can still allocate.
      */
     private long memoryReserve;
     private final long alignment;
+    private final boolean hugePages;
+    private final long grabSize;
 
     private Grab grabs;
 
@@ -50,6 +69,20 @@ public final class MemoryManager
      * @param alignment The byte multiple that the allocated pointers have to be aligned at.
      */
     public MemoryManager( long expectedMaxMemory, long alignment )
+    {
+        this( expectedMaxMemory, alignment, false );
+    }
+
+    /**
+     * Create a new MemoryManager that will allocate the given amount of memory, to pointers that are aligned to the
+     * given alignment size, and optionally from grabs that are aligned to huge page boundaries.
+     * @param expectedMaxMemory The maximum amount of memory that this memory manager is expected to allocate. The
+     * actual amount of memory used can end up greater than this value, if some of it gets wasted on alignment padding.
+     * @param alignment The byte multiple that the allocated pointers have to be aligned at.
+     * @param hugePages {@code true} if memory should be grabbed in large chunks, that are aligned to the
+     * {@link #HUGE_PAGE_SIZE huge page size}.
+     */
+    public MemoryManager( long expectedMaxMemory, long alignment, boolean hugePages )
     {
         if ( alignment == 0 )
         {
@@ -57,6 +90,24 @@ public final class MemoryManager
         }
         this.memoryReserve = expectedMaxMemory;
         this.alignment = alignment;
+        this.hugePages = hugePages;
+        this.grabSize = hugePages ? HUGE_PAGE_GRAB_SIZE : GRAB_SIZE;
+    }
+
+    private static long roundUpToHugePage( long size )
+    {
+        return (size + HUGE_PAGE_SIZE - 1) & ~(HUGE_PAGE_SIZE - 1);
+    }
+
+    private Grab newGrab( Grab next, long size )
+    {
+        if ( hugePages )
+        {
+            // Grab whole huge pages, and enough padding to move the start of the grab to a huge page boundary.
+            long hugePageSize = roundUpToHugePage( size );
+            return new Grab( next, hugePageSize + HUGE_PAGE_SIZE, HUGE_PAGE_SIZE, alignment );
+        }
+        return new Grab( next, size, alignment );
     }
 
     public synchronized long sumUsedMemory()
@@ -78,15 +129,15 @@ public final class MemoryManager
      */
     public synchronized long allocateAligned( long bytes )
     {
-        if ( bytes > GRAB_SIZE )
+        if ( bytes > grabSize )
         {
             // This is a huge allocation. Put it in its own grab and keep any existing grab at the head.
             Grab nextGrab = grabs == null ? null : grabs.next;
-            Grab allocationGrab = new Grab( nextGrab, bytes, alignment );
+            Grab allocationGrab = newGrab( nextGrab, bytes );
             if ( !allocationGrab.canAllocate( bytes ) )
             {
                 allocationGrab.free();
-                allocationGrab = new Grab( nextGrab, bytes + alignment, alignment );
+                allocationGrab = newGrab( nextGrab, bytes + alignment );
             }
             long allocation = allocationGrab.allocate( bytes );
             grabs = grabs == null ? allocationGrab : grabs.setNext( allocationGrab );
@@ -96,11 +147,11 @@ public final class MemoryManager
 
         if ( grabs == null || !grabs.canAllocate( bytes ) )
         {
-            long desiredGrabSize = Math.min( GRAB_SIZE, memoryReserve );
+            long desiredGrabSize = Math.min( grabSize, memoryReserve );
             if ( desiredGrabSize < bytes )
             {
                 desiredGrabSize = bytes;
-                Grab grab = new Grab( grabs, desiredGrabSize, alignment );
+                Grab grab = newGrab( grabs, desiredGrabSize );
                 if ( grab.canAllocate( bytes ) )
                 {
                     memoryReserve -= desiredGrabSize;
@@ -111,7 +162,7 @@ public final class MemoryManager
                 desiredGrabSize = bytes + alignment;
             }
             memoryReserve -= desiredGrabSize;
-            grabs = new Grab( grabs, desiredGrabSize, alignment );
+            grabs = newGrab( grabs, desiredGrabSize );
         }
         return grabs.allocate( bytes );
     }
@@ -138,13 +189,23 @@ public final class MemoryManager
         private long nextAlignedPointer;
 
         Grab( Grab next, long size, long alignment )
+        {
+            this( next, size, alignment, alignment );
+        }
+
+        /**
+         * Create a grab where the first pointer is aligned to the given grab alignment, and all subsequent pointers
+         * are aligned to the given alignment.
+         */
+        Grab( Grab next, long size, long grabAlignment, long alignment )
         {
             this.next = next;
             this.address = UnsafeUtil.allocateMemory( size );
             this.limit = address + size;
             this.alignMask = alignment - 1;
 
-            nextAlignedPointer = nextAligned( address );
+            long grabAlignMask = grabAlignment - 1;
+            nextAlignedPointer = nextAligned( (address + grabAlignMask) & ~grabAlignMask );
         }
 
         Grab( Grab next, long address, long limit, long alignMask, long nextAlignedPointer )
@@ -71,4 +71,24 @@ public class MemoryManagerTest
         assertThat( largeBlock, is( not( 0L ) ) );
         assertThat( page2, is( not( 0L ) ) );
     }
+
+    @Test
+    public void hugePageGrabsMustBeHugePageAligned() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( 64 * 1024 * 1024, UnsafeUtil.pageSize(), true );
+        long page1 = mman.allocateAligned( UnsafeUtil.pageSize() );
+        long page2 = mman.allocateAligned( UnsafeUtil.pageSize() );
+        assertThat( page1 % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+        assertThat( page2 - page1, is( (long) UnsafeUtil.pageSize() ) );
+    }
+
+    @Test
+    public void hugeAllocationsInHugePageGrabsMustBeHugePageAligned() throws Exception
+    {
+        MemoryManager mman = new MemoryManager( 256 * 1024 * 1024, 8, true );
+        long smallBlock = mman.allocateAligned( 8 );
+        long largeBlock = mman.allocateAligned( 64 * 1024 * 1024 ); // 64 MiB, larger than a huge page grab
+        assertThat( smallBlock % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+        assertThat( largeBlock % MemoryManager.HUGE_PAGE_SIZE, is( 0L ) );
+    }
 }
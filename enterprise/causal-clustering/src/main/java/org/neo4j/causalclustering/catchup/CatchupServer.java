@@ -97,6 +97,7 @@ public class CatchupServer extends LifecycleAdapter
     private final NamedThreadFactory threadFactory = new NamedThreadFactory( "catchup-server" );
     private final CoreSnapshotService snapshotService;
     private final ListenSocketAddress listenAddress;
+    private final boolean mappedTxLog;
 
     private EventLoopGroup workerGroup;
     private Channel channel;
@@ -113,6 +114,7 @@ public class CatchupServer extends LifecycleAdapter
         this.snapshotService = snapshotService;
         this.storeCopyCheckPointMutex = storeCopyCheckPointMutex;
         this.listenAddress = config.get( CausalClusteringSettings.transaction_listen_address );
+        this.mappedTxLog = config.get( CausalClusteringSettings.catchup_mapped_tx_log );
         this.transactionIdStoreSupplier = transactionIdStoreSupplier;
         this.storeIdSupplier = storeIdSupplier;
         this.dataSourceAvailabilitySupplier = dataSourceAvailabilitySupplier;
@@ -177,7 +179,8 @@ public class CatchupServer extends LifecycleAdapter
                         pipeline.addLast( new ChunkedWriteHandler() );
 
                         pipeline.addLast( new TxPullRequestHandler( protocol, storeIdSupplier, dataSourceAvailabilitySupplier,
-                                transactionIdStoreSupplier, logicalTransactionStoreSupplier, monitors, logProvider ) );
+                                transactionIdStoreSupplier, logicalTransactionStoreSupplier, monitors, logProvider,
+                                mappedTxLog ) );
                         pipeline.addLast( new GetStoreRequestHandler( protocol, dataSourceSupplier,
                                 checkPointerSupplier, fs, pageCache, logProvider, storeCopyCheckPointMutex ) );
 
@@ -28,11 +28,14 @@ import org.neo4j.causalclustering.catchup.ResponseMessageType;
 import org.neo4j.causalclustering.identity.StoreId;
 import org.neo4j.cursor.IOCursor;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.MappedTransactionCursor;
 
 import static org.neo4j.causalclustering.catchup.CatchupResult.SUCCESS_END_OF_STREAM;
 
 /**
- * Returns a chunked stream of transactions.
+ * Returns a chunked stream of transactions. Transactions read by a {@link MappedTransactionCursor} are sent as their
+ * log entries, the way they are in the log, unless their commands are compressed in the log, in which case they are
+ * serialized again, uncompressed, like all other transactions.
  */
 public class ChunkedTransactionStream implements ChunkedInput<Object>
 {
@@ -96,7 +99,9 @@ public class ChunkedTransactionStream implements ChunkedInput<Object>
 
             CommittedTransactionRepresentation tx = txCursor.get();
             lastTxId = tx.getCommitEntry().getTxId();
-            pending = new TxPullResponse( storeId, tx );
+            pending = txCursor instanceof MappedTransactionCursor
+                      ? new TxPullResponse( storeId, tx, ((MappedTransactionCursor) txCursor).logEntries() )
+                      : new TxPullResponse( storeId, tx );
             return ResponseMessageType.TX;
         }
         else
@@ -55,10 +55,24 @@ public class TxPullRequestHandler extends SimpleChannelInboundHandler<TxPullRequ
     private final LogicalTransactionStore logicalTransactionStore;
     private final TxPullRequestsMonitor monitor;
     private final Log log;
+    private final boolean mappedTxLog;
 
     public TxPullRequestHandler( CatchupServerProtocol protocol, Supplier<StoreId> storeIdSupplier,
             BooleanSupplier databaseAvailable, Supplier<TransactionIdStore> transactionIdStoreSupplier,
             Supplier<LogicalTransactionStore> logicalTransactionStoreSupplier, Monitors monitors, LogProvider logProvider )
+    {
+        this( protocol, storeIdSupplier, databaseAvailable, transactionIdStoreSupplier,
+                logicalTransactionStoreSupplier, monitors, logProvider, false );
+    }
+
+    /**
+     * @param mappedTxLog whether or not to read the transaction log through memory mapping, and send the log entries
+     * of transactions the way they are in the log, instead of serializing the transactions again.
+     */
+    public TxPullRequestHandler( CatchupServerProtocol protocol, Supplier<StoreId> storeIdSupplier,
+            BooleanSupplier databaseAvailable, Supplier<TransactionIdStore> transactionIdStoreSupplier,
+            Supplier<LogicalTransactionStore> logicalTransactionStoreSupplier, Monitors monitors,
+            LogProvider logProvider, boolean mappedTxLog )
     {
         this.protocol = protocol;
         this.storeIdSupplier = storeIdSupplier;
@@ -67,6 +81,7 @@ public class TxPullRequestHandler extends SimpleChannelInboundHandler<TxPullRequ
         this.logicalTransactionStore = logicalTransactionStoreSupplier.get();
         this.monitor = monitors.newMonitor( TxPullRequestsMonitor.class );
         this.log = logProvider.getLog( getClass() );
+        this.mappedTxLog = mappedTxLog;
     }
 
     @Override
@@ -113,7 +128,8 @@ public class TxPullRequestHandler extends SimpleChannelInboundHandler<TxPullRequ
 
         try
         {
-            return logicalTransactionStore.getTransactions( firstTxId );
+            return mappedTxLog ? logicalTransactionStore.getMappedTransactions( firstTxId )
+                               : logicalTransactionStore.getTransactions( firstTxId );
         }
         catch ( NoSuchTransactionException e )
         {
@@ -19,6 +19,8 @@
  */
 package org.neo4j.causalclustering.catchup.tx;
 
+import java.nio.ByteBuffer;
+
 import org.neo4j.causalclustering.identity.StoreId;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 
@@ -26,11 +28,22 @@ public class TxPullResponse
 {
     private final StoreId storeId;
     private final CommittedTransactionRepresentation tx;
+    private final ByteBuffer logEntries;
 
     public TxPullResponse( StoreId storeId, CommittedTransactionRepresentation tx )
+    {
+        this( storeId, tx, null );
+    }
+
+    /**
+     * @param logEntries the log entries of the transaction, the way they are in the transaction log, to send
+     * instead of serializing the transaction again, or {@code null} to serialize it.
+     */
+    public TxPullResponse( StoreId storeId, CommittedTransactionRepresentation tx, ByteBuffer logEntries )
     {
         this.storeId = storeId;
         this.tx = tx;
+        this.logEntries = logEntries;
     }
 
     public StoreId storeId()
@@ -43,6 +56,15 @@ public class TxPullResponse
         return tx;
     }
 
+    /**
+     * @return the log entries of the transaction, the way they are in the transaction log, or {@code null} if
+     * the transaction is to be serialized.
+     */
+    public ByteBuffer logEntries()
+    {
+        return logEntries;
+    }
+
     @Override
     public boolean equals( Object o )
     {
@@ -34,6 +34,14 @@ public class TxPullResponseEncoder extends MessageToByteEncoder<TxPullResponse>
     {
         NetworkFlushableByteBuf channel = new NetworkFlushableByteBuf( out );
         StoreIdMarshal.INSTANCE.marshal( response.storeId(), channel );
-        new CommittedTransactionSerializer( channel ).visit( response.tx() );
+        if ( response.logEntries() != null )
+        {
+            // In the same format as the serializer writes, so there's no need to serialize the transaction again
+            out.writeBytes( response.logEntries().duplicate() );
+        }
+        else
+        {
+            new CommittedTransactionSerializer( channel ).visit( response.tx() );
+        }
     }
 }
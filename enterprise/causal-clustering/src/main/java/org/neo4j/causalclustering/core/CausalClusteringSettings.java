@@ -81,6 +81,13 @@ public class CausalClusteringSettings implements LoadableConfig
     public static final Setting<Integer> catchup_batch_size =
             setting( "causal_clustering.catchup_batch_size", INTEGER, "64" );
 
+    @Description( "Serve transactions to catching up members by reading the transaction log through memory mapping " +
+            "and sending the log entries of each transaction the way they are in the log, instead of serializing " +
+            "each transaction again. Each transaction is still read in full, to find where it ends in the log. " +
+            "Transactions whose commands are compressed in the log are serialized again, uncompressed" )
+    public static final Setting<Boolean> catchup_mapped_tx_log =
+            setting( "causal_clustering.catchup_mapped_tx_log", BOOLEAN, FALSE );
+
     @Description( "The maximum lag allowed before log shipping pauses (in unit of entries)" )
     public static final Setting<Integer> log_shipping_max_lag =
             setting( "causal_clustering.log_shipping_max_lag", INTEGER, "256" );
@@ -32,6 +32,7 @@ import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Commands;
 import org.neo4j.kernel.impl.transaction.log.LogPosition;
 import org.neo4j.kernel.impl.transaction.log.LogicalTransactionStore;
+import org.neo4j.kernel.impl.transaction.log.MappedTransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.NoSuchTransactionException;
 import org.neo4j.kernel.impl.transaction.log.TransactionCursor;
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
@@ -79,6 +80,25 @@ public class TxPullRequestHandlerTest
         verify( context ).writeAndFlush( isA( ChunkedTransactionStream.class ) );
     }
 
+    @Test
+    public void shouldRespondWithMappedStreamOfTransactionsIfConfiguredTo() throws Exception
+    {
+        // given
+        TxPullRequestHandler txPullRequestHandler = new TxPullRequestHandler( new CatchupServerProtocol(),
+                () -> storeId, () -> true, () -> transactionIdStore, () -> logicalTransactionStore, new Monitors(),
+                logProvider, true );
+        when( transactionIdStore.getLastCommittedTransactionId() ).thenReturn( 15L );
+        MappedTransactionCursor txCursor = mock( MappedTransactionCursor.class );
+        when( logicalTransactionStore.getMappedTransactions( 14L ) ).thenReturn( txCursor );
+
+        // when
+        txPullRequestHandler.channelRead0( context, new TxPullRequest( 13, storeId ) );
+
+        // then
+        verify( context ).writeAndFlush( isA( ChunkedTransactionStream.class ) );
+        verify( logicalTransactionStore, never() ).getTransactions( 14L );
+    }
+
     @Test
     public void shouldRespondWithEndOfStreamIfThereAreNoTransactions() throws Exception
     {
@@ -19,10 +19,14 @@
  */
 package org.neo4j.causalclustering.catchup.tx;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.channel.embedded.EmbeddedChannel;
 import org.junit.Test;
 
 import org.neo4j.causalclustering.identity.StoreId;
+import org.neo4j.causalclustering.messaging.NetworkFlushableByteBuf;
+import org.neo4j.com.CommittedTransactionSerializer;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.command.Command;
@@ -56,6 +60,26 @@ public class TxPullResponseEncodeDecodeTest
         assertEquals( sent, received );
     }
 
+    @Test
+    public void shouldDecodePullResponseMessageSentAsLogEntries() throws Exception
+    {
+        // given
+        EmbeddedChannel channel = new EmbeddedChannel( new TxPullResponseEncoder(), new TxPullResponseDecoder() );
+        CommittedTransactionRepresentation tx = newCommittedTransactionRepresentation();
+        ByteBuf logEntries = Unpooled.buffer();
+        new CommittedTransactionSerializer( new NetworkFlushableByteBuf( logEntries ) ).visit( tx );
+        TxPullResponse sent = new TxPullResponse( new StoreId( 1, 2, 3, 4 ), tx, logEntries.nioBuffer() );
+
+        // when
+        channel.writeOutbound( sent );
+        Object message = channel.readOutbound();
+        channel.writeInbound( message );
+
+        // then
+        TxPullResponse received = channel.readInbound();
+        assertEquals( sent, received );
+    }
+
     private CommittedTransactionRepresentation newCommittedTransactionRepresentation()
     {
         final long arbitraryRecordId = 27L;
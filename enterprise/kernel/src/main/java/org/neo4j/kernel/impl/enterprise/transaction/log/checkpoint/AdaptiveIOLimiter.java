@@ -0,0 +1,276 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+import java.util.function.ObjLongConsumer;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+import org.neo4j.unsafe.impl.internal.dragons.FeatureToggles;
+
+/**
+ * An IO limiter that adapts the rate of check point IO to how it affects the rest of the database.
+ * <p>
+ * The limiter watches the latency of page faults, and of transaction log forces, which is the IO that transaction
+ * commits wait for. The latencies seen while the limiter pauses the flushing, and in between flushes, form a baseline
+ * which follows the recent latencies of the storage device. Since it is also sampled during pauses, there is a
+ * baseline even when flushes follow each other back to back, as with continuous check pointing. While flushing, the
+ * IO rate is raised a little for every quantum where the latencies stay close to their baselines, and halved for every
+ * quantum where they don't. The rate never goes below the configured IOPS limit, so check points always make progress.
+ */
+public class AdaptiveIOLimiter implements IOLimiter
+{
+    private static final AtomicIntegerFieldUpdater<AdaptiveIOLimiter> disableCountUpdater =
+            AtomicIntegerFieldUpdater.newUpdater( AdaptiveIOLimiter.class, "disabledCount" );
+
+    private static final int QUANTUM_MILLIS = 100;
+    private static final int QUANTUMS_PER_SECOND = (int) (TimeUnit.SECONDS.toMillis( 1 ) / QUANTUM_MILLIS);
+    private static final int TIME_BITS = 32;
+    private static final long TIME_MASK = (1L << TIME_BITS) - 1;
+
+    // The IO is considered to slow down the foreground work, if it makes the average latency of page faults or log
+    // forces this many percent of their baselines.
+    private static final int congestionThresholdPercent = FeatureToggles.getInteger(
+            AdaptiveIOLimiter.class, "congestionThresholdPercent", 200 );
+
+    // The IOPS limit will never be raised above this.
+    private static final int maxIOPS = FeatureToggles.getInteger( AdaptiveIOLimiter.class, "maxIOPS", 100_000 );
+
+    // Only latencies from time periods with at least this many page faults or log forces, are taken into account.
+    private static final int MIN_SAMPLES = 4;
+
+    // If there has been no flushing for this long, the latencies seen since the last flush are added to the baseline.
+    private static final long IDLE_MILLIS = 500;
+
+    private static final int CONGESTED = -1;
+    private static final int UNKNOWN = 0;
+    private static final int UNCONGESTED = 1;
+
+    private final PageCacheCounters pageCacheCounters;
+    private final LogForceMonitor logForceMonitor;
+    private final ObjLongConsumer<Object> pauseNanos;
+    private final LongSupplier currentTimeMillis;
+    private final int minIopq;
+    private final int maxIopq;
+    private final int increaseIopq;
+
+    private volatile int iopq; // IOs per quantum
+    private volatile long lastLimitMillis;
+
+    // Guarded by the monitor of this object.
+    private final Sample faultSample = new Sample();
+    private final Sample forceSample = new Sample();
+
+    @SuppressWarnings( "unused" ) // Updated via disableCountUpdater
+    private volatile int disabledCount;
+
+    public AdaptiveIOLimiter( int iops, PageCacheCounters pageCacheCounters, LogForceMonitor logForceMonitor )
+    {
+        this( iops, pageCacheCounters, logForceMonitor, LockSupport::parkNanos, System::currentTimeMillis );
+    }
+
+    // Only visible for testing
+    AdaptiveIOLimiter( int iops, PageCacheCounters pageCacheCounters, LogForceMonitor logForceMonitor,
+            ObjLongConsumer<Object> pauseNanos, LongSupplier currentTimeMillis )
+    {
+        this.pageCacheCounters = pageCacheCounters;
+        this.logForceMonitor = logForceMonitor;
+        this.pauseNanos = pauseNanos;
+        this.currentTimeMillis = currentTimeMillis;
+        this.minIopq = Math.max( 1, iops / QUANTUMS_PER_SECOND );
+        this.maxIopq = Math.max( minIopq, maxIOPS / QUANTUMS_PER_SECOND );
+        this.increaseIopq = Math.max( 1, minIopq / 4 );
+        this.iopq = minIopq;
+    }
+
+    // The stamp has the same layout as in the ConfigurableIOLimiter:
+    // The high bits are the number of IOs performed since the last pause.
+    // The low bits is the 32-bit timestamp in milliseconds (~25 day range) since the last pause.
+    // Every time a quantum ends, either because it elapsed, or because we exhausted the IOs we were allowed in it,
+    // we look at the latencies that were observed during the quantum, and adjust the number of IOs allowed for the
+    // next one.
+
+    @Override
+    public long maybeLimitIO( long previousStamp, int recentlyCompletedIOs, Flushable flushable ) throws IOException
+    {
+        if ( disabledCount > 0 )
+        {
+            return INITIAL_STAMP;
+        }
+
+        long millis = currentTimeMillis.getAsLong();
+        if ( previousStamp == INITIAL_STAMP )
+        {
+            beginFlush( millis );
+        }
+        lastLimitMillis = millis;
+
+        long now = millis & TIME_MASK;
+        long then = previousStamp & TIME_MASK;
+
+        if ( now - then > QUANTUM_MILLIS )
+        {
+            if ( previousStamp != INITIAL_STAMP )
+            {
+                adjustRate();
+            }
+            return now + (((long) recentlyCompletedIOs) << TIME_BITS);
+        }
+
+        long ioSum = (previousStamp >> TIME_BITS) + recentlyCompletedIOs;
+        if ( ioSum >= iopq )
+        {
+            long millisLeftInQuantum = QUANTUM_MILLIS - (now - then);
+            adjustRate();
+            pauseNanos.accept( this, TimeUnit.MILLISECONDS.toNanos( millisLeftInQuantum ) );
+            sampleBaseline();
+            return currentTimeMillis.getAsLong() & TIME_MASK;
+        }
+
+        return then + (ioSum << TIME_BITS);
+    }
+
+    private synchronized void beginFlush( long millis )
+    {
+        // If we have not been flushing for a while, then the latencies since the last sample are a good baseline.
+        // Otherwise they include the tail of the previous flush, and we only start a new sample.
+        if ( millis - lastLimitMillis > IDLE_MILLIS )
+        {
+            sampleBaseline();
+        }
+        else
+        {
+            faultSample.sample( pageCacheCounters.faults(), pageCacheCounters.faultNanos() );
+            forceSample.sample( logForceMonitor.numberOfLogForceEvents(),
+                    logForceMonitor.logForceAccumulatedTotalTimeNanos() );
+        }
+    }
+
+    // The latencies seen while we paused the flushing, are those of the foreground IO without our IO competing with it.
+    private synchronized void sampleBaseline()
+    {
+        faultSample.sampleBaseline( pageCacheCounters.faults(), pageCacheCounters.faultNanos() );
+        forceSample.sampleBaseline( logForceMonitor.numberOfLogForceEvents(),
+                logForceMonitor.logForceAccumulatedTotalTimeNanos() );
+    }
+
+    private synchronized void adjustRate()
+    {
+        int faults = faultSample.sample( pageCacheCounters.faults(), pageCacheCounters.faultNanos() );
+        int forces = forceSample.sample( logForceMonitor.numberOfLogForceEvents(),
+                logForceMonitor.logForceAccumulatedTotalTimeNanos() );
+        if ( faults == CONGESTED || forces == CONGESTED )
+        {
+            iopq = Math.max( minIopq, iopq / 2 );
+        }
+        else if ( faults == UNCONGESTED && forces == UNCONGESTED )
+        {
+            iopq = Math.min( maxIopq, iopq + increaseIopq );
+        }
+    }
+
+    /**
+     * @return the number of IOs per second that this limiter currently allows, or -1 if it is disabled.
+     */
+    @Override
+    public long currentIOPSLimit()
+    {
+        return disabledCount > 0 ? -1 : ((long) iopq) * QUANTUMS_PER_SECOND;
+    }
+
+    @Override
+    public void disableLimit()
+    {
+        disableCountUpdater.getAndIncrement( this );
+    }
+
+    @Override
+    public void enableLimit()
+    {
+        disableCountUpdater.getAndDecrement( this );
+    }
+
+    /**
+     * Keeps track of the cumulative event count and latency of one kind of foreground IO, and of its baseline latency.
+     * The baseline is an exponentially decaying average of the latencies seen in baseline samples, so it follows
+     * the storage device when it gets slower or faster for reasons other than the check point.
+     */
+    private static class Sample
+    {
+        private long events;
+        private long nanos;
+        private long baselineEvents;
+        private long baselineSampleNanos;
+        private long baselineNanos;
+
+        /**
+         * Take a new sample of the given cumulative values, and compare the average latency since the last sample,
+         * with the baseline.
+         * @return {@link #CONGESTED} if the average latency is much higher than the baseline, {@link #UNKNOWN} if we
+         * have no baseline to compare with, and otherwise {@link #UNCONGESTED}.
+         */
+        int sample( long totalEvents, long totalNanos )
+        {
+            long sampleEvents = totalEvents - events;
+            long sampleNanos = totalNanos - nanos;
+            events = totalEvents;
+            nanos = totalNanos;
+
+            if ( sampleEvents < MIN_SAMPLES )
+            {
+                // Too little foreground IO to tell. Either way, there is not much for the check point to slow down.
+                return UNCONGESTED;
+            }
+            long averageNanos = sampleNanos / sampleEvents;
+            if ( baselineNanos == 0 )
+            {
+                return UNKNOWN;
+            }
+            return averageNanos * 100 > baselineNanos * congestionThresholdPercent ? CONGESTED : UNCONGESTED;
+        }
+
+        /**
+         * Take a new sample of the given cumulative values, and add the latencies since the last sample to the
+         * baseline. Pauses are short, so baseline samples are accumulated until they have enough events to tell.
+         */
+        void sampleBaseline( long totalEvents, long totalNanos )
+        {
+            baselineEvents += totalEvents - events;
+            baselineSampleNanos += totalNanos - nanos;
+            events = totalEvents;
+            nanos = totalNanos;
+
+            if ( baselineEvents >= MIN_SAMPLES )
+            {
+                long averageNanos = baselineSampleNanos / baselineEvents;
+                baselineNanos = baselineNanos == 0 ? averageNanos : (baselineNanos * 7 + averageNanos) / 8;
+                baselineEvents = 0;
+                baselineSampleNanos = 0;
+            }
+        }
+    }
+}
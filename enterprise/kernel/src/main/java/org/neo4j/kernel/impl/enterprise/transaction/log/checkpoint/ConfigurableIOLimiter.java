@@ -41,6 +41,7 @@ public class ConfigurableIOLimiter implements IOLimiter
     private static final long TIME_MASK = (1L << TIME_BITS) - 1;
 
     private final int iopq; // IOs per quantum
+    private final int quantumsPerSecond;
     private final ObjLongConsumer<Object> pauseNanos;
 
     @SuppressWarnings( "unused" ) // Updated via disableCountUpdater
@@ -55,7 +56,7 @@ public class ConfigurableIOLimiter implements IOLimiter
     ConfigurableIOLimiter( Config config, ObjLongConsumer<Object> pauseNanos )
     {
         this.pauseNanos = pauseNanos;
-        int quantumsPerSecond = (int) (TimeUnit.SECONDS.toMillis( 1 ) / QUANTUM_MILLIS);
+        this.quantumsPerSecond = (int) (TimeUnit.SECONDS.toMillis( 1 ) / QUANTUM_MILLIS);
         Integer iops = config.get( GraphDatabaseSettings.check_point_iops_limit );
         if ( iops == null || iops < 1 )
         {
@@ -113,6 +114,12 @@ public class ConfigurableIOLimiter implements IOLimiter
         return then + (ioSum << TIME_BITS);
     }
 
+    @Override
+    public long currentIOPSLimit()
+    {
+        return disabledCount > 0 ? -1 : ((long) iopq) * quantumsPerSecond;
+    }
+
     @Override
     public void disableLimit()
     {
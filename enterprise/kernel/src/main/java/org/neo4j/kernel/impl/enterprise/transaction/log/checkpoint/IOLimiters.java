@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.PageCacheTracer;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+import org.neo4j.kernel.monitoring.tracing.Tracers;
+
+public class IOLimiters
+{
+    /**
+     * Create the {@link IOLimiter} to use for check pointing, as configured.
+     * <p>
+     * The {@link AdaptiveIOLimiter} is used when {@link GraphDatabaseSettings#check_point_iops_limit_adaptive} is
+     * enabled, and the tracers give us page fault or log force latencies to adapt to. Otherwise, the
+     * {@link ConfigurableIOLimiter} with its fixed IOPS limit is used.
+     */
+    public static IOLimiter createCheckPointIOLimiter( Config config, Tracers tracers )
+    {
+        Integer iops = config.get( GraphDatabaseSettings.check_point_iops_limit );
+        LogForceMonitor logForceMonitor = tracers.transactionTracer instanceof LogForceMonitor
+                                          ? (LogForceMonitor) tracers.transactionTracer : LogForceMonitor.NULL;
+        boolean haveLatencies = tracers.pageCacheTracer != PageCacheTracer.NULL || logForceMonitor != LogForceMonitor.NULL;
+        if ( config.get( GraphDatabaseSettings.check_point_iops_limit_adaptive ) && haveLatencies &&
+             iops != null && iops > 0 )
+        {
+            return new AdaptiveIOLimiter( iops, tracers.pageCacheTracer, logForceMonitor );
+        }
+        return new ConfigurableIOLimiter( config );
+    }
+
+    private IOLimiters()
+    {
+    }
+}
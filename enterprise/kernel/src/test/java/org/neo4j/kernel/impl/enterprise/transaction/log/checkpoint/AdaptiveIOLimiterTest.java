@@ -0,0 +1,270 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.enterprise.transaction.log.checkpoint;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.pagecache.IOLimiter;
+import org.neo4j.io.pagecache.tracing.DefaultPageCacheTracer;
+import org.neo4j.kernel.impl.api.LogForceMonitor;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AdaptiveIOLimiterTest
+{
+    private static final Flushable FLUSHABLE = () -> {};
+    private static final int IOPS = 100;
+
+    private DefaultPageCacheTracer pageCacheTracer;
+    private AtomicLong logForces;
+    private AtomicLong logForceNanos;
+    private AtomicLong clock;
+    private AtomicLong pauseNanosCounter;
+    private Runnable duringPause;
+    private AdaptiveIOLimiter limiter;
+
+    @Before
+    public void setUp()
+    {
+        pageCacheTracer = new DefaultPageCacheTracer();
+        logForces = new AtomicLong();
+        logForceNanos = new AtomicLong();
+        clock = new AtomicLong( TimeUnit.HOURS.toMillis( 1 ) );
+        pauseNanosCounter = new AtomicLong();
+        duringPause = () -> {};
+        LogForceMonitor logForceMonitor = new LogForceMonitor()
+        {
+            @Override
+            public long numberOfLogForceEvents()
+            {
+                return logForces.get();
+            }
+
+            @Override
+            public long logForceAccumulatedTotalTimeNanos()
+            {
+                return logForceNanos.get();
+            }
+        };
+        limiter = new AdaptiveIOLimiter( IOPS, pageCacheTracer, logForceMonitor, ( blocker, nanos ) ->
+        {
+            pauseNanosCounter.getAndAdd( nanos );
+            clock.getAndAdd( TimeUnit.NANOSECONDS.toMillis( nanos ) );
+            duringPause.run();
+        }, clock::get );
+    }
+
+    @Test
+    public void mustStartOutAtConfiguredLimit() throws Exception
+    {
+        assertThat( limiter.currentIOPSLimit(), is( (long) IOPS ) );
+    }
+
+    @Test
+    public void mustRaiseLimitWhileLatenciesStayAtBaseline() throws Exception
+    {
+        faults( 10, 1000 );
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+
+        for ( int i = 0; i < 10; i++ )
+        {
+            faults( 10, 1000 );
+            stamp = exhaustQuantum( stamp );
+        }
+
+        assertThat( limiter.currentIOPSLimit(), greaterThan( (long) IOPS ) );
+        assertThat( pauseNanosCounter.get(), greaterThan( 0L ) );
+    }
+
+    @Test
+    public void mustHalveLimitWhenLatenciesGoUp() throws Exception
+    {
+        faults( 10, 1000 );
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+        for ( int i = 0; i < 20; i++ )
+        {
+            faults( 10, 1000 );
+            stamp = exhaustQuantum( stamp );
+        }
+        long raisedLimit = limiter.currentIOPSLimit();
+        assertThat( raisedLimit, greaterThan( 2L * IOPS ) );
+
+        faults( 10, 10_000 );
+        exhaustQuantum( stamp );
+
+        assertThat( limiter.currentIOPSLimit(), is( raisedLimit / 2 ) );
+    }
+
+    @Test
+    public void mustHalveLimitWhenLogForceLatenciesGoUp() throws Exception
+    {
+        forces( 10, 100_000 );
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+        for ( int i = 0; i < 20; i++ )
+        {
+            forces( 10, 100_000 );
+            stamp = exhaustQuantum( stamp );
+        }
+        long raisedLimit = limiter.currentIOPSLimit();
+
+        forces( 10, 1_000_000 );
+        exhaustQuantum( stamp );
+
+        assertThat( limiter.currentIOPSLimit(), is( raisedLimit / 2 ) );
+    }
+
+    @Test
+    public void mustNeverGoBelowConfiguredLimit() throws Exception
+    {
+        faults( 10, 1000 );
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+        for ( int i = 0; i < 20; i++ )
+        {
+            faults( 10, 100_000 );
+            stamp = exhaustQuantum( stamp );
+        }
+
+        assertThat( limiter.currentIOPSLimit(), is( (long) IOPS ) );
+    }
+
+    @Test
+    public void mustHoldLimitWhenThereIsNoBaseline() throws Exception
+    {
+        // No page faults before the flush, so there is no baseline to compare with.
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+        for ( int i = 0; i < 10; i++ )
+        {
+            faults( 10, 100_000 );
+            stamp = exhaustQuantum( stamp );
+        }
+
+        assertThat( limiter.currentIOPSLimit(), is( (long) IOPS ) );
+    }
+
+    @Test
+    public void mustRaiseLimitWithBackToBackFlushesWhileLatenciesStayAtBaseline() throws Exception
+    {
+        // No idle time in between flushes, so the baseline can only come from the foreground IO seen while paused.
+        duringPause = () -> faults( 10, 1000 );
+        for ( int flush = 0; flush < 5; flush++ )
+        {
+            long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+            for ( int i = 0; i < 4; i++ )
+            {
+                faults( 10, 1000 );
+                stamp = exhaustQuantum( stamp );
+            }
+        }
+
+        assertThat( limiter.currentIOPSLimit(), greaterThan( 2L * IOPS ) );
+    }
+
+    @Test
+    public void mustHoldLimitWithBackToBackFlushesWhenLatenciesAreAboveBaseline() throws Exception
+    {
+        duringPause = () -> faults( 10, 1000 );
+        for ( int flush = 0; flush < 5; flush++ )
+        {
+            long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+            for ( int i = 0; i < 4; i++ )
+            {
+                faults( 10, 10_000 );
+                stamp = exhaustQuantum( stamp );
+            }
+        }
+
+        assertThat( limiter.currentIOPSLimit(), is( (long) IOPS ) );
+    }
+
+    @Test
+    public void mustFollowBaselineWhenLatenciesChangeWhilePaused() throws Exception
+    {
+        // given a baseline of 1000 nanos, and a raised limit
+        duringPause = () -> faults( 10, 1000 );
+        long stamp = limiter.maybeLimitIO( IOLimiter.INITIAL_STAMP, 0, FLUSHABLE );
+        for ( int i = 0; i < 10; i++ )
+        {
+            faults( 10, 1000 );
+            stamp = exhaustQuantum( stamp );
+        }
+        long raisedLimit = limiter.currentIOPSLimit();
+        assertThat( raisedLimit, greaterThan( (long) IOPS ) );
+
+        // when the device gets slower for everyone, also while we are paused
+        duringPause = () -> faults( 10, 5000 );
+        faults( 10, 5000 );
+        stamp = exhaustQuantum( stamp );
+
+        // then the limit is first lowered, but raised again as the baseline catches up
+        assertThat( limiter.currentIOPSLimit(), is( Math.max( IOPS, raisedLimit / 2 ) ) );
+        for ( int i = 0; i < 20; i++ )
+        {
+            faults( 10, 5000 );
+            stamp = exhaustQuantum( stamp );
+        }
+        assertThat( limiter.currentIOPSLimit(), greaterThan( Math.max( IOPS, raisedLimit / 2 ) ) );
+    }
+
+    @Test
+    public void mustNotLimitIOWhenDisabled() throws Exception
+    {
+        limiter.disableLimit();
+        try
+        {
+            assertThat( limiter.currentIOPSLimit(), is( -1L ) );
+            long stamp = IOLimiter.INITIAL_STAMP;
+            for ( int i = 0; i < 100; i++ )
+            {
+                stamp = limiter.maybeLimitIO( stamp, 100, FLUSHABLE );
+            }
+            assertThat( pauseNanosCounter.get(), is( 0L ) );
+        }
+        finally
+        {
+            limiter.enableLimit();
+        }
+        assertThat( limiter.currentIOPSLimit(), is( (long) IOPS ) );
+    }
+
+    private long exhaustQuantum( long stamp ) throws IOException
+    {
+        return limiter.maybeLimitIO( stamp, (int) limiter.currentIOPSLimit(), FLUSHABLE );
+    }
+
+    private void faults( int count, long nanosEach )
+    {
+        pageCacheTracer.faults( count );
+        pageCacheTracer.faultNanos( count * nanosEach );
+    }
+
+    private void forces( int count, long nanosEach )
+    {
+        logForces.addAndGet( count );
+        logForceNanos.addAndGet( count * nanosEach );
+    }
+}
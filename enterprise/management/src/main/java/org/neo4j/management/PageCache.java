@@ -57,4 +57,8 @@ public interface PageCache
                   "This number should be zero, or at least not growing, in a healthy database. " +
                   "Otherwise it could indicate drive failure, storage space, or permission problems." )
     long getEvictionExceptions();
+
+    @Description( "Information about each file currently mapped into the page cache: the number of its pages that " +
+                  "are in memory, and the number of pages reserved for it, which is zero if it has no quota." )
+    PagedFileInfo[] getPagedFiles();
 }
@@ -0,0 +1,55 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.management;
+
+import java.beans.ConstructorProperties;
+import java.io.Serializable;
+
+public final class PagedFileInfo implements Serializable
+{
+    private static final long serialVersionUID = 4170735429286839462L;
+
+    private String file;
+    private long residentPages;
+    private long reservedPages;
+
+    @ConstructorProperties( {"file", "residentPages", "reservedPages"} )
+    public PagedFileInfo( String file, long residentPages, long reservedPages )
+    {
+        this.file = file;
+        this.residentPages = residentPages;
+        this.reservedPages = reservedPages;
+    }
+
+    public String getFile()
+    {
+        return file;
+    }
+
+    public long getResidentPages()
+    {
+        return residentPages;
+    }
+
+    public long getReservedPages()
+    {
+        return reservedPages;
+    }
+}
@@ -19,14 +19,20 @@
  */
 package org.neo4j.management.impl;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import javax.management.NotCompliantMBeanException;
 
 import org.neo4j.helpers.Service;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
+import org.neo4j.io.pagecache.monitoring.PagedFileCounters;
 import org.neo4j.jmx.impl.ManagementBeanProvider;
 import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.management.PageCache;
+import org.neo4j.management.PagedFileInfo;
 
 @Service.Implementation( ManagementBeanProvider.class )
 public final class PageCacheBean extends ManagementBeanProvider
@@ -45,11 +51,13 @@ public final class PageCacheBean extends ManagementBeanProvider
     private static class PageCacheImpl extends Neo4jMBean implements PageCache
     {
         private final PageCacheCounters pageCacheCounters;
+        private final org.neo4j.io.pagecache.PageCache pageCache;
 
         PageCacheImpl( ManagementData management ) throws NotCompliantMBeanException
         {
             super( management );
             this.pageCacheCounters = management.resolveDependency( PageCacheCounters.class );
+            this.pageCache = management.getKernelData().getPageCache();
         }
 
         @Override
@@ -105,5 +113,32 @@ public final class PageCacheBean extends ManagementBeanProvider
         {
             return pageCacheCounters.evictionExceptions();
         }
+
+        @Override
+        public PagedFileInfo[] getPagedFiles()
+        {
+            List<PagedFileInfo> pagedFiles = new ArrayList<>();
+            try
+            {
+                for ( PagedFile mapping : pageCache.listExistingMappings() )
+                {
+                    // Every listed mapping has been referenced, and must be closed
+                    try ( PagedFile pagedFile = mapping )
+                    {
+                        if ( pagedFile instanceof PagedFileCounters )
+                        {
+                            PagedFileCounters counters = (PagedFileCounters) pagedFile;
+                            pagedFiles.add( new PagedFileInfo( counters.file().getPath(), counters.residentPages(),
+                                    counters.reservedPages() ) );
+                        }
+                    }
+                }
+            }
+            catch ( IOException e )
+            {
+                throw new RuntimeException( e );
+            }
+            return pagedFiles.toArray( new PagedFileInfo[pagedFiles.size()] );
+        }
     }
 }
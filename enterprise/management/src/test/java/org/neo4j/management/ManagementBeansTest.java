@@ -127,6 +127,13 @@ public class ManagementBeansTest
         assertNotNull( getManager().getPageCacheBean() );
     }
 
+    @Test
+    public void canListPagedFilesOfPageCacheBean() throws Exception
+    {
+        PagedFileInfo[] pagedFiles = getManager().getPageCacheBean().getPagedFiles();
+        assertTrue( "No paged files returned", pagedFiles.length > 0 );
+    }
+
     @Test
     public void canAccessMemoryMappingCompositData() throws Exception
     {
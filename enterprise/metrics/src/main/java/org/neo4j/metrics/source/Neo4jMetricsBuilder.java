@@ -24,6 +24,7 @@ import com.codahale.metrics.MetricRegistry;
 import java.util.function.Supplier;
 
 import org.neo4j.causalclustering.core.consensus.CoreMetaData;
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.io.pagecache.monitoring.PageCacheCounters;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.ha.cluster.member.ClusterMembers;
@@ -50,6 +51,7 @@ import org.neo4j.metrics.source.db.CypherMetrics;
 import org.neo4j.metrics.source.db.EntityCountMetrics;
 import org.neo4j.metrics.source.db.LogRotationMetrics;
 import org.neo4j.metrics.source.db.PageCacheMetrics;
+import org.neo4j.metrics.source.db.PageCacheWarmupMetrics;
 import org.neo4j.metrics.source.db.TransactionMetrics;
 import org.neo4j.metrics.source.jvm.GCMetrics;
 import org.neo4j.metrics.source.jvm.MemoryBuffersMetrics;
@@ -77,6 +79,8 @@ public class Neo4jMetricsBuilder
 
         CheckPointerMonitor checkPointerMonitor();
 
+        IOLimiter ioLimiter();
+
         LogRotationMonitor logRotationMonitor();
 
         StoreEntityCounters entityCountStats();
@@ -113,13 +117,14 @@ public class Neo4jMetricsBuilder
         if ( config.get( MetricsSettings.neoPageCacheEnabled ) )
         {
             life.add( new PageCacheMetrics( registry, dependencies.pageCacheCounters() ) );
+            life.add( new PageCacheWarmupMetrics( registry, dependencies.monitors() ) );
             result = true;
         }
 
         if ( config.get( MetricsSettings.neoCheckPointingEnabled ) )
         {
             life.add( new CheckPointingMetrics( reporter, registry, dependencies.monitors(),
-                    dependencies.checkPointerMonitor() ) );
+                    dependencies.checkPointerMonitor(), dependencies.ioLimiter() ) );
             result = true;
         }
 
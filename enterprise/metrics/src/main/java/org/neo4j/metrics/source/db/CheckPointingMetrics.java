@@ -24,6 +24,7 @@ import com.codahale.metrics.MetricRegistry;
 
 import java.util.TreeMap;
 
+import org.neo4j.io.pagecache.IOLimiter;
 import org.neo4j.kernel.impl.annotations.Documented;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.CheckPointerMonitor;
 import org.neo4j.kernel.impl.transaction.log.checkpoint.DefaultCheckPointerTracer;
@@ -45,18 +46,22 @@ public class CheckPointingMetrics extends LifecycleAdapter
     public static final String CHECK_POINT_TOTAL_TIME = name( CHECK_POINT_PREFIX, "total_time" );
     @Documented( "The duration of the check point event" )
     public static final String CHECK_POINT_DURATION = name( CHECK_POINT_PREFIX, "check_point_duration" );
+    @Documented( "The number of IOs per second that check pointing is currently limited to, or -1 if unlimited" )
+    public static final String CHECK_POINT_IOPS_LIMIT = name( CHECK_POINT_PREFIX, "iops_limit" );
 
     private final MetricRegistry registry;
     private final Monitors monitors;
     private final CheckPointerMonitor checkPointerMonitor;
+    private final IOLimiter ioLimiter;
     private final DefaultCheckPointerTracer.Monitor listener;
 
     public CheckPointingMetrics( EventReporter reporter, MetricRegistry registry,
-            Monitors monitors, CheckPointerMonitor checkPointerMonitor )
+            Monitors monitors, CheckPointerMonitor checkPointerMonitor, IOLimiter ioLimiter )
     {
         this.registry = registry;
         this.monitors = monitors;
         this.checkPointerMonitor = checkPointerMonitor;
+        this.ioLimiter = ioLimiter;
         this.listener = durationMillis ->
         {
             TreeMap<String,Gauge> gauges = new TreeMap<>();
@@ -73,6 +78,7 @@ public class CheckPointingMetrics extends LifecycleAdapter
         registry.register( CHECK_POINT_EVENTS, (Gauge<Long>) checkPointerMonitor::numberOfCheckPointEvents );
         registry.register( CHECK_POINT_TOTAL_TIME,
                 (Gauge<Long>) checkPointerMonitor::checkPointAccumulatedTotalTimeMillis );
+        registry.register( CHECK_POINT_IOPS_LIMIT, (Gauge<Long>) ioLimiter::currentIOPSLimit );
     }
 
     @Override
@@ -82,5 +88,6 @@ public class CheckPointingMetrics extends LifecycleAdapter
 
         registry.remove( CHECK_POINT_EVENTS );
         registry.remove( CHECK_POINT_TOTAL_TIME );
+        registry.remove( CHECK_POINT_IOPS_LIMIT );
     }
 }
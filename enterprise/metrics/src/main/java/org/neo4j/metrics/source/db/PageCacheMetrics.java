@@ -35,6 +35,8 @@ public class PageCacheMetrics extends LifecycleAdapter
 
     @Documented( "The total number of exceptions seen during the eviction process in the page cache" )
     public static final String PC_EVICTION_EXCEPTIONS = name( PAGE_CACHE_PREFIX, "eviction_exceptions" );
+    @Documented( "The total number of page evictions that had to flush a dirty page before it could be evicted" )
+    public static final String PC_EVICTION_FLUSHES = name( PAGE_CACHE_PREFIX, "eviction_flushes" );
     @Documented( "The total number of flushes executed by the page cache" )
     public static final String PC_FLUSHES = name( PAGE_CACHE_PREFIX, "flushes" );
     @Documented( "The total number of page unpins executed by the page cache" )
@@ -49,6 +51,12 @@ public class PageCacheMetrics extends LifecycleAdapter
     public static final String PC_HITS = name( PAGE_CACHE_PREFIX, "hits" );
     @Documented( "The ratio of hits to the total number of lookups in the page cache" )
     public static final String PC_HIT_RATIO = name( PAGE_CACHE_PREFIX, "hit_ratio" );
+    @Documented( "Whether or not the page cache uses the `clock` eviction policy, which the hits, page faults and " +
+                 "hit ratio have been observed under" )
+    public static final String PC_EVICTION_POLICY_CLOCK = name( PAGE_CACHE_PREFIX, "eviction_policy", "clock" );
+    @Documented( "Whether or not the page cache uses the `tiny_lfu` eviction policy, which the hits, page faults " +
+                 "and hit ratio have been observed under" )
+    public static final String PC_EVICTION_POLICY_TINY_LFU = name( PAGE_CACHE_PREFIX, "eviction_policy", "tiny_lfu" );
 
     private final MetricRegistry registry;
     private final PageCacheCounters pageCacheCounters;
@@ -69,7 +77,10 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.register( PC_HITS, (Gauge<Long>) pageCacheCounters::hits );
         registry.register( PC_FLUSHES, (Gauge<Long>) pageCacheCounters::flushes );
         registry.register( PC_EVICTION_EXCEPTIONS, (Gauge<Long>) pageCacheCounters::evictionExceptions );
+        registry.register( PC_EVICTION_FLUSHES, (Gauge<Long>) pageCacheCounters::evictionFlushes );
         registry.register( PC_HIT_RATIO, (Gauge<Double>) pageCacheCounters::hitRatio );
+        registry.register( PC_EVICTION_POLICY_CLOCK, new EvictionPolicyGauge( "clock" ) );
+        registry.register( PC_EVICTION_POLICY_TINY_LFU, new EvictionPolicyGauge( "tiny_lfu" ) );
     }
 
     @Override
@@ -82,6 +93,25 @@ public class PageCacheMetrics extends LifecycleAdapter
         registry.remove( PC_HITS );
         registry.remove( PC_FLUSHES );
         registry.remove( PC_EVICTION_EXCEPTIONS );
+        registry.remove( PC_EVICTION_FLUSHES );
         registry.remove( PC_HIT_RATIO );
+        registry.remove( PC_EVICTION_POLICY_CLOCK );
+        registry.remove( PC_EVICTION_POLICY_TINY_LFU );
+    }
+
+    private class EvictionPolicyGauge implements Gauge<Integer>
+    {
+        private final String policyName;
+
+        EvictionPolicyGauge( String policyName )
+        {
+            this.policyName = policyName;
+        }
+
+        @Override
+        public Integer getValue()
+        {
+            return policyName.equalsIgnoreCase( pageCacheCounters.evictionPolicy() ) ? 1 : 0;
+        }
     }
 }
@@ -0,0 +1,115 @@
+/*
+ * Copyright (c) 2002-2017 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.metrics.source.db;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.kernel.impl.annotations.Documented;
+import org.neo4j.kernel.impl.pagecache.PageCacheWarmerMonitor;
+import org.neo4j.kernel.lifecycle.LifecycleAdapter;
+import org.neo4j.kernel.monitoring.Monitors;
+
+import static com.codahale.metrics.MetricRegistry.name;
+
+@Documented( ".Database PageCache Warmup Metrics" )
+public class PageCacheWarmupMetrics extends LifecycleAdapter
+{
+    private static final String PAGE_CACHE_WARMUP_PREFIX = "neo4j.page_cache.warmup";
+
+    @Documented( "The number of files whose pages have been loaded by the page cache warmup so far" )
+    public static final String PC_WARMUP_FILES = name( PAGE_CACHE_WARMUP_PREFIX, "files" );
+    @Documented( "The total number of files to be warmed up by the page cache warmup" )
+    public static final String PC_WARMUP_FILES_TOTAL = name( PAGE_CACHE_WARMUP_PREFIX, "files_total" );
+    @Documented( "The number of pages loaded by the page cache warmup so far" )
+    public static final String PC_WARMUP_PAGES_LOADED = name( PAGE_CACHE_WARMUP_PREFIX, "pages_loaded" );
+    @Documented( "The duration of the page cache warmup, or -1 if the warmup has not completed yet" )
+    public static final String PC_WARMUP_DURATION = name( PAGE_CACHE_WARMUP_PREFIX, "duration" );
+    @Documented( "The number of pages that were in memory, when the page cache was last profiled" )
+    public static final String PC_PROFILE_PAGES_IN_MEMORY = name( PAGE_CACHE_WARMUP_PREFIX, "profile_pages_in_memory" );
+
+    private final MetricRegistry registry;
+    private final Monitors monitors;
+    private final AtomicLong filesWarmedUp = new AtomicLong();
+    private final AtomicLong filesTotal = new AtomicLong();
+    private final AtomicLong pagesLoaded = new AtomicLong();
+    private final AtomicLong warmupDurationMillis = new AtomicLong( -1 );
+    private final AtomicLong profilePagesInMemory = new AtomicLong();
+    private final PageCacheWarmerMonitor listener = new PageCacheWarmerMonitor()
+    {
+        @Override
+        public void warmupStarted( int files )
+        {
+            filesTotal.set( files );
+        }
+
+        @Override
+        public void fileWarmedUp( File file, long pages )
+        {
+            filesWarmedUp.incrementAndGet();
+            pagesLoaded.addAndGet( pages );
+        }
+
+        @Override
+        public void warmupCompleted( long elapsedMillis, long pages )
+        {
+            warmupDurationMillis.set( elapsedMillis );
+        }
+
+        @Override
+        public void profileCompleted( long elapsedMillis, long pagesInMemory )
+        {
+            profilePagesInMemory.set( pagesInMemory );
+        }
+    };
+
+    public PageCacheWarmupMetrics( MetricRegistry registry, Monitors monitors )
+    {
+        this.registry = registry;
+        this.monitors = monitors;
+    }
+
+    @Override
+    public void start()
+    {
+        monitors.addMonitorListener( listener );
+
+        registry.register( PC_WARMUP_FILES, (Gauge<Long>) filesWarmedUp::get );
+        registry.register( PC_WARMUP_FILES_TOTAL, (Gauge<Long>) filesTotal::get );
+        registry.register( PC_WARMUP_PAGES_LOADED, (Gauge<Long>) pagesLoaded::get );
+        registry.register( PC_WARMUP_DURATION, (Gauge<Long>) warmupDurationMillis::get );
+        registry.register( PC_PROFILE_PAGES_IN_MEMORY, (Gauge<Long>) profilePagesInMemory::get );
+    }
+
+    @Override
+    public void stop()
+    {
+        monitors.removeMonitorListener( listener );
+
+        registry.remove( PC_WARMUP_FILES );
+        registry.remove( PC_WARMUP_FILES_TOTAL );
+        registry.remove( PC_WARMUP_PAGES_LOADED );
+        registry.remove( PC_WARMUP_DURATION );
+        registry.remove( PC_PROFILE_PAGES_IN_MEMORY );
+    }
+}
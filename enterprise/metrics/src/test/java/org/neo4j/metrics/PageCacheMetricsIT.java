@@ -48,6 +48,8 @@ import static org.neo4j.metrics.MetricsTestHelper.metricsCsv;
 import static org.neo4j.metrics.MetricsTestHelper.readDoubleValue;
 import static org.neo4j.metrics.MetricsTestHelper.readLongValue;
 import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_EVICTIONS;
+import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_EVICTION_POLICY_CLOCK;
+import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_EVICTION_POLICY_TINY_LFU;
 import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_EVICTION_EXCEPTIONS;
 import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_FLUSHES;
 import static org.neo4j.metrics.source.db.PageCacheMetrics.PC_HITS;
@@ -107,6 +109,10 @@ public class PageCacheMetricsIT
         assertMetrics( "Metrics report should include page cache hits", PC_HITS, greaterThan( 0L ) );
         assertMetrics( "Metrics report should include page cache flushes", PC_FLUSHES, greaterThanOrEqualTo( 0L ) );
         assertMetrics( "Metrics report should include page cache exceptions", PC_EVICTION_EXCEPTIONS, equalTo( 0L ) );
+        assertMetrics( "Metrics report should include the default eviction policy", PC_EVICTION_POLICY_CLOCK,
+                equalTo( 1L ) );
+        assertMetrics( "Metrics report should include the unused eviction policy", PC_EVICTION_POLICY_TINY_LFU,
+                equalTo( 0L ) );
 
         assertEventually(
                 "Metrics report should include page cache hit ratio",